@@ -0,0 +1,172 @@
+package uk.ac.starlink.array;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.util.SplitCollector;
+
+/**
+ * SplitCollector which copies pixels from one array to another,
+ * for use in parallel processing.
+ * Each accumulator holds its own pair of accessors for the source and
+ * destination arrays, along with buffers for the copy, so that
+ * different threads never share an ArrayAccess object.
+ * Both arrays must therefore be random access and support multiple
+ * accessors, and they must have the same pixel sequence.
+ *
+ * <p>Accessors are acquired as accumulators are created,
+ * and must be released by calling {@link #close} when the collection
+ * is complete.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class CopyCollector
+        implements SplitCollector<PixelRange,CopyCollector.Copier> {
+
+    private final NDArray src;
+    private final NDArray dest;
+    private final Converter conv;
+    private final List<Copier> copiers;
+
+    private static final Logger logger =
+        Logger.getLogger( "uk.ac.starlink.array" );
+
+    /**
+     * Constructor.
+     *
+     * @param  src   source array
+     * @param  dest  destination array
+     */
+    public CopyCollector( NDArray src, NDArray dest ) {
+        this.src = src;
+        this.dest = dest;
+        this.conv = new TypeConverter( src.getType(), src.getBadHandler(),
+                                       dest.getType(), dest.getBadHandler() );
+        this.copiers = new ArrayList<Copier>();
+    }
+
+    /**
+     * Creates a new accumulator with its own accessors.
+     * This is synchronized, since the lazy initialisation done by
+     * some NDArray implementations when the first accessor is
+     * acquired is not thread-safe.
+     */
+    public synchronized Copier createAccumulator() {
+        try {
+            Copier copier = new Copier( src.getAccess(), dest.getAccess() );
+            copiers.add( copier );
+            return copier;
+        }
+        catch ( IOException e ) {
+            throw new RuntimeException( "Data error in parallel processing",
+                                        e );
+        }
+    }
+
+    public void accumulate( PixelRange range, Copier copier ) {
+        try {
+            copier.copy( range.getLow(), range.getHigh() );
+        }
+        catch ( IOException e ) {
+            throw new RuntimeException( "Data error in parallel processing",
+                                        e );
+        }
+    }
+
+    public Copier combine( Copier copier1, Copier copier2 ) {
+        return copier1;
+    }
+
+    /**
+     * Closes all the accessors acquired by this collector.
+     */
+    public synchronized void close() {
+        for ( Copier copier : copiers ) {
+            copier.close();
+        }
+        copiers.clear();
+    }
+
+    /**
+     * Accumulator which copies pixels using a pair of accessors
+     * owned by a single thread at a time.
+     */
+    class Copier {
+
+        private final ArrayAccess sAccess;
+        private final ArrayAccess dAccess;
+        private final Object sBuffer;
+        private final Object dBuffer;
+
+        /**
+         * Constructor.
+         *
+         * @param  sAccess  source accessor
+         * @param  dAccess  destination accessor
+         */
+        Copier( ArrayAccess sAccess, ArrayAccess dAccess ) {
+            this.sAccess = sAccess;
+            this.dAccess = dAccess;
+            int size = ChunkStepper.defaultChunkSize;
+            sBuffer = sAccess.isMapped() ? null
+                                         : sAccess.getType().newArray( size );
+            dBuffer = dAccess.isMapped() ? null
+                                         : dAccess.getType().newArray( size );
+        }
+
+        /**
+         * Copies a range of pixels.
+         *
+         * @param  lo  first offset to copy (inclusive)
+         * @param  hi  last offset to copy (exclusive)
+         */
+        void copy( long lo, long hi ) throws IOException {
+            sAccess.setOffset( lo );
+            dAccess.setOffset( lo );
+            for ( ChunkStepper cIt = new ChunkStepper( hi - lo );
+                  cIt.hasNext(); cIt.next() ) {
+                int size = cIt.getSize();
+                int off = (int) ( lo + cIt.getBase() );
+
+                /* Where an array is mapped, work directly on the mapped
+                 * array rather than via a buffer. */
+                if ( sAccess.isMapped() && dAccess.isMapped() ) {
+                    conv.convert12( sAccess.getMapped(), off,
+                                    dAccess.getMapped(), off, size );
+                }
+                else if ( sAccess.isMapped() ) {
+                    conv.convert12( sAccess.getMapped(), off,
+                                    dBuffer, 0, size );
+                    dAccess.write( dBuffer, 0, size );
+                }
+                else if ( dAccess.isMapped() ) {
+                    sAccess.read( sBuffer, 0, size );
+                    conv.convert12( sBuffer, 0,
+                                    dAccess.getMapped(), off, size );
+                }
+                else {
+                    sAccess.read( sBuffer, 0, size );
+                    conv.convert12( sBuffer, 0, dBuffer, 0, size );
+                    dAccess.write( dBuffer, 0, size );
+                }
+            }
+        }
+
+        /**
+         * Closes this object's accessors.
+         */
+        void close() {
+            try {
+                sAccess.close();
+                dAccess.close();
+            }
+            catch ( IOException e ) {
+                logger.log( Level.WARNING,
+                            "Error closing accessor: " + e, e );
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package uk.ac.starlink.array;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Iterator;
+import uk.ac.starlink.util.SplitPolicy;
+import uk.ac.starlink.util.SplitProcessor;
 
 /**
  * Utility methods for NDArray manipulation.
@@ -45,6 +47,128 @@ public class NDArrays {
         copy( src.getAccess(), dest.getAccess() );
     }
 
+    /**
+     * Copies the data from one NDArray into another, using multiple
+     * threads where possible.
+     * The semantics are the same as for {@link #copy(NDArray,NDArray)}.
+     *
+     * <p>If both arrays are random access, support multiple accessors
+     * and have the same pixel ordering, the pixel sequence is partitioned
+     * into independent ranges which are copied concurrently
+     * by the fork/join pool of the supplied policy,
+     * each worker thread using its own pair of {@link ArrayAccess} objects.
+     * Otherwise, or if the array is too small for splitting to be
+     * worthwhile, the copy is done sequentially.
+     * Any type conversion or, in the case of virtual arrays such as
+     * those provided by {@link ConvertArrayImpl} or
+     * {@link CombineArrayImpl}, pixel calculation is therefore
+     * spread across the available cores.
+     *
+     * <p>The implementations of both arrays must permit their
+     * accessors to be used from different threads at the same time.
+     * This is the case for the implementations in this package.
+     *
+     * @param  src   the source NDArray
+     * @param  dest  the destination NDArray
+     * @param  policy  parallel execution policy, or null for default
+     * @throws  IOException   if an I/O error occurs
+     * @throws  IllegalArgumentException   if src and dest do not match
+     *              in origin, dimensions or type
+     * @throws  UnsupportedOperationException   if src is not readable
+     *              or dest is not writable
+     */
+    public static void parallelCopy( NDArray src, NDArray dest,
+                                     SplitPolicy policy )
+            throws IOException {
+
+        /* Validate arguments. */
+        checkSameShape( src, dest );
+        checkSameType( src, dest );
+        checkReadable( src );
+        checkWritable( dest );
+
+        /* See if the arrays can be accessed independently in
+         * multiple threads; if not, fall back to a sequential copy. */
+        long npix = src.getShape().getNumPixels();
+        PixelRange range =
+            new PixelRange( 0L, npix, ChunkStepper.defaultChunkSize );
+        SplitProcessor<PixelRange> processor =
+            SplitProcessor.createPoolParallelProcessor( policy );
+        if ( ! isParallelCopyable( src, dest ) ||
+             ! processor.willAttemptSplit( range ) ) {
+            copy( src.getAccess(), dest.getAccess() );
+            return;
+        }
+
+        /* Do the copy, ensuring that all the accessors are closed
+         * at the end. */
+        CopyCollector collector = new CopyCollector( src, dest );
+        try {
+            processor.collect( collector, range );
+        }
+        catch ( RuntimeException e ) {
+            for ( Throwable err = e; err != null; err = err.getCause() ) {
+                if ( err instanceof IOException ) {
+                    throw (IOException) new IOException( err.getMessage() )
+                                       .initCause( e );
+                }
+            }
+            throw e;
+        }
+        finally {
+            collector.close();
+        }
+    }
+
+    /**
+     * Converts the pixels of one NDArray into another using a
+     * supplied Converter, using multiple threads where possible.
+     * The converter's output type must match the type of the
+     * destination array.
+     *
+     * @param  src   the source NDArray
+     * @param  conv  converter whose input type matches that of src
+     * @param  dest  the destination NDArray
+     * @param  policy  parallel execution policy, or null for default
+     * @throws  IOException   if an I/O error occurs
+     * @see  #parallelCopy
+     * @see  ConvertArrayImpl
+     */
+    public static void parallelConvert( NDArray src, Converter conv,
+                                        NDArray dest, SplitPolicy policy )
+            throws IOException {
+        parallelCopy( new BridgeNDArray( new ConvertArrayImpl( src, conv ) ),
+                      dest, policy );
+    }
+
+    /**
+     * Combines the pixels of two NDArrays into a third using a
+     * supplied Combiner, using multiple threads where possible.
+     * The input arrays need not have the same shape or type as
+     * the destination; pixels outside the bounds of either input
+     * are presented to the combiner as bad values.
+     * The combination is only done in parallel if the destination
+     * array has the same pixel ordering as the first input array.
+     *
+     * @param  nda1  the first array to combine
+     * @param  nda2  the second array to combine
+     * @param  combi  the object which performs the arithmetic combination
+     * @param  dest  the destination NDArray
+     * @param  policy  parallel execution policy, or null for default
+     * @throws  IOException   if an I/O error occurs
+     * @see  #parallelCopy
+     * @see  CombineArrayImpl
+     */
+    public static void parallelCombine( NDArray nda1, NDArray nda2,
+                                        Combiner combi, NDArray dest,
+                                        SplitPolicy policy )
+            throws IOException {
+        ArrayImpl impl =
+            new CombineArrayImpl( nda1, nda2, combi, dest.getShape(),
+                                  dest.getType(), dest.getBadHandler() );
+        parallelCopy( new BridgeNDArray( impl ), dest, policy );
+    }
+
     /**
      * Tests two NDArrays for equivalence.
      * Returns true only if the data of both are equivalent; this means
@@ -450,6 +574,16 @@ public class NDArrays {
     }
 
 
+    /**
+     * Indicates whether pixels can be copied between two arrays by
+     * concurrent accessors working on independent offset ranges.
+     */
+    private static boolean isParallelCopyable( NDArray src, NDArray dest ) {
+        return src.isRandom() && src.multipleAccess()
+            && dest.isRandom() && dest.multipleAccess()
+            && src.getShape().sameSequence( dest.getShape() );
+    }
+
     private static void checkReadable( NDArray nda ) {
         if ( ! nda.isReadable() ) {
             throw new UnsupportedOperationException(
@@ -0,0 +1,70 @@
+package uk.ac.starlink.array;
+
+import uk.ac.starlink.util.Splittable;
+
+/**
+ * Splittable representing a contiguous range of pixel offsets
+ * in an array.
+ * Splitting is only done on boundaries which are a multiple of a
+ * given block size, so that each part can be processed in whole
+ * buffer-sized chunks.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class PixelRange implements Splittable<PixelRange> {
+
+    private final int blockSize;
+    private long lo;
+    private long hi;
+
+    /**
+     * Constructor.
+     *
+     * @param  lo  first offset in range (inclusive)
+     * @param  hi  last offset in range (exclusive)
+     * @param  blockSize   granularity at which splits may be made
+     */
+    public PixelRange( long lo, long hi, int blockSize ) {
+        this.lo = lo;
+        this.hi = hi;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the first offset in this range.
+     *
+     * @return  lower bound (inclusive)
+     */
+    public long getLow() {
+        return lo;
+    }
+
+    /**
+     * Returns the offset after the last one in this range.
+     *
+     * @return  upper bound (exclusive)
+     */
+    public long getHigh() {
+        return hi;
+    }
+
+    public PixelRange split() {
+        long nblock = ( hi - lo ) / blockSize;
+        if ( nblock < 2 ) {
+            return null;
+        }
+        long mid = lo + ( nblock / 2 ) * blockSize;
+        PixelRange upper = new PixelRange( mid, hi, blockSize );
+        hi = mid;
+        return upper;
+    }
+
+    public long splittableSize() {
+        return hi - lo;
+    }
+
+    public String toString() {
+        return "[" + lo + "," + hi + ")";
+    }
+}
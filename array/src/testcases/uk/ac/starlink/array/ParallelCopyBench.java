@@ -0,0 +1,143 @@
+package uk.ac.starlink.array;
+
+import java.io.IOException;
+import junit.framework.TestCase;
+import uk.ac.starlink.util.SplitPolicy;
+
+/**
+ * Throughput benchmark for sequential and parallel array processing.
+ * Two virtual float cubes are combined pixel by pixel, and one is
+ * converted to double precision, with the results written to
+ * a sink array which discards them, so that arbitrarily large cubes
+ * can be processed without requiring storage.
+ *
+ * <p>Not run as part of the regular test suite; invoke it by hand.
+ * The cube dimensions are given by <code>bench.shape</code>
+ * as a comma-separated list (default 4096,4096,1024, which takes
+ * some minutes to run sequentially),
+ * and the number of repetitions by <code>bench.reps</code>.
+ */
+public class ParallelCopyBench extends TestCase {
+
+    public ParallelCopyBench( String name ) {
+        super( name );
+    }
+
+    public void testThroughput() throws IOException {
+        String[] words =
+            System.getProperty( "bench.shape", "4096,4096,1024" ).split( "," );
+        long[] dims = new long[ words.length ];
+        for ( int i = 0; i < words.length; i++ ) {
+            dims[ i ] = Long.parseLong( words[ i ].trim() );
+        }
+        int nrep = Integer.getInteger( "bench.reps", 1 ).intValue();
+        OrderedNDShape oshape =
+            new OrderedNDShape( dims, Order.COLUMN_MAJOR );
+        NDArray nda1 =
+            new BridgeNDArray( new DeterministicArrayImpl( oshape,
+                                                           Type.FLOAT ) );
+        NDArray nda2 =
+            new BridgeNDArray( new DeterministicArrayImpl( oshape,
+                                                           Type.FLOAT ) );
+        Combiner combi = new Combiner() {
+            public double combination( double x, double y ) {
+                return x * 0.5 + y * 0.25;
+            }
+        };
+        NDArray fsink = new BridgeNDArray( new SinkArrayImpl( oshape,
+                                                              Type.FLOAT ) );
+        NDArray dsink = new BridgeNDArray( new SinkArrayImpl( oshape,
+                                                              Type.DOUBLE ) );
+        Converter conv =
+            new TypeConverter( Type.FLOAT, nda1.getBadHandler(),
+                               Type.DOUBLE, dsink.getBadHandler() );
+        SplitPolicy policy = new SplitPolicy();
+        System.out.println( "Shape: " + oshape + ", " + policy );
+        for ( int irep = 0; irep < nrep; irep++ ) {
+            long t0 = System.nanoTime();
+            NDArrays.copy( new BridgeNDArray(
+                               new CombineArrayImpl( nda1, nda2, combi,
+                                                     oshape, Type.FLOAT,
+                                                     null ) ),
+                           fsink );
+            long t1 = System.nanoTime();
+            NDArrays.parallelCombine( nda1, nda2, combi, fsink, policy );
+            long t2 = System.nanoTime();
+            NDArrays.copy( new BridgeNDArray(
+                               new ConvertArrayImpl( nda1, conv ) ),
+                           dsink );
+            long t3 = System.nanoTime();
+            NDArrays.parallelConvert( nda1, conv, dsink, policy );
+            long t4 = System.nanoTime();
+            long npix = oshape.getNumPixels();
+            report( "combine sequential", npix, t1 - t0 );
+            report( "combine parallel  ", npix, t2 - t1 );
+            report( "convert sequential", npix, t3 - t2 );
+            report( "convert parallel  ", npix, t4 - t3 );
+        }
+    }
+
+    private static void report( String label, long npix, long nanos ) {
+        System.out.println( label + ": "
+                          + ( nanos / 1000000 ) + "ms, "
+                          + ( npix * 1000 / Math.max( nanos, 1 ) )
+                          + " Mpix/s" );
+    }
+
+    /**
+     * Writable random-access array implementation which discards
+     * all the data written to it.
+     */
+    private static class SinkArrayImpl implements ArrayImpl {
+        private final OrderedNDShape oshape;
+        private final Type type;
+        SinkArrayImpl( OrderedNDShape oshape, Type type ) {
+            this.oshape = oshape;
+            this.type = type;
+        }
+        public OrderedNDShape getShape() {
+            return oshape;
+        }
+        public Type getType() {
+            return type;
+        }
+        public Number getBadValue() {
+            return type.defaultBadValue();
+        }
+        public boolean isReadable() {
+            return false;
+        }
+        public boolean isWritable() {
+            return true;
+        }
+        public boolean isRandom() {
+            return true;
+        }
+        public boolean multipleAccess() {
+            return true;
+        }
+        public void open() {
+        }
+        public boolean canMap() {
+            return false;
+        }
+        public Object getMapped() {
+            return null;
+        }
+        public void close() {
+        }
+        public AccessImpl getAccess() {
+            return new AccessImpl() {
+                public void setOffset( long off ) {
+                }
+                public void read( Object buffer, int start, int size ) {
+                    throw new UnsupportedOperationException();
+                }
+                public void write( Object buffer, int start, int size ) {
+                }
+                public void close() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package uk.ac.starlink.array;
+
+import java.io.IOException;
+import uk.ac.starlink.util.SplitPolicy;
+import uk.ac.starlink.util.TestCase;
+
+public class ParallelCopyTest extends TestCase {
+
+    private final OrderedNDShape oshape;
+    private final SplitPolicy policy;
+
+    public ParallelCopyTest( String name ) {
+        super( name );
+        oshape = new OrderedNDShape( new long[] { 1, -20, 5 },
+                                     new long[] { 201, 157, 19 },
+                                     Order.COLUMN_MAJOR );
+        policy = new SplitPolicy( null, 20000, (short) 8 );
+    }
+
+    public void testRange() {
+        PixelRange r0 = new PixelRange( 0, 100, 10 );
+        PixelRange r1 = r0.split();
+        assertEquals( 0, r0.getLow() );
+        assertEquals( 50, r0.getHigh() );
+        assertEquals( 50, r1.getLow() );
+        assertEquals( 100, r1.getHigh() );
+        PixelRange r2 = r1.split();
+        assertEquals( 70, r1.getHigh() );
+        assertEquals( 30, r2.splittableSize() );
+        assertNull( new PixelRange( 0, 19, 10 ).split() );
+    }
+
+    public void testCopy() throws IOException {
+        NDArray src = createFloatArray();
+        NDArray dest1 = new ScratchNDArray( src );
+        NDArray dest2 =
+            new BridgeNDArray(
+                new ArrayArrayImpl( Type.FLOAT.newArray( getNpix() ), oshape,
+                                    Type.FLOAT.defaultBadValue() ) );
+        NDArrays.parallelCopy( src, dest1, policy );
+        NDArrays.parallelCopy( dest1, dest2, policy );
+        assertTrue( NDArrays.equals( src, dest1 ) );
+        assertTrue( NDArrays.equals( src, dest2 ) );
+
+        /* Differently ordered destination is copied sequentially. */
+        NDArray dest3 =
+            new ScratchNDArray( new OrderedNDShape( oshape, Order.ROW_MAJOR ),
+                                Type.FLOAT, src.getBadHandler() );
+        NDArrays.parallelCopy( src, dest3, policy );
+        assertTrue( NDArrays.equals( src, dest3 ) );
+
+        /* Default policy. */
+        NDArray dest4 = new ScratchNDArray( src );
+        NDArrays.parallelCopy( src, dest4, null );
+        assertTrue( NDArrays.equals( src, dest4 ) );
+    }
+
+    public void testConvert() throws IOException {
+        NDArray src = createFloatArray();
+        Function func = new Function() {
+            public double forward( double x ) {
+                return x * 3.0 - 1.0;
+            }
+            public double inverse( double y ) {
+                return ( y + 1.0 ) / 3.0;
+            }
+        };
+        BadHandler ibh = Type.INT.defaultBadHandler();
+        Converter conv = new TypeConverter( Type.FLOAT, src.getBadHandler(),
+                                            Type.INT, ibh, func );
+        NDArray expected = new ScratchNDArray( oshape, Type.INT, ibh );
+        NDArrays.copy( new BridgeNDArray( new ConvertArrayImpl( src, conv ) ),
+                       expected );
+        NDArray actual = new ScratchNDArray( oshape, Type.INT, ibh );
+        NDArrays.parallelConvert( src, conv, actual, policy );
+        assertTrue( NDArrays.equals( expected, actual ) );
+    }
+
+    public void testCombine() throws IOException {
+        NDArray nda1 = createFloatArray();
+        NDArray nda2 = createFloatArray();
+        Combiner combi = new Combiner() {
+            public double combination( double x, double y ) {
+                return x * y + 1;
+            }
+        };
+        BadHandler dbh = Type.DOUBLE.defaultBadHandler();
+        NDArray expected = new ScratchNDArray( oshape, Type.DOUBLE, dbh );
+        NDArrays.copy( new BridgeNDArray(
+                           new CombineArrayImpl( nda1, nda2, combi, oshape,
+                                                 Type.DOUBLE, dbh ) ),
+                       expected );
+        NDArray actual = new ScratchNDArray( oshape, Type.DOUBLE, dbh );
+        NDArrays.parallelCombine( nda1, nda2, combi, actual, policy );
+        assertTrue( NDArrays.equals( expected, actual ) );
+    }
+
+    private int getNpix() {
+        return (int) oshape.getNumPixels();
+    }
+
+    private NDArray createFloatArray() throws IOException {
+        NDArray nda =
+            new ScratchNDArray( oshape, Type.FLOAT,
+                                Type.FLOAT.defaultBadHandler() );
+        float[] data = new float[ getNpix() ];
+        fillRandom( data, -1000, 1000 );
+        for ( int i = 0; i < data.length; i += 37 ) {
+            data[ i ] = Float.NaN;
+        }
+        ArrayAccess acc = nda.getAccess();
+        acc.write( data, 0, data.length );
+        acc.close();
+        return nda;
+    }
+}
@@ -13,6 +13,8 @@ import java.util.List;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.RowBlockEncoder;
+import uk.ac.starlink.table.RowBlockWriter;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StarTableWriter;
@@ -215,31 +217,37 @@ public class EcsvTableWriter extends DocumentedStreamStarTableWriter {
         /* Write the required row giving non-YAML column names. */
         writeLine( out, nbuf );
 
-        /* Write data rows. */
-        RowSequence rseq = table.getRowSequence();
-        StringBuilder rbuf = new StringBuilder();
-        try {
-            while ( rseq.next() ) {
-                Object[] row = rseq.getRow();
-                rbuf.setLength( 0 );
-                boolean isAfter = false;
-                for ( int ic = 0; ic < ncol; ic++ ) {
-                    EcsvEncoder encoder = encoders[ ic ];
-                    if ( encoder != null ) {
-                        if ( isAfter ) {
-                            rbuf.append( delimiter_ );
+        /* Write data rows.  Blocks of rows may be encoded in
+         * different threads. */
+        RowBlockEncoder<ByteList> rowEncoder =
+                new RowBlockEncoder<ByteList>() {
+            public ByteList encodeRows( RowSequence rseq ) throws IOException {
+                ByteList blist = new ByteList();
+                StringBuilder rbuf = new StringBuilder();
+                while ( rseq.next() ) {
+                    Object[] row = rseq.getRow();
+                    rbuf.setLength( 0 );
+                    boolean isAfter = false;
+                    for ( int ic = 0; ic < ncol; ic++ ) {
+                        EcsvEncoder encoder = encoders[ ic ];
+                        if ( encoder != null ) {
+                            if ( isAfter ) {
+                                rbuf.append( delimiter_ );
+                            }
+                            isAfter = true;
+                            String ctxt = encoder.encode( row[ ic ] );
+                            rbuf.append( ctxt == null ? nullRep_ : ctxt );
                         }
-                        isAfter = true;
-                        String ctxt = encoder.encode( row[ ic ] );
-                        rbuf.append( ctxt == null ? nullRep_ : ctxt );
                     }
+                    appendLine( blist, rbuf );
                 }
-                writeLine( out, rbuf );
+                return blist;
             }
-        }
-        finally {
-            rseq.close();
-        }
+            public void writeBlock( ByteList blist ) throws IOException {
+                out.write( blist.getByteBuffer(), 0, blist.size() );
+            }
+        };
+        RowBlockWriter.getDefaultInstance().writeRows( table, rowEncoder );
     }
 
     /**
@@ -464,17 +472,28 @@ public class EcsvTableWriter extends DocumentedStreamStarTableWriter {
      */
     private void writeLine( OutputStream out, CharSequence txt )
             throws IOException {
-        int nc = txt.length();
         bbuf_.clear();
+        appendLine( bbuf_, txt );
+        out.write( bbuf_.getByteBuffer(), 0, bbuf_.size() );
+    }
+
+    /**
+     * Appends the bytes for a line of output, terminated by a newline,
+     * to a byte buffer.
+     *
+     * @param  bbuf  buffer to append to
+     * @param  txt  line to write (excluding newline)
+     */
+    private void appendLine( ByteList bbuf, CharSequence txt ) {
+        int nc = txt.length();
         for ( int ic = 0; ic < nc; ic++ ) {
             char c = txt.charAt( ic );
             byte b = (byte) ( c & 0x7f );
-            bbuf_.add( b == c ? b : badChar_ );
+            bbuf.add( b == c ? b : badChar_ );
         }
         for ( int ic = 0; ic < nl_.length(); ic++ ) {
-            bbuf_.add( (byte) nl_.charAt( ic ) );
+            bbuf.add( (byte) nl_.charAt( ic ) );
         }
-        out.write( bbuf_.getByteBuffer(), 0, bbuf_.size() );
     }
 
     /**
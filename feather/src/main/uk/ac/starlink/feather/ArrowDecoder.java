@@ -0,0 +1,722 @@
+package uk.ac.starlink.feather;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.TableFormatException;
+import uk.ac.starlink.table.Tables;
+
+/**
+ * Decodes the data for an Arrow field from the buffers of a record batch.
+ * Instances are obtained from the {@link #createDecoder createDecoder}
+ * factory method, and are immutable.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+abstract class ArrowDecoder {
+
+    private final Class<?> clazz_;
+
+    /**
+     * Constructor.
+     *
+     * @param  clazz  content class of decoded values
+     */
+    protected ArrowDecoder( Class<?> clazz ) {
+        clazz_ = clazz;
+    }
+
+    /**
+     * Returns the class of values produced by this decoder.
+     *
+     * @return  content class
+     */
+    public Class<?> getContentClass() {
+        return clazz_;
+    }
+
+    /**
+     * Makes any adjustments to the metadata of a column
+     * with values produced by this decoder.
+     * The default implementation does nothing.
+     *
+     * @param  info  column metadata to update
+     */
+    public void configureInfo( ColumnInfo info ) {
+    }
+
+    /**
+     * Returns the class of array that can hold a sequence of values
+     * from this decoder, if it is suitable for use as the element
+     * type of a list.
+     *
+     * @return  array class, or null if not suitable for list elements
+     */
+    public Class<?> getArrayClass() {
+        return null;
+    }
+
+    /**
+     * Reads the data for this decoder's field from a record batch.
+     * The node and buffers belonging to this field and any children
+     * are consumed from the supplied batch.
+     * If {@link #getArrayClass} returns non-null,
+     * the result is an {@link ElementVector}.
+     *
+     * @param  batch  record batch positioned at this field
+     * @return  vector giving access to values
+     */
+    public abstract Vector createVector( BatchData batch ) throws IOException;
+
+    /**
+     * Returns a decoder for a given field.
+     *
+     * @param  field  Field table
+     * @return  decoder, or null if the field type is not supported
+     */
+    public static ArrowDecoder createDecoder( FbTable field ) {
+        if ( field.hasField( ArrowFormat.FIELD_DICTIONARY ) ) {
+            return null;
+        }
+        FbTable type = field.getTable( ArrowFormat.FIELD_TYPE );
+        byte typeId = field.getByte( ArrowFormat.FIELD_TYPE_TYPE, (byte) 0 );
+        switch ( typeId ) {
+            case ArrowFormat.TYPE_INT:
+                return createIntDecoder( type.getInt( 0, 0 ),
+                                         type.getBoolean( 1, false ), null );
+            case ArrowFormat.TYPE_FLOAT:
+                short prec = type.getShort( 0, (short) 0 );
+                return prec == ArrowFormat.PRECISION_SINGLE
+                     ? FLOAT32
+                     : prec == ArrowFormat.PRECISION_DOUBLE
+                     ? FLOAT64
+                     : null;
+            case ArrowFormat.TYPE_BOOL:
+                return BOOL;
+            case ArrowFormat.TYPE_UTF8:
+                return new VariableDecoder( String.class, false );
+            case ArrowFormat.TYPE_LARGEUTF8:
+                return new VariableDecoder( String.class, true );
+            case ArrowFormat.TYPE_BINARY:
+                return new VariableDecoder( byte[].class, false );
+            case ArrowFormat.TYPE_LARGEBINARY:
+                return new VariableDecoder( byte[].class, true );
+            case ArrowFormat.TYPE_DATE:
+                boolean isDay = type.getShort( 0, (short) 1 ) == 0;
+                return createIntDecoder( isDay ? 32 : 64, true,
+                                         isDay ? "d" : "ms" );
+            case ArrowFormat.TYPE_TIME:
+                return createIntDecoder( type.getInt( 1, 32 ), true,
+                                         getTimeUnit( type, 1 ) );
+            case ArrowFormat.TYPE_TIMESTAMP:
+                return createIntDecoder( 64, true, getTimeUnit( type, 0 ) );
+            case ArrowFormat.TYPE_DURATION:
+                return createIntDecoder( 64, true, getTimeUnit( type, 1 ) );
+            case ArrowFormat.TYPE_LIST:
+            case ArrowFormat.TYPE_LARGELIST:
+            case ArrowFormat.TYPE_FIXEDSIZELIST:
+                if ( field.getVectorLength( ArrowFormat.FIELD_CHILDREN )
+                     != 1 ) {
+                    return null;
+                }
+                ArrowDecoder elDecoder =
+                    createDecoder( field
+                                  .getTableElement( ArrowFormat.FIELD_CHILDREN,
+                                                    0 ) );
+                if ( elDecoder == null ||
+                     elDecoder.getArrayClass() == null ) {
+                    return null;
+                }
+                int fixedSize = typeId == ArrowFormat.TYPE_FIXEDSIZELIST
+                              ? type.getInt( 0, 0 )
+                              : -1;
+                return new ListDecoder( elDecoder,
+                                        typeId == ArrowFormat.TYPE_LARGELIST,
+                                        fixedSize );
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns a decoder for integer values.
+     *
+     * @param  bitWidth  number of bits per value
+     * @param  isSigned  true for signed, false for unsigned
+     * @param  unit   unit string for values, or null
+     * @return   decoder, or null if not supported
+     */
+    private static ArrowDecoder createIntDecoder( int bitWidth,
+                                                  boolean isSigned,
+                                                  String unit ) {
+        final NumberDecoder decoder;
+        switch ( bitWidth ) {
+            case 8:
+                decoder = isSigned ? new NumberDecoder( Byte.class ) {
+                    Object getScalar( ByteBuffer d, int i ) {
+                        return Byte.valueOf( d.get( i ) );
+                    }
+                    void setElement( Object a, int j, ByteBuffer d, int i ) {
+                        ((byte[]) a)[ j ] = d.get( i );
+                    }
+                } : new NumberDecoder( Short.class ) {
+                    Object getScalar( ByteBuffer d, int i ) {
+                        return Short.valueOf( (short) ( d.get( i ) & 0xff ) );
+                    }
+                    void setElement( Object a, int j, ByteBuffer d, int i ) {
+                        ((short[]) a)[ j ] = (short) ( d.get( i ) & 0xff );
+                    }
+                    @Override
+                    public void configureInfo( ColumnInfo info ) {
+                        super.configureInfo( info );
+                        info.setAuxDatum(
+                            new DescribedValue( Tables.UBYTE_FLAG_INFO,
+                                                Boolean.TRUE ) );
+                    }
+                };
+                break;
+            case 16:
+                decoder = isSigned ? new NumberDecoder( Short.class ) {
+                    Object getScalar( ByteBuffer d, int i ) {
+                        return Short.valueOf( d.getShort( 2 * i ) );
+                    }
+                    void setElement( Object a, int j, ByteBuffer d, int i ) {
+                        ((short[]) a)[ j ] = d.getShort( 2 * i );
+                    }
+                } : new NumberDecoder( Integer.class ) {
+                    Object getScalar( ByteBuffer d, int i ) {
+                        return Integer.valueOf( d.getShort( 2 * i ) & 0xffff );
+                    }
+                    void setElement( Object a, int j, ByteBuffer d, int i ) {
+                        ((int[]) a)[ j ] = d.getShort( 2 * i ) & 0xffff;
+                    }
+                };
+                break;
+            case 32:
+                decoder = isSigned ? new NumberDecoder( Integer.class ) {
+                    Object getScalar( ByteBuffer d, int i ) {
+                        return Integer.valueOf( d.getInt( 4 * i ) );
+                    }
+                    void setElement( Object a, int j, ByteBuffer d, int i ) {
+                        ((int[]) a)[ j ] = d.getInt( 4 * i );
+                    }
+                } : new NumberDecoder( Long.class ) {
+                    Object getScalar( ByteBuffer d, int i ) {
+                        return Long.valueOf( d.getInt( 4 * i ) & 0xffffffffL );
+                    }
+                    void setElement( Object a, int j, ByteBuffer d, int i ) {
+                        ((long[]) a)[ j ] = d.getInt( 4 * i ) & 0xffffffffL;
+                    }
+                };
+                break;
+
+            /* Unsigned 64-bit values beyond the signed range will be
+             * misrepresented. */
+            case 64:
+                decoder = new NumberDecoder( Long.class ) {
+                    Object getScalar( ByteBuffer d, int i ) {
+                        return Long.valueOf( d.getLong( 8 * i ) );
+                    }
+                    void setElement( Object a, int j, ByteBuffer d, int i ) {
+                        ((long[]) a)[ j ] = d.getLong( 8 * i );
+                    }
+                };
+                break;
+            default:
+                return null;
+        }
+        decoder.unit_ = unit;
+        return decoder;
+    }
+
+    /**
+     * Returns a unit string for the TimeUnit field of a type table.
+     *
+     * @param  type  type table
+     * @param  ifield  index of TimeUnit field
+     * @return  unit string
+     */
+    private static String getTimeUnit( FbTable type, int ifield ) {
+        switch ( type.getShort( ifield, (short) 1 ) ) {
+            case 0:
+                return "s";
+            case 1:
+                return "ms";
+            case 2:
+                return "us";
+            case 3:
+                return "ns";
+            default:
+                return null;
+        }
+    }
+
+    /** Decoder for 32-bit floating point values. */
+    private static final ArrowDecoder FLOAT32 =
+            new NumberDecoder( Float.class ) {
+        Object getScalar( ByteBuffer d, int i ) {
+            return Float.valueOf( d.getFloat( 4 * i ) );
+        }
+        void setElement( Object a, int j, ByteBuffer d, int i ) {
+            ((float[]) a)[ j ] = d.getFloat( 4 * i );
+        }
+        @Override
+        void setBlank( Object a, int j ) {
+            ((float[]) a)[ j ] = Float.NaN;
+        }
+    };
+
+    /** Decoder for 64-bit floating point values. */
+    private static final ArrowDecoder FLOAT64 =
+            new NumberDecoder( Double.class ) {
+        Object getScalar( ByteBuffer d, int i ) {
+            return Double.valueOf( d.getDouble( 8 * i ) );
+        }
+        void setElement( Object a, int j, ByteBuffer d, int i ) {
+            ((double[]) a)[ j ] = d.getDouble( 8 * i );
+        }
+        @Override
+        void setBlank( Object a, int j ) {
+            ((double[]) a)[ j ] = Double.NaN;
+        }
+    };
+
+    /** Decoder for bit-packed boolean values. */
+    private static final ArrowDecoder BOOL =
+            new NumberDecoder( Boolean.class ) {
+        Object getScalar( ByteBuffer d, int i ) {
+            return Boolean.valueOf( isBitSet( d, i ) );
+        }
+        void setElement( Object a, int j, ByteBuffer d, int i ) {
+            ((boolean[]) a)[ j ] = isBitSet( d, i );
+        }
+    };
+
+    /**
+     * Indicates whether a bit is set in a least-significant-bit-first
+     * bitmap.
+     *
+     * @param  bits  bitmap buffer
+     * @param  i   bit index
+     * @return  true iff bit is set
+     */
+    private static boolean isBitSet( ByteBuffer bits, int i ) {
+        return ( bits.get( i >> 3 ) & ( 1 << ( i & 7 ) ) ) != 0;
+    }
+
+    /**
+     * Provides access to the values of a field in a record batch.
+     */
+    public interface Vector {
+
+        /**
+         * Returns the value at a given index.
+         *
+         * @param  irow  row index within batch
+         * @return  value, or null if blank
+         */
+        Object getValue( int irow );
+    }
+
+    /**
+     * Vector that can also supply ranges of values as arrays,
+     * for use as the child of a list field.
+     */
+    public interface ElementVector extends Vector {
+
+        /**
+         * Returns a sequence of values as an array.
+         * Blank elements are represented as NaN for floating point arrays,
+         * zero or false for other primitive arrays,
+         * and null for object arrays.
+         *
+         * @param  start  index of first element
+         * @param  n   number of elements
+         * @return  array of the decoder's array class
+         */
+        Object readArray( int start, int n );
+    }
+
+    /**
+     * Provides sequential access to the nodes and buffers
+     * of a record batch.
+     */
+    public static class BatchData {
+
+        private final FbTable batch_;
+        private final ByteBuffer body_;
+        private final long nrow_;
+        private int inode_;
+        private int ibuf_;
+
+        /**
+         * Constructor.
+         *
+         * @param  batch  RecordBatch table
+         * @param  body   message body
+         */
+        public BatchData( FbTable batch, ByteBuffer body )
+                throws TableFormatException {
+            if ( batch.hasField( ArrowFormat.BATCH_COMPRESSION ) ) {
+                throw new TableFormatException( "Compressed Arrow record "
+                                              + "batches not supported" );
+            }
+            batch_ = batch;
+            body_ = body;
+            nrow_ = batch.getLong( ArrowFormat.BATCH_LENGTH, 0L );
+        }
+
+        /**
+         * Returns the number of rows in this batch.
+         *
+         * @return  row count
+         */
+        public long getRowCount() {
+            return nrow_;
+        }
+
+        /**
+         * Consumes the next node, and returns its null count.
+         *
+         * @return  null count for next node
+         */
+        public long nextNullCount() throws IOException {
+            if ( inode_ >= batch_.getVectorLength( ArrowFormat.BATCH_NODES ) ) {
+                throw new TableFormatException( "Not enough field nodes" );
+            }
+            return batch_.getStructLong( ArrowFormat.BATCH_NODES, inode_++,
+                                         ArrowFormat.STRUCT16_SIZE, 8 );
+        }
+
+        /**
+         * Consumes the next buffer and returns its contents.
+         *
+         * @return  little-endian buffer containing data
+         */
+        public ByteBuffer nextBuffer() throws IOException {
+            if ( ibuf_ >=
+                 batch_.getVectorLength( ArrowFormat.BATCH_BUFFERS ) ) {
+                throw new TableFormatException( "Not enough buffers" );
+            }
+            long off = batch_.getStructLong( ArrowFormat.BATCH_BUFFERS, ibuf_,
+                                             ArrowFormat.STRUCT16_SIZE, 0 );
+            long leng = batch_.getStructLong( ArrowFormat.BATCH_BUFFERS, ibuf_,
+                                              ArrowFormat.STRUCT16_SIZE, 8 );
+            ibuf_++;
+            if ( off < 0 || leng < 0 || off + leng > body_.capacity() ) {
+                throw new TableFormatException( "Arrow buffer out of range" );
+            }
+            ByteBuffer buf = body_.duplicate();
+            buf.limit( (int) ( off + leng ) );
+            buf.position( (int) off );
+            return buf.slice().order( ByteOrder.LITTLE_ENDIAN );
+        }
+
+        /**
+         * Consumes the next node and its validity buffer,
+         * returning an object that reports which values are blank.
+         *
+         * @return  validity
+         */
+        public Validity nextValidity() throws IOException {
+            long nnull = nextNullCount();
+            ByteBuffer bits = nextBuffer();
+            return new Validity( nnull > 0 && bits.capacity() > 0 ? bits
+                                                                  : null );
+        }
+
+        /**
+         * Skips over a given number of nodes and buffers.
+         *
+         * @param  nnode  number of nodes to skip
+         * @param  nbuf   number of buffers to skip
+         */
+        public void skip( int nnode, int nbuf ) {
+            inode_ += nnode;
+            ibuf_ += nbuf;
+        }
+    }
+
+    /**
+     * Reports which values in a vector are non-blank.
+     */
+    public static class Validity {
+
+        private final ByteBuffer bits_;
+
+        /**
+         * Constructor.
+         *
+         * @param  bits   validity bitmap, or null if all values are valid
+         */
+        Validity( ByteBuffer bits ) {
+            bits_ = bits;
+        }
+
+        /**
+         * Indicates whether a given value is present.
+         *
+         * @param  i  value index
+         * @return  true for non-blank values
+         */
+        public boolean isValid( int i ) {
+            return bits_ == null || isBitSet( bits_, i );
+        }
+    }
+
+    /**
+     * Decoder for fixed-width scalar values.
+     */
+    private static abstract class NumberDecoder extends ArrowDecoder {
+
+        private final Class<?> arrayClass_;
+        String unit_;
+
+        /**
+         * Constructor.
+         *
+         * @param  clazz  scalar content class
+         */
+        NumberDecoder( Class<?> clazz ) {
+            super( clazz );
+            arrayClass_ = clazz == Boolean.class
+                        ? boolean[].class
+                        : Array.newInstance( getPrimitiveClass( clazz ), 0 )
+                         .getClass();
+        }
+
+        /**
+         * Reads a scalar value.
+         *
+         * @param  data  data buffer
+         * @param  i   value index
+         * @return  value
+         */
+        abstract Object getScalar( ByteBuffer data, int i );
+
+        /**
+         * Reads a value into an element of a primitive array.
+         *
+         * @param  array  array of this decoder's array class
+         * @param  j   index into array
+         * @param  data  data buffer
+         * @param  i   value index
+         */
+        abstract void setElement( Object array, int j, ByteBuffer data, int i );
+
+        /**
+         * Sets an element of a primitive array to the blank value.
+         * The default implementation does nothing,
+         * leaving it as zero or false.
+         *
+         * @param  array  array of this decoder's array class
+         * @param  j   index into array
+         */
+        void setBlank( Object array, int j ) {
+        }
+
+        @Override
+        public Class<?> getArrayClass() {
+            return arrayClass_;
+        }
+
+        @Override
+        public void configureInfo( ColumnInfo info ) {
+            if ( unit_ != null && info.getUnitString() == null ) {
+                info.setUnitString( unit_ );
+            }
+        }
+
+        public Vector createVector( BatchData batch ) throws IOException {
+            final Validity validity = batch.nextValidity();
+            final ByteBuffer data = batch.nextBuffer();
+            final Class<?> elClazz = arrayClass_.getComponentType();
+            return new ElementVector() {
+                public Object getValue( int irow ) {
+                    return validity.isValid( irow ) ? getScalar( data, irow )
+                                                    : null;
+                }
+                public Object readArray( int start, int n ) {
+                    Object array = Array.newInstance( elClazz, n );
+                    for ( int j = 0; j < n; j++ ) {
+                        int i = start + j;
+                        if ( validity.isValid( i ) ) {
+                            setElement( array, j, data, i );
+                        }
+                        else {
+                            setBlank( array, j );
+                        }
+                    }
+                    return array;
+                }
+            };
+        }
+
+        /**
+         * Returns the primitive class corresponding to a wrapper class.
+         *
+         * @param  clazz  wrapper class
+         * @return  primitive class
+         */
+        private static Class<?> getPrimitiveClass( Class<?> clazz ) {
+            if ( clazz == Byte.class ) {
+                return byte.class;
+            }
+            else if ( clazz == Short.class ) {
+                return short.class;
+            }
+            else if ( clazz == Integer.class ) {
+                return int.class;
+            }
+            else if ( clazz == Long.class ) {
+                return long.class;
+            }
+            else if ( clazz == Float.class ) {
+                return float.class;
+            }
+            else if ( clazz == Double.class ) {
+                return double.class;
+            }
+            else {
+                throw new IllegalArgumentException( clazz.getName() );
+            }
+        }
+    }
+
+    /**
+     * Decoder for variable-length string and binary values.
+     */
+    private static class VariableDecoder extends ArrowDecoder {
+
+        private final boolean isString_;
+        private final boolean isLarge_;
+
+        /**
+         * Constructor.
+         *
+         * @param  clazz  String or byte[]
+         * @param  isLarge  true for 64-bit offsets, false for 32-bit offsets
+         */
+        VariableDecoder( Class<?> clazz, boolean isLarge ) {
+            super( clazz );
+            isString_ = clazz == String.class;
+            isLarge_ = isLarge;
+        }
+
+        @Override
+        public Class<?> getArrayClass() {
+            return isString_ ? String[].class : null;
+        }
+
+        public Vector createVector( BatchData batch ) throws IOException {
+            final Validity validity = batch.nextValidity();
+            final ByteBuffer offsets = batch.nextBuffer();
+            final ByteBuffer data = batch.nextBuffer();
+            return new ElementVector() {
+                public Object getValue( int irow ) {
+                    if ( ! validity.isValid( irow ) ) {
+                        return null;
+                    }
+                    int start = getOffset( offsets, irow );
+                    int leng = getOffset( offsets, irow + 1 ) - start;
+                    byte[] buf = new byte[ leng ];
+                    ByteBuffer bb = data.duplicate();
+                    bb.position( start );
+                    bb.get( buf );
+                    return isString_ ? new String( buf, StandardCharsets.UTF_8 )
+                                     : buf;
+                }
+                public Object readArray( int start, int n ) {
+                    String[] array = new String[ n ];
+                    for ( int j = 0; j < n; j++ ) {
+                        array[ j ] = (String) getValue( start + j );
+                    }
+                    return array;
+                }
+            };
+        }
+
+        /**
+         * Reads a value from an offsets buffer.
+         *
+         * @param  offsets  offsets buffer
+         * @param  i  index
+         * @return  offset value
+         */
+        private int getOffset( ByteBuffer offsets, int i ) {
+            return isLarge_ ? (int) offsets.getLong( 8 * i )
+                            : offsets.getInt( 4 * i );
+        }
+    }
+
+    /**
+     * Decoder for list values, which are represented as arrays.
+     */
+    private static class ListDecoder extends ArrowDecoder {
+
+        private final ArrowDecoder elDecoder_;
+        private final boolean isLarge_;
+        private final int fixedSize_;
+
+        /**
+         * Constructor.
+         *
+         * @param  elDecoder  decoder for list elements
+         * @param  isLarge  true for 64-bit offsets, false for 32-bit offsets
+         * @param  fixedSize  number of elements for fixed-size lists,
+         *                    or -1 for variable-length lists
+         */
+        ListDecoder( ArrowDecoder elDecoder, boolean isLarge, int fixedSize ) {
+            super( elDecoder.getArrayClass() );
+            elDecoder_ = elDecoder;
+            isLarge_ = isLarge;
+            fixedSize_ = fixedSize;
+        }
+
+        @Override
+        public void configureInfo( ColumnInfo info ) {
+            elDecoder_.configureInfo( info );
+            info.setShape( new int[] { fixedSize_ } );
+        }
+
+        public Vector createVector( BatchData batch ) throws IOException {
+            final Validity validity = batch.nextValidity();
+            final ByteBuffer offsets = fixedSize_ >= 0 ? null
+                                                       : batch.nextBuffer();
+            final ElementVector elVector =
+                (ElementVector) elDecoder_.createVector( batch );
+            return new Vector() {
+                public Object getValue( int irow ) {
+                    if ( ! validity.isValid( irow ) ) {
+                        return null;
+                    }
+                    int start = getOffset( offsets, irow );
+                    int leng = getOffset( offsets, irow + 1 ) - start;
+                    return elVector.readArray( start, leng );
+                }
+            };
+        }
+
+        /**
+         * Returns the offset of a given list in the child vector.
+         *
+         * @param  offsets  offsets buffer, or null for fixed size lists
+         * @param  i  index
+         * @return  offset value
+         */
+        private int getOffset( ByteBuffer offsets, int i ) {
+            if ( offsets == null ) {
+                return fixedSize_ * i;
+            }
+            else {
+                return isLarge_ ? (int) offsets.getLong( 8 * i )
+                                : offsets.getInt( 4 * i );
+            }
+        }
+    }
+}
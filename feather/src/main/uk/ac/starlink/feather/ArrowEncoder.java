@@ -0,0 +1,793 @@
+package uk.ac.starlink.feather;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import uk.ac.bristol.star.fbs.google.FlatBufferBuilder;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.Tables;
+
+/**
+ * Accumulates the values of a field for a record batch,
+ * and supplies the buffers required to write them in Arrow format.
+ * Instances are obtained from the {@link #createEncoder createEncoder}
+ * factory method.  They are not thread-safe.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+abstract class ArrowEncoder {
+
+    private final byte typeId_;
+    private final Buf validity_;
+    private int nrow_;
+    private int nnull_;
+
+    /**
+     * Constructor.
+     *
+     * @param  typeId  Type union code
+     */
+    protected ArrowEncoder( byte typeId ) {
+        typeId_ = typeId;
+        validity_ = new Buf();
+    }
+
+    /**
+     * Returns the Type union code for this encoder's field.
+     *
+     * @return  type id
+     */
+    public byte getTypeId() {
+        return typeId_;
+    }
+
+    /**
+     * Writes the Type table for this encoder's field.
+     *
+     * @param  fbb  flatbuffer builder
+     * @return  offset of type table
+     */
+    public abstract int createType( FlatBufferBuilder fbb );
+
+    /**
+     * Returns the encoder for the single child field of this encoder,
+     * if any.  The default implementation returns null.
+     *
+     * @return  child encoder, or null
+     */
+    public ArrowEncoder getChild() {
+        return null;
+    }
+
+    /**
+     * Indicates whether this encoder may write null values.
+     * The default implementation returns true.
+     *
+     * @return  true iff values may be null
+     */
+    public boolean isNullable() {
+        return true;
+    }
+
+    /**
+     * Appends a value to the current batch.
+     *
+     * @param  value  value, may be null
+     */
+    public void addValue( Object value ) {
+        boolean isValid = writeValue( value );
+        if ( ! isValid ) {
+            nnull_++;
+        }
+        setBit( validity_, nrow_++, isValid );
+    }
+
+    /**
+     * Returns the number of values accumulated in the current batch.
+     *
+     * @return  value count
+     */
+    public int getLength() {
+        return nrow_;
+    }
+
+    /**
+     * Returns the number of bytes accumulated so far in the current batch.
+     *
+     * @return  byte count
+     */
+    public long getByteCount() {
+        ArrowEncoder child = getChild();
+        return validity_.size() + getDataByteCount()
+             + ( child == null ? 0 : child.getByteCount() );
+    }
+
+    /**
+     * Appends the FieldNode values for this encoder and its children
+     * to a list.  Each node is a (length, null count) pair.
+     *
+     * @param  nodes  list to which nodes are appended
+     */
+    public void addNodes( List<long[]> nodes ) {
+        nodes.add( new long[] { nrow_, nnull_ } );
+        ArrowEncoder child = getChild();
+        if ( child != null ) {
+            child.addNodes( nodes );
+        }
+    }
+
+    /**
+     * Appends the buffers for this encoder and its children to a list.
+     * The validity buffer has zero length if there are no null values.
+     *
+     * @param  bufs  list to which buffers are appended
+     */
+    public void addBuffers( List<ByteBuffer> bufs ) {
+        bufs.add( nnull_ > 0 ? validity_.getData() : Buf.EMPTY );
+        addDataBuffers( bufs );
+        ArrowEncoder child = getChild();
+        if ( child != null ) {
+            child.addBuffers( bufs );
+        }
+    }
+
+    /**
+     * Resets this encoder ready to accumulate the next batch.
+     */
+    public void clear() {
+        nrow_ = 0;
+        nnull_ = 0;
+        validity_.clear();
+        clearData();
+        ArrowEncoder child = getChild();
+        if ( child != null ) {
+            child.clear();
+        }
+    }
+
+    /**
+     * Records that a given number of non-null values have been
+     * appended to the data buffers.
+     *
+     * @param  n  number of values
+     */
+    void markValid( int n ) {
+        for ( int i = 0; i < n; i++ ) {
+            setBit( validity_, nrow_++, true );
+        }
+    }
+
+    /**
+     * Appends a value to the data buffers.
+     * If the value is null or cannot be written,
+     * blank data is appended instead.
+     *
+     * @param  value  value, may be null
+     * @return  true if the value was written,
+     *          false if blank data was written
+     */
+    abstract boolean writeValue( Object value );
+
+    /**
+     * Returns the number of bytes in the buffers following the
+     * validity buffer, excluding those of children.
+     *
+     * @return  data byte count
+     */
+    abstract long getDataByteCount();
+
+    /**
+     * Appends the buffers following the validity buffer to a list,
+     * excluding those of children.
+     *
+     * @param  bufs  list to which buffers are appended
+     */
+    abstract void addDataBuffers( List<ByteBuffer> bufs );
+
+    /**
+     * Resets the data buffers.
+     */
+    abstract void clearData();
+
+    /**
+     * Returns an encoder for a given column.
+     *
+     * @param  info  column metadata
+     * @return  encoder, or null if the column type is not supported
+     */
+    public static ArrowEncoder createEncoder( ColumnInfo info ) {
+        Class<?> clazz = info.getContentClass();
+        boolean isUbyte =
+            Boolean.TRUE
+           .equals( info.getAuxDatumValue( Tables.UBYTE_FLAG_INFO,
+                                           Boolean.class ) );
+        if ( clazz.isArray() ) {
+            ElementEncoder elEncoder =
+                createElementEncoder( clazz.getComponentType(), isUbyte );
+            return elEncoder == null ? null
+                                     : new ListEncoder( clazz, elEncoder );
+        }
+        else if ( clazz == String.class ) {
+            return new StringEncoder();
+        }
+        else if ( clazz == Boolean.class ) {
+            return new BoolEncoder();
+        }
+        else if ( clazz == Byte.class ) {
+            return createElementEncoder( byte.class, false );
+        }
+        else if ( clazz == Short.class ) {
+            return createElementEncoder( short.class, isUbyte );
+        }
+        else if ( clazz == Integer.class ) {
+            return createElementEncoder( int.class, false );
+        }
+        else if ( clazz == Long.class ) {
+            return createElementEncoder( long.class, false );
+        }
+        else if ( clazz == Float.class ) {
+            return createElementEncoder( float.class, false );
+        }
+        else if ( clazz == Double.class ) {
+            return createElementEncoder( double.class, false );
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns an encoder for values that may also be used as list elements.
+     *
+     * @param  elClazz  primitive class or String
+     * @param  isUbyte  true if short values represent unsigned bytes
+     * @return  encoder, or null if the class is not supported
+     */
+    private static ElementEncoder createElementEncoder( Class<?> elClazz,
+                                                        boolean isUbyte ) {
+        if ( elClazz == byte.class ) {
+            return new IntEncoder( 8, true ) {
+                void putNumber( Number num ) {
+                    data_.putByte( num.byteValue() );
+                }
+                int putElements( Object array ) {
+                    byte[] a = (byte[]) array;
+                    for ( byte b : a ) {
+                        data_.putByte( b );
+                    }
+                    return a.length;
+                }
+            };
+        }
+        else if ( elClazz == short.class && isUbyte ) {
+            return new IntEncoder( 8, false ) {
+                void putNumber( Number num ) {
+                    data_.putByte( (byte) num.shortValue() );
+                }
+                int putElements( Object array ) {
+                    short[] a = (short[]) array;
+                    for ( short s : a ) {
+                        data_.putByte( (byte) s );
+                    }
+                    return a.length;
+                }
+            };
+        }
+        else if ( elClazz == short.class ) {
+            return new IntEncoder( 16, true ) {
+                void putNumber( Number num ) {
+                    data_.putShort( num.shortValue() );
+                }
+                int putElements( Object array ) {
+                    short[] a = (short[]) array;
+                    for ( short s : a ) {
+                        data_.putShort( s );
+                    }
+                    return a.length;
+                }
+            };
+        }
+        else if ( elClazz == int.class ) {
+            return new IntEncoder( 32, true ) {
+                void putNumber( Number num ) {
+                    data_.putInt( num.intValue() );
+                }
+                int putElements( Object array ) {
+                    int[] a = (int[]) array;
+                    for ( int i : a ) {
+                        data_.putInt( i );
+                    }
+                    return a.length;
+                }
+            };
+        }
+        else if ( elClazz == long.class ) {
+            return new IntEncoder( 64, true ) {
+                void putNumber( Number num ) {
+                    data_.putLong( num.longValue() );
+                }
+                int putElements( Object array ) {
+                    long[] a = (long[]) array;
+                    for ( long l : a ) {
+                        data_.putLong( l );
+                    }
+                    return a.length;
+                }
+            };
+        }
+        else if ( elClazz == float.class ) {
+            return new FloatEncoder( ArrowFormat.PRECISION_SINGLE, 4 ) {
+                void putNumber( Number num ) {
+                    data_.putFloat( num.floatValue() );
+                }
+                int putElements( Object array ) {
+                    float[] a = (float[]) array;
+                    for ( float f : a ) {
+                        data_.putFloat( f );
+                    }
+                    return a.length;
+                }
+            };
+        }
+        else if ( elClazz == double.class ) {
+            return new FloatEncoder( ArrowFormat.PRECISION_DOUBLE, 8 ) {
+                void putNumber( Number num ) {
+                    data_.putDouble( num.doubleValue() );
+                }
+                int putElements( Object array ) {
+                    double[] a = (double[]) array;
+                    for ( double d : a ) {
+                        data_.putDouble( d );
+                    }
+                    return a.length;
+                }
+            };
+        }
+        else if ( elClazz == boolean.class ) {
+            return new BoolEncoder();
+        }
+        else if ( elClazz == String.class ) {
+            return new StringEncoder();
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a Type table with no fields.
+     *
+     * @param  fbb  flatbuffer builder
+     * @return  offset of type table
+     */
+    private static int createEmptyType( FlatBufferBuilder fbb ) {
+        fbb.startObject( 0 );
+        return fbb.endObject();
+    }
+
+    /**
+     * Sets or clears a bit in a least-significant-bit-first bitmap,
+     * extending it as required.  Bits must be written in sequence.
+     *
+     * @param  bits  bitmap buffer
+     * @param  i   bit index
+     * @param  isSet  bit value
+     */
+    private static void setBit( Buf bits, int i, boolean isSet ) {
+        if ( ( i & 7 ) == 0 ) {
+            bits.putByte( (byte) 0 );
+        }
+        if ( isSet ) {
+            bits.orByte( i >> 3, 1 << ( i & 7 ) );
+        }
+    }
+
+    /**
+     * Encoder that can also accumulate values from arrays,
+     * for use as the child of a list field.
+     */
+    private static abstract class ElementEncoder extends ArrowEncoder {
+
+        /**
+         * Constructor.
+         *
+         * @param  typeId  Type union code
+         */
+        ElementEncoder( byte typeId ) {
+            super( typeId );
+        }
+
+        /**
+         * Appends all the elements of an array.
+         *
+         * @param  array  non-null array with a component type
+         *                appropriate for this encoder
+         */
+        abstract void addElements( Object array );
+    }
+
+    /**
+     * Encoder for fixed-width numeric values.
+     */
+    private static abstract class NumberEncoder extends ElementEncoder {
+
+        final Buf data_;
+        private final int width_;
+
+        /**
+         * Constructor.
+         *
+         * @param  typeId  Type union code
+         * @param  width   number of bytes per value
+         */
+        NumberEncoder( byte typeId, int width ) {
+            super( typeId );
+            width_ = width;
+            data_ = new Buf();
+        }
+
+        /**
+         * Appends a numeric value to the data buffer.
+         *
+         * @param  num  non-null value
+         */
+        abstract void putNumber( Number num );
+
+        /**
+         * Appends the elements of a primitive array to the data buffer.
+         *
+         * @param  array  primitive array
+         * @return   number of elements written
+         */
+        abstract int putElements( Object array );
+
+        @Override
+        public boolean isNullable() {
+            return false;
+        }
+
+        boolean writeValue( Object value ) {
+            if ( value instanceof Number ) {
+                putNumber( (Number) value );
+                return true;
+            }
+            else {
+                data_.putZeros( width_ );
+                return false;
+            }
+        }
+
+        void addElements( Object array ) {
+            markValid( putElements( array ) );
+        }
+
+        long getDataByteCount() {
+            return data_.size();
+        }
+
+        void addDataBuffers( List<ByteBuffer> bufs ) {
+            bufs.add( data_.getData() );
+        }
+
+        void clearData() {
+            data_.clear();
+        }
+    }
+
+    /**
+     * Encoder for Int type values.
+     */
+    private static abstract class IntEncoder extends NumberEncoder {
+
+        private final int bitWidth_;
+        private final boolean isSigned_;
+
+        /**
+         * Constructor.
+         *
+         * @param  bitWidth  number of bits per value
+         * @param  isSigned  true for signed, false for unsigned
+         */
+        IntEncoder( int bitWidth, boolean isSigned ) {
+            super( ArrowFormat.TYPE_INT, bitWidth / 8 );
+            bitWidth_ = bitWidth;
+            isSigned_ = isSigned;
+        }
+
+        public int createType( FlatBufferBuilder fbb ) {
+            fbb.startObject( 2 );
+            fbb.addInt( 0, bitWidth_, 0 );
+            fbb.addBoolean( 1, isSigned_, false );
+            return fbb.endObject();
+        }
+    }
+
+    /**
+     * Encoder for FloatingPoint type values.
+     */
+    private static abstract class FloatEncoder extends NumberEncoder {
+
+        private final short precision_;
+
+        /**
+         * Constructor.
+         *
+         * @param  precision  Precision enum value
+         * @param  width   number of bytes per value
+         */
+        FloatEncoder( short precision, int width ) {
+            super( ArrowFormat.TYPE_FLOAT, width );
+            precision_ = precision;
+        }
+
+        public int createType( FlatBufferBuilder fbb ) {
+            fbb.startObject( 1 );
+            fbb.addShort( 0, precision_, 0 );
+            return fbb.endObject();
+        }
+    }
+
+    /**
+     * Encoder for Bool type values.
+     */
+    private static class BoolEncoder extends ElementEncoder {
+
+        private final Buf data_;
+
+        BoolEncoder() {
+            super( ArrowFormat.TYPE_BOOL );
+            data_ = new Buf();
+        }
+
+        public int createType( FlatBufferBuilder fbb ) {
+            return createEmptyType( fbb );
+        }
+
+        @Override
+        public boolean isNullable() {
+            return false;
+        }
+
+        boolean writeValue( Object value ) {
+            setBit( data_, getLength(), Boolean.TRUE.equals( value ) );
+            return value instanceof Boolean;
+        }
+
+        void addElements( Object array ) {
+            boolean[] flags = (boolean[]) array;
+            int n0 = getLength();
+            for ( int i = 0; i < flags.length; i++ ) {
+                setBit( data_, n0 + i, flags[ i ] );
+            }
+            markValid( flags.length );
+        }
+
+        long getDataByteCount() {
+            return data_.size();
+        }
+
+        void addDataBuffers( List<ByteBuffer> bufs ) {
+            bufs.add( data_.getData() );
+        }
+
+        void clearData() {
+            data_.clear();
+        }
+    }
+
+    /**
+     * Encoder for Utf8 type values.
+     */
+    private static class StringEncoder extends ElementEncoder {
+
+        private final Buf offsets_;
+        private final Buf data_;
+
+        StringEncoder() {
+            super( ArrowFormat.TYPE_UTF8 );
+            offsets_ = new Buf();
+            data_ = new Buf();
+            offsets_.putInt( 0 );
+        }
+
+        public int createType( FlatBufferBuilder fbb ) {
+            return createEmptyType( fbb );
+        }
+
+        boolean writeValue( Object value ) {
+            boolean hasValue = value != null;
+            if ( hasValue ) {
+                data_.putBytes( value.toString()
+                                     .getBytes( StandardCharsets.UTF_8 ) );
+            }
+            offsets_.putInt( data_.size() );
+            return hasValue;
+        }
+
+        void addElements( Object array ) {
+            for ( String s : (String[]) array ) {
+                addValue( s );
+            }
+        }
+
+        long getDataByteCount() {
+            return offsets_.size() + data_.size();
+        }
+
+        void addDataBuffers( List<ByteBuffer> bufs ) {
+            bufs.add( offsets_.getData() );
+            bufs.add( data_.getData() );
+        }
+
+        void clearData() {
+            offsets_.clear();
+            data_.clear();
+            offsets_.putInt( 0 );
+        }
+    }
+
+    /**
+     * Encoder for List type values, which are supplied as arrays.
+     */
+    private static class ListEncoder extends ArrowEncoder {
+
+        private final Class<?> arrayClazz_;
+        private final ElementEncoder elEncoder_;
+        private final Buf offsets_;
+
+        /**
+         * Constructor.
+         *
+         * @param  arrayClazz  class of array values
+         * @param  elEncoder   encoder for array elements
+         */
+        ListEncoder( Class<?> arrayClazz, ElementEncoder elEncoder ) {
+            super( ArrowFormat.TYPE_LIST );
+            arrayClazz_ = arrayClazz;
+            elEncoder_ = elEncoder;
+            offsets_ = new Buf();
+            offsets_.putInt( 0 );
+        }
+
+        public int createType( FlatBufferBuilder fbb ) {
+            return createEmptyType( fbb );
+        }
+
+        @Override
+        public ArrowEncoder getChild() {
+            return elEncoder_;
+        }
+
+        boolean writeValue( Object value ) {
+            boolean hasValue = arrayClazz_.isInstance( value );
+            if ( hasValue ) {
+                elEncoder_.addElements( value );
+            }
+            offsets_.putInt( elEncoder_.getLength() );
+            return hasValue;
+        }
+
+        long getDataByteCount() {
+            return offsets_.size();
+        }
+
+        void addDataBuffers( List<ByteBuffer> bufs ) {
+            bufs.add( offsets_.getData() );
+        }
+
+        void clearData() {
+            offsets_.clear();
+            offsets_.putInt( 0 );
+        }
+    }
+
+    /**
+     * Growable little-endian byte buffer.
+     */
+    private static class Buf {
+
+        private ByteBuffer bbuf_;
+
+        /** Buffer with no content. */
+        static final ByteBuffer EMPTY = ByteBuffer.allocate( 0 );
+
+        Buf() {
+            bbuf_ = ByteBuffer.allocate( 1024 )
+                              .order( ByteOrder.LITTLE_ENDIAN );
+        }
+
+        /**
+         * Ensures that there is space to append a given number of bytes.
+         *
+         * @param  n  number of bytes required
+         */
+        private void ensure( int n ) {
+            if ( bbuf_.remaining() < n ) {
+                long size = Math.max( 2L * bbuf_.capacity(),
+                                      (long) bbuf_.position() + n );
+                if ( size > Integer.MAX_VALUE - 8 ) {
+                    throw new IllegalStateException( "Arrow buffer too large" );
+                }
+                ByteBuffer bbuf = ByteBuffer.allocate( (int) size )
+                                            .order( ByteOrder.LITTLE_ENDIAN );
+                bbuf_.flip();
+                bbuf.put( bbuf_ );
+                bbuf_ = bbuf;
+            }
+        }
+
+        void putByte( byte b ) {
+            ensure( 1 );
+            bbuf_.put( b );
+        }
+
+        void putShort( short s ) {
+            ensure( 2 );
+            bbuf_.putShort( s );
+        }
+
+        void putInt( int i ) {
+            ensure( 4 );
+            bbuf_.putInt( i );
+        }
+
+        void putLong( long l ) {
+            ensure( 8 );
+            bbuf_.putLong( l );
+        }
+
+        void putFloat( float f ) {
+            ensure( 4 );
+            bbuf_.putFloat( f );
+        }
+
+        void putDouble( double d ) {
+            ensure( 8 );
+            bbuf_.putDouble( d );
+        }
+
+        void putBytes( byte[] bytes ) {
+            ensure( bytes.length );
+            bbuf_.put( bytes );
+        }
+
+        void putZeros( int n ) {
+            ensure( n );
+            for ( int i = 0; i < n; i++ ) {
+                bbuf_.put( (byte) 0 );
+            }
+        }
+
+        /**
+         * Ors bits into an existing byte.
+         *
+         * @param  index  byte index
+         * @param  mask   bits to set
+         */
+        void orByte( int index, int mask ) {
+            bbuf_.put( index, (byte) ( bbuf_.get( index ) | mask ) );
+        }
+
+        int size() {
+            return bbuf_.position();
+        }
+
+        void clear() {
+            bbuf_.clear();
+        }
+
+        /**
+         * Returns a view of the current contents.
+         *
+         * @return  array-backed buffer with position 0 and limit
+         *          equal to size
+         */
+        ByteBuffer getData() {
+            ByteBuffer data = bbuf_.duplicate();
+            data.flip();
+            return data;
+        }
+    }
+}
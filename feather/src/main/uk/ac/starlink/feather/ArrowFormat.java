@@ -0,0 +1,425 @@
+package uk.ac.starlink.feather;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import uk.ac.bristol.star.fbs.google.FlatBufferBuilder;
+import uk.ac.starlink.table.TableFormatException;
+
+/**
+ * Constants and utilities for reading and writing the Apache Arrow
+ * IPC stream and file formats.
+ *
+ * <p>The Arrow IPC formats are defined at
+ * <a href="https://arrow.apache.org/docs/format/Columnar.html"
+ *    >https://arrow.apache.org/docs/format/Columnar.html</a>.
+ * Metadata is encoded using FlatBuffers according to the
+ * Arrow <code>Schema.fbs</code>, <code>Message.fbs</code>
+ * and <code>File.fbs</code> definitions; the field indices
+ * defined here are the positions of fields within the tables
+ * defined there, with union fields taking two positions.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class ArrowFormat {
+
+    /** Magic number at start and end of Arrow IPC file format. */
+    public static final byte[] MAGIC = new byte[] {
+        (byte) 'A', (byte) 'R', (byte) 'R', (byte) 'O', (byte) 'W', (byte) '1',
+    };
+
+    /** Marker preceding each encapsulated message. */
+    public static final int CONTINUATION = 0xffffffff;
+
+    /** MetadataVersion value for V5. */
+    public static final short VERSION_V5 = 4;
+
+    /** MessageHeader union code for Schema. */
+    public static final byte HEADER_SCHEMA = 1;
+
+    /** MessageHeader union code for DictionaryBatch. */
+    public static final byte HEADER_DICTIONARY = 2;
+
+    /** MessageHeader union code for RecordBatch. */
+    public static final byte HEADER_RECORDBATCH = 3;
+
+    /* Type union codes. */
+    public static final byte TYPE_NULL = 1;
+    public static final byte TYPE_INT = 2;
+    public static final byte TYPE_FLOAT = 3;
+    public static final byte TYPE_BINARY = 4;
+    public static final byte TYPE_UTF8 = 5;
+    public static final byte TYPE_BOOL = 6;
+    public static final byte TYPE_DECIMAL = 7;
+    public static final byte TYPE_DATE = 8;
+    public static final byte TYPE_TIME = 9;
+    public static final byte TYPE_TIMESTAMP = 10;
+    public static final byte TYPE_INTERVAL = 11;
+    public static final byte TYPE_LIST = 12;
+    public static final byte TYPE_STRUCT = 13;
+    public static final byte TYPE_UNION = 14;
+    public static final byte TYPE_FIXEDSIZEBINARY = 15;
+    public static final byte TYPE_FIXEDSIZELIST = 16;
+    public static final byte TYPE_MAP = 17;
+    public static final byte TYPE_DURATION = 18;
+    public static final byte TYPE_LARGEBINARY = 19;
+    public static final byte TYPE_LARGEUTF8 = 20;
+    public static final byte TYPE_LARGELIST = 21;
+    public static final byte TYPE_RUNENDENCODED = 22;
+
+    /* Precision enum values for FloatingPoint type. */
+    public static final short PRECISION_HALF = 0;
+    public static final short PRECISION_SINGLE = 1;
+    public static final short PRECISION_DOUBLE = 2;
+
+    /* Field indices for Message table. */
+    public static final int MESSAGE_VERSION = 0;
+    public static final int MESSAGE_HEADER_TYPE = 1;
+    public static final int MESSAGE_HEADER = 2;
+    public static final int MESSAGE_BODYLENGTH = 3;
+
+    /* Field indices for Schema table. */
+    public static final int SCHEMA_ENDIANNESS = 0;
+    public static final int SCHEMA_FIELDS = 1;
+    public static final int SCHEMA_METADATA = 2;
+
+    /* Field indices for Field table. */
+    public static final int FIELD_NAME = 0;
+    public static final int FIELD_NULLABLE = 1;
+    public static final int FIELD_TYPE_TYPE = 2;
+    public static final int FIELD_TYPE = 3;
+    public static final int FIELD_DICTIONARY = 4;
+    public static final int FIELD_CHILDREN = 5;
+    public static final int FIELD_METADATA = 6;
+
+    /* Field indices for KeyValue table. */
+    public static final int KEYVALUE_KEY = 0;
+    public static final int KEYVALUE_VALUE = 1;
+
+    /* Field indices for RecordBatch table. */
+    public static final int BATCH_LENGTH = 0;
+    public static final int BATCH_NODES = 1;
+    public static final int BATCH_BUFFERS = 2;
+    public static final int BATCH_COMPRESSION = 3;
+
+    /* Field indices for Footer table. */
+    public static final int FOOTER_VERSION = 0;
+    public static final int FOOTER_SCHEMA = 1;
+    public static final int FOOTER_DICTIONARIES = 2;
+    public static final int FOOTER_BATCHES = 3;
+
+    /** Size in bytes of FieldNode and Buffer structs. */
+    public static final int STRUCT16_SIZE = 16;
+
+    /** Size in bytes of Block struct. */
+    public static final int BLOCK_SIZE = 24;
+
+    /**
+     * Private constructor prevents instantiation.
+     */
+    private ArrowFormat() {
+    }
+
+    /**
+     * Indicates whether a buffer starts with the Arrow file format
+     * magic number.
+     *
+     * @param  intro  first few bytes of file
+     * @return  true iff it looks like an Arrow IPC file
+     */
+    public static boolean isFileMagic( byte[] intro ) {
+        if ( intro.length < MAGIC.length ) {
+            return false;
+        }
+        for ( int i = 0; i < MAGIC.length; i++ ) {
+            if ( intro[ i ] != MAGIC[ i ] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether a buffer starts with what looks like an
+     * Arrow IPC stream, that is an encapsulated Schema message.
+     *
+     * @param  intro  first few bytes of stream
+     * @return  true iff it looks like an Arrow IPC stream
+     */
+    public static boolean isStreamMagic( byte[] intro ) {
+        if ( intro.length < 16 ) {
+            return false;
+        }
+        ByteBuffer bbuf = ByteBuffer.wrap( intro )
+                                    .order( ByteOrder.LITTLE_ENDIAN );
+        if ( bbuf.getInt( 0 ) != CONTINUATION ) {
+            return false;
+        }
+        int leng = bbuf.getInt( 4 );
+        int root = bbuf.getInt( 8 );
+        return leng > 0 && leng % 8 == 0 && root > 0 && root < leng;
+    }
+
+    /**
+     * Reads an encapsulated message from a channel.
+     * On exit the channel is positioned at the start of the message body.
+     * Null is returned if the end of the stream is reached,
+     * either because of an end-of-stream marker or because
+     * no more bytes are available.
+     *
+     * @param  chan  input channel
+     * @return  message, or null at end of stream
+     */
+    public static Message readMessage( ReadableByteChannel chan )
+            throws IOException {
+        ByteBuffer ibuf = ByteBuffer.allocate( 4 )
+                                    .order( ByteOrder.LITTLE_ENDIAN );
+        if ( ! readFully( chan, ibuf, true ) ) {
+            return null;
+        }
+        int metaLeng = ibuf.getInt( 0 );
+        int prefixLeng = 4;
+
+        /* Pre-0.15 streams have no continuation marker. */
+        if ( metaLeng == CONTINUATION ) {
+            ibuf.clear();
+            if ( ! readFully( chan, ibuf, true ) ) {
+                return null;
+            }
+            metaLeng = ibuf.getInt( 0 );
+            prefixLeng = 8;
+        }
+        if ( metaLeng == 0 ) {
+            return null;
+        }
+        if ( metaLeng < 0 ) {
+            throw new TableFormatException( "Bad Arrow message length "
+                                          + metaLeng );
+        }
+        ByteBuffer mbuf = ByteBuffer.allocate( metaLeng );
+        readFully( chan, mbuf, false );
+        mbuf.flip();
+        return new Message( FbTable.getRoot( mbuf ), prefixLeng + metaLeng );
+    }
+
+    /**
+     * Writes an encapsulated message, not including its body,
+     * to an output stream.  The metadata is padded to a multiple of
+     * 8 bytes.
+     *
+     * @param  fbb  flatbuffer builder containing finished message metadata
+     * @param  out  destination stream
+     * @return   number of bytes written
+     */
+    public static int writeMessage( FlatBufferBuilder fbb, OutputStream out )
+            throws IOException {
+        byte[] meta = fbb.sizedByteArray();
+        int pad = padding( meta.length );
+        writeInt( out, CONTINUATION );
+        writeInt( out, meta.length + pad );
+        out.write( meta );
+        out.write( new byte[ pad ] );
+        return 8 + meta.length + pad;
+    }
+
+    /**
+     * Writes the end-of-stream marker.
+     *
+     * @param  out  destination stream
+     * @return  number of bytes written
+     */
+    public static int writeEndOfStream( OutputStream out ) throws IOException {
+        writeInt( out, CONTINUATION );
+        writeInt( out, 0 );
+        return 8;
+    }
+
+    /**
+     * Writes a little-endian 4-byte integer to a stream.
+     *
+     * @param  out  destination stream
+     * @param  value  value to write
+     */
+    public static void writeInt( OutputStream out, int value )
+            throws IOException {
+        out.write( value & 0xff );
+        out.write( ( value >> 8 ) & 0xff );
+        out.write( ( value >> 16 ) & 0xff );
+        out.write( ( value >> 24 ) & 0xff );
+    }
+
+    /**
+     * Returns the number of padding bytes required to bring a
+     * given byte count up to a multiple of 8.
+     *
+     * @param  leng  byte count
+     * @return  padding byte count in range 0..7
+     */
+    public static int padding( long leng ) {
+        return (int) ( ( 8 - ( leng & 7 ) ) & 7 );
+    }
+
+    /**
+     * Returns the number of FlatBuffer nodes and buffers occupied
+     * by the data for a given field in a record batch.
+     * This is required to skip over columns that cannot be decoded.
+     *
+     * @param  field  Field table
+     * @return  2-element array giving (node count, buffer count)
+     * @throws  TableFormatException  if the type is not understood
+     */
+    public static int[] getLayoutCounts( FbTable field )
+            throws TableFormatException {
+        int nnode = 1;
+        final int nbuf;
+
+        /* Dictionary-encoded fields are represented in the record batch
+         * by their integer indices. */
+        if ( field.hasField( FIELD_DICTIONARY ) ) {
+            return new int[] { 1, 2 };
+        }
+        byte typeId = field.getByte( FIELD_TYPE_TYPE, (byte) 0 );
+        switch ( typeId ) {
+            case TYPE_NULL:
+            case TYPE_RUNENDENCODED:
+                nbuf = 0;
+                break;
+            case TYPE_INT:
+            case TYPE_FLOAT:
+            case TYPE_BOOL:
+            case TYPE_DECIMAL:
+            case TYPE_DATE:
+            case TYPE_TIME:
+            case TYPE_TIMESTAMP:
+            case TYPE_INTERVAL:
+            case TYPE_DURATION:
+            case TYPE_FIXEDSIZEBINARY:
+                nbuf = 2;
+                break;
+            case TYPE_BINARY:
+            case TYPE_UTF8:
+            case TYPE_LARGEBINARY:
+            case TYPE_LARGEUTF8:
+                nbuf = 3;
+                break;
+            case TYPE_LIST:
+            case TYPE_LARGELIST:
+            case TYPE_MAP:
+                nbuf = 2;
+                break;
+            case TYPE_STRUCT:
+            case TYPE_FIXEDSIZELIST:
+                nbuf = 1;
+                break;
+            case TYPE_UNION:
+                boolean isDense =
+                    field.getTable( FIELD_TYPE ).getShort( 0, (short) 0 ) == 1;
+                nbuf = isDense ? 2 : 1;
+                break;
+            default:
+                throw new TableFormatException( "Unsupported Arrow type "
+                                              + typeId );
+        }
+        int[] counts = new int[] { nnode, nbuf };
+        int nchild = field.getVectorLength( FIELD_CHILDREN );
+        for ( int ic = 0; ic < nchild; ic++ ) {
+            int[] childCounts =
+                getLayoutCounts( field.getTableElement( FIELD_CHILDREN, ic ) );
+            counts[ 0 ] += childCounts[ 0 ];
+            counts[ 1 ] += childCounts[ 1 ];
+        }
+        return counts;
+    }
+
+    /**
+     * Reads bytes from a channel until a buffer is full.
+     *
+     * @param  chan  channel
+     * @param  buf   buffer to fill
+     * @param  allowEof  if true, end of file before any bytes are read
+     *                   is reported by returning false;
+     *                   otherwise it provokes an EOFException
+     * @return  true if the buffer was filled,
+     *          false if end of file was encountered immediately
+     */
+    public static boolean readFully( ReadableByteChannel chan, ByteBuffer buf,
+                                     boolean allowEof )
+            throws IOException {
+        boolean started = false;
+        while ( buf.hasRemaining() ) {
+            if ( chan.read( buf ) < 0 ) {
+                if ( allowEof && ! started ) {
+                    return false;
+                }
+                else {
+                    throw new EOFException( "Unexpected end of Arrow data" );
+                }
+            }
+            started = true;
+        }
+        return true;
+    }
+
+    /**
+     * Represents an encapsulated IPC message.
+     */
+    public static class Message {
+
+        private final FbTable msg_;
+        private final int metaLeng_;
+
+        /**
+         * Constructor.
+         *
+         * @param  msg   Message flatbuffer table
+         * @param  metaLeng  number of bytes in the message prefix and
+         *                   metadata, including padding
+         */
+        Message( FbTable msg, int metaLeng ) {
+            msg_ = msg;
+            metaLeng_ = metaLeng;
+        }
+
+        /**
+         * Returns the MessageHeader union code.
+         *
+         * @return  header type
+         */
+        public byte getHeaderType() {
+            return msg_.getByte( MESSAGE_HEADER_TYPE, (byte) 0 );
+        }
+
+        /**
+         * Returns the header table, whose type is given by the
+         * header type.
+         *
+         * @return  header table
+         */
+        public FbTable getHeader() {
+            return msg_.getTable( MESSAGE_HEADER );
+        }
+
+        /**
+         * Returns the number of bytes in the message body.
+         *
+         * @return  body length
+         */
+        public long getBodyLength() {
+            return msg_.getLong( MESSAGE_BODYLENGTH, 0L );
+        }
+
+        /**
+         * Returns the number of bytes occupied by the message
+         * prefix and metadata.
+         *
+         * @return  metadata byte count
+         */
+        public int getMetadataLength() {
+            return metaLeng_;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package uk.ac.starlink.feather;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.DefaultValueInfo;
+import uk.ac.starlink.table.TableFormatException;
+
+/**
+ * Represents the schema of an Arrow IPC stream or file,
+ * and turns record batches into column data.
+ * Fields with types that cannot be decoded are skipped.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class ArrowSchema {
+
+    private final String name_;
+    private final ColumnInfo[] colInfos_;
+    private final FieldReader[] readers_;
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.feather" );
+
+    /** Schema metadata key used to store the table name. */
+    public static final String NAME_KEY = "name";
+
+    /**
+     * Constructor.
+     *
+     * @param  schema  Schema table
+     */
+    public ArrowSchema( FbTable schema ) throws TableFormatException {
+        if ( schema.getShort( ArrowFormat.SCHEMA_ENDIANNESS, (short) 0 )
+             != 0 ) {
+            throw new TableFormatException( "Big-endian Arrow data "
+                                          + "not supported" );
+        }
+        name_ = getMetadata( schema, ArrowFormat.SCHEMA_METADATA )
+               .get( NAME_KEY );
+        int nfield = schema.getVectorLength( ArrowFormat.SCHEMA_FIELDS );
+        List<ColumnInfo> infoList = new ArrayList<ColumnInfo>();
+        readers_ = new FieldReader[ nfield ];
+        for ( int ifld = 0; ifld < nfield; ifld++ ) {
+            FbTable field =
+                schema.getTableElement( ArrowFormat.SCHEMA_FIELDS, ifld );
+            int[] counts = ArrowFormat.getLayoutCounts( field );
+            ArrowDecoder decoder = ArrowDecoder.createDecoder( field );
+            String fname = field.getString( ArrowFormat.FIELD_NAME );
+            if ( decoder == null ) {
+                logger_.warning( "Skipping Arrow column " + fname
+                               + " with unsupported type" );
+            }
+            else {
+                infoList.add( createColumnInfo( field, decoder ) );
+            }
+            readers_[ ifld ] =
+                new FieldReader( decoder, counts[ 0 ], counts[ 1 ] );
+        }
+        colInfos_ = infoList.toArray( new ColumnInfo[ 0 ] );
+    }
+
+    /**
+     * Returns the table name recorded in the schema metadata.
+     *
+     * @return  table name, or null
+     */
+    public String getName() {
+        return name_;
+    }
+
+    /**
+     * Returns the metadata for the columns that can be decoded.
+     *
+     * @return  column metadata array
+     */
+    public ColumnInfo[] getColumnInfos() {
+        return colInfos_.clone();
+    }
+
+    /**
+     * Decodes the column data for a record batch.
+     *
+     * @param  batch   RecordBatch table
+     * @param  body    message body
+     * @return   array of vectors, one for each column
+     */
+    public ArrowDecoder.Vector[] readBatch( FbTable batch, ByteBuffer body )
+            throws IOException {
+        ArrowDecoder.BatchData data = new ArrowDecoder.BatchData( batch, body );
+        ArrowDecoder.Vector[] vectors =
+            new ArrowDecoder.Vector[ colInfos_.length ];
+        int ic = 0;
+        for ( FieldReader rdr : readers_ ) {
+            if ( rdr.decoder_ == null ) {
+                data.skip( rdr.nnode_, rdr.nbuf_ );
+            }
+            else {
+                vectors[ ic++ ] = rdr.decoder_.createVector( data );
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * Returns the row count of a record batch.
+     *
+     * @param  batch  RecordBatch table
+     * @return  row count
+     */
+    public static long getRowCount( FbTable batch ) {
+        return batch.getLong( ArrowFormat.BATCH_LENGTH, 0L );
+    }
+
+    /**
+     * Constructs column metadata for a field.
+     *
+     * @param  field  Field table
+     * @param  decoder  decoder for field
+     * @return   column metadata
+     */
+    private static ColumnInfo createColumnInfo( FbTable field,
+                                                ArrowDecoder decoder ) {
+        ColumnInfo info =
+            new ColumnInfo( field.getString( ArrowFormat.FIELD_NAME ),
+                            decoder.getContentClass(), null );
+        info.setNullable( field.getBoolean( ArrowFormat.FIELD_NULLABLE,
+                                            false ) );
+        Map<String,String> meta =
+            getMetadata( field, ArrowFormat.FIELD_METADATA );
+        for ( Map.Entry<String,String> entry : meta.entrySet() ) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if ( key.equals( FeatherStarTable.UCD_KEY ) ) {
+                info.setUCD( value );
+            }
+            else if ( key.equals( FeatherStarTable.UTYPE_KEY ) ) {
+                info.setUtype( value );
+            }
+            else if ( key.equals( FeatherStarTable.UNIT_KEY ) ) {
+                info.setUnitString( value );
+            }
+            else if ( key.equals( FeatherStarTable.DESCRIPTION_KEY ) ) {
+                info.setDescription( value );
+            }
+        }
+        decoder.configureInfo( info );
+        String shape = meta.get( FeatherStarTable.SHAPE_KEY );
+        if ( shape != null && info.isArray() ) {
+            info.setShape( DefaultValueInfo.unformatShape( shape ) );
+        }
+        return info;
+    }
+
+    /**
+     * Reads a custom_metadata KeyValue vector from a table.
+     *
+     * @param  table  table containing metadata
+     * @param  ifield  index of custom_metadata field
+     * @return   key-value map
+     */
+    private static Map<String,String> getMetadata( FbTable table,
+                                                   int ifield ) {
+        Map<String,String> map = new LinkedHashMap<String,String>();
+        int nkv = table.getVectorLength( ifield );
+        for ( int i = 0; i < nkv; i++ ) {
+            FbTable kv = table.getTableElement( ifield, i );
+            String key = kv.getString( ArrowFormat.KEYVALUE_KEY );
+            String value = kv.getString( ArrowFormat.KEYVALUE_VALUE );
+            if ( key != null && value != null ) {
+                map.put( key, value );
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Aggregates the information required to read or skip a field.
+     */
+    private static class FieldReader {
+        final ArrowDecoder decoder_;
+        final int nnode_;
+        final int nbuf_;
+
+        /**
+         * Constructor.
+         *
+         * @param  decoder  decoder, or null if the field is to be skipped
+         * @param  nnode   number of nodes occupied by the field
+         * @param  nbuf    number of buffers occupied by the field
+         */
+        FieldReader( ArrowDecoder decoder, int nnode, int nbuf ) {
+            decoder_ = decoder;
+            nnode_ = nnode;
+            nbuf_ = nbuf;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package uk.ac.starlink.feather;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+import uk.ac.starlink.table.AbstractStarTable;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.TableFormatException;
+
+/**
+ * Random-access StarTable implementation based on a file in
+ * Apache Arrow IPC file or stream format.
+ *
+ * <p>On construction, only the schema and the metadata of each
+ * record batch are read.  The body of each record batch is
+ * memory-mapped the first time it is needed, and the column data
+ * is read directly from the mapped buffers.
+ * Splitting for parallel processing is done on record batch boundaries
+ * where possible.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class ArrowStarTable extends AbstractStarTable {
+
+    private final FileChannel chan_;
+    private final ArrowSchema schema_;
+    private final ColumnInfo[] colInfos_;
+    private final int ncol_;
+    private final Batch[] batches_;
+    private final long[] batchStarts_;
+    private final ArrowDecoder.Vector[][] batchVectors_;
+    private final long nrow_;
+
+    /**
+     * Constructs a table from a file.
+     *
+     * @param  file  file in Arrow IPC file or stream format
+     */
+    public ArrowStarTable( File file ) throws IOException {
+        this( FileChannel.open( file.toPath(), StandardOpenOption.READ ) );
+    }
+
+    /**
+     * Constructs a table from a file channel.
+     * The channel is closed if construction fails.
+     *
+     * @param  chan  channel open for reading
+     */
+    private ArrowStarTable( FileChannel chan ) throws IOException {
+        chan_ = chan;
+        List<Batch> batchList = new ArrayList<Batch>();
+        try {
+            schema_ = readIndex( chan, batchList );
+        }
+        catch ( IOException | RuntimeException e ) {
+            chan.close();
+            throw e;
+        }
+        colInfos_ = schema_.getColumnInfos();
+        ncol_ = colInfos_.length;
+        batches_ = batchList.toArray( new Batch[ 0 ] );
+        int nbatch = batches_.length;
+        batchStarts_ = new long[ nbatch + 1 ];
+        for ( int ib = 0; ib < nbatch; ib++ ) {
+            batchStarts_[ ib + 1 ] = batchStarts_[ ib ]
+                                   + batches_[ ib ].nrow_;
+        }
+        nrow_ = batchStarts_[ nbatch ];
+        batchVectors_ = new ArrowDecoder.Vector[ nbatch ][];
+    }
+
+    public int getColumnCount() {
+        return ncol_;
+    }
+
+    public long getRowCount() {
+        return nrow_;
+    }
+
+    public boolean isRandom() {
+        return true;
+    }
+
+    public String getName() {
+        return schema_.getName();
+    }
+
+    public ColumnInfo getColumnInfo( int icol ) {
+        return colInfos_[ icol ];
+    }
+
+    /**
+     * Returns the number of record batches in this table.
+     *
+     * @return  batch count
+     */
+    public int getBatchCount() {
+        return batches_.length;
+    }
+
+    public Object getCell( long irow, int icol ) throws IOException {
+        int ib = getBatchIndex( irow );
+        return getVectors( ib )[ icol ]
+              .getValue( (int) ( irow - batchStarts_[ ib ] ) );
+    }
+
+    public Object[] getRow( long irow ) throws IOException {
+        int ib = getBatchIndex( irow );
+        return readRow( getVectors( ib ),
+                        (int) ( irow - batchStarts_[ ib ] ) );
+    }
+
+    public RowSequence getRowSequence() {
+        return new ArrowRowSplittable( -1L, nrow_ );
+    }
+
+    public RowSplittable getRowSplittable() {
+        return new ArrowRowSplittable( -1L, nrow_ );
+    }
+
+    public RowAccess getRowAccess() {
+        return new RowAccess() {
+            int ib_ = -1;
+            ArrowDecoder.Vector[] vectors_;
+            int ir_ = -1;
+            public void setRowIndex( long irow ) throws IOException {
+                if ( ib_ < 0 || irow < batchStarts_[ ib_ ] ||
+                     irow >= batchStarts_[ ib_ + 1 ] ) {
+                    ib_ = getBatchIndex( irow );
+                    vectors_ = getVectors( ib_ );
+                }
+                ir_ = (int) ( irow - batchStarts_[ ib_ ] );
+            }
+            public Object getCell( int icol ) {
+                return vectors_[ icol ].getValue( ir_ );
+            }
+            public Object[] getRow() {
+                return readRow( vectors_, ir_ );
+            }
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Closes the file.  Subsequent attempts to read data from this table
+     * may fail.
+     */
+    @Override
+    public void close() throws IOException {
+        chan_.close();
+    }
+
+    /**
+     * Returns the index of the batch containing a given row.
+     *
+     * @param  irow  row index
+     * @return  batch index
+     */
+    private int getBatchIndex( long irow ) {
+        if ( irow < 0 || irow >= nrow_ ) {
+            throw new IllegalArgumentException( "Row " + irow
+                                              + " out of range" );
+        }
+        int ix = Arrays.binarySearch( batchStarts_, irow );
+        return ix >= 0 ? ix : -ix - 2;
+    }
+
+    /**
+     * Returns the column vectors for a given batch,
+     * mapping its body if that has not already been done.
+     *
+     * @param  ib  batch index
+     * @return  array of vectors, one for each column
+     */
+    private synchronized ArrowDecoder.Vector[] getVectors( int ib )
+            throws IOException {
+        if ( batchVectors_[ ib ] == null ) {
+            Batch batch = batches_[ ib ];
+            ByteBuffer body =
+                chan_.map( FileChannel.MapMode.READ_ONLY,
+                           batch.bodyOffset_, batch.bodyLength_ );
+            batchVectors_[ ib ] = schema_.readBatch( batch.header_, body );
+        }
+        return batchVectors_[ ib ];
+    }
+
+    /**
+     * Reads a row from a set of column vectors.
+     *
+     * @param  vectors  column vectors for a batch
+     * @param  ir   row index within batch
+     * @return  row array
+     */
+    private Object[] readRow( ArrowDecoder.Vector[] vectors, int ir ) {
+        Object[] row = new Object[ ncol_ ];
+        for ( int ic = 0; ic < ncol_; ic++ ) {
+            row[ ic ] = vectors[ ic ].getValue( ir );
+        }
+        return row;
+    }
+
+    /**
+     * Reads the schema and the record batch metadata from a channel.
+     * Either the IPC file format, in which the record batches are
+     * located using the footer, or the IPC stream format,
+     * in which the record batches are located by scanning the messages,
+     * may be used.
+     *
+     * @param  chan  input channel
+     * @param  batchList  list to which non-empty batches will be added
+     * @return  schema
+     */
+    private static ArrowSchema readIndex( FileChannel chan,
+                                          List<Batch> batchList )
+            throws IOException {
+        byte[] intro = new byte[ 16 ];
+        chan.position( 0 );
+        ArrowFormat.readFully( chan, ByteBuffer.wrap( intro ), false );
+        if ( ArrowFormat.isFileMagic( intro ) ) {
+            long size = chan.size();
+            ByteBuffer tbuf = ByteBuffer.allocate( 4 )
+                                        .order( ByteOrder.LITTLE_ENDIAN );
+            chan.position( size - 10 );
+            ArrowFormat.readFully( chan, tbuf, false );
+            int footLeng = tbuf.getInt( 0 );
+            long footStart = size - 10 - footLeng;
+            if ( footLeng <= 0 || footStart < 8 ) {
+                throw new TableFormatException( "Bad Arrow footer" );
+            }
+            ByteBuffer fbuf = ByteBuffer.allocate( footLeng );
+            chan.position( footStart );
+            ArrowFormat.readFully( chan, fbuf, false );
+            fbuf.flip();
+            FbTable footer = FbTable.getRoot( fbuf );
+            ArrowSchema schema =
+                new ArrowSchema( footer.getTable( ArrowFormat.FOOTER_SCHEMA ) );
+            int nb = footer.getVectorLength( ArrowFormat.FOOTER_BATCHES );
+            for ( int ib = 0; ib < nb; ib++ ) {
+                long offset =
+                    footer.getStructLong( ArrowFormat.FOOTER_BATCHES, ib,
+                                          ArrowFormat.BLOCK_SIZE, 0 );
+                chan.position( offset );
+                ArrowFormat.Message msg = ArrowFormat.readMessage( chan );
+                if ( msg == null ||
+                     msg.getHeaderType() != ArrowFormat.HEADER_RECORDBATCH ) {
+                    throw new TableFormatException( "Bad Arrow block at "
+                                                  + offset );
+                }
+                addBatch( batchList, msg, chan.position() );
+            }
+            return schema;
+        }
+        else if ( ArrowFormat.isStreamMagic( intro ) ) {
+            chan.position( 0 );
+            ArrowFormat.Message msg0 = ArrowFormat.readMessage( chan );
+            if ( msg0.getHeaderType() != ArrowFormat.HEADER_SCHEMA ) {
+                throw new TableFormatException( "Arrow stream does not "
+                                              + "start with Schema" );
+            }
+            ArrowSchema schema = new ArrowSchema( msg0.getHeader() );
+            long pos = chan.position() + msg0.getBodyLength();
+            for ( ArrowFormat.Message msg;
+                  ( msg = readMessageAt( chan, pos ) ) != null; ) {
+                long bodyPos = chan.position();
+                if ( msg.getHeaderType() == ArrowFormat.HEADER_RECORDBATCH ) {
+                    addBatch( batchList, msg, bodyPos );
+                }
+                pos = bodyPos + msg.getBodyLength();
+            }
+            return schema;
+        }
+        else {
+            throw new TableFormatException( "Not Arrow IPC format" );
+        }
+    }
+
+    /**
+     * Reads a message at a given position in a channel,
+     * treating end of file as end of stream.
+     *
+     * @param  chan  channel
+     * @param  pos   position of message start
+     * @return  message, or null at end of stream
+     */
+    private static ArrowFormat.Message readMessageAt( FileChannel chan,
+                                                      long pos )
+            throws IOException {
+        if ( pos >= chan.size() ) {
+            return null;
+        }
+        chan.position( pos );
+        return ArrowFormat.readMessage( chan );
+    }
+
+    /**
+     * Adds a record batch to a list if it is not empty.
+     *
+     * @param  batchList  list of batches
+     * @param  msg    RecordBatch message
+     * @param  bodyOffset  file offset of message body
+     */
+    private static void addBatch( List<Batch> batchList,
+                                  ArrowFormat.Message msg, long bodyOffset )
+            throws TableFormatException {
+        long bodyLength = msg.getBodyLength();
+        if ( bodyLength > Integer.MAX_VALUE ) {
+            throw new TableFormatException( "Arrow record batch too large"
+                                          + " (>2Gb)" );
+        }
+        FbTable header = msg.getHeader();
+        long nrow = ArrowSchema.getRowCount( header );
+        if ( nrow > Integer.MAX_VALUE ) {
+            throw new TableFormatException( "Too many rows in Arrow "
+                                          + "record batch" );
+        }
+        if ( nrow > 0 ) {
+            batchList.add( new Batch( header, bodyOffset, bodyLength, nrow ) );
+        }
+    }
+
+    /**
+     * Records the location of a record batch.
+     */
+    private static class Batch {
+        final FbTable header_;
+        final long bodyOffset_;
+        final long bodyLength_;
+        final long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  header  RecordBatch table
+         * @param  bodyOffset  file offset of message body
+         * @param  bodyLength  length of message body
+         * @param  nrow   number of rows
+         */
+        Batch( FbTable header, long bodyOffset, long bodyLength, long nrow ) {
+            header_ = header;
+            bodyOffset_ = bodyOffset;
+            bodyLength_ = bodyLength;
+            nrow_ = nrow;
+        }
+    }
+
+    /**
+     * RowSplittable implementation that iterates over a range of rows.
+     * Splits are made at batch boundaries where possible.
+     */
+    private class ArrowRowSplittable implements RowSplittable {
+
+        private long irow_;
+        private long iend_;
+        private int ib_;
+        private long batchStart_;
+        private long batchEnd_;
+        private ArrowDecoder.Vector[] vectors_;
+        private int ir_;
+
+        /**
+         * Constructor.
+         *
+         * @param  irow   row index immediately before start of iteration range
+         * @param  iend   row index immediately after end of iteration range
+         */
+        ArrowRowSplittable( long irow, long iend ) {
+            irow_ = irow;
+            iend_ = iend;
+            ib_ = -1;
+            ir_ = -1;
+        }
+
+        public long splittableSize() {
+            return iend_ - irow_ - 1;
+        }
+
+        public ArrowRowSplittable split() {
+            long first = irow_ + 1;
+            long nr = iend_ - first;
+            if ( nr < 2 || ir_ >= 0 ) {
+                return null;
+            }
+
+            /* Split at the batch boundary nearest the midpoint,
+             * if there is one within range. */
+            long mid = first + nr / 2;
+            int ib = getBatchIndex( mid );
+            long cut = mid;
+            long lo = batchStarts_[ ib ];
+            long hi = batchStarts_[ ib + 1 ];
+            if ( lo > first && ( mid - lo <= hi - mid || hi >= iend_ ) ) {
+                cut = lo;
+            }
+            else if ( hi < iend_ ) {
+                cut = hi;
+            }
+            ArrowRowSplittable split = new ArrowRowSplittable( irow_, cut );
+            irow_ = cut - 1;
+            return split;
+        }
+
+        public LongSupplier rowIndex() {
+            return () -> irow_;
+        }
+
+        public boolean next() throws IOException {
+            if ( irow_ < iend_ - 1 ) {
+                irow_++;
+                if ( irow_ >= batchEnd_ || ib_ < 0 ) {
+                    ib_ = getBatchIndex( irow_ );
+                    batchStart_ = batchStarts_[ ib_ ];
+                    batchEnd_ = batchStarts_[ ib_ + 1 ];
+                    vectors_ = getVectors( ib_ );
+                }
+                ir_ = (int) ( irow_ - batchStart_ );
+                return true;
+            }
+            else {
+                ir_ = -1;
+                return false;
+            }
+        }
+
+        public Object getCell( int icol ) {
+            return vectors_[ icol ].getValue( checkRow() );
+        }
+
+        public Object[] getRow() {
+            return readRow( vectors_, checkRow() );
+        }
+
+        public void close() {
+        }
+
+        /**
+         * Returns the current row index within the current batch,
+         * checking that it is legal.
+         *
+         * @return  row index within batch
+         * @throws  IllegalStateException  if there is no current row
+         */
+        private int checkRow() {
+            if ( ir_ >= 0 ) {
+                return ir_;
+            }
+            else {
+                throw new IllegalStateException( "No current row" );
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package uk.ac.starlink.feather;
+
+/**
+ * ArrowTableWriter variant that writes the Arrow IPC stream format.
+ * This has a no-arg constructor so that it can be registered
+ * by class name.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class ArrowStreamTableWriter extends ArrowTableWriter {
+
+    /**
+     * Constructor.
+     */
+    public ArrowStreamTableWriter() {
+        super( false );
+    }
+}
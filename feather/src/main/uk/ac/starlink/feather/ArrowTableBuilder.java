@@ -0,0 +1,200 @@
+package uk.ac.starlink.feather;
+
+import java.awt.datatransfer.DataFlavor;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.MetadataStarTable;
+import uk.ac.starlink.table.RowStore;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.TableFormatException;
+import uk.ac.starlink.table.TableSink;
+import uk.ac.starlink.table.formats.DocumentedIOHandler;
+import uk.ac.starlink.table.formats.DocumentedTableBuilder;
+import uk.ac.starlink.util.Compression;
+import uk.ac.starlink.util.DataSource;
+import uk.ac.starlink.util.FileDataSource;
+import uk.ac.starlink.util.IOUtils;
+import uk.ac.starlink.util.URLDataSource;
+import uk.ac.starlink.util.URLUtils;
+
+/**
+ * TableBuilder implementation for the Apache Arrow IPC file and
+ * stream formats.
+ * Uncompressed files are mapped for random access;
+ * other input is read a record batch at a time.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class ArrowTableBuilder extends DocumentedTableBuilder {
+
+    public ArrowTableBuilder() {
+        super( new String[] { "arrow", "arrows", "ipc" } );
+    }
+
+    public String getFormatName() {
+        return "arrow";
+    }
+
+    public StarTable makeStarTable( DataSource datsrc, boolean wantRandom,
+                                    StoragePolicy storagePolicy )
+            throws IOException {
+        byte[] intro = datsrc.getIntro();
+        if ( ! ArrowFormat.isFileMagic( intro ) &&
+             ! ArrowFormat.isStreamMagic( intro ) ) {
+            throw new TableFormatException( "Not Arrow IPC format" );
+        }
+        File file = getFile( datsrc );
+        if ( file != null && datsrc.getCompression() == Compression.NONE ) {
+            return new ArrowStarTable( file );
+        }
+        else {
+            RowStore store = storagePolicy.makeRowStore();
+            try ( InputStream in = datsrc.getInputStream() ) {
+                streamStarTable( in, store, datsrc.getPosition() );
+            }
+            return store.getStarTable();
+        }
+    }
+
+    public boolean canImport( DataFlavor flavor ) {
+        return false;
+    }
+
+    /**
+     * Reads a table in Arrow IPC stream or file format sequentially.
+     * Only one record batch at a time is held in memory.
+     */
+    public void streamStarTable( InputStream in, TableSink sink, String pos )
+            throws IOException {
+        in = new BufferedInputStream( in );
+
+        /* Skip the file format magic number if present;
+         * the rest of the file format is the same as the stream format
+         * up to the footer, which is ignored. */
+        in.mark( 8 );
+        byte[] magic = IOUtils.readBytes( in, 8 );
+        in.reset();
+        if ( ArrowFormat.isFileMagic( magic ) ) {
+            IOUtils.skip( in, 8 );
+        }
+        ReadableByteChannel chan = Channels.newChannel( in );
+        ArrowFormat.Message msg0 = ArrowFormat.readMessage( chan );
+        if ( msg0 == null ||
+             msg0.getHeaderType() != ArrowFormat.HEADER_SCHEMA ) {
+            throw new TableFormatException( "Arrow stream does not "
+                                          + "start with Schema" );
+        }
+        ArrowSchema schema = new ArrowSchema( msg0.getHeader() );
+        skipBody( chan, msg0 );
+        ColumnInfo[] infos = schema.getColumnInfos();
+        int ncol = infos.length;
+        MetadataStarTable meta = new MetadataStarTable( infos );
+        meta.setName( schema.getName() );
+        sink.acceptMetadata( meta );
+        for ( ArrowFormat.Message msg;
+              ( msg = ArrowFormat.readMessage( chan ) ) != null; ) {
+            if ( msg.getHeaderType() == ArrowFormat.HEADER_RECORDBATCH ) {
+                long bodyLeng = msg.getBodyLength();
+                if ( bodyLeng > Integer.MAX_VALUE ) {
+                    throw new TableFormatException( "Arrow record batch "
+                                                  + "too large (>2Gb)" );
+                }
+                ByteBuffer body = ByteBuffer.allocate( (int) bodyLeng );
+                ArrowFormat.readFully( chan, body, false );
+                FbTable header = msg.getHeader();
+                int nr = (int) ArrowSchema.getRowCount( header );
+                ArrowDecoder.Vector[] vectors =
+                    schema.readBatch( header, body );
+                for ( int ir = 0; ir < nr; ir++ ) {
+                    Object[] row = new Object[ ncol ];
+                    for ( int ic = 0; ic < ncol; ic++ ) {
+                        row[ ic ] = vectors[ ic ].getValue( ir );
+                    }
+                    sink.acceptRow( row );
+                }
+            }
+            else {
+                skipBody( chan, msg );
+            }
+        }
+        sink.endRows();
+    }
+
+    public String getXmlDescription() {
+        return String.join( "\n",
+            "<p>Apache Arrow is a column-oriented in-memory data format",
+            "supported by many languages and tools,",
+            "described at",
+            DocumentedIOHandler.toLink( "https://arrow.apache.org/" ) + ".",
+            "This handler reads tables serialized using the Arrow",
+            "IPC (inter-process communication) formats,",
+            "both the streaming format and the file format",
+            "(the file format is the same as Feather version 2).",
+            "Uncompressed files are mapped for fast random access;",
+            "other input is read one record batch at a time.",
+            "</p>",
+            "<p>Columns with integer, floating point, boolean,",
+            "string and binary types, and lists of those,",
+            "are supported;",
+            "date and time types are read as integers.",
+            "Columns of other types, including dictionary-encoded columns,",
+            "are ignored.",
+            "Compressed record batches are not currently supported.",
+            "</p>",
+        "" );
+    }
+
+    public boolean canStream() {
+        return true;
+    }
+
+    public boolean docIncludesExample() {
+        return false;
+    }
+
+    /**
+     * Reads and discards the body of a message.
+     *
+     * @param  chan  input channel positioned at start of body
+     * @param  msg   message
+     */
+    private static void skipBody( ReadableByteChannel chan,
+                                  ArrowFormat.Message msg )
+            throws IOException {
+        long leng = msg.getBodyLength();
+        ByteBuffer buf = ByteBuffer.allocate( (int) Math.min( leng, 65536 ) );
+        while ( leng > 0 ) {
+            buf.clear();
+            buf.limit( (int) Math.min( leng, buf.capacity() ) );
+            ArrowFormat.readFully( chan, buf, false );
+            leng -= buf.limit();
+        }
+    }
+
+    /**
+     * Returns a file corresponding to a DataSource, if possible.
+     *
+     * @param  datsrc  data source
+     * @return   corresponding file, or null if it's not a file
+     */
+    private static File getFile( DataSource datsrc ) {
+        if ( datsrc instanceof FileDataSource ) {
+            return ((FileDataSource) datsrc).getFile();
+        }
+        else if ( datsrc instanceof URLDataSource ) {
+            return URLUtils
+                  .urlToFile( ((URLDataSource) datsrc).getURL().toString() );
+        }
+        else {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package uk.ac.starlink.feather;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import uk.ac.bristol.star.fbs.google.FlatBufferBuilder;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.DefaultValueInfo;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.formats.DocumentedIOHandler;
+import uk.ac.starlink.table.formats.DocumentedStreamStarTableWriter;
+import uk.ac.starlink.util.ConfigMethod;
+import uk.ac.starlink.util.IntList;
+
+/**
+ * StarTableWriter implementation for the Apache Arrow IPC file
+ * and stream formats.
+ * Rows are accumulated into record batches of bounded size which are
+ * written as they fill up, so that tables of any size can be
+ * written using a fixed amount of memory.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class ArrowTableWriter extends DocumentedStreamStarTableWriter {
+
+    private final boolean isFile_;
+    private int batchRows_;
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.feather" );
+
+    /** Default maximum number of rows in a record batch. */
+    public static final int DEFAULT_BATCH_ROWS = 64 * 1024;
+
+    /** Number of accumulated bytes above which a batch is written early. */
+    private static final long MAX_BATCH_BYTES = 256 * 1024 * 1024;
+
+    /**
+     * Default constructor, which writes the IPC file format.
+     */
+    public ArrowTableWriter() {
+        this( true );
+    }
+
+    /**
+     * Constructs a writer for either the IPC file or stream format.
+     *
+     * @param  isFile  true for the file format, false for the stream format
+     */
+    public ArrowTableWriter( boolean isFile ) {
+        super( isFile ? new String[] { "arrow" } : new String[] { "arrows" } );
+        isFile_ = isFile;
+        batchRows_ = DEFAULT_BATCH_ROWS;
+    }
+
+    /**
+     * Returns "arrow" or "arrow-stream".
+     */
+    public String getFormatName() {
+        return isFile_ ? "arrow" : "arrow-stream";
+    }
+
+    public String getMimeType() {
+        return "application/octet-stream";
+    }
+
+    public boolean docIncludesExample() {
+        return false;
+    }
+
+    public String getXmlDescription() {
+        return String.join( "\n",
+            "<p>Apache Arrow is a column-oriented in-memory data format",
+            "supported by many languages and tools,",
+            "described at",
+            DocumentedIOHandler.toLink( "https://arrow.apache.org/" ) + ".",
+            isFile_
+                ? "This handler writes the Arrow IPC file format,"
+                  + " also known as Feather version 2,"
+                  + " which can be read with random access."
+                : "This handler writes the Arrow IPC streaming format,"
+                  + " which can be read sequentially, for instance"
+                  + " through a pipe.",
+            "</p>",
+            "<p>Rows are written in record batches of up to",
+            "<code>batchRows</code> rows, so that output requires",
+            "only a fixed amount of memory however large the table.",
+            "Scalar and array columns with numeric, boolean and string",
+            "values are written; columns of other types are omitted.",
+            "Column units, UCDs, utypes, descriptions and array shapes",
+            "are stored as field metadata.",
+            "</p>",
+        "" );
+    }
+
+    /**
+     * Sets the maximum number of rows written in each record batch.
+     *
+     * @param  batchRows  maximum rows per batch
+     */
+    @ConfigMethod(
+        property = "batchRows",
+        doc = "<p>Maximum number of rows written in each Arrow record batch. "
+            + "Larger values may give more efficient access, "
+            + "but require more memory both for writing and reading; "
+            + "when reading from a file, batches also give the granularity "
+            + "for parallel processing.</p>",
+        example = "100000"
+    )
+    public void setBatchRows( int batchRows ) {
+        if ( batchRows <= 0 ) {
+            throw new IllegalArgumentException( "Bad batchRows: "
+                                              + batchRows );
+        }
+        batchRows_ = batchRows;
+    }
+
+    /**
+     * Returns the maximum number of rows written in each record batch.
+     *
+     * @return  maximum rows per batch
+     */
+    public int getBatchRows() {
+        return batchRows_;
+    }
+
+    public void writeStarTable( StarTable table, OutputStream out )
+            throws IOException {
+
+        /* Acquire encoders for those columns that can be output. */
+        int ncol = table.getColumnCount();
+        List<ArrowEncoder> encList = new ArrayList<ArrowEncoder>();
+        List<ColumnInfo> infoList = new ArrayList<ColumnInfo>();
+        IntList icList = new IntList();
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            ColumnInfo info = table.getColumnInfo( ic );
+            ArrowEncoder encoder = ArrowEncoder.createEncoder( info );
+            if ( encoder != null ) {
+                icList.add( ic );
+                infoList.add( info );
+                encList.add( encoder );
+            }
+            else {
+                logger_.warning( "Can't encode column " + info + " to "
+                               + getFormatName() + " format" );
+            }
+        }
+        ArrowEncoder[] encoders = encList.toArray( new ArrowEncoder[ 0 ] );
+        ColumnInfo[] infos = infoList.toArray( new ColumnInfo[ 0 ] );
+        int[] ics = icList.toIntArray();
+        int nenc = encoders.length;
+        String tname = table.getName();
+
+        /* Write the file header and schema. */
+        long pos = 0;
+        if ( isFile_ ) {
+            out.write( ArrowFormat.MAGIC );
+            out.write( new byte[ 2 ] );
+            pos += 8;
+        }
+        FlatBufferBuilder fbb = new FlatBufferBuilder( 1024 );
+        int schemaOff = createSchema( fbb, tname, infos, encoders );
+        fbb.finish( createMessage( fbb, ArrowFormat.HEADER_SCHEMA,
+                                   schemaOff, 0 ) );
+        pos += ArrowFormat.writeMessage( fbb, out );
+
+        /* Accumulate rows, writing a record batch whenever enough
+         * have been collected. */
+        List<long[]> blocks = new ArrayList<long[]>();
+        int nr = 0;
+        RowSequence rseq = table.getRowSequence();
+        try {
+            while ( rseq.next() ) {
+                Object[] row = rseq.getRow();
+                for ( int je = 0; je < nenc; je++ ) {
+                    encoders[ je ].addValue( row[ ics[ je ] ] );
+                }
+                if ( ++nr >= batchRows_ ||
+                     ( nr % 1024 == 0 &&
+                       getByteCount( encoders ) > MAX_BATCH_BYTES ) ) {
+                    long[] block = writeBatch( encoders, nr, out, pos );
+                    blocks.add( block );
+                    pos += block[ 1 ] + block[ 2 ];
+                    nr = 0;
+                }
+            }
+        }
+        finally {
+            rseq.close();
+        }
+        if ( nr > 0 ) {
+            long[] block = writeBatch( encoders, nr, out, pos );
+            blocks.add( block );
+            pos += block[ 1 ] + block[ 2 ];
+        }
+        pos += ArrowFormat.writeEndOfStream( out );
+
+        /* For the file format, write a footer indexing the batches. */
+        if ( isFile_ ) {
+            fbb = new FlatBufferBuilder( 1024 );
+            schemaOff = createSchema( fbb, tname, infos, encoders );
+            int nb = blocks.size();
+            fbb.startVector( ArrowFormat.BLOCK_SIZE, 0, 8 );
+            int dictsOff = fbb.endVector();
+            fbb.startVector( ArrowFormat.BLOCK_SIZE, nb, 8 );
+            for ( int ib = nb - 1; ib >= 0; ib-- ) {
+                long[] block = blocks.get( ib );
+                fbb.prep( 8, ArrowFormat.BLOCK_SIZE );
+                fbb.putLong( block[ 2 ] );
+                fbb.pad( 4 );
+                fbb.putInt( (int) block[ 1 ] );
+                fbb.putLong( block[ 0 ] );
+            }
+            int blocksOff = fbb.endVector();
+            fbb.startObject( 4 );
+            fbb.addShort( ArrowFormat.FOOTER_VERSION, ArrowFormat.VERSION_V5,
+                          0 );
+            fbb.addOffset( ArrowFormat.FOOTER_SCHEMA, schemaOff, 0 );
+            fbb.addOffset( ArrowFormat.FOOTER_DICTIONARIES, dictsOff, 0 );
+            fbb.addOffset( ArrowFormat.FOOTER_BATCHES, blocksOff, 0 );
+            fbb.finish( fbb.endObject() );
+            byte[] footer = fbb.sizedByteArray();
+            out.write( footer );
+            ArrowFormat.writeInt( out, footer.length );
+            out.write( ArrowFormat.MAGIC );
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the accumulated data from a set of encoders as a
+     * record batch message, and resets the encoders.
+     *
+     * @param  encoders  column encoders
+     * @param  nrow   number of rows accumulated
+     * @param  out   destination stream
+     * @param  pos   offset in output of start of message
+     * @return  3-element array giving (offset, metadata length, body length)
+     *          as required for the file footer Block
+     */
+    private static long[] writeBatch( ArrowEncoder[] encoders, int nrow,
+                                      OutputStream out, long pos )
+            throws IOException {
+        List<long[]> nodes = new ArrayList<long[]>();
+        List<ByteBuffer> bufs = new ArrayList<ByteBuffer>();
+        for ( ArrowEncoder encoder : encoders ) {
+            encoder.addNodes( nodes );
+            encoder.addBuffers( bufs );
+        }
+
+        /* Work out buffer positions in the body, 8-byte aligned. */
+        int nbuf = bufs.size();
+        long[] offsets = new long[ nbuf ];
+        long bodyLeng = 0;
+        for ( int ib = 0; ib < nbuf; ib++ ) {
+            long leng = bufs.get( ib ).remaining();
+            offsets[ ib ] = bodyLeng;
+            bodyLeng += leng + ArrowFormat.padding( leng );
+        }
+
+        /* Write metadata. */
+        FlatBufferBuilder fbb = new FlatBufferBuilder( 1024 );
+        int nnode = nodes.size();
+        fbb.startVector( ArrowFormat.STRUCT16_SIZE, nnode, 8 );
+        for ( int in = nnode - 1; in >= 0; in-- ) {
+            long[] node = nodes.get( in );
+            fbb.prep( 8, ArrowFormat.STRUCT16_SIZE );
+            fbb.putLong( node[ 1 ] );
+            fbb.putLong( node[ 0 ] );
+        }
+        int nodesOff = fbb.endVector();
+        fbb.startVector( ArrowFormat.STRUCT16_SIZE, nbuf, 8 );
+        for ( int ib = nbuf - 1; ib >= 0; ib-- ) {
+            fbb.prep( 8, ArrowFormat.STRUCT16_SIZE );
+            fbb.putLong( bufs.get( ib ).remaining() );
+            fbb.putLong( offsets[ ib ] );
+        }
+        int bufsOff = fbb.endVector();
+        fbb.startObject( 3 );
+        fbb.addLong( ArrowFormat.BATCH_LENGTH, nrow, 0L );
+        fbb.addOffset( ArrowFormat.BATCH_NODES, nodesOff, 0 );
+        fbb.addOffset( ArrowFormat.BATCH_BUFFERS, bufsOff, 0 );
+        int batchOff = fbb.endObject();
+        fbb.finish( createMessage( fbb, ArrowFormat.HEADER_RECORDBATCH,
+                                   batchOff, bodyLeng ) );
+        int metaLeng = ArrowFormat.writeMessage( fbb, out );
+
+        /* Write body. */
+        byte[] pad = new byte[ 8 ];
+        for ( ByteBuffer buf : bufs ) {
+            int leng = buf.remaining();
+            out.write( buf.array(), buf.arrayOffset() + buf.position(), leng );
+            out.write( pad, 0, ArrowFormat.padding( leng ) );
+        }
+        for ( ArrowEncoder encoder : encoders ) {
+            encoder.clear();
+        }
+        return new long[] { pos, metaLeng, bodyLeng };
+    }
+
+    /**
+     * Returns the total number of bytes accumulated by a set of encoders.
+     *
+     * @param  encoders  encoders
+     * @return   byte count
+     */
+    private static long getByteCount( ArrowEncoder[] encoders ) {
+        long nbyte = 0;
+        for ( ArrowEncoder encoder : encoders ) {
+            nbyte += encoder.getByteCount();
+        }
+        return nbyte;
+    }
+
+    /**
+     * Writes a Message table.
+     *
+     * @param  fbb  flatbuffer builder
+     * @param  headerType  MessageHeader union code
+     * @param  headerOff   offset of header table
+     * @param  bodyLeng    number of bytes in message body
+     * @return  offset of message table
+     */
+    private static int createMessage( FlatBufferBuilder fbb, byte headerType,
+                                      int headerOff, long bodyLeng ) {
+        fbb.startObject( 4 );
+        fbb.addLong( ArrowFormat.MESSAGE_BODYLENGTH, bodyLeng, 0L );
+        fbb.addOffset( ArrowFormat.MESSAGE_HEADER, headerOff, 0 );
+        fbb.addShort( ArrowFormat.MESSAGE_VERSION, ArrowFormat.VERSION_V5,
+                      0 );
+        fbb.addByte( ArrowFormat.MESSAGE_HEADER_TYPE, headerType, 0 );
+        return fbb.endObject();
+    }
+
+    /**
+     * Writes a Schema table.
+     *
+     * @param  fbb  flatbuffer builder
+     * @param  tname  table name, or null
+     * @param  infos  column metadata for each output column
+     * @param  encoders  encoders for each output column
+     * @return  offset of schema table
+     */
+    private static int createSchema( FlatBufferBuilder fbb, String tname,
+                                     ColumnInfo[] infos,
+                                     ArrowEncoder[] encoders ) {
+        int nf = encoders.length;
+        int[] fieldOffs = new int[ nf ];
+        for ( int jf = 0; jf < nf; jf++ ) {
+            ColumnInfo info = infos[ jf ];
+            Map<String,String> meta = new LinkedHashMap<String,String>();
+            addMeta( meta, FeatherStarTable.UNIT_KEY, info.getUnitString() );
+            addMeta( meta, FeatherStarTable.UCD_KEY, info.getUCD() );
+            addMeta( meta, FeatherStarTable.UTYPE_KEY, info.getUtype() );
+            addMeta( meta, FeatherStarTable.DESCRIPTION_KEY,
+                     info.getDescription() );
+            if ( info.isArray() && info.getShape() != null ) {
+                addMeta( meta, FeatherStarTable.SHAPE_KEY,
+                         DefaultValueInfo.formatShape( info.getShape() ) );
+            }
+            fieldOffs[ jf ] =
+                createField( fbb, info.getName(), true, encoders[ jf ], meta );
+        }
+        int fieldsOff = fbb.createVectorOfTables( fieldOffs );
+        Map<String,String> tmeta = new LinkedHashMap<String,String>();
+        addMeta( tmeta, ArrowSchema.NAME_KEY, tname );
+        int metaOff = createMetadata( fbb, tmeta );
+        fbb.startObject( 3 );
+        fbb.addOffset( ArrowFormat.SCHEMA_FIELDS, fieldsOff, 0 );
+        fbb.addOffset( ArrowFormat.SCHEMA_METADATA, metaOff, 0 );
+        return fbb.endObject();
+    }
+
+    /**
+     * Writes a Field table.
+     *
+     * @param  fbb  flatbuffer builder
+     * @param  name   field name
+     * @param  isNullable  whether field may contain nulls
+     * @param  encoder   encoder for field data
+     * @param  meta   custom metadata map
+     * @return  offset of field table
+     */
+    private static int createField( FlatBufferBuilder fbb, String name,
+                                    boolean isNullable, ArrowEncoder encoder,
+                                    Map<String,String> meta ) {
+        ArrowEncoder child = encoder.getChild();
+        int[] childOffs = child == null
+                        ? new int[ 0 ]
+                        : new int[] {
+                              createField( fbb, "item", child.isNullable(),
+                                           child,
+                                           new LinkedHashMap<String,String>() )
+                          };
+        int childrenOff = fbb.createVectorOfTables( childOffs );
+        int nameOff = fbb.createString( name );
+        int typeOff = encoder.createType( fbb );
+        int metaOff = createMetadata( fbb, meta );
+        fbb.startObject( 7 );
+        fbb.addOffset( ArrowFormat.FIELD_NAME, nameOff, 0 );
+        fbb.addBoolean( ArrowFormat.FIELD_NULLABLE, isNullable, false );
+        fbb.addByte( ArrowFormat.FIELD_TYPE_TYPE, encoder.getTypeId(), 0 );
+        fbb.addOffset( ArrowFormat.FIELD_TYPE, typeOff, 0 );
+        fbb.addOffset( ArrowFormat.FIELD_CHILDREN, childrenOff, 0 );
+        fbb.addOffset( ArrowFormat.FIELD_METADATA, metaOff, 0 );
+        return fbb.endObject();
+    }
+
+    /**
+     * Writes a custom_metadata vector of KeyValue tables.
+     *
+     * @param  fbb  flatbuffer builder
+     * @param  meta  key-value map
+     * @return  offset of vector, or 0 if the map is empty
+     */
+    private static int createMetadata( FlatBufferBuilder fbb,
+                                       Map<String,String> meta ) {
+        if ( meta.isEmpty() ) {
+            return 0;
+        }
+        int[] kvOffs = new int[ meta.size() ];
+        int ikv = 0;
+        for ( Map.Entry<String,String> entry : meta.entrySet() ) {
+            int keyOff = fbb.createString( entry.getKey() );
+            int valueOff = fbb.createString( entry.getValue() );
+            fbb.startObject( 2 );
+            fbb.addOffset( ArrowFormat.KEYVALUE_KEY, keyOff, 0 );
+            fbb.addOffset( ArrowFormat.KEYVALUE_VALUE, valueOff, 0 );
+            kvOffs[ ikv++ ] = fbb.endObject();
+        }
+        return fbb.createVectorOfTables( kvOffs );
+    }
+
+    /**
+     * Adds an entry to a metadata map if the value is non-blank.
+     *
+     * @param  meta  map
+     * @param  key   key
+     * @param  value  value, may be null
+     */
+    private static void addMeta( Map<String,String> meta, String key,
+                                 String value ) {
+        if ( value != null && value.trim().length() > 0 ) {
+            meta.put( key, value );
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package uk.ac.starlink.feather;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import uk.ac.bristol.star.fbs.google.Table;
+
+/**
+ * Generic read access to a FlatBuffers table.
+ * Fields are addressed by their index in the schema definition
+ * rather than by name, so that the Arrow IPC metadata structures
+ * can be read without generated accessor classes.
+ * Note that a union field occupies two indices,
+ * the first for the type code and the second for the value.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class FbTable extends Table {
+
+    /**
+     * Constructor.
+     *
+     * @param  bb  byte buffer containing flatbuffer data,
+     *             which must be in little-endian order
+     * @param  pos  position in buffer of table
+     */
+    FbTable( ByteBuffer bb, int pos ) {
+        this.bb = bb;
+        bb_pos = pos;
+        vtable_start = pos - bb.getInt( pos );
+        vtable_size = bb.getShort( vtable_start );
+    }
+
+    /**
+     * Returns the root table of a flatbuffer.
+     *
+     * @param  bb  buffer whose position marks the start of the flatbuffer;
+     *             its byte order is set to little-endian
+     * @return  root table
+     */
+    public static FbTable getRoot( ByteBuffer bb ) {
+        bb.order( ByteOrder.LITTLE_ENDIAN );
+        int pos = bb.position();
+        return new FbTable( bb, pos + bb.getInt( pos ) );
+    }
+
+    /**
+     * Indicates whether a given field is present.
+     *
+     * @param  ifield  field index
+     * @return  true iff field is present
+     */
+    public boolean hasField( int ifield ) {
+        return fieldOffset( ifield ) != 0;
+    }
+
+    /**
+     * Returns the value of a byte field.
+     *
+     * @param  ifield  field index
+     * @param  dflt   value returned if field is absent
+     * @return  field value
+     */
+    public byte getByte( int ifield, byte dflt ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? dflt : bb.get( bb_pos + o );
+    }
+
+    /**
+     * Returns the value of a boolean field.
+     *
+     * @param  ifield  field index
+     * @param  dflt   value returned if field is absent
+     * @return  field value
+     */
+    public boolean getBoolean( int ifield, boolean dflt ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? dflt : bb.get( bb_pos + o ) != 0;
+    }
+
+    /**
+     * Returns the value of a short integer field.
+     *
+     * @param  ifield  field index
+     * @param  dflt   value returned if field is absent
+     * @return  field value
+     */
+    public short getShort( int ifield, short dflt ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? dflt : bb.getShort( bb_pos + o );
+    }
+
+    /**
+     * Returns the value of an integer field.
+     *
+     * @param  ifield  field index
+     * @param  dflt   value returned if field is absent
+     * @return  field value
+     */
+    public int getInt( int ifield, int dflt ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? dflt : bb.getInt( bb_pos + o );
+    }
+
+    /**
+     * Returns the value of a long integer field.
+     *
+     * @param  ifield  field index
+     * @param  dflt   value returned if field is absent
+     * @return  field value
+     */
+    public long getLong( int ifield, long dflt ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? dflt : bb.getLong( bb_pos + o );
+    }
+
+    /**
+     * Returns the value of a string field.
+     *
+     * @param  ifield  field index
+     * @return  field value, or null if absent
+     */
+    public String getString( int ifield ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? null : __string( bb_pos + o );
+    }
+
+    /**
+     * Returns the value of a table-valued field.
+     * This may also be used for the value of a union field.
+     *
+     * @param  ifield  field index
+     * @return  table, or null if absent
+     */
+    public FbTable getTable( int ifield ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? null : new FbTable( bb, __indirect( bb_pos + o ) );
+    }
+
+    /**
+     * Returns the number of elements in a vector-valued field.
+     *
+     * @param  ifield  field index
+     * @return  vector length, or zero if absent
+     */
+    public int getVectorLength( int ifield ) {
+        int o = fieldOffset( ifield );
+        return o == 0 ? 0 : __vector_len( o );
+    }
+
+    /**
+     * Returns an element of a vector of tables.
+     *
+     * @param  ifield  field index
+     * @param  ix   element index
+     * @return  table element
+     */
+    public FbTable getTableElement( int ifield, int ix ) {
+        int pos = __vector( fieldOffset( ifield ) ) + 4 * ix;
+        return new FbTable( bb, __indirect( pos ) );
+    }
+
+    /**
+     * Returns a long integer member of an element of a vector of structs.
+     *
+     * @param  ifield  field index
+     * @param  ix   element index
+     * @param  structSize  size in bytes of each struct
+     * @param  memberOffset  offset in bytes of member within struct
+     * @return   member value
+     */
+    public long getStructLong( int ifield, int ix, int structSize,
+                               int memberOffset ) {
+        int pos = __vector( fieldOffset( ifield ) ) + structSize * ix;
+        return bb.getLong( pos + memberOffset );
+    }
+
+    /**
+     * Returns an integer member of an element of a vector of structs.
+     *
+     * @param  ifield  field index
+     * @param  ix   element index
+     * @param  structSize  size in bytes of each struct
+     * @param  memberOffset  offset in bytes of member within struct
+     * @return   member value
+     */
+    public int getStructInt( int ifield, int ix, int structSize,
+                             int memberOffset ) {
+        int pos = __vector( fieldOffset( ifield ) ) + structSize * ix;
+        return bb.getInt( pos + memberOffset );
+    }
+
+    /**
+     * Returns the offset of a field from the start of this table.
+     *
+     * @param  ifield  field index
+     * @return  field offset, or zero if absent
+     */
+    private int fieldOffset( int ifield ) {
+        return __offset( 4 + 2 * ifield );
+    }
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.LongSupplier;
 import org.json.JSONException;
 import org.json.JSONObject;
 import uk.ac.bristol.star.feather.Decoder;
@@ -12,17 +13,27 @@ import uk.ac.bristol.star.feather.FeatherTable;
 import uk.ac.bristol.star.feather.FeatherType;
 import uk.ac.bristol.star.feather.Reader;
 import uk.ac.starlink.table.AbstractStarTable;
+import uk.ac.starlink.table.ColumnBatchCursor;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DefaultValueInfo;
 import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.RandomBatchCursor;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.table.ValueInfo;
 
 /**
  * Adaptor from FeatherTable to StarTable.
  *
+ * <p>Column data is read directly from the memory-mapped file
+ * by the Feather library, which maps regions larger than 2Gb
+ * as multiple buffers.  Each column is mapped only once,
+ * the first time it is needed, and the resulting read-only
+ * column readers are shared between all the row sequences,
+ * row accesses, splittables and batch cursors created by this table.
+ *
  * @author   Mark Taylor
  * @since    26 Feb 2020
  */
@@ -34,6 +45,7 @@ public class FeatherStarTable extends AbstractStarTable {
     private final String name_;
     private final FeatherColumn[] fcols_;
     private final ColumnInfo[] colInfos_;
+    private final Reader<?>[] colReaders_;
     private final RowReader randomReader_;
 
     /** JSON key used to store UCDs in column user metadata. */
@@ -71,6 +83,7 @@ public class FeatherStarTable extends AbstractStarTable {
         name_ = ftable.getDescription();
         fcols_ = new FeatherColumn[ ncol_ ];
         colInfos_ = new ColumnInfo[ ncol_ ];
+        colReaders_ = new Reader<?>[ ncol_ ];
         for ( int icol = 0; icol < ncol_; icol++ ) {
             fcols_[ icol ] = ftable.getColumn( icol );
             colInfos_[ icol ] = createColumnInfo( fcols_[ icol ] );
@@ -111,7 +124,7 @@ public class FeatherStarTable extends AbstractStarTable {
         return randomReader_.getCell( irow, icol );
     }
 
-    public Object getRow( long irow, int icol ) throws IOException {
+    public Object[] getRow( long irow ) throws IOException {
         return randomReader_.getRow( irow );
     }
 
@@ -169,6 +182,101 @@ public class FeatherStarTable extends AbstractStarTable {
         };
     }
 
+    /**
+     * Returns a splittable that divides the table into contiguous
+     * row ranges, each of which reads directly from the shared
+     * column buffers.
+     */
+    @Override
+    public RowSplittable getRowSplittable() {
+        return new FeatherRowSplittable( -1L, nrow_ );
+    }
+
+    /**
+     * Returns a cursor that reads primitive values directly from
+     * the column buffers, without creating per-cell objects.
+     */
+    @Override
+    public ColumnBatchCursor getColumnBatchCursor( int[] icols,
+                                                   int maxBatch ) {
+        final RowReader rowReader = new RowReader();
+        return new RandomBatchCursor( nrow_, maxBatch ) {
+            public void readDoubles( int icol, double[] values,
+                                     boolean[] nulls ) throws IOException {
+                Reader<?> rdr = rowReader.getReader( icol );
+                Class<?> clazz = rdr.getValueClass();
+                boolean isNumeric = isIntegerClass( clazz )
+                                 || isFloatingClass( clazz );
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    long irow = irow0 + i;
+                    double dval = isNumeric && ! rdr.isNull( irow )
+                                ? rdr.getDouble( irow )
+                                : Double.NaN;
+                    values[ i ] = dval;
+                    if ( nulls != null ) {
+                        nulls[ i ] = Double.isNaN( dval );
+                    }
+                }
+            }
+            public void readLongs( int icol, long[] values, boolean[] nulls )
+                    throws IOException {
+                Reader<?> rdr = rowReader.getReader( icol );
+                Class<?> clazz = rdr.getValueClass();
+                boolean isInt = isIntegerClass( clazz );
+                boolean isFloat = isFloatingClass( clazz );
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    long irow = irow0 + i;
+                    final boolean isNull;
+                    if ( isInt ) {
+                        isNull = rdr.isNull( irow );
+                        values[ i ] = isNull ? 0L : rdr.getLong( irow );
+                    }
+                    else if ( isFloat ) {
+                        double dval = rdr.isNull( irow )
+                                    ? Double.NaN
+                                    : rdr.getDouble( irow );
+                        isNull = Double.isNaN( dval );
+                        values[ i ] = isNull ? 0L : (long) dval;
+                    }
+                    else {
+                        isNull = true;
+                        values[ i ] = 0L;
+                    }
+                    if ( nulls != null ) {
+                        nulls[ i ] = isNull;
+                    }
+                }
+            }
+            public void readBooleans( int icol, boolean[] values,
+                                      boolean[] nulls ) throws IOException {
+                Reader<?> rdr = rowReader.getReader( icol );
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    Object value = rdr.getObject( irow0 + i );
+                    boolean isBool = value instanceof Boolean;
+                    values[ i ] = isBool && ((Boolean) value).booleanValue();
+                    if ( nulls != null ) {
+                        nulls[ i ] = ! isBool;
+                    }
+                }
+            }
+            public void readObjects( int icol, Object[] values )
+                    throws IOException {
+                Reader<?> rdr = rowReader.getReader( icol );
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    values[ i ] = rdr.getObject( irow0 + i );
+                }
+            }
+        };
+    }
+
     /**
      * Does nothing, but perhaps it ought to try to clear up resources
      * related to the mapped buffers.
@@ -177,6 +285,21 @@ public class FeatherStarTable extends AbstractStarTable {
     public void close() throws IOException {
     }
 
+    /**
+     * Returns the shared reader for a given column,
+     * mapping its data buffers if that has not already been done.
+     *
+     * @param  icol  column index
+     * @return  column reader
+     */
+    private synchronized Reader<?> getColumnReader( int icol )
+            throws IOException {
+        if ( colReaders_[ icol ] == null ) {
+            colReaders_[ icol ] = fcols_[ icol ].createReader();
+        }
+        return colReaders_[ icol ];
+    }
+
     /**
      * Adapts a FeatherColumn to a ColumnInfo.
      *
@@ -250,6 +373,8 @@ public class FeatherStarTable extends AbstractStarTable {
 
     /**
      * Row/column access object that can acquire data values from table.
+     * Column readers obtained from the table are cached locally,
+     * so that no synchronization is required after first use.
      */
     private class RowReader {
 
@@ -267,7 +392,7 @@ public class FeatherStarTable extends AbstractStarTable {
                 return rdr;
             }
             else {
-                rdrs_[ icol ] = fcols_[ icol ].createReader();
+                rdrs_[ icol ] = getColumnReader( icol );
                 return rdrs_[ icol ];
             }
         }
@@ -297,4 +422,87 @@ public class FeatherStarTable extends AbstractStarTable {
             return row;
         }
     }
+
+    /**
+     * RowSplittable implementation that iterates over a range of rows.
+     * Splitting is cheap, since the column buffers are shared.
+     */
+    private class FeatherRowSplittable implements RowSplittable {
+
+        private final RowReader rowReader_;
+        private long irow_;
+        private long nrow_;
+        private boolean hasData_;
+
+        /**
+         * Constructor.
+         *
+         * @param  irow   row index immediately before start of iteration range
+         * @param  nrow   row index immediately after end of iteration range
+         */
+        FeatherRowSplittable( long irow, long nrow ) {
+            rowReader_ = new RowReader();
+            irow_ = irow;
+            nrow_ = nrow;
+        }
+
+        public long splittableSize() {
+            return nrow_ - irow_ - 1;
+        }
+
+        public FeatherRowSplittable split() {
+            long nr = nrow_ - irow_ - 1;
+            if ( nr >= 2 ) {
+                long mid = irow_ + 1 + nr / 2;
+                FeatherRowSplittable split =
+                    new FeatherRowSplittable( irow_, mid );
+                irow_ = mid - 1;
+                return split;
+            }
+            else {
+                return null;
+            }
+        }
+
+        public LongSupplier rowIndex() {
+            return () -> irow_;
+        }
+
+        public boolean next() {
+            if ( irow_ < nrow_ - 1 ) {
+                irow_++;
+                hasData_ = true;
+            }
+            else {
+                hasData_ = false;
+            }
+            return hasData_;
+        }
+
+        public Object getCell( int icol ) throws IOException {
+            return rowReader_.getCell( checkRow(), icol );
+        }
+
+        public Object[] getRow() throws IOException {
+            return rowReader_.getRow( checkRow() );
+        }
+
+        public void close() {
+        }
+
+        /**
+         * Returns the current row index, checking that it is legal.
+         *
+         * @return  current row index
+         * @throws  IllegalStateException  if there is no current row
+         */
+        private long checkRow() {
+            if ( hasData_ ) {
+                return irow_;
+            }
+            else {
+                throw new IllegalStateException( "No current row" );
+            }
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package uk.ac.starlink.feather;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowListStarTable;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.RowStore;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.util.FileDataSource;
+import uk.ac.starlink.util.TestCase;
+
+public class ArrowTest extends TestCase {
+
+    private static final int NROW = 23;
+
+    /**
+     * Small test.  Much more comprehensive unit testing in
+     * uk.ac.starlink.table.FormatsTest.
+     */
+    public void testFile() throws IOException {
+        StarTable t0 = createTable();
+        File file = writeTable( t0, new ArrowTableWriter() );
+        ArrowStarTable t1 = readTable( file );
+        assertEquals( 5, t1.getBatchCount() );
+        assertTableEquals( t0, t1 );
+        t1.close();
+    }
+
+    public void testStream() throws IOException {
+        StarTable t0 = createTable();
+        ArrowTableWriter writer = new ArrowStreamTableWriter();
+        writer.setBatchRows( 5 );
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        writer.writeStarTable( t0, bout );
+        byte[] buf = bout.toByteArray();
+        assertTrue( ArrowFormat.isStreamMagic( buf ) );
+        RowStore store = StoragePolicy.PREFER_MEMORY.makeRowStore();
+        new ArrowTableBuilder()
+           .streamStarTable( new ByteArrayInputStream( buf ), store, null );
+        assertTableEquals( t0, store.getStarTable() );
+
+        File file = writeTable( t0, writer );
+        ArrowStarTable t1 = readTable( file );
+        assertEquals( 5, t1.getBatchCount() );
+        assertTableEquals( t0, t1 );
+        t1.close();
+    }
+
+    public void testSplit() throws IOException {
+        ArrowStarTable table =
+            readTable( writeTable( createTable(), new ArrowTableWriter() ) );
+        long nrow = table.getRowCount();
+        List<RowSplittable> splits = new ArrayList<RowSplittable>();
+        splits.add( table.getRowSplittable() );
+        for ( int is = 0; is < splits.size(); is++ ) {
+            RowSplittable split;
+            while ( ( split = splits.get( is ).split() ) != null ) {
+                splits.add( split );
+            }
+        }
+        assertTrue( splits.size() >= table.getBatchCount() );
+        boolean[] seen = new boolean[ (int) nrow ];
+        long sum = 0;
+        for ( RowSplittable split : splits ) {
+            sum += split.splittableSize();
+            LongSupplier rowIndex = split.rowIndex();
+            try {
+                split.getRow();
+                fail();
+            }
+            catch ( IllegalStateException e ) {
+            }
+            while ( split.next() ) {
+                int irow = (int) rowIndex.getAsLong();
+                assertFalse( seen[ irow ] );
+                seen[ irow ] = true;
+                assertArrayEquals( table.getRow( irow ), split.getRow() );
+                assertEquals( table.getCell( irow, 2 ), split.getCell( 2 ) );
+            }
+            split.close();
+        }
+        assertEquals( nrow, sum );
+        for ( boolean s : seen ) {
+            assertTrue( s );
+        }
+        table.close();
+    }
+
+    private static StarTable createTable() {
+        ColumnInfo[] infos = new ColumnInfo[] {
+            new ColumnInfo( "i", Integer.class, "index" ),
+            new ColumnInfo( "flag", Boolean.class, null ),
+            new ColumnInfo( "x", Double.class, null ),
+            new ColumnInfo( "name", String.class, null ),
+            new ColumnInfo( "vec", float[].class, null ),
+            new ColumnInfo( "words", String[].class, null ),
+        };
+        infos[ 2 ].setUnitString( "deg" );
+        infos[ 2 ].setUCD( "pos.eq.ra" );
+        infos[ 4 ].setShape( new int[] { 2 } );
+        RowListStarTable table = new RowListStarTable( infos );
+        table.setName( "test" );
+        for ( int i = 0; i < NROW; i++ ) {
+            boolean blank = i % 4 == 3;
+            table.addRow( new Object[] {
+                Integer.valueOf( i ),
+                blank ? null : Boolean.valueOf( i % 2 == 0 ),
+                blank ? null : Double.valueOf( i * 0.5 ),
+                blank ? null : "row" + i,
+                blank ? null : new float[] { i, -i },
+                blank ? null : new String[] { "a", null, "z" + i },
+            } );
+        }
+        return table;
+    }
+
+    private File writeTable( StarTable table, ArrowTableWriter writer )
+            throws IOException {
+        writer.setBatchRows( 5 );
+        File file = File.createTempFile( "tbl", ".arrow" );
+        file.deleteOnExit();
+        try ( OutputStream out = new FileOutputStream( file ) ) {
+            writer.writeStarTable( table, out );
+        }
+        return file;
+    }
+
+    private ArrowStarTable readTable( File file ) throws IOException {
+        StarTable table = new ArrowTableBuilder()
+                         .makeStarTable( new FileDataSource( file ), true,
+                                         StoragePolicy.PREFER_MEMORY );
+        Tables.checkTable( table );
+        return (ArrowStarTable) table;
+    }
+
+    private void assertTableEquals( StarTable t0, StarTable t1 )
+            throws IOException {
+        int ncol = t0.getColumnCount();
+        assertEquals( ncol, t1.getColumnCount() );
+        assertEquals( t0.getRowCount(), t1.getRowCount() );
+        assertEquals( t0.getName(), t1.getName() );
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            ColumnInfo info0 = t0.getColumnInfo( ic );
+            ColumnInfo info1 = t1.getColumnInfo( ic );
+            assertEquals( info0.getName(), info1.getName() );
+            assertEquals( info0.getContentClass(), info1.getContentClass() );
+            assertEquals( info0.getUnitString(), info1.getUnitString() );
+            assertEquals( info0.getUCD(), info1.getUCD() );
+            assertEquals( info0.getDescription(), info1.getDescription() );
+        }
+        assertArrayEquals( new int[] { 2 }, t1.getColumnInfo( 4 ).getShape() );
+        for ( int ir = 0; ir < NROW; ir++ ) {
+            assertArrayEquals( t0.getRow( ir ), t1.getRow( ir ) );
+        }
+    }
+}
@@ -2,6 +2,10 @@ package uk.ac.starlink.feather;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.Tables;
@@ -24,6 +28,44 @@ public class FeatherTest extends TestCase {
         assertNull( dataTable.getCell( 1, 4 ) );
     }
 
+    public void testSplit() throws IOException {
+        FeatherStarTable table = readTable( "data.fea" );
+        long nrow = table.getRowCount();
+        List<RowSplittable> splits = new ArrayList<RowSplittable>();
+        splits.add( table.getRowSplittable() );
+        for ( int is = 0; is < splits.size(); is++ ) {
+            RowSplittable split;
+            while ( ( split = splits.get( is ).split() ) != null ) {
+                splits.add( split );
+            }
+        }
+        assertTrue( nrow < 3 || splits.size() > 1 );
+        boolean[] seen = new boolean[ (int) nrow ];
+        long sum = 0;
+        for ( RowSplittable split : splits ) {
+            sum += split.splittableSize();
+            LongSupplier rowIndex = split.rowIndex();
+            try {
+                split.getRow();
+                fail();
+            }
+            catch ( IllegalStateException e ) {
+            }
+            while ( split.next() ) {
+                int irow = (int) rowIndex.getAsLong();
+                assertFalse( seen[ irow ] );
+                seen[ irow ] = true;
+                assertArrayEquals( table.getRow( irow ), split.getRow() );
+                assertEquals( table.getCell( irow, 1 ), split.getCell( 1 ) );
+            }
+            split.close();
+        }
+        assertEquals( nrow, sum );
+        for ( boolean s : seen ) {
+            assertTrue( s );
+        }
+    }
+
     private FeatherStarTable readTable( String name ) throws IOException {
         URL url = getClass().getResource( name );
         StarTable table = new FeatherTableBuilder()
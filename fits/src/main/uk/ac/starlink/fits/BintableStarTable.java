@@ -12,10 +12,12 @@ import java.util.logging.Logger;
 import nom.tam.fits.FitsException;
 import nom.tam.fits.Header;
 import uk.ac.starlink.table.AbstractStarTable;
+import uk.ac.starlink.table.ColumnBatchCursor;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DefaultValueInfo;
 import uk.ac.starlink.table.DescribedValue;
 import uk.ac.starlink.table.HealpixTableInfo;
+import uk.ac.starlink.table.RandomBatchCursor;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.TableSink;
@@ -451,6 +453,16 @@ public abstract class BintableStarTable extends AbstractStarTable {
         return row;
     }
 
+    /**
+     * Returns the object used to read cells from a given column.
+     *
+     * @param  icol  column index
+     * @return  column reader
+     */
+    ColumnReader getColumnReader( int icol ) {
+        return colReaders_[ icol ];
+    }
+
     /**
      * Returns the number of bytes occupied in the data stream by a single
      * row of the table.  This is equal to the sum of the column offsets array.
@@ -797,6 +809,102 @@ public abstract class BintableStarTable extends AbstractStarTable {
             };
         }
 
+        /**
+         * Returns a cursor that reads primitive values directly from
+         * the data stream, without creating per-cell objects
+         * for scalar numeric columns.
+         */
+        @Override
+        public ColumnBatchCursor getColumnBatchCursor( int[] icols,
+                                                       int maxBatch )
+                throws IOException {
+            final BasicInput input = inputFact_.createInput( false );
+            assert input.isRandom();
+            return new RandomBatchCursor( getRowCount(), maxBatch ) {
+                final long[] lbuf_ = new long[ 1 ];
+                public void readDoubles( int icol, double[] values,
+                                         boolean[] nulls )
+                        throws IOException {
+                    ColumnReader rdr = getColumnReader( icol );
+                    boolean isInt = isIntegerClass( rdr.getContentClass() );
+                    int n = getBatchLength();
+                    long pos = getBatchStart() * rowLength_
+                             + colOffsets_[ icol ];
+                    for ( int i = 0; i < n; i++ ) {
+                        input.seek( pos );
+                        pos += rowLength_;
+                        double dval = isInt
+                                    ? ( rdr.readLong( input, lbuf_, 0 )
+                                            ? lbuf_[ 0 ] : Double.NaN )
+                                    : rdr.readDouble( input );
+                        values[ i ] = dval;
+                        if ( nulls != null ) {
+                            nulls[ i ] = Double.isNaN( dval );
+                        }
+                    }
+                }
+                public void readLongs( int icol, long[] values,
+                                       boolean[] nulls )
+                        throws IOException {
+                    ColumnReader rdr = getColumnReader( icol );
+                    boolean isFloat = isFloatingClass( rdr.getContentClass() );
+                    int n = getBatchLength();
+                    long pos = getBatchStart() * rowLength_
+                             + colOffsets_[ icol ];
+                    for ( int i = 0; i < n; i++ ) {
+                        input.seek( pos );
+                        pos += rowLength_;
+                        final boolean isNull;
+                        if ( isFloat ) {
+                            double dval = rdr.readDouble( input );
+                            isNull = Double.isNaN( dval );
+                            values[ i ] = isNull ? 0L : (long) dval;
+                        }
+                        else {
+                            isNull = ! rdr.readLong( input, values, i );
+                        }
+                        if ( nulls != null ) {
+                            nulls[ i ] = isNull;
+                        }
+                    }
+                }
+                public void readBooleans( int icol, boolean[] values,
+                                          boolean[] nulls )
+                        throws IOException {
+                    ColumnReader rdr = getColumnReader( icol );
+                    int n = getBatchLength();
+                    long pos = getBatchStart() * rowLength_
+                             + colOffsets_[ icol ];
+                    for ( int i = 0; i < n; i++ ) {
+                        input.seek( pos );
+                        pos += rowLength_;
+                        Object value = rdr.readValue( input );
+                        boolean isBool = value instanceof Boolean;
+                        values[ i ] = isBool
+                                   && ((Boolean) value).booleanValue();
+                        if ( nulls != null ) {
+                            nulls[ i ] = ! isBool;
+                        }
+                    }
+                }
+                public void readObjects( int icol, Object[] values )
+                        throws IOException {
+                    int n = getBatchLength();
+                    long pos = getBatchStart() * rowLength_
+                             + colOffsets_[ icol ];
+                    for ( int i = 0; i < n; i++ ) {
+                        input.seek( pos );
+                        pos += rowLength_;
+                        values[ i ] = readCell( input, icol );
+                    }
+                }
+                @Override
+                public void close() throws IOException {
+                    input.close();
+                }
+            };
+        }
+
         public RowAccess getRowAccess() throws IOException {
             final BasicInput input = inputFact_.createInput( false );
             assert input.isRandom();
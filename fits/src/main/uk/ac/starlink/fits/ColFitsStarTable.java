@@ -9,7 +9,9 @@ import java.util.Arrays;
 import java.util.logging.Logger;
 import nom.tam.fits.Header;
 import uk.ac.starlink.table.AbstractStarTable;
+import uk.ac.starlink.table.ColumnBatchCursor;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RandomBatchCursor;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.TableFormatException;
@@ -358,6 +360,20 @@ public class ColFitsStarTable extends AbstractStarTable {
         closer_.close();
     }
 
+    /**
+     * If random access is available, returns a cursor that reads
+     * contiguous runs of values from each column's data,
+     * without creating per-cell objects for scalar numeric columns.
+     * Otherwise the default implementation is used.
+     */
+    @Override
+    public ColumnBatchCursor getColumnBatchCursor( int[] icols, int maxBatch )
+            throws IOException {
+        return isRandom_
+             ? new ColFitsBatchCursor( icols, maxBatch )
+             : super.getColumnBatchCursor( icols, maxBatch );
+    }
+
     /**
      * Parse the content of a FITS TDIMnn header card.
      * This has the form (a,b,c,..), where a, b, c are integer values.
@@ -489,6 +505,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : new Short( (short) ( val & 0xff ) );
                     }
+                    boolean readLong( BasicInput in, long[] values, int index )
+                            throws IOException {
+                        byte val = in.readByte();
+                        boolean isBlank = hasBad && val == badval;
+                        values[ index ] = isBlank ? 0L : val & 0xff;
+                        return ! isBlank;
+                    }
                 };
             }
 
@@ -504,6 +527,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : new Short( (short) val );
                     }
+                    boolean readLong( BasicInput in, long[] values, int index )
+                            throws IOException {
+                        byte val = in.readByte();
+                        boolean isBlank = hasBad && val == badval;
+                        values[ index ] = isBlank ? 0L : val;
+                        return ! isBlank;
+                    }
                 };
             }
 
@@ -519,6 +549,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : new Short( val );
                     }
+                    boolean readLong( BasicInput in, long[] values, int index )
+                            throws IOException {
+                        short val = in.readShort();
+                        boolean isBlank = hasBad && val == badval;
+                        values[ index ] = isBlank ? 0L : val;
+                        return ! isBlank;
+                    }
                 };
             }
 
@@ -534,6 +571,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : new Integer( val );
                     }
+                    boolean readLong( BasicInput in, long[] values, int index )
+                            throws IOException {
+                        int val = in.readInt();
+                        boolean isBlank = hasBad && val == badval;
+                        values[ index ] = isBlank ? 0L : val;
+                        return ! isBlank;
+                    }
                 };
             }
 
@@ -549,6 +593,13 @@ public class ColFitsStarTable extends AbstractStarTable {
                              ? null
                              : new Long( val );
                     }
+                    boolean readLong( BasicInput in, long[] values, int index )
+                            throws IOException {
+                        long val = in.readLong();
+                        boolean isBlank = hasBad && val == badval;
+                        values[ index ] = isBlank ? 0L : val;
+                        return ! isBlank;
+                    }
                 };
             }
 
@@ -558,6 +609,9 @@ public class ColFitsStarTable extends AbstractStarTable {
                     Object readValue( BasicInput in ) throws IOException {
                         return new Float( in.readFloat() );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        return in.readFloat();
+                    }
                 };
             }
 
@@ -567,6 +621,9 @@ public class ColFitsStarTable extends AbstractStarTable {
                     Object readValue( BasicInput in ) throws IOException {
                         return new Double( in.readDouble() );
                     }
+                    double readDouble( BasicInput in ) throws IOException {
+                        return in.readDouble();
+                    }
                 };
             }
         }
@@ -873,6 +930,128 @@ public class ColFitsStarTable extends AbstractStarTable {
         }
     }
 
+    /**
+     * ColumnBatchCursor implementation for this table.
+     * Requires random access.
+     */
+    private class ColFitsBatchCursor extends RandomBatchCursor {
+        private final BasicInput[] inputs_;
+        private final long[] lbuf_;
+
+        /**
+         * Constructor.
+         *
+         * @param  icols  indices of columns that will be read
+         * @param  maxBatch  maximum number of rows per batch
+         */
+        ColFitsBatchCursor( int[] icols, int maxBatch ) throws IOException {
+            super( nrow_, maxBatch );
+            inputs_ = new BasicInput[ ncol_ ];
+            for ( int icol : icols ) {
+                if ( inputs_[ icol ] == null ) {
+                    inputs_[ icol ] = inputFacts_[ icol ].createInput( true );
+                }
+            }
+            lbuf_ = new long[ 1 ];
+        }
+
+        public void readDoubles( int icol, double[] values, boolean[] nulls )
+                throws IOException {
+            ValueReader rdr = valReaders_[ icol ];
+            boolean isInt = isIntegerClass( rdr.getColumnInfo()
+                                               .getContentClass() );
+            int n = getBatchLength();
+            BasicInput input = seekBatch( icol );
+            for ( int i = 0; i < n; i++ ) {
+                double dval = isInt
+                            ? ( rdr.readLong( input, lbuf_, 0 ) ? lbuf_[ 0 ]
+                                                                : Double.NaN )
+                            : rdr.readDouble( input );
+                values[ i ] = dval;
+                if ( nulls != null ) {
+                    nulls[ i ] = Double.isNaN( dval );
+                }
+            }
+        }
+
+        public void readLongs( int icol, long[] values, boolean[] nulls )
+                throws IOException {
+            ValueReader rdr = valReaders_[ icol ];
+            boolean isFloat = isFloatingClass( rdr.getColumnInfo()
+                                                  .getContentClass() );
+            int n = getBatchLength();
+            BasicInput input = seekBatch( icol );
+            for ( int i = 0; i < n; i++ ) {
+                final boolean isNull;
+                if ( isFloat ) {
+                    double dval = rdr.readDouble( input );
+                    isNull = Double.isNaN( dval );
+                    values[ i ] = isNull ? 0L : (long) dval;
+                }
+                else {
+                    isNull = ! rdr.readLong( input, values, i );
+                }
+                if ( nulls != null ) {
+                    nulls[ i ] = isNull;
+                }
+            }
+        }
+
+        public void readBooleans( int icol, boolean[] values, boolean[] nulls )
+                throws IOException {
+            ValueReader rdr = valReaders_[ icol ];
+            int n = getBatchLength();
+            BasicInput input = seekBatch( icol );
+            for ( int i = 0; i < n; i++ ) {
+                Object value = rdr.readValue( input );
+                boolean isBool = value instanceof Boolean;
+                values[ i ] = isBool && ((Boolean) value).booleanValue();
+                if ( nulls != null ) {
+                    nulls[ i ] = ! isBool;
+                }
+            }
+        }
+
+        public void readObjects( int icol, Object[] values )
+                throws IOException {
+            ValueReader rdr = valReaders_[ icol ];
+            int n = getBatchLength();
+            BasicInput input = seekBatch( icol );
+            for ( int i = 0; i < n; i++ ) {
+                values[ i ] = rdr.readValue( input );
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for ( BasicInput input : inputs_ ) {
+                if ( input != null ) {
+                    input.close();
+                }
+            }
+        }
+
+        /**
+         * Returns the input for a given column positioned at the start
+         * of the current batch.  Since column data is contiguous,
+         * the values for the batch can then be read in sequence.
+         *
+         * @param  icol  column index
+         * @return  positioned input
+         * @throws  IllegalArgumentException  if the column was not selected
+         */
+        private BasicInput seekBatch( int icol ) throws IOException {
+            BasicInput input = inputs_[ icol ];
+            if ( input == null ) {
+                throw new IllegalArgumentException( "Column " + icol
+                                                  + " not selected" );
+            }
+            input.seek( getBatchStart()
+                      * valReaders_[ icol ].getItemBytes() );
+            return input;
+        }
+    }
+
     /**
      * Knows how to read data items of a particular type from a byte store.
      */
@@ -906,6 +1085,55 @@ public class ColFitsStarTable extends AbstractStarTable {
          */
         abstract Object readValue( BasicInput in ) throws IOException;
 
+        /**
+         * Reads a floating point value from a byte buffer.
+         * Blank and non-numeric values give NaN.
+         * The default implementation calls <code>readValue</code>,
+         * but scalar floating point readers override it to avoid
+         * object creation.
+         *
+         * @param    in   input stream, positioned at read point
+         * @return   floating point value
+         */
+        double readDouble( BasicInput in ) throws IOException {
+            Object value = readValue( in );
+            return value instanceof Number ? ((Number) value).doubleValue()
+                                           : Double.NaN;
+        }
+
+        /**
+         * Reads an integer value from a byte buffer into an element
+         * of a supplied array.
+         * Blank and non-numeric values give zero and a false return,
+         * and floating point values are truncated.
+         * The default implementation calls <code>readValue</code>,
+         * but scalar integer readers override it to avoid
+         * object creation.
+         *
+         * @param    in   input stream, positioned at read point
+         * @param    values  array to receive the value
+         * @param    index   index of element of <code>values</code> to set
+         * @return   true iff the value is not blank
+         */
+        boolean readLong( BasicInput in, long[] values, int index )
+                throws IOException {
+            Object value = readValue( in );
+            if ( value instanceof Double || value instanceof Float ) {
+                double dval = ((Number) value).doubleValue();
+                boolean isBlank = Double.isNaN( dval );
+                values[ index ] = isBlank ? 0L : (long) dval;
+                return ! isBlank;
+            }
+            else if ( value instanceof Number ) {
+                values[ index ] = ((Number) value).longValue();
+                return true;
+            }
+            else {
+                values[ index ] = 0L;
+                return false;
+            }
+        }
+
         /**
          * Returns the number of bytes for a single cell of this type.
          *
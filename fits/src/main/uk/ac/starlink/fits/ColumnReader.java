@@ -71,6 +71,55 @@ abstract class ColumnReader {
      */
     abstract Object readValue( BasicInput stream ) throws IOException;
 
+    /**
+     * Reads bytes from a stream to return a floating point value.
+     * Blank and non-numeric values give NaN.
+     * The default implementation calls <tt>readValue</tt>;
+     * readers for scalar floating point values override it to
+     * avoid object creation.
+     *
+     * @param  stream containing bytes to turn into a value
+     * @return  floating point value
+     */
+    double readDouble( BasicInput stream ) throws IOException {
+        Object value = readValue( stream );
+        return value instanceof Number ? ((Number) value).doubleValue()
+                                       : Double.NaN;
+    }
+
+    /**
+     * Reads bytes from a stream to acquire an integer value,
+     * which is stored in an element of a supplied array.
+     * Blank and non-numeric values give zero and a false return,
+     * and floating point values are truncated.
+     * The default implementation calls <tt>readValue</tt>;
+     * readers for scalar integer values override it to
+     * avoid object creation.
+     *
+     * @param  stream containing bytes to turn into a value
+     * @param  values  array to receive the value
+     * @param  index   index of the element of <tt>values</tt> to set
+     * @return   true iff the value is not blank
+     */
+    boolean readLong( BasicInput stream, long[] values, int index )
+            throws IOException {
+        Object value = readValue( stream );
+        if ( value instanceof Double || value instanceof Float ) {
+            double dval = ((Number) value).doubleValue();
+            boolean isBlank = Double.isNaN( dval );
+            values[ index ] = isBlank ? 0L : (long) dval;
+            return ! isBlank;
+        }
+        else if ( value instanceof Number ) {
+            values[ index ] = ((Number) value).longValue();
+            return true;
+        }
+        else {
+            values[ index ] = 0L;
+            return false;
+        }
+    }
+
     /**
      * Returns the class which objects returned by <tt>readValue</tt>
      * will belong to.
@@ -419,6 +468,14 @@ abstract class ColumnReader {
                                         : new Byte( (byte)
                                                     ( val ^ (byte) 0x80 ) );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            byte val = stream.readByte();
+                            boolean isBlank = hasBlank && val == (byte) blank;
+                            values[ index ] =
+                                isBlank ? 0L : (byte) ( val ^ (byte) 0x80 );
+                            return ! isBlank;
+                        }
                     };
                 }
                 else if ( shortable ) {
@@ -433,6 +490,14 @@ abstract class ColumnReader {
                                                      ( ( val & mask ) +
                                                          sZero ) );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            byte val = stream.readByte();
+                            boolean isBlank = hasBlank && val == (byte) blank;
+                            values[ index ] =
+                                isBlank ? 0L : ( val & mask ) + sZero;
+                            return ! isBlank;
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -445,6 +510,13 @@ abstract class ColumnReader {
                                         : new Float( ( val & mask )
                                                      * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            byte val = stream.readByte();
+                            return ( hasBlank && val == (byte) blank )
+                                 ? Double.NaN
+                                 : (float) ( ( val & mask ) * scale + dZero );
+                        }
                     };
                 }
                 else {
@@ -458,6 +530,13 @@ abstract class ColumnReader {
                                         : new Short( (short)
                                                      ( val & mask ) );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            byte val = stream.readByte();
+                            boolean isBlank = hasBlank && val == (byte) blank;
+                            values[ index ] = isBlank ? 0L : val & mask;
+                            return ! isBlank;
+                        }
                     };
                 }
                 return reader;
@@ -478,6 +557,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Integer( (int) ( val + iZero ) );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            short val = stream.readShort();
+                            boolean isBlank = hasBlank && val == (short) blank;
+                            values[ index ] = isBlank ? 0L : val + iZero;
+                            return ! isBlank;
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -490,6 +576,13 @@ abstract class ColumnReader {
                                         : new Float( (float)
                                                    ( val * scale + dZero ) );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            short val = stream.readShort();
+                            return ( hasBlank && val == (short) blank )
+                                 ? Double.NaN
+                                 : (float) ( val * scale + dZero );
+                        }
                     };
                 }
                 else {
@@ -501,6 +594,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Short( val );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            short val = stream.readShort();
+                            boolean isBlank = hasBlank && val == (short) blank;
+                            values[ index ] = isBlank ? 0L : val;
+                            return ! isBlank;
+                        }
                     };
                 }
                 return reader;
@@ -519,6 +619,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Long( (long) ( val + lZero ) );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            long val = stream.readInt();
+                            boolean isBlank = hasBlank && val == (int) blank;
+                            values[ index ] = isBlank ? 0L : val + lZero;
+                            return ! isBlank;
+                        }
                     };
                 }
                 else if ( isScaled ) {
@@ -531,6 +638,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Double( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            int val = stream.readInt();
+                            return ( hasBlank && val == (int) blank )
+                                 ? Double.NaN
+                                 : val * scale + dZero;
+                        }
                     };
                 }
                 else {
@@ -543,6 +657,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Integer( val );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            int val = stream.readInt();
+                            boolean isBlank = hasBlank && val == (int) blank;
+                            values[ index ] = isBlank ? 0L : val;
+                            return ! isBlank;
+                        }
                     };
                 }
                 return reader;
@@ -628,6 +749,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Double( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            long val = stream.readLong();
+                            return ( hasBlank && val == (long) blank )
+                                 ? Double.NaN
+                                 : val * scale + dZero;
+                        }
                     };
                 }
                 else {
@@ -639,6 +767,13 @@ abstract class ColumnReader {
                                         ? null
                                         : new Long( val );
                         }
+                        boolean readLong( BasicInput stream, long[] values,
+                                          int index ) throws IOException {
+                            long val = stream.readLong();
+                            boolean isBlank = hasBlank && val == (long) blank;
+                            values[ index ] = isBlank ? 0L : val;
+                            return ! isBlank;
+                        }
                     };
                 }
                 return reader;
@@ -663,6 +798,11 @@ abstract class ColumnReader {
                             float val = stream.readFloat();
                             return new Float( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return (float) ( stream.readFloat() * scale
+                                             + dZero );
+                        }
                     };
                 }
                 else {
@@ -672,6 +812,10 @@ abstract class ColumnReader {
                             float val = stream.readFloat();
                             return new Float( val );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return stream.readFloat();
+                        }
                     };
                 }
                 return reader;    
@@ -686,6 +830,10 @@ abstract class ColumnReader {
                             double val = stream.readDouble();
                             return new Double( val * scale + dZero );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return stream.readDouble() * scale + dZero;
+                        }
                     };
                 }
                 else {
@@ -696,6 +844,10 @@ abstract class ColumnReader {
                             double val = stream.readDouble();
                             return new Double( val );
                         }
+                        double readDouble( BasicInput stream )
+                                throws IOException {
+                            return stream.readDouble();
+                        }
                     };
                 }
                 return reader;
@@ -6,6 +6,8 @@ import java.math.BigDecimal;
 
 /**
  * Writes the data for a single column of a FITS BINTABLE.
+ * Unless otherwise documented, implementations should be safe
+ * for concurrent use from multiple threads.
  *
  * @author   Mark Taylor
  * @since    10 Jul 2008
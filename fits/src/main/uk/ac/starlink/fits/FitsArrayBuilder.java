@@ -196,10 +196,25 @@ public class FitsArrayBuilder implements ArrayBuilder {
     private NDArray makeNDArray( ArrayDataInput stream, AccessMode mode, 
                                  URL url ) throws IOException {
 
-        /* Make the ArrayImpl. */
+        /* Make the ArrayImpl.  Tile-compressed images stored in
+         * BINTABLE extensions are decompressed on demand. */
         ArrayImpl impl;
+        Header hdr;
         try {
-            impl = new ReadableFitsArrayImpl( stream, mode );
+            hdr = Header.readHeader( stream );
+            if ( hdr == null ) {
+                throw new IOException( "No FITS header" );
+            }
+            if ( TileCompressedArrayImpl.isCompressedImage( hdr ) ) {
+                if ( mode.isWritable() ) {
+                    throw new IOException( "Tile-compressed image "
+                                         + "is read-only" );
+                }
+                impl = new TileCompressedArrayImpl( hdr, stream );
+            }
+            else {
+                impl = new ReadableFitsArrayImpl( hdr, stream, mode );
+            }
         }
         catch ( FitsException e ) {
             throw new IOException( e.getMessage() );
@@ -208,7 +223,6 @@ public class FitsArrayBuilder implements ArrayBuilder {
         /* See if we need to scale the array using BSCALE/BZERO. */
         Type type = impl.getType();
         boolean scaled = false;
-        Header hdr = ((ReadableFitsArrayImpl) impl).getHeader();
         double bscale = 1.0;
         double bzero = 0.0;
         int digits = 0;
@@ -474,7 +474,9 @@ public class FitsTableBuilder extends DocumentedTableBuilder
             InputFactory inFact =
                 InputFactory.createFactory( datsrc, datpos, datasize );
             StarTable table =
-                BintableStarTable.createTable( hdr, inFact, wide );
+                TileCompressedStarTable.isCompressedTable( hdr )
+                    ? attemptReadCompressedTable( hdr, inFact, wide )
+                    : BintableStarTable.createTable( hdr, inFact, wide );
             IOUtils.skipBytes( strm, datasize );
             return new TableResult( table, afterpos );
         }
@@ -495,6 +497,32 @@ public class FitsTableBuilder extends DocumentedTableBuilder
         }
     }
 
+    /**
+     * Returns a table giving the uncompressed content of a tile-compressed
+     * BINTABLE HDU if possible.  If the compression is not supported,
+     * or if the data is not random access, a warning is logged and
+     * the raw compressed table is returned instead.
+     *
+     * @param   hdr  header of compressed BINTABLE HDU
+     * @param   inFact  factory for access to the HDU data part
+     * @param   wide  convention for representing extended columns;
+     *                use null to avoid use of extended columns
+     * @return  table
+     */
+    private static StarTable attemptReadCompressedTable( Header hdr,
+                                                         InputFactory inFact,
+                                                         WideFits wide )
+            throws FitsException, IOException {
+        try {
+            return TileCompressedStarTable.createTable( hdr, inFact, wide );
+        }
+        catch ( TableFormatException e ) {
+            logger.warning( "Can't decompress tile-compressed table ("
+                          + e.getMessage() + ") - reading raw" );
+            return BintableStarTable.createTable( hdr, inFact, wide );
+        }
+    }
+
     /**
      * Indicates whether the header has a given name.
      * EXTNAME or EXTNAME-VERSION, matched case-insensitively, count.
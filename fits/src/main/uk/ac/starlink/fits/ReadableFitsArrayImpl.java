@@ -35,14 +35,25 @@ class ReadableFitsArrayImpl implements ArrayImpl {
 
     ReadableFitsArrayImpl( ArrayDataInput istream, AccessMode mode ) 
             throws FitsException, IOException {
+        this( Header.readHeader( istream ), istream, mode );
+    }
+
+    /**
+     * Constructs an array given a header which has already been read.
+     *
+     * @param  hdr  FITS header cards for the HDU
+     * @param  istream  stream positioned at the start of the data part
+     * @param  mode  access mode
+     */
+    ReadableFitsArrayImpl( Header hdr, ArrayDataInput istream,
+                           AccessMode mode )
+            throws FitsException, IOException {
 
         /* Save the stream and its starting position. */
         this.stream = istream;
         this.isRandom = stream instanceof RandomAccess;
         this.mode = mode;
-
-        /* Read the FITS header cards. */
-        hdr = Header.readHeader( stream );
+        this.hdr = hdr;
 
         /* Initialise the position in the stream for the start of array data. */
         this.strmBase = isRandom ? ((RandomAccess) stream).getFilePointer()
@@ -50,7 +61,7 @@ class ReadableFitsArrayImpl implements ArrayImpl {
 
         /* Determine the shape. */
         long[] dims = getDimsFromHeader( hdr );
-        long[] origin = getOriginFromHeader( hdr );
+        long[] origin = getOriginFromHeader( hdr, dims.length );
         this.oshape = ( origin != null )
                     ? new OrderedNDShape( origin, dims, Order.COLUMN_MAJOR )
                     : new OrderedNDShape( dims, Order.COLUMN_MAJOR );
@@ -234,8 +245,14 @@ class ReadableFitsArrayImpl implements ArrayImpl {
         return dimensions;
     }
 
-    private static long[] getOriginFromHeader( Header hdr ) {
-        int naxis = hdr.getIntValue( "NAXIS" );
+    /**
+     * Returns the pixel origin recorded in a header, if any.
+     *
+     * @param  hdr  header
+     * @param  naxis  dimensionality
+     * @return  naxis-element origin array, or null if not present
+     */
+    static long[] getOriginFromHeader( Header hdr, int naxis ) {
         long[] origin = new long[ naxis ];
         boolean ok = true;
         for ( int i = 0; i < naxis && ok; i++ ) {
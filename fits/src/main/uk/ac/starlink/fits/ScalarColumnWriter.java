@@ -157,7 +157,6 @@ abstract class ScalarColumnWriter implements ColumnWriter {
             /* Byte is a bit tricky since a FITS byte is unsigned, while
              * a byte in a StarTable (a java byte) is signed. */
             if ( allowSignedByte ) {
-                final byte[] buf = new byte[ 1 ];
                 final byte badVal = blankNum == null ? (byte) 0
                                                      : blankNum.byteValue();
                 final BigDecimal zeroByte = new BigDecimal( -128 );
@@ -168,8 +167,7 @@ abstract class ScalarColumnWriter implements ColumnWriter {
                             throws IOException {
                         byte b = (value != null) ? ((Number) value).byteValue()
                                                  : badVal;
-                        buf[ 0 ] = (byte) ( b ^ (byte) 0x80 );
-                        stream.write( buf );
+                        stream.writeByte( b ^ (byte) 0x80 );
                     }
                     public BigDecimal getZero() {
                         return zeroByte;
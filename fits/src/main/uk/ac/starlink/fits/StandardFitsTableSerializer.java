@@ -1,6 +1,8 @@
 package uk.ac.starlink.fits;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
@@ -15,8 +17,12 @@ import nom.tam.fits.Header;
 import nom.tam.fits.HeaderCard;
 import nom.tam.fits.HeaderCardException;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.ColumnSizeCollector;
 import uk.ac.starlink.table.DescribedValue;
 import uk.ac.starlink.table.HealpixTableInfo;
+import uk.ac.starlink.table.RowBlockEncoder;
+import uk.ac.starlink.table.RowBlockWriter;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.TableFormatException;
@@ -191,53 +197,47 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
                 sbuf.append( "(unknown row count) " );
             }
             logger.config( sbuf.toString() );
-            nrow = 0L;
 
-            /* Get the maximum dimensions. */
-            RowSequence rseq = table.getRowSequence();
-            try {
-                while ( rseq.next() ) {
-                    nrow++;
-                    for ( int icol = 0; icol < ncol; icol++ ) {
-                        if ( useCols[ icol ] &&
-                             ( varShapes[ icol ] || 
-                               varChars[ icol ] ||
-                               varElementChars[ icol ] || 
-                               ( mayHaveNullableInts[ icol ] && 
-                                 ! hasNulls[ icol ] ) ) ) {
-                            Object cell = rseq.getCell( icol );
-                            if ( cell == null ) {
-                                if ( mayHaveNullableInts[ icol ] ) {
-                                    hasNulls[ icol ] = true;
-                                }
-                            }
-                            else {
-                                if ( varChars[ icol ] ) {
-                                    int leng = ((String) cell).length();
-                                    maxChars[ icol ] =
-                                        Math.max( maxChars[ icol ], leng );
-                                }
-                                else if ( varElementChars[ icol ] ) {
-                                    String[] svals = (String[]) cell;
-                                    for ( int i = 0; i < svals.length; i++ ) {
-                                        maxChars[ icol ] =
-                                            Math.max( maxChars[ icol ],
-                                                      svals[ i ].length() );
-                                    }
-                                }
-                                if ( varShapes[ icol ] ) {
-                                    int nel = Array.getLength( cell );
-                                    maxElements[ icol ] =
-                                        Math.max( maxElements[ icol ], nel );
-                                    totalElements[ icol ] += nel;
-                                }
-                            }
-                        }
+            /* Get the maximum dimensions.  The scan is done using a
+             * RowCollector, so that it may run in parallel if the
+             * table is splittable. */
+            int[] scanFlags = new int[ ncol ];
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                if ( useCols[ icol ] ) {
+                    int flags = 0;
+                    if ( varChars[ icol ] ) {
+                        flags |= ColumnSizeCollector.CHARS;
+                    }
+                    else if ( varElementChars[ icol ] ) {
+                        flags |= ColumnSizeCollector.ELEMENT_CHARS;
+                    }
+                    if ( varShapes[ icol ] ) {
+                        flags |= ColumnSizeCollector.ELEMENTS;
+                    }
+                    if ( mayHaveNullableInts[ icol ] && ! hasNulls[ icol ] ) {
+                        flags |= ColumnSizeCollector.NULLS;
                     }
+                    scanFlags[ icol ] = flags;
                 }
             }
-            finally {
-                rseq.close();
+            ColumnSizeCollector.ColumnSizes sizes =
+                RowRunner.DEFAULT
+               .collect( new ColumnSizeCollector( scanFlags ), table );
+            nrow = sizes.getRowCount();
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                int flags = scanFlags[ icol ];
+                if ( ( flags & ( ColumnSizeCollector.CHARS |
+                                 ColumnSizeCollector.ELEMENT_CHARS ) ) != 0 ) {
+                    maxChars[ icol ] =
+                        Math.max( maxChars[ icol ], sizes.getMaxChars( icol ) );
+                }
+                if ( ( flags & ColumnSizeCollector.ELEMENTS ) != 0 ) {
+                    maxElements[ icol ] = sizes.getMaxElements( icol );
+                    totalElements[ icol ] = sizes.getTotalElements( icol );
+                }
+                if ( ( flags & ColumnSizeCollector.NULLS ) != 0 ) {
+                    hasNulls[ icol ] = sizes.hasNulls( icol );
+                }
             }
 
             /* In the case of variable string lengths and no non-null data
@@ -505,39 +505,54 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
     }
 
     public void writeData( DataOutput strm ) throws IOException {
+        writeTableData( strm, true );
+    }
 
-        /* Work out the length of each row in bytes. */
-        int rowBytes = 0;
+    /**
+     * Writes the fixed-size table data followed by padding to a
+     * 2880-byte boundary.
+     *
+     * @param  strm  destination stream
+     * @param  parallel  if true, rows may be encoded in multiple threads;
+     *                   this is only permissible if the column writers
+     *                   retain no state between values
+     */
+    final void writeTableData( final DataOutput strm, boolean parallel )
+            throws IOException {
         int ncol = table.getColumnCount();
-        for ( int icol = 0; icol < ncol; icol++ ) {
-            ColumnWriter writer = colWriters[ icol ];
-            if ( writer != null ) {
-                rowBytes += writer.getLength();
-            }
-        }
+        final long[] nWritten = new long[ 1 ];
 
         /* Write the data cells, delegating the item in each column to
-         * the writer that knows how to handle it. */
-        long nWritten = 0L;
-        RowSequence rseq = table.getRowSequence();
-        try {
-            while ( rseq.next() ) {
-                Object[] row = rseq.getRow();
-                for ( int icol = 0; icol < ncol; icol++ ) {
-                    ColumnWriter writer = colWriters[ icol ];
-                    if ( writer != null ) {
-                        writer.writeValue( strm, row[ icol ] );
+         * the writer that knows how to handle it.  Blocks of rows may
+         * be encoded in different threads. */
+        RowBlockEncoder<byte[]> encoder = new RowBlockEncoder<byte[]>() {
+            public byte[] encodeRows( RowSequence rseq ) throws IOException {
+                ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                DataOutputStream dout = new DataOutputStream( bout );
+                while ( rseq.next() ) {
+                    Object[] row = rseq.getRow();
+                    for ( int icol = 0; icol < ncol; icol++ ) {
+                        ColumnWriter writer = colWriters[ icol ];
+                        if ( writer != null ) {
+                            writer.writeValue( dout, row[ icol ] );
+                        }
                     }
                 }
-                nWritten += rowBytes;
+                dout.flush();
+                return bout.toByteArray();
             }
-        }
-        finally {
-            rseq.close();
-        }
+            public void writeBlock( byte[] block ) throws IOException {
+                strm.write( block );
+                nWritten[ 0 ] += block.length;
+            }
+        };
+        RowBlockWriter rowWriter = parallel
+                                 ? RowBlockWriter.getDefaultInstance()
+                                 : RowBlockWriter.SEQUENTIAL;
+        rowWriter.writeRows( table, encoder );
 
         /* Write padding. */
-        int extra = (int) ( nWritten % (long) 2880 );
+        int extra = (int) ( nWritten[ 0 ] % (long) 2880 );
         if ( extra > 0 ) {
             strm.write( new byte[ 2880 - extra ] );
         }
@@ -602,7 +617,6 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
         if ( clazz == String.class && longOffset == null ) {
             final int maxChars = eSize;
             final int[] dims = new int[] { maxChars };
-            final byte[] buf = new byte[ maxChars ];
             final byte[] blankBuf = new byte[ maxChars ];
             final byte padByte = (byte) ' ';
             Arrays.fill( blankBuf, padByte );
@@ -614,7 +628,7 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
                         bytes = blankBuf;
                     }
                     else {
-                        bytes = buf;
+                        bytes = new byte[ maxChars ];
                         String sval = (String) value;
                         int leng = Math.min( sval.length(), maxChars );
                         for ( int i = 0; i < leng; i++ ) {
@@ -654,11 +668,11 @@ public class StandardFitsTableSerializer implements FitsTableSerializer {
             final int[] charDims = new int[ shape.length + 1 ];
             charDims[ 0 ] = maxChars;
             System.arraycopy( shape, 0, charDims, 1, shape.length );
-            final byte[] buf = new byte[ maxChars ];
             final byte padByte = (byte) ' ';
             return new ColumnWriter() {
                 public void writeValue( DataOutput out, Object value )
                         throws IOException {
+                    byte[] buf = new byte[ maxChars ];
                     int is = 0;
                     if ( value != null ) {
                         String[] svals = (String[]) value;
@@ -0,0 +1,883 @@
+package uk.ac.starlink.fits;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import nom.tam.fits.FitsException;
+import nom.tam.fits.Header;
+import nom.tam.util.ArrayDataInput;
+import nom.tam.util.RandomAccess;
+import uk.ac.starlink.array.AccessImpl;
+import uk.ac.starlink.array.ArrayImpl;
+import uk.ac.starlink.array.Order;
+import uk.ac.starlink.array.OrderedNDShape;
+import uk.ac.starlink.array.Type;
+
+/**
+ * ArrayImpl implementation for reading images stored using the
+ * FITS tiled image compression convention (ZIMAGE=T).
+ *
+ * <p>Tiles are decompressed on demand and held in a bounded cache,
+ * so that access to part of the image only decodes the tiles it touches.
+ * Reads of the underlying compressed data are synchronized,
+ * but decompression is not, so multiple accessors may be used
+ * concurrently from different threads.
+ * The GZIP_1, GZIP_2, RICE_1 and NOCOMPRESS algorithms are supported,
+ * along with the NO_DITHER, SUBTRACTIVE_DITHER_1 and SUBTRACTIVE_DITHER_2
+ * quantization methods for floating point data.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ * @see  <a href="https://fits.gsfc.nasa.gov/registry/tilecompression.html"
+ *          >Tiled Image Compression Convention</a>
+ */
+class TileCompressedArrayImpl implements ArrayImpl {
+
+    private final ArrayDataInput stream_;
+    private final Header hdr_;
+    private final OrderedNDShape oshape_;
+    private final Type type_;
+    private final Number badValue_;
+    private final long[] dims_;
+    private final int[] tileDims_;
+    private final long[] ntiles_;
+    private final String algorithm_;
+    private final int bytepix_;
+    private final int blocksize_;
+    private final int zrowLength_;
+    private final long heapStart_;
+    private final long strmBase_;
+    private final byte[] data_;
+    private final int icolCompressed_;
+    private final int icolGzip_;
+    private final int icolUncompressed_;
+    private final int icolScale_;
+    private final int icolZero_;
+    private final int icolBlank_;
+    private final int[] colOffsets_;
+    private final char[] colTypes_;
+    private final boolean[] colIsQ_;
+    private final boolean isQuantized_;
+    private final int ditherMethod_;
+    private final int dither0_;
+    private final TileCompression.TileCache<Object> cache_;
+    private final TileCompression.TileReader<Object> tileReader_;
+
+    private static final int NO_DITHER = 0;
+    private static final int SUBTRACTIVE_DITHER_1 = 1;
+    private static final int SUBTRACTIVE_DITHER_2 = 2;
+    private static final int N_RANDOM = 10000;
+    private static final int DITHER2_ZERO = -2147483646;
+    private static final Pattern TFORM_REGEX =
+        Pattern.compile( "([0-9]*)([PQ]?)([LXBIJKAEDCM])(\\(.*\\))?" );
+    private static float[] randoms_;
+
+    /**
+     * Constructor.
+     *
+     * @param  hdr  header of the compressed image HDU, already read
+     * @param  stream  input stream positioned at the start of the
+     *                 HDU data part
+     */
+    TileCompressedArrayImpl( Header hdr, ArrayDataInput stream )
+            throws FitsException, IOException {
+        hdr_ = hdr;
+        stream_ = stream;
+
+        /* Determine image shape and tiling. */
+        int naxis = hdr.getIntValue( "ZNAXIS" );
+        dims_ = new long[ naxis ];
+        tileDims_ = new int[ naxis ];
+        ntiles_ = new long[ naxis ];
+        long ntile = 1;
+        for ( int i = 0; i < naxis; i++ ) {
+            String key = "ZNAXIS" + ( i + 1 );
+            if ( ! hdr.containsKey( key ) ) {
+                throw new FitsException( "No header card " + key );
+            }
+            dims_[ i ] = hdr.getLongValue( key );
+            long dfltTile = i == 0 ? dims_[ 0 ] : 1;
+            long tdim = hdr.getLongValue( "ZTILE" + ( i + 1 ), dfltTile );
+            if ( tdim <= 0 || tdim > Integer.MAX_VALUE ) {
+                throw new FitsException( "Bad tile size " + tdim );
+            }
+            tileDims_[ i ] = (int) tdim;
+            ntiles_[ i ] = ( dims_[ i ] + tdim - 1 ) / tdim;
+            ntile *= ntiles_[ i ];
+        }
+        long[] origin =
+            ReadableFitsArrayImpl.getOriginFromHeader( hdr, naxis );
+        oshape_ = origin != null
+                ? new OrderedNDShape( origin, dims_, Order.COLUMN_MAJOR )
+                : new OrderedNDShape( dims_, Order.COLUMN_MAJOR );
+        if ( ntile != hdr.getLongValue( "NAXIS2" ) ) {
+            throw new FitsException( "Tile count mismatch" );
+        }
+
+        /* Determine data type. */
+        int zbitpix = hdr.getIntValue( "ZBITPIX" );
+        boolean hasBlank = hdr.containsKey( "BLANK" );
+        Integer blank = hasBlank
+                      ? Integer.valueOf( hdr.getIntValue( "BLANK" ) )
+                      : hdr.containsKey( "ZBLANK" )
+                            ? Integer.valueOf( hdr.getIntValue( "ZBLANK" ) )
+                            : null;
+        switch ( zbitpix ) {
+            case 8:
+                type_ = Type.BYTE;
+                badValue_ = blank == null
+                          ? null
+                          : Byte.valueOf( blank.byteValue() );
+                break;
+            case 16:
+                type_ = Type.SHORT;
+                badValue_ = blank == null
+                          ? null
+                          : Short.valueOf( blank.shortValue() );
+                break;
+            case 32:
+                type_ = Type.INT;
+                badValue_ = blank;
+                break;
+            case -32:
+                type_ = Type.FLOAT;
+                badValue_ = Float.valueOf( Float.NaN );
+                break;
+            case -64:
+                type_ = Type.DOUBLE;
+                badValue_ = Double.valueOf( Double.NaN );
+                break;
+            default:
+                throw new FitsException( "Unsupported ZBITPIX " + zbitpix );
+        }
+
+        /* Determine compression algorithm and parameters. */
+        String cmptype = hdr.getStringValue( "ZCMPTYPE" );
+        algorithm_ = TileCompression.getAlgorithm( cmptype );
+        if ( algorithm_ == null ) {
+            throw new FitsException( "Unsupported tile compression type "
+                                   + cmptype );
+        }
+        int bytepix = 4;
+        int blocksize = 32;
+        for ( int i = 1; hdr.containsKey( "ZNAME" + i ); i++ ) {
+            String zname = hdr.getStringValue( "ZNAME" + i ).trim();
+            if ( "BYTEPIX".equalsIgnoreCase( zname ) ) {
+                bytepix = hdr.getIntValue( "ZVAL" + i );
+            }
+            else if ( "BLOCKSIZE".equalsIgnoreCase( zname ) ) {
+                blocksize = hdr.getIntValue( "ZVAL" + i );
+            }
+        }
+        bytepix_ = bytepix;
+        blocksize_ = blocksize;
+
+        /* Locate the columns of the compressed table. */
+        int ncol = hdr.getIntValue( "TFIELDS" );
+        colOffsets_ = new int[ ncol ];
+        colTypes_ = new char[ ncol ];
+        colIsQ_ = new boolean[ ncol ];
+        int icolCompressed = -1;
+        int icolGzip = -1;
+        int icolUncompressed = -1;
+        int icolScale = -1;
+        int icolZero = -1;
+        int icolBlank = -1;
+        int off = 0;
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            int jc = ic + 1;
+            String tform = hdr.getStringValue( "TFORM" + jc );
+            Matcher matcher = tform == null
+                            ? null
+                            : TFORM_REGEX.matcher( tform.trim() );
+            if ( matcher == null || ! matcher.matches() ) {
+                throw new FitsException( "Bad TFORM" + jc + " " + tform );
+            }
+            String srep = matcher.group( 1 );
+            int repeat = srep.length() == 0 ? 1 : Integer.parseInt( srep );
+            String vla = matcher.group( 2 );
+            char tchr = matcher.group( 3 ).charAt( 0 );
+            colOffsets_[ ic ] = off;
+            colTypes_[ ic ] = tchr;
+            colIsQ_[ ic ] = "Q".equals( vla );
+            if ( "P".equals( vla ) ) {
+                off += 8;
+            }
+            else if ( "Q".equals( vla ) ) {
+                off += 16;
+            }
+            else {
+                off += repeat * getElementSize( tchr );
+            }
+            String ttype = hdr.getStringValue( "TTYPE" + jc );
+            ttype = ttype == null ? "" : ttype.trim().toUpperCase();
+            if ( "COMPRESSED_DATA".equals( ttype ) ) {
+                if ( tchr != 'B' ) {
+                    throw new FitsException( "Unsupported COMPRESSED_DATA "
+                                           + "type " + tform );
+                }
+                icolCompressed = ic;
+            }
+            else if ( "GZIP_COMPRESSED_DATA".equals( ttype ) ) {
+                icolGzip = ic;
+            }
+            else if ( "UNCOMPRESSED_DATA".equals( ttype ) ) {
+                icolUncompressed = ic;
+            }
+            else if ( "ZSCALE".equals( ttype ) ) {
+                icolScale = ic;
+            }
+            else if ( "ZZERO".equals( ttype ) ) {
+                icolZero = ic;
+            }
+            else if ( "ZBLANK".equals( ttype ) ) {
+                icolBlank = ic;
+            }
+        }
+        if ( icolCompressed < 0 ) {
+            throw new FitsException( "No COMPRESSED_DATA column" );
+        }
+        icolCompressed_ = icolCompressed;
+        icolGzip_ = icolGzip;
+        icolUncompressed_ = icolUncompressed;
+        icolScale_ = icolScale;
+        icolZero_ = icolZero;
+        icolBlank_ = icolBlank;
+        zrowLength_ = hdr.getIntValue( "NAXIS1" );
+        if ( off != zrowLength_ ) {
+            throw new FitsException( "Compressed table row length mismatch" );
+        }
+        heapStart_ = hdr.containsKey( "THEAP" )
+                   ? hdr.getLongValue( "THEAP" )
+                   : (long) zrowLength_ * ntile;
+
+        /* Determine quantization details for floating point data. */
+        isQuantized_ = type_.isFloating()
+                    && ( icolScale >= 0 || hdr.containsKey( "ZSCALE" ) );
+        String zquantiz = hdr.getStringValue( "ZQUANTIZ" );
+        zquantiz = zquantiz == null ? "NO_DITHER"
+                                    : zquantiz.trim().toUpperCase();
+        if ( "SUBTRACTIVE_DITHER_1".equals( zquantiz ) ) {
+            ditherMethod_ = SUBTRACTIVE_DITHER_1;
+        }
+        else if ( "SUBTRACTIVE_DITHER_2".equals( zquantiz ) ) {
+            ditherMethod_ = SUBTRACTIVE_DITHER_2;
+        }
+        else if ( "NO_DITHER".equals( zquantiz ) ) {
+            ditherMethod_ = NO_DITHER;
+        }
+        else {
+            throw new FitsException( "Unsupported ZQUANTIZ " + zquantiz );
+        }
+        dither0_ = hdr.getIntValue( "ZDITHER0", 1 );
+
+        /* Prepare access to the compressed data.  For a random access
+         * stream, record the data position; otherwise, read it all
+         * into memory. */
+        if ( stream instanceof RandomAccess ) {
+            strmBase_ = ((RandomAccess) stream).getFilePointer();
+            data_ = null;
+        }
+        else {
+            long leng = (long) zrowLength_ * ntile
+                      + hdr.getLongValue( "PCOUNT", 0 );
+            if ( leng > Integer.MAX_VALUE ) {
+                throw new IOException( "Compressed image too large "
+                                     + "for non-random stream" );
+            }
+            strmBase_ = 0;
+            data_ = new byte[ (int) leng ];
+            stream.readFully( data_ );
+        }
+        cache_ = new TileCompression.TileCache<Object>(
+                     TileCompression.DEFAULT_CACHE_BYTES );
+        final int nbyte = type_.getNumBytes();
+        tileReader_ = new TileCompression.TileReader<Object>() {
+            public Object readTile( long itile ) throws IOException {
+                return decodeTile( itile );
+            }
+            public int getByteCount( Object tile ) {
+                return Array.getLength( tile ) * nbyte;
+            }
+        };
+    }
+
+    /**
+     * Indicates whether a FITS header describes a tile-compressed image.
+     *
+     * @param  hdr  header
+     * @return  true iff hdr has ZIMAGE=T
+     */
+    static boolean isCompressedImage( Header hdr ) {
+        return hdr.containsKey( "ZIMAGE" )
+            && hdr.getBooleanValue( "ZIMAGE", false );
+    }
+
+    public OrderedNDShape getShape() {
+        return oshape_;
+    }
+
+    public Type getType() {
+        return type_;
+    }
+
+    public Number getBadValue() {
+        return badValue_;
+    }
+
+    public boolean isReadable() {
+        return true;
+    }
+
+    public boolean isWritable() {
+        return false;
+    }
+
+    public boolean isRandom() {
+        return true;
+    }
+
+    public boolean canMap() {
+        return false;
+    }
+
+    public Object getMapped() {
+        throw new AssertionError();
+    }
+
+    public boolean multipleAccess() {
+        return true;
+    }
+
+    public void open() {
+    }
+
+    public AccessImpl getAccess() {
+        return new AccessImpl() {
+            private long offset_;
+            private final long[] pos_ = new long[ dims_.length ];
+            public void setOffset( long off ) {
+                offset_ = off;
+            }
+            public void read( Object buffer, int start, int size )
+                    throws IOException {
+                while ( size > 0 ) {
+                    int n = readRun( offset_, pos_, buffer, start, size );
+                    offset_ += n;
+                    start += n;
+                    size -= n;
+                }
+            }
+            public void write( Object buffer, int start, int size ) {
+                throw new UnsupportedOperationException( "Read only" );
+            }
+            public void close() {
+            }
+        };
+    }
+
+    public void close() throws IOException {
+        stream_.close();
+    }
+
+    /**
+     * Returns the header of the compressed HDU.
+     *
+     * @return  header
+     */
+    Header getHeader() {
+        return hdr_;
+    }
+
+    /**
+     * Copies a run of pixels lying within a single tile row
+     * into a buffer.
+     *
+     * @param  offset  pixel offset into image of start of run
+     * @param  pos   workspace array with one element per dimension
+     * @param  buffer  destination array
+     * @param  start   offset into buffer
+     * @param  size   maximum number of pixels to copy
+     * @return   number of pixels actually copied, at least 1
+     */
+    private int readRun( long offset, long[] pos, Object buffer, int start,
+                         int size )
+            throws IOException {
+        int ndim = dims_.length;
+        long p = offset;
+        for ( int i = 0; i < ndim; i++ ) {
+            pos[ i ] = p % dims_[ i ];
+            p /= dims_[ i ];
+        }
+        long itile = 0;
+        long tileMult = 1;
+        int ipix = 0;
+        int pixMult = 1;
+        int run = 0;
+        for ( int i = 0; i < ndim; i++ ) {
+            long t = pos[ i ] / tileDims_[ i ];
+            int q = (int) ( pos[ i ] - t * tileDims_[ i ] );
+            int tdim = (int) Math.min( tileDims_[ i ],
+                                       dims_[ i ] - t * tileDims_[ i ] );
+            if ( i == 0 ) {
+                run = tdim - q;
+            }
+            itile += t * tileMult;
+            tileMult *= ntiles_[ i ];
+            ipix += q * pixMult;
+            pixMult *= tdim;
+        }
+        int n = Math.min( run, size );
+        Object tile = cache_.getTile( itile, tileReader_ );
+        System.arraycopy( tile, ipix, buffer, start, n );
+        return n;
+    }
+
+    /**
+     * Reads and decompresses a tile.
+     *
+     * @param  itile  tile index, which is the row index in the
+     *                compressed table
+     * @return  primitive array of this image's type containing the
+     *          tile pixels in column-major order
+     */
+    private Object decodeTile( long itile ) throws IOException {
+
+        /* Work out tile dimensions. */
+        int npix = 1;
+        long t = itile;
+        for ( int i = 0; i < dims_.length; i++ ) {
+            long ti = t % ntiles_[ i ];
+            t /= ntiles_[ i ];
+            npix *= (int) Math.min( tileDims_[ i ],
+                                    dims_[ i ] - ti * tileDims_[ i ] );
+        }
+
+        /* Read the row of the compressed table. */
+        byte[] rowBuf = new byte[ zrowLength_ ];
+        readRaw( itile * zrowLength_, rowBuf );
+        ByteBuffer row = ByteBuffer.wrap( rowBuf );
+
+        /* Decode the compressed data if present. */
+        byte[] cdata = readHeapData( row, icolCompressed_ );
+        if ( cdata != null && cdata.length > 0 ) {
+            if ( type_.isFloating() && ! isQuantized_ ) {
+                int nbyte = type_.getNumBytes();
+                return toTypedArray( decodeBytes( cdata, npix, nbyte ),
+                                     npix );
+            }
+            else {
+                int elSize = isQuantized_ ? 4 : type_.getNumBytes();
+                int[] ivals = decodeInts( cdata, npix, elSize );
+                return isQuantized_ ? unquantize( ivals, itile, row )
+                                    : toTypedArray( ivals );
+            }
+        }
+
+        /* Otherwise use losslessly compressed data if present. */
+        byte[] gdata = icolGzip_ >= 0 ? readHeapData( row, icolGzip_ )
+                                      : null;
+        if ( gdata != null && gdata.length > 0 ) {
+            int nbyte = type_.getNumBytes();
+            return toTypedArray( TileCompression
+                                .gunzip( gdata, npix * nbyte ), npix );
+        }
+
+        /* Otherwise use uncompressed data if present. */
+        byte[] udata = icolUncompressed_ >= 0
+                     ? readHeapData( row, icolUncompressed_ )
+                     : null;
+        if ( udata != null ) {
+            return readUncompressed( udata, colTypes_[ icolUncompressed_ ],
+                                     npix );
+        }
+        throw new IOException( "No data for tile " + ( itile + 1 ) );
+    }
+
+    /**
+     * Decodes compressed data as integer values.
+     *
+     * @param  cdata  compressed bytes
+     * @param  npix   number of values
+     * @param  elSize  number of bytes per uncompressed value,
+     *                 if not Rice-encoded
+     * @return   npix-element array of sign-extended values
+     */
+    private int[] decodeInts( byte[] cdata, int npix, int elSize )
+            throws IOException {
+        if ( TileCompression.RICE_1.equals( algorithm_ ) ) {
+            int[] ivals = TileCompression
+                         .decodeRice( cdata, npix, bytepix_, blocksize_ );
+            int shift = 32 - 8 * bytepix_;
+            if ( shift > 0 ) {
+                for ( int i = 0; i < npix; i++ ) {
+                    ivals[ i ] = ( ivals[ i ] << shift ) >> shift;
+                }
+            }
+            return ivals;
+        }
+        else {
+            ByteBuffer bbuf =
+                ByteBuffer.wrap( decodeBytes( cdata, npix, elSize ) );
+            int[] ivals = new int[ npix ];
+            for ( int i = 0; i < npix; i++ ) {
+                switch ( elSize ) {
+                    case 1:
+                        ivals[ i ] = bbuf.get();
+                        break;
+                    case 2:
+                        ivals[ i ] = bbuf.getShort();
+                        break;
+                    default:
+                        ivals[ i ] = bbuf.getInt();
+                }
+            }
+            return ivals;
+        }
+    }
+
+    /**
+     * Decodes byte-oriented compressed data.
+     *
+     * @param  cdata  compressed bytes
+     * @param  npix   number of values
+     * @param  elSize  number of bytes per value
+     * @return  big-endian uncompressed bytes
+     */
+    private byte[] decodeBytes( byte[] cdata, int npix, int elSize )
+            throws IOException {
+        int nbyte = npix * elSize;
+        if ( TileCompression.GZIP_1.equals( algorithm_ ) ) {
+            return TileCompression.gunzip( cdata, nbyte );
+        }
+        else if ( TileCompression.GZIP_2.equals( algorithm_ ) ) {
+            return TileCompression
+                  .unshuffle( TileCompression.gunzip( cdata, nbyte ), elSize );
+        }
+        else if ( TileCompression.NOCOMPRESS.equals( algorithm_ ) ) {
+            return cdata;
+        }
+        else {
+            throw new IOException( algorithm_ + " not supported for "
+                                 + "floating point data" );
+        }
+    }
+
+    /**
+     * Converts sign-extended integer values to an array of this image's
+     * integer type.
+     *
+     * @param  ivals  integer values
+     * @return  primitive array of this image's type
+     */
+    private Object toTypedArray( int[] ivals ) {
+        int n = ivals.length;
+        if ( type_ == Type.BYTE ) {
+            byte[] out = new byte[ n ];
+            for ( int i = 0; i < n; i++ ) {
+                out[ i ] = (byte) ivals[ i ];
+            }
+            return out;
+        }
+        else if ( type_ == Type.SHORT ) {
+            short[] out = new short[ n ];
+            for ( int i = 0; i < n; i++ ) {
+                out[ i ] = (short) ivals[ i ];
+            }
+            return out;
+        }
+        else {
+            assert type_ == Type.INT;
+            return ivals;
+        }
+    }
+
+    /**
+     * Converts big-endian bytes to an array of this image's type.
+     *
+     * @param  bytes  raw data
+     * @param  npix  number of values
+     * @return  primitive array of this image's type
+     */
+    private Object toTypedArray( byte[] bytes, int npix ) {
+        ByteBuffer bbuf = ByteBuffer.wrap( bytes );
+        if ( type_ == Type.BYTE ) {
+            return bytes;
+        }
+        else if ( type_ == Type.SHORT ) {
+            short[] out = new short[ npix ];
+            bbuf.asShortBuffer().get( out );
+            return out;
+        }
+        else if ( type_ == Type.INT ) {
+            int[] out = new int[ npix ];
+            bbuf.asIntBuffer().get( out );
+            return out;
+        }
+        else if ( type_ == Type.FLOAT ) {
+            float[] out = new float[ npix ];
+            bbuf.asFloatBuffer().get( out );
+            return out;
+        }
+        else {
+            assert type_ == Type.DOUBLE;
+            double[] out = new double[ npix ];
+            bbuf.asDoubleBuffer().get( out );
+            return out;
+        }
+    }
+
+    /**
+     * Converts quantized integer values to floating point values.
+     *
+     * @param  ivals  quantized values
+     * @param  itile  tile index
+     * @param  row   compressed table row for tile
+     * @return  float or double array
+     */
+    private Object unquantize( int[] ivals, long itile, ByteBuffer row ) {
+        double scale = getDoubleParam( row, icolScale_, "ZSCALE", 1.0 );
+        double zero = getDoubleParam( row, icolZero_, "ZZERO", 0.0 );
+        final boolean hasBlank;
+        final int zblank;
+        if ( icolBlank_ >= 0 ) {
+            hasBlank = true;
+            zblank = row.getInt( colOffsets_[ icolBlank_ ] );
+        }
+        else if ( hdr_.containsKey( "ZBLANK" ) ) {
+            hasBlank = true;
+            zblank = hdr_.getIntValue( "ZBLANK" );
+        }
+        else {
+            hasBlank = false;
+            zblank = 0;
+        }
+        int n = ivals.length;
+        double[] dvals = new double[ n ];
+        if ( ditherMethod_ == NO_DITHER ) {
+            for ( int i = 0; i < n; i++ ) {
+                int ival = ivals[ i ];
+                dvals[ i ] = hasBlank && ival == zblank
+                           ? Double.NaN
+                           : ival * scale + zero;
+            }
+        }
+        else {
+            float[] rands = getRandoms();
+            int iseed = (int) ( ( itile + dither0_ - 1 ) % N_RANDOM );
+            int nextrand = (int) ( rands[ iseed ] * 500 );
+            boolean isDither2 = ditherMethod_ == SUBTRACTIVE_DITHER_2;
+            for ( int i = 0; i < n; i++ ) {
+                int ival = ivals[ i ];
+                final double dval;
+                if ( hasBlank && ival == zblank ) {
+                    dval = Double.NaN;
+                }
+                else if ( isDither2 && ival == DITHER2_ZERO ) {
+                    dval = 0.0;
+                }
+                else {
+                    dval = ( ival - rands[ nextrand ] + 0.5 ) * scale + zero;
+                }
+                dvals[ i ] = dval;
+                if ( ++nextrand == N_RANDOM ) {
+                    if ( ++iseed == N_RANDOM ) {
+                        iseed = 0;
+                    }
+                    nextrand = (int) ( rands[ iseed ] * 500 );
+                }
+            }
+        }
+        if ( type_ == Type.FLOAT ) {
+            float[] fvals = new float[ n ];
+            for ( int i = 0; i < n; i++ ) {
+                fvals[ i ] = (float) dvals[ i ];
+            }
+            return fvals;
+        }
+        else {
+            return dvals;
+        }
+    }
+
+    /**
+     * Reads uncompressed pixel data stored in a variable-length column.
+     *
+     * @param  udata  raw bytes
+     * @param  tchr   FITS data type character for the column elements
+     * @param  npix   number of pixels
+     * @return  primitive array of this image's type
+     */
+    private Object readUncompressed( byte[] udata, char tchr, int npix )
+            throws IOException {
+        boolean isFloatCol = tchr == 'E' || tchr == 'D';
+        if ( "BIJED".indexOf( tchr ) >= 0 &&
+             getElementSize( tchr ) == type_.getNumBytes() &&
+             isFloatCol == type_.isFloating() ) {
+            return toTypedArray( udata, npix );
+        }
+        ByteBuffer bbuf = ByteBuffer.wrap( udata );
+        Object out = type_.newArray( npix );
+        for ( int i = 0; i < npix; i++ ) {
+            final double dval;
+            switch ( tchr ) {
+                case 'B':
+                    dval = bbuf.get() & 0xff;
+                    break;
+                case 'I':
+                    dval = bbuf.getShort();
+                    break;
+                case 'J':
+                    dval = bbuf.getInt();
+                    break;
+                case 'E':
+                    dval = bbuf.getFloat();
+                    break;
+                case 'D':
+                    dval = bbuf.getDouble();
+                    break;
+                default:
+                    throw new IOException( "Unsupported UNCOMPRESSED_DATA "
+                                         + "type " + tchr );
+            }
+            if ( type_ == Type.BYTE ) {
+                ((byte[]) out)[ i ] = (byte) dval;
+            }
+            else if ( type_ == Type.SHORT ) {
+                ((short[]) out)[ i ] = (short) dval;
+            }
+            else if ( type_ == Type.INT ) {
+                ((int[]) out)[ i ] = (int) dval;
+            }
+            else if ( type_ == Type.FLOAT ) {
+                ((float[]) out)[ i ] = (float) dval;
+            }
+            else {
+                ((double[]) out)[ i ] = dval;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns a per-tile floating point parameter,
+     * taken from a table column or a header keyword.
+     *
+     * @param  row  compressed table row
+     * @param  icol  column index, or -1
+     * @param  key   header keyword used if there is no column
+     * @param  dflt  default value
+     * @return   parameter value
+     */
+    private double getDoubleParam( ByteBuffer row, int icol, String key,
+                                   double dflt ) {
+        if ( icol >= 0 ) {
+            int off = colOffsets_[ icol ];
+            return colTypes_[ icol ] == 'E' ? row.getFloat( off )
+                                            : row.getDouble( off );
+        }
+        else {
+            return hdr_.getDoubleValue( key, dflt );
+        }
+    }
+
+    /**
+     * Reads the heap data referenced by a variable-length column
+     * descriptor.
+     *
+     * @param  row  compressed table row
+     * @param  icol  column index
+     * @return  bytes referenced by descriptor
+     */
+    private byte[] readHeapData( ByteBuffer row, int icol )
+            throws IOException {
+        int off = colOffsets_[ icol ];
+        boolean isQ = colIsQ_[ icol ];
+        long count = isQ ? row.getLong( off )
+                         : row.getInt( off ) & 0xffffffffL;
+        long hoff = isQ ? row.getLong( off + 8 )
+                        : row.getInt( off + 4 ) & 0xffffffffL;
+        long nbyte = count * getElementSize( colTypes_[ icol ] );
+        if ( nbyte > Integer.MAX_VALUE ) {
+            throw new IOException( "Compressed tile too large" );
+        }
+        byte[] buf = new byte[ (int) nbyte ];
+        readRaw( heapStart_ + hoff, buf );
+        return buf;
+    }
+
+    /**
+     * Reads bytes from the data part of the compressed HDU.
+     *
+     * @param  off  offset from start of data part
+     * @param  buf  destination buffer, filled on exit
+     */
+    private void readRaw( long off, byte[] buf ) throws IOException {
+        if ( data_ != null ) {
+            if ( off + buf.length > data_.length ) {
+                throw new IOException( "Read beyond end of data" );
+            }
+            System.arraycopy( data_, (int) off, buf, 0, buf.length );
+        }
+        else {
+            synchronized ( stream_ ) {
+                ((RandomAccess) stream_).seek( strmBase_ + off );
+                stream_.readFully( buf );
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes in a FITS binary table element.
+     *
+     * @param  tchr  data type character
+     * @return  element size in bytes
+     */
+    private static int getElementSize( char tchr ) {
+        switch ( tchr ) {
+            case 'L':
+            case 'B':
+            case 'A':
+            case 'X':
+                return 1;
+            case 'I':
+                return 2;
+            case 'J':
+            case 'E':
+                return 4;
+            case 'K':
+            case 'D':
+            case 'C':
+                return 8;
+            case 'M':
+                return 16;
+            default:
+                throw new IllegalArgumentException( "Unknown TFORM type "
+                                                  + tchr );
+        }
+    }
+
+    /**
+     * Returns the table of pseudo-random numbers used for
+     * subtractive dithering, as defined by the FITS convention.
+     *
+     * @return  N_RANDOM-element array
+     */
+    private static synchronized float[] getRandoms() {
+        if ( randoms_ == null ) {
+            float[] rands = new float[ N_RANDOM ];
+            double a = 16807.0;
+            double m = 2147483647.0;
+            double seed = 1.0;
+            for ( int i = 0; i < N_RANDOM; i++ ) {
+                double temp = a * seed;
+                seed = temp - m * ( (int) ( temp / m ) );
+                rands[ i ] = (float) ( seed / m );
+            }
+            randoms_ = rands;
+        }
+        return randoms_;
+    }
+}
@@ -0,0 +1,713 @@
+package uk.ac.starlink.fits;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import nom.tam.fits.FitsException;
+import nom.tam.fits.Header;
+import nom.tam.fits.HeaderCard;
+import uk.ac.starlink.table.ColumnBatchCursor;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.TableFormatException;
+import uk.ac.starlink.table.WrapperStarTable;
+
+/**
+ * StarTable implementation for FITS binary tables stored using the
+ * tiled table compression convention (ZTABLE=T).
+ *
+ * <p>The compressed table is presented as a BINTABLE with the
+ * uncompressed header, reading its data through a virtual
+ * byte stream that decompresses tiles of rows on demand.
+ * Decompressed tiles are held in a bounded cache shared between
+ * readers, so random access only decodes the tiles it touches.
+ * Row splittables divide the table on tile boundaries,
+ * so that parallel scans decompress different tiles in different threads.
+ *
+ * <p>Variable-length array columns in the uncompressed table,
+ * and quantized floating point columns, are not supported.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ * @see  <a href="https://fits.gsfc.nasa.gov/registry/tiletablecompression.html"
+ *          >Tiled Table Compression Convention</a>
+ */
+class TileCompressedStarTable extends WrapperStarTable {
+
+    private final long nrow_;
+    private final int tileRows_;
+
+    private static final Pattern ZFORM_REGEX =
+        Pattern.compile( "([0-9]*)([LXBIJKAEDCMPQ])(.*)" );
+    private static final Pattern TFORM_REGEX =
+        Pattern.compile( "1?([PQ])B(\\(.*\\))?" );
+    private static final Set<String> DROP_KEYS =
+        new HashSet<String>( Arrays.asList( new String[] {
+            "ZTABLE", "ZTILELEN", "ZNAXIS1", "ZNAXIS2", "ZPCOUNT", "ZTHEAP",
+            "THEAP", "CHECKSUM", "DATASUM", "ZHECKSUM", "ZDATASUM", "END",
+        } ) );
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.fits" );
+
+    /**
+     * Constructor.
+     *
+     * @param  base  table reading the uncompressed byte stream
+     * @param  tileRows   number of rows per compression tile
+     */
+    private TileCompressedStarTable( StarTable base, int tileRows ) {
+        super( base );
+        nrow_ = base.getRowCount();
+        tileRows_ = tileRows;
+    }
+
+    @Override
+    public RowSplittable getRowSplittable() throws IOException {
+        return new TileSplittable( baseTable, tileRows_, -1L, nrow_ );
+    }
+
+    @Override
+    public ColumnBatchCursor getColumnBatchCursor( int[] icols, int maxBatch )
+            throws IOException {
+        return baseTable.getColumnBatchCursor( icols, maxBatch );
+    }
+
+    /**
+     * Indicates whether a FITS header describes a tile-compressed
+     * binary table.
+     *
+     * @param  hdr  header
+     * @return  true iff hdr has ZTABLE=T
+     */
+    public static boolean isCompressedTable( Header hdr ) {
+        return hdr.containsKey( "ZTABLE" )
+            && hdr.getBooleanValue( "ZTABLE", false );
+    }
+
+    /**
+     * Returns a table that reads a tile-compressed binary table.
+     * A TableFormatException is thrown if the compression details
+     * are not supported by this implementation.
+     *
+     * @param  zhdr  header of compressed BINTABLE HDU
+     * @param  rawFact  random-access factory for the compressed data part
+     * @param   wide  convention for representing extended columns;
+     *                use null to avoid use of extended columns
+     * @return  table presenting uncompressed data
+     */
+    public static StarTable createTable( Header zhdr, InputFactory rawFact,
+                                         WideFits wide )
+            throws IOException, FitsException {
+        if ( ! rawFact.isRandom() ) {
+            throw new TableFormatException( "Tile-compressed table data "
+                                          + "not random access" );
+        }
+        TileLayout layout = new TileLayout( zhdr );
+        Header hdr = createUncompressedHeader( zhdr );
+        InputFactory tileFact = new TileInputFactory( layout, rawFact );
+        StarTable base = BintableStarTable.createTable( hdr, tileFact, wide );
+        return new TileCompressedStarTable( base, layout.tileRows_ );
+    }
+
+    /**
+     * Constructs the header of the uncompressed table corresponding
+     * to a compressed one.
+     *
+     * @param  zhdr  compressed table header
+     * @return  uncompressed table header
+     */
+    private static Header createUncompressedHeader( Header zhdr )
+            throws FitsException {
+        List<String> cards = new ArrayList<String>();
+        for ( HeaderCard card : FitsConstants.headerIterable( zhdr ) ) {
+            String key = card.getKey();
+            String comment = card.getComment();
+            if ( key == null ) {
+                cards.add( card.toString() );
+            }
+            else if ( DROP_KEYS.contains( key ) ||
+                      key.startsWith( "ZFORM" ) ||
+                      key.startsWith( "ZCTYP" ) ) {
+                /* Omit cards relating only to the compressed form. */
+            }
+            else if ( "NAXIS1".equals( key ) ) {
+                cards.add( new HeaderCard( key, zhdr.getLongValue( "ZNAXIS1" ),
+                                           comment ).toString() );
+            }
+            else if ( "NAXIS2".equals( key ) ) {
+                cards.add( new HeaderCard( key, zhdr.getLongValue( "ZNAXIS2" ),
+                                           comment ).toString() );
+            }
+            else if ( "PCOUNT".equals( key ) ) {
+                cards.add( new HeaderCard( key, 0L, comment ).toString() );
+            }
+            else if ( key.startsWith( "TFORM" ) ) {
+                String zform =
+                    zhdr.getStringValue( "Z" + key.substring( 1 ) );
+                cards.add( new HeaderCard( key, zform, comment ).toString() );
+            }
+            else {
+                cards.add( card.toString() );
+            }
+        }
+        return new Header( cards.toArray( new String[ 0 ] ) );
+    }
+
+    /**
+     * Describes the layout of a compressed table.
+     */
+    private static class TileLayout {
+        final long nrow_;
+        final int tileRows_;
+        final long ntile_;
+        final int rowLength_;
+        final int zrowLength_;
+        final long heapStart_;
+        final ColumnTiler[] tilers_;
+
+        /**
+         * Constructor.
+         *
+         * @param  zhdr  compressed table header
+         */
+        TileLayout( Header zhdr ) throws TableFormatException {
+            nrow_ = zhdr.getLongValue( "ZNAXIS2" );
+            long tileRows = zhdr.getLongValue( "ZTILELEN", nrow_ );
+            ntile_ = zhdr.getLongValue( "NAXIS2" );
+            zrowLength_ = zhdr.getIntValue( "NAXIS1" );
+            rowLength_ = zhdr.getIntValue( "ZNAXIS1" );
+            heapStart_ = zhdr.containsKey( "THEAP" )
+                       ? zhdr.getLongValue( "THEAP" )
+                       : (long) zrowLength_ * ntile_;
+            if ( tileRows <= 0 || tileRows * rowLength_ > Integer.MAX_VALUE ) {
+                throw new TableFormatException( "Unsuitable ZTILELEN "
+                                              + tileRows );
+            }
+            tileRows_ = (int) tileRows;
+            if ( ( nrow_ + tileRows_ - 1 ) / tileRows_ != ntile_ ) {
+                throw new TableFormatException( "Tile count mismatch" );
+            }
+            int ncol = zhdr.getIntValue( "TFIELDS" );
+            tilers_ = new ColumnTiler[ ncol ];
+            int zoff = 0;
+            int off = 0;
+            for ( int ic = 0; ic < ncol; ic++ ) {
+                int jc = ic + 1;
+                Matcher tmatcher =
+                    TFORM_REGEX.matcher( zhdr.getStringValue( "TFORM" + jc )
+                                             .trim() );
+                if ( ! tmatcher.matches() ) {
+                    throw new TableFormatException( "Compressed column "
+                                                  + jc + " not VLA" );
+                }
+                boolean isQ = "Q".equals( tmatcher.group( 1 ) );
+                String zform = zhdr.getStringValue( "ZFORM" + jc );
+                String ctype = zhdr.getStringValue( "ZCTYP" + jc );
+                if ( zhdr.containsKey( "ZQUANT" + jc ) ) {
+                    throw new TableFormatException( "Quantized columns "
+                                                  + "not supported" );
+                }
+                ColumnTiler tiler =
+                    new ColumnTiler( zform, ctype, isQ, zoff, off );
+                tilers_[ ic ] = tiler;
+                zoff += isQ ? 16 : 8;
+                off += tiler.width_;
+            }
+            if ( zoff != zrowLength_ || off != rowLength_ ) {
+                throw new TableFormatException( "Compressed table row length "
+                                              + "mismatch" );
+            }
+        }
+
+        /**
+         * Returns the number of rows in a given tile.
+         *
+         * @param  itile  tile index
+         * @return  row count
+         */
+        int getTileRowCount( long itile ) {
+            return (int) Math.min( tileRows_, nrow_ - itile * tileRows_ );
+        }
+    }
+
+    /**
+     * Decompresses the data for one column of a tile.
+     */
+    private static class ColumnTiler {
+        final String algorithm_;
+        final boolean isQ_;
+        final int zoff_;
+        final int off_;
+        final int width_;
+        final int elSize_;
+        final int nel_;
+
+        /**
+         * Constructor.
+         *
+         * @param  zform   TFORM of uncompressed column
+         * @param  ctype   compression algorithm name
+         * @param  isQ     true for 64-bit descriptors, false for 32-bit
+         * @param  zoff    offset of descriptor in compressed row
+         * @param  off     offset of cell in uncompressed row
+         */
+        ColumnTiler( String zform, String ctype, boolean isQ,
+                     int zoff, int off )
+                throws TableFormatException {
+            Matcher zmatcher = zform == null
+                             ? null
+                             : ZFORM_REGEX.matcher( zform.trim() );
+            if ( zmatcher == null || ! zmatcher.matches() ) {
+                throw new TableFormatException( "Bad ZFORM " + zform );
+            }
+            String srep = zmatcher.group( 1 );
+            int repeat = srep.length() == 0 ? 1 : Integer.parseInt( srep );
+            char tchr = zmatcher.group( 2 ).charAt( 0 );
+            final int elSize;
+            switch ( tchr ) {
+                case 'L':
+                case 'B':
+                case 'A':
+                case 'X':
+                    elSize = 1;
+                    break;
+                case 'I':
+                    elSize = 2;
+                    break;
+                case 'J':
+                case 'E':
+                case 'C':   // per component
+                    elSize = 4;
+                    break;
+                case 'K':
+                case 'D':
+                case 'M':   // per component
+                    elSize = 8;
+                    break;
+                default:
+                    throw new TableFormatException( "Variable-length columns "
+                                                  + "not supported" );
+            }
+            algorithm_ = TileCompression.getAlgorithm( ctype );
+            if ( algorithm_ == null ) {
+                throw new TableFormatException( "Unsupported compression "
+                                              + ctype );
+            }
+            if ( TileCompression.RICE_1.equals( algorithm_ ) &&
+                 "BIJ".indexOf( tchr ) < 0 ) {
+                throw new TableFormatException( "RICE_1 unsupported for "
+                                              + zform );
+            }
+            elSize_ = elSize;
+            if ( tchr == 'X' ) {
+                nel_ = ( repeat + 7 ) / 8;
+            }
+            else if ( tchr == 'C' || tchr == 'M' ) {
+                nel_ = 2 * repeat;
+            }
+            else {
+                nel_ = repeat;
+            }
+            width_ = nel_ * elSize_;
+            isQ_ = isQ;
+            zoff_ = zoff;
+            off_ = off;
+        }
+
+        /**
+         * Decodes the compressed bytes for this column in a tile.
+         *
+         * @param  cdata  compressed bytes
+         * @param  nrow   number of rows in tile
+         * @return  big-endian bytes giving concatenated cell values
+         */
+        byte[] decode( byte[] cdata, int nrow ) throws IOException {
+            int nbyte = nrow * width_;
+            if ( TileCompression.GZIP_1.equals( algorithm_ ) ) {
+                return TileCompression.gunzip( cdata, nbyte );
+            }
+            else if ( TileCompression.GZIP_2.equals( algorithm_ ) ) {
+                return TileCompression
+                      .unshuffle( TileCompression.gunzip( cdata, nbyte ),
+                                  elSize_ );
+            }
+            else if ( TileCompression.RICE_1.equals( algorithm_ ) ) {
+                int nval = nbyte / elSize_;
+                int[] ivals =
+                    TileCompression.decodeRice( cdata, nval, elSize_, 32 );
+                ByteBuffer bbuf = ByteBuffer.allocate( nbyte );
+                for ( int i = 0; i < nval; i++ ) {
+                    int ival = ivals[ i ];
+                    switch ( elSize_ ) {
+                        case 1:
+                            bbuf.put( (byte) ival );
+                            break;
+                        case 2:
+                            bbuf.putShort( (short) ival );
+                            break;
+                        default:
+                            bbuf.putInt( ival );
+                    }
+                }
+                return bbuf.array();
+            }
+            else {
+                assert TileCompression.NOCOMPRESS.equals( algorithm_ );
+                if ( cdata.length < nbyte ) {
+                    throw new TableFormatException( "Uncompressed tile "
+                                                  + "too short" );
+                }
+                return cdata;
+            }
+        }
+    }
+
+    /**
+     * InputFactory that supplies the uncompressed data stream.
+     */
+    private static class TileInputFactory extends InputFactory {
+        final TileLayout layout_;
+        final InputFactory rawFact_;
+        final TileCompression.TileCache<ByteBuffer> cache_;
+
+        /**
+         * Constructor.
+         *
+         * @param  layout  compressed table layout
+         * @param  rawFact  random-access factory for compressed data
+         */
+        TileInputFactory( TileLayout layout, InputFactory rawFact ) {
+            layout_ = layout;
+            rawFact_ = rawFact;
+            cache_ = new TileCompression.TileCache<ByteBuffer>(
+                         TileCompression.DEFAULT_CACHE_BYTES );
+        }
+
+        public boolean isRandom() {
+            return true;
+        }
+
+        public BasicInput createInput( boolean isSeq ) {
+            return new TileInput( this );
+        }
+
+        public void close() throws IOException {
+            rawFact_.close();
+        }
+    }
+
+    /**
+     * Random-access BasicInput reading the uncompressed data stream.
+     * Each instance has its own raw input, so instances used from
+     * different threads decompress tiles concurrently.
+     */
+    private static class TileInput
+            implements BasicInput, TileCompression.TileReader<ByteBuffer> {
+        private final TileLayout layout_;
+        private final InputFactory rawFact_;
+        private final TileCompression.TileCache<ByteBuffer> cache_;
+        private final long tileBytes_;
+        private final byte[] scratch_;
+        private BasicInput rawIn_;
+        private ByteBuffer tile_;
+        private long tileStart_;
+        private long tileEnd_;
+        private long pos_;
+
+        /**
+         * Constructor.
+         *
+         * @param  fact  factory
+         */
+        TileInput( TileInputFactory fact ) {
+            layout_ = fact.layout_;
+            rawFact_ = fact.rawFact_;
+            cache_ = fact.cache_;
+            tileBytes_ = (long) layout_.tileRows_ * layout_.rowLength_;
+            scratch_ = new byte[ 8 ];
+            tileStart_ = -1;
+            tileEnd_ = -1;
+        }
+
+        public byte readByte() throws IOException {
+            int ioff = prepare( 1 );
+            if ( ioff >= 0 ) {
+                pos_ += 1;
+                return tile_.get( ioff );
+            }
+            else {
+                return readScratch( 1 ).get( 0 );
+            }
+        }
+
+        public short readShort() throws IOException {
+            int ioff = prepare( 2 );
+            if ( ioff >= 0 ) {
+                pos_ += 2;
+                return tile_.getShort( ioff );
+            }
+            else {
+                return readScratch( 2 ).getShort( 0 );
+            }
+        }
+
+        public int readInt() throws IOException {
+            int ioff = prepare( 4 );
+            if ( ioff >= 0 ) {
+                pos_ += 4;
+                return tile_.getInt( ioff );
+            }
+            else {
+                return readScratch( 4 ).getInt( 0 );
+            }
+        }
+
+        public long readLong() throws IOException {
+            int ioff = prepare( 8 );
+            if ( ioff >= 0 ) {
+                pos_ += 8;
+                return tile_.getLong( ioff );
+            }
+            else {
+                return readScratch( 8 ).getLong( 0 );
+            }
+        }
+
+        public float readFloat() throws IOException {
+            return Float.intBitsToFloat( readInt() );
+        }
+
+        public double readDouble() throws IOException {
+            return Double.longBitsToDouble( readLong() );
+        }
+
+        public void readBytes( byte[] buf ) throws IOException {
+            readBytes( buf, 0, buf.length );
+        }
+
+        public void skip( long nbyte ) {
+            pos_ += nbyte;
+        }
+
+        public boolean isRandom() {
+            return true;
+        }
+
+        public void seek( long offset ) {
+            pos_ = offset;
+        }
+
+        public long getOffset() {
+            return pos_;
+        }
+
+        public void close() throws IOException {
+            if ( rawIn_ != null ) {
+                rawIn_.close();
+                rawIn_ = null;
+            }
+            tile_ = null;
+            tileStart_ = -1;
+            tileEnd_ = -1;
+        }
+
+        public ByteBuffer readTile( long itile ) throws IOException {
+            if ( rawIn_ == null ) {
+                rawIn_ = rawFact_.createInput( false );
+            }
+            int nr = layout_.getTileRowCount( itile );
+            int rowLeng = layout_.rowLength_;
+            byte[] tbuf = new byte[ nr * rowLeng ];
+            long zrowStart = itile * layout_.zrowLength_;
+            for ( ColumnTiler tiler : layout_.tilers_ ) {
+                rawIn_.seek( zrowStart + tiler.zoff_ );
+                final long count;
+                final long offset;
+                if ( tiler.isQ_ ) {
+                    count = rawIn_.readLong();
+                    offset = rawIn_.readLong();
+                }
+                else {
+                    count = rawIn_.readInt() & 0xffffffffL;
+                    offset = rawIn_.readInt() & 0xffffffffL;
+                }
+                if ( count > Integer.MAX_VALUE ) {
+                    throw new TableFormatException( "Compressed tile "
+                                                  + "too large" );
+                }
+                byte[] cdata = new byte[ (int) count ];
+                rawIn_.seek( layout_.heapStart_ + offset );
+                rawIn_.readBytes( cdata );
+                byte[] cells = tiler.decode( cdata, nr );
+                int width = tiler.width_;
+                for ( int ir = 0; ir < nr; ir++ ) {
+                    System.arraycopy( cells, ir * width,
+                                      tbuf, ir * rowLeng + tiler.off_, width );
+                }
+            }
+            return ByteBuffer.wrap( tbuf );
+        }
+
+        public int getByteCount( ByteBuffer tile ) {
+            return tile.capacity();
+        }
+
+        /**
+         * Ensures that the current tile contains the next few bytes
+         * if possible.
+         *
+         * @param  nbyte  number of bytes required
+         * @return  offset into current tile of the current position,
+         *          or -1 if the required bytes straddle a tile boundary
+         */
+        private int prepare( int nbyte ) throws IOException {
+            if ( pos_ < tileStart_ || pos_ >= tileEnd_ ) {
+                loadTile( pos_ / tileBytes_ );
+            }
+            return pos_ + nbyte <= tileEnd_ ? (int) ( pos_ - tileStart_ )
+                                            : -1;
+        }
+
+        /**
+         * Reads bytes into the scratch buffer, crossing tile boundaries
+         * as required.
+         *
+         * @param  nbyte  number of bytes to read
+         * @return   big-endian buffer wrapping the scratch array
+         */
+        private ByteBuffer readScratch( int nbyte ) throws IOException {
+            readBytes( scratch_, 0, nbyte );
+            return ByteBuffer.wrap( scratch_ );
+        }
+
+        /**
+         * Reads bytes from the current position into an array.
+         *
+         * @param  buf  destination buffer
+         * @param  off  offset into buf
+         * @param  leng  number of bytes to read
+         */
+        private void readBytes( byte[] buf, int off, int leng )
+                throws IOException {
+            while ( leng > 0 ) {
+                if ( pos_ < tileStart_ || pos_ >= tileEnd_ ) {
+                    loadTile( pos_ / tileBytes_ );
+                }
+                int n = (int) Math.min( leng, tileEnd_ - pos_ );
+                int ioff = (int) ( pos_ - tileStart_ );
+                System.arraycopy( tile_.array(), ioff, buf, off, n );
+                pos_ += n;
+                off += n;
+                leng -= n;
+            }
+        }
+
+        /**
+         * Makes a given tile current.
+         *
+         * @param  itile  tile index
+         */
+        private void loadTile( long itile ) throws IOException {
+            if ( itile < 0 || itile >= layout_.ntile_ ) {
+                throw new IOException( "Read beyond end of table data" );
+            }
+            tile_ = cache_.getTile( itile, this );
+            tileStart_ = itile * tileBytes_;
+            tileEnd_ = tileStart_ + tile_.capacity();
+        }
+    }
+
+    /**
+     * RowSplittable that splits only on tile boundaries.
+     */
+    private static class TileSplittable implements RowSplittable {
+
+        private final StarTable table_;
+        private final int tileRows_;
+        private final RowAccess access_;
+        private long irow_;
+        private final long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  table  random-access table
+         * @param  tileRows  number of rows per tile
+         * @param  irow   row index immediately before start of
+         *                iteration range
+         * @param  nrow   row index immediately after end of iteration range
+         */
+        TileSplittable( StarTable table, int tileRows, long irow, long nrow )
+                throws IOException {
+            table_ = table;
+            tileRows_ = tileRows;
+            access_ = table.getRowAccess();
+            irow_ = irow;
+            nrow_ = nrow;
+        }
+
+        public long splittableSize() {
+            return nrow_ - irow_;
+        }
+
+        public TileSplittable split() {
+            long nr = nrow_ - irow_ - 1;
+            long mid = irow_ + 1 + nr / 2;
+            mid = ( mid / tileRows_ ) * tileRows_;
+            if ( mid <= irow_ + 1 ) {
+                mid += tileRows_;
+            }
+            if ( mid >= nrow_ ) {
+                return null;
+            }
+            final TileSplittable split;
+            try {
+                split = new TileSplittable( table_, tileRows_, irow_, mid );
+            }
+            catch ( IOException e ) {
+                logger_.log( Level.WARNING,
+                             "Split failed with IOException: " + e, e );
+                return null;
+            }
+            irow_ = mid - 1;
+            return split;
+        }
+
+        public LongSupplier rowIndex() {
+            return () -> irow_;
+        }
+
+        public boolean next() throws IOException {
+            if ( irow_ < nrow_ - 1 ) {
+                irow_++;
+                access_.setRowIndex( irow_ );
+                return true;
+            }
+            else {
+                return false;
+            }
+        }
+
+        public Object getCell( int icol ) throws IOException {
+            return access_.getCell( icol );
+        }
+
+        public Object[] getRow() throws IOException {
+            return access_.getRow();
+        }
+
+        public void close() throws IOException {
+            access_.close();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package uk.ac.starlink.fits;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import uk.ac.starlink.table.TableFormatException;
+
+/**
+ * Utilities for decoding data stored using the FITS tiled compression
+ * conventions for images and tables.
+ *
+ * <p>Supported algorithms are GZIP_1, GZIP_2, RICE_1 and NOCOMPRESS.
+ * The Rice decoder follows the reference implementation in CFITSIO.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ * @see  <a href="https://fits.gsfc.nasa.gov/registry/tilecompression.html"
+ *          >FITS Tiled Compression Conventions</a>
+ */
+class TileCompression {
+
+    /** Compression type name for GZIP algorithm. */
+    public static final String GZIP_1 = "GZIP_1";
+
+    /** Compression type name for shuffled GZIP algorithm. */
+    public static final String GZIP_2 = "GZIP_2";
+
+    /** Compression type name for Rice algorithm. */
+    public static final String RICE_1 = "RICE_1";
+
+    /** Compression type name for uncompressed data. */
+    public static final String NOCOMPRESS = "NOCOMPRESS";
+
+    /** Default maximum number of decompressed bytes held in a tile cache. */
+    public static final long DEFAULT_CACHE_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Private constructor prevents instantiation.
+     */
+    private TileCompression() {
+    }
+
+    /**
+     * Returns the canonical name for a compression type name,
+     * or null if it's not supported.
+     *
+     * @param  name  ZCMPTYPE or ZCTYPn value
+     * @return  one of GZIP_1, GZIP_2, RICE_1, NOCOMPRESS, or null
+     */
+    public static String getAlgorithm( String name ) {
+        if ( name == null ) {
+            return null;
+        }
+        String uname = name.trim().toUpperCase();
+        if ( GZIP_1.equals( uname ) || GZIP_2.equals( uname ) ||
+             RICE_1.equals( uname ) || NOCOMPRESS.equals( uname ) ) {
+            return uname;
+        }
+        else if ( "RICE_ONE".equals( uname ) ) {
+            return RICE_1;
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Decompresses gzip-compressed bytes into a buffer of known size.
+     *
+     * @param  cdata  compressed bytes
+     * @param  nbyte  expected number of decompressed bytes
+     * @return  nbyte-element array of decompressed bytes
+     */
+    public static byte[] gunzip( byte[] cdata, int nbyte ) throws IOException {
+        byte[] out = new byte[ nbyte ];
+        try ( InputStream in =
+                  new GZIPInputStream( new ByteArrayInputStream( cdata ) ) ) {
+            int off = 0;
+            while ( off < nbyte ) {
+                int n = in.read( out, off, nbyte - off );
+                if ( n < 0 ) {
+                    throw new TableFormatException( "Compressed tile too short"
+                                                  + " (" + off + " < "
+                                                  + nbyte + ")" );
+                }
+                off += n;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Reverses the byte shuffling applied by the GZIP_2 algorithm.
+     * Shuffled data stores the most significant byte of every element,
+     * followed by the next most significant byte of every element, etc.
+     *
+     * @param  data  shuffled data
+     * @param  elSize  number of bytes per element
+     * @return   unshuffled data
+     */
+    public static byte[] unshuffle( byte[] data, int elSize ) {
+        if ( elSize <= 1 ) {
+            return data;
+        }
+        int nel = data.length / elSize;
+        byte[] out = new byte[ data.length ];
+        for ( int ib = 0; ib < elSize; ib++ ) {
+            int base = ib * nel;
+            for ( int iel = 0; iel < nel; iel++ ) {
+                out[ iel * elSize + ib ] = data[ base + iel ];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Decodes Rice-compressed integer data.
+     * Results are truncated to <code>bytepix</code> bytes,
+     * so for bytepix less than 4 the caller must interpret them
+     * with the appropriate signedness.
+     *
+     * @param  cdata  compressed bytes
+     * @param  nval   number of values to decode
+     * @param  bytepix  number of bytes per value, 1, 2 or 4
+     * @param  blocksize  number of values per coding block
+     * @return   nval-element array of decoded values
+     */
+    public static int[] decodeRice( byte[] cdata, int nval, int bytepix,
+                                    int blocksize )
+            throws IOException {
+        final int fsbits;
+        final int fsmax;
+        final int bbits = 8 * bytepix;
+        switch ( bytepix ) {
+            case 1:
+                fsbits = 3;
+                fsmax = 6;
+                break;
+            case 2:
+                fsbits = 4;
+                fsmax = 14;
+                break;
+            case 4:
+                fsbits = 5;
+                fsmax = 25;
+                break;
+            default:
+                throw new TableFormatException( "Unsupported Rice BYTEPIX "
+                                              + bytepix );
+        }
+        int[] out = new int[ nval ];
+        try {
+            int ic = 0;
+            int lastpix = 0;
+            for ( int i = 0; i < bytepix; i++ ) {
+                lastpix = ( lastpix << 8 ) | ( cdata[ ic++ ] & 0xff );
+            }
+            int b = cdata[ ic++ ] & 0xff;
+            int nbits = 8;
+            for ( int i = 0; i < nval; ) {
+
+                /* Read the FS value for this block. */
+                nbits -= fsbits;
+                while ( nbits < 0 ) {
+                    b = ( b << 8 ) | ( cdata[ ic++ ] & 0xff );
+                    nbits += 8;
+                }
+                int fs = ( b >>> nbits ) - 1;
+                b &= ( 1 << nbits ) - 1;
+                int imax = Math.min( i + blocksize, nval );
+
+                /* Low entropy case: all differences are zero. */
+                if ( fs < 0 ) {
+                    for ( ; i < imax; i++ ) {
+                        out[ i ] = lastpix;
+                    }
+                }
+
+                /* High entropy case: differences stored directly. */
+                else if ( fs == fsmax ) {
+                    for ( ; i < imax; i++ ) {
+                        int k = bbits - nbits;
+                        int diff = k < 32 ? b << k : 0;
+                        for ( k -= 8; k >= 0; k -= 8 ) {
+                            b = cdata[ ic++ ] & 0xff;
+                            diff |= b << k;
+                        }
+                        if ( nbits > 0 ) {
+                            b = cdata[ ic++ ] & 0xff;
+                            diff |= b >>> -k;
+                            b &= ( 1 << nbits ) - 1;
+                        }
+                        else {
+                            b = 0;
+                        }
+                        lastpix = undiff( diff, lastpix, bytepix );
+                        out[ i ] = lastpix;
+                    }
+                }
+
+                /* Normal case: Rice coding. */
+                else {
+                    for ( ; i < imax; i++ ) {
+                        while ( b == 0 ) {
+                            nbits += 8;
+                            b = cdata[ ic++ ] & 0xff;
+                        }
+                        int nzero = nbits - ( 32 - Integer
+                                                  .numberOfLeadingZeros( b ) );
+                        nbits -= nzero + 1;
+                        b ^= 1 << nbits;
+                        nbits -= fs;
+                        while ( nbits < 0 ) {
+                            b = ( b << 8 ) | ( cdata[ ic++ ] & 0xff );
+                            nbits += 8;
+                        }
+                        int diff = ( nzero << fs ) | ( b >>> nbits );
+                        b &= ( 1 << nbits ) - 1;
+                        lastpix = undiff( diff, lastpix, bytepix );
+                        out[ i ] = lastpix;
+                    }
+                }
+            }
+        }
+        catch ( ArrayIndexOutOfBoundsException e ) {
+            throw new TableFormatException( "Rice compressed data truncated" );
+        }
+        return out;
+    }
+
+    /**
+     * Undoes the zigzag mapping and differencing of a Rice-coded value.
+     *
+     * @param  diff  mapped difference
+     * @param  lastpix  previous value
+     * @param  bytepix  number of bytes per value
+     * @return  decoded value, truncated to bytepix bytes
+     */
+    private static int undiff( int diff, int lastpix, int bytepix ) {
+        int d = ( diff & 1 ) == 0 ? diff >>> 1 : ~( diff >>> 1 );
+        int value = d + lastpix;
+        switch ( bytepix ) {
+            case 1:
+                return value & 0xff;
+            case 2:
+                return value & 0xffff;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Bounded cache of decoded tiles, discarding the least recently used
+     * entries when a byte limit is exceeded.
+     * Tiles are decoded outside of any lock,
+     * so that different threads may decode different tiles concurrently.
+     */
+    public static class TileCache<T> {
+
+        private final long maxBytes_;
+        private final Map<Long,Entry<T>> map_;
+        private long nbytes_;
+
+        /**
+         * Constructor.
+         *
+         * @param  maxBytes  approximate maximum number of bytes to retain
+         */
+        public TileCache( long maxBytes ) {
+            maxBytes_ = maxBytes;
+            map_ = new LinkedHashMap<Long,Entry<T>>( 16, 0.75f, true );
+        }
+
+        /**
+         * Returns a tile, decoding it if it is not already cached.
+         *
+         * @param  itile   tile index
+         * @param  reader  decodes tiles
+         * @return  decoded tile
+         */
+        public T getTile( long itile, TileReader<T> reader )
+                throws IOException {
+            Long key = Long.valueOf( itile );
+            synchronized ( this ) {
+                Entry<T> entry = map_.get( key );
+                if ( entry != null ) {
+                    return entry.tile_;
+                }
+            }
+            T tile = reader.readTile( itile );
+            int size = reader.getByteCount( tile );
+            synchronized ( this ) {
+                Entry<T> old = map_.put( key, new Entry<T>( tile, size ) );
+                nbytes_ += size - ( old == null ? 0 : old.size_ );
+                for ( Iterator<Entry<T>> it = map_.values().iterator();
+                      nbytes_ > maxBytes_ && map_.size() > 1 &&
+                      it.hasNext(); ) {
+                    Entry<T> e = it.next();
+                    if ( e.tile_ != tile ) {
+                        nbytes_ -= e.size_;
+                        it.remove();
+                    }
+                }
+            }
+            return tile;
+        }
+
+        /**
+         * Cache entry.
+         */
+        private static class Entry<T> {
+            final T tile_;
+            final int size_;
+            Entry( T tile, int size ) {
+                tile_ = tile;
+                size_ = size;
+            }
+        }
+    }
+
+    /**
+     * Decodes tiles for a TileCache.
+     */
+    public interface TileReader<T> {
+
+        /**
+         * Reads and decodes a tile.
+         *
+         * @param  itile  tile index
+         * @return  decoded tile
+         */
+        T readTile( long itile ) throws IOException;
+
+        /**
+         * Returns the approximate memory footprint of a decoded tile.
+         *
+         * @param  tile  tile
+         * @return  size in bytes
+         */
+        int getByteCount( T tile );
+    }
+}
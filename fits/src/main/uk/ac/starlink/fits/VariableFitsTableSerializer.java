@@ -159,7 +159,7 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
 
             /* Write the fixed-size table data.  Note this pads to a 
              * 2880-byte block. */
-            super.writeData( out );
+            writeTableData( out, false );
             dataOut.flush();
             byteStore.copy( toStream( out ) );
         }
@@ -222,6 +222,8 @@ public class VariableFitsTableSerializer extends StandardFitsTableSerializer {
     /**
      * ColumnWriter which writes array-valued elements using the
      * BINTABLE conventions for variable-sized arrays.
+     * Since it keeps track of the heap offset, this writer is not
+     * suitable for concurrent use.
      */
     private static class VariableArrayColumnWriter implements ColumnWriter {
 
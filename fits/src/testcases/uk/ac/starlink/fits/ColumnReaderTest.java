@@ -13,6 +13,7 @@ import nom.tam.fits.Header;
 import nom.tam.fits.HeaderCardException;
 import nom.tam.util.BufferedDataOutputStream;
 import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnBatchCursor;
 import uk.ac.starlink.table.ColumnData;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.ColumnStarTable;
@@ -165,6 +166,42 @@ public class ColumnReaderTest extends TestCase {
                 }
             }
         }
+        checkIntegersBatch( table );
+    }
+
+    /**
+     * Tests the numeric scalar contents of a table using batch access.
+     *
+     * @param  table  specially prepared input table
+     */
+    private void checkIntegersBatch( StarTable table ) throws IOException {
+        int ncol = table.getColumnCount();
+        int[] icols = new int[ ncol ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            icols[ icol ] = icol;
+        }
+        double[] dvals = new double[ 3 ];
+        long[] lvals = new long[ 3 ];
+        boolean[] nulls = new boolean[ 3 ];
+        try ( ColumnBatchCursor cursor =
+                  table.getColumnBatchCursor( icols, 3 ) ) {
+            for ( int n; ( n = cursor.nextBatch() ) > 0; ) {
+                long irow0 = cursor.getBatchStart();
+                for ( int icol = 0; icol < ncol; icol++ ) {
+                    Class<?> clazz =
+                        table.getColumnInfo( icol ).getContentClass();
+                    if ( Number.class.isAssignableFrom( clazz ) ) {
+                        cursor.readDoubles( icol, dvals, nulls );
+                        cursor.readLongs( icol, lvals, null );
+                        for ( int i = 0; i < n; i++ ) {
+                            assertEquals( (double) ( irow0 + i ), dvals[ i ] );
+                            assertFalse( nulls[ i ] );
+                            assertEquals( irow0 + i, lvals[ i ] );
+                        }
+                    }
+                }
+            }
+        }
     }
 
     private void assertEqualValue( int irow, Object oval, boolean isString ) {
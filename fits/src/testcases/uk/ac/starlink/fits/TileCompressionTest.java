@@ -0,0 +1,792 @@
+package uk.ac.starlink.fits;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import nom.tam.fits.FitsException;
+import nom.tam.fits.Header;
+import nom.tam.fits.HeaderCard;
+import nom.tam.util.ArrayDataInput;
+import nom.tam.util.BufferedDataInputStream;
+import uk.ac.starlink.array.AccessMode;
+import uk.ac.starlink.array.ArrayAccess;
+import uk.ac.starlink.array.ChunkStepper;
+import uk.ac.starlink.array.NDArray;
+import uk.ac.starlink.array.Type;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.util.FileDataSource;
+import uk.ac.starlink.util.TestCase;
+
+public class TileCompressionTest extends TestCase {
+
+    private static final Pattern TFORM_REGEX =
+        Pattern.compile( "([0-9]*)([LXBIJKAEDCM]).*" );
+
+    public TileCompressionTest( String name ) {
+        super( name );
+        Logger.getLogger( "uk.ac.starlink.fits" ).setLevel( Level.SEVERE );
+    }
+
+    public void testRice() throws IOException {
+        Random rnd = new Random( 9901L );
+        int n = 1001;
+        for ( int bytepix : new int[] { 1, 2, 4 } ) {
+            int mask = bytepix == 4 ? -1 : ( 1 << ( 8 * bytepix ) ) - 1;
+            for ( int range : new int[] { 0, 1, 10, 1000, -1 } ) {
+                int base = rnd.nextInt();
+                int[] vals = new int[ n ];
+                for ( int i = 0; i < n; i++ ) {
+                    int off = range < 0 ? rnd.nextInt()
+                                        : range == 0 ? 0 : rnd.nextInt( range );
+                    vals[ i ] = ( base + off ) & mask;
+                }
+                for ( int blocksize : new int[] { 16, 32 } ) {
+                    byte[] cbuf = riceEncode( vals, bytepix, blocksize );
+                    assertArrayEquals( vals,
+                                       TileCompression
+                                      .decodeRice( cbuf, n, bytepix,
+                                                   blocksize ) );
+                }
+            }
+        }
+    }
+
+    public void testTable() throws IOException, FitsException {
+        int nrow = 1000;
+        int tileRows = 64;
+        Random rnd = new Random( 44231L );
+        int[] ivals = new int[ nrow ];
+        short[] svals = new short[ nrow ];
+        long[] lvals = new long[ nrow ];
+        double[] dvals = new double[ nrow ];
+        float[] fvals = new float[ nrow ];
+        String[] strs = new String[ nrow ];
+        boolean[] flags = new boolean[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = 1000000 + rnd.nextInt( 2000 );
+            svals[ i ] = (short) ( rnd.nextInt( 65536 ) - 32768 );
+            lvals[ i ] = rnd.nextLong();
+            dvals[ i ] = rnd.nextGaussian();
+            fvals[ i ] = (float) rnd.nextGaussian();
+            strs[ i ] = "row-" + Integer.toString( i, 16 );
+            flags[ i ] = rnd.nextBoolean();
+        }
+        ColumnStarTable t0 = ColumnStarTable.makeTableWithRows( nrow );
+        t0.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "l", lvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "f", fvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "str", strs ) );
+        t0.addColumn( ArrayColumn.makeColumn( "flag", flags ) );
+        int ncol = t0.getColumnCount();
+        String[] ctypes = {
+            "RICE_1", "RICE_1", "GZIP_2", "GZIP_2",
+            "GZIP_1", "GZIP_1", "NOCOMPRESS",
+        };
+
+        /* Write the table uncompressed, and read back its header and
+         * data, which form the basis of the compressed version. */
+        File ufile = File.createTempFile( "plain", ".fits" );
+        ufile.deleteOnExit();
+        try ( OutputStream out = new FileOutputStream( ufile ) ) {
+            new FitsTableWriter().writeStarTable( t0, out );
+        }
+        ArrayDataInput in =
+            new BufferedDataInputStream( new FileInputStream( ufile ) );
+        FitsConstants.skipHDUs( in, 1 );
+        Header uhdr = new Header();
+        FitsConstants.readHeader( uhdr, in );
+        byte[] udata = new byte[ uhdr.getIntValue( "NAXIS1" ) * nrow ];
+        in.readFully( udata );
+        in.close();
+
+        File zfile = File.createTempFile( "ztable", ".fits" );
+        zfile.deleteOnExit();
+        writeCompressedTable( zfile, uhdr, udata, ctypes, tileRows );
+        StarTable t1 = new FitsTableBuilder()
+                      .makeStarTable( new FileDataSource( zfile ), true,
+                                      StoragePolicy.PREFER_MEMORY );
+        assertTrue( t1.isRandom() );
+        assertEquals( nrow, t1.getRowCount() );
+        assertEquals( ncol, t1.getColumnCount() );
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            assertEquals( t0.getColumnInfo( ic ).getName(),
+                          t1.getColumnInfo( ic ).getName() );
+        }
+
+        /* Sequential access. */
+        try ( RowSequence rseq = t1.getRowSequence() ) {
+            for ( int ir = 0; ir < nrow; ir++ ) {
+                assertTrue( rseq.next() );
+                assertEquals( Arrays.asList( t0.getRow( ir ) ),
+                              Arrays.asList( rseq.getRow() ) );
+            }
+            assertTrue( ! rseq.next() );
+        }
+
+        /* Random access. */
+        for ( int i = 0; i < 500; i++ ) {
+            long irow = rnd.nextInt( nrow );
+            int icol = rnd.nextInt( ncol );
+            assertEquals( t0.getCell( irow, icol ), t1.getCell( irow, icol ) );
+        }
+
+        /* Split access; splits must fall on tile boundaries. */
+        List<RowSplittable> splits = new ArrayList<>();
+        addSplits( t1.getRowSplittable(), splits );
+        assertTrue( splits.size() > 4 );
+        boolean[] seen = new boolean[ nrow ];
+        for ( RowSplittable split : splits ) {
+            boolean isFirst = true;
+            while ( split.next() ) {
+                int irow = (int) split.rowIndex().getAsLong();
+                if ( isFirst ) {
+                    assertEquals( 0, irow % tileRows );
+                    isFirst = false;
+                }
+                assertTrue( ! seen[ irow ] );
+                seen[ irow ] = true;
+                assertEquals( Arrays.asList( t0.getRow( irow ) ),
+                              Arrays.asList( split.getRow() ) );
+            }
+            split.close();
+        }
+        for ( boolean s : seen ) {
+            assertTrue( s );
+        }
+        t1.close();
+
+        /* Unsupported compression falls back to the raw table. */
+        ctypes[ 3 ] = "HCOMPRESS_1";
+        writeCompressedTable( zfile, uhdr, udata, ctypes, tileRows );
+        StarTable t2 = new FitsTableBuilder()
+                      .makeStarTable( new FileDataSource( zfile ), true,
+                                      StoragePolicy.PREFER_MEMORY );
+        assertEquals( ( nrow + tileRows - 1 ) / tileRows, t2.getRowCount() );
+        t2.close();
+    }
+
+    public void testIntegerImages() throws IOException, FitsException {
+        Random rnd = new Random( 77123L );
+        int nx = 53;
+        int ny = 37;
+        int[] tile = new int[] { 16, 5 };
+        for ( int bitpix : new int[] { 8, 16, 32 } ) {
+            int[] pix = new int[ nx * ny ];
+            for ( int i = 0; i < pix.length; i++ ) {
+                int v = 3000 + (int) ( rnd.nextGaussian() * 40 );
+                pix[ i ] = bitpix == 8 ? v & 0xff
+                         : bitpix == 16 ? (short) v
+                         : v * 1000;
+            }
+            for ( String cmp : new String[] { "RICE_1", "GZIP_1", "GZIP_2" } ) {
+                File zfile = File.createTempFile( "zimage", ".fits" );
+                zfile.deleteOnExit();
+                writeCompressedImage( zfile, bitpix, nx, ny, tile, cmp,
+                                      pix, null, null );
+                NDArray nda = readImage( zfile, false );
+                Type type = nda.getType();
+                assertEquals( bitpix / 8, type.getNumBytes() );
+                assertTrue( ! type.isFloating() );
+                assertEquals( 2, nda.getShape().getNumDims() );
+                assertEquals( nx, nda.getShape().getDims()[ 0 ] );
+                assertEquals( ny, nda.getShape().getDims()[ 1 ] );
+                Object expected = type.newArray( pix.length );
+                for ( int i = 0; i < pix.length; i++ ) {
+                    if ( type == Type.BYTE ) {
+                        ((byte[]) expected)[ i ] = (byte) pix[ i ];
+                    }
+                    else if ( type == Type.SHORT ) {
+                        ((short[]) expected)[ i ] = (short) pix[ i ];
+                    }
+                    else {
+                        ((int[]) expected)[ i ] = pix[ i ];
+                    }
+                }
+                assertArrayEquals( expected, readAll( nda, 97 ) );
+
+                /* Random access to individual pixels. */
+                ArrayAccess acc = nda.getAccess();
+                Object buf1 = type.newArray( 1 );
+                Object buf2 = type.newArray( 1 );
+                for ( int i = 0; i < 100; i++ ) {
+                    int ipix = rnd.nextInt( pix.length );
+                    acc.setOffset( ipix );
+                    acc.read( buf1, 0, 1 );
+                    System.arraycopy( expected, ipix, buf2, 0, 1 );
+                    assertArrayEquals( buf2, buf1 );
+                }
+                acc.close();
+                nda.close();
+
+                /* Read the same thing from a non-random stream. */
+                NDArray snda = readImage( zfile, true );
+                assertArrayEquals( expected, readAll( snda, 1000 ) );
+                snda.close();
+            }
+        }
+    }
+
+    /**
+     * Reads 16-bit images in the form written by fpack with default
+     * settings (one tile per row), with tiles compressed as by the
+     * CFITSIO routines rather than by the encoders in this class.
+     * The Rice data includes low entropy, normal and high entropy blocks.
+     */
+    public void testFpackImages() throws IOException {
+        int nx = 40;
+        int ny = 30;
+        short[] expected = new short[ nx * ny ];
+        for ( int iy = 0; iy < ny; iy++ ) {
+            for ( int ix = 0; ix < nx; ix++ ) {
+                final int v;
+                if ( iy == 0 ) {
+                    v = 7;
+                }
+                else if ( iy % 7 == 3 ) {
+                    v = (int) ( ( ( ix * 40503L + iy * 7919L )
+                                  * 2654435761L ) & 0xffff );
+                }
+                else {
+                    v = ( ix - 20 ) * ( iy - 15 ) + ( ix * ix + 3 * iy ) % 11;
+                }
+                expected[ iy * nx + ix ] = (short) v;
+            }
+        }
+        for ( String fname : new String[] { "fpack-rice.fits.fz",
+                                            "fpack-gzip.fits.fz" } ) {
+            URL url = new URL( getClass().getResource( fname ), "#1" );
+            NDArray nda = FitsArrayBuilder.getInstance()
+                                          .makeNDArray( url, AccessMode.READ );
+            assertEquals( Type.SHORT, nda.getType() );
+            assertArrayEquals( new long[] { nx, ny },
+                               nda.getShape().getDims() );
+            assertArrayEquals( expected, readAll( nda, 123 ) );
+            nda.close();
+        }
+    }
+
+    public void testFloatImages() throws IOException, FitsException {
+        Random rnd = new Random( 20021L );
+        int nx = 41;
+        int ny = 29;
+        int[] tile = new int[] { 41, 3 };
+        float[] pix = new float[ nx * ny ];
+        for ( int i = 0; i < pix.length; i++ ) {
+            pix[ i ] = (float) ( 50 + rnd.nextGaussian() * 10 );
+        }
+        pix[ 3 ] = Float.NaN;
+        pix[ 400 ] = Float.NaN;
+        pix[ 10 ] = 0f;
+        pix[ 900 ] = 0f;
+        double scale = 0.01;
+        String[] quants = {
+            "NO_DITHER", "SUBTRACTIVE_DITHER_1", "SUBTRACTIVE_DITHER_2",
+        };
+        for ( String quant : quants ) {
+            for ( String cmp : new String[] { "RICE_1", "GZIP_2" } ) {
+                File zfile = File.createTempFile( "zfimage", ".fits" );
+                zfile.deleteOnExit();
+                writeCompressedImage( zfile, -32, nx, ny, tile, cmp,
+                                      pix, quant, Double.valueOf( scale ) );
+                NDArray nda = readImage( zfile, false );
+                assertEquals( Type.FLOAT, nda.getType() );
+                float[] result = (float[]) readAll( nda, 113 );
+                nda.close();
+                for ( int i = 0; i < pix.length; i++ ) {
+                    float p = pix[ i ];
+                    float r = result[ i ];
+                    if ( Float.isNaN( p ) ) {
+                        assertTrue( Float.isNaN( r ) );
+                    }
+                    else if ( p == 0f &&
+                              "SUBTRACTIVE_DITHER_2".equals( quant ) ) {
+                        assertEquals( 0f, r );
+                    }
+                    else {
+                        assertEquals( p, r, 0.501 * scale );
+                    }
+                }
+            }
+        }
+
+        /* Lossless compression of floating point values. */
+        File zfile = File.createTempFile( "zfimage", ".fits" );
+        zfile.deleteOnExit();
+        writeCompressedImage( zfile, -32, nx, ny, tile, "GZIP_2",
+                              pix, null, null );
+        NDArray nda = readImage( zfile, false );
+        assertArrayEquals( pix, readAll( nda, 50 ) );
+        nda.close();
+    }
+
+    private static void addSplits( RowSplittable split,
+                                   List<RowSplittable> list ) {
+        for ( RowSplittable s; ( s = split.split() ) != null; ) {
+            addSplits( s, list );
+        }
+        list.add( split );
+    }
+
+    private static NDArray readImage( File file, boolean isStream )
+            throws IOException {
+        FitsArrayBuilder builder = FitsArrayBuilder.getInstance();
+        if ( isStream ) {
+            ArrayDataInput in =
+                new BufferedDataInputStream( new FileInputStream( file ) );
+            FitsConstants.skipHDUs( in, 1 );
+            return builder.makeNDArray( in, AccessMode.READ );
+        }
+        else {
+            URL url = new URL( file.toURI().toURL(), "#1" );
+            return builder.makeNDArray( url, AccessMode.READ );
+        }
+    }
+
+    private static Object readAll( NDArray nda, int chunk )
+            throws IOException {
+        int npix = (int) nda.getShape().getNumPixels();
+        Object buf = nda.getType().newArray( npix );
+        ArrayAccess acc = nda.getAccess();
+        for ( ChunkStepper cit = new ChunkStepper( npix, chunk );
+              cit.hasNext(); cit.next() ) {
+            acc.read( buf, (int) cit.getBase(), cit.getSize() );
+        }
+        acc.close();
+        return buf;
+    }
+
+    /**
+     * Writes a tile-compressed table based on the header and data
+     * of an uncompressed one.
+     */
+    private static void writeCompressedTable( File file, Header uhdr,
+                                              byte[] udata, String[] ctypes,
+                                              int tileRows )
+            throws IOException, FitsException {
+        int ncol = uhdr.getIntValue( "TFIELDS" );
+        int rowLeng = uhdr.getIntValue( "NAXIS1" );
+        int nrow = uhdr.getIntValue( "NAXIS2" );
+        int ntile = ( nrow + tileRows - 1 ) / tileRows;
+        int[] widths = new int[ ncol ];
+        int[] elSizes = new int[ ncol ];
+        int[] offsets = new int[ ncol ];
+        int off = 0;
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            Matcher matcher = TFORM_REGEX
+                             .matcher( uhdr.getStringValue( "TFORM"
+                                                          + ( ic + 1 ) ) );
+            assertTrue( matcher.matches() );
+            String srep = matcher.group( 1 );
+            int repeat = srep.length() == 0 ? 1 : Integer.parseInt( srep );
+            elSizes[ ic ] = "LBAX".indexOf( matcher.group( 2 ) ) >= 0 ? 1
+                          : "I".equals( matcher.group( 2 ) ) ? 2
+                          : "JE".indexOf( matcher.group( 2 ) ) >= 0 ? 4
+                          : 8;
+            widths[ ic ] = repeat * elSizes[ ic ];
+            offsets[ ic ] = off;
+            off += widths[ ic ];
+        }
+        assertEquals( rowLeng, off );
+        ByteBuffer descrips = ByteBuffer.allocate( ntile * ncol * 8 );
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+        int[] maxes = new int[ ncol ];
+        for ( int it = 0; it < ntile; it++ ) {
+            int nr = Math.min( tileRows, nrow - it * tileRows );
+            for ( int ic = 0; ic < ncol; ic++ ) {
+                int w = widths[ ic ];
+                byte[] cells = new byte[ nr * w ];
+                for ( int ir = 0; ir < nr; ir++ ) {
+                    System.arraycopy( udata,
+                                      ( it * tileRows + ir ) * rowLeng
+                                      + offsets[ ic ],
+                                      cells, ir * w, w );
+                }
+                byte[] cdata = compress( cells, ctypes[ ic ], elSizes[ ic ] );
+                descrips.putInt( cdata.length );
+                descrips.putInt( heap.size() );
+                heap.write( cdata );
+                maxes[ ic ] = Math.max( maxes[ ic ], cdata.length );
+            }
+        }
+        List<String> cards = new ArrayList<>();
+        cards.add( card( "XTENSION", "BINTABLE" ) );
+        cards.add( card( "BITPIX", 8 ) );
+        cards.add( card( "NAXIS", 2 ) );
+        cards.add( card( "NAXIS1", ncol * 8 ) );
+        cards.add( card( "NAXIS2", ntile ) );
+        cards.add( card( "PCOUNT", heap.size() ) );
+        cards.add( card( "GCOUNT", 1 ) );
+        cards.add( card( "TFIELDS", ncol ) );
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            int jc = ic + 1;
+            cards.add( card( "TFORM" + jc, "1PB(" + maxes[ ic ] + ")" ) );
+            cards.add( card( "ZFORM" + jc,
+                             uhdr.getStringValue( "TFORM" + jc ) ) );
+            cards.add( card( "ZCTYP" + jc, ctypes[ ic ] ) );
+        }
+        cards.add( new HeaderCard( "ZTABLE", true, null ).toString() );
+        cards.add( card( "ZTILELEN", tileRows ) );
+        cards.add( card( "ZNAXIS1", rowLeng ) );
+        cards.add( card( "ZNAXIS2", nrow ) );
+        List<String> skips =
+            Arrays.asList( new String[] { "XTENSION", "BITPIX", "NAXIS",
+                                          "NAXIS1", "NAXIS2", "PCOUNT",
+                                          "GCOUNT", "TFIELDS", "END" } );
+        for ( HeaderCard hc : FitsConstants.headerIterable( uhdr ) ) {
+            String key = hc.getKey();
+            if ( key != null && ! skips.contains( key ) &&
+                 ! key.startsWith( "TFORM" ) ) {
+                cards.add( hc.toString() );
+            }
+        }
+        writeFile( file, cards, descrips.array(), heap.toByteArray() );
+    }
+
+    /**
+     * Writes a 2-d tile-compressed image.  Pixel values are supplied
+     * as an int[] array for integer images and a float[] array for
+     * floating point images.  If scale is non-null floating point
+     * values are quantized using the given ZQUANTIZ method.
+     */
+    private static void writeCompressedImage( File file, int bitpix,
+                                              int nx, int ny, int[] tile,
+                                              String cmp, Object pixels,
+                                              String quant, Double scale )
+            throws IOException, FitsException {
+        int tx = tile[ 0 ];
+        int ty = tile[ 1 ];
+        int ntx = ( nx + tx - 1 ) / tx;
+        int nty = ( ny + ty - 1 ) / ty;
+        int ntile = ntx * nty;
+        boolean isQuant = scale != null;
+        boolean isFloat = bitpix < 0;
+        int bytepix = isQuant ? 4 : Math.abs( bitpix ) / 8;
+        int dither0 = 17;
+        int zblank = Integer.MIN_VALUE + 1;
+        float[] rands = createRandoms();
+        int rowLeng = isQuant ? 8 + 8 + 8 + 4 : 8;
+        ByteBuffer rows = ByteBuffer.allocate( ntile * rowLeng );
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+        int maxLeng = 0;
+        for ( int it = 0; it < ntile; it++ ) {
+            int itx = it % ntx;
+            int ity = it / ntx;
+            int x0 = itx * tx;
+            int y0 = ity * ty;
+            int nxt = Math.min( tx, nx - x0 );
+            int nyt = Math.min( ty, ny - y0 );
+            int npix = nxt * nyt;
+            double zero = 40 + it;
+            int iseed = ( it + dither0 - 1 ) % 10000;
+            int nextrand = (int) ( rands[ iseed ] * 500 );
+            ByteBuffer tbuf = ByteBuffer.allocate( npix * bytepix );
+            int[] ivals = new int[ npix ];
+            int ip = 0;
+            for ( int iy = 0; iy < nyt; iy++ ) {
+                for ( int ix = 0; ix < nxt; ix++ ) {
+                    int ipix = ( y0 + iy ) * nx + x0 + ix;
+                    if ( isQuant ) {
+                        float v = ((float[]) pixels)[ ipix ];
+                        final int ival;
+                        if ( Float.isNaN( v ) ) {
+                            ival = zblank;
+                        }
+                        else if ( v == 0f &&
+                                  "SUBTRACTIVE_DITHER_2".equals( quant ) ) {
+                            ival = -2147483646;
+                        }
+                        else if ( "NO_DITHER".equals( quant ) ) {
+                            ival = (int) Math.round( ( v - zero ) / scale );
+                        }
+                        else {
+                            ival = (int) Math.round( ( v - zero ) / scale
+                                                   + rands[ nextrand ]
+                                                   - 0.5 );
+                        }
+                        if ( ++nextrand == 10000 ) {
+                            iseed = ( iseed + 1 ) % 10000;
+                            nextrand = (int) ( rands[ iseed ] * 500 );
+                        }
+                        ivals[ ip ] = ival;
+                        tbuf.putInt( ival );
+                    }
+                    else if ( isFloat ) {
+                        tbuf.putFloat( ((float[]) pixels)[ ipix ] );
+                    }
+                    else {
+                        int ival = ((int[]) pixels)[ ipix ];
+                        ivals[ ip ] = ival;
+                        if ( bytepix == 1 ) {
+                            tbuf.put( (byte) ival );
+                        }
+                        else if ( bytepix == 2 ) {
+                            tbuf.putShort( (short) ival );
+                        }
+                        else {
+                            tbuf.putInt( ival );
+                        }
+                    }
+                    ip++;
+                }
+            }
+            if ( bytepix < 4 ) {
+                int mask = ( 1 << ( 8 * bytepix ) ) - 1;
+                for ( int i = 0; i < npix; i++ ) {
+                    ivals[ i ] &= mask;
+                }
+            }
+            byte[] cdata = "RICE_1".equals( cmp )
+                         ? riceEncode( ivals, bytepix, 32 )
+                         : compress( tbuf.array(), cmp, bytepix );
+            rows.putInt( cdata.length );
+            rows.putInt( heap.size() );
+            if ( isQuant ) {
+                rows.putDouble( scale.doubleValue() );
+                rows.putDouble( zero );
+                rows.putInt( zblank );
+            }
+            heap.write( cdata );
+            maxLeng = Math.max( maxLeng, cdata.length );
+        }
+        List<String> cards = new ArrayList<>();
+        cards.add( card( "XTENSION", "BINTABLE" ) );
+        cards.add( card( "BITPIX", 8 ) );
+        cards.add( card( "NAXIS", 2 ) );
+        cards.add( card( "NAXIS1", rowLeng ) );
+        cards.add( card( "NAXIS2", ntile ) );
+        cards.add( card( "PCOUNT", heap.size() ) );
+        cards.add( card( "GCOUNT", 1 ) );
+        cards.add( card( "TFIELDS", isQuant ? 4 : 1 ) );
+        cards.add( card( "TTYPE1", "COMPRESSED_DATA" ) );
+        cards.add( card( "TFORM1", "1PB(" + maxLeng + ")" ) );
+        if ( isQuant ) {
+            cards.add( card( "TTYPE2", "ZSCALE" ) );
+            cards.add( card( "TFORM2", "1D" ) );
+            cards.add( card( "TTYPE3", "ZZERO" ) );
+            cards.add( card( "TFORM3", "1D" ) );
+            cards.add( card( "TTYPE4", "ZBLANK" ) );
+            cards.add( card( "TFORM4", "1J" ) );
+        }
+        cards.add( new HeaderCard( "ZIMAGE", true, null ).toString() );
+        cards.add( card( "ZBITPIX", bitpix ) );
+        cards.add( card( "ZNAXIS", 2 ) );
+        cards.add( card( "ZNAXIS1", nx ) );
+        cards.add( card( "ZNAXIS2", ny ) );
+        cards.add( card( "ZTILE1", tx ) );
+        cards.add( card( "ZTILE2", ty ) );
+        cards.add( card( "ZCMPTYPE", cmp ) );
+        if ( "RICE_1".equals( cmp ) ) {
+            cards.add( card( "ZNAME1", "BLOCKSIZE" ) );
+            cards.add( card( "ZVAL1", 32 ) );
+            cards.add( card( "ZNAME2", "BYTEPIX" ) );
+            cards.add( card( "ZVAL2", bytepix ) );
+        }
+        if ( isQuant ) {
+            cards.add( card( "ZQUANTIZ", quant ) );
+            cards.add( card( "ZDITHER0", dither0 ) );
+        }
+        writeFile( file, cards, rows.array(), heap.toByteArray() );
+    }
+
+    private static void writeFile( File file, List<String> cards,
+                                   byte[] table, byte[] heap )
+            throws IOException {
+        try ( DataOutputStream out =
+                  new DataOutputStream(
+                      new BufferedOutputStream(
+                          new FileOutputStream( file ) ) ) ) {
+            FitsConstants.writeEmptyPrimary( out );
+            StringBuilder sbuf = new StringBuilder();
+            for ( String c : cards ) {
+                sbuf.append( pad( c, 80 ) );
+            }
+            sbuf.append( pad( "END", 80 ) );
+            while ( sbuf.length() % 2880 != 0 ) {
+                sbuf.append( ' ' );
+            }
+            out.write( sbuf.toString().getBytes( "US-ASCII" ) );
+            out.write( table );
+            out.write( heap );
+            int nd = table.length + heap.length;
+            out.write( new byte[ ( 2880 - nd % 2880 ) % 2880 ] );
+        }
+    }
+
+    private static String pad( String txt, int leng ) {
+        StringBuilder sbuf = new StringBuilder( txt );
+        while ( sbuf.length() < leng ) {
+            sbuf.append( ' ' );
+        }
+        return sbuf.toString();
+    }
+
+    private static String card( String key, String value )
+            throws FitsException {
+        return new HeaderCard( key, value, null ).toString();
+    }
+
+    private static String card( String key, long value )
+            throws FitsException {
+        return new HeaderCard( key, value, null ).toString();
+    }
+
+    private static byte[] compress( byte[] data, String cmp, int elSize )
+            throws IOException {
+        if ( "GZIP_1".equals( cmp ) || "GZIP_2".equals( cmp ) ) {
+            if ( "GZIP_2".equals( cmp ) ) {
+                data = shuffle( data, elSize );
+            }
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            try ( OutputStream zout = new GZIPOutputStream( bout ) ) {
+                zout.write( data );
+            }
+            return bout.toByteArray();
+        }
+        else if ( "RICE_1".equals( cmp ) ) {
+            ByteBuffer bbuf = ByteBuffer.wrap( data );
+            int n = data.length / elSize;
+            int[] ivals = new int[ n ];
+            for ( int i = 0; i < n; i++ ) {
+                ivals[ i ] = elSize == 1 ? bbuf.get() & 0xff
+                           : elSize == 2 ? bbuf.getShort() & 0xffff
+                           : bbuf.getInt();
+            }
+            return riceEncode( ivals, elSize, 32 );
+        }
+        else {
+            return data;
+        }
+    }
+
+    private static byte[] shuffle( byte[] data, int elSize ) {
+        int nel = data.length / elSize;
+        byte[] out = new byte[ data.length ];
+        for ( int iel = 0; iel < nel; iel++ ) {
+            for ( int ib = 0; ib < elSize; ib++ ) {
+                out[ ib * nel + iel ] = data[ iel * elSize + ib ];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Rice encoder following fits_rcomp in CFITSIO.
+     * Input values must be truncated to bytepix bytes.
+     */
+    private static byte[] riceEncode( int[] vals, int bytepix,
+                                      int blocksize ) {
+        int fsbits = bytepix == 1 ? 3 : bytepix == 2 ? 4 : 5;
+        int fsmax = bytepix == 1 ? 6 : bytepix == 2 ? 14 : 25;
+        int bbits = 8 * bytepix;
+        int shift = 32 - bbits;
+        BitWriter out = new BitWriter();
+        out.write( vals[ 0 ], bbits );
+        int lastpix = vals[ 0 ];
+        int n = vals.length;
+        long[] diffs = new long[ blocksize ];
+        for ( int i = 0; i < n; i += blocksize ) {
+            int nb = Math.min( blocksize, n - i );
+            double sum = 0;
+            for ( int j = 0; j < nb; j++ ) {
+                int next = vals[ i + j ];
+                int pdiff = ( ( next - lastpix ) << shift ) >> shift;
+                int d = pdiff < 0 ? ~( pdiff << 1 ) : ( pdiff << 1 );
+                diffs[ j ] = d & 0xffffffffL;
+                sum += diffs[ j ];
+                lastpix = next;
+            }
+            double dpsum = Math.max( 0, ( sum - ( nb / 2 ) - 1 ) / nb );
+            long psum = ( (long) dpsum ) >> 1;
+            int fs = 0;
+            for ( ; psum > 0; fs++ ) {
+                psum >>= 1;
+            }
+            if ( fs >= fsmax ) {
+                out.write( fsmax + 1, fsbits );
+                for ( int j = 0; j < nb; j++ ) {
+                    out.write( diffs[ j ], bbits );
+                }
+            }
+            else if ( fs == 0 && sum == 0 ) {
+                out.write( 0, fsbits );
+            }
+            else {
+                out.write( fs + 1, fsbits );
+                for ( int j = 0; j < nb; j++ ) {
+                    long v = diffs[ j ];
+                    for ( long k = v >> fs; k > 0; k-- ) {
+                        out.write( 0, 1 );
+                    }
+                    out.write( 1, 1 );
+                    if ( fs > 0 ) {
+                        out.write( v & ( ( 1L << fs ) - 1 ), fs );
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static float[] createRandoms() {
+        float[] rands = new float[ 10000 ];
+        double a = 16807.0;
+        double m = 2147483647.0;
+        double seed = 1.0;
+        for ( int i = 0; i < rands.length; i++ ) {
+            double temp = a * seed;
+            seed = temp - m * ( (int) ( temp / m ) );
+            rands[ i ] = (float) ( seed / m );
+        }
+        return rands;
+    }
+
+    private static class BitWriter {
+        private final ByteArrayOutputStream out_ =
+            new ByteArrayOutputStream();
+        private int buf_;
+        private int nbits_;
+
+        void write( long value, int nbits ) {
+            for ( int i = nbits - 1; i >= 0; i-- ) {
+                buf_ = ( buf_ << 1 ) | (int) ( ( value >>> i ) & 1 );
+                if ( ++nbits_ == 8 ) {
+                    out_.write( buf_ );
+                    buf_ = 0;
+                    nbits_ = 0;
+                }
+            }
+        }
+
+        byte[] toByteArray() {
+            if ( nbits_ > 0 ) {
+                out_.write( buf_ << ( 8 - nbits_ ) );
+                buf_ = 0;
+                nbits_ = 0;
+            }
+            return out_.toByteArray();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import uk.ac.starlink.frog.util.FrogDebug;
 
 import uk.ac.starlink.frog.gram.FourierTransform;
 import uk.ac.starlink.frog.gram.ChisqPeriodogram;
+import uk.ac.starlink.frog.gram.FastPeriodogram;
 
 /**
  * This class creates and clones instances of Gram that are
@@ -143,7 +144,9 @@ public class GramFactory
      *  @param min Minimum frequency (default 0.0)
      *  @param max Maximum frequency (default nyquist)
      *  @param interval Frequency interval ( 1/ (4 X total time interval) )
-     *  @param type the type of periodogram to generate
+     *  @param type the type of periodogram to generate, one of
+     *         FOURIER, CHISQ, FASTFOURIER or FASTCHISQ; the FAST
+     *         variants use {@link FastPeriodogram}
      *
      *  @return the Gram object created from the given
      *          specification.
@@ -166,6 +169,14 @@ public class GramFactory
            impl = 
             ChisqPeriodogram.make(series,window,minFreq,maxFreq,freqInterval);
         }
+        else if ( type == "FASTFOURIER" ) {
+           impl = FastPeriodogram.makeFourier( series, window, minFreq, 
+                                               maxFreq, freqInterval );
+        }
+        else if ( type == "FASTCHISQ" ) {
+           impl = FastPeriodogram.makeChisq( series, minFreq, maxFreq,
+                                             freqInterval );
+        }
         
         if ( impl == null ) {
             throw new FrogException( "Unable to build " + type );
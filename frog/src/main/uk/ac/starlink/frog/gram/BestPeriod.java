@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import uk.ac.starlink.frog.util.FrogDebug;
 import uk.ac.starlink.frog.data.Gram;
+import uk.ac.starlink.frog.data.TimeSeries;
 
 /**
  * Statis class to find the best period in a passed periodogram
@@ -95,5 +96,56 @@ public class BestPeriod
          return bestPeriod;    
     
     }
+
+    /**
+     * Static method for finding the best fit period directly from a
+     * time series, using the fast periodogram engine rather than
+     * an existing periodogram.
+     *
+     * @param series the time series
+     * @param minFreq minimum frequency
+     * @param maxFreq maximum frequency
+     * @param freqInterval frequency step
+     * @param chisq true to minimise Chi-squared, false to maximise
+     *              Fourier power
+     * @return the best period
+     * @see FastPeriodogram
+     */
+    public static double find( TimeSeries series, double minFreq,
+                               double maxFreq, double freqInterval,
+                               boolean chisq )
+    {
+         debugManager.print( "            BestPeriod.find( series )" );
+         
+         int numOfSteps = (int)((maxFreq - minFreq)/freqInterval) + 1;
+         double freq0 = chisq ? minFreq + freqInterval : minFreq;
+         double[] yData;
+         if ( chisq ) {
+            double[] errors = series.haveYDataErrors()
+                            ? series.getYDataErrors()
+                            : null;
+            yData = FastPeriodogram.chisq( series.getXData(),
+                                           series.getYData(), errors,
+                                           freq0, freqInterval, numOfSteps );
+         } else {
+            yData = FastPeriodogram.fourierPower( series.getXData(),
+                                                  series.getYData(), freq0,
+                                                  freqInterval, numOfSteps );
+         }
+         
+         // Search for highest (or lowest) peak, without the verbose
+         // output used for existing periodograms
+         int best = 0;
+         for ( int i = 1; i < numOfSteps; i++ ) {
+            if ( chisq ? yData[i] < yData[best] : yData[i] > yData[best] ) {
+               best = i;
+            }
+         }
+         double bestFrequency = freq0 + ((double)best)*freqInterval;
+         
+         double bestPeriod = 1/bestFrequency;
+         debugManager.print( "              Best Period " + bestPeriod );
+         return bestPeriod;
+    }
     
 }
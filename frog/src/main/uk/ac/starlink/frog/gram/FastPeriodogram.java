@@ -0,0 +1,493 @@
+package uk.ac.starlink.frog.gram;
+
+import java.util.stream.IntStream;
+
+import uk.ac.starlink.frog.util.FrogDebug;
+import uk.ac.starlink.frog.data.GramImpl;
+import uk.ac.starlink.frog.data.MEMGramImpl;
+import uk.ac.starlink.frog.data.TimeSeries;
+
+/**
+ * Static class to build periodograms in O(N log N) time.
+ * <p>
+ * The direct methods in {@link FourierTransform} and
+ * {@link ChisqPeriodogram} evaluate trigonometric sums over every
+ * data point at every trial frequency, which takes O(N*M) time for
+ * N points and M frequencies.  Here the same sums are evaluated using
+ * the extirpolation method of Press &amp; Rybicki (1989, ApJ 338, 277):
+ * each data value is spread onto a regular grid using Lagrange
+ * interpolation weights, and the sums at all the trial frequencies
+ * are then read off a Fast Fourier Transform of that grid.
+ * The frequency range is divided into blocks, which are processed
+ * in parallel.
+ * <p>
+ * The Fourier power and Chi-squared values agree with those from
+ * direct summation to within {@link #TOLERANCE} times the
+ * frequency-independent sum of squares of the data
+ * (the power at zero frequency, or the Chi-squared of a zero model,
+ * respectively).
+ * {@link #fourierPower} sums over all the data points;
+ * {@link #makeFourier} follows {@link FourierTransform#make} in
+ * omitting the first point, so that the two give the same periodogram.
+ *
+ * @author Mark Taylor
+ * @version $Id$
+ * @since 18-OCT-2026
+ */
+
+public class FastPeriodogram
+{
+    /**
+     *  Application wide debug manager
+     */
+    protected static FrogDebug debugManager = FrogDebug.getReference();
+
+    /**
+     *  Stated accuracy of results relative to direct summation,
+     *  as a fraction of the sum of squares of the data.
+     */
+    public final static double TOLERANCE = 1.0e-6;
+
+    /**
+     *  Number of grid points over which each data value is spread.
+     */
+    private final static int ORDER = 10;
+
+    /**
+     *  Ratio of FFT grid size to the number of frequencies in a block.
+     */
+    private final static int OVERSAMPLE = 8;
+
+    /**
+     *  Maximum number of frequencies calculated in a single block.
+     */
+    private final static int BLOCK_SIZE = 32768;
+
+    /**
+     *  Denominators of the Lagrange interpolation weights.
+     */
+    private final static double[] LAGRANGE_DENOMS = createDenominators();
+
+    /**
+     *  Default constructor
+     */
+    private FastPeriodogram()
+    {
+        //  Do nothing.
+    }
+
+    /**
+     * Static method for generating a fourier transform,
+     * equivalent to {@link FourierTransform#make}.
+     *
+     * @param currentSeries the time series
+     * @param window whether to generate the window function
+     * @param minFreq minimum frequency
+     * @param maxFreq maximum frequency
+     * @param freqInterval frequency step
+     * @return the periodogram
+     */
+    public static GramImpl makeFourier( TimeSeries currentSeries,
+                                        boolean window, double minFreq,
+                                        double maxFreq, double freqInterval )
+    {
+        debugManager.print( "            FastPeriodogram.makeFourier()" );
+        debugManager.print( "            minFreq  = " + minFreq );
+        debugManager.print( "            maxFreq  = " + maxFreq );
+        debugManager.print( "            Interval = " + freqInterval );
+
+        // use the same frequency grid as FourierTransform
+        int numOfSteps = (int)((maxFreq - minFreq)/freqInterval) + 1;
+        double[] frequency = new double[numOfSteps];
+        for ( int i = 0; i < numOfSteps; i++ ) {
+            frequency[i] = minFreq + ((double)i)*freqInterval;
+        }
+
+        double[] power = transformPower( currentSeries.getXData(),
+                                         currentSeries.getYData(), window,
+                                         minFreq, freqInterval, numOfSteps );
+
+        String name = "Fourier Transform of " + currentSeries.getShortName();
+        MEMGramImpl memImpl = new MEMGramImpl( name );
+        memImpl.setData( power, frequency );
+        return memImpl;
+    }
+
+    /**
+     * Calculates the Fourier power on a regular grid of frequencies
+     * in the same way as {@link FourierTransform#make}, which omits
+     * the first data point from the sums but normalises by the
+     * total number of points.
+     *
+     * @param xData the date stamps
+     * @param yData the fluxes
+     * @param window whether to generate the window function
+     * @param freq0 the first frequency
+     * @param freqInterval the frequency step
+     * @param numOfSteps the number of frequencies
+     * @return power at each frequency
+     */
+    static double[] transformPower( double[] xData, double[] yData,
+                                    boolean window, double freq0,
+                                    double freqInterval, int numOfSteps )
+    {
+        int np = xData.length;
+        double[] xSums = new double[Math.max( 0, np - 1 )];
+        double[] ySums = new double[xSums.length];
+        for ( int j = 1; j < np; j++ ) {
+            xSums[j-1] = xData[j];
+            ySums[j-1] = window ? 1.0 : yData[j];
+        }
+        if ( xSums.length == 0 ) {
+            return new double[numOfSteps];
+        }
+        double[] power = fourierPower( xSums, ySums, freq0, freqInterval,
+                                       numOfSteps );
+        double scale = ( (double)xSums.length * (double)xSums.length ) /
+                       ( (double)np * (double)np );
+        for ( int i = 0; i < numOfSteps; i++ ) {
+            power[i] *= scale;
+        }
+        return power;
+    }
+
+    /**
+     * Static method for generating a Chi-squared periodogram,
+     * equivalent to {@link ChisqPeriodogram#make}.
+     *
+     * @param currentSeries the time series
+     * @param minFreq minimum frequency
+     * @param maxFreq maximum frequency
+     * @param freqInterval frequency step
+     * @return the periodogram
+     */
+    public static GramImpl makeChisq( TimeSeries currentSeries,
+                                      double minFreq, double maxFreq,
+                                      double freqInterval )
+    {
+        debugManager.print( "            FastPeriodogram.makeChisq()" );
+        debugManager.print( "            minFreq  = " + minFreq );
+        debugManager.print( "            maxFreq  = " + maxFreq );
+        debugManager.print( "            Interval = " + freqInterval );
+
+        // use the same frequency grid as ChisqPeriodogram, which
+        // starts one step above the minimum frequency
+        int numOfSteps = (int)((maxFreq - minFreq)/freqInterval) + 1;
+        double[] frequency = new double[numOfSteps];
+        for ( int i = 0; i < numOfSteps; i++ ) {
+            frequency[i] = minFreq + ((double)i+1)*freqInterval;
+        }
+
+        double[] errors = currentSeries.haveYDataErrors()
+                        ? currentSeries.getYDataErrors()
+                        : null;
+        double[] power = chisq( currentSeries.getXData(),
+                                currentSeries.getYData(), errors,
+                                frequency[0], freqInterval, numOfSteps );
+
+        String name = "Chi Squared Periodogram of " +
+                      currentSeries.getShortName();
+        MEMGramImpl memImpl = new MEMGramImpl( name );
+        memImpl.setData( power, frequency );
+        return memImpl;
+    }
+
+    /**
+     * Calculates the Fourier power |sum(y exp(2 pi i f t))|^2 / N^2
+     * on a regular grid of frequencies.
+     *
+     * @param xData the date stamps
+     * @param yData the fluxes
+     * @param freq0 the first frequency
+     * @param freqInterval the frequency step
+     * @param numOfSteps the number of frequencies
+     * @return power at each frequency
+     */
+    public static double[] fourierPower( double[] xData, double[] yData,
+                                         double freq0, double freqInterval,
+                                         int numOfSteps )
+    {
+        double[] re = new double[numOfSteps];
+        double[] im = new double[numOfSteps];
+        trigSums( xData, yData, freq0, freqInterval, numOfSteps, re, im );
+        double norm = 1.0 / ((double)xData.length * (double)xData.length);
+        double[] power = new double[numOfSteps];
+        for ( int i = 0; i < numOfSteps; i++ ) {
+            power[i] = ( re[i]*re[i] + im[i]*im[i] ) * norm;
+        }
+        return power;
+    }
+
+    /**
+     * Calculates the Chi-squared of the best fit of
+     * Y = A + B*sin(2 pi f X) + C*cos(2 pi f X) on a regular
+     * grid of frequencies, as {@link ChisqPeriodogram#sinfit} does
+     * for a single frequency.
+     *
+     * @param xData the date stamps
+     * @param yData the fluxes
+     * @param errors the error in flux, or null for unit weights
+     * @param freq0 the first frequency
+     * @param freqInterval the frequency step
+     * @param numOfSteps the number of frequencies
+     * @return Chi-squared at each frequency
+     */
+    public static double[] chisq( double[] xData, double[] yData,
+                                  double[] errors, double freq0,
+                                  double freqInterval, int numOfSteps )
+    {
+        int np = xData.length;
+
+        // weights, and frequency-independent sums; sinfit() phases
+        // negative times as if they were positive, so do the same
+        double[] tData = new double[np];
+        double[] wData = new double[np];
+        double[] wyData = new double[np];
+        double sw = 0.0;
+        double sy = 0.0;
+        double sy2 = 0.0;
+        for ( int j = 0; j < np; j++ ) {
+            double ww = errors == null ? 1.0 : 1.0/errors[j]/errors[j];
+            tData[j] = Math.abs( xData[j] );
+            wData[j] = ww;
+            wyData[j] = ww*yData[j];
+            sw = sw + ww;
+            sy = sy + ww*yData[j];
+            sy2 = sy2 + ww*yData[j]*yData[j];
+        }
+
+        // sums of w*exp(i w t), w*y*exp(i w t) and w*exp(2 i w t)
+        double[] sc = new double[numOfSteps];
+        double[] ss = new double[numOfSteps];
+        double[] syc = new double[numOfSteps];
+        double[] sys = new double[numOfSteps];
+        double[] c2 = new double[numOfSteps];
+        double[] s2 = new double[numOfSteps];
+        trigSums( tData, wData, freq0, freqInterval, numOfSteps, sc, ss );
+        trigSums( tData, wyData, freq0, freqInterval, numOfSteps, syc, sys );
+        trigSums( tData, wData, 2.0*freq0, 2.0*freqInterval, numOfSteps,
+                  c2, s2 );
+
+        // linear least squares as in sinfit()
+        double[] chiSq = new double[numOfSteps];
+        for ( int i = 0; i < numOfSteps; i++ ) {
+            double ss2 = 0.5*( sw - c2[i] );
+            double sc2 = 0.5*( sw + c2[i] );
+            double ssc = 0.5*s2[i];
+            double cf1 = ss2*sc2 - ssc*ssc;
+            double cf2 = sc[i]*ssc - ss[i]*sc2;
+            double cf3 = ss[i]*ssc - sc[i]*ss2;
+            double cf4 = sw*sc2 - sc[i]*sc[i];
+            double cf5 = sc[i]*ss[i] - sw*ssc;
+            double cf6 = sw*ss2 - ss[i]*ss[i];
+            double det = sw*cf1 + ss[i]*cf2 + sc[i]*cf3;
+            double a = (cf1*sy + cf2*sys[i] + cf3*syc[i]) / det;
+            double b = (cf2*sy + cf4*sys[i] + cf5*syc[i]) / det;
+            double c = (cf3*sy + cf5*sys[i] + cf6*syc[i]) / det;
+            chiSq[i] = sy2 + a*a*sw + b*b*ss2 + c*c*sc2 + 2.0*b*c*ssc +
+                       2.0*a*b*ss[i] + 2.0*a*c*sc[i] - 2.0*a*sy -
+                       2.0*b*sys[i] - 2.0*c*syc[i];
+        }
+        return chiSq;
+    }
+
+    /**
+     * Calculates the sums S(f) = sum(h * exp(2 pi i f t)) on a regular
+     * grid of frequencies.  The grid is divided into blocks which
+     * are calculated in parallel.
+     *
+     * @param tData the date stamps
+     * @param hData the values to sum
+     * @param freq0 the first frequency
+     * @param freqInterval the frequency step
+     * @param numOfSteps the number of frequencies
+     * @param re array to receive the real parts of the sums
+     * @param im array to receive the imaginary parts of the sums
+     */
+    static void trigSums( final double[] tData, final double[] hData,
+                          final double freq0, final double freqInterval,
+                          final int numOfSteps,
+                          final double[] re, final double[] im )
+    {
+        int nblock = ( numOfSteps + BLOCK_SIZE - 1 ) / BLOCK_SIZE;
+        IntStream.range( 0, nblock ).parallel().forEach( ib -> {
+            int k0 = ib * BLOCK_SIZE;
+            int nk = Math.min( BLOCK_SIZE, numOfSteps - k0 );
+            blockSums( tData, hData, freq0, freqInterval, k0, nk, re, im );
+        } );
+    }
+
+    /**
+     * Calculates the trigonometric sums for a single block of frequencies.
+     * The sums are calculated about the central frequency of the block,
+     * so that the highest frequency seen by the interpolation is kept
+     * as low as possible.
+     *
+     * @param tData the date stamps
+     * @param hData the values to sum
+     * @param freq0 the first frequency of the whole grid
+     * @param freqInterval the frequency step
+     * @param k0 the index of the first frequency in this block
+     * @param nk the number of frequencies in this block
+     * @param re array to receive the real parts of the sums
+     * @param im array to receive the imaginary parts of the sums
+     */
+    private static void blockSums( double[] tData, double[] hData,
+                                   double freq0, double freqInterval,
+                                   int k0, int nk, double[] re, double[] im )
+    {
+        // work out grid size, a power of two
+        int nfft = 1;
+        while ( nfft < OVERSAMPLE*nk || nfft < 2*ORDER ) {
+            nfft *= 2;
+        }
+        int mask = nfft - 1;
+        int kc = k0 + nk/2;
+        double fc = freq0 + kc*freqInterval;
+
+        // spread the data values, shifted to the central frequency,
+        // onto the grid
+        double[] gre = new double[nfft];
+        double[] gim = new double[nfft];
+        double[] weights = new double[ORDER];
+        for ( int j = 0; j < tData.length; j++ ) {
+            double h = hData[j];
+            if ( h != 0.0 ) {
+                double phase = 2.0*Math.PI*frac( fc*tData[j] );
+                double hr = h*Math.cos( phase );
+                double hi = h*Math.sin( phase );
+                double x = frac( freqInterval*tData[j] ) * nfft;
+                int ilo = (int) Math.floor( x ) - ORDER/2 + 1;
+                lagrangeWeights( x - ilo, weights );
+                for ( int n = 0; n < ORDER; n++ ) {
+                    int ig = ( ilo + n ) & mask;
+                    gre[ig] += hr*weights[n];
+                    gim[ig] += hi*weights[n];
+                }
+            }
+        }
+
+        // transform, and read off the sums for each frequency offset
+        // from the centre
+        fft( gre, gim );
+        for ( int k = 0; k < nk; k++ ) {
+            int ig = ( k0 + k - kc ) & mask;
+            re[k0+k] = gre[ig];
+            im[k0+k] = gim[ig];
+        }
+    }
+
+    /**
+     * Calculates the Lagrange interpolation weights for a point
+     * with respect to the nodes 0..ORDER-1.
+     *
+     * @param u position relative to the first node
+     * @param weights array of ORDER elements to receive the weights
+     */
+    private static void lagrangeWeights( double u, double[] weights )
+    {
+        double prod = 1.0;
+        for ( int n = 0; n < ORDER; n++ ) {
+            double d = u - n;
+            if ( d == 0.0 ) {
+                java.util.Arrays.fill( weights, 0.0 );
+                weights[n] = 1.0;
+                return;
+            }
+            prod *= d;
+        }
+        for ( int n = 0; n < ORDER; n++ ) {
+            weights[n] = prod / ( ( u - n ) * LAGRANGE_DENOMS[n] );
+        }
+    }
+
+    /**
+     * Calculates the products of (n-m) for all nodes m not equal to n.
+     *
+     * @return denominators of the Lagrange weights for each node
+     */
+    private static double[] createDenominators()
+    {
+        double[] denoms = new double[ORDER];
+        for ( int n = 0; n < ORDER; n++ ) {
+            double d = 1.0;
+            for ( int m = 0; m < ORDER; m++ ) {
+                if ( m != n ) {
+                    d *= ( n - m );
+                }
+            }
+            denoms[n] = d;
+        }
+        return denoms;
+    }
+
+    /**
+     * In-place complex Fast Fourier Transform with a positive exponent,
+     * G(k) = sum(g(m) * exp(2 pi i k m / N)).
+     *
+     * @param re real parts, length a power of two
+     * @param im imaginary parts, same length as re
+     */
+    static void fft( double[] re, double[] im )
+    {
+        int n = re.length;
+
+        // bit-reversal permutation
+        for ( int i = 1, j = 0; i < n; i++ ) {
+            int bit = n >> 1;
+            for ( ; ( j & bit ) != 0; bit >>= 1 ) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if ( i < j ) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+
+        // table of twiddle factors
+        int nh = n / 2;
+        double[] cosTable = new double[nh];
+        double[] sinTable = new double[nh];
+        for ( int i = 0; i < nh; i++ ) {
+            double theta = 2.0*Math.PI*i/n;
+            cosTable[i] = Math.cos( theta );
+            sinTable[i] = Math.sin( theta );
+        }
+
+        // butterflies
+        for ( int len = 2; len <= n; len *= 2 ) {
+            int half = len / 2;
+            int step = n / len;
+            for ( int i = 0; i < n; i += len ) {
+                for ( int k = 0; k < half; k++ ) {
+                    double wr = cosTable[k*step];
+                    double wi = sinTable[k*step];
+                    int p = i + k;
+                    int q = p + half;
+                    double tr = re[q]*wr - im[q]*wi;
+                    double ti = re[q]*wi + im[q]*wr;
+                    re[q] = re[p] - tr;
+                    im[q] = im[p] - ti;
+                    re[p] += tr;
+                    im[p] += ti;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the fractional part of a value.
+     *
+     * @param v value
+     * @return v - floor(v), in the range [0,1)
+     */
+    private static double frac( double v )
+    {
+        return v - Math.floor( v );
+    }
+}
@@ -88,7 +88,9 @@ public class GramCreationDialog extends JInternalFrame
      * Array of Strings containing the list of periodograms
      */
      String [] gramItems = { "Fourier Power Spectrum", 
-                             "Chi-squared Periodogram" }; 
+                             "Chi-squared Periodogram",
+                             "Fast Fourier Power Spectrum",
+                             "Fast Chi-squared Periodogram" }; 
      
     /**
      * Seleced periodogram type
@@ -360,6 +362,12 @@ public class GramCreationDialog extends JInternalFrame
          else if( selected == "Chi-squared Periodogram" ) {
              selectedGram = "CHISQ";
          }
+         else if( selected == "Fast Fourier Power Spectrum" ) {
+             selectedGram = "FASTFOURIER";
+         }
+         else if( selected == "Fast Chi-squared Periodogram" ) {
+             selectedGram = "FASTCHISQ";
+         }
             
          
          // We have valid entries, at least in theory
@@ -459,10 +467,10 @@ public class GramCreationDialog extends JInternalFrame
          frame.getPlot().setStatusTextTwo( "Registering: " + 
                              series.getShortName() );          
          // set the type
-         if( selectedGram == "FOURIER" ) {
+         if( selectedGram == "FOURIER" || selectedGram == "FASTFOURIER" ) {
             periodogram.setType( Gram.FOURIER );
             debugManager.print("            setType( Gram.FOURIER");
-         } else if (selectedGram == "CHISQ" ) {
+         } else if (selectedGram == "CHISQ" || selectedGram == "FASTCHISQ" ) {
             periodogram.setType( Gram.CHISQ );
             debugManager.print("            setType( Gram.CHISQ");
          }
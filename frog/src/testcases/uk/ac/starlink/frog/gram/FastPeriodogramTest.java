@@ -0,0 +1,150 @@
+package uk.ac.starlink.frog.gram;
+
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests the fast periodogram calculations against direct summation.
+ *
+ * @author Mark Taylor
+ * @since 18-OCT-2026
+ */
+public class FastPeriodogramTest extends TestCase
+{
+    private static final int NP = 500;
+    private static final double FREQ0 = 0.01;
+    private static final double STEP = 0.013;
+    private static final int NSTEP = 400;
+
+    private final double[] xData_;
+    private final double[] yData_;
+    private final double[] errors_;
+
+    public FastPeriodogramTest( String name )
+    {
+        super( name );
+
+        // irregularly sampled sinusoid plus noise, with some negative times
+        Random rnd = new Random( 230567L );
+        xData_ = new double[NP];
+        yData_ = new double[NP];
+        errors_ = new double[NP];
+        double t = -40.0;
+        for ( int i = 0; i < NP; i++ ) {
+            t += 0.05 + 0.25 * rnd.nextDouble();
+            xData_[i] = t;
+            errors_[i] = 0.5 + 1.5 * rnd.nextDouble();
+            yData_[i] = 10.0 + 3.0 * Math.sin( 2.0 * Math.PI * 0.37 * t )
+                      + errors_[i] * rnd.nextGaussian();
+        }
+    }
+
+    public void testFourierPower()
+    {
+        double[] power = FastPeriodogram.fourierPower( xData_, yData_,
+                                                       FREQ0, STEP, NSTEP );
+        assertEquals( NSTEP, power.length );
+
+        // tolerance is relative to the zero-frequency power
+        double sy = 0.0;
+        for ( int j = 0; j < NP; j++ ) {
+            sy += yData_[j];
+        }
+        double tol = FastPeriodogram.TOLERANCE * sy * sy / NP / NP;
+        for ( int i = 0; i < NSTEP; i++ ) {
+            double omega = 2.0 * Math.PI * ( FREQ0 + i * STEP );
+            double re = 0.0;
+            double im = 0.0;
+            for ( int j = 0; j < NP; j++ ) {
+                re += yData_[j] * Math.cos( omega * xData_[j] );
+                im += yData_[j] * Math.sin( omega * xData_[j] );
+            }
+            double direct = ( re * re + im * im ) / NP / NP;
+            assertEquals( direct, power[i], tol );
+        }
+    }
+
+    public void testChisqWeighted()
+    {
+        checkChisq( errors_ );
+    }
+
+    public void testChisqUnweighted()
+    {
+        checkChisq( null );
+    }
+
+    public void testTransformPower()
+    {
+        for ( int iw = 0; iw < 2; iw++ ) {
+            boolean window = iw == 1;
+            double[] power =
+                FastPeriodogram.transformPower( xData_, yData_, window,
+                                                FREQ0, STEP, NSTEP );
+            assertEquals( NSTEP, power.length );
+
+            // direct sums as in FourierTransform.make, which omits the
+            // first point; tolerance is relative to the zero-frequency power
+            double sy = 0.0;
+            for ( int j = 1; j < NP; j++ ) {
+                sy += window ? 1.0 : yData_[j];
+            }
+            double tol = FastPeriodogram.TOLERANCE * sy * sy / NP / NP;
+            for ( int i = 0; i < NSTEP; i++ ) {
+                double omega = 2.0 * Math.PI * ( FREQ0 + i * STEP );
+                double re = 0.0;
+                double im = 0.0;
+                for ( int j = 1; j < NP; j++ ) {
+                    double y = window ? 1.0 : yData_[j];
+                    re += y * Math.cos( omega * xData_[j] );
+                    im += y * Math.sin( omega * xData_[j] );
+                }
+                double direct = ( re * re + im * im ) / NP / NP;
+                assertEquals( direct, power[i], tol );
+            }
+        }
+    }
+
+    /**
+     * Compares fast Chi-squared values against ChisqPeriodogram.sinfit.
+     *
+     * @param  errors  flux errors, or null for unit weights
+     */
+    private void checkChisq( double[] errors )
+    {
+        double[] chisq = FastPeriodogram.chisq( xData_, yData_, errors,
+                                                FREQ0, STEP, NSTEP );
+        assertEquals( NSTEP, chisq.length );
+        double[] sinfitErrors = errors;
+        if ( sinfitErrors == null ) {
+            sinfitErrors = new double[NP];
+            Arrays.fill( sinfitErrors, 1.0 );
+        }
+
+        // tolerance is relative to the Chi-squared of a zero model
+        double tol = FastPeriodogram.TOLERANCE
+                   * sumWeightedSquares( sinfitErrors );
+        for ( int i = 0; i < NSTEP; i++ ) {
+            double period = 1.0 / ( FREQ0 + i * STEP );
+            double direct = ChisqPeriodogram.sinfit( xData_, yData_,
+                                                     sinfitErrors, period );
+            assertEquals( direct, chisq[i], tol );
+        }
+    }
+
+    /**
+     * Returns the sum of y^2/error^2 over the test data.
+     *
+     * @param  errors  flux errors
+     * @return  weighted sum of squares
+     */
+    private double sumWeightedSquares( double[] errors )
+    {
+        double sum = 0.0;
+        for ( int j = 0; j < NP; j++ ) {
+            sum += yData_[j] * yData_[j] / errors[j] / errors[j];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,114 @@
+package uk.ac.starlink.table;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Provides sequential access to table data a block of rows at a time,
+ * presenting the values of each column as a vector.
+ * This is an alternative to {@link RowSequence} for consumers
+ * that process many numeric values from a few columns;
+ * numeric and boolean cells can be copied into caller-supplied
+ * primitive arrays, which can be reused between batches,
+ * so that per-cell object creation can be avoided
+ * if the implementation supports it.
+ *
+ * <p>Iteration proceeds by calling {@link #nextBatch}, which advances
+ * to the next block of rows and returns the number of rows in it.
+ * Following that, any of the <code>read*</code> methods may be called
+ * for any of the columns that were selected when the cursor was created,
+ * to acquire the values of the current batch in that column.
+ * The arrays supplied to these methods must have at least as many
+ * elements as the number of rows in the batch;
+ * elements beyond that number are not affected.
+ * Calling a read method before the first call to <code>nextBatch</code>
+ * or after the end of the table has been reached results in
+ * an IllegalStateException.
+ *
+ * <p>Blank values are reported using a boolean array of null flags;
+ * for each of the primitive read methods the null flag array
+ * may be given as <code>null</code> if the caller is not interested.
+ * A value is considered blank if it is null, or if it is a
+ * floating point NaN.
+ * Reading a column as a type it does not naturally represent
+ * gives blank values, except that floating point values
+ * read as long integers are truncated.
+ *
+ * <p>Instances of this interface are not in general safe for concurrent
+ * access from different threads.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ * @see      StarTable#getColumnBatchCursor
+ */
+public interface ColumnBatchCursor extends Closeable {
+
+    /**
+     * Advances to the next block of rows.
+     * The number of rows in the batch will be at least 1 and no more than
+     * the maximum batch size requested when this cursor was created,
+     * unless the end of the table has been reached, in which case
+     * zero is returned.
+     *
+     * @return  number of rows in the new current batch,
+     *          or zero if there are no more rows
+     */
+    int nextBatch() throws IOException;
+
+    /**
+     * Returns the index in the table of the first row of the current batch.
+     *
+     * @return  row index of first row in current batch
+     */
+    long getBatchStart();
+
+    /**
+     * Reads the values of a column in the current batch as floating point
+     * numbers.  Blank values and non-numeric cells are reported as NaN.
+     *
+     * @param  icol  index of column in table
+     * @param  values  array to receive values
+     * @param  nulls   array to receive null flags, or null
+     */
+    void readDoubles( int icol, double[] values, boolean[] nulls )
+            throws IOException;
+
+    /**
+     * Reads the values of a column in the current batch as long integers.
+     * Blank values and non-numeric cells are reported as zero
+     * with the null flag set.
+     *
+     * @param  icol  index of column in table
+     * @param  values  array to receive values
+     * @param  nulls   array to receive null flags, or null
+     */
+    void readLongs( int icol, long[] values, boolean[] nulls )
+            throws IOException;
+
+    /**
+     * Reads the values of a column in the current batch as booleans.
+     * Blank values and non-boolean cells are reported as false
+     * with the null flag set.
+     *
+     * @param  icol  index of column in table
+     * @param  values  array to receive values
+     * @param  nulls   array to receive null flags, or null
+     */
+    void readBooleans( int icol, boolean[] values, boolean[] nulls )
+            throws IOException;
+
+    /**
+     * Reads the values of a column in the current batch as objects.
+     * The values are the same as would be returned by the
+     * corresponding <code>RowSequence.getCell</code> calls.
+     *
+     * @param  icol  index of column in table
+     * @param  values  array to receive values
+     */
+    void readObjects( int icol, Object[] values ) throws IOException;
+
+    /**
+     * Releases any resources associated with this cursor.
+     */
+    void close() throws IOException;
+}
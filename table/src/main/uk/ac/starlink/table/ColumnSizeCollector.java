@@ -0,0 +1,200 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+
+/**
+ * RowCollector that scans table data to find out the sizes of
+ * variable-length cell values and whether null values are present.
+ * This is the kind of information that output handlers for fixed-width
+ * formats need to acquire before writing.
+ * Used with a {@link RowRunner} it can scan splittable tables in parallel.
+ *
+ * <p>The quantities measured for each column are determined by
+ * a bitmask of the <code>CHARS</code>, <code>ELEMENT_CHARS</code>,
+ * <code>ELEMENTS</code> and <code>NULLS</code> flags.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class ColumnSizeCollector
+        extends RowCollector<ColumnSizeCollector.ColumnSizes> {
+
+    private final int[] flags_;
+    private final int[] icols_;
+
+    /** Flag to record maximum string length of non-null cell values. */
+    public static final int CHARS = 1;
+
+    /** Flag to record maximum string length of String array elements. */
+    public static final int ELEMENT_CHARS = 2;
+
+    /** Flag to record maximum and total array lengths. */
+    public static final int ELEMENTS = 4;
+
+    /** Flag to record whether any null values are present. */
+    public static final int NULLS = 8;
+
+    /**
+     * Constructor.
+     *
+     * @param  flags  array with one element per table column,
+     *                each a bitmask of the flags defined by this class
+     *                indicating what to measure for that column
+     */
+    public ColumnSizeCollector( int[] flags ) {
+        flags_ = flags.clone();
+        int nc = 0;
+        int[] icols = new int[ flags.length ];
+        for ( int ic = 0; ic < flags.length; ic++ ) {
+            if ( flags[ ic ] != 0 ) {
+                icols[ nc++ ] = ic;
+            }
+        }
+        icols_ = new int[ nc ];
+        System.arraycopy( icols, 0, icols_, 0, nc );
+    }
+
+    public ColumnSizes createAccumulator() {
+        return new ColumnSizes( flags_.length );
+    }
+
+    public ColumnSizes combine( ColumnSizes acc1, ColumnSizes acc2 ) {
+        acc1.nrow_ += acc2.nrow_;
+        for ( int ic = 0; ic < flags_.length; ic++ ) {
+            acc1.maxChars_[ ic ] =
+                Math.max( acc1.maxChars_[ ic ], acc2.maxChars_[ ic ] );
+            acc1.maxElements_[ ic ] =
+                Math.max( acc1.maxElements_[ ic ], acc2.maxElements_[ ic ] );
+            acc1.totalElements_[ ic ] += acc2.totalElements_[ ic ];
+            acc1.hasNulls_[ ic ] = acc1.hasNulls_[ ic ]
+                                || acc2.hasNulls_[ ic ];
+        }
+        return acc1;
+    }
+
+    public void accumulateRows( RowSplittable rseq, ColumnSizes acc )
+            throws IOException {
+        int[] maxChars = acc.maxChars_;
+        int[] maxElements = acc.maxElements_;
+        long[] totalElements = acc.totalElements_;
+        boolean[] hasNulls = acc.hasNulls_;
+        long nrow = 0;
+        while ( rseq.next() ) {
+            nrow++;
+            for ( int icol : icols_ ) {
+                int flags = flags_[ icol ];
+
+                /* If nulls are all we are looking for, there's no need
+                 * to keep looking once we've found one. */
+                if ( flags == NULLS && hasNulls[ icol ] ) {
+                    continue;
+                }
+                Object cell = rseq.getCell( icol );
+                if ( cell == null ) {
+                    hasNulls[ icol ] = true;
+                }
+                else {
+                    if ( ( flags & CHARS ) != 0 ) {
+                        int leng = cell instanceof String
+                                 ? ((String) cell).length()
+                                 : cell.toString().length();
+                        maxChars[ icol ] = Math.max( maxChars[ icol ], leng );
+                    }
+                    if ( ( flags & ELEMENT_CHARS ) != 0 &&
+                         cell instanceof String[] ) {
+                        for ( String s : (String[]) cell ) {
+                            if ( s != null ) {
+                                maxChars[ icol ] =
+                                    Math.max( maxChars[ icol ], s.length() );
+                            }
+                        }
+                    }
+                    if ( ( flags & ELEMENTS ) != 0 &&
+                         cell.getClass().isArray() ) {
+                        int nel = Array.getLength( cell );
+                        maxElements[ icol ] =
+                            Math.max( maxElements[ icol ], nel );
+                        totalElements[ icol ] += nel;
+                    }
+                }
+            }
+        }
+        acc.nrow_ += nrow;
+    }
+
+    /**
+     * Accumulator for use with ColumnSizeCollector,
+     * containing the results of a scan.
+     * Quantities which were not requested for a column
+     * have zero or false values.
+     */
+    public static class ColumnSizes {
+        private long nrow_;
+        private final int[] maxChars_;
+        private final int[] maxElements_;
+        private final long[] totalElements_;
+        private final boolean[] hasNulls_;
+
+        /**
+         * Constructor.
+         *
+         * @param  ncol  number of columns
+         */
+        ColumnSizes( int ncol ) {
+            maxChars_ = new int[ ncol ];
+            maxElements_ = new int[ ncol ];
+            totalElements_ = new long[ ncol ];
+            hasNulls_ = new boolean[ ncol ];
+        }
+
+        /**
+         * Returns the number of rows scanned.
+         *
+         * @return  row count
+         */
+        public long getRowCount() {
+            return nrow_;
+        }
+
+        /**
+         * Returns the maximum string length for a column.
+         *
+         * @param  icol  column index
+         * @return  maximum string length of cell values or array elements
+         */
+        public int getMaxChars( int icol ) {
+            return maxChars_[ icol ];
+        }
+
+        /**
+         * Returns the maximum array length for a column.
+         *
+         * @param  icol  column index
+         * @return  maximum number of elements in a cell
+         */
+        public int getMaxElements( int icol ) {
+            return maxElements_[ icol ];
+        }
+
+        /**
+         * Returns the total number of array elements for a column.
+         *
+         * @param  icol  column index
+         * @return  sum of element counts over all cells
+         */
+        public long getTotalElements( int icol ) {
+            return totalElements_[ icol ];
+        }
+
+        /**
+         * Indicates whether any null values were found in a column.
+         *
+         * @param  icol  column index
+         * @return  true iff at least one null cell was seen
+         */
+        public boolean hasNulls( int icol ) {
+            return hasNulls_[ icol ];
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+
+/**
+ * Partial ColumnBatchCursor implementation for tables with a known
+ * row count whose column data can be read at arbitrary row indices.
+ * This class takes care of the batch bookkeeping;
+ * concrete subclasses implement the <code>read*</code> methods
+ * by reading the rows from {@link #getBatchStart} to
+ * <code>getBatchStart()+</code>{@link #getBatchLength}.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public abstract class RandomBatchCursor implements ColumnBatchCursor {
+
+    private final long nrow_;
+    private final int maxBatch_;
+    private long irow0_;
+    private int nbatch_;
+
+    /**
+     * Constructor.
+     *
+     * @param  nrow  number of rows in table
+     * @param  maxBatch  maximum number of rows in each batch
+     */
+    protected RandomBatchCursor( long nrow, int maxBatch ) {
+        if ( maxBatch < 1 ) {
+            throw new IllegalArgumentException( "Bad batch size " + maxBatch );
+        }
+        nrow_ = nrow;
+        maxBatch_ = maxBatch;
+        irow0_ = 0;
+        nbatch_ = -1;
+    }
+
+    public int nextBatch() {
+        if ( nbatch_ > 0 ) {
+            irow0_ += nbatch_;
+        }
+        nbatch_ = (int) Math.max( 0, Math.min( maxBatch_, nrow_ - irow0_ ) );
+        return nbatch_;
+    }
+
+    public long getBatchStart() {
+        return irow0_;
+    }
+
+    /**
+     * Returns the number of rows in the current batch.
+     *
+     * @return  current batch size
+     * @throws  IllegalStateException  if there is no current batch
+     */
+    protected int getBatchLength() {
+        if ( nbatch_ <= 0 ) {
+            throw new IllegalStateException( "No current batch" );
+        }
+        return nbatch_;
+    }
+
+    /**
+     * Does nothing.  Subclasses which hold resources should override it.
+     */
+    public void close() throws IOException {
+    }
+
+    /**
+     * Indicates whether a content class represents integer values,
+     * which are read natively using {@link #readLongs readLongs}.
+     *
+     * @param  clazz  column content class
+     * @return  true for Byte, Short, Integer and Long
+     */
+    public static boolean isIntegerClass( Class<?> clazz ) {
+        return clazz == Byte.class
+            || clazz == Short.class
+            || clazz == Integer.class
+            || clazz == Long.class;
+    }
+
+    /**
+     * Indicates whether a content class represents floating point values,
+     * which are read natively using {@link #readDoubles readDoubles}.
+     *
+     * @param  clazz  column content class
+     * @return  true for Float and Double
+     */
+    public static boolean isFloatingClass( Class<?> clazz ) {
+        return clazz == Float.class
+            || clazz == Double.class;
+    }
+}
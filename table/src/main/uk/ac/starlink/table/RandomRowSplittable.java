@@ -54,7 +54,7 @@ public class RandomRowSplittable implements RowSplittable {
 
     public RandomRowSplittable split() {
         if ( nrow_ - irow_ > 2 ) {
-            long mid = ( irow_ + nrow_ ) / 2;
+            long mid = ( irow_ + 1 + nrow_ ) / 2;
             final RandomRowSplittable split;
             try {
                 split = new RandomRowSplittable( table_, irow_, mid );
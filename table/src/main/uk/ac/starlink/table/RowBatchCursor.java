@@ -0,0 +1,159 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * ColumnBatchCursor implementation based on a RowSequence.
+ * Cell values for the selected columns are buffered as objects,
+ * and converted to primitive values on request.
+ * This provides batch access for any table, but without
+ * the efficiency benefits available from native implementations.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class RowBatchCursor implements ColumnBatchCursor {
+
+    private final RowSequence rseq_;
+    private final int[] icols_;
+    private final int[] islots_;
+    private final Object[][] cells_;
+    private final int maxBatch_;
+    private long irow0_;
+    private int nrow_;
+    private boolean done_;
+
+    /**
+     * Constructor.
+     *
+     * @param  rseq  row sequence supplying the data;
+     *               it is closed when this cursor is closed
+     * @param  icols  indices of the columns that will be read
+     * @param  maxBatch  maximum number of rows in each batch
+     */
+    public RowBatchCursor( RowSequence rseq, int[] icols, int maxBatch ) {
+        if ( maxBatch < 1 ) {
+            throw new IllegalArgumentException( "Bad batch size " + maxBatch );
+        }
+        rseq_ = rseq;
+        maxBatch_ = maxBatch;
+        icols_ = icols.clone();
+        int nslot = 0;
+        for ( int icol : icols_ ) {
+            nslot = Math.max( nslot, icol + 1 );
+        }
+        islots_ = new int[ nslot ];
+        Arrays.fill( islots_, -1 );
+        for ( int is = 0; is < icols_.length; is++ ) {
+            islots_[ icols_[ is ] ] = is;
+        }
+        cells_ = new Object[ icols_.length ][ maxBatch ];
+        irow0_ = 0;
+        nrow_ = -1;
+    }
+
+    public int nextBatch() throws IOException {
+        if ( nrow_ > 0 ) {
+            irow0_ += nrow_;
+        }
+        int n = 0;
+        while ( ! done_ && n < maxBatch_ ) {
+            if ( rseq_.next() ) {
+                for ( int is = 0; is < icols_.length; is++ ) {
+                    cells_[ is ][ n ] = rseq_.getCell( icols_[ is ] );
+                }
+                n++;
+            }
+            else {
+                done_ = true;
+            }
+        }
+        nrow_ = n;
+        return n;
+    }
+
+    public long getBatchStart() {
+        return irow0_;
+    }
+
+    public void readDoubles( int icol, double[] values, boolean[] nulls ) {
+        Object[] cells = getCells( icol );
+        for ( int i = 0; i < nrow_; i++ ) {
+            Object cell = cells[ i ];
+            double dval = cell instanceof Number
+                        ? ((Number) cell).doubleValue()
+                        : Double.NaN;
+            values[ i ] = dval;
+            if ( nulls != null ) {
+                nulls[ i ] = Double.isNaN( dval );
+            }
+        }
+    }
+
+    public void readLongs( int icol, long[] values, boolean[] nulls ) {
+        Object[] cells = getCells( icol );
+        for ( int i = 0; i < nrow_; i++ ) {
+            Object cell = cells[ i ];
+            final boolean isNull;
+            if ( cell instanceof Double || cell instanceof Float ) {
+                double dval = ((Number) cell).doubleValue();
+                isNull = Double.isNaN( dval );
+                values[ i ] = isNull ? 0L : (long) dval;
+            }
+            else if ( cell instanceof Number ) {
+                isNull = false;
+                values[ i ] = ((Number) cell).longValue();
+            }
+            else {
+                isNull = true;
+                values[ i ] = 0L;
+            }
+            if ( nulls != null ) {
+                nulls[ i ] = isNull;
+            }
+        }
+    }
+
+    public void readBooleans( int icol, boolean[] values, boolean[] nulls ) {
+        Object[] cells = getCells( icol );
+        for ( int i = 0; i < nrow_; i++ ) {
+            Object cell = cells[ i ];
+            boolean isBool = cell instanceof Boolean;
+            values[ i ] = isBool && ((Boolean) cell).booleanValue();
+            if ( nulls != null ) {
+                nulls[ i ] = ! isBool;
+            }
+        }
+    }
+
+    public void readObjects( int icol, Object[] values ) {
+        System.arraycopy( getCells( icol ), 0, values, 0, nrow_ );
+    }
+
+    public void close() throws IOException {
+        rseq_.close();
+    }
+
+    /**
+     * Returns the buffer of cell values for the current batch
+     * in a given column.
+     *
+     * @param  icol  column index in table
+     * @return  cell buffer, of which only the first nrow_ elements
+     *          are meaningful
+     * @throws  IllegalArgumentException  if the column was not selected
+     * @throws  IllegalStateException  if there is no current batch
+     */
+    private Object[] getCells( int icol ) {
+        int is = icol >= 0 && icol < islots_.length ? islots_[ icol ] : -1;
+        if ( is < 0 ) {
+            throw new IllegalArgumentException( "Column " + icol
+                                              + " not selected" );
+        }
+        if ( nrow_ <= 0 ) {
+            throw new IllegalStateException( "No current batch" );
+        }
+        return cells_[ is ];
+    }
+}
@@ -0,0 +1,40 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+
+/**
+ * Serializes table rows in blocks for output by a {@link RowBlockWriter}.
+ * Encoding of different blocks may take place concurrently
+ * in different threads, but the encoded blocks are written
+ * one at a time in row order.
+ *
+ * <p>The {@link #encodeRows encodeRows} method must therefore
+ * not make use of any mutable state shared between invocations,
+ * and the result of writing all the blocks in order must be
+ * the same as the result of encoding all the rows in one go.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public interface RowBlockEncoder<B> {
+
+    /**
+     * Encodes all the rows from a given row sequence into a block.
+     * The sequence should be iterated over until it is exhausted,
+     * but not closed.
+     * This method may be called concurrently from multiple threads.
+     *
+     * @param  rseq  row sequence supplying the rows for this block
+     * @return  encoded block
+     */
+    B encodeRows( RowSequence rseq ) throws IOException;
+
+    /**
+     * Writes an encoded block to the output.
+     * This method is called from a single thread at a time,
+     * and blocks are presented in row order.
+     *
+     * @param  block  block previously returned by <code>encodeRows</code>
+     */
+    void writeBlock( B block ) throws IOException;
+}
@@ -0,0 +1,495 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the rows of a table to an output using a pipeline of threads.
+ * Rows are read from the table in blocks, in parallel if the table
+ * is splittable; each block is serialized by one of a pool of worker
+ * threads using a {@link RowBlockEncoder}, and the encoded blocks are
+ * then written in order by the calling thread.
+ * A bounded queue limits the number of blocks in flight at any one time,
+ * and hence the amount of memory used.
+ *
+ * <p>Code which has no preferences about how rows are written
+ * can obtain an instance using the {@link #getDefaultInstance} method.
+ * The number of threads used by this may be set using the
+ * system property named by {@link #THREADS_PROPERTY}
+ * ("startable.writeThreads"); by default it is the number of
+ * available processors.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class RowBlockWriter {
+
+    private final int nthread_;
+    private final int blockRows_;
+
+    private static RowBlockWriter defaultInstance_;
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.table" );
+
+    /**
+     * Name of the system property which can be set to give the
+     * number of threads used by the default instance ({@value}).
+     * A value of 1 means that all work is done in the calling thread.
+     */
+    public static final String THREADS_PROPERTY = "startable.writeThreads";
+
+    /** Default number of rows in each encoded block. */
+    public static final int DFLT_BLOCK_ROWS = 1024;
+
+    /** Instance which does all its work in the calling thread. */
+    public static final RowBlockWriter SEQUENTIAL =
+        new RowBlockWriter( 1, DFLT_BLOCK_ROWS );
+
+    /**
+     * Constructor.
+     *
+     * @param  nthread  number of worker threads used for encoding;
+     *                  if &lt;=1 all work is done in the calling thread
+     * @param  blockRows  target number of rows in each encoded block
+     */
+    public RowBlockWriter( int nthread, int blockRows ) {
+        nthread_ = nthread;
+        blockRows_ = Math.max( 1, blockRows );
+    }
+
+    /**
+     * Returns the number of worker threads used by this writer.
+     *
+     * @return  thread count
+     */
+    public int getThreadCount() {
+        return nthread_;
+    }
+
+    /**
+     * Returns the target number of rows in each encoded block.
+     *
+     * @return  rows per block
+     */
+    public int getBlockRows() {
+        return blockRows_;
+    }
+
+    /**
+     * Writes all the rows of a table using a given encoder.
+     *
+     * @param  table  table supplying rows
+     * @param  encoder  serializes and outputs blocks of rows
+     */
+    public <B> void writeRows( StarTable table, RowBlockEncoder<B> encoder )
+            throws IOException {
+        long nrow = table.getRowCount();
+        if ( nthread_ <= 1 || ( nrow >= 0 && nrow <= blockRows_ ) ) {
+            try ( RowSequence rseq = table.getRowSequence() ) {
+                BlockRowSequence bseq;
+                do {
+                    bseq = new BlockRowSequence( rseq, blockRows_ );
+                    encoder.writeBlock( encoder.encodeRows( bseq ) );
+                } while ( ! bseq.isExhausted() );
+            }
+        }
+        else {
+            new Pipeline<B>( table, encoder ).run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RowBlockWriter(" + nthread_ + "x" + blockRows_ + ")";
+    }
+
+    /**
+     * Returns the default instance of this class.
+     *
+     * @return  default row block writer
+     */
+    public static RowBlockWriter getDefaultInstance() {
+        if ( defaultInstance_ == null ) {
+            int nthread = Runtime.getRuntime().availableProcessors();
+            try {
+                String prop = System.getProperty( THREADS_PROPERTY );
+                if ( prop != null && prop.trim().length() > 0 ) {
+                    try {
+                        nthread = Integer.parseInt( prop.trim() );
+                    }
+                    catch ( NumberFormatException e ) {
+                        logger_.warning( "Bad value for " + THREADS_PROPERTY
+                                       + ": \"" + prop + "\"" );
+                    }
+                }
+            }
+            catch ( SecurityException e ) {
+                // never mind
+            }
+            defaultInstance_ = new RowBlockWriter( nthread, DFLT_BLOCK_ROWS );
+            logger_.config( "Default row writer is " + defaultInstance_ );
+        }
+        return defaultInstance_;
+    }
+
+    /**
+     * Sets the default instance of this class.
+     *
+     * @param  writer  new default row block writer
+     */
+    public static void setDefaultInstance( RowBlockWriter writer ) {
+        defaultInstance_ = writer;
+    }
+
+    /**
+     * Returns an exception suitable for rethrowing given an exception
+     * thrown by a worker thread.  Unchecked exceptions are thrown directly.
+     *
+     * @param  err  exception
+     * @return  IOException to throw
+     */
+    private static IOException toIOException( Throwable err ) {
+        if ( err instanceof IOException ) {
+            return (IOException) err;
+        }
+        else if ( err instanceof RuntimeException ) {
+            throw (RuntimeException) err;
+        }
+        else if ( err instanceof Error ) {
+            throw (Error) err;
+        }
+        else {
+            return (IOException) new IOException( err.getMessage() )
+                                .initCause( err );
+        }
+    }
+
+    /**
+     * Manages the threads used for a single parallel write operation.
+     */
+    private class Pipeline<B> {
+
+        private final StarTable table_;
+        private final RowBlockEncoder<B> encoder_;
+        private final BlockingQueue<Future<B>> queue_;
+        private final ExecutorService executor_;
+        private final Future<B> endMarker_;
+        private volatile boolean cancelled_;
+        private volatile Throwable readError_;
+
+        /**
+         * Constructor.
+         *
+         * @param  table  table supplying rows
+         * @param  encoder  block encoder
+         */
+        Pipeline( StarTable table, RowBlockEncoder<B> encoder ) {
+            table_ = table;
+            encoder_ = encoder;
+            queue_ = new ArrayBlockingQueue<Future<B>>( 2 * nthread_ );
+            executor_ = Executors.newFixedThreadPool( nthread_, r -> {
+                Thread th = new Thread( r, "Row encoder" );
+                th.setDaemon( true );
+                return th;
+            } );
+            endMarker_ = new FutureTask<B>( () -> null );
+        }
+
+        /**
+         * Performs the write.  Blocks are read and submitted for
+         * encoding by a separate reader thread, and written out
+         * in the calling thread.
+         */
+        void run() throws IOException {
+            Thread reader = new Thread( this::readBlocks, "Row block reader" );
+            reader.setDaemon( true );
+            reader.start();
+            boolean done = false;
+            try {
+                for ( Future<B> fut; ( fut = queue_.take() ) != endMarker_; ) {
+                    final B block;
+                    try {
+                        block = fut.get();
+                    }
+                    catch ( ExecutionException e ) {
+                        throw toIOException( e.getCause() );
+                    }
+                    encoder_.writeBlock( block );
+                }
+                if ( readError_ != null ) {
+                    throw toIOException( readError_ );
+                }
+                done = true;
+            }
+            catch ( InterruptedException e ) {
+                throw (IOException) new InterruptedIOException()
+                                   .initCause( e );
+            }
+            finally {
+                if ( done ) {
+                    executor_.shutdown();
+                }
+                else {
+                    cancelled_ = true;
+                    reader.interrupt();
+                    queue_.clear();
+
+                    /* Tasks that never started will not close their
+                     * own splittables, so close them here. */
+                    for ( Runnable task : executor_.shutdownNow() ) {
+                        if ( task instanceof ChunkTask ) {
+                            ((ChunkTask<?>) task).closeSplittable();
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reads the table in blocks and queues them for encoding.
+         * Invoked in the reader thread.
+         */
+        private void readBlocks() {
+            try {
+                RowSplittable top = table_.getRowSplittable();
+                if ( top.rowIndex() == null || top.splittableSize() < 0 ) {
+                    try {
+                        submitRows( top );
+                    }
+                    finally {
+                        top.close();
+                    }
+                }
+                else {
+                    submitSplits( top );
+                }
+            }
+            catch ( InterruptedException e ) {
+                assert cancelled_;
+            }
+            catch ( Throwable e ) {
+                readError_ = e;
+            }
+            finally {
+                if ( ! cancelled_ ) {
+                    try {
+                        queue_.put( endMarker_ );
+                    }
+                    catch ( InterruptedException e ) {
+                        assert cancelled_;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Splits a splittable into contiguous chunks of approximately
+         * the block size, and queues them for encoding in row order.
+         * The chunks are read as well as encoded by the worker threads.
+         *
+         * @param  top  splittable whose row indices are known
+         */
+        private void submitSplits( RowSplittable top )
+                throws IOException, InterruptedException {
+            Deque<RowSplittable> stack = new ArrayDeque<RowSplittable>();
+            stack.push( top );
+            try {
+                while ( ! stack.isEmpty() && ! cancelled_ ) {
+                    RowSplittable rs = stack.pop();
+                    long size = rs.splittableSize();
+                    RowSplittable other = size > blockRows_ ? rs.split()
+                                                            : null;
+                    if ( other != null ) {
+                        boolean otherFirst = other.rowIndex().getAsLong()
+                                           < rs.rowIndex().getAsLong();
+                        stack.push( otherFirst ? rs : other );
+                        stack.push( otherFirst ? other : rs );
+                    }
+
+                    /* If a large splittable won't split any further,
+                     * read it here and submit its rows in blocks,
+                     * to avoid encoding an excessive amount in one go. */
+                    else if ( size > 4L * blockRows_ ) {
+                        try {
+                            submitRows( rs );
+                        }
+                        finally {
+                            rs.close();
+                        }
+                    }
+                    else {
+                        submitChunk( rs );
+                    }
+                }
+            }
+            finally {
+                while ( ! stack.isEmpty() ) {
+                    stack.pop().close();
+                }
+            }
+        }
+
+        /**
+         * Queues a splittable for reading and encoding by a worker thread.
+         *
+         * @param  rs  splittable, closed after use
+         */
+        private void submitChunk( RowSplittable rs )
+                throws IOException, InterruptedException {
+            boolean submitted = false;
+            try {
+                ChunkTask<B> task = new ChunkTask<B>( encoder_, rs );
+                executor_.execute( task );
+                submitted = true;
+                queue_.put( task );
+            }
+            finally {
+                if ( ! submitted ) {
+                    rs.close();
+                }
+            }
+        }
+
+        /**
+         * Reads all rows from a sequence in this thread,
+         * and queues them in blocks for encoding.
+         *
+         * @param  rseq  row sequence, not closed
+         */
+        private void submitRows( RowSequence rseq )
+                throws IOException, InterruptedException {
+            boolean more = true;
+            while ( more && ! cancelled_ ) {
+                Object[][] rows = new Object[ blockRows_ ][];
+                int n = 0;
+                while ( n < blockRows_ && ( more = rseq.next() ) ) {
+                    rows[ n++ ] = rseq.getRow().clone();
+                }
+                if ( n > 0 ) {
+                    List<Object[]> rowList =
+                        Arrays.asList( rows ).subList( 0, n );
+                    submit( () -> encoder_.encodeRows(
+                                      new IteratorRowSequence(
+                                          rowList.iterator() ) ) );
+                }
+            }
+        }
+
+        /**
+         * Submits an encoding task and adds its future to the output queue,
+         * blocking if the queue is full.
+         *
+         * @param  task  encoding task
+         */
+        private void submit( Callable<B> task ) throws InterruptedException {
+            queue_.put( executor_.submit( task ) );
+        }
+    }
+
+    /**
+     * Encoding task for a splittable chunk.  The splittable is
+     * closed when the task completes, or by an explicit call
+     * if the task is discarded without being run.
+     */
+    private static class ChunkTask<B> extends FutureTask<B> {
+
+        private final RowSplittable rs_;
+
+        /**
+         * Constructor.
+         *
+         * @param  encoder  block encoder
+         * @param  rs  splittable to encode
+         */
+        ChunkTask( RowBlockEncoder<B> encoder, RowSplittable rs ) {
+            super( () -> {
+                try {
+                    return encoder.encodeRows( rs );
+                }
+                finally {
+                    rs.close();
+                }
+            } );
+            rs_ = rs;
+        }
+
+        /**
+         * Closes this task's splittable.
+         * Should only be called if the task will not be run.
+         */
+        void closeSplittable() {
+            try {
+                rs_.close();
+            }
+            catch ( IOException e ) {
+                logger_.log( Level.WARNING,
+                             "Error closing discarded chunk", e );
+            }
+        }
+    }
+
+    /**
+     * RowSequence view of at most a given number of rows from an
+     * underlying sequence.  Closing it does not close the base sequence.
+     */
+    private static class BlockRowSequence extends WrapperRowSequence {
+
+        private final int maxRows_;
+        private int nrow_;
+        private boolean exhausted_;
+
+        /**
+         * Constructor.
+         *
+         * @param  baseSeq  base sequence
+         * @param  maxRows  maximum number of rows to supply
+         */
+        BlockRowSequence( RowSequence baseSeq, int maxRows ) {
+            super( baseSeq );
+            maxRows_ = maxRows;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if ( nrow_ >= maxRows_ || exhausted_ ) {
+                return false;
+            }
+            else if ( super.next() ) {
+                nrow_++;
+                return true;
+            }
+            else {
+                exhausted_ = true;
+                return false;
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /**
+         * Indicates whether the base sequence has been found to have
+         * no more rows.
+         *
+         * @return  true iff the base sequence is known to be exhausted
+         */
+        boolean isExhausted() {
+            return exhausted_;
+        }
+    }
+}
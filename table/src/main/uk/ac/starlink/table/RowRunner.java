@@ -57,12 +57,38 @@ public class RowRunner {
      */
     public <A> A collect( RowCollector<A> collector, StarTable table )
             throws IOException {
-        RowSplittable splittable = createRowSplittable( table );
+        return collect( collector, createRowSplittable( table ) );
+    }
+
+    /**
+     * Performs a collection operation on a supplied row splittable.
+     * This can be used instead of {@link #collect(RowCollector,StarTable)}
+     * if the caller needs to decorate the splittable in some way,
+     * for instance to monitor progress.
+     * The supplied splittable will be closed by the collection operation.
+     *
+     * @param   collector   collector defining operation
+     * @param   splittable  splittable supplying row data
+     * @return   result of collection
+     */
+    public <A> A collect( RowCollector<A> collector, RowSplittable splittable )
+            throws IOException {
         return invokeWithSmuggledIOException(
             () -> processor_.collect( collector, splittable )
         );
     }
 
+    /**
+     * Indicates whether this runner will attempt to split the given
+     * splittable when processing it.
+     *
+     * @param  splittable  row splittable
+     * @return  true iff processing by this runner may be parallel
+     */
+    public boolean willAttemptSplit( RowSplittable splittable ) {
+        return processor_.willAttemptSplit( splittable );
+    }
+
     /**
      * Acquires a splittable row sequence from a table.
      * The default implementation just calls {@link StarTable#getRowSplittable},
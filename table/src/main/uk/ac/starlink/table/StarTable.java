@@ -200,6 +200,29 @@ public interface StarTable extends Closeable {
      */
     RowSplittable getRowSplittable() throws IOException;
 
+    /**
+     * Returns an object which can iterate over the rows of this table
+     * in blocks, presenting the values of selected columns as vectors.
+     * Only the columns listed in <code>icols</code> may be read
+     * from the returned cursor.
+     *
+     * <p>The default implementation adapts the result of
+     * {@link #getRowSequence}, so it offers no efficiency gain over
+     * row-based access.  Implementations which can read column data
+     * in bulk or without object creation should override it.
+     * Tables that modify the data of an upstream table should not
+     * delegate this method to it.
+     *
+     * @param  icols  indices of the columns that will be read
+     * @param  maxBatch  maximum number of rows in each batch
+     * @return  new batch cursor
+     * @see  ColumnBatchCursor
+     */
+    default ColumnBatchCursor getColumnBatchCursor( int[] icols, int maxBatch )
+            throws IOException {
+        return new RowBatchCursor( getRowSequence(), icols, maxBatch );
+    }
+
     /**
      * Indicates whether random access is provided by this table.
      * Only if the result is <tt>true</tt> may the {@link #getRowAccess},
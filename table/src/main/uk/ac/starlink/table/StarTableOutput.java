@@ -48,6 +48,8 @@ import uk.ac.starlink.util.Loader;
  * <li> {@link uk.ac.starlink.votable.VOTableWriter}
  * <li> {@link uk.ac.starlink.ecsv.EcsvTableWriter}
  * <li> {@link uk.ac.starlink.feather.FeatherTableWriter}
+ * <li> {@link uk.ac.starlink.feather.ArrowTableWriter}
+ * <li> {@link uk.ac.starlink.feather.ArrowStreamTableWriter}
  * <li> {@link uk.ac.starlink.table.formats.TextTableWriter}
  * <li> {@link uk.ac.starlink.table.formats.AsciiTableWriter}
  * <li> {@link uk.ac.starlink.table.formats.CsvTableWriter}
@@ -81,6 +83,8 @@ public class StarTableOutput {
         "uk.ac.starlink.votable.VOTableWriter",
         "uk.ac.starlink.ecsv.EcsvTableWriter",
         "uk.ac.starlink.feather.FeatherTableWriter",
+        "uk.ac.starlink.feather.ArrowTableWriter",
+        "uk.ac.starlink.feather.ArrowStreamTableWriter",
         TextTableWriter.class.getName(),
         AsciiTableWriter.class.getName(),
         CsvTableWriter.class.getName(),
@@ -0,0 +1,291 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Divides a CSV file into byte ranges which each contain a whole number
+ * of records, so that the ranges can be parsed independently.
+ *
+ * <p>A line break only terminates a record if it is not inside
+ * a quoted field, which is the case if an even number of double quote
+ * characters precede it in the file.  The double quote is a single-byte
+ * character in all the encodings of interest and never appears
+ * as part of a multi-byte sequence, so the quote parity at any position
+ * can be determined by counting bytes.  This class first counts
+ * the quotes in each nominal fixed-size chunk of the file in parallel,
+ * then uses the cumulative counts to find the first real record
+ * boundary following each nominal chunk start, again in parallel.
+ * The resulting boundaries are exact, not heuristic.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class CsvSplitter {
+
+    private static final int BUFSIZ = 64 * 1024;
+
+    /**
+     * Private constructor prevents instantiation.
+     */
+    private CsvSplitter() {
+    }
+
+    /**
+     * Returns the byte offsets of record boundaries dividing a file
+     * into approximately equal-sized ranges.
+     * The returned array starts with 0 and ends with the file length;
+     * each other element is the offset of the first byte following
+     * a run of record-terminating line end characters.
+     * Range <code>i</code> runs from element <code>i</code>
+     * (inclusive) to element <code>i+1</code> (exclusive).
+     * Adjacent elements are always distinct.
+     *
+     * @param  file  CSV file
+     * @param  chunkSize  nominal size in bytes of each range
+     * @return   array of range boundary offsets
+     */
+    public static long[] findRecordBoundaries( File file, long chunkSize )
+            throws IOException {
+        final long leng = file.length();
+        final int nchunk = (int) Math.max( 1, ( leng + chunkSize - 1 )
+                                              / chunkSize );
+        long[] starts = new long[ nchunk + 1 ];
+        for ( int ic = 0; ic < nchunk; ic++ ) {
+            starts[ ic ] = ic * chunkSize;
+        }
+        starts[ nchunk ] = leng;
+
+        /* Count the quote characters in each chunk. */
+        List<Long> nquotes = invokeParallel( nchunk, ic -> {
+            long[] counts = new long[ 1 ];
+            scan( file, starts[ ic ], starts[ ic + 1 ], b -> {
+                if ( b == '"' ) {
+                    counts[ 0 ]++;
+                }
+                return true;
+            } );
+            return Long.valueOf( counts[ 0 ] );
+        } );
+
+        /* Work out whether each chunk starts inside or outside a
+         * quoted string. */
+        final boolean[] inQuotes = new boolean[ nchunk ];
+        long nq = 0;
+        for ( int ic = 0; ic < nchunk; ic++ ) {
+            inQuotes[ ic ] = ( nq & 1 ) != 0;
+            nq += nquotes.get( ic ).longValue();
+        }
+
+        /* Find the first record boundary at or after each chunk start. */
+        List<Long> bounds = invokeParallel( nchunk, ic -> {
+            return Long.valueOf( ic == 0 ? 0L
+                                         : findBoundary( file, starts[ ic ],
+                                                         leng,
+                                                         inQuotes[ ic ] ) );
+        } );
+
+        /* Assemble a list of distinct boundaries.  Boundaries may coincide
+         * if a record spans more than one chunk. */
+        long[] offsets = new long[ nchunk + 1 ];
+        int nb = 0;
+        offsets[ nb++ ] = 0;
+        for ( int ic = 1; ic < nchunk; ic++ ) {
+            long b = bounds.get( ic ).longValue();
+            if ( b > offsets[ nb - 1 ] && b < leng ) {
+                offsets[ nb++ ] = b;
+            }
+        }
+        offsets[ nb++ ] = leng;
+        long[] result = new long[ nb ];
+        System.arraycopy( offsets, 0, result, 0, nb );
+        return result;
+    }
+
+    /**
+     * Returns an input stream reading a given byte range of a file.
+     *
+     * @param  file  file
+     * @param  start  offset of first byte to read
+     * @param  end   offset after last byte to read
+     * @return  input stream, unbuffered
+     */
+    public static InputStream openRange( File file, long start, long end )
+            throws IOException {
+        final FileInputStream fin = new FileInputStream( file );
+        fin.getChannel().position( start );
+        return new FilterInputStream( fin ) {
+            long remaining_ = end - start;
+            @Override
+            public int read() throws IOException {
+                if ( remaining_ <= 0 ) {
+                    return -1;
+                }
+                int b = super.read();
+                if ( b >= 0 ) {
+                    remaining_--;
+                }
+                return b;
+            }
+            @Override
+            public int read( byte[] buf, int off, int len ) throws IOException {
+                if ( remaining_ <= 0 ) {
+                    return -1;
+                }
+                int n = super.read( buf, off,
+                                    (int) Math.min( len, remaining_ ) );
+                if ( n > 0 ) {
+                    remaining_ -= n;
+                }
+                return n;
+            }
+            @Override
+            public long skip( long n ) throws IOException {
+                long nskip = super.skip( Math.min( n, remaining_ ) );
+                remaining_ -= nskip;
+                return nskip;
+            }
+            @Override
+            public int available() throws IOException {
+                return (int) Math.min( super.available(), remaining_ );
+            }
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Locates the first record boundary at or after a given position.
+     *
+     * @param  file  file
+     * @param  start  offset at which to start looking
+     * @param  leng   file length
+     * @param  inQuotes  whether the byte at <code>start</code>
+     *                   is inside a quoted string
+     * @return  offset of first byte following the first unquoted run
+     *          of line end characters, or the file length if none
+     */
+    private static long findBoundary( File file, long start, long leng,
+                                      boolean inQuotes ) throws IOException {
+
+        /* Track quote state until an unquoted line end is found,
+         * then continue to the end of the run of line end characters. */
+        final boolean[] quoted = new boolean[] { inQuotes };
+        final boolean[] inEol = new boolean[ 1 ];
+        final long[] pos = new long[] { start };
+        scan( file, start, leng, b -> {
+            boolean isEol = b == '\r' || b == '\n';
+            if ( inEol[ 0 ] ) {
+                if ( ! isEol ) {
+                    return false;
+                }
+            }
+            else if ( b == '"' ) {
+                quoted[ 0 ] = ! quoted[ 0 ];
+            }
+            else if ( isEol && ! quoted[ 0 ] ) {
+                inEol[ 0 ] = true;
+            }
+            pos[ 0 ]++;
+            return true;
+        } );
+        return pos[ 0 ];
+    }
+
+    /**
+     * Feeds the bytes of a file range to a callback until it declines
+     * further input.
+     *
+     * @param  file  file
+     * @param  start  offset of first byte
+     * @param  end   offset after last byte
+     * @param  consumer  callback
+     */
+    private static void scan( File file, long start, long end,
+                              ByteConsumer consumer ) throws IOException {
+        try ( FileInputStream fin = new FileInputStream( file ) ) {
+            FileChannel chan = fin.getChannel();
+            ByteBuffer bbuf = ByteBuffer.allocate( BUFSIZ );
+            byte[] buf = bbuf.array();
+            for ( long pos = start; pos < end; ) {
+                bbuf.clear();
+                bbuf.limit( (int) Math.min( BUFSIZ, end - pos ) );
+                int n = chan.read( bbuf, pos );
+                if ( n < 0 ) {
+                    return;
+                }
+                for ( int i = 0; i < n; i++ ) {
+                    if ( ! consumer.accept( buf[ i ] ) ) {
+                        return;
+                    }
+                }
+                pos += n;
+            }
+        }
+    }
+
+    /**
+     * Evaluates a function for each of a range of indices in parallel.
+     *
+     * @param  n  number of indices
+     * @param  func  function to evaluate
+     * @return   n-element list of results in index order
+     */
+    public static <T> List<T> invokeParallel( int n, IndexFunction<T> func )
+            throws IOException {
+        try {
+            return IntStream.range( 0, n ).parallel().mapToObj( i -> {
+                try {
+                    return func.apply( i );
+                }
+                catch ( IOException e ) {
+                    throw new UncheckedIOException( e );
+                }
+            } ).collect( Collectors.toList() );
+        }
+        catch ( UncheckedIOException e ) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Receives bytes.
+     */
+    @FunctionalInterface
+    private interface ByteConsumer {
+
+        /**
+         * Accepts a byte.
+         *
+         * @param  b  byte value
+         * @return  true to continue, false to stop
+         */
+        boolean accept( byte b );
+    }
+
+    /**
+     * Function of an integer index that can throw an IOException.
+     */
+    @FunctionalInterface
+    public interface IndexFunction<T> {
+
+        /**
+         * Evaluates the function.
+         *
+         * @param  index  index
+         * @return  result
+         */
+        T apply( int index ) throws IOException;
+    }
+}
@@ -1,14 +1,19 @@
 package uk.ac.starlink.table.formats;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.PushbackInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongSupplier;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.TableFormatException;
+import uk.ac.starlink.util.Compression;
 import uk.ac.starlink.util.DataSource;
+import uk.ac.starlink.util.FileDataSource;
 
 /**
  * Comma-Separated Value table.
@@ -34,19 +39,58 @@ import uk.ac.starlink.util.DataSource;
  *     followed for such a row as for data rows.
  * </ul>
  *
+ * <p>If the data comes from an uncompressed file larger than a few
+ * tens of megabytes, the file is divided into byte ranges at record
+ * boundaries (see {@link CsvSplitter}), and both the initial metadata
+ * scan and the {@link #getRowSplittable RowSplittable} work on those
+ * ranges in parallel.  Other data sources are read sequentially.
+ *
  * @author   Mark Taylor (Starlink)
  * @since    21 Sep 2004
  */
 public class CsvStarTable extends StreamStarTable {
 
+    private final long chunkSize_;
     private boolean hasHeading_;
+    private File splitFile_;
+    private long[] rangeOffsets_;
+    private long[] rangeRowStarts_;
+
+    /** Default nominal size in bytes of the ranges for parallel reading. */
+    static final long DFLT_CHUNK_SIZE = 16 * 1024 * 1024;
 
+    /**
+     * Constructor.
+     *
+     * @param  datsrc  data source
+     */
     public CsvStarTable( DataSource datsrc )
             throws TableFormatException, IOException {
+        this( datsrc, DFLT_CHUNK_SIZE );
+    }
+
+    /**
+     * Constructor with configurable parallel range size.
+     * If the data source is a file of more than <code>chunkSize</code>
+     * bytes it will be read in ranges of about that size.
+     *
+     * @param  datsrc  data source
+     * @param  chunkSize  nominal size in bytes of ranges for parallel reading
+     */
+    CsvStarTable( DataSource datsrc, long chunkSize )
+            throws TableFormatException, IOException {
         super();
+        chunkSize_ = chunkSize;
         init( datsrc );
     }
 
+    @Override
+    public RowSplittable getRowSplittable() throws IOException {
+        return rangeOffsets_ == null
+             ? super.getRowSplittable()
+             : new RangeRowSplittable( 0, rangeOffsets_.length - 1 );
+    }
+
     protected PushbackInputStream getInputStream() throws IOException {
         PushbackInputStream in = super.getInputStream();
 
@@ -60,6 +104,16 @@ public class CsvStarTable extends StreamStarTable {
     protected RowEvaluator.Metadata obtainMetadata()
             throws TableFormatException, IOException {
 
+        /* If the data is in a large enough file, scan it in parallel. */
+        File file = getSplittableFile();
+        if ( file != null ) {
+            long[] offsets =
+                CsvSplitter.findRecordBoundaries( file, chunkSize_ );
+            if ( offsets.length > 2 ) {
+                return obtainRangeMetadata( file, offsets );
+            }
+        }
+
         /* Get an input stream. */
         PushbackInputStream in = super.getInputStream();
 
@@ -87,6 +141,81 @@ public class CsvStarTable extends StreamStarTable {
                 in.close();
             }
         }
+        return createMetadata( row0, evaluator );
+    }
+
+    /**
+     * Obtains metadata by scanning byte ranges of a file in parallel.
+     * As well as returning the metadata, this records the range
+     * information required for subsequent parallel reads.
+     *
+     * @param  file  CSV file
+     * @param  offsets  record boundary offsets as returned by
+     *                  {@link CsvSplitter#findRecordBoundaries}
+     * @return  table metadata
+     */
+    private RowEvaluator.Metadata obtainRangeMetadata( File file,
+                                                       long[] offsets )
+            throws TableFormatException, IOException {
+        int nrange = offsets.length - 1;
+        String[][] row0s = new String[ 1 ][];
+        List<RowEvaluator> evaluators =
+                CsvSplitter.invokeParallel( nrange, ir -> {
+            RowEvaluator evaluator = new RowEvaluator();
+            try ( PushbackInputStream in = openRange( file, offsets, ir ) ) {
+
+                /* Hold back the first row of the first range, as for
+                 * sequential reading. */
+                if ( ir == 0 ) {
+                    row0s[ 0 ] = readRow( in ).toArray( new String[ 0 ] );
+                }
+                for ( List<String> row; ( row = readRow( in ) ) != null; ) {
+                    evaluator.submitRow( row );
+                }
+            }
+            catch ( TableFormatException e ) {
+                throw new TableFormatException( e.getMessage()
+                                              + " in range starting at byte "
+                                              + offsets[ ir ], e );
+            }
+            return evaluator;
+        } );
+
+        /* Combine the results. */
+        RowEvaluator evaluator = new RowEvaluator();
+        for ( RowEvaluator ev : evaluators ) {
+            evaluator.merge( ev );
+        }
+        RowEvaluator.Metadata meta = createMetadata( row0s[ 0 ], evaluator );
+
+        /* Record the index of the first row in each range. */
+        long[] rowStarts = new long[ nrange + 1 ];
+        long irow = hasHeading_ ? 0 : 1;
+        for ( int ir = 0; ir < nrange; ir++ ) {
+            rowStarts[ ir ] = ir == 0 ? 0 : irow;
+            irow += evaluators.get( ir ).getRowCount();
+        }
+        rowStarts[ nrange ] = irow;
+        assert irow == meta.nrow_;
+        splitFile_ = file;
+        rangeOffsets_ = offsets;
+        rangeRowStarts_ = rowStarts;
+        return meta;
+    }
+
+    /**
+     * Determines the table metadata given the first row and an evaluator
+     * which has seen all the other rows.
+     * As a side effect, this determines whether the first row is
+     * a header.
+     *
+     * @param  row0  cells of first row
+     * @param  evaluator  evaluator which has seen all subsequent rows
+     * @return  table metadata
+     */
+    private RowEvaluator.Metadata createMetadata( String[] row0,
+                                                  RowEvaluator evaluator )
+            throws TableFormatException {
 
         /* Get a first look at the metadata (may be adjusted later). */
         RowEvaluator.Metadata meta = evaluator.getMetadata();
@@ -139,6 +268,42 @@ public class CsvStarTable extends StreamStarTable {
         }
     }
 
+    /**
+     * Returns the file underlying this table's data source if it is
+     * suitable for reading in ranges.
+     *
+     * @return  uncompressed data file, or null
+     */
+    private File getSplittableFile() throws IOException {
+        DataSource datsrc = getDataSource();
+        if ( datsrc instanceof FileDataSource
+             && datsrc.getPosition() == null
+             && datsrc.getCompression() == Compression.NONE ) {
+            File file = ((FileDataSource) datsrc).getFile();
+            return file.length() > chunkSize_ ? file : null;
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a buffered stream reading one of a file's record ranges.
+     *
+     * @param  file  file
+     * @param  offsets  range boundary offsets
+     * @param  irange  range index
+     * @return  input stream
+     */
+    private static PushbackInputStream openRange( File file, long[] offsets,
+                                                  int irange )
+            throws IOException {
+        return new PushbackInputStream(
+                   new BufferedInputStream(
+                       CsvSplitter.openRange( file, offsets[ irange ],
+                                              offsets[ irange + 1 ] ) ) );
+    }
+
     /**
      * Reads the next row of data from a given stream.
      * Ignorable rows are skipped; comments may be stashed away.
@@ -251,4 +416,79 @@ public class CsvStarTable extends StreamStarTable {
             }
         }
     }
+
+    /**
+     * RowSplittable which reads a contiguous sequence of the
+     * record ranges into which the file has been divided.
+     */
+    private class RangeRowSplittable extends CellsRowSequence
+                                     implements RowSplittable {
+
+        private int irange_;
+        private final int irangeEnd_;
+        private long irow_;
+        private PushbackInputStream in_;
+        private boolean started_;
+
+        /**
+         * Constructor.
+         *
+         * @param  irangeStart  index of first range
+         * @param  irangeEnd    index after last range
+         */
+        RangeRowSplittable( int irangeStart, int irangeEnd ) {
+            irange_ = irangeStart;
+            irangeEnd_ = irangeEnd;
+            irow_ = rangeRowStarts_[ irangeStart ] - 1;
+        }
+
+        public long splittableSize() {
+            return rangeOffsets_[ irangeEnd_ ] - rangeOffsets_[ irange_ ];
+        }
+
+        public RowSplittable split() {
+            if ( ! started_ && irangeEnd_ - irange_ >= 2 ) {
+                int mid = ( irange_ + irangeEnd_ ) / 2;
+                RowSplittable split = new RangeRowSplittable( irange_, mid );
+                irange_ = mid;
+                irow_ = rangeRowStarts_[ mid ] - 1;
+                return split;
+            }
+            else {
+                return null;
+            }
+        }
+
+        public LongSupplier rowIndex() {
+            return () -> irow_;
+        }
+
+        protected List<String> readCells() throws IOException {
+            started_ = true;
+            while ( irange_ < irangeEnd_ ) {
+                if ( in_ == null ) {
+                    in_ = openRange( splitFile_, rangeOffsets_, irange_ );
+                    if ( irange_ == 0 && hasHeading_ ) {
+                        readRow( in_ );
+                    }
+                }
+                List<String> cellList = readRow( in_ );
+                if ( cellList != null ) {
+                    irow_++;
+                    return cellList;
+                }
+                in_.close();
+                in_ = null;
+                irange_++;
+            }
+            return null;
+        }
+
+        public void close() throws IOException {
+            if ( in_ != null ) {
+                in_.close();
+                in_ = null;
+            }
+        }
+    }
 }
@@ -1,10 +1,13 @@
 package uk.ac.starlink.table.formats;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowBlockEncoder;
+import uk.ac.starlink.table.RowBlockWriter;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StarTableWriter;
@@ -119,37 +122,44 @@ public class CsvTableWriter extends DocumentedStreamStarTableWriter {
 
     public void writeStarTable( StarTable table, OutputStream ostrm )
             throws IOException {
-        Writer out = new OutputStreamWriter( ostrm );
         int ncol = table.getColumnCount();
         ColumnInfo[] cinfos = Tables.getColumnInfos( table );
-        RowSequence rseq = table.getRowSequence();
-        try {
-
-            /* Write the headings if required. */
-            if ( getWriteHeader() ) {
-                String[] headRow = new String[ ncol ];
-                for ( int icol = 0; icol < ncol; icol++ ) {
-                    headRow[ icol ] = cinfos[ icol ].getName();
-                }
-                writeRow( out, headRow );
-            }
 
-            /* Write the data. */
-            String[] dataRow = new String[ ncol ];
-            while ( rseq.next() ) {
-                Object[] row = rseq.getRow();
-                for ( int icol = 0; icol < ncol; icol++ ) {
-                    dataRow[ icol ] = cinfos[ icol ]
-                                     .formatValue( row[ icol ],
-                                                   maxFieldChars_ );
-                }
-                writeRow( out, dataRow );
+        /* Write the headings if required. */
+        if ( getWriteHeader() ) {
+            Writer out = new OutputStreamWriter( ostrm );
+            String[] headRow = new String[ ncol ];
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                headRow[ icol ] = cinfos[ icol ].getName();
             }
-        }
-        finally {
+            writeRow( out, headRow );
             out.flush();
-            rseq.close();
         }
+
+        /* Write the data.  Blocks of rows may be formatted in
+         * different threads. */
+        RowBlockEncoder<byte[]> encoder = new RowBlockEncoder<byte[]>() {
+            public byte[] encodeRows( RowSequence rseq ) throws IOException {
+                ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                Writer out = new OutputStreamWriter( bout );
+                String[] dataRow = new String[ ncol ];
+                while ( rseq.next() ) {
+                    Object[] row = rseq.getRow();
+                    for ( int icol = 0; icol < ncol; icol++ ) {
+                        dataRow[ icol ] = cinfos[ icol ]
+                                         .formatValue( row[ icol ],
+                                                       maxFieldChars_ );
+                    }
+                    writeRow( out, dataRow );
+                }
+                out.flush();
+                return bout.toByteArray();
+            }
+            public void writeBlock( byte[] block ) throws IOException {
+                ostrm.write( block );
+            }
+        };
+        RowBlockWriter.getDefaultInstance().writeRows( table, encoder );
     }
 
     /**
@@ -3,6 +3,7 @@ package uk.ac.starlink.table.formats;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -39,7 +40,6 @@ class IpacReader implements RowSequence {
     private final DescribedValue[] params_;
     private final LineSequence lseq_;
     private String dataLine_;
-    private String[] dataTokens_;
 
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.table.formats" );
@@ -124,20 +124,19 @@ class IpacReader implements RowSequence {
 
     public boolean next() throws IOException {
         dataLine_ = lseq_.nextLine();
-        dataTokens_ = null;
+        Arrays.fill( tokens_, null );
         return dataLine_ != null;
     }
 
     public Object getCell( int icol ) throws IOException {
-        return colReaders_[ icol ].readValue( getDataTokens()[ icol ] );
+        return colReaders_[ icol ].readValue( getDataToken( icol ) );
     }
 
     public Object[] getRow() throws IOException {
         int ncol = colReaders_.length;
-        String[] tokens = getDataTokens();
         Object[] row = new Object[ ncol ];
         for ( int icol = 0; icol < ncol; icol++ ) {
-            row[ icol ] = colReaders_[ icol ].readValue( tokens[ icol ] );
+            row[ icol ] = colReaders_[ icol ].readValue( getDataToken( icol ) );
         }
         return row;
     }
@@ -147,19 +146,27 @@ class IpacReader implements RowSequence {
     }
 
     /**
-     * Returns the array of per-column data tokens for the current data row,
-     * if necessary first reading it from the current row text.
+     * Returns the data token for a given column of the current data row,
+     * if necessary first extracting it from the current row text.
+     * Only the tokens that are requested are extracted.
      *
-     * @return   data token array
+     * @param  icol  column index
+     * @return   trimmed string giving the column contents
      */
-    private String[] getDataTokens() throws IOException {
+    private String getDataToken( int icol ) {
         if ( dataLine_ == null ) {
             throw new IllegalStateException( "next() not yet called" );
         }
-        if ( dataTokens_ == null ) {
-            dataTokens_ = readDataTokens( dataLine_ );
+        String token = tokens_[ icol ];
+        if ( token == null ) {
+            int leng = dataLine_.length();
+            int ipos = icol == 0 ? 0 : ends_[ icol - 1 ];
+            token = dataLine_.substring( Math.min( ipos, leng ),
+                                         Math.min( ends_[ icol ], leng ) )
+                             .trim();
+            tokens_[ icol ] = token;
         }
-        return dataTokens_;
+        return token;
     }
 
     /**
@@ -180,24 +187,6 @@ class IpacReader implements RowSequence {
         return tokens;
     }
 
-    /**
-     * Parses a data line and returns the tokens.
-     *
-     * @return  array of trimmed strings giving the per-column contents of
-     *          a data line
-     */
-    private String[] readDataTokens( String line ) {
-        int ipos = 0;
-        String[] tokens = tokens_;
-        int leng = line.length();
-        for ( int icol = 0; icol < tokens.length; icol++ ) {
-            tokens[ icol ] = 
-                line.substring( ipos, Math.min( ends_[ icol ], leng ) ).trim();
-            ipos = ends_[ icol ];
-        }
-        return tokens;
-    }
-
     /**
      * Reads all the header lines next up in a line sequence.
      * Header lines are ones that start with a '|' character.
@@ -415,12 +404,13 @@ class IpacReader implements RowSequence {
                         return null;
                     }
                     else {
-                        try {
-                            return Integer.valueOf( token );
-                        }
-                        catch ( NumberFormatException e ) {
-                            return null;
-                        }
+                        int leng = token.length();
+                        return NumberParser
+                              .isInteger( token, 0, leng, Integer.MIN_VALUE,
+                                          Integer.MAX_VALUE )
+                             ? Integer.valueOf( (int) NumberParser
+                                               .parseLong( token, 0, leng ) )
+                             : null;
                     }
                 }
             };
@@ -433,12 +423,13 @@ class IpacReader implements RowSequence {
                         return null;
                     }
                     else {
-                        try {
-                            return Long.valueOf( token );
-                        }
-                        catch ( NumberFormatException e ) {
-                            return null;
-                        }
+                        int leng = token.length();
+                        return NumberParser
+                              .isInteger( token, 0, leng, Long.MIN_VALUE,
+                                          Long.MAX_VALUE )
+                             ? Long.valueOf( NumberParser
+                                            .parseLong( token, 0, leng ) )
+                             : null;
                     }
                 }
             };
@@ -452,12 +443,11 @@ class IpacReader implements RowSequence {
                         return null;
                     }
                     else {
-                        try {
-                            return Double.valueOf( token );
-                        }
-                        catch ( NumberFormatException e ) {
-                            return null;
-                        }
+                        int leng = token.length();
+                        return NumberParser.floatDigits( token, 0, leng ) >= 0
+                             ? Double.valueOf( NumberParser
+                                              .parseDouble( token, 0, leng ) )
+                             : null;
                     }
                 }
             };
@@ -471,12 +461,11 @@ class IpacReader implements RowSequence {
                         return null;
                     }
                     else {
-                        try {
-                            return Float.valueOf( token );
-                        }
-                        catch ( NumberFormatException e ) {
-                            return null;
-                        }
+                        int leng = token.length();
+                        return NumberParser.floatDigits( token, 0, leng ) >= 0
+                             ? Float.valueOf( NumberParser
+                                             .parseFloat( token, 0, leng ) )
+                             : null;
                     }
                 }
             };  
@@ -0,0 +1,423 @@
+package uk.ac.starlink.table.formats;
+
+/**
+ * Utilities for checking and parsing numeric values in text without
+ * object allocation.
+ *
+ * <p>The methods here work on a region of a CharSequence,
+ * so callers do not need to extract substrings.
+ * Syntax checks report invalid input by return value rather than
+ * by throwing a NumberFormatException; since text-format readers
+ * typically try several candidate types for each cell during type
+ * inference, most checks fail, and the cost of creating and throwing
+ * exceptions would otherwise dominate.
+ *
+ * <p>The floating point syntax understood is
+ * an optional sign, followed by either a decimal mantissa
+ * with an optional exponent introduced by one of the characters
+ * "<code>eEdD</code>",
+ * or one of the (case-insensitive) special values
+ * "<code>NaN</code>", "<code>Inf</code>" or "<code>Infinity</code>".
+ * Surrounding whitespace is not permitted.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class NumberParser {
+
+    /** Exact powers of ten representable as doubles. */
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22,
+    };
+
+    /** Exact powers of ten representable as floats. */
+    private static final float[] FPOW10 = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f,
+    };
+
+    /** Maximum number of significant digits for the exact fast path. */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    /** Maximum number of significant digits for the exact float fast path.*/
+    private static final int MAX_FAST_FLOAT_DIGITS = 7;
+
+    /**
+     * Private constructor prevents instantiation.
+     */
+    private NumberParser() {
+    }
+
+    /**
+     * Indicates whether a region of text represents a decimal integer
+     * within given bounds.  An optional leading sign is permitted.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @param  min   minimum permitted value
+     * @param  max   maximum permitted value
+     * @return  true iff the region is a legal integer in the given range
+     */
+    public static boolean isInteger( CharSequence txt, int start, int end,
+                                     long min, long max ) {
+        int i = start;
+        if ( i < end && isSign( txt.charAt( i ) ) ) {
+            i++;
+        }
+        int ndigit = end - i;
+        if ( ndigit <= 0 ) {
+            return false;
+        }
+        long uval = 0;
+        for ( ; i < end; i++ ) {
+            char c = txt.charAt( i );
+            if ( c < '0' || c > '9' ) {
+                return false;
+            }
+            uval = uval * 10 + ( c - '0' );
+        }
+
+        /* Up to 18 digits cannot overflow a long; beyond that, parse
+         * carefully. */
+        if ( ndigit <= 18 ) {
+            long value = txt.charAt( start ) == '-' ? -uval : uval;
+            return value >= min && value <= max;
+        }
+        else {
+            boolean isNeg = txt.charAt( start ) == '-';
+            long limit = isNeg ? min : -max;
+            if ( limit > 0 ) {
+                return false;
+            }
+            long multmin = limit / 10;
+            long acc = 0;
+            for ( i = end - ndigit; i < end; i++ ) {
+                int d = txt.charAt( i ) - '0';
+                if ( acc < multmin ) {
+                    return false;
+                }
+                acc *= 10;
+                if ( acc < limit + d ) {
+                    return false;
+                }
+                acc -= d;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parses a region of text as a decimal integer.
+     * The region must have passed the {@link #isInteger isInteger} test
+     * for the range of <code>long</code>; otherwise the result is undefined.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @return  integer value
+     */
+    public static long parseLong( CharSequence txt, int start, int end ) {
+        int i = start;
+        char c0 = txt.charAt( i );
+        boolean isNeg = c0 == '-';
+        if ( isSign( c0 ) ) {
+            i++;
+        }
+
+        /* Accumulate negatively so that Long.MIN_VALUE is reachable. */
+        long acc = 0;
+        for ( ; i < end; i++ ) {
+            acc = acc * 10 - ( txt.charAt( i ) - '0' );
+        }
+        return isNeg ? acc : -acc;
+    }
+
+    /**
+     * Checks whether a region of text represents a floating point number,
+     * and if so returns the number of digits in its mantissa.
+     * For compatibility with earlier behaviour, all mantissa digits
+     * including leading zeros are counted.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @return   number of mantissa digits (zero for NaN or infinite values),
+     *           or -1 if the region is not a floating point number
+     */
+    public static int floatDigits( CharSequence txt, int start, int end ) {
+        int i = start;
+        if ( i < end && isSign( txt.charAt( i ) ) ) {
+            i++;
+        }
+        if ( i >= end ) {
+            return -1;
+        }
+        char c = txt.charAt( i );
+        if ( c == 'n' || c == 'N' || c == 'i' || c == 'I' ) {
+            return getSpecial( txt, i, end ) == 0 ? -1 : 0;
+        }
+
+        /* Mantissa. */
+        int ndigit = 0;
+        boolean hasPoint = false;
+        for ( ; i < end; i++ ) {
+            c = txt.charAt( i );
+            if ( c >= '0' && c <= '9' ) {
+                ndigit++;
+            }
+            else if ( c == '.' && ! hasPoint ) {
+                hasPoint = true;
+            }
+            else {
+                break;
+            }
+        }
+        if ( ndigit == 0 ) {
+            return -1;
+        }
+        if ( i == end ) {
+            return ndigit;
+        }
+
+        /* Exponent. */
+        if ( ! isExponentChar( c ) ) {
+            return -1;
+        }
+        i++;
+        if ( i < end && isSign( txt.charAt( i ) ) ) {
+            i++;
+        }
+        if ( i >= end ) {
+            return -1;
+        }
+        for ( ; i < end; i++ ) {
+            c = txt.charAt( i );
+            if ( c < '0' || c > '9' ) {
+                return -1;
+            }
+        }
+        return ndigit;
+    }
+
+    /**
+     * Parses a region of text as a floating point number.
+     * The region must have passed the {@link #floatDigits floatDigits} test;
+     * otherwise the result is undefined.
+     *
+     * <p>Mantissas of up to 15 significant digits with modest exponents,
+     * which covers most values found in practice, are converted
+     * directly, with correct rounding and without allocation.
+     * Other values are handed to {@link java.lang.Double#parseDouble}.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @return  double value
+     */
+    public static double parseDouble( CharSequence txt, int start, int end ) {
+        return parseDecimal( txt, start, end, false );
+    }
+
+    /**
+     * Parses a region of text as a single precision floating point number.
+     * The region must have passed the {@link #floatDigits floatDigits} test;
+     * otherwise the result is undefined.
+     *
+     * <p>The result is the float nearest to the decimal value,
+     * as given by {@link java.lang.Float#parseFloat};
+     * this is not always the same as the result of narrowing
+     * the nearest double, since that rounds twice.
+     * Mantissas of up to 7 significant digits with modest exponents
+     * are converted directly; other values are handed to
+     * <code>Float.parseFloat</code>.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @return  float value
+     */
+    public static float parseFloat( CharSequence txt, int start, int end ) {
+        return (float) parseDecimal( txt, start, end, true );
+    }
+
+    /**
+     * Does the work for parsing floating point values.
+     * If single precision is requested, the result is exactly
+     * representable as a float.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @param  isFloat  true for single precision, false for double
+     * @return  floating point value
+     */
+    private static double parseDecimal( CharSequence txt, int start, int end,
+                                        boolean isFloat ) {
+        int maxDigits = isFloat ? MAX_FAST_FLOAT_DIGITS : MAX_FAST_DIGITS;
+        int maxExp = isFloat ? FPOW10.length - 1 : POW10.length - 1;
+        int i = start;
+        char c0 = txt.charAt( i );
+        boolean isNeg = c0 == '-';
+        if ( isSign( c0 ) ) {
+            i++;
+        }
+        char c = txt.charAt( i );
+        if ( c == 'n' || c == 'N' || c == 'i' || c == 'I' ) {
+            int special = getSpecial( txt, i, end );
+            return special == 1 ? Double.NaN
+                                : isNeg ? Double.NEGATIVE_INFINITY
+                                        : Double.POSITIVE_INFINITY;
+        }
+
+        /* Accumulate significant mantissa digits, noting the position
+         * of the decimal point.  If there are too many digits for
+         * exact conversion, give up straight away. */
+        long mant = 0;
+        int nsig = 0;
+        int exp10 = 0;
+        boolean afterPoint = false;
+        for ( ; i < end; i++ ) {
+            c = txt.charAt( i );
+            if ( c >= '0' && c <= '9' ) {
+                if ( nsig > 0 || c != '0' ) {
+                    if ( ++nsig > maxDigits ) {
+                        return parseSlow( txt, start, end, isFloat );
+                    }
+                    mant = mant * 10 + ( c - '0' );
+                }
+                if ( afterPoint ) {
+                    exp10--;
+                }
+            }
+            else if ( c == '.' ) {
+                afterPoint = true;
+            }
+            else {
+                break;
+            }
+        }
+        if ( nsig == 0 ) {
+            return isNeg ? -0.0 : 0.0;
+        }
+
+        /* Exponent. */
+        if ( i < end ) {
+            i++;
+            boolean expNeg = false;
+            c = txt.charAt( i );
+            if ( isSign( c ) ) {
+                expNeg = c == '-';
+                i++;
+            }
+            int e = 0;
+            for ( ; i < end; i++ ) {
+                if ( e < 100000 ) {
+                    e = e * 10 + ( txt.charAt( i ) - '0' );
+                }
+            }
+            exp10 += expNeg ? -e : e;
+        }
+
+        /* Exact conversion is possible if the mantissa is exactly
+         * representable and so is the power of ten (Clinger's fast path). */
+        if ( exp10 >= -maxExp && exp10 <= maxExp ) {
+            double dval;
+            if ( isFloat ) {
+                dval = exp10 >= 0 ? (float) mant * FPOW10[ exp10 ]
+                                  : (float) mant / FPOW10[ -exp10 ];
+            }
+            else {
+                dval = exp10 >= 0 ? mant * POW10[ exp10 ]
+                                  : mant / POW10[ -exp10 ];
+            }
+            return isNeg ? -dval : dval;
+        }
+        else {
+            return parseSlow( txt, start, end, isFloat );
+        }
+    }
+
+    /**
+     * Parses a region of text as a floating point value using the
+     * Double or Float class.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @param  isFloat  true for single precision, false for double
+     * @return  floating point value
+     */
+    private static double parseSlow( CharSequence txt, int start, int end,
+                                     boolean isFloat ) {
+        String str = txt.subSequence( start, end ).toString()
+                        .replace( 'd', 'e' ).replace( 'D', 'e' );
+        return isFloat ? Float.parseFloat( str ) : Double.parseDouble( str );
+    }
+
+    /**
+     * Identifies special floating point values.
+     *
+     * @param  txt  text
+     * @param  start  index of first character following any sign
+     * @param  end    index after last character
+     * @return  1 for NaN, 2 for infinity, 0 for anything else
+     */
+    private static int getSpecial( CharSequence txt, int start, int end ) {
+        if ( regionMatches( txt, start, end, "nan" ) ) {
+            return 1;
+        }
+        else if ( regionMatches( txt, start, end, "inf" ) ||
+                  regionMatches( txt, start, end, "infinity" ) ) {
+            return 2;
+        }
+        else {
+            return 0;
+        }
+    }
+
+    /**
+     * Case-insensitive comparison of a text region with a lower-case string.
+     *
+     * @param  txt  text
+     * @param  start  index of first character
+     * @param  end    index after last character
+     * @param  lower  lower-case comparison string
+     * @return  true iff the region matches
+     */
+    private static boolean regionMatches( CharSequence txt, int start,
+                                          int end, String lower ) {
+        int n = lower.length();
+        if ( end - start != n ) {
+            return false;
+        }
+        for ( int i = 0; i < n; i++ ) {
+            if ( Character.toLowerCase( txt.charAt( start + i ) )
+                 != lower.charAt( i ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether a character is a numeric sign.
+     *
+     * @param  c  character
+     * @return  true for plus or minus
+     */
+    private static boolean isSign( char c ) {
+        return c == '-' || c == '+';
+    }
+
+    /**
+     * Indicates whether a character introduces an exponent.
+     *
+     * @param  c  character
+     * @return  true for e, E, d or D
+     */
+    private static boolean isExponentChar( char c ) {
+        return c == 'e' || c == 'E' || c == 'd' || c == 'D';
+    }
+}
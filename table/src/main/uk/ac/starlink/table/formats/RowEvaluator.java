@@ -2,7 +2,6 @@ package uk.ac.starlink.table.formats;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DomainMapper;
@@ -47,12 +46,6 @@ public class RowEvaluator {
     private static final Pattern DMS_REGEX = Pattern.compile(
         "[-+][ 0-9]?[0-9][:d ][ 0-6][0-9][:m ][0-6][0-9](\\.[0-9]*)?"
     );
-    private static final Pattern NAN_REGEX = Pattern.compile(
-        "NaN", Pattern.CASE_INSENSITIVE
-    );
-    private static final Pattern INFINITY_REGEX = Pattern.compile(
-        "([+-]?)(Infinity|inf)", Pattern.CASE_INSENSITIVE
-    );
 
     /** Decoder for booleans. */
     private static Decoder BOOLEAN_DECODER = new Decoder( Boolean.class ) {
@@ -80,68 +73,60 @@ public class RowEvaluator {
     /** Decoder for shorts. */
     private static Decoder SHORT_DECODER = new Decoder( Short.class ) {
         public Object decode( String value ) {
-            return new Short( Short.parseShort( value.trim() ) );
+            String v = value.trim();
+            return Short.valueOf( (short) NumberParser
+                                         .parseLong( v, 0, v.length() ) );
         }
         public boolean isValid( String value ) {
-            try {
-                return Short.parseShort( value ) != 0
-                    || value.charAt( 0 ) != '-';
-            }
-            catch ( NumberFormatException e ) {
-                return false;
-            }
+            return isInteger( value, Short.MIN_VALUE, Short.MAX_VALUE );
         }
     };
 
     /** Decoder for integers. */
     private static Decoder INTEGER_DECODER = new Decoder( Integer.class ) {
         public Object decode( String value ) {
-            return new Integer( Integer.parseInt( value.trim() ) );
+            String v = value.trim();
+            return Integer.valueOf( (int) NumberParser
+                                         .parseLong( v, 0, v.length() ) );
         }
         public boolean isValid( String value ) {
-            try {
-                return Integer.parseInt( value ) != 0
-                    || value.charAt( 0 ) != '-';
-            }
-            catch ( NumberFormatException e ) {
-                return false;
-            }
+            return isInteger( value, Integer.MIN_VALUE, Integer.MAX_VALUE );
         }
     };
 
     /** Decoder for longs. */
     private static Decoder LONG_DECODER = new Decoder( Long.class ) {
         public Object decode( String value ) {
-            return new Long( Long.parseLong( value.trim() ) );
+            String v = value.trim();
+            return Long.valueOf( NumberParser.parseLong( v, 0, v.length() ) );
         }
         public boolean isValid( String value ) {
-            try {
-                return Long.parseLong( value ) != 0L
-                    || value.charAt( 0 ) != '-';
-            }
-            catch ( NumberFormatException e ) {
-                return false;
-            }
+            return isInteger( value, Long.MIN_VALUE, Long.MAX_VALUE );
         }
     };
 
     /** Decoder for floats. */
     private static Decoder FLOAT_DECODER = new Decoder( Float.class ) {
         public Object decode( String value ) {
-            return new Float( (float) parseFloating( value.trim() ).dValue );
+            String v = value.trim();
+            int leng = v.length();
+            if ( NumberParser.floatDigits( v, 0, leng ) < 0 ) {
+                throw new NumberFormatException( "Not a number: \"" + v
+                                               + "\"" );
+            }
+            return Float.valueOf( NumberParser.parseFloat( v, 0, leng ) );
         }
         public boolean isValid( String value ) {
-            try {
-                ParsedFloat pf = parseFloating( value );
-                double dval = pf.dValue;
-                return dval == 0
-                    || Double.isNaN( dval )
-                    || Double.isInfinite( dval )
-                    || ( pf.sigFig <= 6 && isSinglePrecision( dval ) );
-            }
-            catch ( NumberFormatException e ) {
+            int leng = value.length();
+            int ndigit = NumberParser.floatDigits( value, 0, leng );
+            if ( ndigit < 0 ) {
                 return false;
             }
+            double dval = NumberParser.parseDouble( value, 0, leng );
+            return dval == 0
+                || Double.isNaN( dval )
+                || Double.isInfinite( dval )
+                || ( ndigit <= 6 && isSinglePrecision( dval ) );
         }
         private boolean isSinglePrecision( double dval ) {
             double absVal = Math.abs( dval );
@@ -152,16 +137,10 @@ public class RowEvaluator {
     /** Decoder for doubles. */
     private static Decoder DOUBLE_DECODER = new Decoder( Double.class ) {
         public Object decode( String value ) {
-            return new Double( parseFloating( value.trim() ).dValue );
+            return Double.valueOf( parseDouble( value.trim() ) );
         }
         public boolean isValid( String value ) {
-            try {
-                parseFloating( value );
-                return true;
-            }
-            catch ( NumberFormatException e ) {
-                return false;
-            }
+            return NumberParser.floatDigits( value, 0, value.length() ) >= 0;
         }
     };
 
@@ -352,6 +331,61 @@ public class RowEvaluator {
         }
     }
 
+    /**
+     * Incorporates the information gathered by another evaluator into
+     * this one.  The effect is as if all the rows submitted to
+     * <code>other</code> had been submitted to this object as well.
+     * This can be used to combine the results of evaluators which have
+     * examined different parts of a table in parallel.
+     * Note that for certain unusual mixtures of cell values
+     * (for instance a column containing both boolean and integer values)
+     * the column types inferred may depend on the order in which rows
+     * were submitted, so the result is not guaranteed to be identical
+     * to that from a single sequential evaluation.
+     *
+     * @param  other  evaluator whose results are to be merged in;
+     *                it is not affected by this call
+     * @throws  TableFormatException  if the two evaluators have seen
+     *          rows with different numbers of columns
+     */
+    public void merge( RowEvaluator other ) throws TableFormatException {
+        if ( other.ncol_ < 0 ) {
+            nrow_ += other.nrow_;
+            return;
+        }
+        if ( ncol_ < 0 ) {
+            init( other.ncol_ );
+        }
+        if ( other.ncol_ != ncol_ ) {
+            throw new TableFormatException(
+                "Wrong number of columns (expecting " + ncol_ +
+                ", found " + other.ncol_ + ")" );
+        }
+        for ( int icol = 0; icol < ncol_; icol++ ) {
+            maybeBoolean_[ icol ] &= other.maybeBoolean_[ icol ];
+            maybeShort_[ icol ] &= other.maybeShort_[ icol ];
+            maybeInteger_[ icol ] &= other.maybeInteger_[ icol ];
+            maybeLong_[ icol ] &= other.maybeLong_[ icol ];
+            maybeFloat_[ icol ] &= other.maybeFloat_[ icol ];
+            maybeDouble_[ icol ] &= other.maybeDouble_[ icol ];
+            maybeDate_[ icol ] &= other.maybeDate_[ icol ];
+            maybeHms_[ icol ] &= other.maybeHms_[ icol ];
+            maybeDms_[ icol ] &= other.maybeDms_[ icol ];
+            stringLength_[ icol ] = Math.max( stringLength_[ icol ],
+                                              other.stringLength_[ icol ] );
+        }
+        nrow_ += other.nrow_;
+    }
+
+    /**
+     * Returns the number of rows submitted so far.
+     *
+     * @return  row count
+     */
+    public long getRowCount() {
+        return nrow_;
+    }
+
     /**
      * Returns information gleaned from previous <tt>submitRow</tt>
      * calls about the kind of data that appears to be in the columns.
@@ -417,80 +451,38 @@ public class RowEvaluator {
     }
 
     /**
-     * Parses a floating point value.  This does a couple of extra things
-     * than Double.parseDouble - it understands 'd' or 'D' as the exponent
-     * signifier as well as 'e' or 'E', and it counts the number of
-     * significant figures.
+     * Indicates whether a string represents an integer in a given range.
+     * Negative zero is rejected, since it is most likely the
+     * hours/degrees part of a sexagesimal angle.
+     *
+     * @param  value  trimmed string
+     * @param  min   minimum permitted value
+     * @param  max   maximum permitted value
+     * @return  true iff <code>value</code> is a suitable integer
+     */
+    private static boolean isInteger( String value, long min, long max ) {
+        int leng = value.length();
+        return NumberParser.isInteger( value, 0, leng, min, max )
+            && ( value.charAt( 0 ) != '-'
+              || NumberParser.parseLong( value, 0, leng ) != 0 );
+    }
+
+    /**
+     * Parses a floating point value.  As well as the forms understood by
+     * Double.parseDouble, this understands 'd' or 'D' as the exponent
+     * signifier, and python-friendly special values like "nan" and "inf".
      *
      * @param   item  string representing a floating point number
-     * @return  object encapsulating information about the floating pont
-     *          value extracted from <tt>item</tt> - note it's always the
-     *          same instance returned, so don't hang onto it
+     * @return  floating point value
      * @throws  NumberFormatException  if <tt>item</tt> can't be understood
      *          as a float or double
      */
-    private static ParsedFloat parseFloating( String item ) {
-
-        /* Check for special values.  Although parseDouble picks up 
-         * some of these, it only works with java-friendly forms like
-         * "NaN" and not (e.g.) python-friendly ones like "nan". */
-        if ( NAN_REGEX.matcher( item ).matches() ) {
-            return ParsedFloat.NaN;
-        }
-        Matcher infMatcher = INFINITY_REGEX.matcher( item );
-        if ( infMatcher.matches() ) {
-            String sign = infMatcher.group( 1 );
-            return sign.length() > 0 && sign.charAt( 0 ) == '-'
-                 ? ParsedFloat.NEGATIVE_INFINITY
-                 : ParsedFloat.POSITIVE_INFINITY;
-        }
-
-        /* Do a couple of jobs by looking at the string directly:
-         * Substitute 'd' or 'D' which may indicate an exponent in
-         * FORTRAN77-style output for an 'e', and count the number of
-         * significant figures.  With some more work it would be possible
-         * to do the actual parse here, but since this probably isn't
-         * a huge bottleneck we leave it to Double.parseDouble. */
-        int nc = item.length();
-        boolean foundExp = false;
-        int sigFig = 0;
-        for ( int i = 0; i < nc; i++ ) {
-            char c = item.charAt( i );
-            switch ( c ) {
-                case 'd':
-                case 'D':
-                    if ( ! foundExp ) {
-                        StringBuffer sbuf = new StringBuffer( item );
-                        sbuf.setCharAt( i, 'e' );
-                        item = sbuf.toString();
-                    }
-                    foundExp = true;
-                    break;
-                case 'e':
-                case 'E':
-                    foundExp = true;
-                    break;
-                case '0':
-                case '1':
-                case '2':
-                case '3':
-                case '4':
-                case '5':
-                case '6':
-                case '7':
-                case '8':
-                case '9':
-                    if ( ! foundExp ) {
-                        sigFig++;
-                    }
-                    break;
-                default:
-            }
+    private static double parseDouble( String item ) {
+        int leng = item.length();
+        if ( NumberParser.floatDigits( item, 0, leng ) < 0 ) {
+            throw new NumberFormatException( "Not a number: \"" + item + "\"" );
         }
-
-        /* Parse the number. */
-        double dvalue = Double.parseDouble( item );
-        return new ParsedFloat( sigFig, dvalue );
+        return NumberParser.parseDouble( item, 0, leng );
     }
 
     /**
@@ -576,34 +568,4 @@ public class RowEvaluator {
             return value;
         }
     }
-
-    /**
-     * Helper class to encapsulate the result of a floating point number
-     * parse.
-     */
-    private static class ParsedFloat {
-
-        /** Number of significant figures. */
-        final int sigFig;
-
-        /** Value of the number. */
-        final double dValue;
-
-        static final ParsedFloat NaN = new ParsedFloat( 0, Double.NaN );
-        static final ParsedFloat POSITIVE_INFINITY =
-            new ParsedFloat( 0, Double.POSITIVE_INFINITY );
-        static final ParsedFloat NEGATIVE_INFINITY =
-            new ParsedFloat( 0, Double.NEGATIVE_INFINITY );
-
-        /**
-         * Constructor.
-         *
-         * @param  sigFig  number of significant figures
-         * @param  dValue  floating point value
-         */
-        ParsedFloat( int sigFig, double dValue ) {
-            this.sigFig = sigFig;
-            this.dValue = dValue;
-        }
-    }
 }
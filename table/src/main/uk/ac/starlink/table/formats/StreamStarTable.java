@@ -3,10 +3,10 @@ package uk.ac.starlink.table.formats;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.PushbackInputStream;
+import java.util.Arrays;
 import java.util.List;
 import uk.ac.starlink.table.AbstractStarTable;
 import uk.ac.starlink.table.ColumnInfo;
-import uk.ac.starlink.table.ReaderRowSequence;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.TableFormatException;
 import uk.ac.starlink.util.DataSource;
@@ -86,24 +86,13 @@ public abstract class StreamStarTable extends AbstractStarTable {
 
     public RowSequence getRowSequence() throws IOException {
         final PushbackInputStream in = getInputStream();
-        final int ncol = getColumnCount();
-        return new ReaderRowSequence() {
-            protected Object[] readRow() throws IOException {
+        return new CellsRowSequence() {
+            protected List<String> readCells() throws IOException {
                 List<String> cellList = StreamStarTable.this.readRow( in );
                 if ( cellList == null ) {
                     in.close();
-                    return null;
-                }
-                else {
-                    Object[] row = new Object[ ncol ];
-                    for ( int icol = 0; icol < ncol; icol++ ) {
-                        String sval = cellList.get( icol );
-                        if ( sval != null && sval.trim().length() > 0 ) {
-                            row[ icol ] = decoders_[ icol ].decode( sval );
-                        }
-                    }
-                    return row;
                 }
+                return cellList;
             }
             public void close() throws IOException {
                 in.close();
@@ -111,6 +100,30 @@ public abstract class StreamStarTable extends AbstractStarTable {
         };
     }
 
+    /**
+     * Decodes a cell string, as returned as an element of the list
+     * from {@link #readRow}, using this table's decoder for a given column.
+     * Blank cells are represented as nulls.
+     *
+     * @param  sval  cell string
+     * @param  icol  column index
+     * @return  typed cell value
+     */
+    protected Object decodeCell( String sval, int icol ) {
+        return sval != null && sval.trim().length() > 0
+             ? decoders_[ icol ].decode( sval )
+             : null;
+    }
+
+    /**
+     * Returns the data source from which this table was initialised.
+     *
+     * @return  data source, or null if {@link #init} has not been called
+     */
+    protected DataSource getDataSource() {
+        return datsrc_;
+    }
+
     /**
      * Convenience method which returns a buffered pushback stream based
      * on this table's data source.
@@ -148,4 +161,64 @@ public abstract class StreamStarTable extends AbstractStarTable {
      */
     protected abstract List<String> readRow( PushbackInputStream in )
             throws TableFormatException, IOException;
+
+    /**
+     * Partial RowSequence implementation which acquires each row as
+     * a list of cell strings and decodes cells only on request.
+     * Typed values, which are usually boxed, are therefore only created
+     * for the cells that a caller actually asks for.
+     */
+    protected abstract class CellsRowSequence implements RowSequence {
+
+        private final Object[] values_;
+        private final boolean[] decoded_;
+        private List<String> cells_;
+        private boolean done_;
+
+        /**
+         * Constructor.
+         */
+        protected CellsRowSequence() {
+            int ncol = getColumnCount();
+            values_ = new Object[ ncol ];
+            decoded_ = new boolean[ ncol ];
+        }
+
+        /**
+         * Reads the next row of cell strings.
+         *
+         * @return  list of strings one for each cell in the row,
+         *          or null at the end of the sequence
+         */
+        protected abstract List<String> readCells() throws IOException;
+
+        public boolean next() throws IOException {
+            if ( ! done_ ) {
+                cells_ = readCells();
+                done_ = cells_ == null;
+                Arrays.fill( decoded_, false );
+            }
+            return ! done_;
+        }
+
+        public Object getCell( int icol ) {
+            if ( cells_ == null ) {
+                throw new IllegalStateException( "No current row" );
+            }
+            if ( ! decoded_[ icol ] ) {
+                values_[ icol ] = decodeCell( cells_.get( icol ), icol );
+                decoded_[ icol ] = true;
+            }
+            return values_[ icol ];
+        }
+
+        public Object[] getRow() {
+            int ncol = values_.length;
+            Object[] row = new Object[ ncol ];
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                row[ icol ] = getCell( icol );
+            }
+            return row;
+        }
+    }
 }
@@ -19,6 +19,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.ColumnSizeCollector;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StarTableFactory;
@@ -41,18 +43,47 @@ public class JDBCFormatter {
     private final Map<Integer,String> typeNameMap_;
     private final SqlSyntax sqlSyntax_;
     private final boolean upperCasePreferred_;
+    private final boolean supportsBatch_;
+    private int batchSize_;
+    private int commitInterval_;
+
+    /** Default number of rows sent to the database in each batch. */
+    public static final int DFLT_BATCH_SIZE = 1000;
 
     private static Logger logger = 
         Logger.getLogger( "uk.ac.starlink.table.jdbc" );
 
     /**
-     * Constructor.
+     * Constructs a formatter which scans the table data if necessary
+     * to determine string column widths.
      *
      * @param  conn  JDBC connection
      * @param  table   input table
      */
     public JDBCFormatter( Connection conn, StarTable table )
             throws SQLException, IOException {
+        this( conn, table, 0 );
+    }
+
+    /**
+     * Constructs a formatter with control over how string column widths
+     * are determined.
+     * Where the width of a string column is not declared by its
+     * {@link ColumnInfo#getElementSize element size},
+     * it can either be determined by an extra pass through the table data,
+     * or set to a fixed default value.
+     * Using a default avoids the cost of a data scan,
+     * but the write will fail if the database rejects longer values.
+     *
+     * @param  conn  JDBC connection
+     * @param  table   input table
+     * @param  dfltCharSize  if positive, the width to use for string
+     *                       columns of undeclared size;
+     *                       if zero or negative, scan the data
+     *                       to determine widths
+     */
+    public JDBCFormatter( Connection conn, StarTable table, int dfltCharSize )
+            throws SQLException, IOException {
         conn_ = conn;
         table_ = table;
         typeNameMap_ = makeTypesMap( conn_ );
@@ -60,7 +91,9 @@ public class JDBCFormatter {
         maxColLeng_ = meta.getMaxColumnNameLength();
         maxTableLeng_ = meta.getMaxTableNameLength();
         upperCasePreferred_ = meta.storesUpperCaseIdentifiers();
+        supportsBatch_ = meta.supportsBatchUpdates();
         sqlSyntax_ = getSqlSyntax( meta );
+        batchSize_ = DFLT_BATCH_SIZE;
 
         /* Work out column types and see if we need to work out maximum string
          * lengths. */
@@ -78,6 +111,9 @@ public class JDBCFormatter {
                 if ( leng > 0 ) {
                     charSizes[ icol ] = leng;
                 }
+                else if ( dfltCharSize > 0 ) {
+                    charSizes[ icol ] = dfltCharSize;
+                }
                 else {
                     needSizes[ icol ] = true;
                     needSomeSizes = true;
@@ -87,23 +123,19 @@ public class JDBCFormatter {
 
         /* Work out maximum string lengths if necessary. */
         if ( needSomeSizes ) {
-            RowSequence rseq = table_.getRowSequence();
-            try {
-                while ( rseq.next() ) {
-                    for ( int icol = 0; icol < ncol; icol++ ) {
-                        if ( needSizes[ icol ] ) {
-                            Object val = rseq.getCell( icol );
-                            if ( val != null ) {
-                                charSizes[ icol ] = 
-                                    Math.max( charSizes[ icol ],
-                                              val.toString().length() );
-                            }
-                        }
-                    }
+            int[] scanFlags = new int[ ncol ];
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                if ( needSizes[ icol ] ) {
+                    scanFlags[ icol ] = ColumnSizeCollector.CHARS;
                 }
             }
-            finally {
-                rseq.close();
+            ColumnSizeCollector.ColumnSizes sizes =
+                RowRunner.DEFAULT
+               .collect( new ColumnSizeCollector( scanFlags ), table_ );
+            for ( int icol = 0; icol < ncol; icol++ ) {
+                if ( needSizes[ icol ] ) {
+                    charSizes[ icol ] = sizes.getMaxChars( icol );
+                }
             }
         }
 
@@ -197,6 +229,50 @@ public class JDBCFormatter {
         return sql.toString();
     }
 
+    /**
+     * Sets the number of rows sent to the database in each batch
+     * when writing data.  If batch updates are not supported by the
+     * database, or the value is less than 2, rows are written one by one.
+     *
+     * @param  batchSize  number of rows per batch
+     */
+    public void setBatchSize( int batchSize ) {
+        batchSize_ = batchSize;
+    }
+
+    /**
+     * Returns the number of rows sent to the database in each batch.
+     *
+     * @return  number of rows per batch
+     */
+    public int getBatchSize() {
+        return batchSize_;
+    }
+
+    /**
+     * Sets the number of rows written in each transaction.
+     * If a positive value is given, auto-commit is turned off for
+     * the duration of the write and the data are committed after
+     * every <code>commitInterval</code> rows and at the end.
+     * If zero (the default), the connection's existing
+     * transaction behaviour is left alone.
+     *
+     * @param  commitInterval  number of rows per transaction,
+     *                         or zero for no explicit commits
+     */
+    public void setCommitInterval( int commitInterval ) {
+        commitInterval_ = commitInterval;
+    }
+
+    /**
+     * Returns the number of rows written in each transaction.
+     *
+     * @return   number of rows per transaction, or zero
+     */
+    public int getCommitInterval() {
+        return commitInterval_;
+    }
+
     /**
      * Writes data from this formatter's input table into the database.
      * This method is somewhat misnamed - depending on the write mode, 
@@ -232,36 +308,109 @@ public class JDBCFormatter {
             stmt.executeUpdate( create );
         }
 
+        stmt.close();
+
         /* Prepare a statement for adding the data. */
         String insert = getInsertStatement( tableName );
         logger.info( insert );
         PreparedStatement pstmt = conn_.prepareStatement( insert );
 
-        /* Add the data. */
+        /* Prepare typed value setters for the writable columns. */
         int ncol = sqlCols_.length;
+        List<ValueSetter> setterList = new ArrayList<ValueSetter>();
+        List<Integer> icolList = new ArrayList<Integer>();
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            if ( sqlCols_[ icol ] != null ) {
+                setterList.add( createValueSetter( sqlTypes_[ icol ] ) );
+                icolList.add( new Integer( icol ) );
+            }
+        }
+        int npar = setterList.size();
+        ValueSetter[] setters = setterList.toArray( new ValueSetter[ 0 ] );
+        int[] icols = new int[ npar ];
+        for ( int ip = 0; ip < npar; ip++ ) {
+            icols[ ip ] = icolList.get( ip ).intValue();
+        }
+
+        /* Take control of transactions if required. */
+        boolean isBatch = supportsBatch_ && batchSize_ > 1;
+        boolean isCommit = commitInterval_ > 0;
+        boolean autoCommit0 = conn_.getAutoCommit();
+        if ( isCommit && autoCommit0 ) {
+            conn_.setAutoCommit( false );
+        }
+        logger.info( "Writing "
+                   + ( isBatch ? ( "in batches of " + batchSize_ + " rows" )
+                               : "row by row" )
+                   + ( isCommit ? ( ", committing every " + commitInterval_
+                                  + " rows" )
+                                : "" ) );
+
+        /* Add the data. */
         RowSequence rseq = table_.getRowSequence();
+        boolean done = false;
         try {
+            int nbatch = 0;
+            int nuncommitted = 0;
             while ( rseq.next() ) {
                 Object[] row = rseq.getRow();
-                int pix = 0;
-                for ( int icol = 0; icol < ncol; icol++ ) {
-                    if ( sqlCols_[ icol ] != null ) {
-                        pix++;
-                        Object val = row[ icol ];
-                        if ( Tables.isBlank( val ) ) {
-                            pstmt.setNull( pix, sqlTypes_[ icol ] );
-                        }
-                        else {
-                            pstmt.setObject( pix, row[ icol ],
-                                             sqlTypes_[ icol ] );
-                        }
+                for ( int ip = 0; ip < npar; ip++ ) {
+                    int icol = icols[ ip ];
+                    Object val = row[ icol ];
+                    if ( Tables.isBlank( val ) ) {
+                        pstmt.setNull( ip + 1, sqlTypes_[ icol ] );
+                    }
+                    else {
+                        setters[ ip ].setValue( pstmt, ip + 1, val );
                     }
                 }
-                pstmt.executeUpdate();
+                if ( isBatch ) {
+                    pstmt.addBatch();
+                    if ( ++nbatch >= batchSize_ ) {
+                        pstmt.executeBatch();
+                        nbatch = 0;
+                    }
+                }
+                else {
+                    pstmt.executeUpdate();
+                }
+                if ( isCommit && ++nuncommitted >= commitInterval_ ) {
+                    if ( nbatch > 0 ) {
+                        pstmt.executeBatch();
+                        nbatch = 0;
+                    }
+                    conn_.commit();
+                    nuncommitted = 0;
+                }
+            }
+            if ( nbatch > 0 ) {
+                pstmt.executeBatch();
+            }
+            if ( isCommit ) {
+                conn_.commit();
             }
+            done = true;
         }
         finally {
             rseq.close();
+            try {
+                if ( isCommit && ! done ) {
+                    conn_.rollback();
+                }
+                pstmt.close();
+                if ( conn_.getAutoCommit() != autoCommit0 ) {
+                    conn_.setAutoCommit( autoCommit0 );
+                }
+            }
+            catch ( SQLException e ) {
+                if ( done ) {
+                    throw e;
+                }
+                else {
+                    logger.warning( "Error tidying up after failed write: "
+                                  + e );
+                }
+            }
         }
     }
 
@@ -567,6 +716,64 @@ public class JDBCFormatter {
         }
     }
 
+    /**
+     * Returns an object which can set a non-blank value of a given
+     * SQL type as a statement parameter, using a typed setter method
+     * where possible.
+     *
+     * @param  sqlType  type code from {@link java.sql.Types}
+     * @return  value setter
+     */
+    private static ValueSetter createValueSetter( final int sqlType ) {
+        switch ( sqlType ) {
+            case Types.TINYINT:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setByte( ip, ((Number) val).byteValue() );
+            case Types.SMALLINT:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setShort( ip, ((Number) val).shortValue() );
+            case Types.INTEGER:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setInt( ip, ((Number) val).intValue() );
+            case Types.BIGINT:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setLong( ip, ((Number) val).longValue() );
+            case Types.FLOAT:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setFloat( ip, ((Number) val).floatValue() );
+            case Types.DOUBLE:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setDouble( ip, ((Number) val).doubleValue() );
+            case Types.BIT:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setBoolean( ip, ((Boolean) val).booleanValue() );
+            case Types.CHAR:
+            case Types.VARCHAR:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setString( ip, val.toString() );
+            default:
+                return ( pstmt, ip, val ) ->
+                       pstmt.setObject( ip, val, sqlType );
+        }
+    }
+
+    /**
+     * Sets a parameter value in a prepared statement.
+     */
+    @FunctionalInterface
+    private interface ValueSetter {
+
+        /**
+         * Sets a non-blank value.
+         *
+         * @param  pstmt  statement
+         * @param  ipar   1-based parameter index
+         * @param  value  non-blank value
+         */
+        void setValue( PreparedStatement pstmt, int ipar, Object value )
+                throws SQLException;
+    }
+
     /**
      * Describes a column as it will be written to a table in an RDBMS.
      */
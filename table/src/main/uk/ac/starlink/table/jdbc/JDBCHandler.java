@@ -17,6 +17,9 @@ public class JDBCHandler {
     private JDBCAuthenticator auth;
     private String user;
     private String passwd;
+    private int batchSize = JDBCFormatter.DFLT_BATCH_SIZE;
+    private int commitInterval;
+    private int dfltCharSize;
 
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.table.jdbc" );
@@ -37,6 +40,9 @@ public class JDBCHandler {
      */
     public JDBCHandler( JDBCHandler jh ) {
         this( jh.auth );
+        batchSize = jh.batchSize;
+        commitInterval = jh.commitInterval;
+        dfltCharSize = jh.dfltCharSize;
     }
 
     public JDBCAuthenticator getAuthenticator() {
@@ -48,6 +54,68 @@ public class JDBCHandler {
         this.auth = auth;
     }
 
+    /**
+     * Sets the number of rows sent in each batch when writing tables.
+     *
+     * @param  batchSize  rows per batch
+     * @see   JDBCFormatter#setBatchSize
+     */
+    public void setBatchSize( int batchSize ) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of rows sent in each batch when writing tables.
+     *
+     * @return  rows per batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows written in each transaction when writing
+     * tables.
+     *
+     * @param  commitInterval  rows per transaction, or zero to leave
+     *                         transaction handling to the connection
+     * @see   JDBCFormatter#setCommitInterval
+     */
+    public void setCommitInterval( int commitInterval ) {
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Returns the number of rows written in each transaction when writing
+     * tables.
+     *
+     * @return  rows per transaction, or zero
+     */
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * Sets the width used for string columns of undeclared size when
+     * writing tables.  If zero, the data are scanned to find the width.
+     *
+     * @param  dfltCharSize  default string column width, or zero
+     * @see   JDBCFormatter#JDBCFormatter(java.sql.Connection,StarTable,int)
+     */
+    public void setDefaultCharSize( int dfltCharSize ) {
+        this.dfltCharSize = dfltCharSize;
+    }
+
+    /**
+     * Returns the width used for string columns of undeclared size when
+     * writing tables.
+     *
+     * @return  default string column width, or zero
+     */
+    public int getDefaultCharSize() {
+        return dfltCharSize;
+    }
+
     public StarTable makeStarTable( String spec, boolean wantRandom )
             throws IOException {
 
@@ -148,7 +216,11 @@ public class JDBCHandler {
  
         /* And write the data to the table. */
         try {
-            new JDBCFormatter( conn, startab ).createJDBCTable( frag, mode );
+            JDBCFormatter formatter =
+                new JDBCFormatter( conn, startab, dfltCharSize );
+            formatter.setBatchSize( batchSize );
+            formatter.setCommitInterval( commitInterval );
+            formatter.createJDBCTable( frag, mode );
         }
         finally {
             conn.close();
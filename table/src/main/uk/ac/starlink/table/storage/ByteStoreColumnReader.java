@@ -66,6 +66,11 @@ abstract class ByteStoreColumnReader implements ColumnReader {
         return codec_.decodeBoolean( access_ );
     }
 
+    public boolean isNull( long ix ) throws IOException {
+        seek( ix );
+        return codec_.decodeNull( access_ );
+    }
+
     /**
      * Positions the ByteStoreAccess ready to read an object from a given
      * offset.
@@ -144,6 +144,19 @@ public abstract class Codec {
     abstract public boolean decodeBoolean( ByteStoreAccess in )
             throws IOException;
 
+    /**
+     * Deserialises an item from a stream, and indicates whether it
+     * represents a null value.
+     * The default implementation calls {@link #decodeObject},
+     * but subclasses may override it to avoid object creation.
+     *
+     * @param  in  source stream, positioned at start of item
+     * @return  true iff the deserialised item is null
+     */
+    public boolean decodeNull( ByteStoreAccess in ) throws IOException {
+        return decodeObject( in ) == null;
+    }
+
     /**
      * Returns the number of bytes a call to <tt>encode</tt> will write.
      * If this value may vary, -1 is returned.
@@ -476,6 +489,10 @@ public abstract class Codec {
         public boolean decodeBoolean( ByteStoreAccess in ) throws IOException {
             return in.readByte() == 'T';
         }
+        public boolean decodeNull( ByteStoreAccess in ) throws IOException {
+            byte b = in.readByte();
+            return b != (byte) 'T' && b != (byte) 'F';
+        }
         public int getItemSize() {
             return 1;
         }
@@ -580,6 +597,12 @@ public abstract class Codec {
             }
         }
 
+        public boolean decodeNull( ByteStoreAccess in ) throws IOException {
+            byte flag = in.readByte();
+            in.skip( itemSize_ - 1 );
+            return flag != OK;
+        }
+
         public int getItemSize() {
             return itemSize_;
         }
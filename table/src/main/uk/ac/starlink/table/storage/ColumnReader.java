@@ -78,4 +78,12 @@ public interface ColumnReader {
      * @return   best-efforts boolean value
      */
     boolean getBooleanValue( long ix ) throws IOException;
+
+    /**
+     * Indicates whether the value at a given index is null.
+     *
+     * @param   ix  value index
+     * @return   true iff the value is null
+     */
+    boolean isNull( long ix ) throws IOException;
 }
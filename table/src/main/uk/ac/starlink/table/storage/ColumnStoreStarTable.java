@@ -1,6 +1,8 @@
 package uk.ac.starlink.table.storage;
 
 import java.io.IOException;
+import uk.ac.starlink.table.ColumnBatchCursor;
+import uk.ac.starlink.table.RandomBatchCursor;
 import uk.ac.starlink.table.RandomRowSplittable;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
@@ -137,4 +139,90 @@ class ColumnStoreStarTable extends WrapperStarTable {
             }
         };
     }
+
+    /**
+     * Returns a cursor that reads primitive values directly from
+     * the column stores, without creating per-cell objects.
+     */
+    @Override
+    public ColumnBatchCursor getColumnBatchCursor( int[] icols, int maxBatch ) {
+        final ColumnReader[] readers = new ColumnReader[ ncol_ ];
+        final Class<?>[] clazzes = new Class<?>[ ncol_ ];
+        for ( int icol : icols ) {
+            readers[ icol ] = colStores_[ icol ].createReader();
+            clazzes[ icol ] = getColumnInfo( icol ).getContentClass();
+        }
+        return new RandomBatchCursor( nrow_, maxBatch ) {
+            public void readDoubles( int icol, double[] values,
+                                     boolean[] nulls ) throws IOException {
+                ColumnReader rdr = readers[ icol ];
+                Class<?> clazz = clazzes[ icol ];
+                boolean isNumeric = isIntegerClass( clazz )
+                                 || isFloatingClass( clazz );
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    double dval = isNumeric ? rdr.getDoubleValue( irow0 + i )
+                                            : Double.NaN;
+                    values[ i ] = dval;
+                    if ( nulls != null ) {
+                        nulls[ i ] = Double.isNaN( dval );
+                    }
+                }
+            }
+            public void readLongs( int icol, long[] values, boolean[] nulls )
+                    throws IOException {
+                ColumnReader rdr = readers[ icol ];
+                Class<?> clazz = clazzes[ icol ];
+                boolean isInt = isIntegerClass( clazz );
+                boolean isFloat = isFloatingClass( clazz );
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    long irow = irow0 + i;
+                    final boolean isNull;
+                    if ( isInt ) {
+                        isNull = rdr.isNull( irow );
+                        values[ i ] = isNull ? 0L : rdr.getLongValue( irow );
+                    }
+                    else if ( isFloat ) {
+                        double dval = rdr.getDoubleValue( irow );
+                        isNull = Double.isNaN( dval );
+                        values[ i ] = isNull ? 0L : (long) dval;
+                    }
+                    else {
+                        isNull = true;
+                        values[ i ] = 0L;
+                    }
+                    if ( nulls != null ) {
+                        nulls[ i ] = isNull;
+                    }
+                }
+            }
+            public void readBooleans( int icol, boolean[] values,
+                                      boolean[] nulls ) throws IOException {
+                ColumnReader rdr = readers[ icol ];
+                boolean isBool = clazzes[ icol ] == Boolean.class;
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    long irow = irow0 + i;
+                    boolean isNull = ! isBool || rdr.isNull( irow );
+                    values[ i ] = ! isNull && rdr.getBooleanValue( irow );
+                    if ( nulls != null ) {
+                        nulls[ i ] = isNull;
+                    }
+                }
+            }
+            public void readObjects( int icol, Object[] values )
+                    throws IOException {
+                ColumnReader rdr = readers[ icol ];
+                long irow0 = getBatchStart();
+                int n = getBatchLength();
+                for ( int i = 0; i < n; i++ ) {
+                    values[ i ] = rdr.getObjectValue( irow0 + i );
+                }
+            }
+        };
+    }
 }
@@ -0,0 +1,200 @@
+package uk.ac.starlink.table;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.feather.FeatherTableBuilder;
+import uk.ac.starlink.feather.FeatherTableWriter;
+import uk.ac.starlink.fits.ColFitsTableBuilder;
+import uk.ac.starlink.fits.ColFitsTableWriter;
+import uk.ac.starlink.fits.FitsTableBuilder;
+import uk.ac.starlink.fits.FitsTableWriter;
+import uk.ac.starlink.table.storage.SidewaysRowStore;
+import uk.ac.starlink.util.FileDataSource;
+import uk.ac.starlink.util.TestCase;
+
+public class BatchCursorTest extends TestCase {
+
+    private static final int NROW = 53;
+
+    public BatchCursorTest( String name ) {
+        super( name );
+        Logger.getLogger( "uk.ac.starlink.feather" ).setLevel( Level.SEVERE );
+    }
+
+    public void testAdapter() throws IOException {
+        StarTable table = createTable();
+        assertTrue( table.getColumnBatchCursor( new int[] { 0 }, 10 )
+                    instanceof RowBatchCursor );
+        checkCursor( table, false );
+    }
+
+    public void testColumnStore() throws IOException {
+        RowStore store = new SidewaysRowStore();
+        Tables.streamStarTable( createTable(), store );
+        checkCursor( store.getStarTable(), true );
+    }
+
+    public void testFormats() throws IOException {
+        StarTable table = createTable();
+        checkFormat( table, new FitsTableWriter(), new FitsTableBuilder() );
+        checkFormat( table, new ColFitsTableWriter(),
+                     new ColFitsTableBuilder() );
+        checkFormat( table, new FeatherTableWriter(),
+                     new FeatherTableBuilder() );
+    }
+
+    private void checkFormat( StarTable table, StarTableWriter writer,
+                              TableBuilder builder )
+            throws IOException {
+        File file = File.createTempFile( "batch", ".dat" );
+        file.deleteOnExit();
+        try {
+            try ( OutputStream out =
+                      new BufferedOutputStream(
+                          new FileOutputStream( file ) ) ) {
+                writer.writeStarTable( table, out );
+            }
+            StarTable t2 =
+                builder.makeStarTable( new FileDataSource( file ), false,
+                                       StoragePolicy.PREFER_MEMORY );
+            checkCursor( t2, true );
+            t2.close();
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Checks that batch access to a table gives the same results as
+     * row access, for a range of batch sizes.
+     */
+    private void checkCursor( StarTable table, boolean isNative )
+            throws IOException {
+        int ncol = table.getColumnCount();
+        int[] icols = new int[ ncol ];
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            icols[ ic ] = ic;
+        }
+        Object[][] rows = new Object[ NROW ][];
+        try ( RowSequence rseq = table.getRowSequence() ) {
+            for ( int ir = 0; ir < NROW; ir++ ) {
+                assertTrue( rseq.next() );
+                rows[ ir ] = rseq.getRow();
+            }
+            assertFalse( rseq.next() );
+        }
+        for ( int maxBatch : new int[] { 1, 7, 53, 1000 } ) {
+            try ( ColumnBatchCursor cursor =
+                      table.getColumnBatchCursor( icols, maxBatch ) ) {
+                assertEquals( isNative,
+                              ! ( cursor instanceof RowBatchCursor ) );
+                try {
+                    cursor.readDoubles( 0, new double[ maxBatch ], null );
+                    fail();
+                }
+                catch ( IllegalStateException e ) {
+                }
+                long irow0 = 0;
+                double[] dvals = new double[ maxBatch ];
+                long[] lvals = new long[ maxBatch ];
+                boolean[] bvals = new boolean[ maxBatch ];
+                boolean[] nulls = new boolean[ maxBatch ];
+                Object[] ovals = new Object[ maxBatch ];
+                for ( int n; ( n = cursor.nextBatch() ) > 0; ) {
+                    assertTrue( n <= maxBatch );
+                    assertEquals( irow0, cursor.getBatchStart() );
+                    for ( int icol = ncol - 1; icol >= 0; icol-- ) {
+                        cursor.readObjects( icol, ovals );
+                        cursor.readDoubles( icol, dvals, nulls );
+                        for ( int i = 0; i < n; i++ ) {
+                            Object cell = rows[ (int) irow0 + i ][ icol ];
+                            assertEquals( cell, ovals[ i ] );
+                            double dval = cell instanceof Number
+                                        ? ((Number) cell).doubleValue()
+                                        : Double.NaN;
+                            assertEquals( dval, dvals[ i ] );
+                            assertEquals( Double.isNaN( dval ), nulls[ i ] );
+                        }
+                        cursor.readLongs( icol, lvals, nulls );
+                        for ( int i = 0; i < n; i++ ) {
+                            Object cell = rows[ (int) irow0 + i ][ icol ];
+                            boolean isNull =
+                                  ! ( cell instanceof Number )
+                               || Double.isNaN( ((Number) cell)
+                                               .doubleValue() );
+                            long lval = isNull
+                                      ? 0L
+                                      : ( cell instanceof Float ||
+                                          cell instanceof Double )
+                                      ? (long) ((Number) cell).doubleValue()
+                                      : ((Number) cell).longValue();
+                            assertEquals( lval, lvals[ i ] );
+                            assertEquals( isNull, nulls[ i ] );
+                        }
+                        cursor.readBooleans( icol, bvals, nulls );
+                        cursor.readBooleans( icol, bvals, null );
+                        for ( int i = 0; i < n; i++ ) {
+                            Object cell = rows[ (int) irow0 + i ][ icol ];
+                            assertEquals( Boolean.TRUE.equals( cell ),
+                                          bvals[ i ] );
+                            assertEquals( ! ( cell instanceof Boolean ),
+                                          nulls[ i ] );
+                        }
+                    }
+                    irow0 += n;
+                }
+                assertEquals( NROW, irow0 );
+                assertEquals( 0, cursor.nextBatch() );
+            }
+        }
+    }
+
+    private static StarTable createTable() {
+        Random rnd = new Random( 448822L );
+        Byte[] yvals = new Byte[ NROW ];
+        Short[] svals = new Short[ NROW ];
+        Integer[] ivals = new Integer[ NROW ];
+        Long[] lvals = new Long[ NROW ];
+        Float[] fvals = new Float[ NROW ];
+        Double[] dvals = new Double[ NROW ];
+        Boolean[] bvals = new Boolean[ NROW ];
+        String[] strs = new String[ NROW ];
+        for ( int i = 0; i < NROW; i++ ) {
+            boolean blank = i % 5 == 2;
+            yvals[ i ] = blank ? null : new Byte( (byte) rnd.nextInt() );
+            svals[ i ] = blank ? null : new Short( (short) rnd.nextInt() );
+            ivals[ i ] = blank ? null : new Integer( rnd.nextInt() );
+            lvals[ i ] = blank ? null : new Long( rnd.nextLong() );
+            fvals[ i ] = blank ? new Float( Float.NaN )
+                               : new Float( rnd.nextGaussian() * 1e4 );
+            dvals[ i ] = blank ? null : new Double( rnd.nextGaussian() * 1e9 );
+            bvals[ i ] = i % 7 == 3 ? null
+                                    : Boolean.valueOf( rnd.nextBoolean() );
+            strs[ i ] = blank ? null : "s" + i;
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( NROW );
+        table.addColumn( createColumn( "y", Byte.class, yvals ) );
+        table.addColumn( createColumn( "s", Short.class, svals ) );
+        table.addColumn( createColumn( "i", Integer.class, ivals ) );
+        table.addColumn( createColumn( "l", Long.class, lvals ) );
+        table.addColumn( createColumn( "f", Float.class, fvals ) );
+        table.addColumn( createColumn( "d", Double.class, dvals ) );
+        table.addColumn( createColumn( "b", Boolean.class, bvals ) );
+        table.addColumn( createColumn( "str", String.class, strs ) );
+        return table;
+    }
+
+    private static ColumnData createColumn( String name, Class<?> clazz,
+                                            Object[] data ) {
+        ColumnInfo info = new ColumnInfo( name, clazz, null );
+        info.setNullable( true );
+        return new ObjectArrayColumn( info, data );
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+import java.util.Random;
+import uk.ac.starlink.util.TestCase;
+
+public class ColumnSizeCollectorTest extends TestCase {
+
+    public ColumnSizeCollectorTest( String name ) {
+        super( name );
+    }
+
+    public void testSizes() throws IOException {
+        int nrow = 200000;
+        Random rnd = new Random( 2301 );
+        String[] strs = new String[ nrow ];
+        String[][] sarrays = new String[ nrow ][];
+        int[][] iarrays = new int[ nrow ][];
+        Integer[] ints = new Integer[ nrow ];
+        int maxStr = 0;
+        int maxSel = 0;
+        int maxIel = 0;
+        long totIel = 0;
+        for ( int ir = 0; ir < nrow; ir++ ) {
+            int leng = rnd.nextInt( 1000 ) == 0 ? 50 + rnd.nextInt( 50 )
+                                                : rnd.nextInt( 20 );
+            strs[ ir ] = ir % 7 == 0 ? null : repeat( 'x', leng );
+            if ( strs[ ir ] != null ) {
+                maxStr = Math.max( maxStr, leng );
+            }
+            int nel = rnd.nextInt( 6 );
+            sarrays[ ir ] = new String[ nel ];
+            for ( int i = 0; i < nel; i++ ) {
+                int sl = rnd.nextInt( 30 );
+                sarrays[ ir ][ i ] = repeat( 'y', sl );
+                maxSel = Math.max( maxSel, sl );
+            }
+            int niel = rnd.nextInt( 100 );
+            iarrays[ ir ] = new int[ niel ];
+            maxIel = Math.max( maxIel, niel );
+            totIel += niel;
+            ints[ ir ] = Integer.valueOf( ir );
+        }
+        ints[ nrow - 3 ] = null;
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "s", strs ) );
+        table.addColumn( ArrayColumn.makeColumn( "sa", sarrays ) );
+        table.addColumn( ArrayColumn.makeColumn( "ia", iarrays ) );
+        table.addColumn( ArrayColumn.makeColumn( "i", ints ) );
+        table.addColumn( ArrayColumn.makeColumn( "j", new int[ nrow ] ) );
+        int[] flags = new int[] {
+            ColumnSizeCollector.CHARS,
+            ColumnSizeCollector.ELEMENT_CHARS | ColumnSizeCollector.ELEMENTS,
+            ColumnSizeCollector.ELEMENTS,
+            ColumnSizeCollector.NULLS,
+            ColumnSizeCollector.NULLS,
+        };
+        ColumnSizeCollector collector = new ColumnSizeCollector( flags );
+        for ( RowRunner runner :
+              new RowRunner[] { RowRunner.SEQUENTIAL, RowRunner.DEFAULT } ) {
+            ColumnSizeCollector.ColumnSizes sizes =
+                runner.collect( collector, table );
+            assertEquals( nrow, sizes.getRowCount() );
+            assertEquals( maxStr, sizes.getMaxChars( 0 ) );
+            assertTrue( sizes.hasNulls( 0 ) );
+            assertEquals( maxSel, sizes.getMaxChars( 1 ) );
+            assertEquals( 5, sizes.getMaxElements( 1 ) );
+            assertEquals( maxIel, sizes.getMaxElements( 2 ) );
+            assertEquals( totIel, sizes.getTotalElements( 2 ) );
+            assertEquals( 0, sizes.getMaxChars( 2 ) );
+            assertTrue( sizes.hasNulls( 3 ) );
+            assertFalse( sizes.hasNulls( 4 ) );
+        }
+    }
+
+    private static String repeat( char c, int n ) {
+        StringBuffer sbuf = new StringBuffer( n );
+        for ( int i = 0; i < n; i++ ) {
+            sbuf.append( c );
+        }
+        return sbuf.toString();
+    }
+}
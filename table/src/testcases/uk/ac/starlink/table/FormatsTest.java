@@ -19,6 +19,9 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import uk.ac.starlink.ecsv.EcsvTableBuilder;
 import uk.ac.starlink.ecsv.EcsvTableWriter;
+import uk.ac.starlink.feather.ArrowStreamTableWriter;
+import uk.ac.starlink.feather.ArrowTableBuilder;
+import uk.ac.starlink.feather.ArrowTableWriter;
 import uk.ac.starlink.feather.FeatherTableBuilder;
 import uk.ac.starlink.feather.FeatherTableWriter;
 import uk.ac.starlink.fits.AbstractWideFits;
@@ -191,8 +194,8 @@ public class FormatsTest extends TableCase {
         String[] fnames = new String[] {
             "fits-basic", "fits-plus", "fits-var", "fits-healpix",
             "colfits-basic", "colfits-plus",
-            "votable", "ecsv", "feather", "text", "ascii", "csv",
-            "ipac", "tst", "html", "latex", "mirage",
+            "votable", "ecsv", "feather", "arrow", "arrow-stream",
+            "text", "ascii", "csv", "ipac", "tst", "html", "latex", "mirage",
         };
         for ( String fname : fnames ) {
             assertNotNull( tout.getHandler( fname ) );
@@ -202,7 +205,7 @@ public class FormatsTest extends TableCase {
         StarTableFactory tfact = new StarTableFactory();
         String[] bnames = new String[] {
             "fits", "colfits-basic", "colfits-plus",
-            "votable", "cdf", "ecsv", "feather",
+            "votable", "cdf", "ecsv", "feather", "arrow",
         };
         for ( String bname : bnames ) {
             assertNotNull( tfact.getTableBuilder( bname ) );
@@ -267,6 +270,7 @@ public class FormatsTest extends TableCase {
             "CDF",
             "ECSV",
             "feather",
+            "arrow",
             "GBIN",
         };
         String[] knownFormats = new String[] {
@@ -278,6 +282,7 @@ public class FormatsTest extends TableCase {
             "CDF",
             "ECSV",
             "feather",
+            "arrow",
             "GBIN",
             "ASCII",
             "CSV",
@@ -330,6 +335,8 @@ public class FormatsTest extends TableCase {
             "votable",
             "ecsv",
             "feather",
+            "arrow",
+            "arrow-stream",
             "text",
             "ascii",
             "csv",
@@ -534,6 +541,11 @@ public class FormatsTest extends TableCase {
         exerciseReadWrite(
             new FeatherTableWriter( true, StoragePolicy.PREFER_MEMORY ),
             new FeatherTableBuilder(), "feather" );
+        ArrowTableWriter arrowWriter = new ArrowTableWriter();
+        arrowWriter.setBatchRows( 7 );
+        exerciseReadWrite( arrowWriter, new ArrowTableBuilder(), "arrow" );
+        exerciseReadWrite( new ArrowStreamTableWriter(),
+                           new ArrowTableBuilder(), "arrow" );
         exerciseReadWrite( new AsciiTableWriter(),
                            new AsciiTableBuilder(), "text" );
         exerciseReadWrite( new CsvTableWriter( true ),
@@ -597,6 +609,9 @@ public class FormatsTest extends TableCase {
         else if ( "feather".equals( equalMethod ) ) {
             assertFeatherTableEquals( t1, t2 );
         }
+        else if ( "arrow".equals( equalMethod ) ) {
+            assertArrowTableEquals( t1, t2 );
+        }
         else if ( "exact".equals( equalMethod ) ) {
             assertTableEquals( t1, t2 );
         }
@@ -889,6 +904,18 @@ public class FormatsTest extends TableCase {
         assertRowSequenceEquals( t1a, t2 );
     }
 
+    private void assertArrowTableEquals( StarTable t1, StarTable t2 )
+            throws IOException {
+        int ncol = t1.getColumnCount();
+        assertEquals( ncol, t2.getColumnCount() );
+        assertEquals( t1.getName(), t2.getName() );
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            assertValueInfoEquals( t1.getColumnInfo( ic ),
+                                   t2.getColumnInfo( ic ) );
+        }
+        assertRowSequenceEquals( t1, t2 );
+    }
+
     /**
      * Checks table invariants.  Any StarTable should be able to run
      * through these tests without errors.
@@ -0,0 +1,144 @@
+package uk.ac.starlink.table;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.CRC32;
+import junit.framework.TestCase;
+import uk.ac.starlink.ecsv.EcsvTableWriter;
+import uk.ac.starlink.fits.FitsTableWriter;
+import uk.ac.starlink.table.formats.CsvTableWriter;
+import uk.ac.starlink.votable.DataFormat;
+import uk.ac.starlink.votable.VOTableWriter;
+
+/**
+ * Compares output throughput of table writers using sequential and
+ * multi-threaded row encoding.
+ * Not run as part of the regular test suite; invoke it by hand,
+ * with -Dbench.nrow=N to set the table size (default 1e6),
+ * -Dbench.iter=N to set the number of timed iterations (default 3)
+ * and -Dbench.threads=N to set the number of encoding threads
+ * (default is the number of available processors).
+ * Output is discarded apart from a checksum, which is checked to
+ * be the same for both modes.
+ */
+public class RowBlockWriteBench extends TestCase {
+
+    public RowBlockWriteBench( String name ) {
+        super( name );
+    }
+
+    public void testWrite() throws IOException {
+        int nrow = (int) Double.parseDouble( System.getProperty( "bench.nrow",
+                                                                 "1e6" ) );
+        int niter = Integer.parseInt( System.getProperty( "bench.iter",
+                                                          "3" ) );
+        StarTable table = createTable( nrow );
+        RowBlockWriter dflt = RowBlockWriter.getDefaultInstance();
+        int nthread =
+            Integer.parseInt( System.getProperty( "bench.threads",
+                                                  Integer.toString(
+                                      Runtime.getRuntime()
+                                             .availableProcessors() ) ) );
+        RowBlockWriter parallel =
+            new RowBlockWriter( nthread, RowBlockWriter.DFLT_BLOCK_ROWS );
+        StarTableWriter[] writers = new StarTableWriter[] {
+            new CsvTableWriter(),
+            new EcsvTableWriter(),
+            new FitsTableWriter(),
+            new VOTableWriter( DataFormat.TABLEDATA, true ),
+            new VOTableWriter( DataFormat.BINARY2, true ),
+        };
+        try {
+            for ( StarTableWriter writer : writers ) {
+                RowBlockWriter.setDefaultInstance( RowBlockWriter.SEQUENTIAL );
+                CheckOutputStream out1 = write( writer, table );
+                double t1 = time( writer, table, niter );
+                RowBlockWriter.setDefaultInstance( parallel );
+                CheckOutputStream outP = write( writer, table );
+                double tp = time( writer, table, niter );
+                assertEquals( out1.count_, outP.count_ );
+                if ( ! ( writer instanceof VOTableWriter ||
+                         writer instanceof FitsTableWriter ) ) {
+                    assertEquals( out1.crc_.getValue(), outP.crc_.getValue() );
+                }
+                System.out.println( writer.getFormatName() + ": "
+                                  + (long) ( out1.count_ / t1 / 1e6 )
+                                  + " MB/s sequential, "
+                                  + (long) ( out1.count_ / tp / 1e6 )
+                                  + " MB/s with "
+                                  + parallel.getThreadCount() + " threads ("
+                                  + String.format( "%.1f", t1 / tp )
+                                  + "x)" );
+            }
+        }
+        finally {
+            RowBlockWriter.setDefaultInstance( dflt );
+        }
+    }
+
+    private static CheckOutputStream write( StarTableWriter writer,
+                                            StarTable table )
+            throws IOException {
+        CheckOutputStream out = new CheckOutputStream();
+        writer.writeStarTable( table, out );
+        return out;
+    }
+
+    /**
+     * Returns the mean time in seconds to write a table.
+     */
+    private static double time( StarTableWriter writer, StarTable table,
+                                int niter )
+            throws IOException {
+        long nanos = 0;
+        for ( int i = 0; i < niter; i++ ) {
+            long t0 = System.nanoTime();
+            write( writer, table );
+            nanos += System.nanoTime() - t0;
+        }
+        return nanos * 1e-9 / niter;
+    }
+
+    private static StarTable createTable( int nrow ) {
+        Random rnd = new Random( 23001L );
+        int[] ivals = new int[ nrow ];
+        long[] lvals = new long[ nrow ];
+        double[] dvals = new double[ nrow ];
+        float[] fvals = new float[ nrow ];
+        String[] svals = new String[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = rnd.nextInt( 100000 );
+            lvals[ i ] = rnd.nextLong();
+            dvals[ i ] = rnd.nextGaussian() * 1000;
+            fvals[ i ] = (float) ( rnd.nextInt( 100000 ) * 0.01 );
+            svals[ i ] = "src_" + Integer.toString( rnd.nextInt( 1000000 ),
+                                                    36 );
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "id", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "hash", lvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "x", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "mag", fvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "name", svals ) );
+        return table;
+    }
+
+    /**
+     * OutputStream that discards its output but keeps a byte count
+     * and checksum.
+     */
+    private static class CheckOutputStream extends OutputStream {
+        final CRC32 crc_ = new CRC32();
+        long count_;
+        public void write( int b ) {
+            crc_.update( b );
+            count_++;
+        }
+        @Override
+        public void write( byte[] b, int off, int len ) {
+            crc_.update( b, off, len );
+            count_ += len;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package uk.ac.starlink.table;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.ecsv.EcsvTableWriter;
+import uk.ac.starlink.fits.FitsTableWriter;
+import uk.ac.starlink.table.formats.CsvTableWriter;
+import uk.ac.starlink.util.TestCase;
+import uk.ac.starlink.votable.DataFormat;
+import uk.ac.starlink.votable.VOTableWriter;
+
+public class RowBlockWriterTest extends TestCase {
+
+    private static final RowBlockWriter[] WRITERS = new RowBlockWriter[] {
+        RowBlockWriter.SEQUENTIAL,
+        new RowBlockWriter( 1, 10 ),
+        new RowBlockWriter( 4, 7 ),
+        new RowBlockWriter( 3, 1000 ),
+        new RowBlockWriter( 8, 1 ),
+    };
+
+    private static final Logger ecsvLogger_ =
+        Logger.getLogger( "uk.ac.starlink.ecsv" );
+
+    public RowBlockWriterTest( String name ) {
+        super( name );
+        Logger.getLogger( "uk.ac.starlink.table" ).setLevel( Level.WARNING );
+        ecsvLogger_.setLevel( Level.SEVERE );
+    }
+
+    public void testOrder() throws IOException {
+        for ( int nrow : new int[] { 0, 1, 5, 999, 23456 } ) {
+            StarTable table = createTable( nrow );
+            StringBuffer sbuf = new StringBuffer();
+            for ( int ir = 0; ir < nrow; ir++ ) {
+                sbuf.append( ir ).append( '\n' );
+            }
+            String expected = sbuf.toString();
+            for ( RowBlockWriter writer : WRITERS ) {
+                assertEquals( expected, writeIndices( writer, table ) );
+                assertEquals( expected,
+                              writeIndices( writer, new StreamTable( table ) ));
+            }
+        }
+    }
+
+    public void testError() throws IOException {
+        StarTable table = createTable( 5000 );
+        for ( RowBlockWriter writer : WRITERS ) {
+            for ( StarTable t : new StarTable[] { table,
+                                                  new StreamTable( table ) } ) {
+                try {
+                    writer.writeRows( t, new RowBlockEncoder<String>() {
+                        public String encodeRows( RowSequence rseq )
+                                throws IOException {
+                            while ( rseq.next() ) {
+                                if ( ((Number) rseq.getCell( 0 )).intValue()
+                                     == 4321 ) {
+                                    throw new IOException( "Bad row" );
+                                }
+                            }
+                            return "";
+                        }
+                        public void writeBlock( String block ) {
+                        }
+                    } );
+                    fail();
+                }
+                catch ( IOException e ) {
+                    assertEquals( "Bad row", e.getMessage() );
+                }
+            }
+        }
+    }
+
+    public void testCloseOnError() throws Exception {
+        StarTable base = createTable( 5000 );
+        for ( RowBlockWriter writer : new RowBlockWriter[] {
+                  new RowBlockWriter( 2, 10 ),
+                  new RowBlockWriter( 4, 7 ),
+              } ) {
+            AtomicInteger nopen = new AtomicInteger();
+            StarTable table = new WrapperStarTable( base ) {
+                @Override
+                public RowSplittable getRowSplittable() throws IOException {
+                    return new CountingSplittable( base.getRowSplittable(),
+                                                   nopen );
+                }
+            };
+            try {
+                writer.writeRows( table, new RowBlockEncoder<String>() {
+                    public String encodeRows( RowSequence rseq )
+                            throws IOException {
+                        rseq.next();
+                        boolean isFirst =
+                            ((Number) rseq.getCell( 0 )).intValue() == 0;
+
+                        /* Fail the first chunk once later ones have had
+                         * time to queue up; the others block until the
+                         * worker threads are interrupted. */
+                        try {
+                            Thread.sleep( isFirst ? 100 : 10000 );
+                        }
+                        catch ( InterruptedException e ) {
+                        }
+                        if ( isFirst ) {
+                            throw new IOException( "Bad chunk" );
+                        }
+                        return "";
+                    }
+                    public void writeBlock( String block ) {
+                    }
+                } );
+                fail();
+            }
+            catch ( IOException e ) {
+                assertEquals( "Bad chunk", e.getMessage() );
+            }
+
+            /* Workers and the reader may still be winding down. */
+            for ( int i = 0; i < 200 && nopen.get() != 0; i++ ) {
+                Thread.sleep( 10 );
+            }
+            assertEquals( 0, nopen.get() );
+        }
+    }
+
+    public void testFormats() throws IOException {
+        StarTableWriter[] twriters = new StarTableWriter[] {
+            new CsvTableWriter(),
+            new EcsvTableWriter(),
+            new FitsTableWriter(),
+            new VOTableWriter( DataFormat.TABLEDATA, true ),
+            new VOTableWriter( DataFormat.BINARY, true ),
+            new VOTableWriter( DataFormat.BINARY2, true ),
+        };
+        StarTable table = createTable( 4567 );
+        StarTable[] tables =
+            new StarTable[] { table, new StreamTable( table ) };
+        RowBlockWriter dflt = RowBlockWriter.getDefaultInstance();
+        try {
+            for ( StarTableWriter twriter : twriters ) {
+                for ( StarTable t : tables ) {
+                    RowBlockWriter
+                   .setDefaultInstance( RowBlockWriter.SEQUENTIAL );
+                    String expected = toText( twriter, t );
+                    for ( RowBlockWriter writer : WRITERS ) {
+                        RowBlockWriter.setDefaultInstance( writer );
+                        assertEquals( expected, toText( twriter, t ) );
+                    }
+                }
+            }
+        }
+        finally {
+            RowBlockWriter.setDefaultInstance( dflt );
+        }
+    }
+
+    private static String writeIndices( RowBlockWriter writer,
+                                        StarTable table )
+            throws IOException {
+        final StringBuffer out = new StringBuffer();
+        writer.writeRows( table, new RowBlockEncoder<String>() {
+            public String encodeRows( RowSequence rseq ) throws IOException {
+                StringBuffer sbuf = new StringBuffer();
+                while ( rseq.next() ) {
+                    sbuf.append( rseq.getCell( 0 ) ).append( '\n' );
+                }
+                return sbuf.toString();
+            }
+            public void writeBlock( String block ) {
+                out.append( block );
+            }
+        } );
+        return out.toString();
+    }
+
+    /**
+     * Returns the output of a table writer as a byte-for-byte string,
+     * with timestamps blanked out.
+     */
+    private static String toText( StarTableWriter twriter, StarTable table )
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        twriter.writeStarTable( table, out );
+        return new String( out.toByteArray(), "ISO-8859-1" )
+              .replaceAll( "[0-9]{4}-[0-9]{2}-[0-9]{2}T[0-9:]{8}",
+                           "YYYY-MM-DDThh:mm:ss" );
+    }
+
+    private static StarTable createTable( int nrow ) {
+        Random rnd = new Random( 441922L + nrow );
+        int[] ivals = new int[ nrow ];
+        double[] dvals = new double[ nrow ];
+        String[] svals = new String[ nrow ];
+        Short[] nvals = new Short[ nrow ];
+        float[][] avals = new float[ nrow ][];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = i;
+            dvals[ i ] = rnd.nextGaussian();
+            svals[ i ] = rnd.nextInt( 10 ) == 0
+                       ? null
+                       : "s" + Integer.toString( rnd.nextInt(), 36 );
+            nvals[ i ] = rnd.nextInt( 5 ) == 0
+                       ? null
+                       : Short.valueOf( (short) rnd.nextInt() );
+            avals[ i ] = new float[ 3 ];
+            for ( int j = 0; j < 3; j++ ) {
+                avals[ i ][ j ] = rnd.nextFloat();
+            }
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "index", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "x", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "name", svals ) );
+        table.addColumn( ArrayColumn.makeColumn( "n", nvals ) );
+        ColumnData acol = ArrayColumn.makeColumn( "vec", avals );
+        ((ColumnInfo) acol.getColumnInfo()).setShape( new int[] { 3 } );
+        table.addColumn( acol );
+        return table;
+    }
+
+    /**
+     * Splittable that keeps a count of unclosed instances.
+     */
+    private static class CountingSplittable extends WrapperRowSequence
+                                            implements RowSplittable {
+        private final RowSplittable base_;
+        private final AtomicInteger nopen_;
+        private boolean closed_;
+        CountingSplittable( RowSplittable base, AtomicInteger nopen ) {
+            super( base );
+            base_ = base;
+            nopen_ = nopen;
+            nopen_.incrementAndGet();
+        }
+        public long splittableSize() {
+            return base_.splittableSize();
+        }
+        public LongSupplier rowIndex() {
+            return base_.rowIndex();
+        }
+        public RowSplittable split() {
+            RowSplittable spl = base_.split();
+            return spl == null ? null : new CountingSplittable( spl, nopen_ );
+        }
+        @Override
+        public synchronized void close() throws IOException {
+            if ( ! closed_ ) {
+                closed_ = true;
+                nopen_.decrementAndGet();
+            }
+            super.close();
+        }
+    }
+
+    /**
+     * Presents a table as sequential-only with unknown row count.
+     */
+    private static class StreamTable extends WrapperStarTable {
+        StreamTable( StarTable base ) {
+            super( base );
+        }
+        @Override
+        public boolean isRandom() {
+            return false;
+        }
+        @Override
+        public long getRowCount() {
+            return -1;
+        }
+        @Override
+        public RowSplittable getRowSplittable() throws IOException {
+            return new SequentialRowSplittable( this );
+        }
+    }
+}
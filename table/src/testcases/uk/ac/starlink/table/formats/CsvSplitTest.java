@@ -0,0 +1,172 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.util.FileDataSource;
+
+public class CsvSplitTest extends TestCase {
+
+    public CsvSplitTest( String name ) {
+        super( name );
+    }
+
+    public void testSplit() throws IOException {
+        for ( boolean header : new boolean[] { true, false } ) {
+            File file = File.createTempFile( "split", ".csv" );
+            file.deleteOnExit();
+            try {
+                writeCsv( file, 4000, header );
+                checkSplit( file, header );
+            }
+            finally {
+                file.delete();
+            }
+        }
+    }
+
+    public void testBoundaries() throws IOException {
+        File file = File.createTempFile( "split", ".csv" );
+        file.deleteOnExit();
+        try {
+            writeCsv( file, 500, true );
+            for ( long chunk : new long[] { 1, 7, 100, 999, 1L << 30 } ) {
+                long[] offsets =
+                    CsvSplitter.findRecordBoundaries( file, chunk );
+                assertEquals( 0L, offsets[ 0 ] );
+                assertEquals( file.length(), offsets[ offsets.length - 1 ] );
+                for ( int i = 1; i < offsets.length; i++ ) {
+                    assertTrue( offsets[ i ] > offsets[ i - 1 ] );
+                }
+            }
+            assertEquals( 2, CsvSplitter
+                            .findRecordBoundaries( file, 1L << 30 ).length );
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    private void checkSplit( File file, boolean header ) throws IOException {
+        StarTable seqTable =
+            new CsvStarTable( new FileDataSource( file ),
+                              CsvStarTable.DFLT_CHUNK_SIZE );
+        CsvStarTable splitTable =
+            new CsvStarTable( new FileDataSource( file ), 3000 );
+        assertNotNull( splitTable.getRowSplittable().split() );
+        assertNull( seqTable.getRowSplittable().split() );
+        Tables.checkTable( splitTable );
+
+        /* Check metadata. */
+        int ncol = seqTable.getColumnCount();
+        long nrow = seqTable.getRowCount();
+        assertEquals( 5, ncol );
+        assertEquals( 4000, nrow );
+        assertEquals( ncol, splitTable.getColumnCount() );
+        assertEquals( nrow, splitTable.getRowCount() );
+        for ( int ic = 0; ic < ncol; ic++ ) {
+            assertEquals( seqTable.getColumnInfo( ic ).getName(),
+                          splitTable.getColumnInfo( ic ).getName() );
+            assertEquals( seqTable.getColumnInfo( ic ).getContentClass(),
+                          splitTable.getColumnInfo( ic ).getContentClass() );
+            assertEquals( seqTable.getColumnInfo( ic ).getElementSize(),
+                          splitTable.getColumnInfo( ic ).getElementSize() );
+        }
+        assertEquals( header ? "name" : "col1",
+                      splitTable.getColumnInfo( 0 ).getName() );
+
+        /* Read all rows sequentially. */
+        List<Object[]> rows = new ArrayList<>();
+        try ( RowSequence rseq = seqTable.getRowSequence() ) {
+            while ( rseq.next() ) {
+                rows.add( rseq.getRow() );
+            }
+        }
+        assertEquals( nrow, rows.size() );
+        try ( RowSequence rseq = splitTable.getRowSequence() ) {
+            for ( Object[] row : rows ) {
+                assertTrue( rseq.next() );
+                assertTrue( Arrays.equals( row, rseq.getRow() ) );
+            }
+            assertTrue( ! rseq.next() );
+        }
+
+        /* Read rows using a fully split splittable, and check that
+         * the row indices and contents match. */
+        List<RowSplittable> splits = new ArrayList<>();
+        addSplits( splitTable.getRowSplittable(), splits );
+        assertTrue( splits.size() > 4 );
+        boolean[] seen = new boolean[ rows.size() ];
+        for ( RowSplittable split : splits ) {
+            while ( split.next() ) {
+                int irow = (int) split.rowIndex().getAsLong();
+                assertTrue( ! seen[ irow ] );
+                seen[ irow ] = true;
+                assertTrue( Arrays.equals( rows.get( irow ),
+                                           split.getRow() ) );
+                assertEquals( rows.get( irow )[ 2 ], split.getCell( 2 ) );
+            }
+            split.close();
+        }
+        for ( boolean s : seen ) {
+            assertTrue( s );
+        }
+    }
+
+    private static void addSplits( RowSplittable split,
+                                   List<RowSplittable> list ) {
+        for ( RowSplittable s; ( s = split.split() ) != null; ) {
+            addSplits( s, list );
+        }
+        list.add( split );
+    }
+
+    private static void writeCsv( File file, int nrow, boolean header )
+            throws IOException {
+        Random rnd = new Random( 23001L + nrow );
+        StringBuilder sbuf = new StringBuilder();
+        if ( header ) {
+            sbuf.append( "name,index,value,\"flag\",note\r\n" );
+        }
+        for ( int i = 0; i < nrow; i++ ) {
+            sbuf.append( "item" )
+                .append( i )
+                .append( ',' )
+                .append( i )
+                .append( ", " )
+                .append( rnd.nextInt( 10 ) == 0 ? ""
+                                                : Double.toString( rnd
+                                                     .nextGaussian() ) )
+                .append( ',' )
+                .append( rnd.nextBoolean() ? "T" : "F" )
+                .append( ',' );
+            switch ( rnd.nextInt( 5 ) ) {
+                case 0:
+                    sbuf.append( "\"multi\nline\r\n\n\"\"quoted\"\" "
+                               + "text, with commas\"" );
+                    break;
+                case 1:
+                    sbuf.append( "\"\"" );
+                    break;
+                case 2:
+                    sbuf.append( "plain" );
+                    break;
+                default:
+            }
+            sbuf.append( rnd.nextInt( 20 ) == 0 ? "\n\n" : "\n" );
+        }
+        try ( OutputStream out = new FileOutputStream( file ) ) {
+            out.write( sbuf.toString().getBytes( "UTF-8" ) );
+        }
+    }
+}
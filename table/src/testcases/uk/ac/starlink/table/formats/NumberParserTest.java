@@ -0,0 +1,215 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.util.ByteArrayDataSource;
+
+public class NumberParserTest extends TestCase {
+
+    public NumberParserTest( String name ) {
+        super( name );
+    }
+
+    public void testIntegers() {
+        checkInteger( "0", 0L );
+        checkInteger( "+12", 12L );
+        checkInteger( "-32768", -32768L );
+        checkInteger( "9223372036854775807", Long.MAX_VALUE );
+        checkInteger( "-9223372036854775808", Long.MIN_VALUE );
+        checkInteger( "000000000000000000000000042", 42L );
+        assertTrue( isLong( "9223372036854775807" ) );
+        assertFalse( isLong( "9223372036854775808" ) );
+        assertFalse( isLong( "-9223372036854775809" ) );
+        assertFalse( isLong( "99999999999999999999" ) );
+        assertTrue( NumberParser.isInteger( "32767", 0, 5,
+                                            Short.MIN_VALUE,
+                                            Short.MAX_VALUE ) );
+        assertFalse( NumberParser.isInteger( "32768", 0, 5,
+                                             Short.MIN_VALUE,
+                                             Short.MAX_VALUE ) );
+        for ( String txt : new String[] { "", "-", "+", "1.", "1e3", "0x10",
+                                          " 1", "1 ", "--1", "1-", "a" } ) {
+            assertFalse( txt, isLong( txt ) );
+        }
+
+        /* Region within a larger string. */
+        assertTrue( NumberParser.isInteger( "ab-123cd", 2, 6,
+                                            Long.MIN_VALUE, Long.MAX_VALUE ) );
+        assertEquals( -123L, NumberParser.parseLong( "ab-123cd", 2, 6 ) );
+
+        Random rnd = new Random( 99201L );
+        for ( int i = 0; i < 10000; i++ ) {
+            long val = rnd.nextLong() >> rnd.nextInt( 64 );
+            checkInteger( Long.toString( val ), val );
+        }
+    }
+
+    public void testFloats() {
+        checkDouble( "1", 1 );
+        checkDouble( "-0", 1 );
+        checkDouble( "0.000", 4 );
+        checkDouble( ".5", 1 );
+        checkDouble( "5.", 1 );
+        checkDouble( "1.25e-3", 3 );
+        checkDouble( "6.02214076E+23", 9 );
+        checkDouble( "1e308", 1 );
+        checkDouble( "4.9e-324", 2 );
+        checkDouble( "1e400", 1 );
+        checkDouble( "1e-400", 1 );
+        checkDouble( "12345678901234567890123", 23 );
+        checkDouble( "0.1234567890123456789", 20 );
+        checkDouble( "3.141592653589793", 16 );
+        assertEquals( 1.5e10, parse( "1.5d10" ) );
+        assertEquals( -2.5e-2, parse( "-2.5D-2" ) );
+        assertTrue( Double.isNaN( parse( "NaN" ) ) );
+        assertTrue( Double.isNaN( parse( "nan" ) ) );
+        assertEquals( Double.POSITIVE_INFINITY, parse( "inf" ) );
+        assertEquals( Double.POSITIVE_INFINITY, parse( "+Infinity" ) );
+        assertEquals( Double.NEGATIVE_INFINITY, parse( "-INF" ) );
+        assertEquals( 0, digits( "NaN" ) );
+        assertEquals( 0, digits( "-inf" ) );
+        assertEquals( Double.doubleToLongBits( -0.0 ),
+                      Double.doubleToLongBits( parse( "-0.0" ) ) );
+        for ( String txt : new String[] { "", "-", ".", "e5", "1e", "1e+",
+                                          "1.2.3", "1e5.5", "1f", "0x1p3",
+                                          "nana", "infinit", " 1", "1 ",
+                                          "1,2", "true" } ) {
+            assertEquals( txt, -1, digits( txt ) );
+        }
+
+        /* Compare with Double.parseDouble over a range of values. */
+        Random rnd = new Random( 1123L );
+        for ( int i = 0; i < 50000; i++ ) {
+            double dval;
+            switch ( i % 4 ) {
+                case 0:
+                    dval = rnd.nextGaussian();
+                    break;
+                case 1:
+                    dval = rnd.nextInt( 2000000 ) / 1000.;
+                    break;
+                case 2:
+                    dval = Double.longBitsToDouble( rnd.nextLong() );
+                    break;
+                default:
+                    dval = ( rnd.nextInt( 100000 ) - 50000 )
+                         * Math.pow( 10, rnd.nextInt( 60 ) - 30 );
+            }
+            String txt = Double.toString( dval );
+            assertEquals( txt, Double.doubleToLongBits( dval ),
+                          Double.doubleToLongBits( parse( txt ) ) );
+            String ftxt = String.format( Locale.US,
+                                         "%." + rnd.nextInt( 12 ) + "f",
+                                         rnd.nextGaussian() * 1000 );
+            assertEquals( ftxt, Double.parseDouble( ftxt ), parse( ftxt ) );
+        }
+    }
+
+    public void testSinglePrecision() throws IOException {
+
+        /* Just above the midpoint between 1 and the next float up.
+         * The nearest double is the midpoint itself, so narrowing
+         * the parsed double would round down, to 1. */
+        String boundary = "1.00000005960464478";
+        float above = Math.nextUp( 1f );
+        assertEquals( above, Float.parseFloat( boundary ) );
+        assertEquals( 1f, (float) Double.parseDouble( boundary ) );
+        assertEquals( above, parseF( boundary ) );
+        assertEquals( -above, parseF( "-" + boundary ) );
+        assertEquals( above, parseF( "100000005960464478d-17" ) );
+
+        checkFloat( "1" );
+        checkFloat( "-0" );
+        checkFloat( "0.1" );
+        checkFloat( "3.4028235e38" );
+        checkFloat( "3.5e38" );
+        checkFloat( "1.4e-45" );
+        checkFloat( "1e-50" );
+        checkFloat( "16777217" );
+        checkFloat( "1.2345678e10" );
+        assertTrue( Float.isNaN( parseF( "nan" ) ) );
+        assertEquals( Float.NEGATIVE_INFINITY, parseF( "-Inf" ) );
+
+        /* Compare with Float.parseFloat over a range of values. */
+        Random rnd = new Random( 50223L );
+        for ( int i = 0; i < 50000; i++ ) {
+            String txt;
+            switch ( i % 3 ) {
+                case 0:
+                    txt = Float.toString( Float.intBitsToFloat( rnd
+                                                               .nextInt() ) );
+                    break;
+                case 1:
+                    txt = Double.toString( rnd.nextGaussian()
+                                           * Math.pow( 10, rnd.nextInt( 30 )
+                                                           - 15 ) );
+                    break;
+                default:
+                    txt = String.format( Locale.US,
+                                         "%." + rnd.nextInt( 9 ) + "f",
+                                         rnd.nextGaussian() * 1000 );
+            }
+            checkFloat( txt );
+        }
+
+        /* IPAC float columns use single precision parsing. */
+        String ipac = new StringBuffer()
+            .append( "|          x          |\n" )
+            .append( "|        float        |\n" )
+            .append( "  " + boundary + "  \n" )
+            .append( "  0.1                 \n" )
+            .toString();
+        StarTable table = new IpacTableBuilder()
+            .makeStarTable( new ByteArrayDataSource( "ipac",
+                                                     ipac.getBytes( "UTF-8" ) ),
+                            false, StoragePolicy.PREFER_MEMORY );
+        assertEquals( Float.class, table.getColumnInfo( 0 ).getContentClass() );
+        RowSequence rseq = table.getRowSequence();
+        assertTrue( rseq.next() );
+        assertEquals( Float.valueOf( above ), rseq.getCell( 0 ) );
+        assertTrue( rseq.next() );
+        assertEquals( Float.valueOf( 0.1f ), rseq.getCell( 0 ) );
+        assertFalse( rseq.next() );
+        rseq.close();
+    }
+
+    private static void checkFloat( String txt ) {
+        assertEquals( txt, Float.floatToIntBits( Float.parseFloat( txt ) ),
+                      Float.floatToIntBits( parseF( txt ) ) );
+    }
+
+    private static float parseF( String txt ) {
+        return NumberParser.parseFloat( txt, 0, txt.length() );
+    }
+
+    private static void checkInteger( String txt, long value ) {
+        assertTrue( txt, isLong( txt ) );
+        assertEquals( value,
+                      NumberParser.parseLong( txt, 0, txt.length() ) );
+    }
+
+    private static boolean isLong( String txt ) {
+        return NumberParser.isInteger( txt, 0, txt.length(),
+                                       Long.MIN_VALUE, Long.MAX_VALUE );
+    }
+
+    private static void checkDouble( String txt, int ndigit ) {
+        assertEquals( txt, ndigit, digits( txt ) );
+        assertEquals( txt,
+                      Double.doubleToLongBits( Double.parseDouble( txt ) ),
+                      Double.doubleToLongBits( parse( txt ) ) );
+    }
+
+    private static int digits( String txt ) {
+        return NumberParser.floatDigits( txt, 0, txt.length() );
+    }
+
+    private static double parse( String txt ) {
+        return NumberParser.parseDouble( txt, 0, txt.length() );
+    }
+}
@@ -0,0 +1,152 @@
+package uk.ac.starlink.table.formats;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StarTableWriter;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.TableBuilder;
+import uk.ac.starlink.util.FileDataSource;
+
+/**
+ * Measures read throughput and allocation for the CSV, ASCII and IPAC
+ * input handlers.
+ * Not run as part of the regular test suite; invoke it by hand,
+ * with -Dbench.nrow=N to set the table size (default 1e6)
+ * and -Dbench.iter=N to set the number of timed iterations (default 5).
+ * Each format is read once untimed to warm up, then timed both
+ * reading every cell and reading a single column.
+ */
+public class TextReadBench extends TestCase {
+
+    public TextReadBench( String name ) {
+        super( name );
+    }
+
+    public void testRead() throws IOException {
+        int nrow = (int) Double.parseDouble( System.getProperty( "bench.nrow",
+                                                                 "1e6" ) );
+        int niter = Integer.parseInt( System.getProperty( "bench.iter",
+                                                          "5" ) );
+        StarTable table = createTable( nrow );
+        bench( "csv", table, new CsvTableWriter(), new CsvTableBuilder(),
+               niter );
+        bench( "ascii", table, new AsciiTableWriter(), new AsciiTableBuilder(),
+               niter );
+        bench( "ipac", table, new IpacTableWriter(), new IpacTableBuilder(),
+               niter );
+    }
+
+    private void bench( String name, StarTable table, StarTableWriter writer,
+                        TableBuilder builder, int niter )
+            throws IOException {
+        File file = File.createTempFile( "bench", "." + name );
+        file.deleteOnExit();
+        try {
+            try ( OutputStream out =
+                      new BufferedOutputStream( new FileOutputStream( file ) ) ) {
+                writer.writeStarTable( table, out );
+            }
+            StarTable t0 = read( builder, file );
+            scan( t0, -1 );
+            for ( int icol : new int[] { -1, 2 } ) {
+                long nbyte = 0;
+                long nanos = 0;
+                long nrow = 0;
+                for ( int i = 0; i < niter; i++ ) {
+                    long b0 = getAllocatedBytes();
+                    long t0n = System.nanoTime();
+                    nrow += scan( t0, icol );
+                    nanos += System.nanoTime() - t0n;
+                    nbyte += getAllocatedBytes() - b0;
+                }
+                System.out.println( name
+                                  + ( icol < 0 ? " all cells" : " one column" )
+                                  + ": "
+                                  + (long) ( nrow / ( nanos * 1e-9 ) )
+                                  + " rows/sec, "
+                                  + ( nbyte / nrow ) + " bytes/row" );
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    private static StarTable read( TableBuilder builder, File file )
+            throws IOException {
+        return builder.makeStarTable( new FileDataSource( file ), false,
+                                      StoragePolicy.PREFER_MEMORY );
+    }
+
+    /**
+     * Reads through a table, touching either all cells or a single column.
+     *
+     * @param  table  table
+     * @param  icol  column index, or -1 for all columns
+     * @return  number of rows read
+     */
+    private static long scan( StarTable table, int icol ) throws IOException {
+        long nrow = 0;
+        long nnull = 0;
+        try ( RowSequence rseq = table.getRowSequence() ) {
+            while ( rseq.next() ) {
+                if ( icol < 0 ) {
+                    for ( Object cell : rseq.getRow() ) {
+                        if ( cell == null ) {
+                            nnull++;
+                        }
+                    }
+                }
+                else if ( rseq.getCell( icol ) == null ) {
+                    nnull++;
+                }
+                nrow++;
+            }
+        }
+        assertTrue( nnull < nrow * table.getColumnCount() );
+        return nrow;
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean tmx = ManagementFactory.getThreadMXBean();
+        return tmx instanceof com.sun.management.ThreadMXBean
+             ? ((com.sun.management.ThreadMXBean) tmx)
+              .getThreadAllocatedBytes( Thread.currentThread().getId() )
+             : 0;
+    }
+
+    private static StarTable createTable( int nrow ) {
+        Random rnd = new Random( 770112L );
+        int[] ivals = new int[ nrow ];
+        long[] lvals = new long[ nrow ];
+        double[] dvals = new double[ nrow ];
+        float[] fvals = new float[ nrow ];
+        String[] svals = new String[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = rnd.nextInt( 100000 );
+            lvals[ i ] = rnd.nextLong();
+            dvals[ i ] = rnd.nextGaussian() * 1000;
+            fvals[ i ] = (float) ( rnd.nextInt( 100000 ) * 0.01 );
+            svals[ i ] = "src_" + Integer.toString( rnd.nextInt( 1000000 ),
+                                                    36 );
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "id", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "hash", lvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "x", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "mag", fvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "name", svals ) );
+        return table;
+    }
+}
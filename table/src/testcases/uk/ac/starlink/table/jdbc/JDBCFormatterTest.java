@@ -0,0 +1,317 @@
+package uk.ac.starlink.table.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.StarTable;
+
+/**
+ * Tests JDBCFormatter write behaviour using a minimal in-memory
+ * implementation of the JDBC interfaces.
+ */
+public class JDBCFormatterTest extends TestCase {
+
+    private static final int NROW = 2345;
+
+    public JDBCFormatterTest( String name ) {
+        super( name );
+        Logger.getLogger( "uk.ac.starlink.table.jdbc" )
+              .setLevel( Level.WARNING );
+    }
+
+    public void testRowByRow() throws Exception {
+        FakeDb db = new FakeDb( true );
+        JDBCFormatter fmt = new JDBCFormatter( db.conn_, createTable() );
+        fmt.setBatchSize( 1 );
+        fmt.createJDBCTable( "t1", WriteMode.CREATE );
+        assertEquals( NROW, db.nUpdate_ );
+        assertEquals( 0, db.nBatch_ );
+        assertEquals( 0, db.nCommit_ );
+        checkRows( db.committed_ );
+        assertEquals( "VARCHAR(4)", getCharType( db ) );
+    }
+
+    public void testBatch() throws Exception {
+        FakeDb db = new FakeDb( true );
+        JDBCFormatter fmt = new JDBCFormatter( db.conn_, createTable() );
+        assertEquals( JDBCFormatter.DFLT_BATCH_SIZE, fmt.getBatchSize() );
+        fmt.setBatchSize( 100 );
+        fmt.createJDBCTable( "t1", WriteMode.CREATE );
+        assertEquals( 0, db.nUpdate_ );
+        assertEquals( ( NROW + 99 ) / 100, db.nBatch_ );
+        assertEquals( 0, db.nCommit_ );
+        assertTrue( db.autoCommit_ );
+        checkRows( db.committed_ );
+
+        /* Check typed setters were used. */
+        assertTrue( db.setters_.contains( "setInt" ) );
+        assertTrue( db.setters_.contains( "setDouble" ) );
+        assertTrue( db.setters_.contains( "setString" ) );
+        assertTrue( db.setters_.contains( "setNull" ) );
+        assertTrue( ! db.setters_.contains( "setObject" ) );
+    }
+
+    public void testCommit() throws Exception {
+        FakeDb db = new FakeDb( true );
+        JDBCFormatter fmt = new JDBCFormatter( db.conn_, createTable() );
+        fmt.setBatchSize( 64 );
+        fmt.setCommitInterval( 500 );
+        fmt.createJDBCTable( "t1", WriteMode.CREATE );
+        assertEquals( NROW / 500 + 1, db.nCommit_ );
+        assertTrue( db.autoCommit_ );
+        assertEquals( 0, db.pending_.size() );
+        checkRows( db.committed_ );
+
+        /* No batch support. */
+        db = new FakeDb( false );
+        fmt = new JDBCFormatter( db.conn_, createTable() );
+        fmt.setCommitInterval( 1000 );
+        fmt.createJDBCTable( "t1", WriteMode.CREATE );
+        assertEquals( NROW, db.nUpdate_ );
+        assertEquals( 0, db.nBatch_ );
+        checkRows( db.committed_ );
+    }
+
+    public void testCharSize() throws Exception {
+        FakeDb db = new FakeDb( true );
+        new JDBCFormatter( db.conn_, createTable(), 32 )
+           .createJDBCTable( "t1", WriteMode.CREATE );
+        assertEquals( "VARCHAR(32)", getCharType( db ) );
+        checkRows( db.committed_ );
+    }
+
+    private static String getCharType( FakeDb db ) {
+        String create = db.statements_.get( 0 );
+        assertTrue( create.startsWith( "CREATE TABLE t1" ) );
+        int ic = create.indexOf( "VARCHAR(" );
+        return create.substring( ic, create.indexOf( ')', ic ) + 1 );
+    }
+
+    private static StarTable createTable() {
+        int[] ivals = new int[ NROW ];
+        double[] dvals = new double[ NROW ];
+        String[] svals = new String[ NROW ];
+        for ( int i = 0; i < NROW; i++ ) {
+            ivals[ i ] = i;
+            dvals[ i ] = i % 10 == 0 ? Double.NaN : i * 0.5;
+            svals[ i ] = i % 7 == 0 ? null : Integer.toString( i );
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( NROW );
+        table.addColumn( ArrayColumn.makeColumn( "ival", ivals ) );
+        table.addColumn( ArrayColumn.makeColumn( "dval", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "sval", svals ) );
+        return table;
+    }
+
+    private static void checkRows( List<Object[]> rows ) {
+        assertEquals( NROW, rows.size() );
+        for ( int i = 0; i < NROW; i++ ) {
+            Object[] row = rows.get( i );
+            assertEquals( new Integer( i ), row[ 0 ] );
+            assertEquals( i % 10 == 0 ? null : new Double( i * 0.5 ),
+                          row[ 1 ] );
+            assertEquals( i % 7 == 0 ? null : Integer.toString( i ),
+                          row[ 2 ] );
+        }
+    }
+
+    /**
+     * Records what happens to data written through a proxy
+     * JDBC Connection.
+     */
+    private static class FakeDb {
+        final boolean supportsBatch_;
+        final Connection conn_;
+        final List<String> statements_ = new ArrayList<>();
+        final List<Object[]> committed_ = new ArrayList<>();
+        final List<Object[]> pending_ = new ArrayList<>();
+        final List<Object[]> batch_ = new ArrayList<>();
+        final List<String> setters_ = new ArrayList<>();
+        boolean autoCommit_ = true;
+        int nUpdate_;
+        int nBatch_;
+        int nCommit_;
+
+        FakeDb( boolean supportsBatch ) {
+            supportsBatch_ = supportsBatch;
+            conn_ = proxy( Connection.class, ( meth, args ) -> {
+                switch ( meth.getName() ) {
+                    case "getMetaData":
+                        return createMetaData();
+                    case "createStatement":
+                        return createStatement();
+                    case "prepareStatement":
+                        statements_.add( (String) args[ 0 ] );
+                        return createPreparedStatement();
+                    case "getAutoCommit":
+                        return Boolean.valueOf( autoCommit_ );
+                    case "setAutoCommit":
+                        autoCommit_ = ((Boolean) args[ 0 ]).booleanValue();
+                        flush();
+                        return null;
+                    case "commit":
+                        nCommit_++;
+                        flush();
+                        return null;
+                    case "rollback":
+                        pending_.clear();
+                        return null;
+                    default:
+                        return null;
+                }
+            } );
+        }
+
+        private void written( List<Object[]> rows ) {
+            pending_.addAll( rows );
+            if ( autoCommit_ ) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            committed_.addAll( pending_ );
+            pending_.clear();
+        }
+
+        private DatabaseMetaData createMetaData() {
+            return proxy( DatabaseMetaData.class, ( meth, args ) -> {
+                switch ( meth.getName() ) {
+                    case "getMaxColumnNameLength":
+                    case "getMaxTableNameLength":
+                        return new Integer( 64 );
+                    case "storesUpperCaseIdentifiers":
+                        return Boolean.FALSE;
+                    case "supportsBatchUpdates":
+                        return Boolean.valueOf( supportsBatch_ );
+                    case "getIdentifierQuoteString":
+                        return "\"";
+                    case "getSQLKeywords":
+                        return "";
+                    case "getTypeInfo":
+                        return createTypeInfo();
+                    default:
+                        return null;
+                }
+            } );
+        }
+
+        private ResultSet createTypeInfo() {
+            final Object[][] types = {
+                { "INTEGER", Types.INTEGER },
+                { "DOUBLE", Types.DOUBLE },
+                { "VARCHAR", Types.VARCHAR },
+            };
+            final int[] irow = new int[] { -1 };
+            return proxy( ResultSet.class, ( meth, args ) -> {
+                switch ( meth.getName() ) {
+                    case "next":
+                        return Boolean.valueOf( ++irow[ 0 ] < types.length );
+                    case "getString":
+                        return types[ irow[ 0 ] ][ 0 ];
+                    case "getShort":
+                        return new Short( ((Integer) types[ irow[ 0 ] ][ 1 ])
+                                         .shortValue() );
+                    default:
+                        return null;
+                }
+            } );
+        }
+
+        private Statement createStatement() {
+            return proxy( Statement.class, ( meth, args ) -> {
+                if ( "executeUpdate".equals( meth.getName() ) ) {
+                    statements_.add( (String) args[ 0 ] );
+                    return new Integer( 0 );
+                }
+                return null;
+            } );
+        }
+
+        private PreparedStatement createPreparedStatement() {
+            final Map<Integer,Object> params = new HashMap<>();
+            return proxy( PreparedStatement.class, ( meth, args ) -> {
+                String name = meth.getName();
+                if ( name.startsWith( "set" ) ) {
+                    if ( ! setters_.contains( name ) ) {
+                        setters_.add( name );
+                    }
+                    params.put( (Integer) args[ 0 ],
+                                name.equals( "setNull" ) ? null : args[ 1 ] );
+                    return null;
+                }
+                switch ( name ) {
+                    case "executeUpdate":
+                        nUpdate_++;
+                        written( Arrays.asList( new Object[][] {
+                                                   toRow( params ) } ) );
+                        return new Integer( 1 );
+                    case "addBatch":
+                        batch_.add( toRow( params ) );
+                        return null;
+                    case "executeBatch":
+                        nBatch_++;
+                        written( batch_ );
+                        int[] counts = new int[ batch_.size() ];
+                        batch_.clear();
+                        return counts;
+                    default:
+                        return null;
+                }
+            } );
+        }
+
+        private static Object[] toRow( Map<Integer,Object> params ) {
+            Object[] row = new Object[ params.size() ];
+            for ( int i = 0; i < row.length; i++ ) {
+                row[ i ] = params.get( new Integer( i + 1 ) );
+            }
+            return row;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke( Method meth, Object[] args ) throws Exception;
+    }
+
+    private static <T> T proxy( Class<T> clazz, Handler handler ) {
+        InvocationHandler ih = ( obj, meth, args ) -> {
+            if ( meth.getDeclaringClass() == Object.class ) {
+                return meth.getName().equals( "hashCode" )
+                     ? new Integer( System.identityHashCode( obj ) )
+                     : meth.invoke( handler, args );
+            }
+            Object result = handler.invoke( meth, args );
+            if ( result == null && meth.getReturnType().isPrimitive() ) {
+                Class<?> rtype = meth.getReturnType();
+                if ( rtype == boolean.class ) {
+                    return Boolean.FALSE;
+                }
+                else if ( rtype == int.class ) {
+                    return new Integer( 0 );
+                }
+            }
+            return result;
+        };
+        return clazz.cast( Proxy.newProxyInstance( clazz.getClassLoader(),
+                                                   new Class<?>[] { clazz },
+                                                   ih ) );
+    }
+}
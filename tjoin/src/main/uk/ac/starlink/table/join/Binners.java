@@ -2,11 +2,13 @@ package uk.ac.starlink.table.join;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.util.IntList;
 import uk.ac.starlink.util.LongList;
@@ -47,10 +49,28 @@ class Binners {
 
     /**
      * Returns a new binner for storing long integer values.
+     * The returned binner is optimised for the case in which all
+     * the keys are {@link java.lang.Long}s (as for instance in the
+     * case of HEALPix-based sky matching), but will work with any keys.
+     * The key iterator supports <code>remove</code>.
      *
+     * @param  nrow  maximum value that will be stored, or -1 if not known
      * @return   new LongBinner
      */
     public static LongBinner createLongBinner( long nrow ) {
+        return new LongKeyLongBinner( nrow );
+    }
+
+    /**
+     * Returns a new HashMap-based binner for storing long integer values.
+     * This works with any key type, but is less efficient than the
+     * one returned by {@link #createLongBinner createLongBinner}
+     * for <code>Long</code>-valued keys.
+     *
+     * @param  nrow  maximum value that will be stored, or -1 if not known
+     * @return   new LongBinner
+     */
+    static LongBinner createMapLongBinner( long nrow ) {
         return nrow >= 0 && nrow < Integer.MAX_VALUE
              ? (LongBinner) new CombinationIntLongBinner()
              : (LongBinner) new LongListLongBinner();
@@ -355,6 +375,380 @@ class Binners {
         }
     }
 
+    /**
+     * LongBinner implementation optimised for <code>Long</code>-valued keys.
+     * Bins are stored in an open-addressing hash table keyed by
+     * primitive long values, and the bin contents are stored as
+     * singly-linked lists threaded through a chunked primitive array,
+     * so that no per-bin or per-item objects are created.
+     * Each list node packs a 32-bit item value and a 32-bit link
+     * into a single long, so the storage cost is 8 bytes per item
+     * plus 16-40 bytes per bin.
+     *
+     * <p>If a key which is not a <code>Long</code> or an item
+     * outside the 32-bit unsigned range is added,
+     * or if the hash table or node storage would overflow,
+     * the contents are transferred to a HashMap-based binner
+     * to which all subsequent operations are delegated.
+     */
+    private static class LongKeyLongBinner implements LongBinner {
+
+        private final long nrow_;
+        private final ChunkedLongArray nodes_;
+        private long[] keys_;
+        private long[] heads_;
+        private int mask_;
+        private long nbin_;
+        private long nused_;
+        private LongBinner fallback_;
+
+        /** Head value marking an unused slot. */
+        private static final long EMPTY = 0;
+
+        /** Head value marking a slot whose bin has been removed. */
+        private static final long REMOVED = -1;
+
+        /** Link value marking the end of a list. */
+        private static final long NO_LINK = 0;
+
+        /** Mask for the lower 32 bits of a long. */
+        private static final long MASK32 = 0xffffffffL;
+
+        /** Initial hash table size; must be a power of 2. */
+        private static final int INIT_CAPACITY = 64;
+
+        /** Maximum hash table size; must be a power of 2. */
+        private static final int MAX_CAPACITY = 1 << 30;
+
+        /**
+         * Constructor.
+         *
+         * @param  nrow  maximum value that will be stored,
+         *               or -1 if not known
+         */
+        LongKeyLongBinner( long nrow ) {
+            nrow_ = nrow;
+            nodes_ = new ChunkedLongArray();
+            allocate( INIT_CAPACITY );
+        }
+
+        public void addItem( Object key, long item ) {
+            if ( fallback_ == null && key instanceof Long &&
+                 ( item & ~MASK32 ) == 0 && nodes_.size() < MASK32 - 1 &&
+                 ensureSpace() ) {
+                long lkey = ((Long) key).longValue();
+                int is = findSlot( lkey );
+                long head = heads_[ is ];
+                if ( head == EMPTY ) {
+                    keys_[ is ] = lkey;
+                    nused_++;
+                }
+                if ( head == EMPTY || head == REMOVED ) {
+                    head = NO_LINK;
+                    nbin_++;
+                }
+
+                /* Prepend a node to the list; links are node index + 1. */
+                long inode = nodes_.size();
+                nodes_.add( ( item << 32 ) | head );
+                heads_[ is ] = inode + 1;
+            }
+            else {
+                getFallback().addItem( key, item );
+            }
+        }
+
+        public long[] getLongs( Object key ) {
+            if ( fallback_ != null ) {
+                return fallback_.getLongs( key );
+            }
+            else if ( key instanceof Long ) {
+                int is = findSlot( ((Long) key).longValue() );
+                return isLive( heads_[ is ] ) ? readBin( is ) : null;
+            }
+            else {
+                return null;
+            }
+        }
+
+        public Iterator<?> getKeyIterator() {
+            if ( fallback_ != null ) {
+                return fallback_.getKeyIterator();
+            }
+            return new Iterator<Long>() {
+                final long[] keys = keys_;
+                final long[] heads = heads_;
+                int is_ = -1;
+                int next_ = nextSlot( -1 );
+                public boolean hasNext() {
+                    return next_ < keys.length;
+                }
+                public Long next() {
+                    if ( next_ < keys.length ) {
+                        is_ = next_;
+                        next_ = nextSlot( is_ );
+                        return new Long( keys[ is_ ] );
+                    }
+                    else {
+                        throw new NoSuchElementException();
+                    }
+                }
+                public void remove() {
+                    if ( heads != heads_ ) {
+                        throw new ConcurrentModificationException();
+                    }
+                    else if ( is_ < 0 || ! isLive( heads[ is_ ] ) ) {
+                        throw new IllegalStateException();
+                    }
+
+                    /* The slot is marked, but node storage is not
+                     * reclaimed. */
+                    heads[ is_ ] = REMOVED;
+                    nbin_--;
+                }
+                private int nextSlot( int is ) {
+                    do {
+                        is++;
+                    } while ( is < keys.length && ! isLive( heads[ is ] ) );
+                    return is;
+                }
+            };
+        }
+
+        public long getBinCount() {
+            return fallback_ == null ? nbin_ : fallback_.getBinCount();
+        }
+
+        /**
+         * Ensures that the hash table has room for at least one more key,
+         * rehashing if required.
+         *
+         * @return  true if there is space, false if the hash table
+         *          cannot be made large enough
+         */
+        private boolean ensureSpace() {
+            int capacity = keys_.length;
+            if ( ( nused_ + 1 ) * 8 <= capacity * 5L ) {
+                return true;
+            }
+
+            /* Grow the table unless a good fraction of the used slots
+             * are for removed bins, in which case rehashing at the
+             * same size will clear them out. */
+            long newCapacity = ( nbin_ + 1 ) * 8 > capacity * 3L
+                             ? capacity * 2L
+                             : capacity;
+            if ( newCapacity > MAX_CAPACITY ) {
+                return false;
+            }
+            else {
+                rehash( (int) newCapacity );
+                return true;
+            }
+        }
+
+        /**
+         * Returns the index of the slot in the hash table which does or
+         * would contain a given key.
+         *
+         * @param  key  bin key
+         * @return  index of slot which either contains the key or is empty
+         */
+        private int findSlot( long key ) {
+            int is = hash( key ) & mask_;
+            while ( heads_[ is ] != EMPTY && keys_[ is ] != key ) {
+                is = ( is + 1 ) & mask_;
+            }
+            return is;
+        }
+
+        /**
+         * Returns the items in an occupied slot in order of addition.
+         *
+         * @param  is  slot index
+         * @return  bin contents
+         */
+        private long[] readBin( int is ) {
+
+            /* Nodes are stored most recent first, so count them and
+             * then fill the array from the end. */
+            long head = heads_[ is ];
+            int count = 0;
+            for ( long link = head; link != NO_LINK;
+                  link = nodes_.get( link - 1 ) & MASK32 ) {
+                count++;
+            }
+            long[] items = new long[ count ];
+            long link = head;
+            for ( int i = count - 1; i >= 0; i-- ) {
+                long node = nodes_.get( link - 1 );
+                items[ i ] = node >>> 32;
+                link = node & MASK32;
+            }
+            return items;
+        }
+
+        /**
+         * Sets up empty hash table arrays.
+         *
+         * @param  capacity  hash table size, a power of 2
+         */
+        private void allocate( int capacity ) {
+            keys_ = new long[ capacity ];
+            heads_ = new long[ capacity ];
+            mask_ = capacity - 1;
+            nused_ = 0;
+        }
+
+        /**
+         * Rebuilds the hash table with a given capacity,
+         * discarding the keys of removed bins.
+         * Node storage is unaffected.
+         *
+         * @param  capacity  new hash table size, a power of 2
+         */
+        private void rehash( int capacity ) {
+            long[] keys0 = keys_;
+            long[] heads0 = heads_;
+            allocate( capacity );
+            for ( int is0 = 0; is0 < keys0.length; is0++ ) {
+                long head = heads0[ is0 ];
+                if ( isLive( head ) ) {
+                    long key = keys0[ is0 ];
+                    int is = findSlot( key );
+                    keys_[ is ] = key;
+                    heads_[ is ] = head;
+                    nused_++;
+                }
+            }
+        }
+
+        /**
+         * Returns the binner to which this one delegates, creating it
+         * and transferring the current contents to it if necessary.
+         *
+         * @return  HashMap-based binner
+         */
+        private LongBinner getFallback() {
+            if ( fallback_ == null ) {
+                LongBinner fallback = createMapLongBinner( nrow_ );
+                for ( int is = 0; is < keys_.length; is++ ) {
+                    if ( isLive( heads_[ is ] ) ) {
+                        Long key = new Long( keys_[ is ] );
+                        for ( long item : readBin( is ) ) {
+                            fallback.addItem( key, item );
+                        }
+                    }
+                }
+                keys_ = null;
+                heads_ = null;
+                nodes_.clear();
+                fallback_ = fallback;
+            }
+            return fallback_;
+        }
+
+        /**
+         * Indicates whether a slot head value represents a non-empty bin.
+         *
+         * @param  head  head value
+         * @return  true iff the slot contains a current bin
+         */
+        private static boolean isLive( long head ) {
+            return head != EMPTY && head != REMOVED;
+        }
+
+        /**
+         * Hash function for long keys.
+         *
+         * @param  key  key
+         * @return   well-mixed hash value
+         */
+        private static int hash( long key ) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) ( h ^ ( h >>> 32 ) );
+        }
+    }
+
+    /**
+     * Expandable array of long values which may have more than
+     * <code>Integer.MAX_VALUE</code> elements.
+     * Storage is in fixed-size chunks, so that expansion does not
+     * require copying of existing elements.
+     */
+    private static class ChunkedLongArray {
+
+        private static final int CHUNK_BITS = 16;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+        private long[][] chunks_;
+        private long size_;
+
+        /**
+         * Constructs an empty array.
+         */
+        ChunkedLongArray() {
+            clear();
+        }
+
+        /**
+         * Returns the number of elements in this array.
+         *
+         * @return  size
+         */
+        long size() {
+            return size_;
+        }
+
+        /**
+         * Appends a value to the end of this array.
+         *
+         * @param  value  value to append
+         */
+        void add( long value ) {
+            int ichunk = (int) ( size_ >>> CHUNK_BITS );
+            int ioff = (int) ( size_ & CHUNK_MASK );
+            if ( ichunk == chunks_.length ) {
+                chunks_ = Arrays.copyOf( chunks_, ichunk * 2 );
+            }
+            long[] chunk = chunks_[ ichunk ];
+
+            /* The first chunk grows gradually so that small arrays
+             * do not use a lot of memory; subsequent ones are
+             * allocated at full size. */
+            if ( chunk == null ) {
+                chunk = new long[ CHUNK_SIZE ];
+                chunks_[ ichunk ] = chunk;
+            }
+            else if ( ioff == chunk.length ) {
+                chunk = Arrays.copyOf( chunk, Math.min( ioff * 2,
+                                                        CHUNK_SIZE ) );
+                chunks_[ ichunk ] = chunk;
+            }
+            chunk[ ioff ] = value;
+            size_++;
+        }
+
+        /**
+         * Returns an element of this array.
+         *
+         * @param  index  element index
+         * @return   element value
+         */
+        long get( long index ) {
+            return chunks_[ (int) ( index >>> CHUNK_BITS ) ]
+                          [ (int) ( index & CHUNK_MASK ) ];
+        }
+
+        /**
+         * Empties this array and releases its storage.
+         */
+        void clear() {
+            chunks_ = new long[][] { new long[ 16 ] };
+            size_ = 0;
+        }
+    }
+
     /**
      * Utility class used for the list storage implementation.
      * It has to be private for use here, so that we can distinguish
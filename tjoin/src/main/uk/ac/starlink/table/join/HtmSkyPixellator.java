@@ -70,7 +70,12 @@ public class HtmSkyPixellator implements SkyPixellator {
         return levelParam_;
     }
 
-    public Object[] getPixels( double alpha, double delta, double radius ) {
+    /**
+     * Synchronized, since the thread-safety of the HTM library
+     * is undocumented.
+     */
+    public synchronized Object[] getPixels( double alpha, double delta,
+                                            double radius ) {
         double arcminRadius = Math.toDegrees( radius ) * 60.0;
         Circle zone = new Circle( alpha, delta, arcminRadius );
 
@@ -29,8 +29,22 @@ public class ProgressRowSequence extends WrapperRowSequence {
      */
     public ProgressRowSequence( StarTable table, ProgressIndicator indicator, 
                                 String stage ) throws IOException {
-        super( table.getRowSequence() );
-        nrow_ = table.getRowCount();
+        this( table.getRowSequence(), table.getRowCount(), indicator, stage );
+    }
+
+    /**
+     * Constructs a new ProgressRowSequence from an existing row sequence.
+     *
+     * @param  rseq   base row sequence
+     * @param  nrow   number of rows in <code>rseq</code>,
+     *                or -1 if not known
+     * @param  indicator  indicator to be informed about progress
+     * @param  stage    string describing this stage of the process
+     */
+    public ProgressRowSequence( RowSequence rseq, long nrow,
+                                ProgressIndicator indicator, String stage ) {
+        super( rseq );
+        nrow_ = nrow;
         indicator_ = indicator;
         indicator_.startStage( stage );
     }
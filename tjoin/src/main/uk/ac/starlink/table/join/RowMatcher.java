@@ -13,8 +13,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.LongSupplier;
 import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.ProgressRowSplittable;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
 import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.table.ValueInfo;
@@ -41,6 +47,7 @@ public class RowMatcher {
     private final StarTable[] tables;
     private final int nTable;
     private ProgressIndicator indicator = new NullProgressIndicator();
+    private RowRunner runner = RowRunner.SEQUENTIAL;
     private long startTime;
 
     /**
@@ -74,6 +81,35 @@ public class RowMatcher {
         return indicator;
     }
 
+    /**
+     * Sets the row runner which controls how table rows are processed
+     * during pair matching.  If a parallel runner is used,
+     * the scan of the sequentially-accessed table in a pair match
+     * will be split between multiple threads where the table permits it,
+     * with each thread probing the (read-only) bin structure of the
+     * other table concurrently.
+     * In that case the match engine's {@link MatchEngine#getBins getBins}
+     * and {@link MatchEngine#matchScore matchScore} methods
+     * will be invoked concurrently, and the progress indicator
+     * will be updated from multiple threads (with external synchronization).
+     *
+     * <p>The default is {@link RowRunner#SEQUENTIAL}.
+     *
+     * @param  runner  row runner, not null
+     */
+    public void setRowRunner( RowRunner runner ) {
+        this.runner = runner;
+    }
+
+    /**
+     * Returns the row runner used by this matcher.
+     *
+     * @return  row runner
+     */
+    public RowRunner getRowRunner() {
+        return runner;
+    }
+
     /**
      * Constructs a new empty LinkSet for use by this matcher.
      * The current implementation returns one based on a SortedSet,
@@ -240,70 +276,15 @@ public class RowMatcher {
         indicator.logMessage( "(average bin occupancy " +
                               ( (float) nref / (float) nbin ) + ")" );
 
-        /* Scan the rows for the sequential table. */
-        LinkSet linkSet = createLinkSet();
-        ProgressRowSequence sseq =
-            new ProgressRowSequence( tables[ indexS ], indicator,
-                                     "Scanning rows for table "
-                                   + ( indexS + 1 ) );
-        try {
-            for ( long isrow = 0; sseq.nextProgress(); isrow++ ) {
-                Object[] srowData = sseq.getRow();
-                if ( range.isInside( srowData ) ) {
-
-                    /* Identify rows from table R which may match table S. */
-                    Object[] keys = engine.getBins( srowData );
-                    int nkey = keys.length;
-                    Set<Long> rrowSet = new HashSet<Long>();
-                    for ( int ikey = 0; ikey < nkey; ikey++ ) {
-                        long[] rrows = binner.getLongs( keys[ ikey ] );
-                        if ( rrows != null ) {
-                            for ( int ir = 0; ir < rrows.length; ir++ ) {
-                                rrowSet.add( new Long( rrows[ ir ] ) );
-                            }
-                        }
-                    }
-                    long[] rrows = new long[ rrowSet.size() ];
-                    int ir = 0;
-                    for ( Long rr : rrowSet ) {
-                        rrows[ ir++ ] = rr.longValue();
-                    }
-                    Arrays.sort( rrows );
-
-                    /* Score and accumulate matched links. */
-                    List<RowLink2> linkList = new ArrayList<RowLink2>( 1 );
-                    double bestScore = Double.MAX_VALUE;
-                    for ( ir = 0; ir < rrows.length; ir++ ) {
-                        long irrow = rrows[ ir ];
-                        Object[] rrowData = tables[ indexR ].getRow( irrow );
-                        double score = engine.matchScore( srowData, rrowData );
-                        if ( score >= 0 &&
-                             ( ! bestOnly || score < bestScore ) ) {
-                            RowRef rref = new RowRef( indexR, irrow );
-                            RowRef sref = new RowRef( indexS, isrow );
-                            RowLink2 pairLink = new RowLink2( rref, sref );
-                            pairLink.setScore( score );
-                            if ( bestOnly ) {
-                                bestScore = score;
-                                linkList.clear();
-                            }
-                            linkList.add( pairLink );
-                            assert ( ! bestOnly ) || ( linkList.size() == 1 );
-                        }
-                    }
-
-                    /* Add matched links to output set. */
-                    for ( RowLink2 pairLink : linkList ) {
-                        assert ! linkSet.containsLink( pairLink );
-                        linkSet.addLink( pairLink );
-                    }
-                }
-            }
-        }
-        finally {
-            sseq.close();
-        }
-        return linkSet;
+        /* Scan the rows for the sequential table, in parallel if the
+         * row runner and the table permit it. */
+        PairScanner scanner =
+            new PairScanner( indexR, indexS, range, binner, bestOnly );
+        RowSplittable ssplit =
+            runner.createRowSplittable( tables[ indexS ] );
+        return ssplit.rowIndex() != null && runner.willAttemptSplit( ssplit )
+             ? scanner.scanParallel( ssplit )
+             : scanner.scanSequential( ssplit );
     }
 
     /**
@@ -1638,6 +1619,249 @@ public class RowMatcher {
         return Tables.checkedLongToInt( lval );
     }
 
+    /**
+     * Locates pair matches between rows of a sequentially scanned table
+     * and the rows of a random-access table which have already been
+     * binned.  The bin structure is only read during the scan,
+     * so the scan may be split between multiple threads.
+     */
+    private class PairScanner {
+
+        private final int indexR_;
+        private final int indexS_;
+        private final NdRange range_;
+        private final LongBinner binner_;
+        private final boolean bestOnly_;
+
+        /**
+         * Constructor.
+         *
+         * @param  indexR  index of table which will be accessed randomly
+         * @param  indexS  index of table which will be accessed sequentially
+         * @param  range   range outside which pairs can be ignored
+         * @param  binner  binner populated with row indices of table R;
+         *                 it will not be modified by this object
+         * @param  bestOnly  if true, for each row in the sequential table
+         *                   only the best match in the random table
+         *                   will be included
+         */
+        PairScanner( int indexR, int indexS, NdRange range, LongBinner binner,
+                     boolean bestOnly ) {
+            indexR_ = indexR;
+            indexS_ = indexS;
+            range_ = range;
+            binner_ = binner;
+            bestOnly_ = bestOnly;
+        }
+
+        /**
+         * Scans the rows of table S on the current thread.
+         *
+         * @param  srseq  row sequence over table S, closed on exit
+         * @return  links representing pair matches
+         */
+        LinkSet scanSequential( RowSequence srseq )
+                throws IOException, InterruptedException {
+            LinkSet linkSet = createLinkSet();
+            ProgressRowSequence sseq =
+                new ProgressRowSequence( srseq, tables[ indexS_ ].getRowCount(),
+                                         indicator,
+                                         "Scanning rows for table "
+                                       + ( indexS_ + 1 ) );
+            RowAccess racc = tables[ indexR_ ].getRowAccess();
+            try {
+                for ( long isrow = 0; sseq.nextProgress(); isrow++ ) {
+                    scanRow( sseq.getRow(), isrow, racc, linkSet );
+                }
+            }
+            finally {
+                racc.close();
+                sseq.close();
+            }
+            return linkSet;
+        }
+
+        /**
+         * Scans the rows of table S using this matcher's row runner,
+         * accumulating links in a separate LinkSet for each subtask
+         * and merging them at the end.
+         *
+         * @param  ssplit  splittable over table S, closed on exit;
+         *                 must have a non-null row index
+         * @return  links representing pair matches
+         */
+        LinkSet scanParallel( RowSplittable ssplit )
+                throws IOException, InterruptedException {
+            long nrow = tables[ indexS_ ].getRowCount();
+            indicator.startStage( "Scanning rows for table "
+                                + ( indexS_ + 1 ) + " (parallel)" );
+            ProgressTarget target = new ProgressTarget( nrow );
+            try {
+                return runner.collect( new PairCollector(),
+                                       new ProgressRowSplittable( ssplit,
+                                                                  target ) );
+            }
+            catch ( IOException e ) {
+                if ( target.interrupted_ != null ) {
+                    throw target.interrupted_;
+                }
+                else {
+                    throw e;
+                }
+            }
+            finally {
+                indicator.endStage();
+            }
+        }
+
+        /**
+         * Identifies and accumulates any matches between a given row
+         * of table S and the binned rows of table R.
+         *
+         * @param  srowData  row data from table S
+         * @param  isrow    index of row in table S
+         * @param  racc     random access to table R
+         * @param  linkSet   link set to which matched pairs are added
+         */
+        private void scanRow( Object[] srowData, long isrow, RowAccess racc,
+                              LinkSet linkSet )
+                throws IOException {
+            if ( range_.isInside( srowData ) ) {
+
+                /* Identify rows from table R which may match table S. */
+                Object[] keys = engine.getBins( srowData );
+                int nkey = keys.length;
+                Set<Long> rrowSet = new HashSet<Long>();
+                for ( int ikey = 0; ikey < nkey; ikey++ ) {
+                    long[] rrows = binner_.getLongs( keys[ ikey ] );
+                    if ( rrows != null ) {
+                        for ( int ir = 0; ir < rrows.length; ir++ ) {
+                            rrowSet.add( new Long( rrows[ ir ] ) );
+                        }
+                    }
+                }
+                long[] rrows = new long[ rrowSet.size() ];
+                int ir = 0;
+                for ( Long rr : rrowSet ) {
+                    rrows[ ir++ ] = rr.longValue();
+                }
+                Arrays.sort( rrows );
+
+                /* Score and accumulate matched links. */
+                List<RowLink2> linkList = new ArrayList<RowLink2>( 1 );
+                double bestScore = Double.MAX_VALUE;
+                for ( ir = 0; ir < rrows.length; ir++ ) {
+                    long irrow = rrows[ ir ];
+                    racc.setRowIndex( irrow );
+                    Object[] rrowData = racc.getRow();
+                    double score = engine.matchScore( srowData, rrowData );
+                    if ( score >= 0 &&
+                         ( ! bestOnly_ || score < bestScore ) ) {
+                        RowRef rref = new RowRef( indexR_, irrow );
+                        RowRef sref = new RowRef( indexS_, isrow );
+                        RowLink2 pairLink = new RowLink2( rref, sref );
+                        pairLink.setScore( score );
+                        if ( bestOnly_ ) {
+                            bestScore = score;
+                            linkList.clear();
+                        }
+                        linkList.add( pairLink );
+                        assert ( ! bestOnly_ ) || ( linkList.size() == 1 );
+                    }
+                }
+
+                /* Add matched links to output set. */
+                for ( RowLink2 pairLink : linkList ) {
+                    assert ! linkSet.containsLink( pairLink );
+                    linkSet.addLink( pairLink );
+                }
+            }
+        }
+
+        /**
+         * Collector that scans a chunk of table S into a LinkSet.
+         */
+        private class PairCollector extends RowCollector<LinkSet> {
+
+            public LinkSet createAccumulator() {
+                return createLinkSet();
+            }
+
+            public void accumulateRows( RowSplittable rseq, LinkSet linkSet )
+                    throws IOException {
+                LongSupplier rowIndex = rseq.rowIndex();
+                RowAccess racc = tables[ indexR_ ].getRowAccess();
+                try {
+                    while ( rseq.next() ) {
+                        scanRow( rseq.getRow(), rowIndex.getAsLong(), racc,
+                                 linkSet );
+                    }
+                }
+                finally {
+                    racc.close();
+                }
+            }
+
+            public LinkSet combine( LinkSet links1, LinkSet links2 ) {
+
+                /* Each row of table S is seen by only one subtask,
+                 * so the link sets are disjoint.  Transfer the smaller
+                 * into the larger. */
+                final LinkSet big;
+                final LinkSet small;
+                if ( links1.size() >= links2.size() ) {
+                    big = links1;
+                    small = links2;
+                }
+                else {
+                    big = links2;
+                    small = links1;
+                }
+                for ( RowLink link : small ) {
+                    big.addLink( link );
+                }
+                return big;
+            }
+        }
+
+        /**
+         * Passes progress of a parallel scan to this matcher's
+         * progress indicator.  Since the indicator is not required to be
+         * thread-safe, access to it is synchronized.
+         */
+        private class ProgressTarget implements ProgressRowSplittable.Target {
+            private final double nrow_;
+            volatile InterruptedException interrupted_;
+
+            /**
+             * Constructor.
+             *
+             * @param  nrow  total number of rows expected, or -1 if unknown
+             */
+            ProgressTarget( long nrow ) {
+                nrow_ = nrow;
+            }
+
+            public void updateCount( long count ) throws IOException {
+                if ( nrow_ > 0 ) {
+                    synchronized ( indicator ) {
+                        try {
+                            indicator.setLevel( Math.min( count / nrow_,
+                                                          1.0 ) );
+                        }
+                        catch ( InterruptedException e ) {
+                            interrupted_ = e;
+                            throw new IOException( "Match interrupted", e );
+                        }
+                    }
+                }
+            }
+
+            public void done( long count ) {
+            }
+        }
+    }
+
     /**
      * Helper class which decorates a RowRef with a score value.
      */
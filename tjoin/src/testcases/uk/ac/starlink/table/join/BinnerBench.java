@@ -0,0 +1,68 @@
+package uk.ac.starlink.table.join;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.LongFunction;
+import junit.framework.TestCase;
+
+/**
+ * Compares memory use and speed of LongBinner implementations
+ * for HEALPix-like Long-valued bin keys.
+ * Not run as part of the regular test suite; invoke it by hand,
+ * preferably with a generous heap (-Xmx) and -Dbench.nitem=N.
+ */
+public class BinnerBench extends TestCase {
+
+    public BinnerBench( String name ) {
+        super( name );
+    }
+
+    public void testBinners() {
+        int nitem = Integer.getInteger( "bench.nitem", 2000000 ).intValue();
+        bench( "map", Binners::createMapLongBinner, nitem );
+        bench( "long-key", Binners::createLongBinner, nitem );
+        bench( "map", Binners::createMapLongBinner, nitem );
+        bench( "long-key", Binners::createLongBinner, nitem );
+    }
+
+    private void bench( String name, LongFunction<LongBinner> factory,
+                        int nitem ) {
+        Random rnd = new Random( 23001L );
+
+        /* Mimic sky matching: each row goes into a few adjacent pixels,
+         * with about one row per pixel. */
+        long npix = nitem;
+        long mem0 = usedMemory();
+        long t0 = System.currentTimeMillis();
+        LongBinner binner = factory.apply( nitem );
+        for ( int i = 0; i < nitem; i++ ) {
+            long pix = (long) ( rnd.nextDouble() * npix );
+            int nbin = 1 + rnd.nextInt( 4 );
+            for ( int ib = 0; ib < nbin; ib++ ) {
+                binner.addItem( new Long( pix + ib ), i );
+            }
+        }
+        long t1 = System.currentTimeMillis();
+        long mem1 = usedMemory();
+        long nread = 0;
+        for ( Iterator<?> it = binner.getKeyIterator(); it.hasNext(); ) {
+            nread += binner.getLongs( it.next() ).length;
+        }
+        long t2 = System.currentTimeMillis();
+        System.out.println( name + ": "
+                          + nitem + " rows, "
+                          + nread + " items, "
+                          + binner.getBinCount() + " bins; "
+                          + "fill " + ( t1 - t0 ) + "ms, "
+                          + "read " + ( t2 - t1 ) + "ms, "
+                          + ( ( mem1 - mem0 ) / ( 1024 * 1024 ) ) + "Mb" );
+    }
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for ( int i = 0; i < 4; i++ ) {
+            rt.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -1,10 +1,13 @@
 package uk.ac.starlink.table.join;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import uk.ac.starlink.util.LongList;
 import uk.ac.starlink.util.TestCase;
 
 public class BinnerTest extends TestCase {
@@ -23,6 +26,75 @@ public class BinnerTest extends TestCase {
         }
     }
 
+    public void testLongKeyBinner() {
+        for ( int n : new int[] { 1, 10, 1000, 100000 } ) {
+            exerciseLongKeys( Binners.createLongBinner( n ), n, false );
+            exerciseLongKeys( Binners.createLongBinner( n ), n, true );
+            exerciseLongKeys( Binners.createMapLongBinner( n ), n, false );
+        }
+    }
+
+    private void exerciseLongKeys( LongBinner binner, int nitem,
+                                   boolean mixKeys ) {
+        int nkey = Math.max( 1, nitem / 3 );
+        Map<Long,LongList> map = new HashMap<Long,LongList>();
+        for ( int i = 0; i < nitem; i++ ) {
+            Long key = new Long( ( rnd_.nextInt( nkey ) - nkey / 2 )
+                                 * 0x100000001L );
+            long item = rnd_.nextInt( nitem );
+            binner.addItem( key, item );
+            if ( ! map.containsKey( key ) ) {
+                map.put( key, new LongList() );
+            }
+            map.get( key ).add( item );
+        }
+        if ( mixKeys ) {
+            binner.addItem( "X", 23 );
+            assertArrayEquals( new long[] { 23 }, binner.getLongs( "X" ) );
+            binner.addItem( "X", 24 );
+            assertArrayEquals( new long[] { 23, 24 },
+                               binner.getLongs( "X" ) );
+        }
+        assertEquals( map.size() + ( mixKeys ? 1 : 0 ),
+                      binner.getBinCount() );
+        for ( Map.Entry<Long,LongList> entry : map.entrySet() ) {
+            assertArrayEquals( entry.getValue().toLongArray(),
+                               binner.getLongs( entry.getKey() ) );
+        }
+        assertNull( binner.getLongs( new Long( 1 ) ) );
+        assertNull( binner.getLongs( "Y" ) );
+
+        /* Remove every other bin using the iterator. */
+        Set<Object> removed = new HashSet<Object>();
+        int ik = 0;
+        for ( Iterator<?> it = binner.getKeyIterator(); it.hasNext(); ) {
+            Object key = it.next();
+            if ( ik++ % 2 == 0 ) {
+                it.remove();
+                removed.add( key );
+            }
+        }
+        assertEquals( map.size() + ( mixKeys ? 1 : 0 ) - removed.size(),
+                      binner.getBinCount() );
+        for ( Map.Entry<Long,LongList> entry : map.entrySet() ) {
+            Long key = entry.getKey();
+            if ( removed.contains( key ) ) {
+                assertNull( binner.getLongs( key ) );
+            }
+            else {
+                assertArrayEquals( entry.getValue().toLongArray(),
+                                   binner.getLongs( key ) );
+            }
+        }
+
+        /* Removed bins can be re-added. */
+        for ( Object key : removed ) {
+            binner.addItem( key, 99 );
+            assertArrayEquals( new long[] { 99 }, binner.getLongs( key ) );
+        }
+        assertEquals( map.size() + ( mixKeys ? 1 : 0 ), binner.getBinCount() );
+    }
+
     private void exerciseLongBinner( LongBinner binner, int count ) {
         String[] keys = new String[] { "A", "B", };
         long[] a1 = new long[ count * 2 ];
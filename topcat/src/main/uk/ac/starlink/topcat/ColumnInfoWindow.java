@@ -303,6 +303,7 @@ public class ColumnInfoWindow extends AuxWindow {
                     try { 
                         col.setExpression( expr, null );
                         super.setValue( irow, expr );
+                        tcModel.invalidateDerivedData();
     
                         /* Message the table that its data may have changed.
                          * Since every cell in one column is changing, 
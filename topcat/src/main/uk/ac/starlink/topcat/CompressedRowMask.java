@@ -0,0 +1,274 @@
+package uk.ac.starlink.topcat;
+
+import java.util.Arrays;
+
+/**
+ * Compressed bit vector suitable for recording the inclusion status
+ * of each row in a large table.
+ *
+ * <p>The index range is divided into chunks of 65536 bits, and each
+ * chunk is stored in whichever of a few representations is most compact:
+ * nothing for an empty chunk, a shared marker for a full chunk,
+ * a sorted array of 16-bit offsets for a sparse chunk,
+ * or a plain bitmap for a dense one.
+ * This follows the scheme used by "Roaring" bitmaps, and means that
+ * the storage required is never much more than one bit per row,
+ * and may be very much less.
+ *
+ * <p>A mask is built by calling {@link #set} and {@link #or},
+ * and then {@link #compact} before use.  Building is not thread-safe,
+ * but once built a mask may be read concurrently from multiple threads.
+ * To support assembly from separately-calculated ranges,
+ * a mask only holds storage for the range of chunks that has been touched.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class CompressedRowMask {
+
+    private final long size_;
+    private int ichunk0_;
+    private Object[] chunks_;
+    private long cardinality_;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int BITMAP_WORDS = CHUNK_SIZE / 64;
+
+    /** Largest number of set bits stored as an offset array. */
+    private static final int MAX_ARRAY = 4096;
+
+    /** Marker for a chunk with all bits set. */
+    private static final Object FULL = new Object();
+
+    /**
+     * Constructs an empty mask.
+     *
+     * @param  size  number of bits; all indices must be less than this
+     */
+    public CompressedRowMask( long size ) {
+        size_ = size;
+        chunks_ = new Object[ 0 ];
+        cardinality_ = -1;
+    }
+
+    /**
+     * Returns the number of bits in this mask.
+     *
+     * @return  size supplied at construction time
+     */
+    public long getSize() {
+        return size_;
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @param  index  bit index
+     */
+    public void set( long index ) {
+        int ic = ensureChunk( (int) ( index >>> CHUNK_BITS ) );
+        Object chunk = chunks_[ ic ];
+        if ( chunk != FULL ) {
+            long[] bitmap = toBitmap( chunk );
+            int off = (int) index & CHUNK_MASK;
+            bitmap[ off >>> 6 ] |= 1L << off;
+            chunks_[ ic ] = bitmap;
+        }
+        cardinality_ = -1;
+    }
+
+    /**
+     * Returns the value of a bit.
+     *
+     * @param  index  bit index
+     * @return   true iff bit is set
+     */
+    public boolean get( long index ) {
+        int ic = (int) ( index >>> CHUNK_BITS ) - ichunk0_;
+        if ( ic < 0 || ic >= chunks_.length ) {
+            return false;
+        }
+        Object chunk = chunks_[ ic ];
+        int off = (int) index & CHUNK_MASK;
+        if ( chunk == null ) {
+            return false;
+        }
+        else if ( chunk == FULL ) {
+            return true;
+        }
+        else if ( chunk instanceof long[] ) {
+            return ( ((long[]) chunk)[ off >>> 6 ] & ( 1L << off ) ) != 0;
+        }
+        else {
+            return Arrays.binarySearch( (char[]) chunk, (char) off ) >= 0;
+        }
+    }
+
+    /**
+     * Sets in this mask all the bits that are set in another one.
+     * Storage may be shared with the other mask, so it should not be
+     * modified after this call.
+     *
+     * @param  other  mask to merge into this one
+     */
+    public void or( CompressedRowMask other ) {
+        Object[] ochunks = other.chunks_;
+        for ( int jc = 0; jc < ochunks.length; jc++ ) {
+            Object ochunk = ochunks[ jc ];
+            if ( ochunk != null ) {
+                int ic = ensureChunk( other.ichunk0_ + jc );
+                Object chunk = chunks_[ ic ];
+                if ( chunk == null ) {
+                    chunks_[ ic ] = ochunk;
+                }
+                else if ( chunk == FULL || ochunk == FULL ) {
+                    chunks_[ ic ] = FULL;
+                }
+                else {
+                    long[] bitmap = chunk instanceof long[]
+                                  ? (long[]) chunk
+                                  : toBitmap( chunk );
+                    if ( ochunk instanceof long[] ) {
+                        long[] obitmap = (long[]) ochunk;
+                        for ( int iw = 0; iw < BITMAP_WORDS; iw++ ) {
+                            bitmap[ iw ] |= obitmap[ iw ];
+                        }
+                    }
+                    else {
+                        for ( char off : (char[]) ochunk ) {
+                            bitmap[ off >>> 6 ] |= 1L << off;
+                        }
+                    }
+                    chunks_[ ic ] = bitmap;
+                }
+            }
+        }
+        cardinality_ = -1;
+    }
+
+    /**
+     * Converts each chunk to its most compact representation.
+     * This should be called once building is complete.
+     */
+    public void compact() {
+        long card = 0;
+        for ( int ic = 0; ic < chunks_.length; ic++ ) {
+            Object chunk = chunks_[ ic ];
+            if ( chunk instanceof long[] ) {
+                long[] bitmap = (long[]) chunk;
+                int n = 0;
+                for ( long word : bitmap ) {
+                    n += Long.bitCount( word );
+                }
+                if ( n == 0 ) {
+                    chunk = null;
+                }
+                else if ( n == CHUNK_SIZE ) {
+                    chunk = FULL;
+                }
+                else if ( n <= MAX_ARRAY ) {
+                    char[] offs = new char[ n ];
+                    int j = 0;
+                    for ( int iw = 0; iw < BITMAP_WORDS; iw++ ) {
+                        for ( long w = bitmap[ iw ]; w != 0; w &= w - 1 ) {
+                            offs[ j++ ] =
+                                (char) ( ( iw << 6 )
+                                       + Long.numberOfTrailingZeros( w ) );
+                        }
+                    }
+                    chunk = offs;
+                }
+                chunks_[ ic ] = chunk;
+                card += n;
+            }
+            else if ( chunk == FULL ) {
+                card += CHUNK_SIZE;
+            }
+            else if ( chunk != null ) {
+                card += ((char[]) chunk).length;
+            }
+        }
+        cardinality_ = card;
+    }
+
+    /**
+     * Returns the number of set bits.
+     *
+     * @return  number of bits set
+     */
+    public long getCardinality() {
+        if ( cardinality_ < 0 ) {
+            compact();
+        }
+        return cardinality_;
+    }
+
+    /**
+     * Returns an approximate count of the bytes used for storage.
+     *
+     * @return  storage size in bytes
+     */
+    public long getStorageBytes() {
+        long nbyte = 8L * chunks_.length;
+        for ( Object chunk : chunks_ ) {
+            if ( chunk instanceof long[] ) {
+                nbyte += 8L * BITMAP_WORDS;
+            }
+            else if ( chunk instanceof char[] ) {
+                nbyte += 2L * ((char[]) chunk).length;
+            }
+        }
+        return nbyte;
+    }
+
+    /**
+     * Returns the position in the chunk array for a given chunk,
+     * extending the array if necessary.
+     *
+     * @param  ichunk  global chunk index
+     * @return  index into chunks_ array
+     */
+    private int ensureChunk( int ichunk ) {
+        int nc = chunks_.length;
+        if ( nc == 0 ) {
+            ichunk0_ = ichunk;
+            chunks_ = new Object[ 1 ];
+        }
+        else if ( ichunk < ichunk0_ ) {
+            int shift = Math.max( ichunk0_ - ichunk, nc );
+            shift = Math.min( shift, ichunk0_ );
+            Object[] chunks = new Object[ nc + shift ];
+            System.arraycopy( chunks_, 0, chunks, shift, nc );
+            chunks_ = chunks;
+            ichunk0_ -= shift;
+        }
+        else if ( ichunk - ichunk0_ >= nc ) {
+            int maxChunk = (int) ( ( size_ - 1 ) >>> CHUNK_BITS );
+            int nc1 = Math.max( ichunk - ichunk0_ + 1,
+                                Math.min( 2 * nc, maxChunk - ichunk0_ + 1 ) );
+            chunks_ = Arrays.copyOf( chunks_, nc1 );
+        }
+        return ichunk - ichunk0_;
+    }
+
+    /**
+     * Returns a modifiable bitmap representation of a non-full chunk.
+     *
+     * @param  chunk  existing chunk representation
+     * @return  bitmap array, which may be the supplied chunk
+     */
+    private static long[] toBitmap( Object chunk ) {
+        if ( chunk instanceof long[] ) {
+            return (long[]) chunk;
+        }
+        long[] bitmap = new long[ BITMAP_WORDS ];
+        if ( chunk != null ) {
+            for ( char off : (char[]) chunk ) {
+                bitmap[ off >>> 6 ] |= 1L << off;
+            }
+        }
+        return bitmap;
+    }
+}
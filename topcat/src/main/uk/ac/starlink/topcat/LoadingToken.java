@@ -8,6 +8,7 @@ package uk.ac.starlink.topcat;
  */
 public class LoadingToken {
 
+    private final String actionText_;
     private String targetText_;
     private String progText_;
 
@@ -17,6 +18,17 @@ public class LoadingToken {
      * @param  targetText  short description of item being loaded
      */
     public LoadingToken( String targetText ) {
+        this( "Loading", targetText );
+    }
+
+    /**
+     * Constructs a token for some activity other than table loading.
+     *
+     * @param  actionText  verb describing the activity, such as "Loading"
+     * @param  targetText  short description of item being worked on
+     */
+    public LoadingToken( String actionText, String targetText ) {
+        actionText_ = actionText;
         targetText_ = targetText;
     }
 
@@ -40,7 +52,8 @@ public class LoadingToken {
 
     public String toString() {
         StringBuffer sbuf = new StringBuffer()
-            .append( "Loading " )
+            .append( actionText_ )
+            .append( ' ' )
             .append( targetText_ );
         if ( progText_ != null ) {
             sbuf.append( ' ' )
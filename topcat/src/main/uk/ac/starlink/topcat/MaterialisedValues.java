@@ -0,0 +1,157 @@
+package uk.ac.starlink.topcat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import uk.ac.starlink.table.ByteStore;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.ValueInfo;
+import uk.ac.starlink.table.storage.ByteStoreAccess;
+import uk.ac.starlink.table.storage.Codec;
+import uk.ac.starlink.table.storage.NioByteStoreAccess;
+
+/**
+ * Stores the values of a single column in fixed-width serialized form,
+ * so that they can be retrieved by row index without recalculation.
+ * The bytes are held in a ByteStore obtained from a StoragePolicy,
+ * so they may be in memory or on disk according to that policy.
+ *
+ * <p>Values are written sequentially using a {@link Writer},
+ * after which the resulting object may be read from multiple threads.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class MaterialisedValues {
+
+    private final Codec codec_;
+    private final ByteStore byteStore_;
+    private final long nrow_;
+    private final ThreadLocal<ByteStoreAccess> accessLocal_;
+
+    /**
+     * Constructor.
+     *
+     * @param  codec  fixed-width codec used to write the values
+     * @param  byteStore  store containing the encoded values
+     * @param  nrow   number of values
+     */
+    private MaterialisedValues( Codec codec, ByteStore byteStore, long nrow )
+            throws IOException {
+        codec_ = codec;
+        byteStore_ = byteStore;
+        nrow_ = nrow;
+        final ByteBuffer[] bbufs = byteStore.toByteBuffers();
+        accessLocal_ = new ThreadLocal<ByteStoreAccess>() {
+            @Override
+            protected ByteStoreAccess initialValue() {
+                return NioByteStoreAccess
+                      .createAccess( NioByteStoreAccess.copyBuffers( bbufs ) );
+            }
+        };
+    }
+
+    /**
+     * Returns the number of values stored.
+     *
+     * @return  row count
+     */
+    public long getRowCount() {
+        return nrow_;
+    }
+
+    /**
+     * Returns the value stored at a given row.
+     *
+     * @param  irow  row index
+     * @return  value
+     */
+    public Object getValue( long irow ) throws IOException {
+        ByteStoreAccess access = accessLocal_.get();
+        access.seek( irow * codec_.getItemSize() );
+        return codec_.decodeObject( access );
+    }
+
+    /**
+     * Releases resources associated with this object.
+     * It should not be used following this call.
+     */
+    public void close() {
+        byteStore_.close();
+    }
+
+    /**
+     * Returns a fixed-width codec suitable for storing the values
+     * described by a given metadata object.
+     *
+     * @param  info  value metadata
+     * @return  fixed-width codec, or null if values of this type
+     *          cannot be materialised
+     */
+    public static Codec getFixedCodec( ValueInfo info ) {
+        Codec codec = Codec.getCodec( info );
+        return codec != null && codec.getItemSize() > 0 ? codec : null;
+    }
+
+    /**
+     * Accepts values in sequence and turns them into a
+     * MaterialisedValues object.
+     */
+    public static class Writer {
+
+        private final Codec codec_;
+        private final ByteStore byteStore_;
+        private final DataOutputStream out_;
+        private long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  codec  fixed-width codec, as supplied by
+         *                {@link #getFixedCodec}
+         * @param  policy  storage policy supplying the byte storage
+         */
+        public Writer( Codec codec, StoragePolicy policy ) {
+            codec_ = codec;
+            byteStore_ = policy.makeByteStore();
+            out_ = new DataOutputStream(
+                       new BufferedOutputStream( byteStore_
+                                                .getOutputStream() ) );
+        }
+
+        /**
+         * Writes the next value.
+         *
+         * @param  value  value of the type appropriate for the codec
+         */
+        public void write( Object value ) throws IOException {
+            codec_.encode( value, out_ );
+            nrow_++;
+        }
+
+        /**
+         * Signals that all the values have been written and returns
+         * an object from which they can be read.
+         *
+         * @return  stored values
+         */
+        public MaterialisedValues finish() throws IOException {
+            out_.close();
+            return new MaterialisedValues( codec_, byteStore_, nrow_ );
+        }
+
+        /**
+         * Abandons writing and releases any resources.
+         */
+        public void discard() {
+            try {
+                out_.close();
+            }
+            catch ( IOException e ) {
+                // never mind
+            }
+            byteStore_.close();
+        }
+    }
+}
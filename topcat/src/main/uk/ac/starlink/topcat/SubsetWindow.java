@@ -749,6 +749,26 @@ public class SubsetWindow extends AuxWindow implements ListDataListener {
             final long[] counts = new long[ nrset ];
             long nrow = dataModel.getRowCount();
 
+            /* Synthetic subsets can supply their own counts efficiently;
+             * only scan the rows for the others. */
+            List<Integer> scanIndices = new ArrayList<Integer>();
+            for ( int i = 0; i < nrset; i++ ) {
+                if ( rsets[ i ] instanceof SyntheticRowSubset ) {
+                    counts[ i ] = ((SyntheticRowSubset) rsets[ i ]).getCount();
+                }
+                else {
+                    scanIndices.add( Integer.valueOf( i ) );
+                }
+            }
+            final int nscan = scanIndices.size();
+            final int[] iscans = new int[ nscan ];
+            for ( int j = 0; j < nscan; j++ ) {
+                iscans[ j ] = scanIndices.get( j ).intValue();
+            }
+            if ( nscan == 0 ) {
+                nrow = 0;
+            }
+
             /* Prepare the progress bar for use. */
             progBar.setMaximum( (int) Math.min( (long) Integer.MAX_VALUE,
                                                 nrow ) );
@@ -771,9 +791,9 @@ public class SubsetWindow extends AuxWindow implements ListDataListener {
                     SwingUtilities.invokeLater( updater );
                     counter = every;
                 }
-                for ( int i = 0; i < nrset; i++ ) {
-                    RowSubset rset = rsets[ i ];
-                    if ( rset.isIncluded( currentRow ) ) {
+                for ( int j = 0; j < nscan; j++ ) {
+                    int i = iscans[ j ];
+                    if ( rsets[ i ].isIncluded( currentRow ) ) {
                         counts[ i ]++;
                     }
                 }
@@ -2,11 +2,20 @@ package uk.ac.starlink.topcat;
 
 import gnu.jel.CompilationException;
 import java.io.IOException;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
 import uk.ac.starlink.table.ColumnData;
 import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.ColumnStarTable;
 import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.ValueInfo;
+import uk.ac.starlink.table.storage.Codec;
 
 /**
  * A column which produces read-only values based on an algebraic
@@ -18,6 +27,15 @@ import uk.ac.starlink.table.ValueInfo;
  * <p>
  * The engine used for expression evaluation is the GNU 
  * Java Expressions Library (JEL).
+ * <p>
+ * By default the expression is evaluated every time a value is read.
+ * If the column is {@link #setMaterialised materialised}, the expression
+ * is instead evaluated for every row in a background thread,
+ * and the results are stored according to the current storage policy;
+ * once that is complete, values are read from storage.
+ * If anything on which the expression depends changes,
+ * {@link #invalidate} should be called, which will cause
+ * the values to be recalculated.
  *
  * @author   Mark Taylor (Starlink)
  * @see      <a href="http://galaxy.fzu.cz/JEL/">JEL</a>
@@ -26,9 +44,15 @@ public class SyntheticColumn extends ColumnData {
 
     private final TopcatModel tcModel_;
     private TopcatJELEvaluator evaluator_;
+    private boolean isMaterialised_;
+    private Materialiser materialiser_;
+    private volatile MaterialisedValues stored_;
 
     private static Logger logger = Logger.getLogger( "uk.ac.starlink.topcat" );
 
+    /** Number of rows evaluated in parallel before being written out. */
+    private static final int MATERIALISE_BLOCK = 256 * 1024;
+
     /**
      * Constructs a new synthetic column from an algebraic expression 
      * applied to a table.
@@ -78,6 +102,9 @@ public class SyntheticColumn extends ColumnData {
         /* Store the value of the expression in the column metadata. */
         ValueInfo exprInfo = TopcatUtils.EXPR_INFO;
         colinfo.setAuxDatum( new DescribedValue( exprInfo, expression ) );
+
+        /* Any stored values are now out of date. */
+        invalidate();
     }
 
     /**
@@ -89,7 +116,91 @@ public class SyntheticColumn extends ColumnData {
         return evaluator_.getExpression();
     }
 
+    /**
+     * Determines whether this column's values should be stored rather
+     * than calculated on demand.  If set true, calculation of all the
+     * values starts immediately in the background; until it completes,
+     * values are calculated on demand as usual.
+     * This has no effect if the column's type cannot be stored,
+     * as reported by {@link #canMaterialise}.
+     *
+     * @param  isMaterialised  true to store values
+     */
+    public synchronized void setMaterialised( boolean isMaterialised ) {
+        if ( isMaterialised != isMaterialised_ ) {
+            isMaterialised_ = isMaterialised;
+            invalidate();
+        }
+    }
+
+    /**
+     * Indicates whether this column's values are to be stored rather
+     * than calculated on demand.
+     *
+     * @return  true iff materialisation has been requested
+     */
+    public synchronized boolean isMaterialised() {
+        return isMaterialised_;
+    }
+
+    /**
+     * Indicates whether this column's values are currently being
+     * read from storage.
+     *
+     * @return  true iff materialised values are available
+     */
+    public boolean hasStoredValues() {
+        return stored_ != null;
+    }
+
+    /**
+     * Indicates whether the values of this column are of a type which
+     * can be materialised.  Only fixed-width types, such as numeric
+     * scalars, can be.
+     *
+     * @return  true iff {@link #setMaterialised} can take effect
+     */
+    public boolean canMaterialise() {
+        return MaterialisedValues.getFixedCodec( getColumnInfo() ) != null;
+    }
+
+    /**
+     * Discards any stored values.  If this column is materialised,
+     * recalculation of the values is started in the background.
+     * This should be called if anything on which the expression
+     * may depend has changed.
+     */
+    public synchronized void invalidate() {
+        if ( materialiser_ != null ) {
+            materialiser_.cancel();
+            materialiser_ = null;
+        }
+        if ( stored_ != null ) {
+            stored_.close();
+            stored_ = null;
+        }
+        if ( isMaterialised_ && evaluator_ != null ) {
+            Codec codec =
+                MaterialisedValues.getFixedCodec( getColumnInfo() );
+            if ( codec != null ) {
+                materialiser_ = new Materialiser( codec );
+                materialiser_.start();
+            }
+        }
+    }
+
     public Object readValue( long lrow ) throws IOException {
+        MaterialisedValues stored = stored_;
+        return stored == null ? evaluate( lrow ) : stored.getValue( lrow );
+    }
+
+    /**
+     * Evaluates the expression at a given row.
+     *
+     * @param  lrow  row index
+     * @return   expression value
+     */
+    private Object evaluate( long lrow ) throws IOException {
         try {
             return evaluator_.evaluateObject( lrow );
         }
@@ -102,4 +213,183 @@ public class SyntheticColumn extends ColumnData {
                                .initCause( th );
         }
     }
+
+    /**
+     * Installs the values calculated by a materialiser,
+     * unless it has been superseded in the mean time.
+     *
+     * @param  materialiser  materialiser that has completed
+     * @param  stored   calculated values
+     * @return  true iff the values were installed
+     */
+    private synchronized boolean install( Materialiser materialiser,
+                                          MaterialisedValues stored ) {
+        if ( materialiser == materialiser_ ) {
+            materialiser_ = null;
+            stored_ = stored;
+            return true;
+        }
+        else {
+            return false;
+        }
+    }
+
+    /**
+     * Thread which calculates and stores the values of this column.
+     * Rows are processed in blocks; the rows in each block are evaluated
+     * in parallel, and then written out in sequence.
+     */
+    private class Materialiser extends Thread {
+
+        private final Codec codec_;
+        private final ControlWindow controlWindow_;
+        private final LoadingToken token_;
+        private volatile boolean cancelled_;
+
+        /**
+         * Constructor.
+         *
+         * @param  codec  fixed-width codec for column values
+         */
+        Materialiser( Codec codec ) {
+            super( "Materialise " + getColumnInfo().getName() );
+            setDaemon( true );
+            codec_ = codec;
+            controlWindow_ = tcModel_.getControlWindow();
+            token_ = new LoadingToken( "Materialising",
+                                       getColumnInfo().getName() );
+        }
+
+        /**
+         * Stops this thread at the next opportunity.
+         * No results will be installed.
+         */
+        void cancel() {
+            cancelled_ = true;
+        }
+
+        @Override
+        public void run() {
+            long nrow = tcModel_.getDataModel().getRowCount();
+            StoragePolicy policy = controlWindow_ == null
+                                 ? StoragePolicy.getDefaultPolicy()
+                                 : controlWindow_.getTableFactory()
+                                                 .getStoragePolicy();
+            MaterialisedValues.Writer writer =
+                new MaterialisedValues.Writer( codec_, policy );
+            long start = System.currentTimeMillis();
+            showToken( true );
+            try {
+                Object[] values = new Object[ (int) Math.min( nrow,
+                                                    MATERIALISE_BLOCK ) ];
+                for ( long irow0 = 0; irow0 < nrow && ! cancelled_;
+                      irow0 += values.length ) {
+                    int n = (int) Math.min( values.length, nrow - irow0 );
+                    RowRunner.DEFAULT
+                             .collect( new BlockCollector( irow0, values ),
+                                       ColumnStarTable.makeTableWithRows( n ) );
+                    for ( int i = 0; i < n; i++ ) {
+                        writer.write( values[ i ] );
+                    }
+                    token_.setProgress( TopcatUtils.formatLong( irow0 + n )
+                                      + "/" + TopcatUtils.formatLong( nrow ) );
+                    updateToken();
+                }
+                MaterialisedValues stored = cancelled_ ? null
+                                                       : writer.finish();
+                if ( stored != null && install( this, stored ) ) {
+                    logger.info( "Materialised column "
+                               + getColumnInfo().getName() + " in "
+                               + ( System.currentTimeMillis() - start )
+                               + "ms" );
+                }
+                else {
+                    writer.discard();
+                }
+            }
+            catch ( IOException e ) {
+                logger.log( Level.WARNING,
+                            "Failed to materialise column "
+                          + getColumnInfo().getName(), e );
+                writer.discard();
+            }
+            finally {
+                showToken( false );
+            }
+        }
+
+        /**
+         * Adds or removes this thread's progress token from the
+         * control window, if there is one.
+         *
+         * @param  isShown  true to add, false to remove
+         */
+        private void showToken( final boolean isShown ) {
+            if ( controlWindow_ != null ) {
+                SwingUtilities.invokeLater( new Runnable() {
+                    public void run() {
+                        if ( isShown ) {
+                            controlWindow_.addLoadingToken( token_ );
+                        }
+                        else {
+                            controlWindow_.removeLoadingToken( token_ );
+                        }
+                    }
+                } );
+            }
+        }
+
+        /**
+         * Repaints this thread's progress token, if it is displayed.
+         */
+        private void updateToken() {
+            if ( controlWindow_ != null ) {
+                SwingUtilities.invokeLater( new Runnable() {
+                    public void run() {
+                        controlWindow_.updateLoadingToken( token_ );
+                    }
+                } );
+            }
+        }
+    }
+
+    /**
+     * Collector which evaluates the expression for a block of rows,
+     * writing the results into a shared array.
+     * Each row is written by exactly one thread, so the accumulators
+     * can all share the same array.
+     */
+    private class BlockCollector extends RowCollector<Object[]> {
+
+        private final long irow0_;
+        private final Object[] values_;
+
+        /**
+         * Constructor.
+         *
+         * @param  irow0  index of the first row in the block
+         * @param  values  array into which values are written
+         */
+        BlockCollector( long irow0, Object[] values ) {
+            irow0_ = irow0;
+            values_ = values;
+        }
+
+        public Object[] createAccumulator() {
+            return values_;
+        }
+
+        public void accumulateRows( RowSplittable rseq, Object[] values )
+                throws IOException {
+            LongSupplier rowIndex = rseq.rowIndex();
+            while ( rseq.next() ) {
+                long ix = rowIndex.getAsLong();
+                values[ (int) ix ] = evaluate( irow0_ + ix );
+            }
+        }
+
+        public Object[] combine( Object[] values1, Object[] values2 ) {
+            return values1;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package uk.ac.starlink.topcat;
 import gnu.jel.CompilationException;
 import java.awt.Component;
 import javax.swing.AbstractSpinnerModel;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 import javax.swing.JSpinner;
@@ -31,6 +32,7 @@ public class SyntheticColumnQueryWindow extends QueryWindow {
     private JComboBox<Class<?>> typeField;
     private UCDSelector ucdField;
     private ColumnIndexSpinner indexSpinner;
+    private JCheckBox materialiseBox;
 
     /**
      * Constructs a new query window, which on user completion will 
@@ -91,6 +93,14 @@ public class SyntheticColumnQueryWindow extends QueryWindow {
         indexSpinner.setColumnIndex( insertIndex );
         stack.addLine( "Index", indexSpinner );
 
+        /* Materialisation option. */
+        materialiseBox = new JCheckBox();
+        materialiseBox.setToolTipText( "Calculate all values in the "
+                                     + "background and store them, "
+                                     + "rather than evaluating the "
+                                     + "expression on every access" );
+        stack.addLine( "Materialise", materialiseBox );
+
         /* Add tools. */
         getToolBar().add( MethodWindow.getWindowAction( this, false ) );
         getToolBar().addSeparator();
@@ -218,6 +228,26 @@ public class SyntheticColumnQueryWindow extends QueryWindow {
         return indexSpinner.getColumnIndex();
     }
 
+    /**
+     * Sets whether the new column's values will be materialised.
+     *
+     * @param  isMaterialised  true to store values rather than
+     *                         calculating them on demand
+     */
+    public void setMaterialised( boolean isMaterialised ) {
+        materialiseBox.setSelected( isMaterialised );
+    }
+
+    /**
+     * Indicates whether the user has requested that the new column's
+     * values be materialised.
+     *
+     * @return  true to store values rather than calculating them on demand
+     */
+    public boolean isMaterialised() {
+        return materialiseBox.isSelected();
+    }
+
     /**
      * Constructs and returns the new synthetic column specified by the
      * state of this window.  If it constitutes an erroneous specification,
@@ -243,7 +273,10 @@ public class SyntheticColumnQueryWindow extends QueryWindow {
             info.setUnitString( unit );
         }
         try {
-            return new SyntheticColumn( tcModel, info, expr, null );
+            SyntheticColumn col =
+                new SyntheticColumn( tcModel, info, expr, null );
+            col.setMaterialised( isMaterialised() );
+            return col;
         }
         catch ( CompilationException e ) {
             String[] msg = new String[] {
@@ -1,8 +1,19 @@
 package uk.ac.starlink.topcat;
 
 import gnu.jel.CompilationException;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.LongSupplier;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.table.RowSplittable;
 
 /**
  * A <tt>RowSubset</tt> which uses an algebraic expression based on the
@@ -11,6 +22,13 @@ import java.util.logging.Logger;
  * <p>
  * The engine used for expression evaluation is the GNU 
  * Java Expressions Library (JEL).
+ * <p>
+ * The first time inclusion of any row is requested, the expression is
+ * evaluated for every row of the table, in parallel, and the results
+ * are stored in a {@link CompressedRowMask}.  Subsequent queries
+ * use the stored mask.  The mask must be discarded using
+ * {@link #invalidate} if anything on which the expression may depend
+ * changes.
  *
  * @author   Mark Taylor (Starlink)
  * @see      <a href="http://galaxy.fzu.cz/JEL/">JEL</a>
@@ -19,9 +37,19 @@ public class SyntheticRowSubset extends RowSubset {
 
     private final TopcatModel tcModel_;
     private TopcatJELEvaluator evaluator_;
+    private FutureTask<CompressedRowMask> maskTask_;
 
     private static Logger logger = Logger.getLogger( "uk.ac.starlink.topcat" );
 
+    /** Subsets whose masks are being calculated in the current thread. */
+    private static final ThreadLocal<Set<SyntheticRowSubset>> activeSubsets_ =
+        ThreadLocal.withInitial( () -> new HashSet<SyntheticRowSubset>() );
+
+    /** Matches special tokens whose values depend on the table view. */
+    private static final Pattern VIEW_TOKEN_REGEX =
+        Pattern.compile( "\\$(index0|00|nrow0|ncol0)\\b",
+                         Pattern.CASE_INSENSITIVE );
+
     /**
      * Constructs a new synthetic subset given a table and an algebraic
      * expression.
@@ -35,16 +63,32 @@ public class SyntheticRowSubset extends RowSubset {
             throws CompilationException {
         super( name );
         tcModel_ = tcModel;
-        setExpression( expression );
+        compileExpression( expression );
+        invalidate();
     }
 
     /**
      * Sets the expression to use for this subset.
+     * Since other subsets or columns in the same table may refer to
+     * this one, all the table's derived data is invalidated as well
+     * as this subset's inclusion mask.
      *
      * @param  expression  JEL expression
      */
     public void setExpression( String expression )
             throws CompilationException {
+        compileExpression( expression );
+        invalidate();
+        tcModel_.invalidateDerivedData();
+    }
+
+    /**
+     * Compiles the expression to use for this subset.
+     *
+     * @param  expression  JEL expression
+     */
+    private void compileExpression( String expression )
+            throws CompilationException {
         evaluator_ = TopcatJELEvaluator
                     .createEvaluator( tcModel_, expression, false,
                                       Boolean.class );
@@ -60,6 +104,130 @@ public class SyntheticRowSubset extends RowSubset {
     }
 
     public boolean isIncluded( long lrow ) {
+        CompressedRowMask mask = getMask();
+        return mask == null ? evaluate( lrow ) : mask.get( lrow );
+    }
+
+    /**
+     * Returns the number of rows included in this subset.
+     * This is fast once the inclusion mask has been calculated.
+     *
+     * @return  row count
+     */
+    public long getCount() {
+        CompressedRowMask mask = getMask();
+        if ( mask != null ) {
+            return mask.getCardinality();
+        }
+        else {
+            long nrow = tcModel_.getDataModel().getRowCount();
+            long count = 0;
+            for ( long ir = 0; ir < nrow; ir++ ) {
+                if ( evaluate( ir ) ) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Discards any stored inclusion mask, so that the expression will be
+     * re-evaluated next time it is required.
+     */
+    public synchronized void invalidate() {
+        maskTask_ = null;
+    }
+
+    /**
+     * Indicates whether the value of a given expression may depend on
+     * the current view of the table (row order, current subset or
+     * visible columns) as well as on the table data.
+     *
+     * @param  expr  JEL expression
+     * @return  true if the expression refers to view-dependent values
+     */
+    public static boolean isViewDependent( String expr ) {
+        return expr != null && VIEW_TOKEN_REGEX.matcher( expr ).find();
+    }
+
+    /**
+     * Returns the inclusion mask for this subset, calculating it if
+     * it is not already available.  If another thread is already
+     * calculating it, this call waits for the result.
+     *
+     * @return  mask, or null if it is not available
+     */
+    private CompressedRowMask getMask() {
+
+        /* If this thread is part of the calculation for this subset,
+         * the expression must be referring to its own subset.
+         * Fall back to direct evaluation, which is what happened
+         * before masks were stored. */
+        if ( activeSubsets_.get().contains( this ) ) {
+            return null;
+        }
+        final FutureTask<CompressedRowMask> task;
+        final boolean isNew;
+        synchronized ( this ) {
+            isNew = maskTask_ == null;
+            if ( isNew ) {
+                maskTask_ = new FutureTask<CompressedRowMask>(
+                                    this::calculateMask );
+            }
+            task = maskTask_;
+        }
+        if ( isNew ) {
+            task.run();
+        }
+        try {
+            return task.get();
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch ( ExecutionException e ) {
+            logger.warning( "Subset mask calculation failed for " + getName()
+                          + ": " + e.getCause() );
+            synchronized ( this ) {
+                if ( maskTask_ == task ) {
+                    maskTask_ = null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates the expression at every row of the table.
+     *
+     * @return  new inclusion mask
+     */
+    private CompressedRowMask calculateMask() throws IOException {
+        long nrow = tcModel_.getDataModel().getRowCount();
+        long start = System.currentTimeMillis();
+
+        /* Run over a table with no columns, which provides row indices
+         * for the parallel processing without reading any data. */
+        CompressedRowMask mask =
+            RowRunner.DEFAULT
+                     .collect( new MaskCollector( nrow ),
+                               ColumnStarTable.makeTableWithRows( nrow ) );
+        mask.compact();
+        logger.config( "Subset " + getName() + ": " + mask.getCardinality()
+                   + "/" + nrow + " rows in "
+                   + ( System.currentTimeMillis() - start ) + "ms" );
+        return mask;
+    }
+
+    /**
+     * Evaluates the expression at a given row.
+     *
+     * @param  lrow  row index
+     * @return   true iff the expression evaluates true at lrow
+     */
+    private boolean evaluate( long lrow ) {
         try {
             return evaluator_.evaluateBoolean( lrow );
         }
@@ -72,4 +240,50 @@ public class SyntheticRowSubset extends RowSubset {
             return false;
         }
     }
+
+    /**
+     * Collector that accumulates the inclusion mask for this subset.
+     */
+    private class MaskCollector extends RowCollector<CompressedRowMask> {
+
+        private final long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  nrow  number of rows in table
+         */
+        MaskCollector( long nrow ) {
+            nrow_ = nrow;
+        }
+
+        public CompressedRowMask createAccumulator() {
+            return new CompressedRowMask( nrow_ );
+        }
+
+        public void accumulateRows( RowSplittable rseq,
+                                    CompressedRowMask mask )
+                throws IOException {
+            Set<SyntheticRowSubset> active = activeSubsets_.get();
+            active.add( SyntheticRowSubset.this );
+            try {
+                LongSupplier rowIndex = rseq.rowIndex();
+                while ( rseq.next() ) {
+                    long lrow = rowIndex.getAsLong();
+                    if ( evaluate( lrow ) ) {
+                        mask.set( lrow );
+                    }
+                }
+            }
+            finally {
+                active.remove( SyntheticRowSubset.this );
+            }
+        }
+
+        public CompressedRowMask combine( CompressedRowMask mask1,
+                                          CompressedRowMask mask2 ) {
+            mask1.or( mask2 );
+            return mask1;
+        }
+    }
 }
@@ -31,6 +31,8 @@ import javax.swing.JTextField;
 import javax.swing.JToggleButton;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.DefaultTableColumnModel;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
@@ -219,6 +221,17 @@ public class TopcatModel {
 
         /* Set up the listeners. */
         listeners_ = new ArrayList<TopcatListener>();
+
+        /* Cell edits may change the results of subset expressions. */
+        viewModel_.addTableModelListener( new TableModelListener() {
+            public void tableChanged( TableModelEvent evt ) {
+                if ( evt.getType() == TableModelEvent.UPDATE &&
+                     evt.getFirstRow() != TableModelEvent.HEADER_ROW &&
+                     evt.getLastRow() != Integer.MAX_VALUE ) {
+                    invalidateDerivedData();
+                }
+            }
+        } );
     }
 
     /**
@@ -295,6 +308,15 @@ public class TopcatModel {
         return dataModel_;
     }
 
+    /**
+     * Returns the control window with which this model is associated.
+     *
+     * @return  control window, may be null
+     */
+    public ControlWindow getControlWindow() {
+        return controlWindow_;
+    }
+
     /**
      * Returns the table model which should be used by a <tt>JTable</tt>
      * for table display.
@@ -485,6 +507,18 @@ public class TopcatModel {
      * @param  datum additional information about the event
      */
     public void fireModelChanged( int code, Object datum ) {
+
+        /* Discard cached subset membership if it may have been
+         * affected by this change. */
+        if ( code == TopcatEvent.PARAMETERS ||
+             code == TopcatEvent.PARAMETER_VALUE ) {
+            invalidateDerivedData();
+        }
+        else if ( ( code == TopcatEvent.CURRENT_ORDER ||
+                    code == TopcatEvent.CURRENT_SUBSET ) &&
+                  hasViewDependentExpressions() ) {
+            invalidateDerivedData();
+        }
         TopcatEvent evt = new TopcatEvent( this, code, datum );
         for ( TopcatListener l : listeners_ ) {
             l.modelChanged( evt );
@@ -842,6 +876,64 @@ public class TopcatModel {
         }
     }
 
+    /**
+     * Discards any cached values calculated from expressions:
+     * row inclusion information held by synthetic subsets and
+     * stored values of materialised synthetic columns.
+     * This should be called if table data, or anything else on which
+     * expressions might depend, has changed.
+     */
+    public void invalidateDerivedData() {
+        int nset = subsets_.size();
+        for ( int is = 0; is < nset; is++ ) {
+            RowSubset rs = subsets_.get( is );
+            if ( rs instanceof SyntheticRowSubset ) {
+                ((SyntheticRowSubset) rs).invalidate();
+            }
+        }
+        int ncol = dataModel_.getColumnCount();
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            ColumnData cdata = dataModel_.getColumnData( icol );
+            if ( cdata instanceof SyntheticColumn ) {
+                SyntheticColumn scol = (SyntheticColumn) cdata;
+                if ( scol.isMaterialised() ) {
+                    scol.invalidate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates whether any synthetic subset or column expression
+     * in this model refers to values that depend on the current view
+     * of the table rather than just its data.
+     *
+     * @return  true if view changes may affect subset membership
+     */
+    private boolean hasViewDependentExpressions() {
+        int nset = subsets_.size();
+        for ( int is = 0; is < nset; is++ ) {
+            RowSubset rs = subsets_.get( is );
+            if ( rs instanceof SyntheticRowSubset ) {
+                String expr = ((SyntheticRowSubset) rs).getExpression();
+                if ( SyntheticRowSubset.isViewDependent( expr ) ) {
+                    return true;
+                }
+            }
+        }
+        int ncol = dataModel_.getColumnCount();
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            ColumnData cdata = dataModel_.getColumnData( icol );
+            if ( cdata instanceof SyntheticColumn ) {
+                String expr = ((SyntheticColumn) cdata).getExpression();
+                if ( SyntheticRowSubset.isViewDependent( expr ) ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Adds a new table parameter to the table.
      *
@@ -8,6 +8,7 @@ import uk.ac.starlink.table.RowData;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.ValueInfo;
 import uk.ac.starlink.topcat.RowSubset;
+import uk.ac.starlink.topcat.SyntheticRowSubset;
 import uk.ac.starlink.topcat.TopcatModel;
 import uk.ac.starlink.ttools.plot2.Slow;
 import uk.ac.starlink.ttools.plot2.data.AbstractDataSpec;
@@ -208,11 +209,16 @@ public class GuiDataSpec extends AbstractDataSpec {
 
         /* If not, count it now. */
         else {
-            long nrow = tcModel_.getDataModel().getRowCount();
             long count = 0;
-            for ( long ir = 0; ir < nrow; ir++ ) {
-                if ( subset_.isIncluded( ir ) ) {
-                    count++;
+            if ( subset_ instanceof SyntheticRowSubset ) {
+                count = ((SyntheticRowSubset) subset_).getCount();
+            }
+            else {
+                long nrow = tcModel_.getDataModel().getRowCount();
+                for ( long ir = 0; ir < nrow; ir++ ) {
+                    if ( subset_.isIncluded( ir ) ) {
+                        count++;
+                    }
                 }
             }
 
@@ -0,0 +1,108 @@
+package uk.ac.starlink.topcat;
+
+import gnu.jel.CompilationException;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.util.TestCase;
+
+public class SubsetMaskTest extends TestCase {
+
+    static {
+        Logger.getLogger( "uk.ac.starlink.ast" ).setLevel( Level.OFF );
+        Logger.getLogger( "uk.ac.starlink.util" ).setLevel( Level.OFF );
+    }
+
+    public SubsetMaskTest( String name ) {
+        super( name );
+    }
+
+    public void testMask() {
+        Random rnd = new Random( 55123L );
+        int size = 5 * 65536 + 1234;
+        BitSet bits = new BitSet();
+
+        /* Chunks with sparse, dense, full and empty content. */
+        for ( int i = 0; i < 1000; i++ ) {
+            bits.set( rnd.nextInt( 65536 ) );
+        }
+        for ( int i = 0; i < 40000; i++ ) {
+            bits.set( 65536 + rnd.nextInt( 65536 ) );
+        }
+        bits.set( 2 * 65536, 3 * 65536 );
+        bits.set( size - 1 );
+
+        /* Assemble the mask in pieces. */
+        int nPiece = 13;
+        CompressedRowMask mask = null;
+        for ( int ip = nPiece - 1; ip >= 0; ip-- ) {
+            CompressedRowMask piece = new CompressedRowMask( size );
+            int lo = (int) ( (long) size * ip / nPiece );
+            int hi = (int) ( (long) size * ( ip + 1 ) / nPiece );
+            for ( int i = bits.nextSetBit( lo ); i >= 0 && i < hi;
+                  i = bits.nextSetBit( i + 1 ) ) {
+                piece.set( i );
+            }
+            if ( mask == null ) {
+                mask = piece;
+            }
+            else {
+                mask.or( piece );
+            }
+        }
+        mask.compact();
+        assertEquals( bits.cardinality(), mask.getCardinality() );
+        for ( int i = 0; i < size; i++ ) {
+            assertEquals( bits.get( i ), mask.get( i ) );
+        }
+        assertTrue( mask.getStorageBytes() < size / 8 );
+
+        CompressedRowMask empty = new CompressedRowMask( size );
+        empty.compact();
+        assertEquals( 0, empty.getCardinality() );
+        assertFalse( empty.get( 99 ) );
+    }
+
+    public void testSubset() throws CompilationException {
+        int nrow = 20000;
+        int[] ivals = new int[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = i;
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        TopcatModel tcModel =
+            TopcatModel.createRawTopcatModel( table, "test", null );
+        SyntheticRowSubset three =
+            new SyntheticRowSubset( "three", tcModel, "i % 3 == 0" );
+        tcModel.addSubset( three );
+        SyntheticRowSubset threeBig =
+            new SyntheticRowSubset( "threeBig", tcModel, "three && i > 100" );
+        tcModel.addSubset( threeBig );
+        assertEquals( ( nrow + 2 ) / 3, three.getCount() );
+        assertEquals( ( nrow + 2 ) / 3 - 34, threeBig.getCount() );
+        for ( int i = 0; i < nrow; i++ ) {
+            assertEquals( i % 3 == 0, three.isIncluded( i ) );
+            assertEquals( i % 3 == 0 && i > 100, threeBig.isIncluded( i ) );
+        }
+
+        /* Editing a cell must be reflected in the subsets. */
+        assertFalse( three.isIncluded( 1000 ) );
+        tcModel.getViewModel().setValueAt( Integer.valueOf( 3000 ), 1000, 0 );
+        assertTrue( three.isIncluded( 1000 ) );
+        assertTrue( threeBig.isIncluded( 1000 ) );
+        assertEquals( ( nrow + 2 ) / 3 + 1, three.getCount() );
+
+        /* Changing the expression must too, including for subsets
+         * which refer to the changed one. */
+        three.setExpression( "i % 2 == 0" );
+        assertEquals( nrow / 2, three.getCount() );
+        assertEquals( nrow / 2 - 51, threeBig.getCount() );
+        for ( int i = 0; i < nrow; i++ ) {
+            assertEquals( i % 2 == 0 && i > 100, threeBig.isIncluded( i ) );
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package uk.ac.starlink.topcat;
+
+import gnu.jel.CompilationException;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.util.TestCase;
+
+public class SyntheticColumnTest extends TestCase {
+
+    static {
+        Logger.getLogger( "uk.ac.starlink.topcat" ).setLevel( Level.WARNING );
+        Logger.getLogger( "uk.ac.starlink.table" ).setLevel( Level.WARNING );
+    }
+
+    public SyntheticColumnTest( String name ) {
+        super( name );
+    }
+
+    public void testMaterialise()
+            throws CompilationException, IOException, InterruptedException {
+        int nrow = 600000;
+        int[] ivals = new int[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = i;
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        TopcatModel tcModel =
+            TopcatModel.createRawTopcatModel( table, "test", null );
+        SyntheticColumn dcol =
+            new SyntheticColumn( tcModel, new ColumnInfo( "d" ),
+                                 "i * 0.5", null );
+        SyntheticColumn lcol =
+            new SyntheticColumn( tcModel, new ColumnInfo( "l" ),
+                                 "i % 7 == 0 ? NULL : (long) i", null );
+        SyntheticColumn scol =
+            new SyntheticColumn( tcModel, new ColumnInfo( "s" ),
+                                 "\"x\" + i", null );
+        tcModel.appendColumn( dcol );
+        tcModel.appendColumn( lcol );
+        tcModel.appendColumn( scol );
+        assertTrue( dcol.canMaterialise() );
+        assertTrue( lcol.canMaterialise() );
+        assertFalse( scol.canMaterialise() );
+        dcol.setMaterialised( true );
+        lcol.setMaterialised( true );
+        scol.setMaterialised( true );
+        waitForStorage( dcol );
+        waitForStorage( lcol );
+        assertFalse( scol.hasStoredValues() );
+        for ( int i = 0; i < nrow; i += 997 ) {
+            assertEquals( Double.valueOf( i * 0.5 ), dcol.readValue( i ) );
+            assertEquals( i % 7 == 0 ? null : Long.valueOf( i ),
+                          lcol.readValue( i ) );
+            assertEquals( "x" + i, scol.readValue( i ) );
+        }
+
+        /* Changes to data or expression must be picked up. */
+        tcModel.getViewModel().setValueAt( Integer.valueOf( 9 ), 1000, 0 );
+        assertEquals( Double.valueOf( 4.5 ), dcol.readValue( 1000 ) );
+        waitForStorage( dcol );
+        assertEquals( Double.valueOf( 4.5 ), dcol.readValue( 1000 ) );
+        dcol.setExpression( "i * 2.0", null );
+        assertEquals( Double.valueOf( 18. ), dcol.readValue( 1000 ) );
+        waitForStorage( dcol );
+        assertEquals( Double.valueOf( 18. ), dcol.readValue( 1000 ) );
+        assertEquals( Double.valueOf( 2. * ( nrow - 1 ) ),
+                      dcol.readValue( nrow - 1 ) );
+
+        dcol.setMaterialised( false );
+        assertFalse( dcol.hasStoredValues() );
+        assertEquals( Double.valueOf( 18. ), dcol.readValue( 1000 ) );
+    }
+
+    private static void waitForStorage( SyntheticColumn col )
+            throws InterruptedException {
+        for ( int i = 0; i < 600 && ! col.hasStoredValues(); i++ ) {
+            Thread.sleep( 50 );
+        }
+        assertTrue( col.hasStoredValues() );
+    }
+}
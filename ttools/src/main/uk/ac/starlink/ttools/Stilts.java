@@ -140,8 +140,10 @@ public class Stilts {
         taskFactory_.register( "coneskymatch", taskPkg + "MultiCone" );
         taskFactory_.register( "datalinklint", taskPkg + "DatalinkLint" );
         taskFactory_.register( "funcs", taskPkg + "ShowFunctions" );
+        taskFactory_.register( "localskymatch", taskPkg + "LocalCone" );
         taskFactory_.register( "pixfoot", taskPkg + "PixFootprint" );
         taskFactory_.register( "pixsample", taskPkg + "PixSample" );
+        taskFactory_.register( "pixsort", taskPkg + "PixSort" );
         taskFactory_.register( "plot2d", taskPkg + "TablePlot2D" );
         taskFactory_.register( "plot3d", taskPkg + "TablePlot3D" );
         taskFactory_.register( "plothist", taskPkg + "TableHistogram" );
@@ -158,6 +160,7 @@ public class Stilts {
         taskFactory_.register( "tcatn", taskPkg + "TableCatN" );
         taskFactory_.register( "tcopy", taskPkg + "TableCopy" );
         taskFactory_.register( "tcube", taskPkg + "TableCube" );
+        taskFactory_.register( "tindex", taskPkg + "TableIndex" );
         taskFactory_.register( "tjoin", taskPkg + "TableJoinN" );
         taskFactory_.register( "tloop", taskPkg + "TableLoop" );
         taskFactory_.register( "tmatch1", taskPkg + "TableMatch1" );
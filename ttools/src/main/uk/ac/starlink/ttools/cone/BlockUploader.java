@@ -1,10 +1,21 @@
 package uk.ac.starlink.ttools.cone;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.JoinFixAction;
 import uk.ac.starlink.table.RandomStarTable;
+import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.RowStore;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StoragePolicy;
@@ -33,6 +44,13 @@ public class BlockUploader {
     private final boolean oneToOne_;
     private final boolean uploadEmpty_;
     private String truncationAdvice_;
+    private int parallelBlocks_;
+
+    /**
+     * Maximum number of attempts made to match each block
+     * when blocks are uploaded in parallel.
+     */
+    public static final int BLOCK_ATTEMPTS = 3;
 
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.ttools.task" );
@@ -73,6 +91,7 @@ public class BlockUploader {
         if ( blocksize <= 0 ) {
             throw new IllegalArgumentException( "Non-positive blocksize" );
         }
+        parallelBlocks_ = 1;
     }
 
     /**
@@ -91,6 +110,7 @@ public class BlockUploader {
      * @param  qsFact   object to generate positional queries when applied
      *                  to a table
      * @param  storage  storage policy for storing raw result table
+     * @see    #setParallelBlocks
      */
     public StarTable runMatch( StarTable inTable, QuerySequenceFactory qsFact,
                                StoragePolicy storage ) throws IOException {
@@ -110,44 +130,12 @@ public class BlockUploader {
                                ? new IntegerMapper()
                                : new LongMapper();
 
-        /* Perform an upload/match operation for each block of rows.
-         * Each block takes its input from the next lot of rows from the
-         * complete input query sequence, and appends its output to the
-         * same single row store. */
-        int nOverflow = 0;
-        long totOut = 0;
-        boolean done = false;
-        int iblock = 0;
-        while ( ! done && ( maxrec_ < 0 || totOut < maxrec_ ) ) {
-            PreviewBlockSequence blockSeq =
-                new PreviewBlockSequence( coneSeq, blocksize_ );
-            boolean isFirst = iblock == 0;
-            boolean hasNext = blockSeq.hasNext();
-            if ( isFirst && ! hasNext && ! uploadEmpty_ ) {
-                throw new IOException( "No candidate rows for upload match" );
-            }
-            if ( hasNext || isFirst ) {
-                BlockSink blockSink = new BlockSink( rawResultStore, isFirst );
-                long nRemain = maxrec_ >= 0 ? maxrec_ - totOut : -1;
-                boolean over =
-                    umatcher_.streamRawResult( blockSeq, blockSink, rowMapper,
-                                               nRemain );
-                int nIn = blockSeq.getProducedCount();
-                long nOut = blockSink.getCount();
-                nOverflow += over ? 1 : 0;
-                logger_.info( "Match block " + ( iblock + 1 ) + ": "
-                            + nIn + " uploaded, " + nOut + " received"
-                            + ( over ? " (truncated)" : "" ) );
-                if ( over ) {
-                    logger_.warning( "Block " + ( iblock + 1 )
-                                   + " truncated at " + nOut + " rows" );
-                }
-                totOut += nOut;
-                iblock++;
-            }
-            done = ! hasNext;
-        };
-        int nblock = iblock;
+        /* Perform the upload/match operations. */
+        BlockStats stats = parallelBlocks_ > 1
+            ? uploadPipelined( coneSeq, rawResultStore, rowMapper, storage )
+            : uploadSequential( coneSeq, rawResultStore, rowMapper );
+        int nblock = stats.nblock_;
+        int nOverflow = stats.nOverflow_;
         coneSeq.close();
         rawResultStore.endRows();
         if ( nOverflow > 0 ) {
@@ -252,6 +240,174 @@ public class BlockUploader {
         truncationAdvice_ = truncationAdvice;
     }
 
+    /**
+     * Sets the number of blocks which may be uploaded concurrently.
+     * If the value is greater than 1, then while earlier blocks are
+     * in progress at the service, the next ones are read from the
+     * input sequence and submitted, so that input preparation,
+     * upload serialization and service round trip time overlap
+     * rather than adding up.
+     * Results are merged in input order regardless of the order in
+     * which they arrive.
+     * In this mode the query positions for each block are held in
+     * memory until its result is received, and a block which fails
+     * is retried up to {@link #BLOCK_ATTEMPTS} times without
+     * affecting results already received for earlier blocks.
+     *
+     * <p>The default is 1, which means blocks are uploaded one at a time,
+     * each directly streamed from the input sequence.
+     *
+     * @param  parallelBlocks  maximum number of blocks in progress at once
+     */
+    public void setParallelBlocks( int parallelBlocks ) {
+        parallelBlocks_ = Math.max( 1, parallelBlocks );
+    }
+
+    /**
+     * Returns the number of blocks which may be uploaded concurrently.
+     *
+     * @return  maximum number of blocks in progress at once
+     */
+    public int getParallelBlocks() {
+        return parallelBlocks_;
+    }
+
+    /**
+     * Performs upload/match operations one block at a time.
+     *
+     * @param  coneSeq  query sequence for complete input
+     * @param  rawResultStore  destination for raw result rows
+     * @param  rowMapper   row mapper
+     * @return  upload statistics
+     */
+    private BlockStats uploadSequential( ConeQueryRowSequence coneSeq,
+                                         RowStore rawResultStore,
+                                         RowMapper<?> rowMapper )
+            throws IOException {
+        /* Perform an upload/match operation for each block of rows.
+         * Each block takes its input from the next lot of rows from the
+         * complete input query sequence, and appends its output to the
+         * same single row store. */
+        int nOverflow = 0;
+        long totOut = 0;
+        boolean done = false;
+        int iblock = 0;
+        while ( ! done && ( maxrec_ < 0 || totOut < maxrec_ ) ) {
+            PreviewBlockSequence blockSeq =
+                new PreviewBlockSequence( coneSeq, blocksize_ );
+            boolean isFirst = iblock == 0;
+            boolean hasNext = blockSeq.hasNext();
+            if ( isFirst && ! hasNext && ! uploadEmpty_ ) {
+                throw new IOException( "No candidate rows for upload match" );
+            }
+            if ( hasNext || isFirst ) {
+                BlockSink blockSink = new BlockSink( rawResultStore, isFirst );
+                long nRemain = maxrec_ >= 0 ? maxrec_ - totOut : -1;
+                boolean over =
+                    umatcher_.streamRawResult( blockSeq, blockSink, rowMapper,
+                                               nRemain );
+                int nIn = blockSeq.getProducedCount();
+                long nOut = blockSink.getCount();
+                nOverflow += over ? 1 : 0;
+                logger_.info( "Match block " + ( iblock + 1 ) + ": "
+                            + nIn + " uploaded, " + nOut + " received"
+                            + ( over ? " (truncated)" : "" ) );
+                if ( over ) {
+                    logger_.warning( "Block " + ( iblock + 1 )
+                                   + " truncated at " + nOut + " rows" );
+                }
+                totOut += nOut;
+                iblock++;
+            }
+            done = ! hasNext;
+        }
+        return new BlockStats( iblock, nOverflow );
+    }
+
+    /**
+     * Performs upload/match operations with several blocks in progress
+     * at once.
+     *
+     * @param  coneSeq  query sequence for complete input
+     * @param  rawResultStore  destination for raw result rows
+     * @param  rowMapper   row mapper
+     * @param  storage   storage policy for per-block results
+     * @return  upload statistics
+     */
+    private BlockStats uploadPipelined( ConeQueryRowSequence coneSeq,
+                                        RowStore rawResultStore,
+                                        RowMapper<?> rowMapper,
+                                        StoragePolicy storage )
+            throws IOException {
+        int npar = parallelBlocks_;
+        ExecutorService executor =
+                Executors.newFixedThreadPool( npar, new ThreadFactory() {
+            private int ithread_;
+            public synchronized Thread newThread( Runnable r ) {
+                Thread th = new Thread( r, "Upload block " + ( ++ithread_ ) );
+                th.setDaemon( true );
+                return th;
+            }
+        } );
+        Semaphore inFlight = new Semaphore( npar );
+        LinkedList<Future<BlockResult>> pending =
+            new LinkedList<Future<BlockResult>>();
+        BlockMerger merger = new BlockMerger( rawResultStore );
+        try {
+            boolean done = false;
+            int iblock = 0;
+            while ( ! done && ! merger.isFull() ) {
+
+                /* Merge any results that are ready at the head of the queue,
+                 * and wait for the head if too many are unmerged. */
+                while ( pending.size() > 0 &&
+                        ( pending.size() >= 2 * npar ||
+                          pending.getFirst().isDone() ) ) {
+                    merger.merge( pending.removeFirst() );
+                }
+                if ( merger.isFull() ) {
+                    break;
+                }
+
+                /* Read the next block of queries.  This happens while
+                 * earlier blocks are still in progress. */
+                QueryBlock block = new QueryBlock( coneSeq, blocksize_ );
+                boolean isFirst = iblock == 0;
+                boolean hasRows = block.size_ > 0;
+                if ( isFirst && ! hasRows && ! uploadEmpty_ ) {
+                    throw new IOException( "No candidate rows"
+                                         + " for upload match" );
+                }
+                if ( hasRows || isFirst ) {
+                    try {
+                        inFlight.acquire();
+                    }
+                    catch ( InterruptedException e ) {
+                        throw (IOException)
+                              new InterruptedIOException( "Interrupted" )
+                             .initCause( e );
+                    }
+                    long nRemain = maxrec_ >= 0 ? maxrec_ - merger.totOut_
+                                                : -1;
+                    pending.add( executor.submit(
+                        new BlockTask( block, iblock, rowMapper, nRemain,
+                                       storage, inFlight ) ) );
+                    iblock++;
+                }
+                done = ! hasRows;
+            }
+
+            /* Merge the remaining results in order. */
+            while ( pending.size() > 0 && ! merger.isFull() ) {
+                merger.merge( pending.removeFirst() );
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return new BlockStats( merger.nblock_, merger.nOverflow_ );
+    }
+
     /**
      * Turns a rowId value into an index into the upload table.
      *
@@ -354,6 +510,290 @@ public class BlockUploader {
         }
     }
 
+    /**
+     * Callable which performs the upload/match for a single block,
+     * retrying on failure, and stores the result.
+     */
+    private class BlockTask implements Callable<BlockResult> {
+        private final QueryBlock block_;
+        private final int iblock_;
+        private final RowMapper<?> rowMapper_;
+        private final long nRemain_;
+        private final StoragePolicy storage_;
+        private final Semaphore inFlight_;
+
+        /**
+         * Constructor.
+         *
+         * @param  block  queries to upload
+         * @param  iblock  index of block
+         * @param  rowMapper  row mapper
+         * @param  nRemain   maximum number of rows requested, or -1
+         * @param  storage   storage policy for result
+         * @param  inFlight  semaphore to release on completion
+         */
+        BlockTask( QueryBlock block, int iblock, RowMapper<?> rowMapper,
+                   long nRemain, StoragePolicy storage, Semaphore inFlight ) {
+            block_ = block;
+            iblock_ = iblock;
+            rowMapper_ = rowMapper;
+            nRemain_ = nRemain;
+            storage_ = storage;
+            inFlight_ = inFlight;
+        }
+
+        public BlockResult call() throws IOException, InterruptedException {
+            try {
+                for ( int itry = 1; true; itry++ ) {
+
+                    /* Results go to a fresh store for each attempt,
+                     * so that partial output from a failed attempt
+                     * is discarded. */
+                    RowStore store = storage_.makeRowStore();
+                    BlockSink sink = new BlockSink( store, true );
+                    try {
+                        boolean over =
+                            umatcher_.streamRawResult( block_.createSequence(),
+                                                       sink, rowMapper_,
+                                                       nRemain_ );
+                        store.endRows();
+                        return new BlockResult( iblock_, block_.size_,
+                                                store.getStarTable(), over );
+                    }
+                    catch ( IOException e ) {
+                        if ( itry >= BLOCK_ATTEMPTS ||
+                             e instanceof InterruptedIOException ) {
+                            throw e;
+                        }
+                        logger_.warning( "Match block " + ( iblock_ + 1 )
+                                       + " attempt " + itry + "/"
+                                       + BLOCK_ATTEMPTS + " failed"
+                                       + " - retry (" + e + ")" );
+                        Thread.sleep( 1000L * itry * itry );
+                    }
+                }
+            }
+            finally {
+                inFlight_.release();
+            }
+        }
+    }
+
+    /**
+     * Appends per-block results to the raw result store in block order.
+     */
+    private class BlockMerger {
+        private final RowStore rawResultStore_;
+        int nblock_;
+        int nOverflow_;
+        long totOut_;
+
+        /**
+         * Constructor.
+         *
+         * @param  rawResultStore  destination for merged rows
+         */
+        BlockMerger( RowStore rawResultStore ) {
+            rawResultStore_ = rawResultStore;
+        }
+
+        /**
+         * Indicates whether the maximum number of output rows has been
+         * reached.
+         *
+         * @return  true iff no more rows are required
+         */
+        boolean isFull() {
+            return maxrec_ >= 0 && totOut_ >= maxrec_;
+        }
+
+        /**
+         * Waits for a block result and appends its rows to the output.
+         *
+         * @param  future  block result, which must be the next in sequence
+         */
+        void merge( Future<BlockResult> future ) throws IOException {
+            BlockResult result;
+            try {
+                result = future.get();
+            }
+            catch ( InterruptedException e ) {
+                throw (IOException)
+                      new InterruptedIOException( "Interrupted" )
+                     .initCause( e );
+            }
+            catch ( ExecutionException e ) {
+                Throwable cause = e.getCause();
+                throw (IOException)
+                      new IOException( "Upload match failed after "
+                                     + nblock_ + " completed blocks: "
+                                     + cause )
+                     .initCause( cause );
+            }
+            assert result.iblock_ == nblock_;
+            StarTable table = result.table_;
+            if ( nblock_ == 0 ) {
+                rawResultStore_.acceptMetadata( table );
+            }
+            boolean over = result.over_;
+            long nOut = 0;
+            RowSequence rseq = table.getRowSequence();
+            try {
+                while ( rseq.next() ) {
+                    if ( isFull() ) {
+                        over = true;
+                        break;
+                    }
+                    rawResultStore_.acceptRow( rseq.getRow() );
+                    nOut++;
+                    totOut_++;
+                }
+            }
+            finally {
+                rseq.close();
+            }
+            nblock_++;
+            nOverflow_ += over ? 1 : 0;
+            logger_.info( "Match block " + nblock_ + ": "
+                        + result.nIn_ + " uploaded, " + nOut + " received"
+                        + ( over ? " (truncated)" : "" ) );
+            if ( over ) {
+                logger_.warning( "Block " + nblock_
+                               + " truncated at " + nOut + " rows" );
+            }
+        }
+    }
+
+    /**
+     * Result of the upload/match for a single block.
+     */
+    private static class BlockResult {
+        final int iblock_;
+        final int nIn_;
+        final StarTable table_;
+        final boolean over_;
+
+        /**
+         * Constructor.
+         *
+         * @param  iblock  block index
+         * @param  nIn     number of rows uploaded
+         * @param  table   raw result table
+         * @param  over    true iff the service truncated the result
+         */
+        BlockResult( int iblock, int nIn, StarTable table, boolean over ) {
+            iblock_ = iblock;
+            nIn_ = nIn;
+            table_ = table;
+            over_ = over;
+        }
+    }
+
+    /**
+     * Counts of blocks uploaded.
+     */
+    private static class BlockStats {
+        final int nblock_;
+        final int nOverflow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  nblock  number of blocks uploaded
+         * @param  nOverflow  number of blocks with truncated results
+         */
+        BlockStats( int nblock, int nOverflow ) {
+            nblock_ = nblock;
+            nOverflow_ = nOverflow;
+        }
+    }
+
+    /**
+     * Holds the query positions for one block in memory,
+     * so that the block can be uploaded from another thread,
+     * and resubmitted if necessary.
+     */
+    private static class QueryBlock {
+        final int size_;
+        final double[] ras_;
+        final double[] decs_;
+        final double[] radii_;
+        final long[] indices_;
+
+        /**
+         * Constructor.  Reads up to a given number of usable queries
+         * from a sequence.
+         *
+         * @param  coneSeq  query sequence, not closed by this method
+         * @param  maxrow   maximum number of queries
+         */
+        QueryBlock( ConeQueryRowSequence coneSeq, int maxrow )
+                throws IOException {
+            BlockSequence bseq = new BlockSequence( coneSeq, maxrow );
+            int leng = Math.min( maxrow, 1024 );
+            double[] ras = new double[ leng ];
+            double[] decs = new double[ leng ];
+            double[] radii = new double[ leng ];
+            long[] indices = new long[ leng ];
+            int n = 0;
+            while ( bseq.next() ) {
+                if ( n == leng ) {
+                    leng = (int) Math.min( maxrow, 2L * leng );
+                    ras = Arrays.copyOf( ras, leng );
+                    decs = Arrays.copyOf( decs, leng );
+                    radii = Arrays.copyOf( radii, leng );
+                    indices = Arrays.copyOf( indices, leng );
+                }
+                ras[ n ] = bseq.getRa();
+                decs[ n ] = bseq.getDec();
+                radii[ n ] = bseq.getRadius();
+                indices[ n ] = bseq.getIndex();
+                n++;
+            }
+            size_ = n;
+            ras_ = ras;
+            decs_ = decs;
+            radii_ = radii;
+            indices_ = indices;
+        }
+
+        /**
+         * Returns a new query sequence over the positions in this block.
+         * The sequence provides query positions and indices only;
+         * the row data methods are not supported.
+         *
+         * @return  query sequence
+         */
+        ConeQueryRowSequence createSequence() {
+            return new ConeQueryRowSequence() {
+                private int irow_ = -1;
+                public boolean next() {
+                    return ++irow_ < size_;
+                }
+                public double getRa() {
+                    return ras_[ irow_ ];
+                }
+                public double getDec() {
+                    return decs_[ irow_ ];
+                }
+                public double getRadius() {
+                    return radii_[ irow_ ];
+                }
+                public long getIndex() {
+                    return indices_[ irow_ ];
+                }
+                public Object getCell( int icol ) {
+                    throw new UnsupportedOperationException();
+                }
+                public Object[] getRow() {
+                    throw new UnsupportedOperationException();
+                }
+                public void close() {
+                }
+            };
+        }
+    }
+
     /**
      * Wrapper StarTable implementation that allows custom substitution
      * of column metadata.
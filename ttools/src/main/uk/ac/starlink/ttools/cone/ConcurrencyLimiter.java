@@ -0,0 +1,171 @@
+package uk.ac.starlink.ttools.cone;
+
+/**
+ * Limits the number of cone queries which may be in progress at once,
+ * and records their latencies.
+ * Callers must invoke {@link #acquire} before each query and
+ * {@link #release} after it.
+ *
+ * <p>In fixed mode the limit is simply the maximum value supplied
+ * at construction time.
+ * In adaptive mode the limit is adjusted according to
+ * an additive increase/multiplicative decrease (AIMD) policy,
+ * like that used for TCP congestion control.
+ * The limit starts at 1.
+ * Each time a number of queries equal to the current limit have
+ * succeeded, the limit is increased by one, up to the maximum,
+ * unless the recent mean latency has grown to more than
+ * {@link #LATENCY_FACTOR} times the long-term mean latency,
+ * which suggests that the service is becoming saturated;
+ * in that case it is decreased by one instead.
+ * Since the long-term mean follows the latencies too, albeit slowly,
+ * a service whose latencies vary widely from query to query is not
+ * mistaken for a saturated one, and a limit reduced because of
+ * a change in the service's behaviour will be probed upwards again
+ * once that behaviour has become the norm.
+ * Any failed query halves the limit.
+ * So a fast service ends up being queried at the permitted maximum
+ * parallelism, while a slow or struggling one is not overloaded.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class ConcurrencyLimiter {
+
+    private final int maxLimit_;
+    private final boolean adaptive_;
+    private final LatencyHistogram histogram_;
+    private int limit_;
+    private int peakLimit_;
+    private int nActive_;
+    private int nWindow_;
+    private long nFail_;
+    private double meanNanos_;
+    private double baseNanos_;
+
+    /**
+     * Ratio of recent mean latency to long-term mean latency above which
+     * the service is considered to be saturated.
+     */
+    public static final double LATENCY_FACTOR = 2.0;
+
+    /** Weighting of each new latency in the recent mean latency. */
+    private static final double EWMA_WEIGHT = 0.2;
+
+    /** Weighting of each new latency in the long-term mean latency. */
+    private static final double BASE_WEIGHT = 0.02;
+
+    /**
+     * Constructor.
+     *
+     * @param  maxLimit  maximum number of concurrent queries
+     * @param  adaptive  true to adjust the limit according to service
+     *                   behaviour, false to fix it at maxLimit
+     */
+    public ConcurrencyLimiter( int maxLimit, boolean adaptive ) {
+        maxLimit_ = Math.max( 1, maxLimit );
+        adaptive_ = adaptive;
+        histogram_ = new LatencyHistogram();
+        limit_ = adaptive ? 1 : maxLimit_;
+        peakLimit_ = limit_;
+        meanNanos_ = Double.NaN;
+        baseNanos_ = Double.NaN;
+    }
+
+    /**
+     * Blocks until a query may be started.
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while ( nActive_ >= limit_ ) {
+            wait();
+        }
+        nActive_++;
+    }
+
+    /**
+     * Records completion of a query started following a call to
+     * {@link #acquire}.
+     *
+     * @param  nanos  query latency in nanoseconds
+     * @param  success  true if the query succeeded, false if it failed
+     */
+    public synchronized void release( long nanos, boolean success ) {
+        nActive_--;
+        histogram_.add( nanos );
+        if ( success ) {
+            meanNanos_ = Double.isNaN( meanNanos_ )
+                       ? nanos
+                       : ( 1 - EWMA_WEIGHT ) * meanNanos_
+                         + EWMA_WEIGHT * nanos;
+            baseNanos_ = Double.isNaN( baseNanos_ )
+                       ? nanos
+                       : ( 1 - BASE_WEIGHT ) * baseNanos_
+                         + BASE_WEIGHT * nanos;
+        }
+        else {
+            nFail_++;
+        }
+        if ( adaptive_ ) {
+            if ( success ) {
+                if ( ++nWindow_ >= limit_ ) {
+                    nWindow_ = 0;
+                    if ( meanNanos_ > LATENCY_FACTOR * baseNanos_ ) {
+                        limit_ = Math.max( 1, limit_ - 1 );
+                    }
+                    else {
+                        limit_ = Math.min( maxLimit_, limit_ + 1 );
+                    }
+                }
+            }
+            else {
+                nWindow_ = 0;
+                limit_ = Math.max( 1, limit_ / 2 );
+            }
+            peakLimit_ = Math.max( peakLimit_, limit_ );
+        }
+        notifyAll();
+    }
+
+    /**
+     * Returns the current limit on concurrent queries.
+     *
+     * @return  concurrency limit
+     */
+    public synchronized int getLimit() {
+        return limit_;
+    }
+
+    /**
+     * Returns the number of queries currently in progress.
+     *
+     * @return  active query count
+     */
+    public synchronized int getActiveCount() {
+        return nActive_;
+    }
+
+    /**
+     * Returns a human-readable summary of the queries made so far.
+     *
+     * @return  multi-line report
+     */
+    public synchronized String getReport() {
+        StringBuffer sbuf = new StringBuffer()
+            .append( histogram_.toReport() );
+        if ( nFail_ > 0 ) {
+            sbuf.append( '\n' )
+                .append( "Failed attempts: " )
+                .append( nFail_ );
+        }
+        if ( adaptive_ ) {
+            sbuf.append( '\n' )
+                .append( "Adaptive parallelism: final " )
+                .append( limit_ )
+                .append( ", peak " )
+                .append( peakLimit_ )
+                .append( ", max " )
+                .append( maxLimit_ );
+        }
+        return sbuf.toString();
+    }
+}
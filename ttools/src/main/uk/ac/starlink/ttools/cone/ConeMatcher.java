@@ -55,6 +55,7 @@ public class ConeMatcher {
     private final JoinFixAction coneFixAct_;
     private final String distanceCol_;
     private boolean streamOutput_;
+    private boolean adaptiveParallel_;
 
     private final static Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.ttools.cone" );
@@ -150,6 +151,21 @@ public class ConeMatcher {
         streamOutput_ = streamOutput;
     }
 
+    /**
+     * Determines whether the number of concurrent queries will be
+     * adjusted according to service response.
+     * If set true, the parallelism value supplied at construction time
+     * acts as an upper limit, and the actual number of queries in
+     * progress at once rises and falls according to the latency and
+     * error rate observed from the service.
+     * The default is false.
+     *
+     * @param  adaptive  whether parallelism is adaptive
+     */
+    public void setAdaptiveParallel( boolean adaptive ) {
+        adaptiveParallel_ = adaptive;
+    }
+
     /**
      * Returns an object which can compute the multi-cone result.
      * The result is a join between the input table and
@@ -195,7 +211,8 @@ public class ConeMatcher {
                                                        coverage_,
                                                        bestOnly_, distFilter_,
                                                        distanceCol_,
-                                                       parallelism_ ) {
+                                                       parallelism_,
+                                                       adaptiveParallel_ ) {
                 public void close() throws IOException {
                     super.close();
                     coneSearcher_.close();
@@ -1,5 +1,7 @@
 package uk.ac.starlink.ttools.cone;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import uk.ac.starlink.table.StarTableFactory;
 import uk.ac.starlink.task.BooleanParameter;
@@ -13,6 +15,7 @@ import uk.ac.starlink.task.URLParameter;
 import uk.ac.starlink.ttools.task.ContentCodingParameter;
 import uk.ac.starlink.ttools.task.LineTableEnvironment;
 import uk.ac.starlink.util.ContentCoding;
+import uk.ac.starlink.util.URLUtils;
 import uk.ac.starlink.vo.ConeSearch;
 import uk.ac.starlink.vo.SiaFormatOption;
 import uk.ac.starlink.vo.SiaVersion;
@@ -58,6 +61,7 @@ public class ConeSearchConer implements Coner {
                     return "alias for <code>" + super.toString() + "</code>";
                 }
             },
+            new LocalServiceType(),
         };
 
         urlParam_ = new URLParameter( "serviceurl" );
@@ -72,6 +76,10 @@ public class ConeSearchConer implements Coner {
             "<p>See <ref id='coneService'/> for discussion of how to locate",
             "service URLs corresponding to given datasets.",
             "</p>",
+            "<p>For <code>servicetype=local</code> this is instead",
+            "a <code>file:</code> URL giving the location of",
+            "a local catalogue file.",
+            "</p>",
         } );
 
         serviceParam_ =
@@ -515,4 +523,62 @@ public class ConeSearchConer implements Coner {
             return null;
         }
     } 
+
+    /**
+     * ServiceType implementation for a local tile-sorted catalogue file.
+     */
+    private class LocalServiceType extends ServiceType {
+        LocalServiceType() {
+            super( "local" );
+        }
+
+        String getDescription() {
+            return new StringBuffer()
+               .append( "Local catalogue file " )
+               .append( "- returns a table of objects found " )
+               .append( "near each location.\n" )
+               .append( "The <code>" )
+               .append( urlParam_.getName() )
+               .append( "</code> is a <code>file:</code> URL " )
+               .append( "giving the location of a FITS file written by " )
+               .append( "<ref id='pixsort'><code>pixsort</code></ref>." )
+               .toString();
+        }
+
+        String getFormatDescription() {
+            return "not used";
+        }
+
+        public void configureParams( Parameter<?> srParam ) {
+            srParam.setNullPermitted( false );
+        }
+
+        public boolean useDistanceFilter() {
+            return false;
+        }
+
+        public ConeSearcher createSearcher( Environment env, String url,
+                                            boolean believeEmpty,
+                                            StarTableFactory tfact,
+                                            ContentCoding coding )
+                throws TaskException {
+            File file = URLUtils.urlToFile( url );
+            if ( file == null ) {
+                throw new ParameterValueException( urlParam_,
+                                                   "Not a file: URL" );
+            }
+            try {
+                return new PixSortedConeSearcher(
+                               PixSortedCatalogue.open( file ), false );
+            }
+            catch ( IOException e ) {
+                throw new TaskException( "Can't open catalogue " + file
+                                       + ": " + e.getMessage(), e );
+            }
+        }
+
+        public Coverage getCoverage( URL url, int nside ) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package uk.ac.starlink.ttools.cone;
+
+/**
+ * Accumulates a histogram of query latencies.
+ * Bins follow a 1-2-5 sequence in milliseconds, which is suitable
+ * for reporting to humans.
+ * This class is not thread-safe.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class LatencyHistogram {
+
+    private final long[] counts_;
+    private long count_;
+    private long sumNanos_;
+    private long maxNanos_;
+
+    /** Upper bounds of all but the last bin in milliseconds. */
+    private static final long[] BOUNDS = new long[] {
+        10, 20, 50, 100, 200, 500, 1000, 2000, 5000,
+        10000, 20000, 50000, 100000,
+    };
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        counts_ = new long[ BOUNDS.length + 1 ];
+    }
+
+    /**
+     * Adds a measurement to this histogram.
+     *
+     * @param  nanos  latency in nanoseconds
+     */
+    public void add( long nanos ) {
+        long millis = nanos / 1000000;
+        int ib = 0;
+        while ( ib < BOUNDS.length && millis >= BOUNDS[ ib ] ) {
+            ib++;
+        }
+        counts_[ ib ]++;
+        count_++;
+        sumNanos_ += nanos;
+        maxNanos_ = Math.max( maxNanos_, nanos );
+    }
+
+    /**
+     * Returns the number of measurements added.
+     *
+     * @return  total count
+     */
+    public long getCount() {
+        return count_;
+    }
+
+    /**
+     * Returns the count in a given bin.
+     *
+     * @param  ib  bin index
+     * @return   count
+     */
+    public long getBinCount( int ib ) {
+        return counts_[ ib ];
+    }
+
+    /**
+     * Returns the number of bins.
+     *
+     * @return  number of bins
+     */
+    public int getNumBins() {
+        return counts_.length;
+    }
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return  mean latency in milliseconds, or NaN if there is no data
+     */
+    public double getMeanMillis() {
+        return count_ > 0 ? sumNanos_ * 1e-6 / count_ : Double.NaN;
+    }
+
+    /**
+     * Returns a multi-line human-readable representation of this histogram.
+     * Only non-empty bins are included.
+     *
+     * @return  report text
+     */
+    public String toReport() {
+        StringBuffer sbuf = new StringBuffer()
+            .append( "Query latencies: " )
+            .append( count_ )
+            .append( " queries" );
+        if ( count_ > 0 ) {
+            sbuf.append( ", mean " )
+                .append( Math.round( getMeanMillis() ) )
+                .append( "ms, max " )
+                .append( maxNanos_ / 1000000 )
+                .append( "ms" );
+        }
+        for ( int ib = 0; ib < counts_.length; ib++ ) {
+            long c = counts_[ ib ];
+            if ( c > 0 ) {
+                String label = ib == 0
+                             ? "<" + formatMillis( BOUNDS[ 0 ] )
+                             : ib == BOUNDS.length
+                             ? ">=" + formatMillis( BOUNDS[ ib - 1 ] )
+                             : formatMillis( BOUNDS[ ib - 1 ] ) + "-"
+                               + formatMillis( BOUNDS[ ib ] );
+                sbuf.append( '\n' )
+                    .append( "    " );
+                for ( int i = label.length(); i < 12; i++ ) {
+                    sbuf.append( ' ' );
+                }
+                sbuf.append( label )
+                    .append( ": " )
+                    .append( c );
+            }
+        }
+        return sbuf.toString();
+    }
+
+    /**
+     * Formats a bin boundary for display.
+     *
+     * @param  millis  duration in milliseconds
+     * @return  human-readable duration
+     */
+    private static String formatMillis( long millis ) {
+        return millis >= 1000 ? ( millis / 1000 ) + "s"
+                              : millis + "ms";
+    }
+}
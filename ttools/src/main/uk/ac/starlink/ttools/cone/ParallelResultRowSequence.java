@@ -1,6 +1,7 @@
 package uk.ac.starlink.ttools.cone;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.logging.Level;
@@ -13,6 +14,13 @@ import uk.ac.starlink.table.StarTable;
  * The result table has the same ordering as if they had been done in 
  * sequence.
  *
+ * <p>In adaptive mode, the number of queries actually in progress
+ * at any one time is limited to a value between 1 and the
+ * number of threads, which is adjusted according to the service's
+ * observed latency and error rate; see {@link ConcurrencyLimiter}.
+ * In either mode a histogram of query latencies is logged
+ * when the sequence is closed.
+ *
  * @author   Mark Taylor
  * @since    18 Jan 2008
  */
@@ -20,6 +28,7 @@ public class ParallelResultRowSequence implements ConeResultRowSequence {
 
     private final ConeQueryRowSequence querySeq_;
     private final ConeSearcher coneSearcher_;
+    private final ConcurrencyLimiter limiter_;
     private final ConeErrorPolicy errAct_;
     private final Coverage coverage_;
     private final boolean bestOnly_;
@@ -82,8 +91,39 @@ public class ParallelResultRowSequence implements ConeResultRowSequence {
                                       Coverage coverage, boolean bestOnly,
                                       boolean distFilter, String distanceCol,
                                       int parallelism ) {
+        this( querySeq, coneSearcher, errAct, coverage, bestOnly, distFilter,
+              distanceCol, parallelism, false );
+    }
+
+    /**
+     * Constructor with optional adaptive concurrency.
+     *
+     * @param  querySeq  sequence providing cone search query parameters
+     * @param  coneSearcher  cone search implementation
+     * @param  errAct   defines action on cone search invocation error
+     * @param  coverage   coverage for results, or null
+     * @param  bestOnly  whether all results or just best are required
+     * @param  distFilter  true to perform post-query filtering on results
+     *                     based on the distance between the query position
+     *                     and the result row position
+     * @param  distanceCol  name of column to hold distance information
+     *                      in output table, or null
+     * @param  parallelism  number of querying threads, which is the
+     *                      maximum number of concurrent queries
+     * @param  adaptive   if true, the number of concurrent queries is
+     *                    adjusted between 1 and <code>parallelism</code>
+     *                    according to service response;
+     *                    if false, it is fixed at <code>parallelism</code>
+     */
+    public ParallelResultRowSequence( ConeQueryRowSequence querySeq,
+                                      ConeSearcher coneSearcher,
+                                      ConeErrorPolicy errAct,
+                                      Coverage coverage, boolean bestOnly,
+                                      boolean distFilter, String distanceCol,
+                                      int parallelism, boolean adaptive ) {
         querySeq_ = querySeq;
-        coneSearcher_ = coneSearcher;
+        limiter_ = new ConcurrencyLimiter( parallelism, adaptive );
+        coneSearcher_ = new LimitedConeSearcher( coneSearcher, limiter_ );
         errAct_ = errAct;
         coverage_ = coverage;
         bestOnly_ = bestOnly;
@@ -200,6 +240,7 @@ public class ParallelResultRowSequence implements ConeResultRowSequence {
             logger_.info( "Submitted " + nQuery + ", skipped " + nSkip
                         + " queries to service" );
         }
+        logger_.info( limiter_.getReport() );
     }
 
     /**
@@ -285,6 +326,64 @@ public class ParallelResultRowSequence implements ConeResultRowSequence {
         return maxpar_.intValue();
     }
 
+    /**
+     * ConeSearcher wrapper which applies a concurrency limit to,
+     * and measures the latency of, each search.
+     * Since the error policy invokes the searcher once per attempt,
+     * retried failures are each reported to the limiter.
+     */
+    private static class LimitedConeSearcher implements ConeSearcher {
+
+        private final ConeSearcher base_;
+        private final ConcurrencyLimiter limiter_;
+
+        /**
+         * Constructor.
+         *
+         * @param  base  searcher which does the work
+         * @param  limiter  concurrency limiter
+         */
+        LimitedConeSearcher( ConeSearcher base, ConcurrencyLimiter limiter ) {
+            base_ = base;
+            limiter_ = limiter;
+        }
+
+        public StarTable performSearch( double ra, double dec, double sr )
+                throws IOException {
+            try {
+                limiter_.acquire();
+            }
+            catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw (IOException)
+                      new InterruptedIOException( "Interrupted" )
+                     .initCause( e );
+            }
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                StarTable result = base_.performSearch( ra, dec, sr );
+                success = true;
+                return result;
+            }
+            finally {
+                limiter_.release( System.nanoTime() - start, success );
+            }
+        }
+
+        public int getRaIndex( StarTable result ) {
+            return base_.getRaIndex( result );
+        }
+
+        public int getDecIndex( StarTable result ) {
+            return base_.getDecIndex( result );
+        }
+
+        public void close() {
+            base_.close();
+        }
+    }
+
     /**
      * Helper class encapsulating the parameters and result of a completed
      * cone search query.
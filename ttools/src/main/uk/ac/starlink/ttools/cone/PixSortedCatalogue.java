@@ -0,0 +1,750 @@
+package uk.ac.starlink.ttools.cone;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ByteStore;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StarTableFactory;
+import uk.ac.starlink.table.StarTableOutput;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.table.WrapperStarTable;
+import uk.ac.starlink.table.storage.ByteStoreAccess;
+import uk.ac.starlink.table.storage.Codec;
+import uk.ac.starlink.table.storage.NioByteStoreAccess;
+
+/**
+ * Local catalogue arranged for efficient cone searching.
+ * The catalogue consists of a FITS table whose rows are sorted by
+ * the HEALPix (nested) tile in which their sky position falls,
+ * and an index file alongside it giving the offset of the first row
+ * of each tile.  A cone search then only has to read the rows
+ * from the tiles which overlap the cone, and the FITS file is
+ * mapped so that this is cheap.
+ *
+ * <p>The index file has the same name as the FITS file with the suffix
+ * {@value #INDEX_SUFFIX} appended.  It records the size and modification
+ * time of the FITS file, and is rejected if they do not match.
+ * Rows with blank positions are not included in the catalogue.
+ *
+ * <p>The catalogue is written by an external distribution sort,
+ * so that neither the heap required nor the number of rows that
+ * can be handled depends on the size of the input table.
+ * The input is read twice; once to count the rows in each tile,
+ * and once to distribute the rows between temporary files each
+ * covering a contiguous range of tiles.  Files containing too many
+ * rows to sort in memory are distributed again in the same way.
+ * The remaining files are then read in tile order, and those
+ * covering more than one tile are sorted in memory as they are read.
+ *
+ * <p>Instances of this class are safe for use from multiple threads.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class PixSortedCatalogue {
+
+    private final StarTable table_;
+    private final int order_;
+    private final int raIndex_;
+    private final int decIndex_;
+    private final LongBuffer offsets_;
+
+    /** Filename suffix for tile index files. */
+    public static final String INDEX_SUFFIX = ".hpxidx";
+
+    /** Largest HEALPix order which may be used for the tile index. */
+    public static final int MAX_ORDER = 10;
+
+    /** Target mean number of rows per tile used for default order. */
+    public static final int TILE_ROWS = 256;
+
+    /** Largest number of rows sorted in memory at once. */
+    static final int CHUNK_ROWS = 1 << 18;
+
+    /** Number of temporary files into which rows are distributed. */
+    static final int FANOUT = 256;
+
+    private static final byte[] MAGIC =
+        "STILHPX1".getBytes( StandardCharsets.US_ASCII );
+    private static final int HEADER_SIZE = 48;
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.cone" );
+
+    /**
+     * Constructor.
+     *
+     * @param  table  random-access table sorted by tile
+     * @param  order  HEALPix order of tiling
+     * @param  raIndex  index of column giving right ascension in degrees
+     * @param  decIndex  index of column giving declination in degrees
+     * @param  offsets  buffer with (npix+1) entries giving the row index
+     *                  at which each tile starts, followed by the row count
+     */
+    private PixSortedCatalogue( StarTable table, int order,
+                                int raIndex, int decIndex,
+                                LongBuffer offsets ) {
+        table_ = table;
+        order_ = order;
+        raIndex_ = raIndex;
+        decIndex_ = decIndex;
+        offsets_ = offsets;
+    }
+
+    /**
+     * Returns the random-access table containing the catalogue rows.
+     *
+     * @return  table
+     */
+    public StarTable getTable() {
+        return table_;
+    }
+
+    /**
+     * Returns the HEALPix order of the tiling.
+     *
+     * @return  order
+     */
+    public int getOrder() {
+        return order_;
+    }
+
+    /**
+     * Returns the index of the column containing right ascension in degrees.
+     *
+     * @return  RA column index
+     */
+    public int getRaIndex() {
+        return raIndex_;
+    }
+
+    /**
+     * Returns the index of the column containing declination in degrees.
+     *
+     * @return  Dec column index
+     */
+    public int getDecIndex() {
+        return decIndex_;
+    }
+
+    /**
+     * Returns the index of the first row in a given tile.
+     * The rows in tile <code>ipix</code> run from
+     * <code>getTileStart(ipix)</code> to
+     * <code>getTileStart(ipix+1)</code> (exclusive).
+     *
+     * @param  ipix  nested HEALPix index, in the range 0..npix inclusive
+     * @return  row index
+     */
+    public long getTileStart( long ipix ) {
+
+        /* The number of tiles always fits in an int, since the order
+         * is limited to MAX_ORDER.  Row indices are longs. */
+        return offsets_.get( (int) ipix );
+    }
+
+    /**
+     * Opens a catalogue previously written by {@link #writeCatalogue}.
+     *
+     * @param  file  FITS file location
+     * @return  catalogue
+     */
+    public static PixSortedCatalogue open( File file ) throws IOException {
+        File idxFile = getIndexFile( file );
+        if ( ! idxFile.isFile() ) {
+            throw new IOException( "No tile index " + idxFile + " for "
+                                 + file );
+        }
+        ByteBuffer buf;
+        try ( RandomAccessFile raf = new RandomAccessFile( idxFile, "r" ) ) {
+            buf = raf.getChannel()
+                     .map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+        }
+        byte[] magic = new byte[ MAGIC.length ];
+        buf.get( magic );
+        if ( ! Arrays.equals( magic, MAGIC ) ) {
+            throw new IOException( "Not a tile index file: " + idxFile );
+        }
+        int order = buf.getInt();
+        int raIndex = buf.getInt();
+        int decIndex = buf.getInt();
+        buf.getInt();
+        long nrow = buf.getLong();
+        long dataLeng = buf.getLong();
+        long dataTime = buf.getLong();
+        if ( dataLeng != file.length() || dataTime != file.lastModified() ) {
+            throw new IOException( "Tile index " + idxFile + " out of date" );
+        }
+        assert buf.position() == HEADER_SIZE;
+        LongBuffer offsets = buf.slice().asLongBuffer();
+        long npix = 12L << ( 2 * order );
+        if ( offsets.remaining() != npix + 1 ||
+             offsets.get( (int) npix ) != nrow ) {
+            throw new IOException( "Corrupted tile index " + idxFile );
+        }
+        StarTable table = new StarTableFactory( true )
+                         .makeStarTable( file.getPath(), "fits" );
+        if ( table.getRowCount() != nrow ) {
+            throw new IOException( "Row count mismatch for " + file );
+        }
+        return new PixSortedCatalogue( table, order, raIndex, decIndex,
+                                       offsets );
+    }
+
+    /**
+     * Writes a tile-sorted copy of a table, along with its tile index,
+     * to a FITS file.
+     * The input table is read sequentially, twice.
+     * Temporary files are used for the sort; the heap required
+     * does not depend on the number of rows.
+     *
+     * @param  inTable  input table
+     * @param  raIndex  index of column giving right ascension in degrees
+     * @param  decIndex  index of column giving declination in degrees
+     * @param  order   HEALPix order of tiling, in the range 0..MAX_ORDER
+     * @param  file   destination FITS file
+     */
+    public static void writeCatalogue( StarTable inTable, int raIndex,
+                                       int decIndex, int order, File file )
+            throws IOException {
+        writeCatalogue( inTable, raIndex, decIndex, order, file,
+                        CHUNK_ROWS, FANOUT );
+    }
+
+    /**
+     * Writes a tile-sorted copy of a table with configurable sort
+     * parameters.  This package-private method is intended for testing.
+     *
+     * @param  inTable  input table
+     * @param  raIndex  index of column giving right ascension in degrees
+     * @param  decIndex  index of column giving declination in degrees
+     * @param  order   HEALPix order of tiling, in the range 0..MAX_ORDER
+     * @param  file   destination FITS file
+     * @param  chunkRows  largest number of rows to sort in memory
+     * @param  fanout   number of files into which rows are distributed
+     *                  at each stage
+     */
+    static void writeCatalogue( StarTable inTable, int raIndex, int decIndex,
+                                int order, File file, int chunkRows,
+                                int fanout )
+            throws IOException {
+        if ( order < 0 || order > MAX_ORDER ) {
+            throw new IllegalArgumentException( "Order " + order
+                                              + " out of range" );
+        }
+        TileSorter sorter =
+            new TileSorter( inTable, raIndex, decIndex, order,
+                            Math.max( 1, chunkRows ), Math.max( 2, fanout ) );
+
+        /* Count the rows in each tile, accumulating them so that
+         * each offset gives the first row of the corresponding tile. */
+        int npix = 12 << ( 2 * order );
+        long[] offsets = sorter.offsets_;
+        long nrow = 0;
+        try ( RowSequence rseq = inTable.getRowSequence() ) {
+            while ( rseq.next() ) {
+                nrow++;
+                int ipix = sorter.getPixel( rseq );
+                if ( ipix >= 0 ) {
+                    offsets[ ipix + 1 ]++;
+                }
+            }
+        }
+        for ( int ip = 0; ip < npix; ip++ ) {
+            offsets[ ip + 1 ] += offsets[ ip ];
+        }
+        long ngood = offsets[ npix ];
+        if ( ngood < nrow ) {
+            logger_.info( "Omitting " + ( nrow - ngood )
+                        + " rows with blank positions" );
+        }
+
+        /* Distribute the rows into temporary files, and write them
+         * out from there in tile order. */
+        List<Spill> leaves = new ArrayList<Spill>();
+        try {
+            try ( RowSequence rseq = inTable.getRowSequence() ) {
+                sorter.distribute( rseq, 0, npix, leaves );
+            }
+            logger_.info( "Tile sort: " + leaves.size()
+                        + " temporary files" );
+            StarTable sorted = new TileSortedTable( sorter, leaves, ngood );
+            new StarTableOutput()
+               .writeStarTable( sorted, file.getPath(), "fits" );
+        }
+        finally {
+            for ( Spill leaf : leaves ) {
+                leaf.store_.close();
+            }
+        }
+
+        /* Write the tile index. */
+        File idxFile = getIndexFile( file );
+        try ( DataOutputStream out =
+                  new DataOutputStream(
+                      new BufferedOutputStream(
+                          new FileOutputStream( idxFile ) ) ) ) {
+            out.write( MAGIC );
+            out.writeInt( order );
+            out.writeInt( raIndex );
+            out.writeInt( decIndex );
+            out.writeInt( 0 );
+            out.writeLong( ngood );
+            out.writeLong( file.length() );
+            out.writeLong( file.lastModified() );
+            assert out.size() == HEADER_SIZE;
+            for ( long off : offsets ) {
+                out.writeLong( off );
+            }
+        }
+    }
+
+    /**
+     * Returns a suitable HEALPix order for a catalogue of a given size.
+     *
+     * @param  nrow  number of rows
+     * @return   order giving around {@link #TILE_ROWS} rows per tile,
+     *           but no more than {@link #MAX_ORDER}
+     */
+    public static int getDefaultOrder( long nrow ) {
+        int order = 0;
+        while ( order < MAX_ORDER &&
+                nrow / ( 12L << ( 2 * order ) ) > TILE_ROWS ) {
+            order++;
+        }
+        return order;
+    }
+
+    /**
+     * Returns the location of the tile index file corresponding to
+     * a catalogue FITS file.
+     *
+     * @param  file  FITS file
+     * @return  index file
+     */
+    public static File getIndexFile( File file ) {
+        return new File( file.getPath() + INDEX_SUFFIX );
+    }
+
+    /**
+     * Turns a cell value into a double.
+     *
+     * @param  value  cell value
+     * @return  numeric value, or NaN
+     */
+    static double getDouble( Object value ) {
+        return value instanceof Number ? ((Number) value).doubleValue()
+                                       : Double.NaN;
+    }
+
+    /**
+     * Performs the distribution of table rows between temporary files
+     * in tile order.
+     */
+    private static class TileSorter {
+
+        final StarTable meta_;
+        final int raIndex_;
+        final int decIndex_;
+        final int order_;
+        final int chunkRows_;
+        final int fanout_;
+        final long[] offsets_;
+        final Codec[] codecs_;
+        final CdsHealpix hpi_;
+
+        /**
+         * Constructor.
+         *
+         * @param  meta  table supplying column metadata
+         * @param  raIndex  index of RA column
+         * @param  decIndex  index of Dec column
+         * @param  order  HEALPix order
+         * @param  chunkRows  largest number of rows to sort in memory
+         * @param  fanout  number of files into which rows are distributed
+         */
+        TileSorter( StarTable meta, int raIndex, int decIndex, int order,
+                    int chunkRows, int fanout )
+                throws IOException {
+            meta_ = meta;
+            raIndex_ = raIndex;
+            decIndex_ = decIndex;
+            order_ = order;
+            chunkRows_ = chunkRows;
+            fanout_ = fanout;
+            offsets_ = new long[ ( 12 << ( 2 * order ) ) + 1 ];
+            int ncol = meta.getColumnCount();
+            codecs_ = new Codec[ ncol ];
+            for ( int ic = 0; ic < ncol; ic++ ) {
+                ColumnInfo info = meta.getColumnInfo( ic );
+                codecs_[ ic ] = Codec.getCodec( info );
+                if ( codecs_[ ic ] == null ) {
+                    throw new IOException( "Can't store column "
+                                         + info.getName() + " of type "
+                                         + info.getContentClass()
+                                                .getName() );
+                }
+            }
+            hpi_ = CdsHealpix.getInstance();
+        }
+
+        /**
+         * Returns the tile in which the current row of a sequence falls.
+         *
+         * @param  rseq  row sequence positioned at a row
+         * @return   nested HEALPix index, or -1 for a blank position
+         */
+        int getPixel( RowSequence rseq ) throws IOException {
+            double ra = getDouble( rseq.getCell( raIndex_ ) );
+            double dec = getDouble( rseq.getCell( decIndex_ ) );
+            return Double.isNaN( ra ) || Double.isNaN( dec ) ||
+                   Math.abs( dec ) > 90
+                 ? -1
+                 : (int) hpi_.ang2pix( order_, ra, dec );
+        }
+
+        /**
+         * Distributes the rows of a sequence which fall in a given
+         * range of tiles between temporary files, each covering
+         * a contiguous sub-range, recursively until each file is
+         * small enough to sort in memory or covers a single tile.
+         * Those files are appended, in tile order, to a supplied list.
+         * Rows outside the range, or with blank positions, are ignored.
+         *
+         * @param  rseq  row sequence
+         * @param  pixLo  first tile in range
+         * @param  pixHi  tile after the last one in range
+         * @param  leaves  list to which sortable files are appended
+         */
+        void distribute( RowSequence rseq, int pixLo, int pixHi,
+                         List<Spill> leaves )
+                throws IOException {
+
+            /* Divide the range into sub-ranges of roughly equal row count,
+             * each containing at least one tile. */
+            long nrow = offsets_[ pixHi ] - offsets_[ pixLo ];
+            long target = Math.max( chunkRows_,
+                                    ( nrow + fanout_ - 1 ) / fanout_ );
+            List<Spill> spills = new ArrayList<Spill>();
+            for ( int ip = pixLo; ip < pixHi; ) {
+                int ip1 = ip + 1;
+                while ( ip1 < pixHi &&
+                        offsets_[ ip1 + 1 ] - offsets_[ ip ] <= target ) {
+                    ip1++;
+                }
+                if ( offsets_[ ip1 ] > offsets_[ ip ] ) {
+                    spills.add( new Spill( ip, ip1 ) );
+                }
+                ip = ip1;
+            }
+            int ns = spills.size();
+            int[] starts = new int[ ns ];
+            for ( int is = 0; is < ns; is++ ) {
+                starts[ is ] = spills.get( is ).pixLo_;
+            }
+
+            /* Write each row to the file covering its tile. */
+            try {
+                while ( rseq.next() ) {
+                    int ipix = getPixel( rseq );
+                    if ( ipix >= pixLo && ipix < pixHi ) {
+                        int is = Arrays.binarySearch( starts, ipix );
+                        Spill spill = spills.get( is >= 0 ? is : -is - 2 );
+                        if ( ipix < spill.pixHi_ ) {
+                            spill.write( rseq.getRow(), codecs_ );
+                        }
+                    }
+                }
+                for ( Spill spill : spills ) {
+                    spill.endWrite();
+                    if ( spill.nrow_ != offsets_[ spill.pixHi_ ]
+                                      - offsets_[ spill.pixLo_ ] ) {
+                        throw new IOException( "Row count mismatch"
+                                             + " on re-reading table" );
+                    }
+                }
+            }
+            catch ( IOException | RuntimeException | Error e ) {
+                for ( Spill spill : spills ) {
+                    spill.store_.close();
+                }
+                throw e;
+            }
+
+            /* Keep files that can be sorted in memory,
+             * and distribute the others further. */
+            for ( int is = 0; is < ns; is++ ) {
+                Spill spill = spills.get( is );
+                if ( spill.nrow_ <= chunkRows_ ||
+                     spill.pixHi_ - spill.pixLo_ == 1 ) {
+                    leaves.add( spill );
+                }
+                else {
+                    try ( RowSequence srseq =
+                              spill.createRowSequence( codecs_ ) ) {
+                        distribute( srseq, spill.pixLo_, spill.pixHi_,
+                                    leaves );
+                    }
+                    catch ( IOException | RuntimeException | Error e ) {
+                        for ( int js = is + 1; js < ns; js++ ) {
+                            spills.get( js ).store_.close();
+                        }
+                        throw e;
+                    }
+                    finally {
+                        spill.store_.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Temporary storage for the rows falling in a range of tiles.
+     */
+    private static class Spill {
+
+        final int pixLo_;
+        final int pixHi_;
+        final ByteStore store_;
+        private DataOutputStream out_;
+        long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  pixLo  first tile in range
+         * @param  pixHi  tile after the last one in range
+         */
+        Spill( int pixLo, int pixHi ) {
+            pixLo_ = pixLo;
+            pixHi_ = pixHi;
+            store_ = StoragePolicy.PREFER_DISK.makeByteStore();
+            out_ = new DataOutputStream(
+                       new BufferedOutputStream( store_.getOutputStream() ) );
+        }
+
+        /**
+         * Appends a row.
+         *
+         * @param  row  row data
+         * @param  codecs  per-column serializers
+         */
+        void write( Object[] row, Codec[] codecs ) throws IOException {
+            for ( int ic = 0; ic < codecs.length; ic++ ) {
+                codecs[ ic ].encode( row[ ic ], out_ );
+            }
+            nrow_++;
+        }
+
+        /**
+         * Signals that no more rows will be written.
+         */
+        void endWrite() throws IOException {
+            out_.close();
+            out_ = null;
+        }
+
+        /**
+         * Returns a sequence over the rows written to this spill.
+         * May only be called after {@link #endWrite}.
+         *
+         * @param  codecs  per-column serializers
+         * @return  new row sequence
+         */
+        RowSequence createRowSequence( final Codec[] codecs )
+                throws IOException {
+            final ByteStoreAccess in =
+                nrow_ > 0
+                    ? NioByteStoreAccess.createAccess( store_.toByteBuffers() )
+                    : null;
+            final int ncol = codecs.length;
+            return new RowSequence() {
+                long irow_ = -1;
+                Object[] row_;
+                public boolean next() throws IOException {
+                    if ( irow_ + 1 < nrow_ ) {
+                        irow_++;
+                        row_ = new Object[ ncol ];
+                        for ( int ic = 0; ic < ncol; ic++ ) {
+                            row_[ ic ] = codecs[ ic ].decodeObject( in );
+                        }
+                        return true;
+                    }
+                    else {
+                        row_ = null;
+                        return false;
+                    }
+                }
+                public Object getCell( int icol ) {
+                    return getRow()[ icol ];
+                }
+                public Object[] getRow() {
+                    if ( row_ == null ) {
+                        throw new IllegalStateException( "No current row" );
+                    }
+                    return row_;
+                }
+                public void close() {
+                }
+            };
+        }
+    }
+
+    /**
+     * Sequential-only table which presents the rows stored in a list
+     * of spills in tile order.
+     * Spills covering more than one tile are sorted in memory
+     * each time they are read.
+     */
+    private static class TileSortedTable extends WrapperStarTable {
+
+        private final TileSorter sorter_;
+        private final List<Spill> leaves_;
+        private final long nrow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  sorter  sorter which wrote the spills
+         * @param  leaves  spills in tile order
+         * @param  nrow   total number of rows in spills
+         */
+        TileSortedTable( TileSorter sorter, List<Spill> leaves, long nrow ) {
+            super( sorter.meta_ );
+            sorter_ = sorter;
+            leaves_ = leaves;
+            nrow_ = nrow;
+        }
+
+        @Override
+        public long getRowCount() {
+            return nrow_;
+        }
+
+        @Override
+        public boolean isRandom() {
+            return false;
+        }
+
+        @Override
+        public Object getCell( long irow, int icol ) {
+            throw new UnsupportedOperationException( "Not random" );
+        }
+
+        @Override
+        public Object[] getRow( long irow ) {
+            throw new UnsupportedOperationException( "Not random" );
+        }
+
+        @Override
+        public RowAccess getRowAccess() {
+            throw new UnsupportedOperationException( "Not random" );
+        }
+
+        @Override
+        public RowSplittable getRowSplittable() throws IOException {
+            return Tables.getDefaultRowSplittable( this );
+        }
+
+        @Override
+        public RowSequence getRowSequence() {
+            return new RowSequence() {
+                int ileaf_ = -1;
+                Object[][] rows_ = new Object[ 0 ][];
+                int irow_ = -1;
+                RowSequence leafSeq_;
+                Object[] row_;
+                public boolean next() throws IOException {
+                    while ( true ) {
+                        if ( leafSeq_ != null ) {
+                            if ( leafSeq_.next() ) {
+                                row_ = leafSeq_.getRow();
+                                return true;
+                            }
+                            leafSeq_.close();
+                            leafSeq_ = null;
+                        }
+                        else if ( irow_ + 1 < rows_.length ) {
+                            row_ = rows_[ ++irow_ ];
+                            rows_[ irow_ ] = null;
+                            return true;
+                        }
+                        else if ( ileaf_ + 1 < leaves_.size() ) {
+                            Spill leaf = leaves_.get( ++ileaf_ );
+                            if ( leaf.pixHi_ - leaf.pixLo_ == 1 ) {
+                                leafSeq_ =
+                                    leaf.createRowSequence( sorter_.codecs_ );
+                            }
+                            else {
+                                rows_ = sortLeaf( leaf );
+                                irow_ = -1;
+                            }
+                        }
+                        else {
+                            row_ = null;
+                            return false;
+                        }
+                    }
+                }
+                public Object getCell( int icol ) {
+                    return getRow()[ icol ];
+                }
+                public Object[] getRow() {
+                    if ( row_ == null ) {
+                        throw new IllegalStateException( "No current row" );
+                    }
+                    return row_;
+                }
+                public void close() throws IOException {
+                    if ( leafSeq_ != null ) {
+                        leafSeq_.close();
+                    }
+                }
+            };
+        }
+
+        /**
+         * Reads the rows of a spill into memory and sorts them by tile.
+         * Rows within the same tile retain their input order.
+         *
+         * @param  leaf  spill with no more rows than will fit in an array
+         * @return   rows in tile order
+         */
+        private Object[][] sortLeaf( Spill leaf ) throws IOException {
+            long[] offsets = sorter_.offsets_;
+            long base = offsets[ leaf.pixLo_ ];
+            int n = Tables.checkedLongToInt( leaf.nrow_ );
+            int ntile = leaf.pixHi_ - leaf.pixLo_;
+            int[] cursors = new int[ ntile ];
+            for ( int it = 0; it < ntile; it++ ) {
+                cursors[ it ] = (int) ( offsets[ leaf.pixLo_ + it ] - base );
+            }
+            Object[][] rows = new Object[ n ][];
+            try ( RowSequence rseq =
+                      leaf.createRowSequence( sorter_.codecs_ ) ) {
+                while ( rseq.next() ) {
+                    int it = sorter_.getPixel( rseq ) - leaf.pixLo_;
+                    rows[ cursors[ it ]++ ] = rseq.getRow();
+                }
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package uk.ac.starlink.ttools.cone;
+
+import java.io.IOException;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowListStarTable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.ttools.func.CoordsDegrees;
+
+/**
+ * ConeSearcher implementation that searches a local tile-sorted catalogue.
+ * Only the rows in tiles overlapping each cone are read.
+ * This object is thread-safe, so it may be used for parallel queries.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ * @see      PixSortedCatalogue
+ */
+public class PixSortedConeSearcher implements ConeSearcher {
+
+    private final PixSortedCatalogue catalogue_;
+    private final StarTable table_;
+    private final boolean bestOnly_;
+
+    /**
+     * Constructor.
+     *
+     * @param  catalogue  catalogue to search
+     * @param  bestOnly  true iff only the closest match is required
+     */
+    public PixSortedConeSearcher( PixSortedCatalogue catalogue,
+                                  boolean bestOnly ) {
+        catalogue_ = catalogue;
+        table_ = catalogue.getTable();
+        bestOnly_ = bestOnly;
+    }
+
+    public StarTable performSearch( double ra, double dec, double sr )
+            throws IOException {
+        RowListStarTable result = new RowListStarTable( table_ );
+        long[] pixels = CdsHealpix.getInstance()
+                       .queryDisc( catalogue_.getOrder(), ra, dec, sr );
+        int raIndex = catalogue_.getRaIndex();
+        int decIndex = catalogue_.getDecIndex();
+        double bestDist = Double.POSITIVE_INFINITY;
+        try ( RowAccess racc = table_.getRowAccess() ) {
+            int npix = pixels.length;
+            for ( int ip = 0; ip < npix; ) {
+
+                /* Merge runs of adjacent tiles into a single row range. */
+                long pix0 = pixels[ ip ];
+                long pix1 = pix0 + 1;
+                while ( ++ip < npix && pixels[ ip ] == pix1 ) {
+                    pix1++;
+                }
+                long irHi = catalogue_.getTileStart( pix1 );
+                for ( long ir = catalogue_.getTileStart( pix0 ); ir < irHi;
+                      ir++ ) {
+                    racc.setRowIndex( ir );
+                    double rowRa = PixSortedCatalogue
+                                  .getDouble( racc.getCell( raIndex ) );
+                    double rowDec = PixSortedCatalogue
+                                   .getDouble( racc.getCell( decIndex ) );
+                    double dist = CoordsDegrees
+                                 .skyDistanceDegrees( ra, dec, rowRa, rowDec );
+                    if ( dist <= sr ) {
+                        if ( ! bestOnly_ ) {
+                            result.addRow( racc.getRow().clone() );
+                        }
+                        else if ( dist < bestDist ) {
+                            bestDist = dist;
+                            result.clearRows();
+                            result.addRow( racc.getRow().clone() );
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getRaIndex( StarTable result ) {
+        return catalogue_.getRaIndex();
+    }
+
+    public int getDecIndex( StarTable result ) {
+        return catalogue_.getDecIndex();
+    }
+
+    public void close() {
+    }
+}
@@ -0,0 +1,79 @@
+package uk.ac.starlink.ttools.cone;
+
+import java.io.File;
+import java.io.IOException;
+import uk.ac.starlink.task.Environment;
+import uk.ac.starlink.task.Parameter;
+import uk.ac.starlink.task.StringParameter;
+import uk.ac.starlink.task.TaskException;
+
+/**
+ * Coner implementation which searches a local catalogue file
+ * written by {@link PixSortedCatalogue}.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class PixSortedConer implements Coner {
+
+    private final StringParameter catParam_;
+
+    /**
+     * Constructor.
+     */
+    public PixSortedConer() {
+        catParam_ = new StringParameter( "catfile" );
+        catParam_.setUsage( "<fits-file>" );
+        catParam_.setPrompt( "Tile-sorted catalogue file" );
+        catParam_.setDescription( new String[] {
+            "<p>Location of a local FITS file containing the catalogue",
+            "to search.",
+            "This must have been written by the",
+            "<ref id='pixsort'><code>pixsort</code></ref> command,",
+            "so that it is accompanied by a tile index file.",
+            "</p>",
+        } );
+    }
+
+    /**
+     * Returns the empty string.  No particular coordinate system is
+     * mandated by this object.
+     */
+    public String getSkySystem() {
+        return "";
+    }
+
+    public Parameter<?>[] getParameters() {
+        return new Parameter<?>[] {
+            catParam_,
+        };
+    }
+
+    public void configureParams( Environment env, Parameter<?> srParam ) {
+    }
+
+    /**
+     * Returns false, since the searcher only returns rows within the cone.
+     */
+    public boolean useDistanceFilter( Environment env ) {
+        return false;
+    }
+
+    public ConeSearcher createSearcher( Environment env, boolean bestOnly )
+            throws TaskException {
+        String loc = catParam_.stringValue( env );
+        try {
+            return new PixSortedConeSearcher(
+                           PixSortedCatalogue.open( new File( loc ) ),
+                           bestOnly );
+        }
+        catch ( IOException e ) {
+            throw new TaskException( "Can't open catalogue " + loc + ": "
+                                   + e.getMessage(), e );
+        }
+    }
+
+    public Coverage getCoverage( Environment env ) {
+        return null;
+    }
+}
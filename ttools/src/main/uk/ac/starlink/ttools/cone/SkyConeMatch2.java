@@ -54,6 +54,7 @@ public abstract class SkyConeMatch2 extends SingleMapperTask {
     private final StringParameter distcolParam_;
     private final BooleanParameter ostreamParam_;
     private final IntegerParameter parallelParam_;
+    private final BooleanParameter adaptiveParam_;
     private final ConeErrorPolicyParameter erractParam_;
     private final JoinFixActionParameter fixcolsParam_;
     private final StringParameter insuffixParam_;
@@ -268,6 +269,33 @@ public abstract class SkyConeMatch2 extends SingleMapperTask {
             paramList.add( parallelParam_ );
         }
 
+        adaptiveParam_ = new BooleanParameter( "adaptive" );
+        adaptiveParam_.setBooleanDefault( false );
+        adaptiveParam_.setPrompt( "Adjust parallelism to service response?" );
+        adaptiveParam_.setDescription( new String[] {
+            "<p>If true, the value of the",
+            "<code>" + parallelParam_.getName() + "</code> parameter",
+            "is treated as an upper limit,",
+            "and the number of queries actually running at any one time",
+            "is adjusted according to how the service responds.",
+            "It starts at 1 and is increased gradually while queries",
+            "succeed without the response time growing,",
+            "but is reduced if queries fail or response times",
+            "increase substantially.",
+            "This allows a fast service to be used efficiently",
+            "without overloading a slow one.",
+            "Failed queries are still handled as specified by the",
+            "<code>erract</code> parameter.",
+            "</p>",
+            "<p>Whether or not this option is used,",
+            "a summary of query response times is logged",
+            "at the end of the run.",
+            "</p>",
+        } );
+        if ( maxParallel > 1 ) {
+            paramList.add( adaptiveParam_ );
+        }
+
         erractParam_ = new ConeErrorPolicyParameter( "erract" );
         paramList.add( erractParam_ );
 
@@ -314,6 +342,8 @@ public abstract class SkyConeMatch2 extends SingleMapperTask {
         String srString = srParam_.stringValue( env );
         final boolean ostream = ostreamParam_.booleanValue( env );
         int parallelism = parallelParam_.intValue( env );
+        boolean adaptive = parallelism > 1
+                        && adaptiveParam_.booleanValue( env );
         ConeErrorPolicy erract = erractParam_.policyValue( env );
         if ( erract == ConeErrorPolicy.ABORT ) {
             String advice = "Cone search failed - try other values of "
@@ -368,6 +398,7 @@ public abstract class SkyConeMatch2 extends SingleMapperTask {
                              footprint, includeBlanks, distFilter, parallelism,
                              copyColIdList, distanceCol, inFixAct, coneFixAct );
         coneMatcher.setStreamOutput( true );
+        coneMatcher.setAdaptiveParallel( adaptive );
         return new TableProducer() {
             public StarTable getTable() throws IOException, TaskException {
                 ConeMatcher.ConeWorker worker = coneMatcher.createConeWorker();
@@ -0,0 +1,454 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.table.WrapperStarTable;
+import uk.ac.starlink.util.URLUtils;
+
+/**
+ * Sorted index of the values in a numeric column of a file-backed table.
+ * The index is stored in a sidecar file next to the table file,
+ * and records the non-blank values of the column in ascending order
+ * along with the index of the row in which each occurs.
+ * This allows the rows with values in a given range to be located
+ * without scanning the table.
+ *
+ * <p>The sidecar is named by appending the HDU position (if any),
+ * the column name and the suffix {@value #SUFFIX} to the table file name.
+ * It records the size and modification time of the table file,
+ * and is ignored if these no longer match.
+ * Values are stored as doubles, and row indices as 32-bit integers,
+ * so the index takes 12 bytes per non-blank row.
+ *
+ * <p>Since row indices are stored as 32-bit integers,
+ * and the index is built in memory,
+ * tables with more than {@link #MAX_ROWS} rows cannot be indexed;
+ * selections on such tables always scan all the rows.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class ColumnIndex {
+
+    private final String colName_;
+    private final long nrow_;
+    private final int nent_;
+    private final DoubleBuffer values_;
+    private final IntBuffer rows_;
+
+    /** Maximum number of rows in a table that can be indexed. */
+    public static final long MAX_ROWS = Integer.MAX_VALUE - 8;
+
+    /** Filename suffix for index sidecar files. */
+    public static final String SUFFIX = ".stidx";
+
+    private static final byte[] MAGIC =
+        "STILIDX1".getBytes( StandardCharsets.US_ASCII );
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.filter" );
+
+    /**
+     * Constructor.
+     *
+     * @param  colName  column name
+     * @param  nrow   number of rows in the indexed table
+     * @param  nent   number of index entries
+     * @param  values  sorted values
+     * @param  rows   row indices corresponding to values
+     */
+    private ColumnIndex( String colName, long nrow, int nent,
+                         DoubleBuffer values, IntBuffer rows ) {
+        colName_ = colName;
+        nrow_ = nrow;
+        nent_ = nent;
+        values_ = values;
+        rows_ = rows;
+    }
+
+    /**
+     * Returns the name of the indexed column.
+     *
+     * @return  column name
+     */
+    public String getColumnName() {
+        return colName_;
+    }
+
+    /**
+     * Returns the number of rows in the indexed table.
+     *
+     * @return  table row count
+     */
+    public long getTableRowCount() {
+        return nrow_;
+    }
+
+    /**
+     * Returns the number of entries in this index;
+     * this is the number of rows with non-blank values.
+     *
+     * @return  entry count
+     */
+    public int getEntryCount() {
+        return nent_;
+    }
+
+    /**
+     * Returns the number of rows whose values fall within a given
+     * closed interval.
+     *
+     * @param  lo  lower bound, inclusive
+     * @param  hi  upper bound, inclusive
+     * @return   number of rows with <code>lo&lt;=value&lt;=hi</code>
+     */
+    public int countRange( double lo, double hi ) {
+        return Math.max( 0, upperBound( hi ) - lowerBound( lo ) );
+    }
+
+    /**
+     * Returns the indices of the rows whose values fall within a given
+     * closed interval.
+     *
+     * @param  lo  lower bound, inclusive
+     * @param  hi  upper bound, inclusive
+     * @return   row indices in ascending order
+     */
+    public long[] getRows( double lo, double hi ) {
+        int ilo = lowerBound( lo );
+        int ihi = upperBound( hi );
+        int n = Math.max( 0, ihi - ilo );
+        int[] irows = new int[ n ];
+        IntBuffer rows = rows_.duplicate();
+        rows.position( ilo );
+        rows.get( irows );
+        Arrays.sort( irows );
+        long[] lrows = new long[ n ];
+        for ( int i = 0; i < n; i++ ) {
+            lrows[ i ] = irows[ i ];
+        }
+        return lrows;
+    }
+
+    /**
+     * Returns the position of the first entry not less than a given value.
+     *
+     * @param  value  value
+     * @return  entry index
+     */
+    private int lowerBound( double value ) {
+        int lo = 0;
+        int hi = nent_;
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( values_.get( mid ) < value ) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the position of the first entry greater than a given value.
+     *
+     * @param  value  value
+     * @return  entry index
+     */
+    private int upperBound( double value ) {
+        int lo = 0;
+        int hi = nent_;
+        while ( lo < hi ) {
+            int mid = ( lo + hi ) >>> 1;
+            if ( values_.get( mid ) <= value ) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Indicates whether a table is of a kind that can have indices
+     * associated with it.  This is true only for tables which have been
+     * read directly from a local file, and which have no more than
+     * {@link #MAX_ROWS} rows.
+     *
+     * @param  table  table
+     * @return  true iff index sidecar files may exist for the table
+     */
+    public static boolean isIndexable( StarTable table ) {
+        return table.getRowCount() <= MAX_ROWS
+            && getDataFile( table ) != null;
+    }
+
+    /**
+     * Returns the file in which the index for a given column of a table
+     * would be stored.  The table must have been read directly from
+     * a local file; if not, null is returned.
+     *
+     * @param  table  table
+     * @param  colName  column name
+     * @return  sidecar file location, or null
+     */
+    public static File getIndexFile( StarTable table, String colName ) {
+        File dataFile = getDataFile( table );
+        if ( dataFile == null ) {
+            return null;
+        }
+        String ref = table.getURL().getRef();
+        StringBuffer sbuf = new StringBuffer( dataFile.getPath() );
+        if ( ref != null && ref.trim().length() > 0 ) {
+            sbuf.append( '-' )
+                .append( sanitise( ref ) );
+        }
+        sbuf.append( '.' )
+            .append( sanitise( colName ) )
+            .append( SUFFIX );
+        return new File( sbuf.toString() );
+    }
+
+    /**
+     * Reads the index for a given column of a table, if one exists
+     * and is up to date.
+     *
+     * @param  table  table
+     * @param  icol   column index
+     * @return   index, or null if none is available
+     */
+    public static ColumnIndex readIndex( StarTable table, int icol )
+            throws IOException {
+        String colName = table.getColumnInfo( icol ).getName();
+        File idxFile = getIndexFile( table, colName );
+        if ( idxFile == null || ! idxFile.isFile() ) {
+            return null;
+        }
+        File dataFile = getDataFile( table );
+        ByteBuffer buf;
+        try ( RandomAccessFile raf = new RandomAccessFile( idxFile, "r" ) ) {
+            buf = raf.getChannel()
+                     .map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+        }
+        byte[] magic = new byte[ MAGIC.length ];
+        buf.get( magic );
+        if ( ! Arrays.equals( magic, MAGIC ) ) {
+            logger_.warning( "Not an index file: " + idxFile );
+            return null;
+        }
+        byte[] utf = new byte[ 2 + ( buf.getShort( buf.position() )
+                                     & 0xffff ) ];
+        buf.get( utf );
+        String idxName =
+            new DataInputStream( new ByteArrayInputStream( utf ) ).readUTF();
+        long dataLeng = buf.getLong();
+        long dataTime = buf.getLong();
+        long nrow = buf.getLong();
+        int nent = buf.getInt();
+        if ( ! idxName.equals( colName ) ||
+             dataLeng != dataFile.length() ||
+             dataTime != dataFile.lastModified() ||
+             nrow != table.getRowCount() ) {
+            logger_.info( "Ignoring out of date index " + idxFile );
+            return null;
+        }
+        buf.position( align8( buf.position() ) );
+        DoubleBuffer values = buf.slice().asDoubleBuffer();
+        values.limit( nent );
+        buf.position( buf.position() + 8 * nent );
+        IntBuffer rows = buf.slice().asIntBuffer();
+        rows.limit( nent );
+        return new ColumnIndex( colName, nrow, nent, values, rows );
+    }
+
+    /**
+     * Builds an index for a given column of a table and writes it to
+     * the appropriate sidecar file.
+     *
+     * @param  table  table, which must have been read from a local file
+     *                and have no more than {@link #MAX_ROWS} rows
+     * @param  icol   index of a numeric column
+     * @return   file written
+     */
+    public static File writeIndex( StarTable table, int icol )
+            throws IOException {
+        ColumnInfo info = table.getColumnInfo( icol );
+        String colName = info.getName();
+        if ( ! Number.class.isAssignableFrom( info.getContentClass() ) ) {
+            throw new IOException( "Column " + colName + " is not numeric" );
+        }
+        File idxFile = getIndexFile( table, colName );
+        if ( idxFile == null ) {
+            throw new IOException( "Table not read directly from local file" );
+        }
+        File dataFile = getDataFile( table );
+        long lnrow = table.getRowCount();
+        if ( lnrow > MAX_ROWS ) {
+            throw new IOException( "Table too large to index (" + lnrow
+                                 + " > " + MAX_ROWS + " rows)" );
+        }
+        int nrow = Tables.checkedLongToInt( lnrow );
+
+        /* Read the column values. */
+        double[] values = new double[ nrow ];
+        try ( RowSequence rseq = table.getRowSequence() ) {
+            for ( int ir = 0; ir < nrow; ir++ ) {
+                if ( ! rseq.next() ) {
+                    throw new IOException( "Too few rows" );
+                }
+                Object value = rseq.getCell( icol );
+                values[ ir ] = value instanceof Number
+                             ? ((Number) value).doubleValue()
+                             : Double.NaN;
+            }
+        }
+
+        /* Sort the row indices by value. */
+        int[] irows = sortRows( table, icol, values );
+        int nent = 0;
+        for ( int ir : irows ) {
+            if ( ! Double.isNaN( values[ ir ] ) ) {
+                irows[ nent++ ] = ir;
+            }
+        }
+
+        /* Write the index to a temporary file and then move it into place,
+         * so that readers never see a partial index. */
+        File tmpFile = new File( idxFile.getPath() + ".tmp" );
+        try ( DataOutputStream out =
+                  new DataOutputStream(
+                      new BufferedOutputStream(
+                          new FileOutputStream( tmpFile ) ) ) ) {
+            out.write( MAGIC );
+            out.writeUTF( colName );
+            out.writeLong( dataFile.length() );
+            out.writeLong( dataFile.lastModified() );
+            out.writeLong( nrow );
+            out.writeInt( nent );
+            while ( out.size() % 8 != 0 ) {
+                out.write( 0 );
+            }
+            for ( int i = 0; i < nent; i++ ) {
+                out.writeDouble( values[ irows[ i ] ] );
+            }
+            for ( int i = 0; i < nent; i++ ) {
+                out.writeInt( irows[ i ] );
+            }
+        }
+        if ( ! tmpFile.renameTo( idxFile ) ) {
+            idxFile.delete();
+            if ( ! tmpFile.renameTo( idxFile ) ) {
+                tmpFile.delete();
+                throw new IOException( "Failed to write " + idxFile );
+            }
+        }
+        return idxFile;
+    }
+
+    /**
+     * Returns the row indices of a table sorted by the values in
+     * a given column.
+     *
+     * @param  table  table
+     * @param  icol   column index
+     * @param  values  values of column as doubles
+     * @return  row indices sorted by value, blanks last
+     */
+    private static int[] sortRows( StarTable table, int icol, double[] values )
+            throws IOException {
+        int nrow = values.length;
+        NumericSorter sorter =
+            NumericSorter.createSorter( table,
+                                        new String[] { "$" + ( icol + 1 ) },
+                                        true, true, true );
+        long[] lrows = sorter == null ? null : sorter.sortRows();
+        int[] irows = new int[ nrow ];
+        if ( lrows != null ) {
+            for ( int i = 0; i < nrow; i++ ) {
+                irows[ i ] = (int) lrows[ i ];
+            }
+        }
+        else {
+            Integer[] boxRows = new Integer[ nrow ];
+            for ( int i = 0; i < nrow; i++ ) {
+                boxRows[ i ] = Integer.valueOf( i );
+            }
+            Arrays.sort( boxRows,
+                         ( r1, r2 ) -> Double.compare( values[ r1 ],
+                                                       values[ r2 ] ) );
+            for ( int i = 0; i < nrow; i++ ) {
+                irows[ i ] = boxRows[ i ].intValue();
+            }
+        }
+        return irows;
+    }
+
+    /**
+     * Returns the local file from which a table was read.
+     * The table must not be a wrapper, since in that case its data
+     * may not correspond to the file contents.
+     *
+     * @param  table  table
+     * @return  data file, or null if there is none
+     */
+    private static File getDataFile( StarTable table ) {
+        if ( table instanceof WrapperStarTable ) {
+            return null;
+        }
+        URL url = table.getURL();
+        if ( url == null || ! "file".equals( url.getProtocol() ) ) {
+            return null;
+        }
+        try {
+            URL fileUrl = new URL( url.getProtocol(), url.getHost(),
+                                   url.getPort(), url.getFile() );
+            File file = URLUtils.urlToFile( fileUrl.toString() );
+            return file != null && file.isFile() ? file : null;
+        }
+        catch ( MalformedURLException e ) {
+            return null;
+        }
+    }
+
+    /**
+     * Turns a string into something that can be used as part of
+     * a file name.
+     *
+     * @param  txt  input string
+     * @return  string containing only filename-friendly characters
+     */
+    private static String sanitise( String txt ) {
+        return txt.replaceAll( "[^A-Za-z0-9_+-]", "_" );
+    }
+
+    /**
+     * Rounds an offset up to a multiple of 8.
+     *
+     * @param  off  offset
+     * @return  aligned offset
+     */
+    private static int align8( int off ) {
+        return ( off + 7 ) & ~7;
+    }
+}
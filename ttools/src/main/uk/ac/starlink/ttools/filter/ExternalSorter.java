@@ -0,0 +1,676 @@
+package uk.ac.starlink.ttools.filter;
+
+import gnu.jel.CompilationException;
+import gnu.jel.CompiledExpression;
+import gnu.jel.Library;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.AccessRowSequence;
+import uk.ac.starlink.table.ByteStore;
+import uk.ac.starlink.table.RowAccess;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.table.WrapperStarTable;
+import uk.ac.starlink.table.storage.ByteStoreAccess;
+import uk.ac.starlink.table.storage.NioByteStoreAccess;
+import uk.ac.starlink.ttools.jel.JELUtils;
+import uk.ac.starlink.ttools.jel.SequentialJELRowReader;
+
+/**
+ * Sorts the rows of a table by the values of one or more JEL expressions
+ * using an external merge sort.
+ * Sort keys are evaluated in a single sequential pass through the table,
+ * and written out in sorted runs of limited size, along with the
+ * corresponding row indices, to byte stores obtained from a
+ * {@link uk.ac.starlink.table.StoragePolicy}.
+ * The runs are then k-way merged to give the sorted sequence of
+ * row indices, which is itself written to a byte store,
+ * and the runs are discarded.
+ * The sorted table is a random-access view of the input table
+ * through that index.
+ * Neither the memory required nor the number of rows that can be handled
+ * is therefore limited by the size of a java array.
+ * Closing the sorted table releases the index store.
+ *
+ * <p>Sort key values must be <code>null</code>, or of one of the
+ * wrapper types for the primitive numeric types, <code>Boolean</code>,
+ * <code>Character</code> or <code>String</code>.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class ExternalSorter {
+
+    private final StoragePolicy storage_;
+    private final Comparator<KeyedRow> comparator_;
+    private final boolean isParallel_;
+
+    /**
+     * Name of system property giving the largest number of rows that
+     * will be sorted in memory; larger tables are sorted externally.
+     * If not set, a value is used that allows the in-memory sort
+     * to occupy up to about half the maximum heap size.
+     */
+    public static final String MAXMEM_PROP = "ttools.sort.maxmemrows";
+
+    /**
+     * Approximate number of heap bytes used per row by an in-memory sort.
+     * This is an overestimate for numeric keys, and roughly right for
+     * a sort on a single object-valued key.
+     */
+    private static final int BYTES_PER_ROW = 48;
+
+    /** Largest number of rows in a single sorted run. */
+    private static final int MAX_RUN_SIZE = 1 << 20;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.filter" );
+
+    /* Type tags for serialized key values. */
+    private static final byte T_NULL = 0;
+    private static final byte T_BOOLEAN = 1;
+    private static final byte T_BYTE = 2;
+    private static final byte T_SHORT = 3;
+    private static final byte T_INT = 4;
+    private static final byte T_LONG = 5;
+    private static final byte T_FLOAT = 6;
+    private static final byte T_DOUBLE = 7;
+    private static final byte T_CHAR = 8;
+    private static final byte T_STRING = 9;
+
+    /**
+     * Constructor.
+     *
+     * @param  storage  storage policy for sorted runs
+     * @param  comparator  defines the required order of rows;
+     *                     it should give a total ordering, typically
+     *                     by using the row index to break ties
+     * @param  isParallel  true to sort each run using multiple threads
+     */
+    public ExternalSorter( StoragePolicy storage,
+                           Comparator<KeyedRow> comparator,
+                           boolean isParallel ) {
+        storage_ = storage;
+        comparator_ = comparator;
+        isParallel_ = isParallel;
+    }
+
+    /**
+     * Returns a table containing a contiguous sequence of rows from
+     * a sorted version of a given table.
+     * The returned table provides random access, and its
+     * {@link uk.ac.starlink.table.StarTable#close close} method
+     * releases the storage used for the sorted row index.
+     *
+     * @param  table  random-access input table
+     * @param  keyExprs  JEL expressions for sort keys,
+     *                   most significant first
+     * @param  skip   number of rows at the start of the sorted sequence
+     *                to omit from the output
+     * @param  count  number of rows to include in the output
+     * @return  table containing sorted rows
+     */
+    public StarTable sortTable( StarTable table, String[] keyExprs,
+                                long skip, long count )
+            throws IOException {
+        long maxrows = getMaxMemoryRows();
+        int runSize = (int) Math.max( 2, Math.min( maxrows / 2,
+                                                   MAX_RUN_SIZE ) );
+        List<Run> runs = writeRuns( table, keyExprs, runSize );
+        logger_.info( "External sort: " + runs.size() + " runs of "
+                    + "up to " + runSize + " rows" );
+        ByteStore indexStore;
+        try {
+            indexStore = mergeRuns( runs, keyExprs.length, skip, count );
+        }
+        finally {
+            for ( Run run : runs ) {
+                run.store_.close();
+            }
+        }
+        return new IndexedTable( table, indexStore, count );
+    }
+
+    /**
+     * Returns the largest number of rows that should be sorted in memory.
+     *
+     * @return   maximum in-memory sort size
+     * @see   #MAXMEM_PROP
+     */
+    public static long getMaxMemoryRows() {
+        long dflt = Math.min( Runtime.getRuntime().maxMemory()
+                              / ( 2 * BYTES_PER_ROW ),
+                              Integer.MAX_VALUE - 8 );
+        String maxStr;
+        try {
+            maxStr = System.getProperty( MAXMEM_PROP );
+        }
+        catch ( SecurityException e ) {
+            maxStr = null;
+        }
+        if ( maxStr != null && maxStr.trim().length() > 0 ) {
+            try {
+                return Math.min( Long.parseLong( maxStr.trim() ),
+                                 Integer.MAX_VALUE - 8 );
+            }
+            catch ( NumberFormatException e ) {
+                logger_.warning( "Bad value \"" + maxStr + "\" for "
+                               + MAXMEM_PROP );
+            }
+        }
+        return dflt;
+    }
+
+    /**
+     * Indicates whether a table of a given size should be sorted
+     * externally rather than in memory.
+     *
+     * @param  nrow  number of rows to sort
+     * @return  true iff external sort should be used
+     */
+    public static boolean isExternalRequired( long nrow ) {
+        return nrow > getMaxMemoryRows();
+    }
+
+    /**
+     * Evaluates sort keys for all rows of a table and writes them
+     * in sorted runs.
+     *
+     * @param  table  input table
+     * @param  keyExprs  JEL expressions for sort keys
+     * @param  runSize   maximum number of rows in each run
+     * @return  list of sorted runs
+     */
+    private List<Run> writeRuns( StarTable table, String[] keyExprs,
+                                 int runSize )
+            throws IOException {
+        SequentialJELRowReader rseq = new SequentialJELRowReader( table );
+        Library lib = JELUtils.getLibrary( rseq );
+        int nkey = keyExprs.length;
+        CompiledExpression[] compExs = new CompiledExpression[ nkey ];
+        try {
+            for ( int ik = 0; ik < nkey; ik++ ) {
+                compExs[ ik ] = JELUtils.compile( lib, table, keyExprs[ ik ] );
+            }
+        }
+        catch ( CompilationException e ) {
+            rseq.close();
+            throw (IOException) new IOException( "Bad sort key(s)" )
+                               .initCause( e );
+        }
+        List<Run> runs = new ArrayList<Run>();
+        KeyedRow[] buf = new KeyedRow[ (int) Math.min( runSize,
+                                         Math.max( table.getRowCount(),
+                                                   16 ) ) ];
+        int nbuf = 0;
+        try {
+            while ( rseq.next() ) {
+                Object[] keys = new Object[ nkey ];
+                for ( int ik = 0; ik < nkey; ik++ ) {
+                    try {
+                        keys[ ik ] = rseq.evaluate( compExs[ ik ] );
+                    }
+                    catch ( IOException e ) {
+                        throw e;
+                    }
+                    catch ( Throwable e ) {
+                        throw (IOException)
+                              new IOException( e.getMessage() ).initCause( e );
+                    }
+                }
+                if ( nbuf == buf.length ) {
+                    if ( nbuf < runSize ) {
+                        buf = Arrays.copyOf( buf, Math.min( nbuf * 2,
+                                                            runSize ) );
+                    }
+                    else {
+                        runs.add( writeRun( buf, nbuf, nkey ) );
+                        nbuf = 0;
+                    }
+                }
+                buf[ nbuf++ ] = new KeyedRow( keys, rseq.getCurrentRow() );
+            }
+            if ( nbuf > 0 ) {
+                runs.add( writeRun( buf, nbuf, nkey ) );
+            }
+        }
+        catch ( IOException | RuntimeException | Error e ) {
+            for ( Run run : runs ) {
+                run.store_.close();
+            }
+            throw e;
+        }
+        finally {
+            rseq.close();
+        }
+        return runs;
+    }
+
+    /**
+     * Sorts a buffer of keyed rows and writes them to a new byte store.
+     *
+     * @param  buf  buffer
+     * @param  nrow  number of rows in buffer to use
+     * @param  nkey  number of keys per row
+     * @return   run object containing serialized sorted rows
+     */
+    private Run writeRun( KeyedRow[] buf, int nrow, int nkey )
+            throws IOException {
+        if ( isParallel_ ) {
+            Arrays.parallelSort( buf, 0, nrow, comparator_ );
+        }
+        else {
+            Arrays.sort( buf, 0, nrow, comparator_ );
+        }
+        ByteStore store = storage_.makeByteStore();
+        DataOutputStream out =
+            new DataOutputStream(
+                new BufferedOutputStream( store.getOutputStream() ) );
+        for ( int ir = 0; ir < nrow; ir++ ) {
+            KeyedRow krow = buf[ ir ];
+            buf[ ir ] = null;
+            out.writeLong( krow.getRowIndex() );
+            Object[] keys = krow.getKeys();
+            for ( int ik = 0; ik < nkey; ik++ ) {
+                writeKey( out, keys[ ik ] );
+            }
+        }
+        out.close();
+        return new Run( store, nrow );
+    }
+
+    /**
+     * Merges sorted runs, and writes the row indices of a contiguous
+     * sequence of the merged rows to a new byte store.
+     *
+     * @param  runs  sorted runs covering all rows of the input table
+     * @param  nkey   number of keys per row
+     * @param  skip   number of merged rows to omit from the output
+     * @param  count  number of row indices to write
+     * @return  byte store, writing complete, containing a long
+     *          row index for each of <code>count</code> rows
+     */
+    private ByteStore mergeRuns( List<Run> runs, int nkey,
+                                 long skip, long count )
+            throws IOException {
+
+        /* Prepare a priority queue containing a cursor for each run,
+         * ordered by the cursors' current rows. */
+        PriorityQueue<RunCursor> queue =
+                new PriorityQueue<RunCursor>( Math.max( 1, runs.size() ),
+                                              ( c1, c2 ) -> {
+            int c = comparator_.compare( c1.row_, c2.row_ );
+            return c == 0 ? Integer.compare( c1.irun_, c2.irun_ ) : c;
+        } );
+        int irun = 0;
+        for ( Run run : runs ) {
+            RunCursor cursor = new RunCursor( run, irun++, nkey );
+            if ( cursor.next() ) {
+                queue.add( cursor );
+            }
+        }
+
+        /* Pull rows off the queue in order, writing the row indices
+         * of those in the requested range. */
+        ByteStore store = storage_.makeByteStore();
+        DataOutputStream out =
+            new DataOutputStream(
+                new BufferedOutputStream( store.getOutputStream() ) );
+        try {
+            long iseq = -skip;
+            while ( iseq < count && ! queue.isEmpty() ) {
+                RunCursor cursor = queue.poll();
+                long irow = cursor.row_.getRowIndex();
+                if ( cursor.next() ) {
+                    queue.add( cursor );
+                }
+                if ( iseq++ >= 0 ) {
+                    out.writeLong( irow );
+                }
+            }
+            if ( iseq < count ) {
+                throw new IOException( "Sorted runs too short" );
+            }
+            out.close();
+        }
+        catch ( IOException | RuntimeException | Error e ) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    /**
+     * Serializes a key value.
+     *
+     * @param  out  destination stream
+     * @param  value  key value
+     */
+    private static void writeKey( DataOutputStream out, Object value )
+            throws IOException {
+        if ( value == null ) {
+            out.writeByte( T_NULL );
+        }
+        else if ( value instanceof Double ) {
+            out.writeByte( T_DOUBLE );
+            out.writeDouble( ((Double) value).doubleValue() );
+        }
+        else if ( value instanceof Float ) {
+            out.writeByte( T_FLOAT );
+            out.writeFloat( ((Float) value).floatValue() );
+        }
+        else if ( value instanceof Long ) {
+            out.writeByte( T_LONG );
+            out.writeLong( ((Long) value).longValue() );
+        }
+        else if ( value instanceof Integer ) {
+            out.writeByte( T_INT );
+            out.writeInt( ((Integer) value).intValue() );
+        }
+        else if ( value instanceof Short ) {
+            out.writeByte( T_SHORT );
+            out.writeShort( ((Short) value).shortValue() );
+        }
+        else if ( value instanceof Byte ) {
+            out.writeByte( T_BYTE );
+            out.writeByte( ((Byte) value).byteValue() );
+        }
+        else if ( value instanceof Boolean ) {
+            out.writeByte( T_BOOLEAN );
+            out.writeBoolean( ((Boolean) value).booleanValue() );
+        }
+        else if ( value instanceof Character ) {
+            out.writeByte( T_CHAR );
+            out.writeChar( ((Character) value).charValue() );
+        }
+        else if ( value instanceof String ) {
+            byte[] bytes = ((String) value).getBytes( StandardCharsets.UTF_8 );
+            out.writeByte( T_STRING );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+        else {
+            throw new IOException( "Can't sort large table on key type "
+                                 + value.getClass().getName() );
+        }
+    }
+
+    /**
+     * Deserializes a key value.
+     *
+     * @param  in  source of bytes written by <code>writeKey</code>
+     * @return  key value
+     */
+    private static Object readKey( ByteStoreAccess in ) throws IOException {
+        byte type = in.readByte();
+        switch ( type ) {
+            case T_NULL:
+                return null;
+            case T_DOUBLE:
+                return new Double( in.readDouble() );
+            case T_FLOAT:
+                return new Float( in.readFloat() );
+            case T_LONG:
+                return new Long( in.readLong() );
+            case T_INT:
+                return new Integer( in.readInt() );
+            case T_SHORT:
+                return new Short( in.readShort() );
+            case T_BYTE:
+                return new Byte( in.readByte() );
+            case T_BOOLEAN:
+                return Boolean.valueOf( in.readByte() != 0 );
+            case T_CHAR:
+                return new Character( in.readChar() );
+            case T_STRING:
+                byte[] bytes = new byte[ in.readInt() ];
+                in.readBytes( bytes, 0, bytes.length );
+                return new String( bytes, StandardCharsets.UTF_8 );
+            default:
+                throw new IOException( "Bad key type tag " + type );
+        }
+    }
+
+    /**
+     * Aggregates the sort key values for a table row and its row index.
+     */
+    public static class KeyedRow {
+        private final Object[] keys_;
+        private final long irow_;
+
+        /**
+         * Constructor.
+         *
+         * @param  keys  sort key values
+         * @param  irow  row index
+         */
+        public KeyedRow( Object[] keys, long irow ) {
+            keys_ = keys;
+            irow_ = irow;
+        }
+
+        /**
+         * Returns the sort key values.
+         *
+         * @return  key array, most significant first
+         */
+        public Object[] getKeys() {
+            return keys_;
+        }
+
+        /**
+         * Returns the row index.
+         *
+         * @return  index of row in input table
+         */
+        public long getRowIndex() {
+            return irow_;
+        }
+    }
+
+    /**
+     * Represents a sorted run of keyed rows stored in a byte store.
+     */
+    private static class Run {
+        final ByteStore store_;
+        final long nrow_;
+        ByteBuffer[] bufs_;
+
+        /**
+         * Constructor.
+         *
+         * @param  store  byte store containing serialized keyed rows,
+         *                writing complete
+         * @param  nrow   number of rows stored
+         */
+        Run( ByteStore store, long nrow ) {
+            store_ = store;
+            nrow_ = nrow;
+        }
+
+        /**
+         * Returns a new reader for the contents of this run.
+         *
+         * @return  reader positioned at the start of the run
+         */
+        synchronized ByteStoreAccess createAccess() throws IOException {
+            if ( bufs_ == null ) {
+                bufs_ = store_.toByteBuffers();
+            }
+            return NioByteStoreAccess
+                  .createAccess( NioByteStoreAccess.copyBuffers( bufs_ ) );
+        }
+    }
+
+    /**
+     * Reads keyed rows in sequence from a run.
+     */
+    private static class RunCursor {
+        final int irun_;
+        final int nkey_;
+        final ByteStoreAccess in_;
+        long nleft_;
+        KeyedRow row_;
+
+        /**
+         * Constructor.
+         *
+         * @param  run  run to read
+         * @param  irun  index of run, used for ordering ties
+         * @param  nkey  number of keys per row
+         */
+        RunCursor( Run run, int irun, int nkey ) throws IOException {
+            irun_ = irun;
+            nkey_ = nkey;
+            in_ = run.createAccess();
+            nleft_ = run.nrow_;
+        }
+
+        /**
+         * Advances to the next row in the run.
+         *
+         * @return  true iff a new row is available
+         */
+        boolean next() throws IOException {
+            if ( nleft_ > 0 ) {
+                nleft_--;
+                long irow = in_.readLong();
+                Object[] keys = new Object[ nkey_ ];
+                for ( int ik = 0; ik < nkey_; ik++ ) {
+                    keys[ ik ] = readKey( in_ );
+                }
+                row_ = new KeyedRow( keys, irow );
+                return true;
+            }
+            else {
+                row_ = null;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Random-access table which presents the rows of a random-access
+     * base table in an order given by a list of base table row indices
+     * held in a byte store.
+     */
+    private static class IndexedTable extends WrapperStarTable {
+        private final ByteStore indexStore_;
+        private final ByteBuffer[] bufs_;
+        private final long nrow_;
+        private final ByteStoreAccess access_;
+
+        /**
+         * Constructor.
+         *
+         * @param  baseTable  random-access table supplying row data
+         * @param  indexStore  byte store, writing complete, containing
+         *                     a long base table row index for each row
+         *                     of this table
+         * @param  nrow   number of rows in this table
+         */
+        IndexedTable( StarTable baseTable, ByteStore indexStore, long nrow )
+                throws IOException {
+            super( baseTable );
+            indexStore_ = indexStore;
+            bufs_ = indexStore.toByteBuffers();
+            nrow_ = nrow;
+            access_ = createIndexAccess();
+        }
+
+        @Override
+        public long getRowCount() {
+            return nrow_;
+        }
+
+        @Override
+        public boolean isRandom() {
+            return true;
+        }
+
+        @Override
+        public Object getCell( long irow, int icol ) throws IOException {
+            return baseTable.getCell( getBaseIndex( irow ), icol );
+        }
+
+        @Override
+        public Object[] getRow( long irow ) throws IOException {
+            return baseTable.getRow( getBaseIndex( irow ) );
+        }
+
+        @Override
+        public RowAccess getRowAccess() throws IOException {
+            final ByteStoreAccess indexAccess = createIndexAccess();
+            final RowAccess baseAcc = baseTable.getRowAccess();
+            return new RowAccess() {
+                public void setRowIndex( long irow ) throws IOException {
+                    indexAccess.seek( irow * 8 );
+                    baseAcc.setRowIndex( indexAccess.readLong() );
+                }
+                public Object getCell( int icol ) throws IOException {
+                    return baseAcc.getCell( icol );
+                }
+                public Object[] getRow() throws IOException {
+                    return baseAcc.getRow();
+                }
+                public void close() throws IOException {
+                    baseAcc.close();
+                }
+            };
+        }
+
+        @Override
+        public RowSequence getRowSequence() throws IOException {
+            return AccessRowSequence.createInstance( this );
+        }
+
+        @Override
+        public RowSplittable getRowSplittable() throws IOException {
+            return Tables.getDefaultRowSplittable( this );
+        }
+
+        /**
+         * Releases the index store as well as the base table.
+         */
+        @Override
+        public void close() throws IOException {
+            indexStore_.close();
+            super.close();
+        }
+
+        /**
+         * Returns the base table row index for a row of this table.
+         *
+         * @param  irow  row index in this table
+         * @return  row index in base table
+         */
+        private long getBaseIndex( long irow ) throws IOException {
+            synchronized ( access_ ) {
+                access_.seek( irow * 8 );
+                return access_.readLong();
+            }
+        }
+
+        /**
+         * Returns a new reader for the index store.
+         *
+         * @return  index reader
+         */
+        private ByteStoreAccess createIndexAccess() {
+            return NioByteStoreAccess
+                  .createAccess( NioByteStoreAccess.copyBuffers( bufs_ ) );
+        }
+    }
+}
@@ -6,6 +6,8 @@ import gnu.jel.Library;
 import java.io.IOException;
 import java.util.List;
 import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import uk.ac.starlink.table.RowAccess;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.RowSplittable;
@@ -16,6 +18,7 @@ import uk.ac.starlink.table.WrapperRowSequence;
 import uk.ac.starlink.table.WrapperStarTable;
 import uk.ac.starlink.ttools.jel.JELUtils;
 import uk.ac.starlink.ttools.jel.DummyJELRowReader;
+import uk.ac.starlink.ttools.jel.RandomJELRowReader;
 import uk.ac.starlink.ttools.jel.SequentialJELRowReader;
 import uk.ac.starlink.ttools.jel.StarTableJELRowReader;
 
@@ -23,6 +26,11 @@ import uk.ac.starlink.ttools.jel.StarTableJELRowReader;
  * Sequential table which selects rows on the basis of a JEL-interpreted
  * expression.
  *
+ * <p>If the base table has been read from a file for which a
+ * {@link ColumnIndex} exists, and the expression contains a sufficiently
+ * selective range constraint on the indexed column, only the rows
+ * within that range are read, using random access.
+ *
  * @see  uk.ac.starlink.ttools.jel.JELRowReader
  */
 public class JELSelectorTable extends WrapperStarTable {
@@ -30,6 +38,11 @@ public class JELSelectorTable extends WrapperStarTable {
     private final String expr_;
     private final boolean requiresRowIndex_;
     private final StarTable baseTable_;
+    private boolean isPlanned_;
+    private long[] candidateRows_;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.filter" );
 
     /**
      * Construct a table given a base table and a selection expression.
@@ -76,6 +89,10 @@ public class JELSelectorTable extends WrapperStarTable {
     }
 
     public RowSequence getRowSequence() throws IOException {
+        long[] candidateRows = getCandidateRows();
+        if ( candidateRows != null ) {
+            return new IndexedRowSequence( candidateRows );
+        }
         final SequentialJELRowReader jelSeq = 
             new SequentialJELRowReader( baseTable_ );
         final CompiledExpression compEx;
@@ -104,11 +121,32 @@ public class JELSelectorTable extends WrapperStarTable {
     }
 
     public RowSplittable getRowSplittable() throws IOException {
-        return requiresRowIndex_
+        return requiresRowIndex_ || getCandidateRows() != null
              ? new SequentialRowSplittable( this )
              : new JELSelectorRowSplittable( baseTable_.getRowSplittable() );
     }
 
+    /**
+     * Returns the rows of the base table which need to be tested
+     * if an index can be used for this selection.
+     *
+     * @return  sorted candidate row indices, or null for a full scan
+     */
+    private synchronized long[] getCandidateRows() {
+        if ( ! isPlanned_ ) {
+            isPlanned_ = true;
+            try {
+                candidateRows_ =
+                    SelectionPlanner.getCandidateRows( baseTable_, expr_ );
+            }
+            catch ( IOException e ) {
+                logger_.log( Level.WARNING,
+                             "Index unusable, scanning table", e );
+            }
+        }
+        return candidateRows_;
+    }
+
     /**
      * Evaluates a boolean expression in the context of a row reader.
      *
@@ -193,4 +231,64 @@ public class JELSelectorTable extends WrapperStarTable {
             return false;
         }
     }
+
+    /**
+     * RowSequence which tests only an explicit list of candidate rows
+     * from the base table.
+     */
+    private class IndexedRowSequence implements RowSequence {
+
+        final long[] irows_;
+        final RowAccess racc_;
+        final RandomJELRowReader rdr_;
+        final CompiledExpression compEx_;
+        int ix_;
+
+        /**
+         * Constructor.
+         *
+         * @param  irows  sorted row indices of base table rows to test
+         */
+        IndexedRowSequence( long[] irows ) throws IOException {
+            irows_ = irows;
+            racc_ = baseTable_.getRowAccess();
+            rdr_ = RandomJELRowReader.createAccessReader( baseTable_, racc_ );
+            try {
+                compEx_ = JELUtils.compile( JELUtils.getLibrary( rdr_ ),
+                                            baseTable_, expr_, boolean.class );
+            }
+            catch ( CompilationException e ) {
+                throw JELUtils.toIOException( e, expr_ );
+            }
+            ix_ = -1;
+        }
+
+        public boolean next() throws IOException {
+            while ( ++ix_ < irows_.length ) {
+                final Object result;
+                try {
+                    result = rdr_.evaluateAtRow( compEx_, irows_[ ix_ ] );
+                }
+                catch ( Throwable e ) {
+                    throw new IOException( "Evaluation error", e );
+                }
+                if ( Boolean.TRUE.equals( result ) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public Object getCell( int icol ) throws IOException {
+            return racc_.getCell( icol );
+        }
+
+        public Object[] getRow() throws IOException {
+            return racc_.getRow();
+        }
+
+        public void close() throws IOException {
+            racc_.close();
+        }
+    }
 }
@@ -0,0 +1,594 @@
+package uk.ac.starlink.ttools.filter;
+
+import gnu.jel.CompilationException;
+import gnu.jel.CompiledExpression;
+import gnu.jel.Library;
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import uk.ac.starlink.table.RowCollector;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.table.RowSplittable;
+import uk.ac.starlink.table.SequentialRowSplittable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.Tables;
+import uk.ac.starlink.ttools.jel.DummyJELRowReader;
+import uk.ac.starlink.ttools.jel.JELUtils;
+import uk.ac.starlink.ttools.jel.SequentialJELRowReader;
+
+/**
+ * Sorts table rows on sort keys which are all numeric.
+ *
+ * <p>Rather than comparing boxed cell values for every comparison,
+ * this evaluates each key once per row, encodes it as a primitive
+ * long whose unsigned ordering is the required collation order
+ * (taking account of direction and of blank value placement),
+ * and then performs a stable LSD radix sort on row indices.
+ * Key evaluation is done using a {@link RowRunner},
+ * and the radix passes can be done in parallel.
+ *
+ * <p>The resulting ordering is identical to that of the generic
+ * comparison-based sort in {@link SortFilter}: blank values (null or NaN)
+ * collate together at the start or end, <code>-0.0</code> sorts before
+ * <code>+0.0</code>, and rows with equal keys retain their input order.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class NumericSorter {
+
+    private final StarTable table_;
+    private final KeyType[] keyTypes_;
+    private final Function<Library,CompiledExpression>[] compilers_;
+    private final boolean up_;
+    private final boolean nullsLast_;
+    private final boolean isParallel_;
+
+    /** Number of bits sorted in each radix pass. */
+    private static final int RADIX_BITS = 8;
+
+    /** Number of buckets in each radix pass. */
+    private static final int NBUCKET = 1 << RADIX_BITS;
+
+    /** Number of radix passes required for a 64-bit key. */
+    private static final int NPASS = 64 / RADIX_BITS;
+
+    /** Minimum number of rows per chunk for parallel radix passes. */
+    private static final int MIN_CHUNK = 1 << 16;
+
+    /**
+     * Constructor.
+     *
+     * @param  table  random-access table whose rows are to be sorted
+     * @param  keyTypes  numeric type of each key
+     * @param  compilers  compiler for each key expression
+     * @param  up  true for ascending order, false for descending
+     * @param  nullsLast  true if blank values should be considered
+     *         last in the collation order, false if they should
+     *         be considered first
+     * @param  isParallel  true to use multiple threads
+     */
+    private NumericSorter( StarTable table, KeyType[] keyTypes,
+                           Function<Library,CompiledExpression>[] compilers,
+                           boolean up, boolean nullsLast,
+                           boolean isParallel ) {
+        table_ = table;
+        keyTypes_ = keyTypes;
+        compilers_ = compilers;
+        up_ = up;
+        nullsLast_ = nullsLast;
+        isParallel_ = isParallel;
+    }
+
+    /**
+     * Returns a sorter for the given sort keys if they are all numeric.
+     * If any of the keys is non-numeric or cannot be compiled,
+     * null is returned, and the caller should use a generic sort instead.
+     *
+     * @param  table  random-access table whose rows are to be sorted
+     * @param  keyExprs  JEL expressions for sort keys,
+     *                   most significant first
+     * @param  up  true for ascending order, false for descending
+     * @param  nullsLast  true if blank values should be considered
+     *         last in the collation order, false if they should
+     *         be considered first
+     * @param  isParallel  true to use multiple threads
+     * @return  sorter, or null
+     */
+    public static NumericSorter createSorter( StarTable table,
+                                              String[] keyExprs, boolean up,
+                                              boolean nullsLast,
+                                              boolean isParallel ) {
+        int nkey = keyExprs.length;
+        KeyType[] keyTypes = new KeyType[ nkey ];
+        @SuppressWarnings("unchecked")
+        Function<Library,CompiledExpression>[] compilers =
+            (Function<Library,CompiledExpression>[]) new Function<?,?>[ nkey ];
+        for ( int ik = 0; ik < nkey; ik++ ) {
+            Function<Library,CompiledExpression> compiler;
+            try {
+                compiler = JELUtils.compiler( table, keyExprs[ ik ], null );
+            }
+            catch ( CompilationException e ) {
+                return null;
+            }
+            Library lib =
+                JELUtils.getLibrary( new DummyJELRowReader( table ) );
+            KeyType keyType =
+                KeyType.forClass( compiler.apply( lib ).getTypeC() );
+            if ( keyType == null ) {
+                return null;
+            }
+            keyTypes[ ik ] = keyType;
+            compilers[ ik ] = compiler;
+        }
+        return new NumericSorter( table, keyTypes, compilers, up, nullsLast,
+                                  isParallel );
+    }
+
+    /**
+     * Performs the sort.
+     * In the unusual case that a long integer key contains both blank
+     * values and the extreme values of the long type,
+     * there is no way to encode blanks distinctly, and this method
+     * returns null; the caller should use a generic sort instead.
+     *
+     * @return  row map giving the input row index for each output row,
+     *          or null if this sorter cannot do the job
+     */
+    public long[] sortRows() throws IOException {
+        int nrow = Tables.checkedLongToInt( table_.getRowCount() );
+        int nkey = keyTypes_.length;
+
+        /* Evaluate all the keys for all rows. */
+        KeyCollector collector = new KeyCollector( nrow );
+        RowRunner runner = isParallel_ ? RowRunner.DEFAULT
+                                       : RowRunner.SEQUENTIAL;
+        RowSplittable split = runner.createRowSplittable( table_ );
+        if ( split.rowIndex() == null ) {
+            split.close();
+            runner = RowRunner.SEQUENTIAL;
+            split = new SequentialRowSplittable( table_ );
+        }
+        KeyFlags flags = runner.collect( collector, split );
+        for ( int ik = 0; ik < nkey; ik++ ) {
+            if ( flags.hasBlank_[ ik ] && flags.hasExtreme_[ ik ] ) {
+                return null;
+            }
+        }
+
+        /* Do a least significant digit radix sort, starting with the
+         * least significant key.  Since each pass is stable,
+         * the result is ordered by all the keys, with ties left in
+         * original row order. */
+        long[][] keyVals = collector.keyVals_;
+        int[] index = null;
+        int[] index2 = new int[ nrow ];
+        long[] vals2 = new long[ nrow ];
+        for ( int ik = nkey - 1; ik >= 0; ik-- ) {
+            long[] vals = keyVals[ ik ];
+            keyVals[ ik ] = null;
+
+            /* Work out which of the radix passes actually discriminate
+             * between keys; this is independent of row order. */
+            boolean[] isTrivial = getTrivialPasses( vals );
+
+            /* Arrange the key values in the current row order.
+             * For the first key processed the order is just the
+             * input order. */
+            if ( index == null ) {
+                index = new int[ nrow ];
+                for ( int ir = 0; ir < nrow; ir++ ) {
+                    index[ ir ] = ir;
+                }
+            }
+            else {
+                final int[] index0 = index;
+                final long[] vals0 = vals;
+                final long[] gathered = vals2;
+                forEachChunk( nrow, ( ilo, ihi ) -> {
+                    for ( int ir = ilo; ir < ihi; ir++ ) {
+                        gathered[ ir ] = vals0[ index0[ ir ] ];
+                    }
+                } );
+                vals2 = vals;
+                vals = gathered;
+            }
+
+            /* Do the radix passes, swapping buffers each time. */
+            for ( int ipass = 0; ipass < NPASS; ipass++ ) {
+                if ( ! isTrivial[ ipass ] ) {
+                    radixPass( ipass * RADIX_BITS, vals, index, vals2, index2 );
+                    long[] vswap = vals;
+                    vals = vals2;
+                    vals2 = vswap;
+                    int[] iswap = index;
+                    index = index2;
+                    index2 = iswap;
+                }
+            }
+        }
+
+        /* Return the result as a row map. */
+        long[] rowMap = new long[ nrow ];
+        for ( int ir = 0; ir < nrow; ir++ ) {
+            rowMap[ ir ] = index[ ir ];
+        }
+        return rowMap;
+    }
+
+    /**
+     * Encodes a floating point key value as a long whose unsigned
+     * ordering is the required collation order.
+     *
+     * @param  dval  key value, NaN for blank
+     * @return  encoded key
+     */
+    private long encodeDouble( double dval ) {
+        final long sval;
+        if ( Double.isNaN( dval ) ) {
+            sval = nullsLast_ ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        else {
+
+            /* Manipulate the IEEE 754 bits so that signed long ordering
+             * matches Double.compare ordering.  Positive values are
+             * already in order; negative values need their magnitude
+             * bits inverting.  No non-NaN value maps to either of
+             * the extreme long values. */
+            long bits = Double.doubleToLongBits( dval );
+            sval = bits ^ ( ( bits >> 63 ) & Long.MAX_VALUE );
+        }
+        return encodeSigned( sval );
+    }
+
+    /**
+     * Encodes an integer key value as a long whose unsigned
+     * ordering is the required collation order.
+     *
+     * @param  value  key value, or null for blank
+     * @return  encoded key
+     */
+    private long encodeInteger( Number value ) {
+        final long sval;
+        if ( value == null ) {
+            sval = nullsLast_ ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        else {
+            sval = value.longValue();
+        }
+        return encodeSigned( sval );
+    }
+
+    /**
+     * Converts a long value whose signed ordering is ascending
+     * to one whose unsigned ordering is the required collation order.
+     *
+     * @param  sval  signed value
+     * @return  unsigned value
+     */
+    private long encodeSigned( long sval ) {
+        return ( up_ ? sval : ~sval ) ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Determines which radix passes can be skipped for a given key array,
+     * because all values have the same digit for that pass.
+     *
+     * @param  vals  key values
+     * @return  NPASS-element array flagging passes that can be skipped
+     */
+    private boolean[] getTrivialPasses( long[] vals ) {
+        int nrow = vals.length;
+        long[] ors = new long[ 1 ];
+        long[] ands = new long[] { -1L };
+        forEachChunk( nrow, ( ilo, ihi ) -> {
+            long or = 0L;
+            long and = -1L;
+            for ( int ir = ilo; ir < ihi; ir++ ) {
+                long v = vals[ ir ];
+                or |= v;
+                and &= v;
+            }
+            synchronized ( ors ) {
+                ors[ 0 ] |= or;
+                ands[ 0 ] &= and;
+            }
+        } );
+
+        /* Bits which are the same in all values are those which are
+         * set in the AND or unset in the OR. */
+        long varying = ors[ 0 ] & ~ands[ 0 ];
+        boolean[] isTrivial = new boolean[ NPASS ];
+        long mask = NBUCKET - 1;
+        for ( int ipass = 0; ipass < NPASS; ipass++ ) {
+            isTrivial[ ipass ] =
+                ( ( varying >>> ( ipass * RADIX_BITS ) ) & mask ) == 0;
+        }
+        return isTrivial;
+    }
+
+    /**
+     * Performs a single stable radix pass, distributing key/index pairs
+     * into a destination array according to one digit of the key.
+     *
+     * @param  shift  bit offset of the digit in question
+     * @param  srcVals  input key values
+     * @param  srcIndex  input row indices
+     * @param  dstVals  output key values
+     * @param  dstIndex  output row indices
+     */
+    private void radixPass( int shift, long[] srcVals, int[] srcIndex,
+                            long[] dstVals, int[] dstIndex ) {
+        int nrow = srcVals.length;
+        int nchunk = getChunkCount( nrow );
+        int[][] counts = new int[ nchunk ][];
+
+        /* Count digit occurrences in each chunk. */
+        forEachChunk( nrow, nchunk, ( ic, ilo, ihi ) -> {
+            int[] count = new int[ NBUCKET ];
+            for ( int ir = ilo; ir < ihi; ir++ ) {
+                count[ (int) ( srcVals[ ir ] >>> shift ) & ( NBUCKET - 1 ) ]++;
+            }
+            counts[ ic ] = count;
+        } );
+
+        /* Turn the counts into starting offsets for each chunk and bucket,
+         * so that the output is stable. */
+        int off = 0;
+        for ( int ib = 0; ib < NBUCKET; ib++ ) {
+            for ( int ic = 0; ic < nchunk; ic++ ) {
+                int n = counts[ ic ][ ib ];
+                counts[ ic ][ ib ] = off;
+                off += n;
+            }
+        }
+
+        /* Scatter the elements of each chunk into place. */
+        forEachChunk( nrow, nchunk, ( ic, ilo, ihi ) -> {
+            int[] offsets = counts[ ic ];
+            for ( int ir = ilo; ir < ihi; ir++ ) {
+                long v = srcVals[ ir ];
+                int ipos = offsets[ (int) ( v >>> shift ) & ( NBUCKET - 1 ) ]++;
+                dstVals[ ipos ] = v;
+                dstIndex[ ipos ] = srcIndex[ ir ];
+            }
+        } );
+    }
+
+    /**
+     * Returns the number of chunks into which an array should be divided
+     * for processing.
+     *
+     * @param  nrow  array length
+     * @return  chunk count, at least 1
+     */
+    private int getChunkCount( int nrow ) {
+        if ( isParallel_ ) {
+            int npar = Runtime.getRuntime().availableProcessors();
+            return Math.max( 1, Math.min( 4 * npar, nrow / MIN_CHUNK ) );
+        }
+        else {
+            return 1;
+        }
+    }
+
+    /**
+     * Invokes an operation on contiguous chunks of an index range,
+     * possibly in parallel.
+     *
+     * @param  nrow  upper bound of index range
+     * @param  task  task to perform for each chunk
+     */
+    private void forEachChunk( int nrow, RangeTask task ) {
+        forEachChunk( nrow, getChunkCount( nrow ),
+                      ( ic, ilo, ihi ) -> task.run( ilo, ihi ) );
+    }
+
+    /**
+     * Invokes an operation on a given number of contiguous chunks
+     * of an index range, possibly in parallel.
+     *
+     * @param  nrow  upper bound of index range
+     * @param  nchunk  number of chunks
+     * @param  task  task to perform for each chunk
+     */
+    private static void forEachChunk( int nrow, int nchunk,
+                                      ChunkTask task ) {
+        IntStream ics = IntStream.range( 0, nchunk );
+        if ( nchunk > 1 ) {
+            ics = ics.parallel();
+        }
+        ics.forEach( ic -> {
+            int ilo = (int) ( ( (long) nrow * ic ) / nchunk );
+            int ihi = (int) ( ( (long) nrow * ( ic + 1 ) ) / nchunk );
+            task.run( ic, ilo, ihi );
+        } );
+    }
+
+    /**
+     * Operation on an index range.
+     */
+    @FunctionalInterface
+    private interface RangeTask {
+
+        /**
+         * Performs the operation.
+         *
+         * @param  ilo  lower bound of range (inclusive)
+         * @param  ihi  upper bound of range (exclusive)
+         */
+        void run( int ilo, int ihi );
+    }
+
+    /**
+     * Operation on a numbered chunk of an index range.
+     */
+    @FunctionalInterface
+    private interface ChunkTask {
+
+        /**
+         * Performs the operation.
+         *
+         * @param  ichunk  chunk index
+         * @param  ilo  lower bound of range (inclusive)
+         * @param  ihi  upper bound of range (exclusive)
+         */
+        void run( int ichunk, int ilo, int ihi );
+    }
+
+    /**
+     * Classifies the numeric key types.
+     */
+    private enum KeyType {
+
+        /** Primitive double key; blanks are NaNs. */
+        DOUBLE,
+
+        /** Other floating point key; blanks are nulls or NaNs. */
+        FLOATING,
+
+        /** Integer key of at most 32 bits; blanks are nulls. */
+        INT,
+
+        /** Long integer key; blanks are nulls. */
+        LONG;
+
+        /**
+         * Returns the key type for a given expression result class.
+         *
+         * @param  clazz  expression result class, may be primitive
+         * @return  key type, or null if not numeric
+         */
+        static KeyType forClass( Class<?> clazz ) {
+            if ( clazz == double.class ) {
+                return DOUBLE;
+            }
+            clazz = JELUtils.getWrapperType( clazz );
+            if ( clazz == Double.class || clazz == Float.class ) {
+                return FLOATING;
+            }
+            else if ( clazz == Integer.class || clazz == Short.class ||
+                      clazz == Byte.class ) {
+                return INT;
+            }
+            else if ( clazz == Long.class ) {
+                return LONG;
+            }
+            else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Accumulator for key evaluation, recording per-key properties
+     * of the values encountered.
+     */
+    private static class KeyFlags {
+        final boolean[] hasBlank_;
+        final boolean[] hasExtreme_;
+
+        /**
+         * Constructor.
+         *
+         * @param  nkey  number of keys
+         */
+        KeyFlags( int nkey ) {
+            hasBlank_ = new boolean[ nkey ];
+            hasExtreme_ = new boolean[ nkey ];
+        }
+    }
+
+    /**
+     * Collector that evaluates encoded sort keys for each row into
+     * shared arrays.
+     */
+    private class KeyCollector extends RowCollector<KeyFlags> {
+        final long[][] keyVals_;
+
+        /**
+         * Constructor.
+         *
+         * @param  nrow  number of rows in table
+         */
+        KeyCollector( int nrow ) {
+            keyVals_ = new long[ keyTypes_.length ][ nrow ];
+        }
+
+        public KeyFlags createAccumulator() {
+            return new KeyFlags( keyTypes_.length );
+        }
+
+        public KeyFlags combine( KeyFlags flags1, KeyFlags flags2 ) {
+            for ( int ik = 0; ik < keyTypes_.length; ik++ ) {
+                flags1.hasBlank_[ ik ] |= flags2.hasBlank_[ ik ];
+                flags1.hasExtreme_[ ik ] |= flags2.hasExtreme_[ ik ];
+            }
+            return flags1;
+        }
+
+        public void accumulateRows( RowSplittable rseq, KeyFlags flags )
+                throws IOException {
+            SequentialJELRowReader rdr =
+                new SequentialJELRowReader( table_, rseq );
+            Library lib = JELUtils.getLibrary( rdr );
+            int nkey = keyTypes_.length;
+            CompiledExpression[] compExs = new CompiledExpression[ nkey ];
+            for ( int ik = 0; ik < nkey; ik++ ) {
+                compExs[ ik ] = compilers_[ ik ].apply( lib );
+            }
+            LongSupplier rowIndex = rseq.rowIndex();
+            boolean[] hasBlank = flags.hasBlank_;
+            boolean[] hasExtreme = flags.hasExtreme_;
+            while ( rseq.next() ) {
+                int irow = (int) rowIndex.getAsLong();
+                for ( int ik = 0; ik < nkey; ik++ ) {
+                    CompiledExpression compEx = compExs[ ik ];
+                    final long key;
+                    try {
+                        switch ( keyTypes_[ ik ] ) {
+                            case DOUBLE:
+                                key = encodeDouble( rdr
+                                                   .evaluateDouble( compEx ) );
+                                break;
+                            case FLOATING:
+                                Number fval = (Number) rdr.evaluate( compEx );
+                                key = encodeDouble( fval == null
+                                                  ? Double.NaN
+                                                  : fval.doubleValue() );
+                                break;
+                            case INT:
+                                key = encodeInteger( (Number)
+                                                     rdr.evaluate( compEx ) );
+                                break;
+                            case LONG:
+                                Number lval = (Number) rdr.evaluate( compEx );
+                                if ( lval == null ) {
+                                    hasBlank[ ik ] = true;
+                                }
+                                else {
+                                    long l = lval.longValue();
+                                    hasExtreme[ ik ] |= l == Long.MIN_VALUE
+                                                     || l == Long.MAX_VALUE;
+                                }
+                                key = encodeInteger( lval );
+                                break;
+                            default:
+                                throw new AssertionError();
+                        }
+                    }
+                    catch ( IOException e ) {
+                        throw e;
+                    }
+                    catch ( Throwable e ) {
+                        throw (IOException)
+                              new IOException( e.getMessage() ).initCause( e );
+                    }
+                    keyVals_[ ik ][ irow ] = key;
+                }
+            }
+        }
+    }
+}
@@ -25,6 +25,15 @@ public class SelectFilter extends BasicFilter {
             "<code>&lt;expr&gt;</code> must be an expression which",
             "evaluates to a boolean value (true/false).",
             "</p>",
+            "<p>If the input table is a local file for which column indices",
+            "have been written using the",
+            "<ref id='tindex'><code>tindex</code></ref> command,",
+            "and <code>&lt;expr&gt;</code> requires an indexed column",
+            "to lie in a narrow range (for instance",
+            "<code>mag &gt; 12 &amp;&amp; mag &lt; 12.5 &amp;&amp; ...</code>),",
+            "only the rows in that range will be read,",
+            "which can be much faster than scanning the whole table.",
+            "</p>",
             explainSyntax( new String[] { "expr", } ),
         };
     }
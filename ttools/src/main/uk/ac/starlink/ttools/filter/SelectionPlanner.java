@@ -0,0 +1,382 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.ttools.jel.DummyJELRowReader;
+
+/**
+ * Works out whether a row selection expression can make use of
+ * a {@link ColumnIndex} to avoid scanning the whole table.
+ *
+ * <p>The expression is examined for top-level conjuncts of the form
+ * <code>&lt;column&gt; &lt;op&gt; &lt;number&gt;</code>
+ * (or the reverse), where op is one of
+ * <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code>,
+ * <code>&gt;=</code> or <code>==</code>.
+ * If an up to date index exists for one of the columns so constrained,
+ * and the range it implies is sufficiently selective,
+ * the rows within that range are returned as candidates.
+ * The candidate list is always a superset of the rows matching the
+ * expression, so the full expression must still be evaluated on each
+ * candidate row.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class SelectionPlanner {
+
+    /**
+     * Maximum fraction of the table rows that an index range may contain
+     * for it to be worth using in preference to a sequential scan.
+     */
+    public static final double MAX_FRACTION = 0.05;
+
+    private static final double MAX_EXACT_FLOAT_INT = 1 << 24;
+    private static final String IDENT_REGEX = "[A-Za-z_$][A-Za-z0-9_$]*";
+    private static final String NUM_REGEX =
+        "[-+]?(?:[0-9]+\\.?[0-9]*|\\.[0-9]+)(?:[eE][-+]?[0-9]+)?[fFdDlL]?";
+    private static final String OP_REGEX = "<=|>=|==|<|>";
+    private static final Pattern COL_OP_NUM_REGEX =
+        Pattern.compile( "(" + IDENT_REGEX + ")\\s*(" + OP_REGEX + ")\\s*"
+                       + "(" + NUM_REGEX + ")" );
+    private static final Pattern NUM_OP_COL_REGEX =
+        Pattern.compile( "(" + NUM_REGEX + ")\\s*(" + OP_REGEX + ")\\s*"
+                       + "(" + IDENT_REGEX + ")" );
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.filter" );
+
+    /**
+     * Private constructor prevents instantiation.
+     */
+    private SelectionPlanner() {
+    }
+
+    /**
+     * Returns the indices of rows in a table which may match a given
+     * boolean expression, if an index can be used to determine them.
+     *
+     * @param  table  table, which must have random access
+     * @param  expr   boolean JEL expression
+     * @return  sorted array of candidate row indices,
+     *          or null if the whole table must be scanned
+     */
+    public static long[] getCandidateRows( StarTable table, String expr )
+            throws IOException {
+        if ( ! table.isRandom() || table.getRowCount() <= 0 ||
+             ! ColumnIndex.isIndexable( table ) ) {
+            return null;
+        }
+        Map<Integer,double[]> ranges = getColumnRanges( table, expr );
+        long nrow = table.getRowCount();
+        ColumnIndex bestIndex = null;
+        double[] bestRange = null;
+        int bestCount = Integer.MAX_VALUE;
+        for ( Map.Entry<Integer,double[]> entry : ranges.entrySet() ) {
+            ColumnIndex index =
+                ColumnIndex.readIndex( table, entry.getKey().intValue() );
+            if ( index != null ) {
+                double[] range = entry.getValue();
+                int count = index.countRange( range[ 0 ], range[ 1 ] );
+                if ( count < bestCount ) {
+                    bestIndex = index;
+                    bestRange = range;
+                    bestCount = count;
+                }
+            }
+        }
+        if ( bestIndex == null || bestCount > MAX_FRACTION * nrow ) {
+            return null;
+        }
+        logger_.info( "Using index on " + bestIndex.getColumnName()
+                    + " for selection: " + bestCount + "/" + nrow
+                    + " candidate rows" );
+        return bestIndex.getRows( bestRange[ 0 ], bestRange[ 1 ] );
+    }
+
+    /**
+     * Identifies simple range constraints on numeric columns which
+     * must hold for a given expression to be true.
+     *
+     * @param  table  table
+     * @param  expr   boolean JEL expression
+     * @return   map from column index to closed (lo, hi) interval;
+     *           empty if nothing is known
+     */
+    static Map<Integer,double[]> getColumnRanges( StarTable table,
+                                                  String expr ) {
+        Map<Integer,double[]> ranges = new LinkedHashMap<>();
+        List<String> conjuncts = getConjuncts( expr );
+        if ( conjuncts == null ) {
+            return ranges;
+        }
+        DummyJELRowReader rdr = new DummyJELRowReader( table );
+        int ncol = table.getColumnCount();
+        for ( String conj : conjuncts ) {
+            String colName;
+            String op;
+            String num;
+            Matcher cmatcher = COL_OP_NUM_REGEX.matcher( conj );
+            Matcher nmatcher = NUM_OP_COL_REGEX.matcher( conj );
+            if ( cmatcher.matches() ) {
+                colName = cmatcher.group( 1 );
+                op = cmatcher.group( 2 );
+                num = cmatcher.group( 3 );
+            }
+            else if ( nmatcher.matches() ) {
+                colName = nmatcher.group( 3 );
+                op = reverseOperator( nmatcher.group( 2 ) );
+                num = nmatcher.group( 1 );
+            }
+            else {
+                continue;
+            }
+            int icol = rdr.getColumnIndex( colName );
+            if ( icol < 0 || icol >= ncol ) {
+                continue;
+            }
+            ColumnInfo info = table.getColumnInfo( icol );
+            if ( ! Number.class.isAssignableFrom( info.getContentClass() ) ) {
+                continue;
+            }
+            double value;
+            try {
+                value = parseLiteral( num );
+            }
+            catch ( NumberFormatException e ) {
+                continue;
+            }
+
+            /* An integer column compared with a float literal is
+             * compared in single precision, where large integers
+             * are rounded; the index can't reproduce that. */
+            if ( isFloatLiteral( num ) &&
+                 ! isFloatingClass( info.getContentClass() ) &&
+                 Math.abs( value ) >= MAX_EXACT_FLOAT_INT ) {
+                continue;
+            }
+
+            /* Strict inequalities are treated as inclusive, which gives
+             * a superset of the required rows. */
+            double lo = Double.NEGATIVE_INFINITY;
+            double hi = Double.POSITIVE_INFINITY;
+            if ( op.startsWith( ">" ) ) {
+                lo = value;
+            }
+            else if ( op.startsWith( "<" ) ) {
+                hi = value;
+            }
+            else {
+                lo = value;
+                hi = value;
+            }
+            Integer key = Integer.valueOf( icol );
+            double[] range = ranges.get( key );
+            if ( range == null ) {
+                ranges.put( key, new double[] { lo, hi } );
+            }
+            else {
+                range[ 0 ] = Math.max( range[ 0 ], lo );
+                range[ 1 ] = Math.min( range[ 1 ], hi );
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Parses a numeric literal as it would be understood by JEL,
+     * and returns the value widened to a double, as it would be when
+     * compared with a column value.
+     * In particular a literal with an <code>f</code> suffix is a float,
+     * so that for instance <code>0.1f</code> does not have
+     * the same value as <code>0.1</code>.
+     *
+     * @param  num  numeric literal matching <code>NUM_REGEX</code>
+     * @return   value of literal
+     * @throws  NumberFormatException  if the literal can't be parsed
+     */
+    static double parseLiteral( String num ) {
+        char suffix = num.charAt( num.length() - 1 );
+        switch ( suffix ) {
+            case 'f':
+            case 'F':
+                return Float.parseFloat( num );
+            case 'l':
+            case 'L':
+                return Long.parseLong( num.substring( 0, num.length() - 1 ) );
+            default:
+                return Double.parseDouble( num );
+        }
+    }
+
+    /**
+     * Indicates whether a numeric literal has a float suffix.
+     *
+     * @param  num  numeric literal
+     * @return  true iff literal is single precision
+     */
+    private static boolean isFloatLiteral( String num ) {
+        char suffix = num.charAt( num.length() - 1 );
+        return suffix == 'f' || suffix == 'F';
+    }
+
+    /**
+     * Indicates whether a class represents floating point values.
+     *
+     * @param  clazz  content class
+     * @return  true for Float or Double
+     */
+    private static boolean isFloatingClass( Class<?> clazz ) {
+        return clazz == Double.class || clazz == Float.class;
+    }
+
+    /**
+     * Splits an expression into the terms joined by top-level
+     * <code>&amp;&amp;</code> operators.  If the expression contains
+     * other top-level operators with lower precedence, so that
+     * the conjuncts are not all required to be true, null is returned.
+     *
+     * @param  expr  expression
+     * @return  list of trimmed conjunct strings, or null
+     */
+    static List<String> getConjuncts( String expr ) {
+        String txt = stripParens( expr.trim() );
+        List<String> conjs = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        int leng = txt.length();
+        for ( int i = 0; i < leng; i++ ) {
+            char c = txt.charAt( i );
+            char c1 = i + 1 < leng ? txt.charAt( i + 1 ) : 0;
+            if ( quote != 0 ) {
+                if ( c == '\\' ) {
+                    i++;
+                }
+                else if ( c == quote ) {
+                    quote = 0;
+                }
+            }
+            else if ( c == '"' || c == '\'' ) {
+                quote = c;
+            }
+            else if ( c == '(' || c == '[' ) {
+                depth++;
+            }
+            else if ( c == ')' || c == ']' ) {
+                depth--;
+            }
+            else if ( depth == 0 ) {
+                if ( c == '?' || ( c == '|' && c1 == '|' ) ) {
+                    return null;
+                }
+                else if ( c == '&' && c1 == '&' ) {
+                    addConjunct( conjs, txt.substring( start, i ) );
+                    start = i + 2;
+                    i++;
+                }
+            }
+        }
+        addConjunct( conjs, txt.substring( start ) );
+        return conjs;
+    }
+
+    /**
+     * Adds a term to a list of conjuncts.  If the term is a parenthesised
+     * conjunction itself, its constituents are added instead.
+     *
+     * @param  conjs  list of conjuncts
+     * @param  term   term to add
+     */
+    private static void addConjunct( List<String> conjs, String term ) {
+        String txt = term.trim();
+        String stripped = stripParens( txt );
+        List<String> subConjs = stripped.equals( txt )
+                              ? null
+                              : getConjuncts( stripped );
+        if ( subConjs != null ) {
+            conjs.addAll( subConjs );
+        }
+        else {
+            conjs.add( stripped );
+        }
+    }
+
+    /**
+     * Removes any parentheses which enclose the whole of a string.
+     *
+     * @param  txt  input string
+     * @return  string without enclosing parentheses
+     */
+    private static String stripParens( String txt ) {
+        while ( txt.startsWith( "(" ) && txt.endsWith( ")" ) &&
+                closingParen( txt ) == txt.length() - 1 ) {
+            txt = txt.substring( 1, txt.length() - 1 ).trim();
+        }
+        return txt;
+    }
+
+    /**
+     * Returns the position of the parenthesis matching an opening
+     * parenthesis at the start of a string.
+     *
+     * @param  txt  string starting with "("
+     * @return  index of matching ")", or -1
+     */
+    private static int closingParen( String txt ) {
+        int depth = 0;
+        char quote = 0;
+        for ( int i = 0; i < txt.length(); i++ ) {
+            char c = txt.charAt( i );
+            if ( quote != 0 ) {
+                if ( c == '\\' ) {
+                    i++;
+                }
+                else if ( c == quote ) {
+                    quote = 0;
+                }
+            }
+            else if ( c == '"' || c == '\'' ) {
+                quote = c;
+            }
+            else if ( c == '(' ) {
+                depth++;
+            }
+            else if ( c == ')' ) {
+                if ( --depth == 0 ) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the comparison operator which gives the same result
+     * when its operands are swapped.
+     *
+     * @param  op  comparison operator
+     * @return   reversed operator
+     */
+    private static String reverseOperator( String op ) {
+        switch ( op ) {
+            case "<":
+                return ">";
+            case "<=":
+                return ">=";
+            case ">":
+                return "<";
+            case ">=":
+                return "<=";
+            default:
+                return op;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.LinkedList;
 import java.util.List;
 import uk.ac.starlink.table.RowPermutedStarTable;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.task.TaskException;
 import uk.ac.starlink.ttools.Tokenizer;
@@ -26,10 +27,24 @@ public class SortFilter extends BasicFilter {
     /** Boundary for default sequential/parallel sort behaviour threshold. */
     private static final int PARALLEL_THRESHOLD = 100_000;
 
+    private final boolean allowNumeric_;
+
     public SortFilter() {
+        this( true );
+    }
+
+    /**
+     * Constructor with configuration option for sort implementation.
+     *
+     * @param  allowNumeric  true to use a primitive-valued sort
+     *                       where all the keys are numeric,
+     *                       false to always use generic key comparison
+     */
+    SortFilter( boolean allowNumeric ) {
         super( "sort",
                "[-down] [-nullsfirst] [-[no]parallel] " 
              + "<key-list>" );
+        allowNumeric_ = allowNumeric;
     }
 
     protected String[] getDescriptionLines() {
@@ -56,6 +71,12 @@ public class SortFilter extends BasicFilter {
             "and in parallel for large tables, but this can be controlled",
             "with the <code>-parallel</code> or <code>-noparallel</code> flag.",
             "</p>",
+            "<p>Tables too large to sort in memory are sorted using",
+            "an external merge sort, with intermediate results",
+            "written to temporary storage according to the",
+            "default storage policy.",
+            "In this case the output table provides sequential access only.",
+            "</p>",
             explainSyntax( new String[] { "key-list", } ),
         };
     }
@@ -106,7 +127,7 @@ public class SortFilter extends BasicFilter {
         }
 
         /* Return the appropriate step implementation. */
-        return new SortStep( keys, up, nullsLast, isParallel );
+        return new SortStep( keys, up, nullsLast, isParallel, allowNumeric_ );
     }
 
     /**
@@ -117,26 +138,59 @@ public class SortFilter extends BasicFilter {
         final boolean up_;
         final boolean nullsLast_;
         final Boolean isParallel_;
+        final boolean allowNumeric_;
 
         SortStep( String[] keys, boolean up, boolean nullsLast,
-                  Boolean isParallel ) {
+                  Boolean isParallel, boolean allowNumeric ) {
             keys_ = keys;
             up_ = up;
             nullsLast_ = nullsLast;
             isParallel_ = isParallel;
+            allowNumeric_ = allowNumeric;
         }
 
         public StarTable wrap( StarTable baseTable ) throws IOException {
             baseTable = Tables.randomTable( baseTable );
             long lnrow = baseTable.getRowCount();
-            if ( lnrow > Integer.MAX_VALUE ) {
-                throw new UnsupportedOperationException( 
-                    "Sorry, can't sort tables with >2^31 rows" );
-            }
-            int nrow = (int) lnrow;
             boolean isParallel = isParallel_ == null
-                               ? nrow > PARALLEL_THRESHOLD
+                               ? lnrow > PARALLEL_THRESHOLD
                                : isParallel_.booleanValue();
+
+            /* Use an external sort if the table is too large to sort
+             * in memory. */
+            if ( ExternalSorter.isExternalRequired( lnrow ) ) {
+                Comparator<ExternalSorter.KeyedRow> comparator =
+                        ( r1, r2 ) -> {
+                    Object[] keys1 = r1.getKeys();
+                    Object[] keys2 = r2.getKeys();
+                    int c = 0;
+                    for ( int i = 0; i < keys1.length && c == 0; i++ ) {
+                        c = compareValues( keys1[ i ], keys2[ i ],
+                                           nullsLast_ );
+                    }
+                    c = up_ ? c : -c;
+                    return c == 0
+                         ? Long.compare( r1.getRowIndex(), r2.getRowIndex() )
+                         : c;
+                };
+                return new ExternalSorter( StoragePolicy.getDefaultPolicy(),
+                                           comparator, isParallel )
+                      .sortTable( baseTable, keys_, 0, lnrow );
+            }
+
+            /* If all the keys are numeric, sort on primitive key values. */
+            if ( allowNumeric_ ) {
+                NumericSorter numSorter =
+                    NumericSorter.createSorter( baseTable, keys_, up_,
+                                                nullsLast_, isParallel );
+                long[] rmap = numSorter == null ? null : numSorter.sortRows();
+                if ( rmap != null ) {
+                    return new RowPermutedStarTable( baseTable, rmap );
+                }
+            }
+
+            /* Otherwise sort in memory by comparing key objects. */
+            int nrow = Tables.checkedLongToInt( lnrow );
             Number[] rowMap = new Number[ nrow ];
             for ( int i = 0; i < nrow; i++ ) {
                 rowMap[ i ] = new Integer( i );
@@ -232,7 +286,7 @@ public class SortFilter extends BasicFilter {
                     throw new SortException( "Sort error", e );
                 }
                 try {
-                    c = compareValues( val1, val2 );
+                    c = compareValues( val1, val2, nullsLast_ );
                 }
                 catch ( ClassCastException e ) {
                     throw new SortException( 
@@ -242,25 +296,34 @@ public class SortFilter extends BasicFilter {
             return up_ ? c : -c;
         }
 
-        /**
-         * Compares the actual cell values.
-         */
-        @SuppressWarnings("unchecked")
-        private int compareValues( Object o1, Object o2 ) {
-            boolean null1 = Tables.isBlank( o1 );
-            boolean null2 = Tables.isBlank( o2 );
-            if ( null1 && null2 ) {
-                return 0;
-            }
-            else if ( null1 ) {
-                return nullsLast_ ? +1 : -1;
-            }
-            else if ( null2 ) {
-                return nullsLast_ ? -1 : +1;
-            }
-            else {
-                return ((Comparable<Object>) o1).compareTo( (Comparable) o2 );
-            }
+    }
+
+    /**
+     * Compares the actual cell values.
+     *
+     * @param  o1  first value
+     * @param  o2  second value
+     * @param  nullsLast  true if blank values should be considered
+     *         last in the collation order, false if they should
+     *         be considered first
+     * @return  comparison result
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareValues( Object o1, Object o2,
+                                      boolean nullsLast ) {
+        boolean null1 = Tables.isBlank( o1 );
+        boolean null2 = Tables.isBlank( o2 );
+        if ( null1 && null2 ) {
+            return 0;
+        }
+        else if ( null1 ) {
+            return nullsLast ? +1 : -1;
+        }
+        else if ( null2 ) {
+            return nullsLast ? -1 : +1;
+        }
+        else {
+            return ((Comparable<Object>) o1).compareTo( (Comparable) o2 );
         }
     }
 
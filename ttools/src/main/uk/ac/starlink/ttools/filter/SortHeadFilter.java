@@ -4,12 +4,14 @@ import gnu.jel.CompilationException;
 import gnu.jel.CompiledExpression;
 import gnu.jel.Library;
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import uk.ac.starlink.table.RowListStarTable;
 import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
 import uk.ac.starlink.table.Tables;
 import uk.ac.starlink.task.TaskException;
 import uk.ac.starlink.ttools.Tokenizer;
@@ -64,6 +66,8 @@ public class SortHeadFilter extends BasicFilter {
             "but it can be done in one pass and is usually cheaper",
             "on memory and faster, as long as <code>&lt;nrows&gt;</code>",
             "is significantly lower than the size of the table.",
+            "If <code>&lt;nrows&gt;</code> is too large for the retained rows",
+            "to be held in memory, an external merge sort is used instead.",
             "</p>",
             explainSyntax( new String[] { "key-list", } ),
         };
@@ -145,6 +149,12 @@ public class SortHeadFilter extends BasicFilter {
 
         public StarTable wrap( StarTable baseTable ) throws IOException {
 
+            /* If too many rows are to be retained, do an external sort
+             * and pick out the rows required from the result. */
+            if ( ExternalSorter.isExternalRequired( nrows_ ) ) {
+                return externalSortHead( baseTable );
+            }
+
             /* Compile expressions for the specified sort keys. */
             SequentialJELRowReader rseq =
                 new SequentialJELRowReader( baseTable );
@@ -207,6 +217,38 @@ public class SortHeadFilter extends BasicFilter {
             return outTable;
         }
 
+        /**
+         * Performs the sort-head operation using an external sort.
+         *
+         * @param  baseTable  input table
+         * @return  output table
+         */
+        private StarTable externalSortHead( StarTable baseTable )
+                throws IOException {
+            baseTable = Tables.randomTable( baseTable );
+            long nrow = baseTable.getRowCount();
+            long count = Math.min( nrows_, nrow );
+            long skip = keepHead_ ? 0 : nrow - count;
+
+            /* Use the same ordering as SortKey, in which the row index
+             * acts as the least significant key. */
+            Comparator<ExternalSorter.KeyedRow> comparator = ( r1, r2 ) -> {
+                Object[] keys1 = r1.getKeys();
+                Object[] keys2 = r2.getKeys();
+                int c = 0;
+                for ( int i = 0; i < keys1.length && c == 0; i++ ) {
+                    c = compareValues( keys1[ i ], keys2[ i ] );
+                }
+                if ( c == 0 ) {
+                    c = Long.compare( r1.getRowIndex(), r2.getRowIndex() );
+                }
+                return up_ ? c : -c;
+            };
+            return new ExternalSorter( StoragePolicy.getDefaultPolicy(),
+                                       comparator, false )
+                  .sortTable( baseTable, keys_, skip, count );
+        }
+
         /**
          * Helper class used as the sort key for table rows.
          */
@@ -3,10 +3,12 @@ package uk.ac.starlink.ttools.mode;
 import java.util.logging.Logger;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.jdbc.JDBCAuthenticator;
+import uk.ac.starlink.table.jdbc.JDBCFormatter;
 import uk.ac.starlink.table.jdbc.JDBCHandler;
 import uk.ac.starlink.table.jdbc.WriteMode;
 import uk.ac.starlink.task.ChoiceParameter;
 import uk.ac.starlink.task.Environment;
+import uk.ac.starlink.task.IntegerParameter;
 import uk.ac.starlink.task.Parameter;
 import uk.ac.starlink.task.StringParameter;
 import uk.ac.starlink.task.TaskException;
@@ -28,6 +30,9 @@ public class JdbcMode implements ProcessingMode {
     private final ChoiceParameter<WriteMode> writeParam_;
     private final StringParameter userParam_;
     private final StringParameter passwdParam_;
+    private final IntegerParameter batchParam_;
+    private final IntegerParameter commitParam_;
+    private final IntegerParameter charsizeParam_;
 
     private final static Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.table.jdbc" );
@@ -128,6 +133,52 @@ public class JdbcMode implements ProcessingMode {
             "<p>Password for the SQL connection to the database.",
             "</p>",
         } );
+
+        batchParam_ = new IntegerParameter( "batch" );
+        batchParam_.setPrompt( "Number of rows per insert batch" );
+        batchParam_.setMinimum( 1 );
+        batchParam_.setIntDefault( JDBCFormatter.DFLT_BATCH_SIZE );
+        batchParam_.setDescription( new String[] {
+            "<p>Number of rows sent to the database together",
+            "in each batch of inserts.",
+            "Larger values are usually faster.",
+            "If set to 1, or if the database driver does not support",
+            "batch updates, rows are inserted one at a time.",
+            "</p>",
+        } );
+
+        commitParam_ = new IntegerParameter( "commit" );
+        commitParam_.setPrompt( "Number of rows per transaction" );
+        commitParam_.setMinimum( 0 );
+        commitParam_.setIntDefault( 0 );
+        commitParam_.setDescription( new String[] {
+            "<p>Number of rows written in each database transaction.",
+            "If set to a positive value, auto-commit is switched off",
+            "while the table is written, and the data are committed",
+            "each time that many rows have been written, and at the end.",
+            "This can make bulk loading much faster for some databases.",
+            "If set to zero, the connection's default transaction",
+            "behaviour (usually auto-commit after every statement)",
+            "is used.",
+            "</p>",
+        } );
+
+        charsizeParam_ = new IntegerParameter( "charsize" );
+        charsizeParam_.setPrompt( "Width for string columns "
+                                + "of undeclared size" );
+        charsizeParam_.setMinimum( 0 );
+        charsizeParam_.setIntDefault( 0 );
+        charsizeParam_.setDescription( new String[] {
+            "<p>Width of the VARCHAR column used in the database",
+            "for string-valued columns whose maximum length",
+            "is not declared in the input table metadata.",
+            "If set to zero, an extra pass is made through the",
+            "input data to find the longest value in each such column.",
+            "Setting a positive value avoids that pass,",
+            "but the write will fail or truncate values",
+            "(depending on the database) if any strings are longer.",
+            "</p>",
+        } );
     }
 
     public Parameter<?>[] getAssociatedParameters() {
@@ -139,6 +190,9 @@ public class JdbcMode implements ProcessingMode {
             writeParam_,
             userParam_,
             passwdParam_,
+            batchParam_,
+            commitParam_,
+            charsizeParam_,
         };
     }
 
@@ -171,6 +225,10 @@ public class JdbcMode implements ProcessingMode {
                 return new String[] { user, passwd };
             }
         };
-        return new JdbcConsumer( url, new JDBCHandler( auth ), mode );
+        JDBCHandler handler = new JDBCHandler( auth );
+        handler.setBatchSize( batchParam_.intValue( env ) );
+        handler.setCommitInterval( commitParam_.intValue( env ) );
+        handler.setDefaultCharSize( charsizeParam_.intValue( env ) );
+        return new JdbcConsumer( url, handler, mode );
     }
 }
@@ -395,6 +395,90 @@ public class PlotScene<P,A> {
         return surfs;
     }
 
+    /**
+     * Returns a plot surface for one of this scene's zones
+     * with given plot bounds and aspect.
+     * The state of this scene is not affected.
+     *
+     * @param  iz  zone index
+     * @param  plotBounds  data bounds of the required surface
+     * @param  aspect   aspect of the required surface
+     * @return  new surface
+     */
+    public Surface createSurface( int iz, Rectangle plotBounds, A aspect ) {
+        return surfFact_.createSurface( plotBounds, zones_[ iz ].profile_,
+                                        aspect );
+    }
+
+    /**
+     * Calculates the auxiliary ranges (such as colour map ranges)
+     * for one of this scene's zones with a given aspect and plot bounds.
+     * Fixed ranges configured for the zone are respected.
+     * The state of this scene is not affected, so the result does not
+     * depend on any navigation that has been applied to it.
+     *
+     * @param  iz  zone index
+     * @param  plotBounds  data bounds of the surface to range
+     * @param  aspect   aspect of the surface to range
+     * @param  dataStore  data storage object
+     * @return  new aux span map
+     */
+    @Slow
+    public Map<AuxScale,Span> calculateAuxSpans( int iz, Rectangle plotBounds,
+                                                 A aspect,
+                                                 DataStore dataStore ) {
+        Zone<P,A> zone = zones_[ iz ];
+        Surface surface =
+            surfFact_.createSurface( plotBounds, zone.profile_, aspect );
+        return getAuxSpans( zone.content_.getLayers(), surface,
+                            zone.shadeFixSpan_, zone.shadeFact_, null,
+                            dataStore );
+    }
+
+    /**
+     * Returns an icon that paints the data layers of one of this
+     * scene's zones, with no axes or other decorations,
+     * for a given aspect filling given bounds.
+     * The auxiliary ranges are supplied explicitly, so that icons
+     * covering different regions of the plot can be made consistent
+     * with each other by using the same ranges for all of them,
+     * for instance ones obtained from {@link #calculateAuxSpans}.
+     *
+     * <p>This method does not use or affect the state of this scene,
+     * so it may be called concurrently from different threads,
+     * including while the scene is being navigated.
+     *
+     * @param  iz  zone index
+     * @param  bounds  graphics bounds filled by the data region
+     * @param  aspect   aspect giving data region to plot
+     * @param  auxSpans  auxiliary ranges
+     * @param  dataStore  data storage object
+     * @return  data icon
+     */
+    @Slow
+    public Icon createDataIcon( int iz, Rectangle bounds, A aspect,
+                                Map<AuxScale,Span> auxSpans,
+                                DataStore dataStore ) {
+        Zone<P,A> zone = zones_[ iz ];
+        PlotLayer[] layers = zone.content_.getLayers();
+        Surface surface =
+            surfFact_.createSurface( bounds, zone.profile_, aspect );
+        PaperType paperType =
+            ptSel_.getPixelPaperType( PaperTypeSelector.getOpts( layers ),
+                                      compositor_ );
+        int nl = layers.length;
+        Drawing[] drawings = new Drawing[ nl ];
+        Object[] plans = new Object[ nl ];
+        for ( int il = 0; il < nl; il++ ) {
+            drawings[ il ] =
+                layers[ il ].createDrawing( surface, auxSpans, paperType );
+            plans[ il ] =
+                drawings[ il ].calculatePlan( new Object[ 0 ], dataStore );
+        }
+        return paperType.createDataIcon( surface, drawings, plans, dataStore,
+                                         false );
+    }
+
     /**
      * Returns the index of the zone in whose data bounds a given point lies.
      *
@@ -5,15 +5,21 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Formatter;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,6 +30,16 @@ import java.util.logging.Logger;
  * cache management, but it provides some methods which will be
  * useful during such management.
  *
+ * <p>Files are expired on a least recently used basis, using the
+ * file modification time as the time of last access; users of the cache
+ * should therefore {@link #touch} files when they are used.
+ * Files with the same name apart from their extension are considered
+ * to form a single entry, and are expired together.
+ * Several processes may share the same cache directory:
+ * tidying is serialized using a lock file in the directory,
+ * and files used within the last {@link #MIN_AGE_MILLIS} milliseconds
+ * are never removed, since they may be in use elsewhere.
+ *
  * @author   Mark Taylor
  * @since    16 Jan 2020
  */
@@ -33,11 +49,24 @@ public class DiskCache {
     private final Map<File,Long> createdFiles_;
     private final Level logLevel_;
     private final Logger logger_;
+    private final AtomicLong nHit_;
+    private final AtomicLong nMiss_;
+    private final AtomicLong nDropFile_;
+    private final AtomicLong nDropByte_;
     private long limit_;
 
     public static final String CACHE_DIRNAME = "stilts-cache";
     public static final String README_NAME = "README-cache.txt";
+
+    /** Name of the file in a cache directory used for locking. */
+    public static final String LOCK_NAME = "cache.lock";
+
+    /** Minimum time since last use before a file may be removed. */
+    public static final long MIN_AGE_MILLIS = 60 * 1000;
+
     private static final String UTF8 = "UTF-8";
+    private static final Map<File,Object> dirLocks_ =
+        new ConcurrentHashMap<File,Object>();
 
     /**
      * Constructor.
@@ -55,6 +84,10 @@ public class DiskCache {
         logger_ = Logger.getLogger( "uk.ac.starlink.ttools.plot2.data" );
         logLevel_ = Level.WARNING;
         createdFiles_ = new ConcurrentHashMap<File,Long>();
+        nHit_ = new AtomicLong();
+        nMiss_ = new AtomicLong();
+        nDropFile_ = new AtomicLong();
+        nDropByte_ = new AtomicLong();
         Runtime.getRuntime()
                .addShutdownHook( new Thread( "Cache shutdown logging" ) {
             public void run() {
@@ -63,6 +96,9 @@ public class DiskCache {
                 if ( createdFiles_.size() > 0 ) {
                     System.err.println( "NOTE: " + getWriteSummary() );
                 }
+                if ( nHit_.get() + nMiss_.get() > 0 ) {
+                    System.err.println( "NOTE: " + getUsageSummary() );
+                }
             }
         } );
     }
@@ -87,6 +123,45 @@ public class DiskCache {
         createdFiles_.put( f, new Long( f.length() ) );
     }
 
+    /**
+     * Records that a lookup has been made in this cache.
+     * This is used for reporting cache usage statistics.
+     *
+     * @param  isHit  true if the required data was found in the cache,
+     *                false if it had to be generated
+     */
+    public void recordLookup( boolean isHit ) {
+        ( isHit ? nHit_ : nMiss_ ).incrementAndGet();
+    }
+
+    /**
+     * Returns the number of lookups recorded as cache hits.
+     *
+     * @return  hit count
+     */
+    public long getHitCount() {
+        return nHit_.get();
+    }
+
+    /**
+     * Returns the number of lookups recorded as cache misses.
+     *
+     * @return  miss count
+     */
+    public long getMissCount() {
+        return nMiss_.get();
+    }
+
+    /**
+     * Returns the number of files removed by this object to keep the
+     * cache within its size limit.
+     *
+     * @return  removed file count
+     */
+    public long getDropCount() {
+        return nDropFile_.get();
+    }
+
     /**
      * Ensures that this cache's directory is ready for use.
      * Should be called before the cache is used.
@@ -116,8 +191,57 @@ public class DiskCache {
     /**
      * Removes files from this cache's directory if it contains more
      * data than the configured cache limit.
+     * Least recently used entries are removed first.
+     * A lock is held on the cache directory during this operation,
+     * so that concurrent tidying by other threads or processes
+     * sharing the same directory does not lead to excessive deletion.
      */
     public void tidy() {
+        Object dirLock =
+            dirLocks_.computeIfAbsent( getLockKey( dir_ ),
+                                       f -> new Object() );
+        synchronized ( dirLock ) {
+            File lockFile = new File( dir_, LOCK_NAME );
+            try ( FileChannel chan =
+                      FileChannel.open( lockFile.toPath(),
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE );
+                  FileLock lock = chan.lock() ) {
+                tidyUnlocked();
+            }
+
+            /* An overlapping lock means that this JVM already holds
+             * the lock by way of some other path to the directory. */
+            catch ( IOException | OverlappingFileLockException e ) {
+                logger_.log( logLevel_,
+                             "Failed to lock " + lockFile
+                           + ", tidying anyway: " + e );
+                tidyUnlocked();
+            }
+        }
+    }
+
+    /**
+     * Returns the key used for in-JVM locking of a cache directory.
+     * This is the canonical file if possible, so that caches which
+     * refer to the same directory by different paths share a lock.
+     *
+     * @param  dir  directory
+     * @return  lock map key
+     */
+    private static File getLockKey( File dir ) {
+        try {
+            return dir.getCanonicalFile();
+        }
+        catch ( IOException e ) {
+            return dir.getAbsoluteFile();
+        }
+    }
+
+    /**
+     * Does the work for tidying the cache, without regard to locking.
+     */
+    private void tidyUnlocked() {
         if ( limit_ == 0 ) {
             limit_ = getDefaultCacheLimit( dir_ );
         }
@@ -136,14 +260,16 @@ public class DiskCache {
         }
 
         /* Otherwise, there is a fixed limit on cache size.
-         * Determine the current cache size. */
-        File[] files = dir_.listFiles();
-        List<FileMeta> fms = new ArrayList<>();
+         * Determine the current cache size, grouping files into entries
+         * which share the same name apart from the extension. */
+        Map<String,EntryMeta> entryMap = new LinkedHashMap<>();
         long totsize = 0;
-        for ( File f : files ) {
+        for ( File f : listCacheFiles( dir_ ) ) {
             FileMeta fm = new FileMeta( f );
-            fms.add( fm );
             totsize += fm.size_;
+            entryMap.computeIfAbsent( getEntryName( f ),
+                                      n -> new EntryMeta() )
+                    .add( fm );
         }
 
         /* Find out the effective maximum size. */
@@ -153,29 +279,39 @@ public class DiskCache {
         log( "Plot cache usage: " + formatByteSize( totsize )
                           + " / " + formatByteSize( maxSize ) );
 
-        /* If actual usage exceeds maximum size, delete files oldest first
-         * until we are back within the required limit.
-         * Note there are probably smarter strategies than this,
-         * like preferentially deleting very large old-ish files,
-         * but for now keep it simple. */
+        /* If actual usage exceeds maximum size, delete entries least
+         * recently used first until we are back within the required limit.
+         * Entries used very recently are left alone, since they may
+         * be in the process of being written or read. */
         long overSize = totsize - maxSize;
         if ( overSize > 0 ) {
-            Collections.sort( fms, FileMeta.BY_LAST_MODIFIED );
-            for ( FileMeta fm : fms ) {
-                if ( overSize <= 0 ) {
-                    return;
-                }
-                File file = fm.file_;
-                long size = fm.size_;
-                if ( file.delete() ) {
-                    overSize -= size;
-                    log( "Drop plot cache file " + file
-                       + " (" + formatByteSize( size ) + ")" );
+            List<EntryMeta> entries = new ArrayList<>( entryMap.values() );
+            Collections.sort( entries, EntryMeta.BY_LAST_USED );
+            long minAgeTime = System.currentTimeMillis() - MIN_AGE_MILLIS;
+            for ( EntryMeta entry : entries ) {
+                if ( overSize <= 0 || entry.lastUsed_ > minAgeTime ) {
+                    break;
                 }
-                else {
-                    logger_.warning( "Failed to drop plot cache file " + file );
+                for ( FileMeta fm : entry.files_ ) {
+                    File file = fm.file_;
+                    long size = fm.size_;
+                    if ( file.delete() ) {
+                        overSize -= size;
+                        nDropFile_.incrementAndGet();
+                        nDropByte_.addAndGet( size );
+                        log( "Drop plot cache file " + file
+                           + " (" + formatByteSize( size ) + ")" );
+                    }
+                    else if ( file.exists() ) {
+                        logger_.warning( "Failed to drop plot cache file "
+                                       + file );
+                    }
                 }
             }
+            if ( overSize > 0 ) {
+                log( "Plot cache still over limit by "
+                   + formatByteSize( overSize ) + "; remaining files in use" );
+            }
         }
     }
 
@@ -202,6 +338,32 @@ public class DiskCache {
            .toString();
     }
 
+    /**
+     * Returns a string summarising cache lookups and removals to date.
+     *
+     * @return  summary text
+     */
+    public String getUsageSummary() {
+        long nhit = nHit_.get();
+        long nmiss = nMiss_.get();
+        long nlook = nhit + nmiss;
+        return new StringBuffer()
+           .append( "Persistent plot cache lookups: " )
+           .append( nhit )
+           .append( " hit, " )
+           .append( nmiss )
+           .append( " miss" )
+           .append( nlook > 0 ? ( " (" + ( 100 * nhit / nlook ) + "% hit)" )
+                              : "" )
+           .append( "; dropped " )
+           .append( nDropFile_.get() )
+           .append( " files, " )
+           .append( formatByteSize( nDropByte_.get() ) )
+           .append( " in directory " )
+           .append( dir_ )
+           .toString();
+    }
+
     /**
      * Updates the lastModified timestamp for a given file.
      *
@@ -427,7 +589,7 @@ public class DiskCache {
      */
     public static long getDefaultCacheLimit( File dir ) {
         long cacheSize = 0;
-        for ( File f : dir.listFiles() ) {
+        for ( File f : listCacheFiles( dir ) ) {
             cacheSize += f.length();
         }
         long freeSize = dir.getUsableSpace();
@@ -435,6 +597,41 @@ public class DiskCache {
         return - availSize / 2;
     }
 
+    /**
+     * Returns the files in a cache directory that count towards its size.
+     * Subdirectories, the lock file and the README file are excluded.
+     *
+     * @param  dir  cache directory
+     * @return   list of cache files, empty if the directory is not readable
+     */
+    private static List<File> listCacheFiles( File dir ) {
+        File[] files = dir.listFiles();
+        List<File> list = new ArrayList<>();
+        if ( files != null ) {
+            for ( File f : files ) {
+                String name = f.getName();
+                if ( f.isFile() && ! LOCK_NAME.equals( name )
+                                && ! README_NAME.equals( name ) ) {
+                    list.add( f );
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns the name of the cache entry to which a file belongs.
+     * This is the filename with any extension removed.
+     *
+     * @param  file  cache file
+     * @return  entry name
+     */
+    private static String getEntryName( File file ) {
+        String name = file.getName();
+        int dotIx = name.lastIndexOf( '.' );
+        return dotIx > 0 ? name.substring( 0, dotIx ) : name;
+    }
+
     /**
      * Returns an ancestor of the given file with a given name, if there is one.
      * If no such ancestor exists, null is returned.
@@ -462,8 +659,6 @@ public class DiskCache {
         final File file_;
         final long size_;
         final long lastModified_;
-        static final Comparator<FileMeta> BY_LAST_MODIFIED =
-            (fm1, fm2) -> Long.compare( fm1.lastModified_, fm2.lastModified_ );
         FileMeta( File file ) {
             file_ = file;
             size_ = file.length();
@@ -473,4 +668,18 @@ public class DiskCache {
             return size_ <= 0 || lastModified_ <= 0;
         }
     }
+
+    /**
+     * Aggregates metadata for the files making up a cache entry.
+     */
+    private static class EntryMeta {
+        final List<FileMeta> files_ = new ArrayList<>();
+        long lastUsed_ = Long.MIN_VALUE;
+        static final Comparator<EntryMeta> BY_LAST_USED =
+            (em1, em2) -> Long.compare( em1.lastUsed_, em2.lastUsed_ );
+        void add( FileMeta fm ) {
+            files_.add( fm );
+            lastUsed_ = Math.max( lastUsed_, fm.lastModified_ );
+        }
+    }
 }
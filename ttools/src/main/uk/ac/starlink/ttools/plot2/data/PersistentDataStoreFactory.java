@@ -132,8 +132,10 @@ public class PersistentDataStoreFactory implements DataStoreFactory {
                 }
                 else if ( mEntry.dataExists() ) {
                     mEntry.touch();
+                    cache_.recordLookup( true );
                 }
                 else {
+                    cache_.recordLookup( false );
                     inProgress_.add( mEntry );
                     tMap.computeIfAbsent( mspec.getTable(),
                                           k -> new ArrayList<CacheEntry>() )
@@ -147,8 +149,10 @@ public class PersistentDataStoreFactory implements DataStoreFactory {
                 }
                 else if ( cEntry.dataExists() ) {
                     cEntry.touch();
+                    cache_.recordLookup( true );
                 }
                 else {
+                    cache_.recordLookup( false );
                     inProgress_.add( cEntry );
                     tMap.computeIfAbsent( cspec.getTable(),
                                           k -> new ArrayList<CacheEntry>() )
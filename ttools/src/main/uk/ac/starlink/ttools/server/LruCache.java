@@ -0,0 +1,182 @@
+package uk.ac.starlink.ttools.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe least recently used cache with a size budget.
+ * Each value has a size determined by a supplied function;
+ * when the total size of the stored values exceeds the budget,
+ * the least recently used entries are discarded.
+ * Unlike {@link SoftCache}, eviction behaviour is therefore
+ * predictable and independent of JVM memory management.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class LruCache<K,V> {
+
+    private final long budget_;
+    private final ToLongFunction<? super V> sizer_;
+    private final BiConsumer<K,V> evictionListener_;
+    private final LinkedHashMap<K,V> map_;
+    private long size_;
+    private long nHit_;
+    private long nMiss_;
+    private long nEvict_;
+
+    /**
+     * Constructs a cache with no eviction listener.
+     *
+     * @param  budget  maximum total size of stored values
+     * @param  sizer   determines the size of each value
+     */
+    public LruCache( long budget, ToLongFunction<? super V> sizer ) {
+        this( budget, sizer, null );
+    }
+
+    /**
+     * Constructs a cache with an eviction listener.
+     *
+     * @param  budget  maximum total size of stored values
+     * @param  sizer   determines the size of each value
+     * @param  evictionListener  callback invoked for each entry
+     *                           discarded to keep within budget, or null
+     */
+    public LruCache( long budget, ToLongFunction<? super V> sizer,
+                     BiConsumer<K,V> evictionListener ) {
+        budget_ = budget;
+        sizer_ = sizer;
+        evictionListener_ = evictionListener;
+        map_ = new LinkedHashMap<K,V>( 16, 0.75f, true );
+    }
+
+    /**
+     * Returns the value for a given key, marking it as recently used.
+     *
+     * @param  key  key
+     * @return  value, or null if not present
+     */
+    public synchronized V get( K key ) {
+        V value = map_.get( key );
+        if ( value == null ) {
+            nMiss_++;
+        }
+        else {
+            nHit_++;
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value, discarding least recently used entries as required
+     * to keep within budget.  If the value on its own exceeds the budget,
+     * it is not stored.
+     *
+     * @param  key  key
+     * @param  value  value, not null
+     */
+    public void put( K key, V value ) {
+        Map<K,V> evicted = new LinkedHashMap<K,V>();
+        long vsize = sizer_.applyAsLong( value );
+        synchronized ( this ) {
+            V old = map_.remove( key );
+            if ( old != null ) {
+                size_ -= sizer_.applyAsLong( old );
+            }
+            if ( vsize <= budget_ ) {
+                map_.put( key, value );
+                size_ += vsize;
+            }
+            for ( Iterator<Map.Entry<K,V>> it = map_.entrySet().iterator();
+                  size_ > budget_ && it.hasNext(); ) {
+                Map.Entry<K,V> entry = it.next();
+                size_ -= sizer_.applyAsLong( entry.getValue() );
+                evicted.put( entry.getKey(), entry.getValue() );
+                it.remove();
+                nEvict_++;
+            }
+        }
+
+        /* Invoke the listener outside the lock. */
+        if ( evictionListener_ != null ) {
+            for ( Map.Entry<K,V> entry : evicted.entrySet() ) {
+                evictionListener_.accept( entry.getKey(), entry.getValue() );
+            }
+        }
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param  key  key
+     * @return  removed value, or null if not present
+     */
+    public synchronized V remove( K key ) {
+        V value = map_.remove( key );
+        if ( value != null ) {
+            size_ -= sizer_.applyAsLong( value );
+        }
+        return value;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        map_.clear();
+        size_ = 0;
+    }
+
+    /**
+     * Returns the number of entries currently stored.
+     *
+     * @return  entry count
+     */
+    public synchronized int getEntryCount() {
+        return map_.size();
+    }
+
+    /**
+     * Returns the total size of the values currently stored.
+     *
+     * @return  total size
+     */
+    public synchronized long getSize() {
+        return size_;
+    }
+
+    /**
+     * Returns the size budget of this cache.
+     *
+     * @return  budget
+     */
+    public long getBudget() {
+        return budget_;
+    }
+
+    /**
+     * Returns a short summary of usage statistics.
+     *
+     * @return  statistics text
+     */
+    public synchronized String getStatistics() {
+        return new StringBuffer()
+           .append( "entries: " )
+           .append( map_.size() )
+           .append( ", size: " )
+           .append( size_ )
+           .append( "/" )
+           .append( budget_ )
+           .append( ", hits: " )
+           .append( nHit_ )
+           .append( ", misses: " )
+           .append( nMiss_ )
+           .append( ", evictions: " )
+           .append( nEvict_ )
+           .toString();
+    }
+}
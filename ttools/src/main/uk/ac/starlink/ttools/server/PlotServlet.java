@@ -70,7 +70,9 @@ public class PlotServlet extends HttpServlet {
     private DiskCache imgCache_;
     private StarTableOutput tableOutput_;
     private JDBCAuthenticator jdbcAuth_;
-    private SoftCache<String,PlotSession<?,?>> sessionCache_;
+    private LruCache<String,PlotSession<?,?>> sessionCache_;
+    private SoftCache<String,PlotSession<?,?>> softSessionCache_;
+    private TileRenderer tiler_;
     private String servletId_;
     private String acao_;
     private Logger logger_;
@@ -105,7 +107,16 @@ public class PlotServlet extends HttpServlet {
         dataStoreFactory_ = sContext.getDataStoreFactory();
         imgCache_ = sContext.getImageCache();
         tableOutput_ = new StarTableOutput();
-        sessionCache_ = new SoftCache<String,PlotSession<?,?>>();
+        tiler_ = sContext.createTileRenderer();
+
+        /* Recently used sessions are held in a size-limited cache.
+         * Sessions dropped from that are held in a memory-sensitive cache,
+         * so they can be recovered if memory has not run short. */
+        softSessionCache_ = new SoftCache<String,PlotSession<?,?>>();
+        sessionCache_ =
+            new LruCache<String,PlotSession<?,?>>( sContext.getSessionLimit(),
+                                                   s -> 1,
+                                                   softSessionCache_::put );
         servletId_ = createId( this );
         String acao = sContext.getAllowOrigins();
         acao_ = acao == null ? DFLT_ALLOWORIGINS : acao;
@@ -115,6 +126,8 @@ public class PlotServlet extends HttpServlet {
     @Override
     public void destroy() {
         sessionCache_.clear();
+        softSessionCache_.clear();
+        tiler_.shutdown();
         super.destroy();
     }
 
@@ -251,9 +264,11 @@ public class PlotServlet extends HttpServlet {
         if ( sessionId == null ) {
 
             /* In some cases (initiating a session) it is permissible to
-             * omit the session ID - in that case we can make up one here. */
+             * omit the session ID - in that case we can make up one here.
+             * It is derived from the plot text, so that repeated requests
+             * of this kind for the same plot can share a session. */
             if ( service.canCreateSession() ) {
-                sessionId = servletId_ + "-" + createId( plotTxt );
+                sessionId = servletId_ + "-" + DiskCache.hashText( plotTxt );
             }
 
             /* Otherwise the session ID is essential, so respond with an error
@@ -274,7 +289,7 @@ public class PlotServlet extends HttpServlet {
          * Recreating an existing session will lose state (the aspect
          * will return to its initial default) but it is likely to be
          * better than failing to service the request at all. */
-        PlotSession<?,?> session = sessionCache_.get( sessionId );
+        PlotSession<?,?> session = getSession( sessionId );
         if ( session == null ) {
             try {
                 session = createSession( plotTxt, response );
@@ -288,13 +303,30 @@ public class PlotServlet extends HttpServlet {
                 return;
             }
             sessionCache_.put( sessionId, session );
-            sessionCache_.purge();
+            softSessionCache_.purge();
         }
 
         /* Service the session-specific request. */
         service.sessionRespond( session, request, response );
     }
 
+    /**
+     * Returns the session with a given ID, if one is available.
+     *
+     * @param  sessionId  session identifier
+     * @return  session, or null
+     */
+    private PlotSession<?,?> getSession( String sessionId ) {
+        PlotSession<?,?> session = sessionCache_.get( sessionId );
+        if ( session == null ) {
+            session = softSessionCache_.remove( sessionId );
+            if ( session != null ) {
+                sessionCache_.put( sessionId, session );
+            }
+        }
+        return session;
+    }
+
     /**
      * Returns a new session object that can be used to make
      * successive requests for updated plot images.
@@ -357,8 +389,8 @@ public class PlotServlet extends HttpServlet {
             plotConfig.createPlotScene( dataStore, caching_ );
         Navigator<A> navigator = plotConfig.createNavigator();
         Dimension size = plotConfig.getPlotSize();
-        return new PlotSession<P,A>( plotTxt, scene, navigator,
-                                     exporter, dataStore, size, imgCache_ );
+        return new PlotSession<P,A>( plotTxt, scene, navigator, exporter,
+                                     dataStore, size, imgCache_, tiler_ );
     }
 
     /**
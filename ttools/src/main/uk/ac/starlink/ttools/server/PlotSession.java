@@ -9,18 +9,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -32,6 +35,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import javax.swing.Icon;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -45,6 +49,7 @@ import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.ttools.DocUtils;
 import uk.ac.starlink.ttools.plot.GraphicExporter;
 import uk.ac.starlink.ttools.plot.Picture;
+import uk.ac.starlink.ttools.plot2.AuxScale;
 import uk.ac.starlink.ttools.plot2.Axis;
 import uk.ac.starlink.ttools.plot2.CoordSequence;
 import uk.ac.starlink.ttools.plot2.DataGeom;
@@ -56,6 +61,7 @@ import uk.ac.starlink.ttools.plot2.PlotLayer;
 import uk.ac.starlink.ttools.plot2.PlotScene;
 import uk.ac.starlink.ttools.plot2.PlotUtil;
 import uk.ac.starlink.ttools.plot2.PointCloud;
+import uk.ac.starlink.ttools.plot2.Span;
 import uk.ac.starlink.ttools.plot2.SubCloud;
 import uk.ac.starlink.ttools.plot2.Surface;
 import uk.ac.starlink.ttools.plot2.data.DataSpec;
@@ -64,6 +70,7 @@ import uk.ac.starlink.ttools.plot2.data.DiskCache;
 import uk.ac.starlink.ttools.plot2.data.TupleRunner;
 import uk.ac.starlink.ttools.plot2.data.TupleSequence;
 import uk.ac.starlink.ttools.plot2.geom.CubeSurface;
+import uk.ac.starlink.ttools.plot2.geom.PlaneAspect;
 import uk.ac.starlink.ttools.plot2.geom.PlanarSurface;
 import uk.ac.starlink.ttools.plot2.geom.PlaneSurface;
 import uk.ac.starlink.ttools.plot2.task.HighlightIcon;
@@ -87,11 +94,13 @@ public class PlotSession<P,A> {
     private final DataStore dataStore_;
     private final String imgSuffix_;
     private final DiskCache imgCache_;
+    private final TileRenderer tiler_;
     private final A[] initialAspects_;
     private final Dimension initialSize_;
     private List<HighlightPosition> highlights_;
     private DragContext dragged_;
     private Dimension size_;
+    private final Map<Integer,Map<AuxScale,Span>> tileAuxSpans_;
 
     /** Name of JavaScript plotting library resource. */
     public static final String JS_FILE = "plot2Lib.js";
@@ -111,6 +120,7 @@ public class PlotSession<P,A> {
     public static final PlotService POSITION_SERVICE;
     public static final PlotService COUNT_SERVICE;
     public static final PlotService ROW_SERVICE;
+    public static final PlotService TILE_SERVICE;
 
     /** Available PlotService instances. */
     public static final PlotService[] SERVICES = new PlotService[] {
@@ -120,8 +130,18 @@ public class PlotSession<P,A> {
         POSITION_SERVICE = createPlotPositionService( "position" ),
         COUNT_SERVICE = createCountService( "count" ),
         ROW_SERVICE = createRowService( "row" ),
+        TILE_SERVICE = createTileService( "tile" ),
     };
 
+    /** Default width and height in pixels of a tile. */
+    public static final int DFLT_TILE_SIZE = 256;
+
+    /** Maximum zoom level for tiles. */
+    public static final int MAX_TILE_ZOOM = 24;
+
+    /** Max-age in seconds advertised for caching tiles by HTTP clients. */
+    public static final int TILE_MAXAGE = 3600;
+
     private static String JS_TEXT;
     private static final boolean IS_COUNT_PARALLEL = false;
     private static final GraphicExporter[] EXPORTERS =
@@ -142,11 +162,13 @@ public class PlotSession<P,A> {
      * @param   size   initial dimension of IMG element
      * @param   imgCache  disk cache for storing default image files;
      *                    may be null for no caching
+     * @param   tiler   renders and caches plot tiles;
+     *                  may be null if tiles are not supported
      */
     public PlotSession( String plotTxt, PlotScene<P,A> scene,
                         Navigator<A> navigator, GraphicExporter exporter,
                         DataStore dataStore, Dimension size,
-                        DiskCache imgCache ) {
+                        DiskCache imgCache, TileRenderer tiler ) {
         plotTxt_ = plotTxt;
         scene_ = scene;
         navigator_ = navigator;
@@ -154,11 +176,13 @@ public class PlotSession<P,A> {
         dataStore_ = dataStore;
         size_ = size;
         imgCache_ = imgCache;
+        tiler_ = tiler;
         String[] suffixes = exporter.getFileSuffixes();
         imgSuffix_ = suffixes.length > 0 ? suffixes[ 0 ] : "";
         initialSize_ = new Dimension( size );
         initialAspects_ = scene_.getAspects().clone();
         highlights_ = new ArrayList<HighlightPosition>();
+        tileAuxSpans_ = new HashMap<Integer,Map<AuxScale,Span>>();
     }
 
     /**
@@ -418,6 +442,7 @@ public class PlotSession<P,A> {
          * it goes to the head of the LRU cache invalication list. */
         if ( file.exists() ) {
             imgCache_.touch( file );
+            imgCache_.recordLookup( true );
         }
 
         /* If it doesn't exist, write it.  Write to a temporary file and
@@ -425,6 +450,7 @@ public class PlotSession<P,A> {
          * of the target file prevents other accesses picking up a
          * half-written version. */
         else {
+            imgCache_.recordLookup( false );
             File workFile = DiskCache.toWorkFilename( file );
             try {
                 OutputStream out = new FileOutputStream( workFile );
@@ -447,6 +473,196 @@ public class PlotSession<P,A> {
         return file.exists() && file.canRead() ? file : null;
     }
 
+    /**
+     * Indicates whether this session can supply plot tiles.
+     * Currently only single-zone plane plots are supported.
+     *
+     * @return  true iff tiles can be rendered
+     */
+    private boolean isTileable() {
+        return tiler_ != null
+            && initialAspects_.length == 1
+            && initialAspects_[ 0 ] instanceof PlaneAspect;
+    }
+
+    /**
+     * Returns the aspect covering a given tile of the tile pyramid.
+     * At zoom level 0 a single tile covers the data region of the
+     * initial plot, and at each subsequent level the tiles of the
+     * previous level are divided into four.
+     *
+     * @param  z  zoom level
+     * @param  x  horizontal tile index, counting from the left
+     * @param  y  vertical tile index, counting from the top
+     * @param  size  tile width and height in pixels
+     * @return   tile aspect
+     */
+    private A getTileAspect( int z, int x, int y, int size ) {
+        Surface baseSurf =
+            scene_.createSurface( 0, new Rectangle( 0, 0, size, size ),
+                                  initialAspects_[ 0 ] );
+        Axis[] axes = ((PlaneSurface) baseSurf).getAxes();
+        double scale = (double) size / ( 1 << z );
+        double[] xlims =
+            PlotUtil.orderPair( axes[ 0 ].graphicsToData( x * scale ),
+                                axes[ 0 ].graphicsToData( ( x + 1 ) * scale ) );
+        double[] ylims =
+            PlotUtil.orderPair( axes[ 1 ].graphicsToData( y * scale ),
+                                axes[ 1 ].graphicsToData( ( y + 1 ) * scale ) );
+        @SuppressWarnings("unchecked")
+        A aspect = (A) new PlaneAspect( xlims, ylims );
+        return aspect;
+    }
+
+    /**
+     * Returns the auxiliary ranges, such as colour map ranges,
+     * used for all tiles of a given size.
+     * These are calculated once, for the zoom level 0 tile,
+     * and do not change thereafter, so that all tiles are consistent
+     * with each other regardless of when they are rendered.
+     * Since they depend only on the plot specification and the tile size,
+     * they are also consistent with the tile entity tags.
+     *
+     * @param  size  tile width and height in pixels
+     * @return  aux span map
+     */
+    private Map<AuxScale,Span> getTileAuxSpans( int size ) {
+        Integer key = Integer.valueOf( size );
+        synchronized ( tileAuxSpans_ ) {
+            Map<AuxScale,Span> auxSpans = tileAuxSpans_.get( key );
+            if ( auxSpans == null ) {
+                auxSpans = Collections.unmodifiableMap(
+                    scene_.calculateAuxSpans( 0,
+                                              new Rectangle( 0, 0,
+                                                             size, size ),
+                                              initialAspects_[ 0 ],
+                                              dataStore_ ) );
+                tileAuxSpans_.put( key, auxSpans );
+            }
+            return auxSpans;
+        }
+    }
+
+    /**
+     * Renders a tile of the tile pyramid.
+     * This may be called concurrently from multiple threads.
+     *
+     * @param  z  zoom level
+     * @param  x  horizontal tile index
+     * @param  y  vertical tile index
+     * @param  size  tile width and height in pixels
+     * @param  exporter  controls output format
+     * @return  image file content
+     */
+    private byte[] renderTile( int z, int x, int y, final int size,
+                               GraphicExporter exporter )
+            throws IOException {
+
+        final Icon icon =
+            scene_.createDataIcon( 0, new Rectangle( 0, 0, size, size ),
+                                   getTileAspect( z, x, y, size ),
+                                   getTileAuxSpans( size ), dataStore_ );
+        Picture picture = new Picture() {
+            public int getPictureWidth() {
+                return size;
+            }
+            public int getPictureHeight() {
+                return size;
+            }
+            public void paintPicture( Graphics2D g2 ) {
+                icon.paintIcon( null, g2, 0, 0 );
+            }
+        };
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        exporter.exportGraphic( picture, bout );
+        return bout.toByteArray();
+    }
+
+    /**
+     * Responds to a request for a tile.
+     *
+     * @param  request  request
+     * @param  response  response
+     */
+    private void respondTile( HttpServletRequest request,
+                              HttpServletResponse response )
+            throws IOException {
+        if ( ! isTileable() ) {
+            response.sendError( 400, "Tiles not supported for this plot" );
+            return;
+        }
+        Map<String,String> paramMap = getSingleParameterMap( request );
+        final int z = parseInteger( paramMap.get( "z" ), -1 );
+        final int x = parseInteger( paramMap.get( "x" ), -1 );
+        final int y = parseInteger( paramMap.get( "y" ), -1 );
+        final int size = parseInteger( paramMap.get( "size" ),
+                                       DFLT_TILE_SIZE );
+        String fmtName = paramMap.get( FORMAT_KEY );
+        final GraphicExporter exporter = fmtName == null
+                                       ? exporter_
+                                       : parseFormatName( fmtName );
+        if ( z < 0 || z > MAX_TILE_ZOOM ||
+             x < 0 || x >= ( 1 << z ) || y < 0 || y >= ( 1 << z ) ||
+             size < 16 || size > 2048 || exporter == null ) {
+            response.sendError( 400, "Bad tile specification" );
+            return;
+        }
+
+        /* The tile content depends only on the plot specification and
+         * the tile parameters, so the entity tag can be determined
+         * without rendering it. */
+        String key = new StringBuffer()
+            .append( DiskCache.hashText( plotTxt_ ) )
+            .append( '/' )
+            .append( exporter.getName() )
+            .append( '/' )
+            .append( size )
+            .append( '/' )
+            .append( z )
+            .append( '/' )
+            .append( x )
+            .append( '/' )
+            .append( y )
+            .toString();
+        String etag = "\"" + DiskCache.hashText( tiler_.getEpoch() + "/"
+                                                 + key ) + "\"";
+        response.setHeader( "ETag", etag );
+        response.setHeader( "Cache-Control", "max-age=" + TILE_MAXAGE );
+        if ( matchesEtag( request.getHeader( "If-None-Match" ), etag ) ) {
+            response.setStatus( 304 );
+            return;
+        }
+        TileRenderer.Tile tile;
+        try {
+            tile = tiler_.getTile( key,
+                                   () -> renderTile( z, x, y, size,
+                                                     exporter ) );
+        }
+        catch ( RejectedExecutionException e ) {
+            response.setHeader( "Retry-After", "1" );
+            response.sendError( 503, "Tile rendering queue full" );
+            return;
+        }
+        long lastMod = tile.getLastModified();
+        long ifModSince;
+        try {
+            ifModSince = request.getDateHeader( "If-Modified-Since" );
+        }
+        catch ( IllegalArgumentException e ) {
+            ifModSince = -1;
+        }
+        if ( ! isModifiedSince( lastMod, ifModSince ) ) {
+            response.setStatus( 304 );
+            return;
+        }
+        byte[] data = tile.getData();
+        response.setDateHeader( "Last-Modified", lastMod );
+        response.setHeader( "X-Cache", tile.isCached() ? "HIT" : "MISS" );
+        prepareImageResponse( response, exporter );
+        response.setContentLength( data.length );
+        response.getOutputStream().write( data );
+    }
+
     /**
      * Returns the external bounds of this plot as a rectangle.
      *
@@ -604,6 +820,40 @@ public class PlotSession<P,A> {
         }
     }
 
+    /**
+     * Indicates whether the value of an If-None-Match header
+     * matches a given entity tag.
+     *
+     * @param  ifNoneMatch  header value, may be null
+     * @param  etag   entity tag including quotes
+     * @return  true iff the header matches the tag
+     */
+    static boolean matchesEtag( String ifNoneMatch, String etag ) {
+        if ( ifNoneMatch != null ) {
+            for ( String tag : ifNoneMatch.split( "," ) ) {
+                tag = tag.trim().replaceFirst( "^W/", "" );
+                if ( tag.equals( etag ) || tag.equals( "*" ) ) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether a resource has been modified since the time
+     * given by an If-Modified-Since header.
+     * HTTP dates have a resolution of one second.
+     *
+     * @param  lastMod  modification time of the resource in milliseconds
+     * @param  ifModSince  header value in milliseconds,
+     *                     or negative if absent
+     * @return  false iff a 304 Not Modified response is appropriate
+     */
+    static boolean isModifiedSince( long lastMod, long ifModSince ) {
+        return ifModSince < 0 || lastMod / 1000 > ifModSince / 1000;
+    }
+
     /**
      * Converts an image output format name to a GraphicExporter.
      *
@@ -1313,6 +1563,70 @@ public class PlotSession<P,A> {
         };
     }
 
+    /**
+     * Creates a service that provides tiles of a multi-resolution
+     * tile pyramid.
+     *
+     * @param  name  service name
+     * @return  service
+     */
+    private static PlotService createTileService( String name ) {
+        return new AbstractPlotService( name ) {
+            @Override
+            public boolean canCreateSession() {
+                return true;
+            }
+            public String getXmlDescription() {
+                return String.join( "\n",
+                    "<p>Returns image data for one tile of a tile pyramid",
+                    "representing the plot, suitable for use with",
+                    "web map-style clients that fetch only the tiles",
+                    "currently in view.",
+                    "At zoom level 0 a single tile covers the data region",
+                    "of the initial plot, without axes or other annotations;",
+                    "at each subsequent level each tile is divided into",
+                    "four tiles covering its quadrants.",
+                    "The request parameters are:",
+                    "<ul>",
+                    "<li><code>z=&lt;level&gt;</code>: zoom level,",
+                    "    in the range 0-" + MAX_TILE_ZOOM + "</li>",
+                    "<li><code>x=&lt;ix&gt;</code>: horizontal tile index,",
+                    "    from 0 at the left to 2<sup>z</sup>-1</li>",
+                    "<li><code>y=&lt;iy&gt;</code>: vertical tile index,",
+                    "    from 0 at the top to 2<sup>z</sup>-1</li>",
+                    "<li><code>size=&lt;npix&gt;</code>: width and height",
+                    "    of the tile in pixels (optional, default "
+                    + DFLT_TILE_SIZE + ")</li>",
+                    "<li><code>" + FORMAT_KEY + "=&lt;fmt&gt;</code>:",
+                    "    image format (optional)</li>",
+                    "</ul>",
+                    "</p>",
+                    "<p>The content of a tile depends only on the",
+                    "<code>&lt;plot-spec&gt;</code> and these parameters,",
+                    "and not on the session state,",
+                    "so the session ID may be omitted.",
+                    "Tiles are rendered by a bounded pool of threads",
+                    "and cached in memory by the server;",
+                    "responses carry <code>ETag</code> and",
+                    "<code>Last-Modified</code> headers so that",
+                    "conditional requests can be answered with",
+                    "a 304 (Not Modified) status.",
+                    "A 503 status indicates that the server is too busy",
+                    "and the request should be retried later.",
+                    "Currently tiles are only available for",
+                    "<code>plot2plane</code> plots with a single zone.",
+                    "</p>",
+                "" );
+            }
+            public void sessionRespond( PlotSession<?,?> session,
+                                        HttpServletRequest request,
+                                        HttpServletResponse response )
+                    throws IOException {
+                session.respondTile( request, response );
+            }
+        };
+    }
+
     /**
      * Writes an image to an output stream.
      */
@@ -103,6 +103,35 @@ public class StiltsContext {
      */
     public static final String ALLOWORIGINS_PARAM = "allowOrigins";
 
+    /**
+     * Name of a servlet initialisation parameter giving the maximum
+     * number of bytes of rendered plot tiles to cache in memory.
+     * If not supplied, a default value is used.
+     */
+    public static final String TILECACHE_PARAM = "tileCacheLimit";
+
+    /**
+     * Name of a servlet initialisation parameter giving the number of
+     * threads used for rendering plot tiles.
+     * If not supplied, the number of available processors is used.
+     */
+    public static final String TILETHREADS_PARAM = "tileThreads";
+
+    /**
+     * Name of a servlet initialisation parameter giving the number of
+     * most recently used plot sessions that will be retained
+     * regardless of memory pressure.
+     * Less recently used sessions are retained only while memory allows.
+     * If not supplied, a default value is used.
+     */
+    public static final String SESSIONLIMIT_PARAM = "sessionLimit";
+
+    /** Default value for {@link #TILECACHE_PARAM}. */
+    public static final long DFLT_TILECACHE = 64 * 1024 * 1024;
+
+    /** Default value for {@link #SESSIONLIMIT_PARAM}. */
+    public static final int DFLT_SESSIONLIMIT = 64;
+
     /** 
      * Constructor.
      *
@@ -186,6 +215,57 @@ public class StiltsContext {
         return context_.getInitParameter( ALLOWORIGINS_PARAM );
     }
 
+    /**
+     * Returns an object for rendering and caching plot tiles.
+     *
+     * @return  tile renderer
+     */
+    public TileRenderer createTileRenderer() throws ServletException {
+        int nthread =
+            (int) getLongParameter( TILETHREADS_PARAM,
+                                    Runtime.getRuntime()
+                                           .availableProcessors() );
+        if ( nthread < 1 ) {
+            throw new ServletException( "Unsuitable value " + nthread
+                                      + " for " + TILETHREADS_PARAM
+                                      + " (must be at least 1)" );
+        }
+        long budget = getLongParameter( TILECACHE_PARAM, DFLT_TILECACHE );
+        return new TileRenderer( nthread, 64 * nthread, budget );
+    }
+
+    /**
+     * Returns the number of plot sessions to retain
+     * regardless of memory pressure.
+     *
+     * @return  session count
+     */
+    public int getSessionLimit() throws ServletException {
+        return (int) getLongParameter( SESSIONLIMIT_PARAM, DFLT_SESSIONLIMIT );
+    }
+
+    /**
+     * Returns the value of an integer-valued initialisation parameter.
+     *
+     * @param  name  parameter name
+     * @param  dflt  value to use if the parameter is not supplied
+     * @return   parameter value
+     */
+    private long getLongParameter( String name, long dflt )
+            throws ServletException {
+        String txt = context_.getInitParameter( name );
+        if ( txt == null || txt.trim().length() == 0 ) {
+            return dflt;
+        }
+        try {
+            return Long.parseLong( txt.trim() );
+        }
+        catch ( RuntimeException e ) {
+            throw new ServletException( "Unsuitable value \"" + txt
+                                      + "\" for " + name );
+        }
+    }
+
     /**
      * Returns a TupleRunner for use with server tasks.
      *
@@ -253,7 +333,7 @@ public class StiltsContext {
         }
         long pCacheLimit = cacheLimit > 0 ? (long) ( proportion * cacheLimit )
                                           : cacheLimit;
-        return new DiskCache( subDir, cacheLimit );
+        return new DiskCache( subDir, pCacheLimit );
     }
 
     /**
@@ -0,0 +1,234 @@
+package uk.ac.starlink.ttools.server;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Renders plot tiles using a bounded pool of worker threads,
+ * and keeps the results in a memory cache.
+ *
+ * <p>Rendering is done by a fixed number of threads regardless of
+ * how many requests are in progress, so that a burst of tile
+ * requests from panning clients does not overload the server.
+ * If the queue of waiting requests is full, further requests are
+ * rejected rather than queued indefinitely.
+ * Concurrent requests for the same tile share a single rendering.
+ * Rendered tiles are held in a least recently used cache with
+ * a budget in bytes.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class TileRenderer {
+
+    private final ThreadPoolExecutor executor_;
+    private final LruCache<String,Tile> cache_;
+    private final ConcurrentHashMap<String,Future<Tile>> inProgress_;
+    private final long epoch_;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.ttools.server" );
+
+    /**
+     * Constructor.
+     *
+     * @param  nthread   number of rendering threads
+     * @param  maxQueue  maximum number of tile renderings that may be
+     *                   waiting for a free thread
+     * @param  cacheBudget   maximum number of bytes of tile data to cache
+     */
+    public TileRenderer( int nthread, int maxQueue, long cacheBudget ) {
+        final AtomicInteger ithread = new AtomicInteger();
+        ThreadFactory thFact = new ThreadFactory() {
+            public Thread newThread( Runnable r ) {
+                Thread th =
+                    new Thread( r, "Tile renderer-"
+                                 + ithread.incrementAndGet() );
+                th.setDaemon( true );
+                return th;
+            }
+        };
+        executor_ =
+            new ThreadPoolExecutor( nthread, nthread, 0L,
+                                    TimeUnit.MILLISECONDS,
+                                    new ArrayBlockingQueue<Runnable>(
+                                            maxQueue ),
+                                    thFact );
+        cache_ = new LruCache<String,Tile>( cacheBudget,
+                                            tile -> tile.data_.length );
+        inProgress_ = new ConcurrentHashMap<String,Future<Tile>>();
+        epoch_ = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the time at which this renderer was created.
+     * Tiles rendered by different renderer instances may differ,
+     * so this can be used when forming entity tags.
+     *
+     * @return  creation epoch in milliseconds
+     */
+    public long getEpoch() {
+        return epoch_;
+    }
+
+    /**
+     * Returns a tile from the cache if it is present.
+     *
+     * @param  key  tile key
+     * @return  cached tile, or null
+     */
+    public Tile getCachedTile( String key ) {
+        return cache_.get( key );
+    }
+
+    /**
+     * Returns a tile, rendering it if it is not already cached.
+     * This method blocks until the tile is available.
+     *
+     * @param  key  key uniquely identifying the tile content
+     * @param  renderer  generates the bytes of the tile image
+     * @return  tile
+     * @throws  RejectedExecutionException  if the rendering queue is full
+     * @throws  IOException  if rendering fails
+     */
+    public Tile getTile( String key, Callable<byte[]> renderer )
+            throws IOException {
+        Tile tile = cache_.get( key );
+        if ( tile != null ) {
+            return tile;
+        }
+        FutureTask<Tile> task = new FutureTask<Tile>( () -> {
+            byte[] data = renderer.call();
+            return new Tile( data, System.currentTimeMillis(), false );
+        } );
+        Future<Tile> future = inProgress_.putIfAbsent( key, task );
+        boolean isOwner = future == null;
+        if ( isOwner ) {
+            future = task;
+            try {
+                executor_.execute( task );
+            }
+            catch ( RejectedExecutionException e ) {
+                inProgress_.remove( key );
+                throw e;
+            }
+        }
+        try {
+            tile = future.get();
+            if ( isOwner ) {
+                cache_.put( key, tile.asCached() );
+            }
+            return tile;
+        }
+        catch ( InterruptedException e ) {
+            throw (IOException)
+                  new InterruptedIOException( "Interrupted" ).initCause( e );
+        }
+        catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            else {
+                throw new IOException( "Tile rendering failed: " + cause,
+                                       cause );
+            }
+        }
+        finally {
+            if ( isOwner ) {
+                inProgress_.remove( key );
+            }
+        }
+    }
+
+    /**
+     * Returns a short summary of cache and queue usage.
+     *
+     * @return  statistics text
+     */
+    public String getStatistics() {
+        return "Tile cache " + cache_.getStatistics()
+             + "; queued: " + executor_.getQueue().size()
+             + ", rendered: " + executor_.getCompletedTaskCount();
+    }
+
+    /**
+     * Stops the rendering threads and clears the cache.
+     */
+    public void shutdown() {
+        logger_.info( getStatistics() );
+        executor_.shutdownNow();
+        cache_.clear();
+    }
+
+    /**
+     * Represents a rendered tile.
+     */
+    public static class Tile {
+        private final byte[] data_;
+        private final long lastModified_;
+        private final boolean isCached_;
+
+        /**
+         * Constructor.
+         *
+         * @param  data  image file content
+         * @param  lastModified  rendering time in milliseconds
+         * @param  isCached  true iff this tile was got from the cache
+         */
+        private Tile( byte[] data, long lastModified, boolean isCached ) {
+            data_ = data;
+            lastModified_ = lastModified;
+            isCached_ = isCached;
+        }
+
+        /**
+         * Returns the image file content.
+         *
+         * @return  image bytes; do not modify
+         */
+        public byte[] getData() {
+            return data_;
+        }
+
+        /**
+         * Returns the time at which this tile was rendered.
+         *
+         * @return  epoch milliseconds
+         */
+        public long getLastModified() {
+            return lastModified_;
+        }
+
+        /**
+         * Indicates whether this tile was retrieved from the cache
+         * rather than rendered for the current request.
+         *
+         * @return  true for a cache hit
+         */
+        public boolean isCached() {
+            return isCached_;
+        }
+
+        /**
+         * Returns a copy of this tile flagged as coming from the cache.
+         *
+         * @return  cached tile
+         */
+        private Tile asCached() {
+            return new Tile( data_, lastModified_, true );
+        }
+    }
+}
@@ -26,6 +26,7 @@ import uk.ac.starlink.ttools.cone.Coverage;
 import uk.ac.starlink.ttools.cone.CoverageQuerySequenceFactory;
 import uk.ac.starlink.ttools.cone.HealpixSortedQuerySequenceFactory;
 import uk.ac.starlink.ttools.cone.JELQuerySequenceFactory;
+import uk.ac.starlink.ttools.cone.ParallelResultRowSequence;
 import uk.ac.starlink.ttools.cone.QuerySequenceFactory;
 import uk.ac.starlink.ttools.cone.ServiceFindMode;
 import uk.ac.starlink.ttools.cone.UploadMatcher;
@@ -46,6 +47,7 @@ public class CdsUploadSkyMatch extends SingleMapperTask {
     private final StringParameter cdstableParam_;
     private final ChoiceParameter<UserFindMode> findParam_;
     private final IntegerParameter chunkParam_;
+    private final IntegerParameter parallelParam_;
     private final IntegerParameter maxrecParam_;
     private final ContentCodingParameter codingParam_;
     private final URLParameter urlParam_;
@@ -176,6 +178,33 @@ public class CdsUploadSkyMatch extends SingleMapperTask {
         paramList.add( findParam_ );
         paramList.add( chunkParam_ );
 
+        parallelParam_ = new IntegerParameter( "parallel" );
+        parallelParam_.setPrompt( "Number of blocks to upload concurrently" );
+        parallelParam_.setUsage( "<n>" );
+        parallelParam_.setMinimum( 1 );
+        parallelParam_.setMaximum( ParallelResultRowSequence
+                                  .getMaxParallelism() );
+        parallelParam_.setIntDefault( 1 );
+        parallelParam_.setDescription( new String[] {
+            "<p>Number of blocks of input rows",
+            "(see <code>" + chunkParam_.getName() + "</code>)",
+            "that may be sent to the Xmatch service at once.",
+            "By default blocks are sent one at a time.",
+            "If a larger value is given, the following blocks are read",
+            "and uploaded while the service is still working on",
+            "earlier ones, and the results are reassembled in order,",
+            "so the output is unchanged.",
+            "Failed blocks are retried a few times,",
+            "keeping the results of blocks that have already completed.",
+            "</p>",
+            "<p>Please respect the CDS usage policy;",
+            "the limit is " + ParallelResultRowSequence.DEFAULT_MAXPAR,
+            "unless raised using the",
+            ParallelResultRowSequence.MAXPAR_PROP + " system property.",
+            "</p>",
+        } );
+        paramList.add( parallelParam_ );
+
         maxrecParam_ = new IntegerParameter( "maxrec" );
         maxrecParam_.setPrompt( "Maximum number of output rows" );
         maxrecParam_.setDescription( new String[] {
@@ -281,6 +310,7 @@ public class CdsUploadSkyMatch extends SingleMapperTask {
         ServiceFindMode serviceMode = userMode.getServiceMode();
         boolean oneToOne = userMode.isOneToOne();
         int blocksize = chunkParam_.intValue( env );
+        int parallel = parallelParam_.intValue( env );
         long maxrec = maxrecParam_.intValue( env );
         ContentCoding coding = codingParam_.codingValue( env );
         URL url = urlParam_.objectValue( env );
@@ -304,6 +334,7 @@ public class CdsUploadSkyMatch extends SingleMapperTask {
                                inFixAct, cdsFixAct, serviceMode, oneToOne,
                                uploadEmpty );
         blocker.setTruncationAdvice( "Reduce " + chunkParam_.getName() + "?" );
+        blocker.setParallelBlocks( parallel );
 
         /* Create and return an object which will produce the result. */
         return new TableProducer() {
@@ -0,0 +1,20 @@
+package uk.ac.starlink.ttools.task;
+
+import uk.ac.starlink.ttools.cone.ParallelResultRowSequence;
+import uk.ac.starlink.ttools.cone.PixSortedConer;
+import uk.ac.starlink.ttools.cone.SkyConeMatch2;
+
+/**
+ * SkyConeMatch2 implementation which searches a local tile-sorted
+ * catalogue file.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class LocalCone extends SkyConeMatch2 {
+    public LocalCone() {
+        super( "Crossmatches table on sky position against local catalogue",
+               new PixSortedConer(),
+               ParallelResultRowSequence.getMaxParallelism() );
+    }
+}
@@ -0,0 +1,120 @@
+package uk.ac.starlink.ttools.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.task.Environment;
+import uk.ac.starlink.task.Executable;
+import uk.ac.starlink.task.IntegerParameter;
+import uk.ac.starlink.task.Parameter;
+import uk.ac.starlink.task.StringParameter;
+import uk.ac.starlink.task.Task;
+import uk.ac.starlink.task.TaskException;
+import uk.ac.starlink.ttools.cone.PixSortedCatalogue;
+import uk.ac.starlink.ttools.jel.ColumnIdentifier;
+
+/**
+ * Task to write a HEALPix-sorted copy of a table with a tile index,
+ * for use as a local cone search catalogue.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ * @see      uk.ac.starlink.ttools.cone.PixSortedCatalogue
+ */
+public class PixSort implements Task {
+
+    private final InputTableParameter inParam_;
+    private final StringParameter raParam_;
+    private final StringParameter decParam_;
+    private final IntegerParameter orderParam_;
+    private final StringParameter outParam_;
+
+    public PixSort() {
+        inParam_ = new InputTableParameter( "in" );
+        inParam_.setPosition( 1 );
+
+        raParam_ = new StringParameter( "ra" );
+        raParam_.setUsage( "<colid>" );
+        raParam_.setPrompt( "Right ascension column in degrees" );
+        raParam_.setDescription( new String[] {
+            "<p>Name or index of the column in the input table",
+            "giving right ascension in degrees.",
+            "</p>",
+        } );
+
+        decParam_ = new StringParameter( "dec" );
+        decParam_.setUsage( "<colid>" );
+        decParam_.setPrompt( "Declination column in degrees" );
+        decParam_.setDescription( new String[] {
+            "<p>Name or index of the column in the input table",
+            "giving declination in degrees.",
+            "</p>",
+        } );
+
+        orderParam_ = new IntegerParameter( "order" );
+        orderParam_.setMinimum( 0 );
+        orderParam_.setMaximum( PixSortedCatalogue.MAX_ORDER );
+        orderParam_.setNullPermitted( true );
+        orderParam_.setUsage( "<int>" );
+        orderParam_.setPrompt( "HEALPix order of tile index" );
+        orderParam_.setDescription( new String[] {
+            "<p>HEALPix order of the tiles by which the output rows",
+            "are grouped.",
+            "If left blank, an order is chosen so that there are around",
+            PixSortedCatalogue.TILE_ROWS + " rows per tile on average.",
+            "The maximum value is " + PixSortedCatalogue.MAX_ORDER + ".",
+            "</p>",
+        } );
+
+        outParam_ = new StringParameter( "out" );
+        outParam_.setUsage( "<out-file>" );
+        outParam_.setPrompt( "Output FITS file" );
+        outParam_.setDescription( new String[] {
+            "<p>Location of the output FITS file.",
+            "The tile index will be written to a file of the same name",
+            "with \"<code>" + PixSortedCatalogue.INDEX_SUFFIX + "</code>\"",
+            "appended.",
+            "</p>",
+        } );
+    }
+
+    public String getPurpose() {
+        return "Writes HEALPix-sorted catalogue for local cone searches";
+    }
+
+    public Parameter<?>[] getParameters() {
+        return new Parameter<?>[] {
+            inParam_,
+            raParam_,
+            decParam_,
+            orderParam_,
+            outParam_,
+        };
+    }
+
+    public Executable createExecutable( Environment env ) throws TaskException {
+        final StarTable table = inParam_.tableValue( env );
+        final String raId = raParam_.stringValue( env );
+        final String decId = decParam_.stringValue( env );
+        final Integer order = orderParam_.objectValue( env );
+        final File outFile = new File( outParam_.stringValue( env ) );
+        final PrintStream out = env.getOutputStream();
+        return new Executable() {
+            public void execute() throws IOException {
+                ColumnIdentifier colIdent = new ColumnIdentifier( table );
+                int iRa = colIdent.getColumnIndex( raId );
+                int iDec = colIdent.getColumnIndex( decId );
+                int ord = order == null
+                        ? PixSortedCatalogue
+                         .getDefaultOrder( table.getRowCount() )
+                        : order.intValue();
+                PixSortedCatalogue.writeCatalogue( table, iRa, iDec, ord,
+                                                   outFile );
+                out.println( outFile + ", "
+                           + PixSortedCatalogue.getIndexFile( outFile )
+                           + " (order " + ord + ")" );
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package uk.ac.starlink.ttools.task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import uk.ac.starlink.table.RowRunner;
+import uk.ac.starlink.task.ChoiceParameter;
+import uk.ac.starlink.task.Environment;
+import uk.ac.starlink.task.ParameterValueException;
+import uk.ac.starlink.task.TaskException;
+import uk.ac.starlink.util.SplitPolicy;
+import uk.ac.starlink.util.SplitProcessor;
+
+/**
+ * Parameter for selecting a RowRunner,
+ * which controls whether and how table rows are processed in parallel.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class RowRunnerParameter extends ChoiceParameter<RowRunner> {
+
+    private static final String SEQUENTIAL = "sequential";
+    private static final String PARALLEL = "parallel";
+    private static final String PARTEST = "partest";
+    private static final Pattern PARALLEL_N_REGEX =
+        Pattern.compile( PARALLEL + "([0-9]+)" );
+
+    private static final Map<Integer,RowRunner> PARALLEL_RUNNERS =
+        new HashMap<Integer,RowRunner>();
+
+    /** Runner that splits tables into small chunks, for testing. */
+    public static final RowRunner PARTEST_RUNNER =
+        new RowRunner( SplitProcessor
+                      .createBasicParallelProcessor(
+                           new SplitPolicy( null, 16, (short) 0 ) ) );
+
+    /**
+     * Constructor.
+     *
+     * @param   name  parameter name
+     */
+    public RowRunnerParameter( String name ) {
+        super( name, RowRunner.class );
+        addOption( RowRunner.SEQUENTIAL, SEQUENTIAL );
+        addOption( RowRunner.DEFAULT, PARALLEL );
+        addOption( PARTEST_RUNNER, PARTEST );
+        setDefaultOption( RowRunner.DEFAULT );
+        setPrompt( "Threading implementation" );
+        setUsage( SEQUENTIAL + "|" + PARALLEL + "|" + PARALLEL + "<n>" );
+        setDescription( new String[] {
+            "<p>Selects the threading implementation.",
+            "The options are currently:",
+            "<ul>",
+            "<li><code>" + SEQUENTIAL + "</code>:",
+                 "runs using only a single thread",
+                 "</li>",
+            "<li><code>" + PARALLEL + "</code>:",
+                 "runs using multiple threads for large tables,",
+                 "with parallelism given by the number of available",
+                 "processors",
+                 "</li>",
+            "<li><code>" + PARALLEL + "&lt;n&gt;</code>:",
+                 "runs using multiple threads for large tables,",
+                 "with parallelism given by the supplied value",
+                 "<code>&lt;n&gt;</code>",
+                 "</li>",
+            "<li><code>" + PARTEST + "</code>:",
+                 "runs using multiple threads even when tables are small",
+                 "(only intended for testing purposes)",
+                 "</li>",
+            "</ul>",
+            "</p>",
+            "<p>Parallel processing is only possible for tables",
+            "that support it, which usually means those held in memory",
+            "or in random-access files;",
+            "for other tables processing will be sequential whatever",
+            "the value of this parameter.",
+            "Using parallel processing may be faster for large tables,",
+            "but the output will be the same in any case.",
+            "</p>",
+        } );
+    }
+
+    @Override
+    public RowRunner stringToObject( Environment env, String sval )
+            throws TaskException {
+        Matcher matcher = PARALLEL_N_REGEX.matcher( sval );
+        if ( matcher.matches() ) {
+            int npar;
+            try {
+                npar = Integer.parseInt( matcher.group( 1 ) );
+            }
+            catch ( NumberFormatException e ) {
+                npar = 0;
+            }
+            if ( npar < 1 ) {
+                throw new ParameterValueException( this, "Bad thread count" );
+            }
+            return npar == 1 ? RowRunner.SEQUENTIAL
+                             : getParallelRunner( npar );
+        }
+        else {
+            return super.stringToObject( env, sval );
+        }
+    }
+
+    /**
+     * Returns a runner with a given fixed parallelism.
+     * Runners, and the thread pools they use, are cached,
+     * so that repeated parameter parses do not each create a new pool.
+     * The pools' worker threads are daemons, and exit when idle.
+     *
+     * @param  npar  parallelism
+     * @return  runner
+     */
+    private static RowRunner getParallelRunner( int npar ) {
+        synchronized ( PARALLEL_RUNNERS ) {
+            RowRunner runner = PARALLEL_RUNNERS.get( npar );
+            if ( runner == null ) {
+                ForkJoinPool pool = new ForkJoinPool( npar );
+                runner = new RowRunner( SplitProcessor
+                                       .createBasicParallelProcessor(
+                                            new SplitPolicy( pool, 0,
+                                                             (short) -1 ) ) );
+                PARALLEL_RUNNERS.put( npar, runner );
+            }
+            return runner;
+        }
+    }
+}
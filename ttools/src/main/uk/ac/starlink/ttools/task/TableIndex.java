@@ -0,0 +1,88 @@
+package uk.ac.starlink.ttools.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.task.Environment;
+import uk.ac.starlink.task.Executable;
+import uk.ac.starlink.task.Parameter;
+import uk.ac.starlink.task.StringParameter;
+import uk.ac.starlink.task.Task;
+import uk.ac.starlink.task.TaskException;
+import uk.ac.starlink.ttools.filter.ColumnIndex;
+import uk.ac.starlink.ttools.jel.ColumnIdentifier;
+
+/**
+ * Task to write sorted column index sidecar files for a table.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ * @see      uk.ac.starlink.ttools.filter.ColumnIndex
+ */
+public class TableIndex implements Task {
+
+    private final InputTableParameter inParam_;
+    private final StringParameter colsParam_;
+
+    public TableIndex() {
+        inParam_ = new InputTableParameter( "in" );
+        inParam_.setPosition( 1 );
+        inParam_.setDescription( new String[] {
+            inParam_.getDescription(),
+            "<p>The table must be a file on the local disk,",
+            "typically FITS or colfits, since the index files",
+            "are written alongside it.",
+            "</p>",
+        } );
+
+        colsParam_ = new StringParameter( "cols" );
+        colsParam_.setPosition( 2 );
+        colsParam_.setUsage( "<colid-list>" );
+        colsParam_.setPrompt( "Columns to index" );
+        colsParam_.setDescription( new String[] {
+            "<p>Space-separated list of the numeric columns",
+            "for which indices are to be written.",
+            "See <ref id='colid-list'/> for list syntax.",
+            "</p>",
+        } );
+    }
+
+    public String getPurpose() {
+        return "Writes sorted column indices for fast row selection";
+    }
+
+    public Parameter<?>[] getParameters() {
+        return new Parameter<?>[] {
+            inParam_,
+            colsParam_,
+        };
+    }
+
+    public Executable createExecutable( Environment env ) throws TaskException {
+        final StarTable table = inParam_.tableValue( env );
+        final String colids = colsParam_.stringValue( env );
+        final PrintStream out = env.getOutputStream();
+        long nrow = table.getRowCount();
+        if ( nrow > ColumnIndex.MAX_ROWS ) {
+            throw new TaskException( "Table too large to index (" + nrow
+                                   + " > " + ColumnIndex.MAX_ROWS
+                                   + " rows)" );
+        }
+        if ( ! ColumnIndex.isIndexable( table ) ) {
+            throw new TaskException( "Table " + inParam_.stringValue( env )
+                                   + " not read directly from a local file" );
+        }
+        return new Executable() {
+            public void execute() throws IOException, TaskException {
+                int[] icols =
+                    new ColumnIdentifier( table ).getColumnIndices( colids );
+                for ( int icol : icols ) {
+                    File file = ColumnIndex.writeIndex( table, icol );
+                    out.println( table.getColumnInfo( icol ).getName()
+                               + ": " + file );
+                }
+            }
+        };
+    }
+}
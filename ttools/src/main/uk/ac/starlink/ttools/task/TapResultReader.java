@@ -22,6 +22,7 @@ import uk.ac.starlink.util.ContentCoding;
 import uk.ac.starlink.vo.TapQuery;
 import uk.ac.starlink.vo.UwsJob;
 import uk.ac.starlink.vo.UwsJobInfo;
+import uk.ac.starlink.vo.UwsJobMonitor;
 import uk.ac.starlink.vo.UwsStage;
 
 /**
@@ -39,6 +40,17 @@ public class TapResultReader {
     private final Parameter<?>[] parameters_;
     private static final Logger logger_ =
         Logger.getLogger( "uk.ac.starlink.ttools.task" );
+    private static UwsJobMonitor jobMonitor_;
+
+    /**
+     * Number of threads used by the shared job monitor.
+     * This does not exceed the JDK's default per-server limit on
+     * idle keep-alive connections.
+     */
+    private static final int MONITOR_THREADS = 4;
+
+    /** Maximum timeout in seconds for blocking job status reads. */
+    private static final int MONITOR_MAX_WAIT_SEC = 60;
 
     /**
      * Constructor.
@@ -51,11 +63,17 @@ public class TapResultReader {
         int minPoll = 50;
         pollParam_.setMinimum( minPoll );
         pollParam_.setDescription( new String[] {
-            "<p>Interval to wait between polling attempts, in milliseconds.",
+            "<p>Initial interval to wait between polling attempts,",
+            "in milliseconds.",
             "Asynchronous TAP queries can only find out when they are",
             "complete by repeatedly polling the server to find out the",
             "job's status.  This parameter allows you to set how often",
             "that happens.",
+            "If the job's phase is unchanged between polls,",
+            "the interval is doubled for the next one,",
+            "up to a limit of one minute.",
+            "Services supporting UWS 1.1 blocking requests",
+            "are not polled in this way.",
             "Attempts to set it too low (&lt;" + minPoll + ")",
             "will be rejected on the assumption that you're thinking in",
             "seconds.",
@@ -117,6 +135,23 @@ public class TapResultReader {
         return progressParam_;
     }
 
+    /**
+     * Returns the job monitor shared by all result producers in this JVM.
+     * Using a single monitor means that a fixed small number of threads
+     * is used to watch however many TAP jobs are in progress,
+     * rather than one blocked thread per job.
+     *
+     * @return  shared job monitor
+     */
+    private static synchronized UwsJobMonitor getJobMonitor() {
+        if ( jobMonitor_ == null ) {
+            jobMonitor_ = new UwsJobMonitor( MONITOR_THREADS, 5000,
+                                             UwsJob.MAX_POLL_MILLIS,
+                                             MONITOR_MAX_WAIT_SEC );
+        }
+        return jobMonitor_;
+    }
+
     /**
      * Returns an object which can acquire a table from a TAP query object.
      *
@@ -185,8 +220,9 @@ public class TapResultReader {
                     Runtime.getRuntime().addShutdownHook( deleteThread );
                 }
                 try {
-                    table = TapQuery.waitForResult( tapJob, coding,
-                                                    storage, pollMillis );
+                    table = TapQuery.waitForResult( tapJob, coding, storage,
+                                                    getJobMonitor(),
+                                                    pollMillis );
                 }
                 catch ( InterruptedException e ) {
                     considerDeletionEarly( tapJob );
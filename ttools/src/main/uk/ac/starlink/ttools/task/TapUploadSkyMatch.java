@@ -21,6 +21,7 @@ import uk.ac.starlink.task.StringParameter;
 import uk.ac.starlink.task.TaskException;
 import uk.ac.starlink.ttools.cone.BlockUploader;
 import uk.ac.starlink.ttools.cone.JELQuerySequenceFactory;
+import uk.ac.starlink.ttools.cone.ParallelResultRowSequence;
 import uk.ac.starlink.ttools.cone.QuerySequenceFactory;
 import uk.ac.starlink.ttools.cone.ServiceFindMode;
 import uk.ac.starlink.ttools.cone.TapUploadMatcher;
@@ -46,6 +47,7 @@ public class TapUploadSkyMatch extends SingleMapperTask {
     private final StringMultiParameter tapcolsParam_;
     private final ChoiceParameter<UserFindMode> findParam_;
     private final IntegerParameter chunkParam_;
+    private final IntegerParameter parallelParam_;
     private final IntegerParameter maxrecParam_;
     private final BooleanParameter syncParam_;
     private final LongParameter tapmaxrecParam_;
@@ -221,6 +223,37 @@ public class TapUploadSkyMatch extends SingleMapperTask {
         paramList.add( findParam_ );
         paramList.add( chunkParam_ );
 
+        parallelParam_ = new IntegerParameter( "parallel" );
+        parallelParam_.setPrompt( "Number of blocks to upload concurrently" );
+        parallelParam_.setUsage( "<n>" );
+        parallelParam_.setMinimum( 1 );
+        parallelParam_.setMaximum( ParallelResultRowSequence
+                                  .getMaxParallelism() );
+        parallelParam_.setIntDefault( 1 );
+        parallelParam_.setDescription( new String[] {
+            "<p>Number of blocks of input rows",
+            "(see <code>" + chunkParam_.getName() + "</code>)",
+            "that may be in progress at the TAP service at once.",
+            "With the default value of 1, each block is uploaded",
+            "and its result received before the next one is prepared.",
+            "Larger values allow the next blocks to be prepared and",
+            "uploaded while earlier ones are still running,",
+            "which can reduce the total time for large matches",
+            "when much of it is spent in upload and round trips.",
+            "The output is the same either way.",
+            "In this mode a block whose query fails is retried",
+            "a few times before the whole match is abandoned.",
+            "</p>",
+            "<p>The maximum value is "
+            + ParallelResultRowSequence.DEFAULT_MAXPAR,
+            "unless the",
+            ParallelResultRowSequence.MAXPAR_PROP + " system property",
+            "is set.",
+            "Only increase it if the service can cope with the extra load.",
+            "</p>",
+        } );
+        paramList.add( parallelParam_ );
+
         maxrecParam_ = new IntegerParameter( "maxrec" );
         maxrecParam_.setPrompt( "Maximum number of output rows" );
         maxrecParam_.setDescription( new String[] {
@@ -305,6 +338,7 @@ public class TapUploadSkyMatch extends SingleMapperTask {
         ServiceFindMode serviceMode = userMode.getServiceMode();
         boolean oneToOne = userMode.isOneToOne();
         int blocksize = chunkParam_.intValue( env );
+        int parallel = parallelParam_.intValue( env );
         final long maxrec = maxrecParam_.intValue( env );
         boolean isSync = syncParam_.booleanValue( env );
         Map<String,String> extraParams = new LinkedHashMap<String,String>();
@@ -337,6 +371,7 @@ public class TapUploadSkyMatch extends SingleMapperTask {
         blocker.setTruncationAdvice( "Reduce " + chunkParam_.getName() + "? "
                                    + "Increase " + tapmaxrecParam_.getName()
                                    + "?" );
+        blocker.setParallelBlocks( parallel );
 
         /* Create and return an object which will produce the result. */
         return new TableProducer() {
@@ -0,0 +1,222 @@
+package uk.ac.starlink.ttools.cone;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.JoinFixAction;
+import uk.ac.starlink.table.RowListStarTable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.TableSink;
+import uk.ac.starlink.ttools.TableTestCase;
+import uk.ac.starlink.ttools.func.CoordsDegrees;
+
+public class BlockUploaderTest extends TableTestCase {
+
+    private final StarTable inTable_;
+    private final double[][] remotePositions_;
+    private final QuerySequenceFactory qsFact_;
+
+    public BlockUploaderTest( String name ) {
+        super( name );
+        Logger.getLogger( "uk.ac.starlink.ttools.task" )
+              .setLevel( Level.SEVERE );
+        Random rnd = new Random( 230001 );
+        RowListStarTable inTable = new RowListStarTable( new ColumnInfo[] {
+            new ColumnInfo( "RA", Double.class, null ),
+            new ColumnInfo( "DEC", Double.class, null ),
+            new ColumnInfo( "N", Integer.class, null ),
+        } );
+        for ( int i = 0; i < 1000; i++ ) {
+            inTable.addRow( new Object[] {
+                new Double( rnd.nextDouble() * 20 ),
+                new Double( rnd.nextDouble() * 20 ),
+                new Integer( i ),
+            } );
+        }
+        inTable_ = inTable;
+        remotePositions_ = new double[ 400 ][];
+        for ( int i = 0; i < remotePositions_.length; i++ ) {
+            remotePositions_[ i ] = new double[] {
+                rnd.nextDouble() * 20, rnd.nextDouble() * 20,
+            };
+        }
+        qsFact_ = new JELQuerySequenceFactory( "RA", "DEC", "0.5" );
+    }
+
+    public void testPipelined() throws IOException {
+        LocalUploadMatcher matcher = new LocalUploadMatcher( 0 );
+        StarTable seqResult = runMatch( matcher, 97, -1, 1 );
+        assertTrue( seqResult.getRowCount() > 500 );
+        for ( int npar : new int[] { 2, 4, 8 } ) {
+            assertSameData( seqResult, runMatch( matcher, 97, -1, npar ) );
+        }
+
+        /* Small and single blocks. */
+        assertSameData( seqResult, runMatch( matcher, 1, -1, 3 ) );
+        assertSameData( seqResult, runMatch( matcher, 5000, -1, 3 ) );
+
+        /* Truncated output. */
+        for ( int maxrec : new int[] { 1, 50, 150 } ) {
+            StarTable seqTrunc = runMatch( matcher, 40, maxrec, 1 );
+            assertEquals( maxrec, seqTrunc.getRowCount() );
+            assertSameData( seqTrunc, runMatch( matcher, 40, maxrec, 4 ) );
+        }
+    }
+
+    public void testRetry() throws IOException {
+        StarTable seqResult =
+            runMatch( new LocalUploadMatcher( 0 ), 100, -1, 1 );
+
+        /* Blocks which fail once are retried. */
+        LocalUploadMatcher flaky = new LocalUploadMatcher( 0 );
+        flaky.failures_.add( "200/1" );
+        flaky.failures_.add( "700/1" );
+        assertSameData( seqResult, runMatch( flaky, 100, -1, 4 ) );
+        assertTrue( flaky.failures_.isEmpty() );
+
+        /* A block which fails every time fails the match. */
+        LocalUploadMatcher broken = new LocalUploadMatcher( 0 );
+        for ( int i = 1; i <= BlockUploader.BLOCK_ATTEMPTS; i++ ) {
+            broken.failures_.add( "300/" + i );
+        }
+        try {
+            runMatch( broken, 100, -1, 4 );
+            fail();
+        }
+        catch ( IOException e ) {
+            assertTrue( e.getMessage().indexOf( "after 3 completed" ) >= 0 );
+        }
+    }
+
+    public void testLatency() throws IOException {
+        LocalUploadMatcher slow = new LocalUploadMatcher( 50 );
+        long t0 = System.currentTimeMillis();
+        StarTable seqResult = runMatch( slow, 50, -1, 1 );
+        long t1 = System.currentTimeMillis();
+        StarTable parResult = runMatch( slow, 50, -1, 4 );
+        long t2 = System.currentTimeMillis();
+        assertSameData( seqResult, parResult );
+        assertTrue( ( t2 - t1 ) * 2 < ( t1 - t0 ) );
+    }
+
+    private StarTable runMatch( UploadMatcher matcher, int blocksize,
+                                long maxrec, int npar )
+            throws IOException {
+        BlockUploader blocker =
+            new BlockUploader( matcher, blocksize, maxrec, "test",
+                               JoinFixAction.NO_ACTION,
+                               JoinFixAction.makeRenameDuplicatesAction( "_r" ),
+                               ServiceFindMode.ALL, false, true );
+        blocker.setParallelBlocks( npar );
+        return blocker.runMatch( inTable_, qsFact_,
+                                 StoragePolicy.PREFER_MEMORY );
+    }
+
+    /**
+     * Stand-in for a remote upload match service, which matches
+     * uploaded positions against a fixed list of positions in memory.
+     * It can simulate service latency, and fail on request.
+     */
+    private class LocalUploadMatcher implements UploadMatcher {
+
+        final long latencyMillis_;
+
+        /**
+         * Failures to provoke, in the form "(first-index)/(attempt)".
+         */
+        final Set<String> failures_;
+        private final Set<String> attempts_;
+
+        LocalUploadMatcher( long latencyMillis ) {
+            latencyMillis_ = latencyMillis;
+            failures_ = Collections.synchronizedSet( new HashSet<String>() );
+            attempts_ = new HashSet<String>();
+        }
+
+        public boolean streamRawResult( ConeQueryRowSequence coneSeq,
+                                        TableSink sink, RowMapper<?> mapper,
+                                        long maxrec )
+                throws IOException {
+            sink.acceptMetadata( new RowListStarTable( new ColumnInfo[] {
+                new ColumnInfo( "id", mapper.getIdClass(), null ),
+                new ColumnInfo( "ra", Double.class, null ),
+                new ColumnInfo( "dec", Double.class, null ),
+                new ColumnInfo( "dist", Double.class, null ),
+            } ) );
+            long nrow = 0;
+            String failKey = null;
+            while ( coneSeq.next() ) {
+                long index = coneSeq.getIndex();
+                if ( failKey == null ) {
+                    int iAttempt = 1;
+                    synchronized ( attempts_ ) {
+                        while ( ! attempts_.add( index + "/" + iAttempt ) ) {
+                            iAttempt++;
+                        }
+                    }
+                    failKey = index + "/" + iAttempt;
+                }
+                double ra = coneSeq.getRa();
+                double dec = coneSeq.getDec();
+                double sr = coneSeq.getRadius();
+                for ( double[] pos : remotePositions_ ) {
+                    double dist =
+                        CoordsDegrees.skyDistanceDegrees( ra, dec,
+                                                          pos[ 0 ], pos[ 1 ] );
+                    if ( dist <= sr ) {
+                        if ( maxrec >= 0 && nrow >= maxrec ) {
+                            return true;
+                        }
+                        sink.acceptRow( new Object[] {
+                            mapper.rowIndexToId( index ),
+                            new Double( pos[ 0 ] ), new Double( pos[ 1 ] ),
+                            new Double( dist ),
+                        } );
+                        nrow++;
+                    }
+                }
+
+                /* Fail part way through, after some rows have been
+                 * written. */
+                if ( failures_.remove( failKey ) ) {
+                    throw new IOException( "Simulated failure " + failKey );
+                }
+            }
+            if ( latencyMillis_ > 0 ) {
+                try {
+                    Thread.sleep( latencyMillis_ );
+                }
+                catch ( InterruptedException e ) {
+                    throw new IOException( "Interrupted" );
+                }
+            }
+            return false;
+        }
+
+        public ColumnPlan getColumnPlan( ColumnInfo[] resultCols,
+                                         final ColumnInfo[] uploadCols ) {
+            return new ColumnPlan() {
+                final int ncUp_ = uploadCols.length;
+                public int getOutputColumnCount() {
+                    return ncUp_ + 3;
+                }
+                public int getOutputColumnLocation( int icol ) {
+                    return icol < ncUp_ ? -icol - 1
+                                        : icol - ncUp_ + 1;
+                }
+                public int getResultIdColumnIndex() {
+                    return 0;
+                }
+                public int getResultScoreColumnIndex() {
+                    return 3;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package uk.ac.starlink.ttools.cone;
+
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class ConcurrencyLimiterTest extends TestCase {
+
+    private static final long MS = 1000000;
+
+    public ConcurrencyLimiterTest( String name ) {
+        super( name );
+    }
+
+    public void testFixed() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter( 4, false );
+        assertEquals( 4, limiter.getLimit() );
+        for ( int i = 0; i < 4; i++ ) {
+            limiter.acquire();
+        }
+        assertEquals( 4, limiter.getActiveCount() );
+        limiter.release( 10 * MS, false );
+        limiter.release( 10 * MS, true );
+        assertEquals( 4, limiter.getLimit() );
+        assertEquals( 2, limiter.getActiveCount() );
+    }
+
+    public void testAimd() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter( 6, true );
+        assertEquals( 1, limiter.getLimit() );
+
+        /* Additive increase while latency stays low. */
+        runQueries( limiter, 1, 100 * MS, true );
+        assertEquals( 2, limiter.getLimit() );
+        runQueries( limiter, 2, 100 * MS, true );
+        assertEquals( 3, limiter.getLimit() );
+        for ( int i = 0; i < 10; i++ ) {
+            runQueries( limiter, limiter.getLimit(), 120 * MS, true );
+        }
+        assertEquals( 6, limiter.getLimit() );
+
+        /* Multiplicative decrease on error. */
+        runQueries( limiter, 1, 100 * MS, false );
+        assertEquals( 3, limiter.getLimit() );
+        runQueries( limiter, 1, 100 * MS, false );
+        assertEquals( 1, limiter.getLimit() );
+        runQueries( limiter, 1, 100 * MS, false );
+        assertEquals( 1, limiter.getLimit() );
+
+        /* Back off if latency grows. */
+        for ( int i = 0; i < 3; i++ ) {
+            runQueries( limiter, limiter.getLimit(), 100 * MS, true );
+        }
+        assertEquals( 4, limiter.getLimit() );
+        for ( int i = 0; i < 20; i++ ) {
+            runQueries( limiter, limiter.getLimit(), 1000 * MS, true );
+        }
+        assertEquals( 1, limiter.getLimit() );
+        String report = limiter.getReport();
+        assertTrue( report.indexOf( "Failed attempts: 3" ) >= 0 );
+        assertTrue( report.indexOf( "peak 6" ) >= 0 );
+    }
+
+    public void testMixedLatency() throws InterruptedException {
+
+        /* Successful queries with widely varying latencies, for instance
+         * empty and well-populated cones, do not indicate saturation. */
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter( 8, true );
+        Random rnd = new Random( 2302001 );
+        for ( int i = 0; i < 200; i++ ) {
+            int n = limiter.getLimit();
+            for ( int j = 0; j < n; j++ ) {
+                limiter.acquire();
+            }
+            for ( int j = 0; j < n; j++ ) {
+                long nanos = rnd.nextInt( 4 ) == 0
+                           ? ( 1 + rnd.nextInt( 3 ) ) * MS
+                           : ( 200 + rnd.nextInt( 400 ) ) * MS;
+                limiter.release( nanos, true );
+            }
+            if ( i >= 100 ) {
+                assertTrue( limiter.getLimit() >= 4 );
+            }
+        }
+
+        /* A single fast response early on does not set a permanent
+         * baseline against which normal latencies look saturated. */
+        limiter = new ConcurrencyLimiter( 8, true );
+        runQueries( limiter, 1, 1 * MS, true );
+        for ( int i = 0; i < 100; i++ ) {
+            runQueries( limiter, limiter.getLimit(), 300 * MS, true );
+        }
+        assertEquals( 8, limiter.getLimit() );
+    }
+
+    public void testHistogram() {
+        LatencyHistogram hist = new LatencyHistogram();
+        assertEquals( 0, hist.getCount() );
+        assertTrue( Double.isNaN( hist.getMeanMillis() ) );
+        hist.add( 5 * MS );
+        hist.add( 15 * MS );
+        hist.add( 19 * MS );
+        hist.add( 300000 * MS );
+        assertEquals( 4, hist.getCount() );
+        assertEquals( 1, hist.getBinCount( 0 ) );
+        assertEquals( 2, hist.getBinCount( 1 ) );
+        assertEquals( 1, hist.getBinCount( hist.getNumBins() - 1 ) );
+        assertEquals( 75009.75, hist.getMeanMillis(), 1e-6 );
+        String report = hist.toReport();
+        assertTrue( report.indexOf( "10ms-20ms: 2" ) > 0 );
+        assertTrue( report.indexOf( ">=100s: 1" ) > 0 );
+    }
+
+    private static void runQueries( ConcurrencyLimiter limiter, int n,
+                                    long nanos, boolean success )
+            throws InterruptedException {
+        for ( int i = 0; i < n; i++ ) {
+            limiter.acquire();
+        }
+        for ( int i = 0; i < n; i++ ) {
+            limiter.release( nanos, success );
+        }
+    }
+}
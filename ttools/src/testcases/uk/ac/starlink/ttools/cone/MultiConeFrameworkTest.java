@@ -43,6 +43,60 @@ public class MultiConeFrameworkTest extends TableTestCase {
         }
     }
 
+    public void testAdaptive() throws Exception {
+        final ConeSearcher searcher = new LinearConeSearcher( 4, 2 );
+        final StarTable messier = 
+            new VOTableBuilder()
+           .makeStarTable( new URLDataSource( getClass()
+                                             .getResource( "../messier.xml" ) ),
+                           true, StoragePolicy.PREFER_MEMORY );
+        TableProducer inProd = new TableProducer() {
+            public StarTable getTable() {
+                return messier;
+            }
+        };
+        QuerySequenceFactory qsFact =
+            new JELQuerySequenceFactory( "RA + 0", "DEC", "0.5" );
+        StarTable result1 = Tables.randomTable( getTable(
+            new ConeMatcher( searcher, errAct, inProd, qsFact, false,
+                             null, true, true, 1, "*", "dist",
+                             JoinFixAction.NO_ACTION,
+                             JoinFixAction.NO_ACTION ) ) );
+
+        /* Searcher which fails on some attempts; the failures should be
+         * retried by the error policy and reduce the concurrency,
+         * but not affect the result. */
+        ConeSearcher flakySearcher = new ConeSearcher() {
+            private int iCall_;
+            public StarTable performSearch( double ra, double dec, double sr )
+                    throws IOException {
+                synchronized ( this ) {
+                    if ( ++iCall_ % 10 == 3 ) {
+                        throw new IOException( "Flaky" );
+                    }
+                }
+                return searcher.performSearch( ra, dec, sr );
+            }
+            public int getRaIndex( StarTable result ) {
+                return searcher.getRaIndex( result );
+            }
+            public int getDecIndex( StarTable result ) {
+                return searcher.getDecIndex( result );
+            }
+            public void close() {
+            }
+        };
+        ConeMatcher adaptMatcher =
+            new ConeMatcher( flakySearcher,
+                             ConeErrorPolicy.createRetryPolicy( "retry3", 3 ),
+                             inProd, qsFact, false, null, true, true, 8, "*",
+                             "dist", JoinFixAction.NO_ACTION,
+                             JoinFixAction.NO_ACTION );
+        adaptMatcher.setAdaptiveParallel( true );
+        StarTable resultN = Tables.randomTable( getTable( adaptMatcher ) );
+        assertSameData( result1, resultN );
+    }
+
     private StarTable doTestLinear( int parallelism, boolean addScore )
             throws Exception {
         int nIn = 4;
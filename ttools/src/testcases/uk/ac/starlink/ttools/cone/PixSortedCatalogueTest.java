@@ -0,0 +1,183 @@
+package uk.ac.starlink.ttools.cone;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.ttools.func.CoordsDegrees;
+
+public class PixSortedCatalogueTest extends TestCase {
+
+    private static final int NROW = 50000;
+
+    public void setUp() {
+        Logger.getLogger( "uk.ac.starlink.ttools.cone" )
+              .setLevel( Level.WARNING );
+        Logger.getLogger( "uk.ac.starlink.fits" ).setLevel( Level.WARNING );
+        Logger.getLogger( "uk.ac.starlink.table.storage" )
+              .setLevel( Level.WARNING );
+    }
+
+    public void testCatalogue() throws Exception {
+        Random rnd = new Random( 8823401L );
+        double[] ras = new double[ NROW ];
+        double[] decs = new double[ NROW ];
+        int[] ids = new int[ NROW ];
+        for ( int i = 0; i < NROW; i++ ) {
+            ras[ i ] = rnd.nextDouble() * 360;
+            decs[ i ] = Math.toDegrees( Math.asin( 2 * rnd.nextDouble()
+                                                   - 1 ) );
+            ids[ i ] = i;
+        }
+        ras[ 99 ] = Double.NaN;
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( NROW );
+        table.addColumn( ArrayColumn.makeColumn( "id", ids ) );
+        table.addColumn( ArrayColumn.makeColumn( "ra", ras ) );
+        table.addColumn( ArrayColumn.makeColumn( "dec", decs ) );
+
+        File file = File.createTempFile( "cat", ".fits" );
+        file.deleteOnExit();
+        PixSortedCatalogue.getIndexFile( file ).deleteOnExit();
+        int order = PixSortedCatalogue.getDefaultOrder( NROW );
+        assertEquals( 3, order );
+        PixSortedCatalogue.writeCatalogue( table, 1, 2, order, file );
+        PixSortedCatalogue cat = PixSortedCatalogue.open( file );
+        assertEquals( NROW - 1, cat.getTable().getRowCount() );
+        assertEquals( NROW - 1, cat.getTileStart( 12 << ( 2 * order ) ) );
+
+        final ConeSearcher searcher = new PixSortedConeSearcher( cat, false );
+        ExecutorService exec = Executors.newFixedThreadPool( 4 );
+        List<Future<?>> futures = new ArrayList<>();
+        for ( int iq = 0; iq < 200; iq++ ) {
+            final double ra = rnd.nextDouble() * 360;
+            final double dec = iq % 20 == 0 ? 89.5 * ( iq % 40 == 0 ? 1 : -1 )
+                                            : rnd.nextDouble() * 180 - 90;
+            final double sr = iq % 10 == 0 ? 10 : rnd.nextDouble() * 2;
+            futures.add( exec.submit( () -> {
+                Set<Integer> expected = new TreeSet<>();
+                for ( int i = 0; i < NROW; i++ ) {
+                    if ( CoordsDegrees.skyDistanceDegrees( ra, dec, ras[ i ],
+                                                           decs[ i ] )
+                         <= sr ) {
+                        expected.add( Integer.valueOf( i ) );
+                    }
+                }
+                assertEquals( expected,
+                              getIds( searcher.performSearch( ra, dec,
+                                                              sr ) ) );
+                return null;
+            } ) );
+        }
+        for ( Future<?> f : futures ) {
+            f.get();
+        }
+        exec.shutdown();
+
+        ConeSearcher best = new PixSortedConeSearcher( cat, true );
+        StarTable b1 = best.performSearch( ras[ 5 ], decs[ 5 ], 1.0 );
+        assertEquals( 1, b1.getRowCount() );
+        assertEquals( Integer.valueOf( 5 ), b1.getCell( 0, 0 ) );
+
+        /* A changed catalogue file must be noticed. */
+        assertTrue( file.setLastModified( file.lastModified() - 10000 ) );
+        try {
+            PixSortedCatalogue.open( file );
+            fail();
+        }
+        catch ( IOException e ) {
+            // ok
+        }
+    }
+
+    public void testExternalSort() throws Exception {
+        Random rnd = new Random( 2209331L );
+        int nrow = 20000;
+        double[] ras = new double[ nrow ];
+        double[] decs = new double[ nrow ];
+        int[] ids = new int[ nrow ];
+        String[] names = new String[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+
+            /* Cluster some of the positions so that tiles are uneven. */
+            boolean clustered = i % 3 == 0;
+            ras[ i ] = clustered ? 10 + rnd.nextDouble()
+                                 : rnd.nextDouble() * 360;
+            decs[ i ] = clustered ? 20 + rnd.nextDouble()
+                                  : rnd.nextDouble() * 180 - 90;
+            ids[ i ] = i;
+            names[ i ] = i % 7 == 0 ? null : "row" + i;
+        }
+        decs[ 12 ] = Double.NaN;
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "id", ids ) );
+        table.addColumn( ArrayColumn.makeColumn( "ra", ras ) );
+        table.addColumn( ArrayColumn.makeColumn( "dec", decs ) );
+        table.addColumn( ArrayColumn.makeColumn( "name", names ) );
+        int order = 4;
+
+        File file1 = File.createTempFile( "cat1", ".fits" );
+        File file2 = File.createTempFile( "cat2", ".fits" );
+        for ( File f : new File[] { file1, file2 } ) {
+            f.deleteOnExit();
+            PixSortedCatalogue.getIndexFile( f ).deleteOnExit();
+        }
+        PixSortedCatalogue.writeCatalogue( table, 1, 2, order, file1 );
+
+        /* Force several levels of distribution. */
+        PixSortedCatalogue.writeCatalogue( table, 1, 2, order, file2, 50, 3 );
+        PixSortedCatalogue cat1 = PixSortedCatalogue.open( file1 );
+        PixSortedCatalogue cat2 = PixSortedCatalogue.open( file2 );
+        int npix = 12 << ( 2 * order );
+        assertEquals( nrow - 1, cat2.getTileStart( npix ) );
+        for ( int ip = 0; ip <= npix; ip++ ) {
+            assertEquals( cat1.getTileStart( ip ), cat2.getTileStart( ip ) );
+        }
+
+        /* Rows are in tile order, and in input order within each tile. */
+        CdsHealpix hpi = CdsHealpix.getInstance();
+        StarTable t1 = cat1.getTable();
+        StarTable t2 = cat2.getTable();
+        long lastPix = -1;
+        int lastId = -1;
+        for ( long ir = 0; ir < nrow - 1; ir++ ) {
+            Object[] row = t2.getRow( ir );
+            assertEquals( Arrays.asList( t1.getRow( ir ) ),
+                          Arrays.asList( row ) );
+            int id = ((Integer) row[ 0 ]).intValue();
+            long ipix = hpi.ang2pix( order, ras[ id ], decs[ id ] );
+            assertTrue( ipix >= lastPix );
+            if ( ipix == lastPix ) {
+                assertTrue( id > lastId );
+            }
+            assertTrue( ir >= cat2.getTileStart( ipix ) &&
+                        ir < cat2.getTileStart( ipix + 1 ) );
+            assertEquals( names[ id ], row[ 3 ] );
+            lastPix = ipix;
+            lastId = id;
+        }
+    }
+
+    private static Set<Integer> getIds( StarTable table ) throws Exception {
+        Set<Integer> ids = new TreeSet<>();
+        try ( RowSequence rseq = table.getRowSequence() ) {
+            while ( rseq.next() ) {
+                ids.add( (Integer) rseq.getCell( 0 ) );
+            }
+        }
+        return ids;
+    }
+}
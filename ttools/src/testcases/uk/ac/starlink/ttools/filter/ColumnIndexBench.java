@@ -0,0 +1,88 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import junit.framework.TestCase;
+import uk.ac.starlink.fits.FitsTableWriter;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StarTableFactory;
+
+/**
+ * Compares the speed of row selection on a FITS file with and without
+ * a column index.
+ * Not run as part of the regular test suite; invoke it by hand,
+ * with -Dbench.nrow=N for N of 1e7 to 1e8 and enough temporary
+ * disk space for the table.
+ */
+public class ColumnIndexBench extends TestCase {
+
+    public ColumnIndexBench( String name ) {
+        super( name );
+    }
+
+    public void testSelect() throws Exception {
+        int nrow = (int) Double.parseDouble( System.getProperty( "bench.nrow",
+                                                                 "1e7" ) );
+        Random rnd = new Random( 99125L );
+        double[] xvals = new double[ nrow ];
+        float[] yvals = new float[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            xvals[ i ] = rnd.nextDouble() * 360;
+            yvals[ i ] = (float) rnd.nextGaussian();
+        }
+        ColumnStarTable mem = ColumnStarTable.makeTableWithRows( nrow );
+        mem.addColumn( ArrayColumn.makeColumn( "x", xvals ) );
+        mem.addColumn( ArrayColumn.makeColumn( "y", yvals ) );
+        File dataFile = File.createTempFile( "bench", ".fits" );
+        dataFile.deleteOnExit();
+        try ( OutputStream out =
+                  new BufferedOutputStream(
+                      new FileOutputStream( dataFile ) ) ) {
+            new FitsTableWriter().writeStarTable( mem, out );
+        }
+        mem = null;
+        xvals = null;
+        yvals = null;
+        StarTable table =
+            new StarTableFactory( true ).makeStarTable( dataFile.toString() );
+        String[] exprs = {
+            "x > 10 && x < 10.1",
+            "x >= 100 && x < 110 && y > 0",
+            "x < 60",
+        };
+        for ( String expr : exprs ) {
+            bench( "scan", table, expr );
+        }
+        long t0 = System.currentTimeMillis();
+        File idxFile = ColumnIndex.writeIndex( table, 0 );
+        idxFile.deleteOnExit();
+        System.out.println( "index x: " + nrow + " rows, "
+                          + ( System.currentTimeMillis() - t0 ) + "ms" );
+        for ( String expr : exprs ) {
+            bench( "indexed", table, expr );
+        }
+        idxFile.delete();
+    }
+
+    private void bench( String name, StarTable table, String expr )
+            throws Exception {
+        long t0 = System.currentTimeMillis();
+        long nsel = 0;
+        StarTable sel = new JELSelectorTable( table, expr );
+        try ( RowSequence rseq = sel.getRowSequence() ) {
+            while ( rseq.next() ) {
+                rseq.getRow();
+                nsel++;
+            }
+        }
+        System.out.println( name + " select \"" + expr + "\": "
+                          + nsel + "/" + table.getRowCount() + " rows, "
+                          + ( System.currentTimeMillis() - t0 ) + "ms" );
+    }
+}
@@ -0,0 +1,208 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import junit.framework.TestCase;
+import uk.ac.starlink.fits.FitsTableWriter;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.table.StarTableFactory;
+
+public class ColumnIndexTest extends TestCase {
+
+    private static final int NROW = 20000;
+
+    static {
+        Logger.getLogger( "uk.ac.starlink.ttools.filter" )
+              .setLevel( Level.WARNING );
+    }
+
+    public ColumnIndexTest( String name ) {
+        super( name );
+    }
+
+    public void testConjuncts() {
+        assertEquals( Arrays.asList( "a > 1", "b<2", "c" ),
+                      SelectionPlanner.getConjuncts( "(a > 1 && (b<2)) && c" ));
+        assertEquals( Arrays.asList( "s == \"x&&y\"", "a < 3" ),
+                      SelectionPlanner
+                     .getConjuncts( "s == \"x&&y\" && a < 3" ) );
+        assertNull( SelectionPlanner.getConjuncts( "a > 1 && b < 2 || c" ) );
+        assertNull( SelectionPlanner.getConjuncts( "a > 1 ? b : c" ) );
+        assertEquals( Arrays.asList( "(a > 1 || b) == c" ),
+                      SelectionPlanner.getConjuncts( "(a > 1 || b) == c" ) );
+    }
+
+    public void testLiterals() {
+        assertEquals( 0.1, SelectionPlanner.parseLiteral( "0.1" ) );
+        assertEquals( 0.1, SelectionPlanner.parseLiteral( "0.1d" ) );
+        assertEquals( (double) 0.1f, SelectionPlanner.parseLiteral( "0.1f" ) );
+        assertEquals( (double) 1e-3f, SelectionPlanner.parseLiteral( "1E-3F" ) );
+        assertEquals( 9007199254740993.0,
+                      SelectionPlanner.parseLiteral( "9007199254740993L" ) );
+        assertEquals( -2.0, SelectionPlanner.parseLiteral( "-2" ) );
+    }
+
+    public void testSuffixedLiterals() throws Exception {
+        File dataFile = File.createTempFile( "idx", ".fits" );
+        dataFile.deleteOnExit();
+
+        /* Plant values either side of 0.1 and 0.1f (which is slightly
+         * larger), and of 2^24+1 for the integer column. */
+        double d01 = 0.1;
+        double f01 = 0.1f;
+        double[] specials = {
+            Math.nextDown( d01 ), d01, Math.nextUp( d01 ),
+            Math.nextDown( f01 ), f01, Math.nextUp( f01 ),
+        };
+        int big = ( 1 << 24 ) + 1;
+        int[] ispecials = { big - 2, big - 1, big, big + 1 };
+        double[] dvals = new double[ NROW ];
+        int[] ivals = new int[ NROW ];
+        for ( int i = 0; i < NROW; i++ ) {
+            dvals[ i ] = i < specials.length * 10
+                       ? specials[ i % specials.length ]
+                       : 1 + i;
+            ivals[ i ] = i < ispecials.length * 10
+                       ? ispecials[ i % ispecials.length ]
+                       : i;
+        }
+        StarTable table = writeTable( dataFile, dvals, ivals );
+        String[] exprs = {
+            "d <= 0.1f", "d < 0.1f", "d == 0.1f", "0.1f >= d",
+            "d <= 0.1", "d < 0.1F", "d <= 0.1d",
+            "i <= 16777217f", "i == 16777217f", "i >= 16777216L && i < 17e6",
+        };
+        List<List<String>> expected = new ArrayList<>();
+        for ( String expr : exprs ) {
+            expected.add( selectRows( table, expr ) );
+        }
+        File[] idxFiles = {
+            ColumnIndex.writeIndex( table, 0 ),
+            ColumnIndex.writeIndex( table, 1 ),
+        };
+        for ( File f : idxFiles ) {
+            f.deleteOnExit();
+        }
+        assertNotNull( SelectionPlanner.getCandidateRows( table, exprs[ 0 ] ) );
+        for ( int ie = 0; ie < exprs.length; ie++ ) {
+            String expr = exprs[ ie ];
+            assertTrue( expr, expected.get( ie ).size() > 0 );
+            assertEquals( expr, expected.get( ie ), selectRows( table, expr ) );
+        }
+    }
+
+    public void testIndex() throws Exception {
+        File dataFile = File.createTempFile( "idx", ".fits" );
+        dataFile.deleteOnExit();
+        Random rnd = new Random( 230177L );
+        double[] dvals = new double[ NROW ];
+        int[] ivals = new int[ NROW ];
+        for ( int i = 0; i < NROW; i++ ) {
+            dvals[ i ] = rnd.nextInt( 50 ) == 0 ? Double.NaN
+                                                : rnd.nextGaussian();
+            ivals[ i ] = rnd.nextInt( 1000 );
+        }
+        StarTable table = writeTable( dataFile, dvals, ivals );
+        assertTrue( ColumnIndex.isIndexable( table ) );
+        assertNull( ColumnIndex.readIndex( table, 0 ) );
+
+        String[] exprs = {
+            "d > 2.1",
+            "2.0 <= d && i < 400",
+            "i == 23",
+            "(i >= 100 && i < 120) && d > 0",
+            "d < -2 || i == 4",
+            "d > 0",
+        };
+        List<List<String>> expected = new ArrayList<>();
+        for ( String expr : exprs ) {
+            assertNull( SelectionPlanner.getCandidateRows( table, expr ) );
+            expected.add( selectRows( table, expr ) );
+        }
+
+        File[] idxFiles = {
+            ColumnIndex.writeIndex( table, 0 ),
+            ColumnIndex.writeIndex( table, 1 ),
+        };
+        for ( File f : idxFiles ) {
+            f.deleteOnExit();
+            assertTrue( f.getName().endsWith( ColumnIndex.SUFFIX ) );
+        }
+        ColumnIndex dIndex = ColumnIndex.readIndex( table, 0 );
+        ColumnIndex iIndex = ColumnIndex.readIndex( table, 1 );
+        assertEquals( "d", dIndex.getColumnName() );
+        assertEquals( NROW, iIndex.getEntryCount() );
+        int nNan = 0;
+        for ( double d : dvals ) {
+            if ( Double.isNaN( d ) ) {
+                nNan++;
+            }
+        }
+        assertEquals( NROW - nNan, dIndex.getEntryCount() );
+        int n23 = 0;
+        for ( int i : ivals ) {
+            if ( i == 23 ) {
+                n23++;
+            }
+        }
+        assertEquals( n23, iIndex.countRange( 23, 23 ) );
+
+        /* Results must be the same, but only the selective queries
+         * may use the index. */
+        boolean[] usesIndex = { true, true, true, true, false, false };
+        for ( int ie = 0; ie < exprs.length; ie++ ) {
+            String expr = exprs[ ie ];
+            assertEquals( expr, usesIndex[ ie ],
+                          SelectionPlanner.getCandidateRows( table, expr )
+                          != null );
+            assertEquals( expected.get( ie ), selectRows( table, expr ) );
+        }
+
+        /* Index must be ignored once the data file changes. */
+        assertTrue( dataFile.setLastModified( dataFile.lastModified()
+                                              - 10000 ) );
+        assertNull( ColumnIndex.readIndex( table, 0 ) );
+        assertNull( SelectionPlanner.getCandidateRows( table, exprs[ 0 ] ) );
+    }
+
+    private static StarTable writeTable( File dataFile, double[] dvals,
+                                         int[] ivals )
+            throws IOException {
+        ColumnStarTable t0 = ColumnStarTable.makeTableWithRows( NROW );
+        t0.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        try ( OutputStream out =
+                  new BufferedOutputStream(
+                      new FileOutputStream( dataFile ) ) ) {
+            new FitsTableWriter().writeStarTable( t0, out );
+        }
+        return new StarTableFactory( true )
+              .makeStarTable( dataFile.toString() );
+    }
+
+    private static List<String> selectRows( StarTable table, String expr )
+            throws Exception {
+        List<String> rows = new ArrayList<>();
+        StarTable sel = new JELSelectorTable( table, expr );
+        try ( RowSequence rseq = sel.getRowSequence() ) {
+            while ( rseq.next() ) {
+                Object[] row = rseq.getRow();
+                assertEquals( row[ 1 ], rseq.getCell( 1 ) );
+                rows.add( Arrays.toString( row ) );
+            }
+        }
+        return rows;
+    }
+}
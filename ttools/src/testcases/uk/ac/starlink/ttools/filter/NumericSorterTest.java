@@ -0,0 +1,130 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import uk.ac.starlink.table.ColumnData;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.ttools.QuickTable;
+import uk.ac.starlink.ttools.TableTestCase;
+
+public class NumericSorterTest extends TableTestCase {
+
+    private final StarTable table_;
+
+    public NumericSorterTest( String name ) {
+        super( name );
+        int nrow = 3001;
+        Random rnd = new Random( 550123L );
+        int[] ids = new int[ nrow ];
+        double[] dvals = new double[ nrow ];
+        float[] fvals = new float[ nrow ];
+        short[] svals = new short[ nrow ];
+        Integer[] ivals = new Integer[ nrow ];
+        Long[] lvals = new Long[ nrow ];
+        Long[] xvals = new Long[ nrow ];
+        double[] specials = new double[] {
+            Double.NaN, 0.0, -0.0, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MAX_VALUE,
+        };
+        for ( int i = 0; i < nrow; i++ ) {
+            ids[ i ] = i;
+            dvals[ i ] = rnd.nextInt( 5 ) == 0
+                       ? specials[ rnd.nextInt( specials.length ) ]
+                       : ( rnd.nextInt( 200 ) - 100 ) * 0.25;
+            fvals[ i ] = rnd.nextInt( 9 ) == 0 ? Float.NaN
+                                               : rnd.nextFloat() - 0.5f;
+            svals[ i ] = (short) ( rnd.nextInt( 7 ) - 3 );
+            ivals[ i ] = rnd.nextInt( 8 ) == 0
+                       ? null
+                       : Integer.valueOf( rnd.nextInt() >> rnd.nextInt( 32 ) );
+            lvals[ i ] = rnd.nextInt( 8 ) == 0
+                       ? null
+                       : Long.valueOf( rnd.nextLong() >> rnd.nextInt( 64 ) );
+            xvals[ i ] = rnd.nextInt( 20 ) == 0
+                       ? Long.valueOf( rnd.nextBoolean() ? Long.MIN_VALUE
+                                                         : Long.MAX_VALUE )
+                       : lvals[ i ];
+        }
+        table_ = new QuickTable( nrow, new ColumnData[] {
+            col( "id", ids ),
+            col( "d", dvals ),
+            col( "f", fvals ),
+            col( "s", svals ),
+            col( "i", ivals ),
+            col( "l", lvals ),
+            col( "x", xvals ),
+        } );
+    }
+
+    public void testNumericSort() throws IOException, ArgException {
+        String[] keyLists = new String[] {
+            "d", "f", "s", "i", "l", "x", "id",
+            "s d", "s i id", "d f", "i l", "s/2 f*2",
+            "(int)(d*4)", "s d i l",
+        };
+        String[][] flagLists = new String[][] {
+            {},
+            { "-down" },
+            { "-nullsfirst" },
+            { "-down", "-nullsfirst" },
+        };
+        String[] parFlags = new String[] { "-noparallel", "-parallel" };
+        for ( String keys : keyLists ) {
+            for ( String[] flags : flagLists ) {
+                StarTable expected =
+                    sort( table_, false, flags, "-noparallel", keys );
+                for ( String parFlag : parFlags ) {
+                    assertSameData( expected,
+                                    sort( table_, true, flags, parFlag,
+                                          keys ) );
+                }
+            }
+        }
+    }
+
+    public void testLarge() throws IOException, ArgException {
+        int nrow = 150000;
+        Random rnd = new Random( 2291L );
+        double[] dvals = new double[ nrow ];
+        int[] ivals = new int[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            dvals[ i ] = rnd.nextInt( 50 ) == 0 ? Double.NaN
+                                                : rnd.nextGaussian();
+            ivals[ i ] = rnd.nextInt( 1000 );
+        }
+        StarTable table = new QuickTable( nrow, new ColumnData[] {
+            col( "d", dvals ),
+            col( "i", ivals ),
+        } );
+        for ( String keys : new String[] { "d", "i d" } ) {
+            String[] flags = new String[] { "-down" };
+            assertSameData( sort( table, false, flags, "-parallel", keys ),
+                            sort( table, true, flags, "-parallel", keys ) );
+        }
+    }
+
+    public void testNonNumeric() throws IOException, ArgException {
+        assertNull( NumericSorter
+                   .createSorter( table_, new String[] { "d", "toString(i)" },
+                                  true, true, false ) );
+        assertNull( NumericSorter
+                   .createSorter( table_, new String[] { "s > 0" },
+                                  true, true, false ) );
+        assertNotNull( NumericSorter
+                      .createSorter( table_, new String[] { "d", "s", "l" },
+                                     true, true, false ) );
+    }
+
+    private StarTable sort( StarTable table, boolean allowNumeric,
+                            String[] flags, String parFlag, String keys )
+            throws IOException, ArgException {
+        ArrayList<String> args = new ArrayList<>( Arrays.asList( flags ) );
+        args.add( parFlag );
+        args.add( keys );
+        return new SortFilter( allowNumeric )
+              .createStep( args.iterator() )
+              .wrap( table );
+    }
+}
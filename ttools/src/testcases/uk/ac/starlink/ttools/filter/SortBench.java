@@ -0,0 +1,70 @@
+package uk.ac.starlink.ttools.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowSequence;
+import uk.ac.starlink.table.StarTable;
+
+/**
+ * Compares the speed of the generic and numeric sort implementations
+ * of the sort filter.
+ * Not run as part of the regular test suite; invoke it by hand,
+ * with a generous heap (-Xmx) and -Dbench.nrow=N for N of 1e7 to 1e8.
+ * The generic sort may be skipped using -Dbench.generic=false.
+ */
+public class SortBench extends TestCase {
+
+    public SortBench( String name ) {
+        super( name );
+    }
+
+    public void testSort() throws IOException, ArgException {
+        int nrow = (int) Double.parseDouble( System.getProperty( "bench.nrow",
+                                                                 "1e7" ) );
+        boolean doGeneric =
+            Boolean.parseBoolean( System.getProperty( "bench.generic",
+                                                      "true" ) );
+        Random rnd = new Random( 448901L );
+        double[] dvals = new double[ nrow ];
+        int[] ivals = new int[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            dvals[ i ] = rnd.nextInt( 100 ) == 0 ? Double.NaN
+                                                 : rnd.nextGaussian();
+            ivals[ i ] = rnd.nextInt( 1000 );
+        }
+        ColumnStarTable table = ColumnStarTable.makeTableWithRows( nrow );
+        table.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        table.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        for ( String keys : new String[] { "d", "i d" } ) {
+            if ( doGeneric ) {
+                bench( "generic", table, false, keys );
+            }
+            bench( "numeric", table, true, keys );
+        }
+    }
+
+    private void bench( String name, StarTable table, boolean allowNumeric,
+                        String keys )
+            throws IOException, ArgException {
+        long t0 = System.currentTimeMillis();
+        StarTable sorted =
+            new SortFilter( allowNumeric )
+           .createStep( new ArrayList<String>( Arrays.asList( keys ) )
+                       .iterator() )
+           .wrap( table );
+        long t1 = System.currentTimeMillis();
+
+        /* Read the first row to make sure the result is usable. */
+        RowSequence rseq = sorted.getRowSequence();
+        assertTrue( rseq.next() );
+        rseq.close();
+        System.out.println( name + " sort on \"" + keys + "\": "
+                          + table.getRowCount() + " rows, "
+                          + ( t1 - t0 ) + "ms" );
+    }
+}
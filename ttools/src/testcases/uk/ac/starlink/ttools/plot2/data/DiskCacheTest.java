@@ -0,0 +1,161 @@
+package uk.ac.starlink.ttools.plot2.data;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import uk.ac.starlink.util.TestCase;
+
+public class DiskCacheTest extends TestCase {
+
+    public DiskCacheTest() {
+        Logger.getLogger( "uk.ac.starlink.ttools.plot2.data" )
+              .setLevel( Level.SEVERE );
+    }
+
+    public void testTidy() throws IOException {
+        File dir = File.createTempFile( "DiskCacheTest", ".d" );
+        assertTrue( dir.delete() );
+        assertTrue( dir.mkdir() );
+        try {
+            long now = System.currentTimeMillis();
+            long min = 60 * 1000;
+            File a1 = createFile( dir, "A.dat", now - 60 * min );
+            File a2 = createFile( dir, "A.idx", now - 60 * min );
+            File b = createFile( dir, "B.dat", now - 120 * min );
+            File c = createFile( dir, "C.dat", now - 30 * min );
+            File d = createFile( dir, "D.dat", now );
+
+            /* Least recently used entries go first, both files of A
+             * being removed together. */
+            DiskCache cache = new DiskCache( dir, 2500 );
+            cache.tidy();
+            assertFalse( b.exists() );
+            assertFalse( a1.exists() );
+            assertFalse( a2.exists() );
+            assertTrue( c.exists() );
+            assertTrue( d.exists() );
+            assertEquals( 3, cache.getDropCount() );
+            assertTrue( new File( dir, DiskCache.LOCK_NAME ).exists() );
+
+            /* Recently used files are not removed even if the cache
+             * is still over its limit. */
+            DiskCache cache2 = new DiskCache( dir, 500 );
+            cache2.tidy();
+            assertFalse( c.exists() );
+            assertTrue( d.exists() );
+            assertEquals( 1, cache2.getDropCount() );
+
+            /* Touching a file protects it. */
+            cache2.touch( d );
+            d.setLastModified( now - 30 * min );
+            File e = createFile( dir, "E.dat", now - 60 * min );
+            cache2.touch( e );
+            cache2.tidy();
+            assertFalse( d.exists() );
+            assertTrue( e.exists() );
+
+            cache2.recordLookup( true );
+            cache2.recordLookup( true );
+            cache2.recordLookup( false );
+            assertEquals( 2, cache2.getHitCount() );
+            assertEquals( 1, cache2.getMissCount() );
+            assertTrue( cache2.getUsageSummary().indexOf( "2 hit" ) >= 0 );
+        }
+        finally {
+            for ( File f : dir.listFiles() ) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    public void testLockPaths() throws IOException {
+        File dir = File.createTempFile( "DiskCacheTest", ".d" );
+        assertTrue( dir.delete() );
+        assertTrue( dir.mkdir() );
+        File link = new File( dir.getParentFile(), dir.getName() + ".link" );
+        try {
+            long now = System.currentTimeMillis();
+            long min = 60 * 1000;
+            File a = createFile( dir, "A.dat", now - 60 * min );
+
+            /* If this JVM already holds the directory lock, for instance
+             * by way of a different path, tidying goes ahead anyway. */
+            File lockFile = new File( dir, DiskCache.LOCK_NAME );
+            try ( FileChannel chan =
+                      FileChannel.open( lockFile.toPath(),
+                                        StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE );
+                  FileLock lock = chan.lock() ) {
+                new DiskCache( dir, 500 ).tidy();
+            }
+            assertFalse( a.exists() );
+
+            /* Caches using different paths to the same directory
+             * can tidy concurrently. */
+            try {
+                Files.createSymbolicLink( link.toPath(), dir.toPath() );
+            }
+            catch ( IOException | UnsupportedOperationException e ) {
+                return;
+            }
+            final DiskCache[] caches = {
+                new DiskCache( dir, 500 ),
+                new DiskCache( link, 500 ),
+            };
+            final List<Throwable> errors = new ArrayList<Throwable>();
+            Thread[] threads = new Thread[ 8 ];
+            for ( int i = 0; i < threads.length; i++ ) {
+                final DiskCache cache = caches[ i % 2 ];
+                threads[ i ] = new Thread( () -> {
+                    try {
+                        for ( int j = 0; j < 50; j++ ) {
+                            cache.tidy();
+                        }
+                    }
+                    catch ( Throwable e ) {
+                        synchronized ( errors ) {
+                            errors.add( e );
+                        }
+                    }
+                } );
+                threads[ i ].start();
+            }
+            for ( Thread th : threads ) {
+                try {
+                    th.join();
+                }
+                catch ( InterruptedException e ) {
+                    fail();
+                }
+            }
+            assertEquals( errors.toString(), 0, errors.size() );
+        }
+        finally {
+            link.delete();
+            for ( File f : dir.listFiles() ) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    private static File createFile( File dir, String name, long time )
+            throws IOException {
+        File file = new File( dir, name );
+        try ( OutputStream out = new FileOutputStream( file ) ) {
+            out.write( new byte[ 1000 ] );
+        }
+        assertTrue( file.setLastModified( time ) );
+        return file;
+    }
+}
@@ -0,0 +1,48 @@
+package uk.ac.starlink.ttools.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+public class LruCacheTest extends TestCase {
+
+    public LruCacheTest( String name ) {
+        super( name );
+    }
+
+    public void testEviction() {
+        List<String> evicted = new ArrayList<>();
+        LruCache<String,byte[]> cache =
+            new LruCache<String,byte[]>( 100, b -> b.length,
+                                         (k, v) -> evicted.add( k ) );
+        cache.put( "a", new byte[ 40 ] );
+        cache.put( "b", new byte[ 40 ] );
+        assertEquals( 80, cache.getSize() );
+
+        /* Touch a, so that b is least recently used. */
+        assertNotNull( cache.get( "a" ) );
+        cache.put( "c", new byte[ 40 ] );
+        assertNull( cache.get( "b" ) );
+        assertNotNull( cache.get( "a" ) );
+        assertNotNull( cache.get( "c" ) );
+        assertEquals( 80, cache.getSize() );
+        assertEquals( 1, evicted.size() );
+        assertEquals( "b", evicted.get( 0 ) );
+
+        /* Replacing a value updates the size. */
+        cache.put( "a", new byte[ 10 ] );
+        assertEquals( 50, cache.getSize() );
+        assertEquals( 2, cache.getEntryCount() );
+
+        /* Oversized values are not stored. */
+        cache.put( "d", new byte[ 101 ] );
+        assertNull( cache.get( "d" ) );
+        assertEquals( 50, cache.getSize() );
+
+        assertEquals( 10, cache.remove( "a" ).length );
+        assertEquals( 40, cache.getSize() );
+        cache.clear();
+        assertEquals( 0, cache.getSize() );
+        assertEquals( 0, cache.getEntryCount() );
+    }
+}
@@ -0,0 +1,242 @@
+package uk.ac.starlink.ttools.server;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.TestCase;
+import uk.ac.starlink.ttools.task.MapEnvironment;
+import uk.ac.starlink.ttools.task.StiltsServer;
+
+/**
+ * Load test for the plot server tile service.
+ * A number of concurrent clients replay a pan/zoom trace, each
+ * requesting the tiles visible in a viewport of 4x3 tiles at each step,
+ * and keeping entity tags so that revisited tiles are requested
+ * conditionally, as a browser would.
+ * Response status counts, server cache hits and latencies are reported.
+ *
+ * <p>Not run as part of the regular test suite; invoke it by hand.
+ * By default a server is started in this JVM on port
+ * <code>bench.port</code> (2198) with a synthetic plot.
+ * To test a separately running server, set <code>bench.url</code>
+ * to the tile service URL including the plot specification, e.g.
+ * <code>http://host:2112/stilts/plot/tile/plot2plane&amp;...</code>.
+ * A trace file may be given by <code>bench.trace</code>;
+ * each line contains "<code>z x y</code>" giving the zoom level and
+ * the indices of the top left tile of the viewport.
+ * Otherwise each client follows its own random walk of
+ * <code>bench.steps</code> steps.
+ * The number of clients is given by <code>bench.clients</code>.
+ */
+public class TileLoadBench extends TestCase {
+
+    private static final int VIEW_NX = 4;
+    private static final int VIEW_NY = 3;
+    private static final String DFLT_PLOT =
+        "plot2plane&layer1=mark&in1=:loop:1000000"
+      + "&x1=sin(i*1e-4)*i&y1=cos(i*1e-4)*i&aux1=i&shading1=aux";
+
+    public TileLoadBench( String name ) {
+        super( name );
+    }
+
+    public void testPanZoom() throws Exception {
+        String url = System.getProperty( "bench.url" );
+        if ( url == null ) {
+            int port = Integer.getInteger( "bench.port", 2198 ).intValue();
+            new StiltsServer()
+               .createExecutable( new MapEnvironment()
+                                 .setValue( "port", Integer.valueOf( port ) ) )
+               .execute();
+            url = "http://localhost:" + port + "/stilts/plot/tile/"
+                + DFLT_PLOT.replaceAll( "\\*", "%2A" );
+        }
+        String traceFile = System.getProperty( "bench.trace" );
+        int nclient = Integer.getInteger( "bench.clients", 8 ).intValue();
+        int nstep = Integer.getInteger( "bench.steps", 100 ).intValue();
+        List<List<int[]>> traces = new ArrayList<>();
+        for ( int ic = 0; ic < nclient; ic++ ) {
+            traces.add( traceFile == null
+                      ? createTrace( nstep, new Random( 23001L + ic ) )
+                      : readTrace( traceFile ) );
+        }
+        final String tileUrl = url;
+        ExecutorService pool = Executors.newFixedThreadPool( nclient );
+        List<Future<Stats>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for ( List<int[]> trace : traces ) {
+            futures.add( pool.submit( () -> replay( tileUrl, trace ) ) );
+        }
+        Stats total = new Stats();
+        for ( Future<Stats> future : futures ) {
+            total.add( future.get() );
+        }
+        long elapsed = ( System.nanoTime() - start ) / 1000000;
+        pool.shutdown();
+        report( nclient, elapsed, total );
+    }
+
+    /**
+     * Replays a trace as a single client.
+     */
+    private static Stats replay( String tileUrl, List<int[]> trace )
+            throws IOException {
+        Stats stats = new Stats();
+        Map<String,String> etags = new HashMap<>();
+        for ( int[] step : trace ) {
+            int z = step[ 0 ];
+            int ntile = 1 << z;
+            for ( int iy = 0; iy < VIEW_NY; iy++ ) {
+                for ( int ix = 0; ix < VIEW_NX; ix++ ) {
+                    int x = step[ 1 ] + ix;
+                    int y = step[ 2 ] + iy;
+                    if ( x < ntile && y < ntile ) {
+                        String query = "?z=" + z + "&x=" + x + "&y=" + y;
+                        fetch( tileUrl + query, etags, stats );
+                    }
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Makes a single tile request.
+     */
+    private static void fetch( String url, Map<String,String> etags,
+                               Stats stats ) throws IOException {
+        long t0 = System.nanoTime();
+        HttpURLConnection conn =
+            (HttpURLConnection) new URL( url ).openConnection();
+        String etag = etags.get( url );
+        if ( etag != null ) {
+            conn.setRequestProperty( "If-None-Match", etag );
+        }
+        int code = conn.getResponseCode();
+        InputStream in = code < 400 ? conn.getInputStream()
+                                    : conn.getErrorStream();
+        if ( in != null ) {
+            byte[] buf = new byte[ 16384 ];
+            while ( in.read( buf ) >= 0 ) {
+            }
+            in.close();
+        }
+        long micros = ( System.nanoTime() - t0 ) / 1000;
+        if ( code == 200 ) {
+            etags.put( url, conn.getHeaderField( "ETag" ) );
+            if ( "HIT".equals( conn.getHeaderField( "X-Cache" ) ) ) {
+                stats.nHit_++;
+            }
+        }
+        stats.record( code, micros );
+    }
+
+    /**
+     * Generates a random pan/zoom trace.
+     */
+    private static List<int[]> createTrace( int nstep, Random rnd ) {
+        List<int[]> trace = new ArrayList<>();
+        int z = 2;
+        int x = 0;
+        int y = 0;
+        for ( int is = 0; is < nstep; is++ ) {
+            double r = rnd.nextDouble();
+            if ( r < 0.1 && z < 8 ) {
+                z++;
+                x = 2 * x + VIEW_NX / 2;
+                y = 2 * y + VIEW_NY / 2;
+            }
+            else if ( r < 0.2 && z > 0 ) {
+                z--;
+                x = x / 2;
+                y = y / 2;
+            }
+            else {
+                x += rnd.nextInt( 3 ) - 1;
+                y += rnd.nextInt( 3 ) - 1;
+            }
+            x = Math.max( 0, Math.min( x, ( 1 << z ) - VIEW_NX ) );
+            y = Math.max( 0, Math.min( y, ( 1 << z ) - VIEW_NY ) );
+            trace.add( new int[] { z, x, y } );
+        }
+        return trace;
+    }
+
+    /**
+     * Reads a trace from a file.
+     */
+    private static List<int[]> readTrace( String fname ) throws IOException {
+        List<int[]> trace = new ArrayList<>();
+        try ( BufferedReader rdr =
+                  new BufferedReader( new FileReader( fname ) ) ) {
+            for ( String line; ( line = rdr.readLine() ) != null; ) {
+                String[] words = line.trim().split( "\\s+" );
+                if ( words.length == 3 ) {
+                    trace.add( new int[] {
+                        Integer.parseInt( words[ 0 ] ),
+                        Integer.parseInt( words[ 1 ] ),
+                        Integer.parseInt( words[ 2 ] ),
+                    } );
+                }
+            }
+        }
+        return trace;
+    }
+
+    private static void report( int nclient, long elapsed, Stats stats ) {
+        long[] lats = stats.getLatencies();
+        Arrays.sort( lats );
+        int n = lats.length;
+        System.out.println( "Clients: " + nclient
+                          + ", requests: " + n
+                          + ", elapsed: " + elapsed + "ms"
+                          + ", rate: " + ( n * 1000L / Math.max( 1, elapsed ) )
+                          + "/s" );
+        System.out.println( "Status: " + stats.codes_
+                          + ", server cache hits: " + stats.nHit_ );
+        if ( n > 0 ) {
+            System.out.println( "Latency (ms): "
+                              + "p50=" + lats[ n / 2 ] / 1000.
+                              + ", p95=" + lats[ (int) ( n * 0.95 ) ] / 1000.
+                              + ", max=" + lats[ n - 1 ] / 1000. );
+        }
+    }
+
+    /**
+     * Accumulates request statistics.
+     */
+    private static class Stats {
+        final Map<Integer,Integer> codes_ = new HashMap<>();
+        final List<Long> latencies_ = new ArrayList<>();
+        int nHit_;
+        void record( int code, long micros ) {
+            codes_.merge( Integer.valueOf( code ), Integer.valueOf( 1 ),
+                          Integer::sum );
+            latencies_.add( Long.valueOf( micros ) );
+        }
+        void add( Stats other ) {
+            for ( Map.Entry<Integer,Integer> entry :
+                  other.codes_.entrySet() ) {
+                codes_.merge( entry.getKey(), entry.getValue(),
+                              Integer::sum );
+            }
+            latencies_.addAll( other.latencies_ );
+            nHit_ += other.nHit_;
+        }
+        long[] getLatencies() {
+            return latencies_.stream().mapToLong( Long::longValue ).toArray();
+        }
+    }
+}
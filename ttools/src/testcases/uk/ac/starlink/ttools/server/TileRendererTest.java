@@ -0,0 +1,213 @@
+package uk.ac.starlink.ttools.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class TileRendererTest extends TestCase {
+
+    public TileRendererTest( String name ) {
+        super( name );
+    }
+
+    public void testCacheHit() throws IOException {
+        TileRenderer tiler = new TileRenderer( 2, 8, 1000 );
+        AtomicInteger nrender = new AtomicInteger();
+        Callable<byte[]> renderer = () -> {
+            nrender.incrementAndGet();
+            return new byte[] { 1, 2, 3 };
+        };
+        assertNull( tiler.getCachedTile( "t" ) );
+        TileRenderer.Tile t1 = tiler.getTile( "t", renderer );
+        assertFalse( t1.isCached() );
+        TileRenderer.Tile t2 = tiler.getTile( "t", renderer );
+        assertTrue( t2.isCached() );
+        assertEquals( 1, nrender.get() );
+        assertSame( t1.getData(), t2.getData() );
+        assertEquals( t1.getLastModified(), t2.getLastModified() );
+        assertTrue( tiler.getCachedTile( "t" ).isCached() );
+        tiler.shutdown();
+        assertNull( tiler.getCachedTile( "t" ) );
+    }
+
+    public void testCoalescing() throws Exception {
+        final TileRenderer tiler = new TileRenderer( 4, 16, 1000 );
+        final AtomicInteger nrender = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final Callable<byte[]> renderer = () -> {
+            nrender.incrementAndGet();
+            started.countDown();
+            release.await();
+            return new byte[ 10 ];
+        };
+
+        /* Start one request, and wait for its rendering to begin. */
+        int nreq = 6;
+        List<Caller> callers = new ArrayList<Caller>();
+        callers.add( new Caller( tiler, "k", renderer ) );
+        callers.get( 0 ).start();
+        started.await();
+
+        /* Further requests for the same tile wait for the same result. */
+        for ( int i = 1; i < nreq; i++ ) {
+            Caller caller = new Caller( tiler, "k", renderer );
+            callers.add( caller );
+            caller.start();
+        }
+        for ( Caller caller : callers ) {
+            awaitBlocked( caller );
+        }
+        release.countDown();
+        int ncached = 0;
+        for ( Caller caller : callers ) {
+            caller.join();
+            assertNull( caller.error_ );
+            assertEquals( 10, caller.tile_.getData().length );
+            if ( caller.tile_.isCached() ) {
+                ncached++;
+            }
+        }
+        assertEquals( 1, nrender.get() );
+        assertEquals( 0, ncached );
+        assertTrue( tiler.getTile( "k", renderer ).isCached() );
+        assertEquals( 1, nrender.get() );
+        tiler.shutdown();
+    }
+
+    public void testRejection() throws Exception {
+
+        /* One thread and a queue of one. */
+        final TileRenderer tiler = new TileRenderer( 1, 1, 1000 );
+        final CountDownLatch started = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        Callable<byte[]> blocker = () -> {
+            started.countDown();
+            release.await();
+            return new byte[ 1 ];
+        };
+        Callable<byte[]> quick = () -> new byte[ 2 ];
+
+        /* Occupy the thread and the queue slot. */
+        Caller running = new Caller( tiler, "a", blocker );
+        running.start();
+        started.await();
+        Caller queued = new Caller( tiler, "b", quick );
+        queued.start();
+        awaitBlocked( queued );
+
+        /* A further distinct tile is rejected. */
+        try {
+            tiler.getTile( "c", quick );
+            fail();
+        }
+        catch ( RejectedExecutionException e ) {
+        }
+
+        /* Once the backlog clears, the rejected tile can be rendered. */
+        release.countDown();
+        running.join();
+        queued.join();
+        assertNull( running.error_ );
+        assertNull( queued.error_ );
+        assertEquals( 2, queued.tile_.getData().length );
+        TileRenderer.Tile tc = tiler.getTile( "c", quick );
+        assertFalse( tc.isCached() );
+        assertEquals( 2, tc.getData().length );
+        tiler.shutdown();
+    }
+
+    public void testFailure() throws IOException {
+        TileRenderer tiler = new TileRenderer( 1, 4, 1000 );
+        AtomicInteger nrender = new AtomicInteger();
+        Callable<byte[]> failer = () -> {
+            nrender.incrementAndGet();
+            throw new IOException( "no tile" );
+        };
+        try {
+            tiler.getTile( "f", failer );
+            fail();
+        }
+        catch ( IOException e ) {
+            assertEquals( "no tile", e.getMessage() );
+        }
+
+        /* Failures are not cached. */
+        assertNull( tiler.getCachedTile( "f" ) );
+        assertFalse( tiler.getTile( "f", () -> new byte[ 3 ] ).isCached() );
+        assertEquals( 1, nrender.get() );
+        tiler.shutdown();
+    }
+
+    public void testConditionalHeaders() {
+        String etag = "\"abc123\"";
+        assertFalse( PlotSession.matchesEtag( null, etag ) );
+        assertFalse( PlotSession.matchesEtag( "", etag ) );
+        assertTrue( PlotSession.matchesEtag( "\"abc123\"", etag ) );
+        assertTrue( PlotSession.matchesEtag( "W/\"abc123\"", etag ) );
+        assertTrue( PlotSession.matchesEtag( "\"x\", \"abc123\"", etag ) );
+        assertTrue( PlotSession.matchesEtag( "*", etag ) );
+        assertFalse( PlotSession.matchesEtag( "\"abc12\"", etag ) );
+        assertFalse( PlotSession.matchesEtag( "abc123", etag ) );
+
+        /* HTTP dates have one second resolution. */
+        long lastMod = 1_700_000_000_500L;
+        assertTrue( PlotSession.isModifiedSince( lastMod, -1 ) );
+        assertFalse( PlotSession.isModifiedSince( lastMod,
+                                                  1_700_000_000_000L ) );
+        assertFalse( PlotSession.isModifiedSince( lastMod,
+                                                  1_700_000_005_000L ) );
+        assertTrue( PlotSession.isModifiedSince( lastMod,
+                                                 1_699_999_999_000L ) );
+    }
+
+    /**
+     * Waits until a thread is blocked waiting for a result.
+     *
+     * @param  thread  thread
+     */
+    private static void awaitBlocked( Thread thread )
+            throws InterruptedException {
+        for ( int i = 0; i < 1000; i++ ) {
+            Thread.State state = thread.getState();
+            if ( state == Thread.State.WAITING ||
+                 state == Thread.State.TIMED_WAITING ) {
+                return;
+            }
+            Thread.sleep( 5 );
+        }
+        fail( "Thread not blocked" );
+    }
+
+    /**
+     * Thread that requests a single tile.
+     */
+    private static class Caller extends Thread {
+        private final TileRenderer tiler_;
+        private final String key_;
+        private final Callable<byte[]> renderer_;
+        volatile TileRenderer.Tile tile_;
+        volatile Throwable error_;
+
+        Caller( TileRenderer tiler, String key, Callable<byte[]> renderer ) {
+            tiler_ = tiler;
+            key_ = key;
+            renderer_ = renderer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                tile_ = tiler_.getTile( key_, renderer_ );
+            }
+            catch ( Throwable e ) {
+                error_ = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package uk.ac.starlink.ttools.task;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import junit.framework.TestCase;
+import uk.ac.starlink.feather.FeatherTableWriter;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.RandomStarTable;
+import uk.ac.starlink.table.StarTable;
+
+/**
+ * Times a scan of a large Feather file using
+ * <code>tpipe omode=stats</code>, which reads the table in parallel
+ * using its RowSplittable.
+ * Not run as part of the regular test suite; invoke it by hand,
+ * with -Dbench.nrow=N (default 5e7) to set the number of rows written.
+ * An existing Feather file may be scanned instead using -Dbench.file=F,
+ * in which case it is not deleted afterwards.
+ */
+public class FeatherStatsBench extends TestCase {
+
+    public FeatherStatsBench( String name ) {
+        super( name );
+    }
+
+    public void testStats() throws Exception {
+        String fname = System.getProperty( "bench.file" );
+        final File file;
+        if ( fname == null ) {
+            long nrow = (long) Double.parseDouble(
+                                   System.getProperty( "bench.nrow", "5e7" ) );
+            file = File.createTempFile( "bench", ".fea" );
+            file.deleteOnExit();
+            long t0 = System.currentTimeMillis();
+            try ( OutputStream out =
+                      new BufferedOutputStream(
+                          new FileOutputStream( file ) ) ) {
+                new FeatherTableWriter()
+                   .writeStarTable( createTable( nrow ), out );
+            }
+            System.out.println( "write: " + nrow + " rows, "
+                              + file.length() + " bytes, "
+                              + ( System.currentTimeMillis() - t0 ) + "ms" );
+        }
+        else {
+            file = new File( fname );
+        }
+        try {
+            for ( int i = 0; i < 3; i++ ) {
+                long t0 = System.currentTimeMillis();
+                MapEnvironment env = new MapEnvironment()
+                                    .setValue( "in", file.getPath() )
+                                    .setValue( "ifmt", "feather" )
+                                    .setValue( "omode", "stats" );
+                new TablePipe().createExecutable( env ).execute();
+                long t1 = System.currentTimeMillis();
+                if ( i == 0 ) {
+                    System.out.println( env.getOutputText() );
+                }
+                System.out.println( "tpipe omode=stats: " + ( t1 - t0 )
+                                  + "ms" );
+            }
+        }
+        finally {
+            if ( fname == null ) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns a synthetic table with a few numeric columns,
+     * whose values are calculated from the row index.
+     *
+     * @param  nrow  row count
+     * @return  table
+     */
+    private static StarTable createTable( final long nrow ) {
+        final ColumnInfo[] infos = new ColumnInfo[] {
+            new ColumnInfo( "id", Long.class, null ),
+            new ColumnInfo( "i", Integer.class, null ),
+            new ColumnInfo( "x", Double.class, null ),
+            new ColumnInfo( "y", Double.class, null ),
+            new ColumnInfo( "f", Float.class, null ),
+        };
+        return new RandomStarTable() {
+            public long getRowCount() {
+                return nrow;
+            }
+            public int getColumnCount() {
+                return infos.length;
+            }
+            public ColumnInfo getColumnInfo( int icol ) {
+                return infos[ icol ];
+            }
+            public Object getCell( long irow, int icol ) {
+                switch ( icol ) {
+                    case 0:
+                        return new Long( irow );
+                    case 1:
+                        return new Integer( (int) ( irow % 1001 ) );
+                    case 2:
+                        return new Double( Math.sin( irow ) );
+                    case 3:
+                        return new Double( Math.sqrt( irow ) );
+                    case 4:
+                        return irow % 17 == 0
+                             ? new Float( Float.NaN )
+                             : new Float( irow * 0.25f );
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            }
+        };
+    }
+}
@@ -35,7 +35,7 @@ public class ParameterTest extends TestCase {
         "db", "dbtable", "dbra", "dbdec",
         "ra1", "dec1", "ra2", "dec2", "error",
         "select", "assign", "sql",
-        "cdstable",
+        "cdstable", "catfile",
         "pixdata", "lon", "lat", "radius",
         "inlon", "inlat", "taplon", "taplat", "taptable",
         "out", "ofmt",
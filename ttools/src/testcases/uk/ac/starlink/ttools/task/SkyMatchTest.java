@@ -153,6 +153,41 @@ public class SkyMatchTest extends TableTestCase {
         }
     }
 
+    public void testParallel() throws Exception {
+        String[] finds = new String[] { "best", "all", "best1", "best2" };
+        String[] matchers = new String[] { "sky", "htm" };
+        for ( double tol : new double[] { 20., 2. } ) {
+            for ( String find : finds ) {
+                for ( String matcher : matchers ) {
+                    MapEnvironment env = new MapEnvironment()
+                       .setValue( "params", Double.toString( tol ) )
+                       .setValue( "matcher", matcher )
+                       .setValue( "find", find );
+                    StarTable seqResult =
+                        tmatch2( new MapEnvironment( env )
+                                .setValue( "runner", "sequential" ),
+                                 t1, "ra1 dec1", t2, "ra2 dec2" );
+                    StarTable parResult =
+                        tmatch2( new MapEnvironment( env )
+                                .setValue( "runner", "partest" ),
+                                 t1, "ra1 dec1", t2, "ra2 dec2" );
+                    assertSameData( seqResult, parResult );
+                }
+                MapEnvironment skyEnv = new MapEnvironment()
+                   .setValue( "find", find );
+                StarTable seqResult =
+                    skymatch2( new MapEnvironment( skyEnv )
+                              .setValue( "runner", "sequential" ),
+                               t1, "ra1", "dec1", t2, "ra2", "dec2", tol );
+                StarTable parResult =
+                    skymatch2( new MapEnvironment( skyEnv )
+                              .setValue( "runner", "partest" ),
+                               t1, "ra1", "dec1", t2, "ra2", "dec2", tol );
+                assertSameData( seqResult, parResult );
+            }
+        }
+    }
+
     private int skyCount( StarTable table1, String ra1, String dec1,
                           StarTable table2, String ra2, String dec2,
                           double error )
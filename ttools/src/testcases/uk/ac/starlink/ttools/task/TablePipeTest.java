@@ -4,6 +4,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import nom.tam.util.BufferedDataInputStream;
@@ -27,6 +28,7 @@ import uk.ac.starlink.ttools.convert.SkySystem;
 import uk.ac.starlink.ttools.convert.SkyUnits;
 import uk.ac.starlink.ttools.filter.ArgException;
 import uk.ac.starlink.ttools.filter.AssertException;
+import uk.ac.starlink.ttools.filter.ExternalSorter;
 import uk.ac.starlink.votable.FitsPlusTableWriter;
 
 public class TablePipeTest extends TableTestCase {
@@ -758,6 +760,61 @@ public class TablePipeTest extends TableTestCase {
         }
     }
 
+    public void testExternalSort() throws Exception {
+        int nrow = 457;
+        Random rnd = new Random( 88120L );
+        int[] ivals = new int[ nrow ];
+        double[] dvals = new double[ nrow ];
+        String[] svals = new String[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            ivals[ i ] = rnd.nextInt( 20 );
+            dvals[ i ] = rnd.nextInt( 13 ) == 0 ? Double.NaN
+                                                : rnd.nextInt( 50 ) * 0.5;
+            svals[ i ] = rnd.nextInt( 11 ) == 0
+                       ? null
+                       : Integer.toString( rnd.nextInt( 1000 ), 36 );
+        }
+        StarTable bigTable = new QuickTable( nrow, new ColumnData[] {
+            col( "i", ivals ),
+            col( "x", dvals ),
+            col( "s", svals ),
+        } );
+        String[] sorts = new String[] {
+            "sort i", "sort -down x", "sort -nullsfirst 'x i'",
+            "sort -down -nullsfirst 's i'", "sort s.length()",
+            "sorthead 100 'x s'", "sorthead -tail -down 100 's x'",
+            "sorthead -nullsfirst 3 i",
+        };
+        StarTable[] memResults = new StarTable[ sorts.length ];
+        for ( int is = 0; is < sorts.length; is++ ) {
+            memResults[ is ] =
+                Tables.randomTable( process( bigTable, sorts[ is ] ) );
+        }
+        String maxProp = ExternalSorter.MAXMEM_PROP;
+        System.setProperty( maxProp, "2" );
+        try {
+            for ( int is = 0; is < sorts.length; is++ ) {
+                StarTable memResult = memResults[ is ];
+                StarTable extResult = process( bigTable, sorts[ is ] );
+                assertSameData( memResult, extResult );
+
+                /* External sort results provide random access. */
+                assertTrue( extResult.isRandom() );
+                for ( long irow = memResult.getRowCount() - 1; irow >= 0;
+                      irow -= 7 ) {
+                    assertEquals( memResult.getCell( irow, 0 ),
+                                  extResult.getCell( irow, 0 ) );
+                }
+                extResult.close();
+            }
+            testSort();
+            testSortHead();
+        }
+        finally {
+            System.clearProperty( maxProp );
+        }
+    }
+
     public void testStats() throws Exception {
         assertArrayEquals(
             new Object[] { "a", "b", "c", "d", },
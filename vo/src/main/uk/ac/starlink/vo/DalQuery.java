@@ -1,6 +1,7 @@
 package uk.ac.starlink.vo;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.logging.Logger;
@@ -145,8 +146,18 @@ public class DalQuery {
             new VOElementFactory( tfact.getStoragePolicy() );
         URLConnection conn = coding.openConnection( qurl );
         conn = URLUtils.followRedirects( conn, null );
-        InputSource inSrc = new InputSource( coding.getInputStream( conn ) );
+        InputStream in = coding.getInputStream( conn );
+        InputSource inSrc = new InputSource( in );
         inSrc.setSystemId( qurl.toString() );
-        return DalResultXMLFilter.getDalResultTable( vofact, inSrc );
+
+        /* The table data is cached according to the storage policy,
+         * so the stream can be closed once it has been read;
+         * this lets the connection be reused. */
+        try {
+            return DalResultXMLFilter.getDalResultTable( vofact, inSrc );
+        }
+        finally {
+            in.close();
+        }
     }
 }
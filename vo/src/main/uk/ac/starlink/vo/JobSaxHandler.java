@@ -196,8 +196,10 @@ class JobSaxHandler extends DefaultHandler {
             HttpURLConnection hconn = (HttpURLConnection) conn;
             int code = hconn.getResponseCode();
             if ( code != HttpURLConnection.HTTP_OK ) {
+                String msg = hconn.getResponseMessage();
+                UwsJob.releaseConnection( hconn );
                 throw new IOException( "Job info access failure (" + code + " "
-                                     + hconn.getResponseMessage() + ")" );
+                                     + msg + ")" );
             }
         }
         InputStream in = new BufferedInputStream( conn.getInputStream() );
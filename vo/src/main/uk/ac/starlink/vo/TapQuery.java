@@ -10,6 +10,8 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -312,7 +314,67 @@ public class TapQuery {
      */
     public static URL waitForResultUrl( UwsJob uwsJob, long pollMillis )
             throws IOException, InterruptedException {
-        UwsJobInfo info = uwsJob.waitForFinish( pollMillis );
+        return getResultUrl( uwsJob, uwsJob.waitForFinish( pollMillis ) );
+    }
+
+    /**
+     * Waits, using a job monitor, until the TAP query represented by
+     * a given UWS job has completed,
+     * then returns the URL from which the successful result can be obtained.
+     * If the job does not complete successfully, an IOException is thrown
+     * instead.
+     * Unlike {@link #waitForResultUrl(UwsJob,long)},
+     * the job's status is not read in the calling thread,
+     * which just waits for the monitor to report completion.
+     *
+     * @param  uwsJob  started UWS job representing an async TAP query
+     * @param  monitor   job monitor
+     * @param  pollMillis  initial polling interval in milliseconds
+     * @return   URL of result
+     */
+    public static URL waitForResultUrl( UwsJob uwsJob, UwsJobMonitor monitor,
+                                        long pollMillis )
+            throws IOException, InterruptedException {
+        Future<UwsJobInfo> future = monitor.watch( uwsJob, pollMillis );
+        UwsJobInfo info;
+        try {
+            info = future.get();
+        }
+        catch ( InterruptedException e ) {
+            future.cancel( false );
+            throw e;
+        }
+        catch ( ExecutionException e ) {
+            Throwable err = e.getCause();
+            if ( err instanceof IOException ) {
+                throw (IOException) err;
+            }
+            else if ( err instanceof RuntimeException ) {
+                throw (RuntimeException) err;
+            }
+            else if ( err instanceof Error ) {
+                throw (Error) err;
+            }
+            else {
+                throw (IOException) new IOException( err.getMessage() )
+                                   .initCause( err );
+            }
+        }
+        return getResultUrl( uwsJob, info );
+    }
+
+    /**
+     * Returns the result URL for a UWS job representing an async TAP query
+     * which has reached a finished phase.
+     * If the job did not complete successfully, an IOException is thrown
+     * instead, with a message explaining why if possible.
+     *
+     * @param  uwsJob  finished UWS job
+     * @param  info   job status in a finished phase
+     * @return   URL of result
+     */
+    private static URL getResultUrl( UwsJob uwsJob, UwsJobInfo info )
+            throws IOException {
         String phase = info.getPhase();
         assert UwsStage.forPhase( phase ) == UwsStage.FINISHED;
         if ( "COMPLETED".equals( phase ) ) {
@@ -380,6 +442,35 @@ public class TapQuery {
                                   storage );
     }
 
+    /**
+     * Waits, using a job monitor, until the TAP query represented by
+     * a given UWS job has completed, then returns a table based on
+     * the result.
+     * In case of job failure, an exception will be thrown instead.
+     *
+     * @param  uwsJob  started UWS job representing an async TAP query
+     * @param  coding  configures HTTP compression
+     * @param  storage  storage policy for caching table data
+     * @param  monitor   job monitor
+     * @param  pollMillis  initial polling interval in milliseconds
+     * @return  result table
+     */
+    public static StarTable waitForResult( UwsJob uwsJob, ContentCoding coding,
+                                           StoragePolicy storage,
+                                           UwsJobMonitor monitor,
+                                           long pollMillis )
+            throws IOException, InterruptedException {
+        URL resultUrl;
+        try {
+            resultUrl = waitForResultUrl( uwsJob, monitor, pollMillis );
+        }
+        catch ( UwsJob.UnexpectedResponseException e ) {
+            throw asIOException( e, null );
+        }
+        return readResultVOTable( coding.openConnection( resultUrl ), coding,
+                                  storage );
+    }
+
     /**
      * Reads and returns the table that resulted from a successful TAP query,
      * represented by a given UWS job.  The query is assumed to have
@@ -508,6 +599,14 @@ public class TapQuery {
             }
             catch ( IOException e ) {
             }
+            finally {
+                try {
+                    bodyIn.close();
+                }
+                catch ( IOException e ) {
+                    // never mind
+                }
+            }
         }
 
         /* Fall back to the cause's message if necessary. */
@@ -711,9 +810,17 @@ public class TapQuery {
                                                TableSink sink )
             throws IOException, SAXException {
         InputStream in = getVOTableStream( conn, coding );
-        boolean overflow =
-            DalResultStreamer.streamResultTable( new InputSource( in ), sink );
-        return overflow;
+
+        /* Close the stream when done, even if the sink has not consumed
+         * all of it; this lets the connection be released, and if
+         * possible returned to the keep-alive cache. */
+        try {
+            return DalResultStreamer
+                  .streamResultTable( new InputSource( in ), sink );
+        }
+        finally {
+            in.close();
+        }
     }
 
     /**
@@ -4,6 +4,7 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.SocketException;
@@ -57,6 +58,15 @@ public class UwsJob {
      */
     public static boolean TRIM_TEXT = true;
 
+    /**
+     * Upper limit in milliseconds for the interval between successive
+     * status reads of a job whose phase is not changing.
+     * The interval starts at the requested polling time and is doubled
+     * each time a read shows no change, up to this value
+     * or the requested polling time if that is larger.
+     */
+    public static long MAX_POLL_MILLIS = 60000;
+
     /**
      * Constructor.
      *
@@ -161,9 +171,10 @@ public class UwsJob {
         URL postUrl = new URL( jobUrl_ + relativeLocation );
         HttpURLConnection hconn = postForm( postUrl, paramName, paramValue );
         int code = hconn.getResponseCode();
+        String msg = hconn.getResponseMessage();
+        releaseConnection( hconn );
         if ( code != HttpURLConnection.HTTP_SEE_OTHER ) {
-            throw new IOException( "Non-303 response: " + code + " " +
-                                   hconn.getResponseMessage() );
+            throw new IOException( "Non-303 response: " + code + " " + msg );
         }
     }
 
@@ -181,8 +192,11 @@ public class UwsJob {
      * Blocks until the job has reached a completion phase.
      * Depending on the service's capabilities, this may be done
      * using polling or a blocking call.
+     * If polling is used, the interval between reads starts at
+     * <code>pollMillis</code> and is doubled, up to a limit of
+     * {@link #MAX_POLL_MILLIS}, for each read that shows no phase change.
      *
-     * @param   pollMillis   polling time in milliseconds to assess
+     * @param   pollMillis   initial polling time in milliseconds to assess
      *                       job completion, if polling is required
      * @return   job info corresponding to a completion state
      * @throws   UnexpectedResponseException  if HTTP responses other than
@@ -194,9 +208,15 @@ public class UwsJob {
         if ( info == null ) {
             info = readInfo();
         }
+        long maxPollMillis = Math.max( pollMillis, MAX_POLL_MILLIS );
+        long delay = pollMillis;
         while ( UwsStage.forPhase( info.getPhase() ) != UwsStage.FINISHED ) {
-            info = rereadInfo( info, pollMillis );
+            String lastPhase = info.getPhase();
+            info = rereadInfo( info, delay, pollMillis );
             String phase = info.getPhase();
+            delay = isSamePhase( phase, lastPhase )
+                  ? nextPollMillis( delay, maxPollMillis )
+                  : pollMillis;
             switch ( UwsStage.forPhase( phase ) ) {
                 case UNSTARTED:
                     throw new IOException( "Job not started"
@@ -266,10 +286,23 @@ public class UwsJob {
      * <p>This is particularly to defend against something like a
      * temporary network outage or server reset, which in the context
      * of a UWS job might reasonably represent only a temporary issue.
-     * 
-     * @param  lastInfo   successfully 
+     *
+     * <p>If a blocking read returns without any change of phase
+     * before even the minimum polling time has elapsed,
+     * the service is presumably not honouring the WAIT,
+     * so the remainder of the polling time is slept out before returning,
+     * to avoid hammering the server.
+     * A blocking read that lasts longer than that has been limited by
+     * the service's own maximum WAIT, so is followed immediately
+     * by the next one.
+     *
+     * @param  lastInfo   successfully read job status
+     * @param  pollMillis  polling time in milliseconds
+     * @param  minPollMillis  minimum polling time in milliseconds
+     * @return  new job status
      */
-    private UwsJobInfo rereadInfo( UwsJobInfo lastInfo, long pollMillis )
+    private UwsJobInfo rereadInfo( UwsJobInfo lastInfo, long pollMillis,
+                                   long minPollMillis )
             throws IOException, InterruptedException {
         boolean useBlocking = hasBlocking( lastInfo );
         while ( true ) {
@@ -277,7 +310,15 @@ public class UwsJob {
             try {
                 if ( useBlocking ) {
                     logger_.info( "Blocking read of UWS job" );
-                    return readInfoBlocking( -1, lastInfo );
+                    long start = System.currentTimeMillis();
+                    UwsJobInfo info = readInfoBlocking( -1, lastInfo );
+                    long elapsed = System.currentTimeMillis() - start;
+                    if ( elapsed < minPollMillis &&
+                         isSamePhase( info.getPhase(),
+                                      lastInfo.getPhase() ) ) {
+                        Thread.sleep( pollMillis - elapsed );
+                    }
+                    return info;
                 }
                 else {
                     logger_.info( "Poll UWS job after " + pollMillis + "ms" );
@@ -379,6 +420,7 @@ public class UwsJob {
         try {
             hconn.connect();
             response = hconn.getResponseCode();
+            releaseConnection( hconn );
         }
         finally {
             synchronized ( this ) {
@@ -496,6 +538,7 @@ public class UwsJob {
         if ( location == null ) {
             throw new IOException( "No Location field in 303 response" );
         }
+        releaseConnection( hconn );
         logger_.info( "Created UWS job at: " + location );
         return new UwsJob( new URL( location ) );
     }
@@ -951,7 +994,7 @@ public class UwsJob {
      * @param  info   job status object
      * @return   true if the job is known to support blocking
      */
-    private static boolean hasBlocking( UwsJobInfo info ) {
+    static boolean hasBlocking( UwsJobInfo info ) {
         int[] majMin = getVersion( info );
         if ( majMin != null ) {
             int maj = majMin[ 0 ];
@@ -964,6 +1007,62 @@ public class UwsJob {
         }
     }
 
+    /**
+     * Returns the polling interval to use following one which
+     * showed no change in job status.
+     *
+     * @param  pollMillis   previous polling interval in milliseconds
+     * @param  maxPollMillis  maximum polling interval in milliseconds
+     * @return   next polling interval in milliseconds
+     */
+    static long nextPollMillis( long pollMillis, long maxPollMillis ) {
+        return Math.max( pollMillis,
+                         Math.min( pollMillis * 2, maxPollMillis ) );
+    }
+
+    /**
+     * Indicates whether two job phase strings are the same.
+     *
+     * @param  phase1  first phase, may be null
+     * @param  phase2  second phase, may be null
+     * @return  true iff both are equal or both are null
+     */
+    static boolean isSamePhase( String phase1, String phase2 ) {
+        return phase1 == null ? phase2 == null : phase1.equals( phase2 );
+    }
+
+    /**
+     * Reads and discards any remaining response content from an HTTP
+     * connection and closes its stream.
+     * Doing this rather than just abandoning the connection allows the
+     * underlying socket to be returned to the JDK's keep-alive cache
+     * and reused for subsequent requests to the same server,
+     * which saves connection setup for the many small requests
+     * made during the lifetime of a UWS job.
+     *
+     * @param  hconn  connection whose response code has been read
+     */
+    static void releaseConnection( HttpURLConnection hconn ) {
+        InputStream in;
+        try {
+            in = hconn.getInputStream();
+        }
+        catch ( IOException e ) {
+            in = hconn.getErrorStream();
+        }
+        if ( in != null ) {
+            try {
+                byte[] buf = new byte[ 1024 ];
+                while ( in.read( buf ) >= 0 ) {
+                }
+                in.close();
+            }
+            catch ( IOException e ) {
+                // never mind
+            }
+        }
+    }
+
     /**
      * Parses and returns the version information from a job status object.
      *
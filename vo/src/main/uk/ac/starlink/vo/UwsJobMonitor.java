@@ -0,0 +1,291 @@
+package uk.ac.starlink.vo;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches any number of UWS jobs until completion using a small,
+ * fixed pool of threads.
+ * Unlike {@link UwsJob#waitForFinish}, no thread is tied up for
+ * the lifetime of each job; instead each watched job is re-read
+ * from time to time by a task scheduled on a shared executor,
+ * and a future is completed when the job reaches a finished phase.
+ *
+ * <p>The interval between reads of a given job starts at a
+ * minimum value, and doubles up to a maximum value each time a read
+ * shows no change of phase; any phase change resets it to the minimum.
+ * For UWS 1.1 services, reads are made using blocking (WAIT) requests
+ * with a timeout matching the current interval, so that completion
+ * is noticed as soon as the service reports it.
+ * Since a blocking read occupies a pool thread, this is only done
+ * while the number of jobs being watched does not exceed the number
+ * of threads; above that, plain polling reads are used.
+ *
+ * <p>Status reads from the pool threads reuse HTTP connections
+ * by way of the JDK's keep-alive cache, which by default holds
+ * up to 5 idle connections per server (system property
+ * <code>http.maxConnections</code>); it's a good idea for the
+ * thread count not to exceed that value.
+ *
+ * <p>Note that {@link UwsJob.JobWatcher}s registered on watched jobs
+ * will be notified from the pool threads.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+public class UwsJobMonitor {
+
+    private final int nthread_;
+    private final long minPollMillis_;
+    private final long maxPollMillis_;
+    private final int maxWaitSec_;
+    private final ScheduledThreadPoolExecutor executor_;
+    private final AtomicInteger nActive_;
+    private final AtomicLong nRead_;
+
+    private static final Logger logger_ =
+        Logger.getLogger( "uk.ac.starlink.vo" );
+
+    /**
+     * Constructor.
+     *
+     * @param  nthread   number of threads used for reading job status
+     * @param  minPollMillis  initial interval in milliseconds between
+     *                        reads of a job's status
+     * @param  maxPollMillis  maximum interval in milliseconds between
+     *                        reads of a job's status
+     * @param  maxWaitSec   maximum timeout in seconds requested for
+     *                      blocking reads
+     */
+    public UwsJobMonitor( int nthread, long minPollMillis, long maxPollMillis,
+                          int maxWaitSec ) {
+        nthread_ = nthread;
+        minPollMillis_ = minPollMillis;
+        maxPollMillis_ = Math.max( minPollMillis, maxPollMillis );
+        maxWaitSec_ = Math.max( 1, maxWaitSec );
+        nActive_ = new AtomicInteger();
+        nRead_ = new AtomicLong();
+        final AtomicInteger iThread = new AtomicInteger();
+        executor_ = new ScheduledThreadPoolExecutor( nthread,
+                                                     new ThreadFactory() {
+            public Thread newThread( Runnable r ) {
+                Thread th = new Thread( r, "UWS job monitor-"
+                                         + iThread.incrementAndGet() );
+                th.setDaemon( true );
+                return th;
+            }
+        } );
+    }
+
+    /**
+     * Starts watching a job.
+     * The returned future completes with the job's status when it
+     * reaches a finished phase (COMPLETED, ERROR or ABORTED),
+     * or exceptionally if the status cannot be read or the job
+     * is found in a phase from which it is not going to finish.
+     * Cancelling the future stops the job from being watched,
+     * but does not affect the job itself.
+     *
+     * @param  job  job to watch, which should already have been started
+     * @return   future for finished job status
+     */
+    public CompletableFuture<UwsJobInfo> watch( UwsJob job ) {
+        return watch( job, minPollMillis_ );
+    }
+
+    /**
+     * Starts watching a job with a given initial interval between reads.
+     * This behaves like {@link #watch(UwsJob)}, except that the
+     * interval between reads of this job starts at, and resets to,
+     * the supplied value rather than this monitor's default.
+     * The interval still doubles up to this monitor's maximum.
+     *
+     * @param  job  job to watch, which should already have been started
+     * @param  minPollMillis  initial interval in milliseconds between
+     *                        reads of the job's status
+     * @return   future for finished job status
+     */
+    public CompletableFuture<UwsJobInfo> watch( UwsJob job,
+                                                long minPollMillis ) {
+        CompletableFuture<UwsJobInfo> future =
+            new CompletableFuture<UwsJobInfo>();
+        nActive_.incrementAndGet();
+        future.whenComplete( ( info, error ) -> nActive_.decrementAndGet() );
+        executor_.execute( new Watch( job, future, minPollMillis ) );
+        return future;
+    }
+
+    /**
+     * Returns the number of jobs currently being watched.
+     *
+     * @return  active job count
+     */
+    public int getActiveCount() {
+        return nActive_.get();
+    }
+
+    /**
+     * Returns the total number of successful status reads
+     * made by this monitor so far.
+     *
+     * @return  status read count
+     */
+    public long getReadCount() {
+        return nRead_.get();
+    }
+
+    /**
+     * Stops this monitor.  Jobs still being watched will not complete.
+     */
+    public void shutdown() {
+        executor_.shutdownNow();
+    }
+
+    /**
+     * Task which reads the status of a single job once,
+     * and reschedules itself if the job has not yet finished.
+     */
+    private class Watch implements Runnable {
+
+        private final UwsJob job_;
+        private final CompletableFuture<UwsJobInfo> future_;
+        private final long minDelay_;
+        private final long maxDelay_;
+        private long delay_;
+
+        /**
+         * Constructor.
+         *
+         * @param  job  job to watch
+         * @param  future  future to complete when job is finished
+         * @param  minDelay  initial interval in milliseconds between reads
+         */
+        Watch( UwsJob job, CompletableFuture<UwsJobInfo> future,
+               long minDelay ) {
+            job_ = job;
+            future_ = future;
+            minDelay_ = minDelay;
+            maxDelay_ = Math.max( minDelay, maxPollMillis_ );
+            delay_ = minDelay;
+        }
+
+        public void run() {
+            if ( future_.isDone() ) {
+                return;
+            }
+            UwsJobInfo lastInfo = job_.getLastInfo();
+            boolean blocking = lastInfo != null
+                            && UwsJob.hasBlocking( lastInfo )
+                            && nActive_.get() <= nthread_;
+            long start = System.currentTimeMillis();
+            UwsJobInfo info;
+            try {
+                if ( blocking ) {
+                    int waitSec = (int) Math.max( 1, Math.min( maxWaitSec_,
+                                                           delay_ / 1000 ) );
+                    info = job_.readInfoBlocking( waitSec, lastInfo );
+                }
+                else {
+                    info = job_.readInfo();
+                }
+            }
+            catch ( IOException e ) {
+
+                /* Tolerate what may be transient network failures
+                 * for a job which has been successfully read before,
+                 * as UwsJob.waitForFinish does. */
+                if ( lastInfo != null &&
+                     ( e instanceof SocketException ||
+                       e instanceof UnknownHostException ) ) {
+                    logger_.log( Level.WARNING,
+                                 "Connection failure - keep trying"
+                               + " (" + e + ")", e );
+                    schedule( delay_ );
+                }
+                else {
+                    future_.completeExceptionally( e );
+                }
+                return;
+            }
+            catch ( RuntimeException e ) {
+                future_.completeExceptionally( e );
+                return;
+            }
+            nRead_.incrementAndGet();
+            String phase = info.getPhase();
+            switch ( UwsStage.forPhase( phase ) ) {
+                case FINISHED:
+                    future_.complete( info );
+                    return;
+                case UNSTARTED:
+
+                    /* As for UwsJob.waitForFinish, only give up on
+                     * an unstarted job once its status has been reread. */
+                    if ( lastInfo != null ) {
+                        future_.completeExceptionally(
+                            new IOException( "Job not started - phase: "
+                                           + phase ) );
+                        return;
+                    }
+                    break;
+                case ILLEGAL:
+                    future_.completeExceptionally(
+                        new IOException( "Illegal UWS job phase: "
+                                       + phase ) );
+                    return;
+                case UNKNOWN:
+                    logger_.info( "Unknown UWS phase " + phase + " reported"
+                                + "; poll again" );
+                    break;
+                case RUNNING:
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+            boolean changed = lastInfo == null
+                           || ! UwsJob.isSamePhase( phase,
+                                                    lastInfo.getPhase() );
+            long elapsed = System.currentTimeMillis() - start;
+            final long wait;
+            if ( blocking ) {
+
+                /* A blocking read that returned because of a phase
+                 * change, or because the service's own WAIT limit
+                 * expired, can be followed immediately by another one.
+                 * If it returned without a change before even the
+                 * minimum interval, the service is not honouring
+                 * the WAIT, so make up the rest of the interval. */
+                wait = changed || elapsed >= minDelay_
+                     ? 0
+                     : Math.max( 0, delay_ - elapsed );
+            }
+            else {
+                wait = changed ? minDelay_ : delay_;
+            }
+            delay_ = changed
+                   ? minDelay_
+                   : UwsJob.nextPollMillis( delay_, maxDelay_ );
+            schedule( wait );
+        }
+
+        /**
+         * Schedules this task to run again.
+         *
+         * @param  delayMillis  delay in milliseconds before running
+         */
+        private void schedule( long delayMillis ) {
+            if ( ! future_.isDone() ) {
+                executor_.schedule( this, delayMillis, TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+}
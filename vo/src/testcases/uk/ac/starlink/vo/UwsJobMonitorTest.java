@@ -0,0 +1,340 @@
+package uk.ac.starlink.vo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class UwsJobMonitorTest extends TestCase {
+
+    public UwsJobMonitorTest( String name ) {
+        super( name );
+    }
+
+    public void testBlocking() throws Exception {
+        StubUws uws = new StubUws( "1.1" );
+        try {
+            UwsJobMonitor monitor = new UwsJobMonitor( 4, 50, 2000, 10 );
+            checkJobs( uws, monitor, 3 );
+            checkJobs( uws, monitor, 40 );
+            monitor.shutdown();
+
+            /* Blocking reads mean that few requests are required. */
+            int nreq = uws.nRequest_.get();
+            assertTrue( nreq <= 6 * ( 3 + 40 ) );
+            assertEquals( nreq, uws.nConnection() + uws.nReuse() );
+
+            /* Connections are reused. */
+            assertTrue( uws.nReuse() > nreq / 2 );
+        }
+        finally {
+            uws.stop();
+        }
+    }
+
+    public void testPolling() throws Exception {
+        StubUws uws = new StubUws( null );
+        try {
+            UwsJobMonitor monitor = new UwsJobMonitor( 2, 20, 200, 10 );
+            checkJobs( uws, monitor, 30 );
+            monitor.shutdown();
+            assertTrue( uws.nReuse() > uws.nRequest_.get() / 2 );
+        }
+        finally {
+            uws.stop();
+        }
+    }
+
+    public void testFailures() throws Exception {
+        StubUws uws = new StubUws( "1.1" );
+        try {
+            UwsJobMonitor monitor = new UwsJobMonitor( 2, 20, 200, 10 );
+            UwsJob errJob = new UwsJob( uws.createJob( 100, "ERROR" ) );
+            assertEquals( "ERROR",
+                          monitor.watch( errJob ).get( 20, TimeUnit.SECONDS )
+                                 .getPhase() );
+            UwsJob pendJob = new UwsJob( uws.createJob( 100, "PENDING" ) );
+            pendJob.readInfo();
+            CompletableFuture<UwsJobInfo> pendFuture = monitor.watch( pendJob );
+            try {
+                pendFuture.get( 20, TimeUnit.SECONDS );
+                fail();
+            }
+            catch ( ExecutionException e ) {
+                assertTrue( e.getCause() instanceof IOException );
+            }
+            UwsJob noJob =
+                new UwsJob( new URL( uws.jobListUrl_ + "/no-such-job" ) );
+            try {
+                monitor.watch( noJob ).get( 20, TimeUnit.SECONDS );
+                fail();
+            }
+            catch ( ExecutionException e ) {
+                assertTrue( e.getCause() instanceof IOException );
+            }
+            monitor.shutdown();
+        }
+        finally {
+            uws.stop();
+        }
+    }
+
+    public void testPollInterval() throws Exception {
+        StubUws uws = new StubUws( null );
+        try {
+            UwsJobMonitor monitor = new UwsJobMonitor( 2, 20, 2000, 10 );
+            UwsJob job = new UwsJob( uws.createJob( 300, "COMPLETED" ) );
+            assertEquals( "COMPLETED",
+                          monitor.watch( job, 400 ).get( 20, TimeUnit.SECONDS )
+                                 .getPhase() );
+
+            /* The per-job interval overrides the monitor's minimum. */
+            assertTrue( uws.nRequest_.get() <= 3 );
+
+            /* Failures are reported to the waiting thread unwrapped. */
+            UwsJob noJob =
+                new UwsJob( new URL( uws.jobListUrl_ + "/no-such-job" ) );
+            try {
+                TapQuery.waitForResultUrl( noJob, monitor, 20 );
+                fail();
+            }
+            catch ( IOException e ) {
+            }
+            monitor.shutdown();
+        }
+        finally {
+            uws.stop();
+        }
+    }
+
+    public void testWaitForFinish() throws Exception {
+        for ( String version : new String[] { "1.1", null } ) {
+            StubUws uws = new StubUws( version );
+            try {
+                UwsJob job = new UwsJob( uws.createJob( 600, "COMPLETED" ) );
+                assertEquals( "COMPLETED",
+                              job.waitForFinish( 50 ).getPhase() );
+
+                /* Backoff limits the number of polls. */
+                assertTrue( uws.nRequest_.get() < 10 );
+            }
+            finally {
+                uws.stop();
+            }
+        }
+    }
+
+    public void testWaitLimit() throws Exception {
+
+        /* A service that limits the WAIT duration is re-read as soon
+         * as each blocking read returns, so that completion is
+         * noticed promptly. */
+        StubUws uws = new StubUws( "1.1", 100 );
+        try {
+            long runMillis = 2500;
+            long end = System.currentTimeMillis() + runMillis;
+            UwsJob job =
+                new UwsJob( uws.createJob( runMillis, "COMPLETED" ) );
+            assertEquals( "COMPLETED", job.waitForFinish( 50 ).getPhase() );
+            assertTrue( System.currentTimeMillis() - end < 500 );
+
+            end = System.currentTimeMillis() + runMillis;
+            job = new UwsJob( uws.createJob( runMillis, "COMPLETED" ) );
+            UwsJobMonitor monitor = new UwsJobMonitor( 2, 50, 2000, 10 );
+            assertEquals( "COMPLETED",
+                          monitor.watch( job ).get( 20, TimeUnit.SECONDS )
+                                 .getPhase() );
+            assertTrue( System.currentTimeMillis() - end < 500 );
+            monitor.shutdown();
+        }
+        finally {
+            uws.stop();
+        }
+
+        /* A service that ignores the WAIT is still polled with backoff. */
+        uws = new StubUws( "1.1", 0 );
+        try {
+            UwsJob job = new UwsJob( uws.createJob( 1500, "COMPLETED" ) );
+            assertEquals( "COMPLETED", job.waitForFinish( 50 ).getPhase() );
+            assertTrue( uws.nRequest_.get() < 10 );
+        }
+        finally {
+            uws.stop();
+        }
+    }
+
+    private void checkJobs( StubUws uws, UwsJobMonitor monitor, int njob )
+            throws Exception {
+        List<CompletableFuture<UwsJobInfo>> futures =
+            new ArrayList<CompletableFuture<UwsJobInfo>>();
+        for ( int i = 0; i < njob; i++ ) {
+            UwsJob job =
+                new UwsJob( uws.createJob( 100 + ( i * 37 ) % 400,
+                                           "COMPLETED" ) );
+            futures.add( monitor.watch( job ) );
+        }
+        for ( CompletableFuture<UwsJobInfo> future : futures ) {
+            assertEquals( "COMPLETED",
+                          future.get( 30, TimeUnit.SECONDS ).getPhase() );
+        }
+        assertEquals( 0, monitor.getActiveCount() );
+    }
+
+    /**
+     * Minimal UWS service that serves job status documents for jobs
+     * which execute for a fixed time.  Blocking requests are honoured,
+     * up to a given maximum duration, if the UWS version is 1.1.
+     */
+    private static class StubUws implements HttpHandler {
+
+        final String version_;
+        final long maxWaitMillis_;
+        final HttpServer server_;
+        final ExecutorService executor_;
+        final String jobListUrl_;
+        final Map<String,StubJob> jobs_;
+        final AtomicInteger nRequest_;
+        final Set<InetSocketAddress> clients_;
+        final AtomicInteger iJob_;
+        int nReuse_;
+
+        StubUws( String version ) throws IOException {
+            this( version, 60000 );
+        }
+
+        StubUws( String version, long maxWaitMillis ) throws IOException {
+            version_ = version;
+            maxWaitMillis_ = maxWaitMillis;
+            jobs_ = new ConcurrentHashMap<String,StubJob>();
+            nRequest_ = new AtomicInteger();
+            clients_ = new HashSet<InetSocketAddress>();
+            iJob_ = new AtomicInteger();
+            InetAddress lo = InetAddress.getLoopbackAddress();
+            server_ = HttpServer.create( new InetSocketAddress( lo, 0 ), 0 );
+            server_.createContext( "/uws", this );
+            executor_ = Executors.newCachedThreadPool();
+            server_.setExecutor( executor_ );
+            server_.start();
+            jobListUrl_ = "http://" + lo.getHostAddress() + ":"
+                        + server_.getAddress().getPort() + "/uws";
+        }
+
+        URL createJob( long runMillis, String endPhase ) throws IOException {
+            String id = "job" + iJob_.incrementAndGet();
+            jobs_.put( id, new StubJob( runMillis, endPhase ) );
+            return new URL( jobListUrl_ + "/" + id );
+        }
+
+        synchronized int nConnection() {
+            return clients_.size();
+        }
+
+        synchronized int nReuse() {
+            return nReuse_;
+        }
+
+        void stop() {
+            server_.stop( 0 );
+            executor_.shutdownNow();
+        }
+
+        public void handle( HttpExchange exch ) throws IOException {
+            nRequest_.incrementAndGet();
+            synchronized ( this ) {
+                if ( ! clients_.add( exch.getRemoteAddress() ) ) {
+                    nReuse_++;
+                }
+            }
+            String path = exch.getRequestURI().getPath();
+            String query = exch.getRequestURI().getQuery();
+            StubJob job = jobs_.get( path.substring( path.lastIndexOf( '/' )
+                                                     + 1 ) );
+            if ( job == null ) {
+                byte[] msg = "No such job".getBytes( "UTF-8" );
+                exch.sendResponseHeaders( 404, msg.length );
+                OutputStream out = exch.getResponseBody();
+                out.write( msg );
+                out.close();
+                return;
+            }
+            if ( "1.1".equals( version_ ) && query != null &&
+                 query.startsWith( "WAIT=" ) ) {
+                String[] words = query.split( "&" );
+                int waitSec = Integer.parseInt( words[ 0 ].substring( 5 ) );
+                String lastPhase = words.length > 1
+                                 ? words[ 1 ].substring( 6 )
+                                 : null;
+                long end = System.currentTimeMillis()
+                         + ( waitSec < 0 ? maxWaitMillis_
+                                         : Math.min( waitSec * 1000L,
+                                                     maxWaitMillis_ ) );
+                while ( job.getPhase().equals( lastPhase ) &&
+                        System.currentTimeMillis() < end ) {
+                    try {
+                        Thread.sleep( 5 );
+                    }
+                    catch ( InterruptedException e ) {
+                        break;
+                    }
+                }
+            }
+            StringBuffer sbuf = new StringBuffer()
+                .append( "<uws:job xmlns:uws='http://www.ivoa.net/xml/UWS/" )
+                .append( "v1.0'" );
+            if ( version_ != null ) {
+                sbuf.append( " version='" )
+                    .append( version_ )
+                    .append( "'" );
+            }
+            sbuf.append( ">" )
+                .append( "<uws:jobId>" )
+                .append( path )
+                .append( "</uws:jobId>" )
+                .append( "<uws:phase>" )
+                .append( job.getPhase() )
+                .append( "</uws:phase>" )
+                .append( "</uws:job>" );
+            byte[] buf = sbuf.toString().getBytes( "UTF-8" );
+            exch.getResponseHeaders().set( "Content-Type", "text/xml" );
+            exch.sendResponseHeaders( 200, buf.length );
+            OutputStream out = exch.getResponseBody();
+            out.write( buf );
+            out.close();
+        }
+    }
+
+    /**
+     * Job which executes for a fixed time and then ends in a given phase.
+     */
+    private static class StubJob {
+        final long endTime_;
+        final String endPhase_;
+        StubJob( long runMillis, String endPhase ) {
+            endTime_ = System.currentTimeMillis() + runMillis;
+            endPhase_ = endPhase;
+        }
+        String getPhase() {
+            return "PENDING".equals( endPhase_ )
+                 ? endPhase_
+                 : System.currentTimeMillis() < endTime_ ? "EXECUTING"
+                                                          : endPhase_;
+        }
+    }
+}
@@ -1,11 +1,8 @@
 package uk.ac.starlink.votable;
 
-import java.io.DataInput;
-import java.io.DataInputStream;
-import java.io.EOFException;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackInputStream;
 import java.util.zip.GZIPInputStream;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.util.Base64InputStream;
@@ -14,13 +11,17 @@ import uk.ac.starlink.util.Base64InputStream;
  * RowSequence implementation which reads streamed data in VOTable BINARY
  * format.
  *
+ * <p>The input is read in large chunks and primitive values are
+ * decoded directly from byte buffers.  If the stream is base64- or
+ * gzip-encoded, the encoded stream is read and decoded in a separate
+ * thread, so that this work is pipelined with decoding the cell values.
+ *
  * @author   Mark Taylor
  * @since    31 Jul 2006
  */
 class BinaryRowSequence implements RowSequence {
 
-    private final PushbackInputStream pIn_;
-    private final DataInput dataIn_;
+    private final ChunkedDataInput dataIn_;
     private final int ncol_;
     private final RowReader rowReader_;
     private Object[] row_;
@@ -40,13 +41,23 @@ class BinaryRowSequence implements RowSequence {
             throws IOException {
         ncol_ = decoders.length;
         if ( "gzip".equals( encoding ) ) {
-            in = new GZIPInputStream( in );
+            dataIn_ = new ChunkedDataInput(
+                          new GZIPInputStream( in ),
+                          ChunkedDataInput.DFLT_READAHEAD_CHUNK_SIZE, true );
         }
         else if ( "base64".equals( encoding ) ) {
-            in = new Base64InputStream( in );
+            if ( ! ( in instanceof BufferedInputStream ) ) {
+                in = new BufferedInputStream( in );
+            }
+            dataIn_ = new ChunkedDataInput(
+                          new Base64InputStream( in ),
+                          ChunkedDataInput.DFLT_READAHEAD_CHUNK_SIZE, true );
+        }
+        else {
+            dataIn_ = new ChunkedDataInput( in,
+                                            ChunkedDataInput.DFLT_CHUNK_SIZE,
+                                            false );
         }
-        pIn_ = new PushbackInputStream( in );
-        dataIn_ = new DataInputStream( pIn_ );
         rowReader_ = isBinary2
             ? new RowReader() {
                   final boolean[] nullFlags = new boolean[ ncol_ ];
@@ -77,18 +88,10 @@ class BinaryRowSequence implements RowSequence {
     }
 
     public boolean next() throws IOException {
-        final int b;
-        try {
-            b = pIn_.read();
-        }
-        catch ( EOFException e ) {
-            return false;
-        }
-        if ( b < 0 ) {
+        if ( dataIn_.isEnd() ) {
             return false;
         }
         else {
-            pIn_.unread( b );
             Object[] row = new Object[ ncol_ ];
             rowReader_.readRow( row );
             row_ = row;
@@ -115,7 +118,7 @@ class BinaryRowSequence implements RowSequence {
     }
 
     public void close() throws IOException {
-        pIn_.close();
+        dataIn_.close();
     }
 
     /**
@@ -0,0 +1,465 @@
+package uk.ac.starlink.votable;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataInput implementation which reads an input stream in large chunks
+ * and decodes primitive values directly from byte buffers.
+ *
+ * <p>Optionally, reading from the underlying stream can be done by
+ * a separate producer thread which keeps a few chunks ahead of the
+ * consumer.  This is worthwhile if obtaining the bytes is itself
+ * expensive, for instance if the stream is doing base64 or gzip
+ * decoding, since that work can then proceed concurrently with
+ * decoding the values.
+ * The read-ahead thread stops when this object is closed,
+ * and also if this object is abandoned without being closed,
+ * though in that case the underlying stream is not closed.
+ *
+ * <p>As well as the <code>DataInput</code> methods, this class
+ * provides {@link #readBuffer} so that callers can decode arrays
+ * of values in bulk, and {@link #isEnd} to test for end of stream
+ * without consuming any data.
+ *
+ * <p>Instances of this class are not thread-safe.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class ChunkedDataInput implements DataInput {
+
+    private final InputStream in_;
+    private final int chunkSize_;
+    private final Producer producer_;
+    private final ByteBuffer scratch_;
+    private ByteBuffer buf_;
+    private byte[] inlineChunk_;
+    private boolean eof_;
+
+    /** Default chunk size for inline reading. */
+    public static final int DFLT_CHUNK_SIZE = 64 * 1024;
+
+    /** Default chunk size for read-ahead reading. */
+    public static final int DFLT_READAHEAD_CHUNK_SIZE = 1024 * 1024;
+
+    /** Number of chunks queued by the read-ahead thread. */
+    private static final int QUEUE_SIZE = 4;
+
+    /**
+     * Interval in milliseconds at which a read-ahead thread with a full
+     * queue checks whether its consumer has been abandoned.
+     */
+    private static final long ABANDON_CHECK_MILLIS = 1000;
+
+    /** Zero-length buffer marking end of read-ahead data. */
+    private static final ByteBuffer END = ByteBuffer.allocate( 0 );
+
+    /**
+     * Constructor.
+     *
+     * @param  in  underlying input stream
+     * @param  chunkSize  number of bytes read from the stream at a time
+     * @param  readAhead  if true, the stream is read in a separate thread
+     */
+    public ChunkedDataInput( InputStream in, int chunkSize,
+                             boolean readAhead ) {
+        in_ = in;
+        chunkSize_ = Math.max( 8, chunkSize );
+        scratch_ = ByteBuffer.allocate( 8 );
+        buf_ = ByteBuffer.allocate( 0 );
+        if ( readAhead ) {
+            producer_ = new Producer( this, in, chunkSize_ );
+            producer_.start();
+        }
+        else {
+            producer_ = null;
+        }
+    }
+
+    /**
+     * Indicates whether the end of the stream has been reached.
+     * If not, at least one more byte can be read.
+     *
+     * @return   true iff there are no more bytes
+     */
+    public boolean isEnd() throws IOException {
+        return ! ensureData();
+    }
+
+    /**
+     * Reads a given number of bytes and returns them as the content
+     * of a byte buffer.  The returned buffer has big-endian byte order,
+     * and its bytes are those between its position and its limit.
+     * It is only valid until the next read operation on this object.
+     *
+     * @param  nbyte  number of bytes to read
+     * @return  buffer containing <code>nbyte</code> bytes
+     * @throws  EOFException  if the end of the stream is reached first
+     */
+    public ByteBuffer readBuffer( int nbyte ) throws IOException {
+        if ( buf_.remaining() >= nbyte ) {
+            ByteBuffer result = buf_.duplicate();
+            int pos = buf_.position() + nbyte;
+            result.limit( pos );
+            buf_.position( pos );
+            return result;
+        }
+        else {
+            byte[] bytes = new byte[ nbyte ];
+            readFully( bytes );
+            return ByteBuffer.wrap( bytes );
+        }
+    }
+
+    /**
+     * Closes this input and the underlying stream.
+     * If a read-ahead thread is running, it is stopped.
+     */
+    public void close() throws IOException {
+        if ( producer_ != null ) {
+            producer_.cancel();
+        }
+        buf_ = ByteBuffer.allocate( 0 );
+        eof_ = true;
+        in_.close();
+    }
+
+    public void readFully( byte[] b ) throws IOException {
+        readFully( b, 0, b.length );
+    }
+
+    public void readFully( byte[] b, int off, int len ) throws IOException {
+        while ( len > 0 ) {
+            if ( ! ensureData() ) {
+                throw new EOFException();
+            }
+            int n = Math.min( len, buf_.remaining() );
+            buf_.get( b, off, n );
+            off += n;
+            len -= n;
+        }
+    }
+
+    public int skipBytes( int n ) throws IOException {
+        int nskip = 0;
+        while ( nskip < n && ensureData() ) {
+            int n1 = Math.min( n - nskip, buf_.remaining() );
+            buf_.position( buf_.position() + n1 );
+            nskip += n1;
+        }
+        return nskip;
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public byte readByte() throws IOException {
+        if ( ! ensureData() ) {
+            throw new EOFException();
+        }
+        return buf_.get();
+    }
+
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xff;
+    }
+
+    public short readShort() throws IOException {
+        return buf_.remaining() >= 2 ? buf_.getShort()
+                                     : fillScratch( 2 ).getShort( 0 );
+    }
+
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xffff;
+    }
+
+    public char readChar() throws IOException {
+        return buf_.remaining() >= 2 ? buf_.getChar()
+                                     : fillScratch( 2 ).getChar( 0 );
+    }
+
+    public int readInt() throws IOException {
+        return buf_.remaining() >= 4 ? buf_.getInt()
+                                     : fillScratch( 4 ).getInt( 0 );
+    }
+
+    public long readLong() throws IOException {
+        return buf_.remaining() >= 8 ? buf_.getLong()
+                                     : fillScratch( 8 ).getLong( 0 );
+    }
+
+    public float readFloat() throws IOException {
+        return buf_.remaining() >= 4 ? buf_.getFloat()
+                                     : fillScratch( 4 ).getFloat( 0 );
+    }
+
+    public double readDouble() throws IOException {
+        return buf_.remaining() >= 8 ? buf_.getDouble()
+                                     : fillScratch( 8 ).getDouble( 0 );
+    }
+
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF( this );
+    }
+
+    /**
+     * Reads a line of text, in the same way as
+     * {@link java.io.DataInputStream#readLine}.
+     * Each byte is taken as a character in the range 0-255,
+     * and the line is terminated by a carriage return, a newline,
+     * a carriage return followed by a newline, or end of stream.
+     *
+     * @return  next line of text without its terminator,
+     *          or null if the end of the stream has been reached
+     */
+    public String readLine() throws IOException {
+        if ( ! ensureData() ) {
+            return null;
+        }
+        StringBuilder sbuf = new StringBuilder();
+        while ( ensureData() ) {
+            char c = (char) ( readByte() & 0xff );
+            if ( c == '\n' ) {
+                break;
+            }
+            else if ( c == '\r' ) {
+                if ( ensureData() && buf_.get( buf_.position() ) == '\n' ) {
+                    buf_.get();
+                }
+                break;
+            }
+            else {
+                sbuf.append( c );
+            }
+        }
+        return sbuf.toString();
+    }
+
+    /**
+     * Returns the read-ahead thread, if any.
+     * Intended for testing.
+     *
+     * @return  read-ahead thread, or null
+     */
+    Thread getReadAheadThread() {
+        return producer_;
+    }
+
+    /**
+     * Reads a few bytes which may straddle a chunk boundary into
+     * the scratch buffer.
+     *
+     * @param  nbyte  number of bytes, no more than 8
+     * @return  scratch buffer with the bytes at the start
+     */
+    private ByteBuffer fillScratch( int nbyte ) throws IOException {
+        readFully( scratch_.array(), 0, nbyte );
+        return scratch_;
+    }
+
+    /**
+     * Ensures that the current buffer has at least one byte remaining,
+     * if possible.
+     *
+     * @return  true if there is data, false if the stream is exhausted
+     */
+    private boolean ensureData() throws IOException {
+        while ( ! buf_.hasRemaining() ) {
+            if ( eof_ ) {
+                return false;
+            }
+            ByteBuffer chunk = producer_ == null ? readInlineChunk()
+                                                 : producer_.takeChunk();
+            if ( chunk == null ) {
+                eof_ = true;
+                return false;
+            }
+            buf_ = chunk;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a chunk from the stream in the current thread.
+     * The same byte array is reused each time.
+     *
+     * @return  buffer containing new data, or null at end of stream
+     */
+    private ByteBuffer readInlineChunk() throws IOException {
+        if ( inlineChunk_ == null ) {
+            inlineChunk_ = new byte[ chunkSize_ ];
+        }
+        int n = readChunk( in_, inlineChunk_ );
+        return n > 0 ? ByteBuffer.wrap( inlineChunk_, 0, n ) : null;
+    }
+
+    /**
+     * Fills a byte array from an input stream, stopping early only at
+     * end of stream.  An EOFException from the stream is treated as
+     * end of stream; if that leaves a value incomplete, the consumer
+     * will encounter an EOFException when it tries to read it.
+     *
+     * @param  in  input stream
+     * @param  chunk  buffer to fill
+     * @return  number of bytes read
+     */
+    private static int readChunk( InputStream in, byte[] chunk )
+            throws IOException {
+        int n = 0;
+        while ( n < chunk.length ) {
+            int n1;
+            try {
+                n1 = in.read( chunk, n, chunk.length - n );
+            }
+            catch ( EOFException e ) {
+                break;
+            }
+            if ( n1 < 0 ) {
+                break;
+            }
+            n += n1;
+        }
+        return n;
+    }
+
+    /**
+     * Thread which reads chunks from the underlying stream and queues
+     * them for the consumer.
+     * It only holds a weak reference to the consumer, so that it can
+     * tell if the consumer has been abandoned without being closed.
+     */
+    private static class Producer extends Thread {
+
+        private final WeakReference<ChunkedDataInput> ownerRef_;
+        private final InputStream in_;
+        private final int chunkSize_;
+        private final BlockingQueue<ByteBuffer> queue_;
+        private volatile boolean cancelled_;
+        private volatile Throwable error_;
+
+        /**
+         * Constructor.
+         *
+         * @param  owner  consumer
+         * @param  in   input stream
+         * @param  chunkSize  number of bytes read at a time
+         */
+        Producer( ChunkedDataInput owner, InputStream in, int chunkSize ) {
+            super( "VOTable stream reader" );
+            setDaemon( true );
+            ownerRef_ = new WeakReference<ChunkedDataInput>( owner );
+            in_ = in;
+            chunkSize_ = chunkSize;
+            queue_ = new ArrayBlockingQueue<ByteBuffer>( QUEUE_SIZE );
+        }
+
+        @Override
+        public void run() {
+            try {
+                while ( ! cancelled_ ) {
+                    byte[] chunk = new byte[ chunkSize_ ];
+                    int n = readChunk( in_, chunk );
+                    if ( n > 0 &&
+                         ! enqueue( ByteBuffer.wrap( chunk, 0, n ) ) ) {
+                        return;
+                    }
+                    if ( n < chunk.length ) {
+                        break;
+                    }
+                }
+            }
+            catch ( Throwable e ) {
+                error_ = e;
+            }
+            enqueue( END );
+        }
+
+        /**
+         * Adds a chunk to the queue, waiting for space if necessary,
+         * unless this thread is cancelled or the consumer is abandoned.
+         *
+         * @param  chunk  chunk to add
+         * @return  true if the chunk was added,
+         *          false if there is no longer a consumer
+         */
+        private boolean enqueue( ByteBuffer chunk ) {
+            try {
+                while ( ! cancelled_ ) {
+                    if ( queue_.offer( chunk, ABANDON_CHECK_MILLIS,
+                                       TimeUnit.MILLISECONDS ) ) {
+                        return true;
+                    }
+                    if ( ownerRef_.get() == null ) {
+                        cancelled_ = true;
+                    }
+                }
+            }
+            catch ( InterruptedException e ) {
+                assert cancelled_;
+            }
+            return false;
+        }
+
+        /**
+         * Returns the next chunk read by this thread, blocking if
+         * necessary.  Errors encountered by the producer are rethrown.
+         *
+         * @return  buffer containing new data, or null at end of stream
+         */
+        ByteBuffer takeChunk() throws IOException {
+            final ByteBuffer chunk;
+            try {
+                chunk = queue_.take();
+            }
+            catch ( InterruptedException e ) {
+                throw (IOException) new InterruptedIOException()
+                                   .initCause( e );
+            }
+            if ( chunk == END ) {
+
+                /* Leave the marker for any subsequent calls. */
+                queue_.offer( END );
+                Throwable err = error_;
+                if ( err == null ) {
+                    return null;
+                }
+                else if ( err instanceof IOException ) {
+                    throw (IOException) err;
+                }
+                else if ( err instanceof RuntimeException ) {
+                    throw (RuntimeException) err;
+                }
+                else if ( err instanceof Error ) {
+                    throw (Error) err;
+                }
+                else {
+                    throw (IOException) new IOException( err.getMessage() )
+                                       .initCause( err );
+                }
+            }
+            else {
+                return chunk;
+            }
+        }
+
+        /**
+         * Stops this thread and discards any queued data.
+         */
+        void cancel() {
+            cancelled_ = true;
+            interrupt();
+            queue_.clear();
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package uk.ac.starlink.votable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import uk.ac.starlink.table.ColumnData;
+import uk.ac.starlink.table.ColumnInfo;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.RowStore;
+import uk.ac.starlink.table.StarTable;
+
+/**
+ * RowStore implementation which stores data in memory column by column.
+ * Columns with scalar numeric or boolean content are stored in
+ * primitive arrays, with a bit mask for null values where required,
+ * rather than as an array of boxed objects per row.
+ * For a table with mostly numeric columns this uses several times
+ * less memory than a list of row arrays, and puts much less load on
+ * the garbage collector.
+ *
+ * <p>A column whose declared content class is primitive-like but which
+ * is found to contain a value of some other type is quietly converted
+ * to object storage, so any table can be stored.
+ *
+ * @author   Mark Taylor
+ * @since    18 Oct 2026
+ */
+class ColumnRowStore implements RowStore {
+
+    private StarTable meta_;
+    private Col[] cols_;
+    private int nrow_;
+    private StarTable table_;
+
+    /** Initial capacity of each column. */
+    private static final int INITIAL_SIZE = 1024;
+
+    public void acceptMetadata( StarTable meta ) {
+        if ( meta_ != null ) {
+            throw new IllegalStateException( "Metadata already submitted" );
+        }
+        meta_ = meta;
+        int ncol = meta.getColumnCount();
+        cols_ = new Col[ ncol ];
+        for ( int icol = 0; icol < ncol; icol++ ) {
+            cols_[ icol ] =
+                createCol( meta.getColumnInfo( icol ).getContentClass() );
+        }
+    }
+
+    public void acceptRow( Object[] row ) throws IOException {
+        if ( meta_ == null ) {
+            throw new IllegalStateException( "acceptMetadata not yet called" );
+        }
+        if ( table_ != null ) {
+            throw new IllegalStateException( "endRows has been called" );
+        }
+        if ( nrow_ == Integer.MAX_VALUE - 8 ) {
+            throw new IOException( "Too many rows for in-memory storage" );
+        }
+        for ( int icol = 0; icol < cols_.length; icol++ ) {
+            Col col = cols_[ icol ];
+            Object value = row[ icol ];
+            if ( ! col.accepts( value ) ) {
+                col = new ObjectCol( col, nrow_ );
+                cols_[ icol ] = col;
+            }
+            col.set( nrow_, value );
+        }
+        nrow_++;
+    }
+
+    public void endRows() {
+        final int nrow = nrow_;
+        ColumnStarTable table = new ColumnStarTable( meta_ ) {
+            public long getRowCount() {
+                return nrow;
+            }
+        };
+        for ( int icol = 0; icol < cols_.length; icol++ ) {
+            final Col col = cols_[ icol ];
+            col.trim( nrow );
+            ColumnInfo info = new ColumnInfo( meta_.getColumnInfo( icol ) );
+            table.addColumn( new ColumnData( info ) {
+                public Object readValue( long irow ) {
+                    return col.get( (int) irow );
+                }
+            } );
+        }
+        table_ = table;
+        meta_ = null;
+    }
+
+    public StarTable getStarTable() {
+        if ( table_ != null ) {
+            return table_;
+        }
+        else {
+            throw new IllegalStateException( "endRows not called yet" );
+        }
+    }
+
+    /**
+     * Returns a column storage object suitable for a given content class.
+     *
+     * @param  clazz  declared class of column values
+     * @return  new column storage
+     */
+    private static Col createCol( Class<?> clazz ) {
+        if ( clazz == Double.class ) {
+            return new DoubleCol();
+        }
+        else if ( clazz == Float.class ) {
+            return new FloatCol();
+        }
+        else if ( clazz == Long.class ) {
+            return new LongCol();
+        }
+        else if ( clazz == Integer.class ) {
+            return new IntCol();
+        }
+        else if ( clazz == Short.class ) {
+            return new ShortCol();
+        }
+        else if ( clazz == Byte.class ) {
+            return new ByteCol();
+        }
+        else if ( clazz == Boolean.class ) {
+            return new BooleanCol();
+        }
+        else {
+            return new ObjectCol();
+        }
+    }
+
+    /**
+     * Returns a capacity at least one larger than a given one.
+     *
+     * @param  size  current capacity
+     * @return   new capacity
+     */
+    private static int grow( int size ) {
+        return (int) Math.min( Math.max( INITIAL_SIZE, size * 2L ),
+                               Integer.MAX_VALUE - 8 );
+    }
+
+    /**
+     * Stores the values for a single column.
+     */
+    private static abstract class Col {
+
+        /**
+         * Indicates whether a given value can be stored by this column.
+         *
+         * @param  value  cell value
+         * @return  true iff it can be passed to <code>set</code>
+         */
+        abstract boolean accepts( Object value );
+
+        /**
+         * Stores a value.  Values are stored in index order.
+         *
+         * @param  irow  row index
+         * @param  value  acceptable cell value
+         */
+        abstract void set( int irow, Object value );
+
+        /**
+         * Retrieves a stored value.
+         *
+         * @param  irow  row index
+         * @return  cell value
+         */
+        abstract Object get( int irow );
+
+        /**
+         * Discards any unused storage capacity.
+         *
+         * @param  nrow  number of rows stored
+         */
+        abstract void trim( int nrow );
+    }
+
+    /**
+     * Col implementation storing arbitrary objects.
+     */
+    private static class ObjectCol extends Col {
+        private Object[] data_;
+
+        /**
+         * Constructs an empty column.
+         */
+        ObjectCol() {
+            data_ = new Object[ 0 ];
+        }
+
+        /**
+         * Constructs a column containing values copied from another one.
+         *
+         * @param  base  column to copy from
+         * @param  nrow  number of values to copy
+         */
+        ObjectCol( Col base, int nrow ) {
+            data_ = new Object[ grow( nrow ) ];
+            for ( int i = 0; i < nrow; i++ ) {
+                data_[ i ] = base.get( i );
+            }
+        }
+
+        boolean accepts( Object value ) {
+            return true;
+        }
+
+        void set( int irow, Object value ) {
+            if ( irow >= data_.length ) {
+                data_ = Arrays.copyOf( data_, grow( data_.length ) );
+            }
+            data_[ irow ] = value;
+        }
+
+        Object get( int irow ) {
+            return data_[ irow ];
+        }
+
+        void trim( int nrow ) {
+            data_ = Arrays.copyOf( data_, nrow );
+        }
+    }
+
+    /**
+     * Partial Col implementation for values which can be stored
+     * as primitives.  Null values are recorded in a bit mask,
+     * which is only created if required.
+     */
+    private static abstract class PrimitiveCol extends Col {
+        private final Class<?> clazz_;
+        private BitSet nulls_;
+        private int size_;
+
+        /**
+         * Constructor.
+         *
+         * @param  clazz  wrapper class of acceptable non-null values
+         */
+        PrimitiveCol( Class<?> clazz ) {
+            clazz_ = clazz;
+        }
+
+        /**
+         * Resizes the primitive storage array.
+         *
+         * @param  size  new capacity
+         */
+        abstract void resize( int size );
+
+        /**
+         * Stores a non-null value.
+         *
+         * @param  irow  row index, within the current capacity
+         * @param  value  value of this column's wrapper class
+         */
+        abstract void setValue( int irow, Object value );
+
+        /**
+         * Retrieves a value known to be non-null.
+         *
+         * @param  irow  row index
+         * @return  boxed value
+         */
+        abstract Object getValue( int irow );
+
+        boolean accepts( Object value ) {
+            return value == null || value.getClass() == clazz_;
+        }
+
+        void set( int irow, Object value ) {
+            if ( irow >= size_ ) {
+                size_ = grow( size_ );
+                resize( size_ );
+            }
+            if ( value == null ) {
+                if ( nulls_ == null ) {
+                    nulls_ = new BitSet();
+                }
+                nulls_.set( irow );
+            }
+            else {
+                setValue( irow, value );
+            }
+        }
+
+        Object get( int irow ) {
+            return nulls_ != null && nulls_.get( irow ) ? null
+                                                        : getValue( irow );
+        }
+
+        void trim( int nrow ) {
+            size_ = nrow;
+            resize( nrow );
+        }
+    }
+
+    private static class DoubleCol extends PrimitiveCol {
+        private double[] data_ = new double[ 0 ];
+        DoubleCol() {
+            super( Double.class );
+        }
+        void resize( int size ) {
+            data_ = Arrays.copyOf( data_, size );
+        }
+        void setValue( int irow, Object value ) {
+            data_[ irow ] = ((Double) value).doubleValue();
+        }
+        Object getValue( int irow ) {
+            return Double.valueOf( data_[ irow ] );
+        }
+    }
+
+    private static class FloatCol extends PrimitiveCol {
+        private float[] data_ = new float[ 0 ];
+        FloatCol() {
+            super( Float.class );
+        }
+        void resize( int size ) {
+            data_ = Arrays.copyOf( data_, size );
+        }
+        void setValue( int irow, Object value ) {
+            data_[ irow ] = ((Float) value).floatValue();
+        }
+        Object getValue( int irow ) {
+            return Float.valueOf( data_[ irow ] );
+        }
+    }
+
+    private static class LongCol extends PrimitiveCol {
+        private long[] data_ = new long[ 0 ];
+        LongCol() {
+            super( Long.class );
+        }
+        void resize( int size ) {
+            data_ = Arrays.copyOf( data_, size );
+        }
+        void setValue( int irow, Object value ) {
+            data_[ irow ] = ((Long) value).longValue();
+        }
+        Object getValue( int irow ) {
+            return Long.valueOf( data_[ irow ] );
+        }
+    }
+
+    private static class IntCol extends PrimitiveCol {
+        private int[] data_ = new int[ 0 ];
+        IntCol() {
+            super( Integer.class );
+        }
+        void resize( int size ) {
+            data_ = Arrays.copyOf( data_, size );
+        }
+        void setValue( int irow, Object value ) {
+            data_[ irow ] = ((Integer) value).intValue();
+        }
+        Object getValue( int irow ) {
+            return Integer.valueOf( data_[ irow ] );
+        }
+    }
+
+    private static class ShortCol extends PrimitiveCol {
+        private short[] data_ = new short[ 0 ];
+        ShortCol() {
+            super( Short.class );
+        }
+        void resize( int size ) {
+            data_ = Arrays.copyOf( data_, size );
+        }
+        void setValue( int irow, Object value ) {
+            data_[ irow ] = ((Short) value).shortValue();
+        }
+        Object getValue( int irow ) {
+            return Short.valueOf( data_[ irow ] );
+        }
+    }
+
+    private static class ByteCol extends PrimitiveCol {
+        private byte[] data_ = new byte[ 0 ];
+        ByteCol() {
+            super( Byte.class );
+        }
+        void resize( int size ) {
+            data_ = Arrays.copyOf( data_, size );
+        }
+        void setValue( int irow, Object value ) {
+            data_[ irow ] = ((Byte) value).byteValue();
+        }
+        Object getValue( int irow ) {
+            return Byte.valueOf( data_[ irow ] );
+        }
+    }
+
+    private static class BooleanCol extends PrimitiveCol {
+        private boolean[] data_ = new boolean[ 0 ];
+        BooleanCol() {
+            super( Boolean.class );
+        }
+        void resize( int size ) {
+            data_ = Arrays.copyOf( data_, size );
+        }
+        void setValue( int irow, Object value ) {
+            data_[ irow ] = ((Boolean) value).booleanValue();
+        }
+        Object getValue( int irow ) {
+            return Boolean.valueOf( data_[ irow ] );
+        }
+    }
+}
@@ -672,7 +672,6 @@ abstract class Encoder {
             final int nString = ns;
 
             return new Encoder( info, cwrite.getDatatype() ) {
-                char[] cbuf = new char[ nChar ];
 
                 /*anonymousConstructor*/ {
                     putAtt( "arraysize", arraysize );
@@ -682,6 +681,7 @@ abstract class Encoder {
                     if ( val != null ) {
                         Object[] value = (Object[]) val;
                         StringBuffer sbuf = new StringBuffer();
+                        char[] cbuf = new char[ nChar ];
                         for ( int i = 0; i < value.length; i++ ) {
                             Object el = value[ i ];
                             String str = el == null ? "" : el.toString();
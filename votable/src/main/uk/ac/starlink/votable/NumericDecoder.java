@@ -2,6 +2,7 @@ package uk.ac.starlink.votable;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.StringTokenizer;
 
 abstract class NumericDecoder extends Decoder {
@@ -64,6 +65,25 @@ abstract class NumericDecoder extends Decoder {
     abstract void decodeStream1( Object array, int index, DataInput strm )
             throws IOException;
 
+    /**
+     * Reads a number of values from a chunked input and places them
+     * in a storage array.  This is invoked in preference to repeated
+     * calls of <code>decodeStream1</code> where possible.
+     * The default implementation does just that, but subclasses
+     * may override it to decode the values in bulk from a byte buffer.
+     *
+     * @param  array  array returned by a previous call to getEmptyArray
+     * @param  num   number of elements to read, starting at index 0
+     * @param  in    input
+     * @throws IOException  if there was a read error
+     */
+    void decodeChunked( Object array, int num, ChunkedDataInput in )
+            throws IOException {
+        for ( int i = 0; i < num; i++ ) {
+            decodeStream1( array, i, in );
+        }
+    }
+
     /**
      * Turns an array representing the data decoded by this object into
      * the form it will be seen by the outside world as.  The default
@@ -108,8 +128,13 @@ abstract class NumericDecoder extends Decoder {
     public Object decodeStream( DataInput strm ) throws IOException {
         int num = getNumItems( strm );
         Object result = getEmptyArray( num );
-        for ( int i = 0; i < num; i++ ) {
-            decodeStream1( result, i, strm );
+        if ( num > 1 && strm instanceof ChunkedDataInput ) {
+            decodeChunked( result, num, (ChunkedDataInput) strm );
+        }
+        else {
+            for ( int i = 0; i < num; i++ ) {
+                decodeStream1( result, i, strm );
+            }
         }
         return packageArray( result );
     }
@@ -284,6 +309,11 @@ abstract class NumericDecoder extends Decoder {
                 throws IOException {
             ((short[]) array)[ index ] = strm.readShort();
         }
+        void decodeChunked( Object array, int num, ChunkedDataInput in )
+                throws IOException {
+            in.readBuffer( num * 2 ).asShortBuffer()
+              .get( (short[]) array, 0, num );
+        }
         void setBad1( Object array, int index ) {
             ((short[]) array)[ index ] = bad;
         }
@@ -317,6 +347,14 @@ abstract class NumericDecoder extends Decoder {
             ((short[]) array)[ index ] =
                 (short) ( (short) 0x00ff & (short) strm.readByte() );
         }
+        void decodeChunked( Object array, int num, ChunkedDataInput in )
+                throws IOException {
+            short[] sarray = (short[]) array;
+            ByteBuffer buf = in.readBuffer( num );
+            for ( int i = 0; i < num; i++ ) {
+                sarray[ i ] = (short) ( buf.get() & 0xff );
+            }
+        }
     }
 
     static class ScalarUnsignedByteDecoder extends UnsignedByteDecoder {
@@ -355,6 +393,11 @@ abstract class NumericDecoder extends Decoder {
                 throws IOException {
             ((int[]) array)[ index ] = strm.readInt();
         }
+        void decodeChunked( Object array, int num, ChunkedDataInput in )
+                throws IOException {
+            in.readBuffer( num * 4 ).asIntBuffer()
+              .get( (int[]) array, 0, num );
+        }
         void setBad1( Object array, int index ) {
             ((int[]) array)[ index ] = bad;
         }
@@ -399,6 +442,11 @@ abstract class NumericDecoder extends Decoder {
                 throws IOException {
             ((long[]) array)[ index ] = strm.readLong();
         }
+        void decodeChunked( Object array, int num, ChunkedDataInput in )
+                throws IOException {
+            in.readBuffer( num * 8 ).asLongBuffer()
+              .get( (long[]) array, 0, num );
+        }
         void setBad1( Object array, int index ) {
             ((long[]) array)[ index ] = bad;
         }
@@ -440,6 +488,11 @@ abstract class NumericDecoder extends Decoder {
                 throws IOException {
             ((float[]) array)[ index ] = strm.readFloat();
         }
+        void decodeChunked( Object array, int num, ChunkedDataInput in )
+                throws IOException {
+            in.readBuffer( num * 4 ).asFloatBuffer()
+              .get( (float[]) array, 0, num );
+        }
         void setBad1( Object array, int index ) {
             ((float[]) array)[ index ] = Float.NaN;
         }
@@ -481,6 +534,11 @@ abstract class NumericDecoder extends Decoder {
                 throws IOException {
             ((double[]) array)[ index ] = strm.readDouble();
         }
+        void decodeChunked( Object array, int num, ChunkedDataInput in )
+                throws IOException {
+            in.readBuffer( num * 8 ).asDoubleBuffer()
+              .get( (double[]) array, 0, num );
+        }
         void setBad1( Object array, int index ) {
             ((double[]) array)[ index ] = Double.NaN;
         }
@@ -1,6 +1,7 @@
 package uk.ac.starlink.votable;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -24,6 +25,8 @@ import uk.ac.starlink.fits.WideFits;
 import uk.ac.starlink.table.ColumnInfo;
 import uk.ac.starlink.table.DefaultValueInfo;
 import uk.ac.starlink.table.DescribedValue;
+import uk.ac.starlink.table.RowBlockEncoder;
+import uk.ac.starlink.table.RowBlockWriter;
 import uk.ac.starlink.table.RowSequence;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.Tables;
@@ -1038,31 +1041,39 @@ public abstract class VOSerializer {
             writer.newLine();
             writer.write( "<TABLEDATA>" );
             writer.newLine();
-            int ncol = encoders.length;
-            RowSequence rseq = getTable().getRowSequence();
-            try {
-                while ( rseq.next() ) {
-                    writer.write( "  <TR>" );
-                    writer.newLine();
-                    Object[] rowdata = rseq.getRow();
-                    for ( int icol = 0; icol < ncol; icol++ ) {
-                        Encoder encoder = encoders[ icol ];
-                        if ( encoder != null ) {
-                            String text =
-                                encoder.encodeAsText( rowdata[ icol ] );
-                            writer.write( "    <TD>" );
-                            writer.write( formatText( text ) );
-                            writer.write( "</TD>" );
-                            writer.newLine();
+            final int ncol = encoders.length;
+            final String nl = System.lineSeparator();
+            RowBlockEncoder<String> rowEncoder =
+                    new RowBlockEncoder<String>() {
+                public String encodeRows( RowSequence rseq )
+                        throws IOException {
+                    StringBuilder sbuf = new StringBuilder();
+                    while ( rseq.next() ) {
+                        sbuf.append( "  <TR>" )
+                            .append( nl );
+                        Object[] rowdata = rseq.getRow();
+                        for ( int icol = 0; icol < ncol; icol++ ) {
+                            Encoder encoder = encoders[ icol ];
+                            if ( encoder != null ) {
+                                String text =
+                                    encoder.encodeAsText( rowdata[ icol ] );
+                                sbuf.append( "    <TD>" )
+                                    .append( formatText( text ) )
+                                    .append( "</TD>" )
+                                    .append( nl );
+                            }
                         }
+                        sbuf.append( "  </TR>" )
+                            .append( nl );
                     }
-                    writer.write( "  </TR>" );
-                    writer.newLine();
+                    return sbuf.toString();
                 }
-            }
-            finally {
-                rseq.close();
-            }
+                public void writeBlock( String block ) throws IOException {
+                    writer.write( block );
+                }
+            };
+            RowBlockWriter.getDefaultInstance()
+                          .writeRows( getTable(), rowEncoder );
             writer.write( "</TABLEDATA>" );
             writer.newLine();
             writer.write( "</DATA>" );
@@ -1181,23 +1192,32 @@ public abstract class VOSerializer {
                           writer );
         }
 
-        public void streamData( DataOutput out ) throws IOException {
-            int ncol = encoders.length;
-            RowSequence rseq = getTable().getRowSequence();
-            try {
-                while ( rseq.next() ) {
-                    Object[] row = rseq.getRow();
-                    for ( int icol = 0; icol < ncol; icol++ ) {
-                        Encoder encoder = encoders[ icol ];
-                        if ( encoder != null ) {
-                            encoder.encodeToStream( row[ icol ], out );
+        public void streamData( final DataOutput out ) throws IOException {
+            final int ncol = encoders.length;
+            RowBlockEncoder<byte[]> rowEncoder =
+                    new RowBlockEncoder<byte[]>() {
+                public byte[] encodeRows( RowSequence rseq )
+                        throws IOException {
+                    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                    DataOutputStream dout = new DataOutputStream( bout );
+                    while ( rseq.next() ) {
+                        Object[] row = rseq.getRow();
+                        for ( int icol = 0; icol < ncol; icol++ ) {
+                            Encoder encoder = encoders[ icol ];
+                            if ( encoder != null ) {
+                                encoder.encodeToStream( row[ icol ], dout );
+                            }
                         }
                     }
+                    dout.flush();
+                    return bout.toByteArray();
                 }
-            }
-            finally {
-                rseq.close();
-            }
+                public void writeBlock( byte[] block ) throws IOException {
+                    out.write( block );
+                }
+            };
+            RowBlockWriter.getDefaultInstance()
+                          .writeRows( getTable(), rowEncoder );
         }
     }
 
@@ -1228,35 +1248,44 @@ public abstract class VOSerializer {
                     icolList.add( icol );
                 }
             }
-            int[] icols = icolList.toIntArray();
-            int ncol = icols.length;
-            boolean[] nullFlags = new boolean[ ncol ];
-
-            /* Read data from table. */
-            RowSequence rseq = getTable().getRowSequence();
-            try {
-                while ( rseq.next() ) {
- 
-                    /* Prepare and write the null-flag array. */
-                    Object[] row = rseq.getRow();
-                    for ( int jcol = 0; jcol < ncol; jcol++ ) {
-                        int icol = icols[ jcol ];
-                        Object cell = row[ icol ];
-                        nullFlags[ jcol ] = cell == null;
-                    }
-                    FlagIO.writeFlags( out, nullFlags );
+            final int[] icols = icolList.toIntArray();
+            final int ncol = icols.length;
+
+            /* Encode rows, possibly in multiple threads. */
+            RowBlockEncoder<byte[]> rowEncoder =
+                    new RowBlockEncoder<byte[]>() {
+                public byte[] encodeRows( RowSequence rseq )
+                        throws IOException {
+                    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+                    DataOutputStream dout = new DataOutputStream( bout );
+                    boolean[] nullFlags = new boolean[ ncol ];
+                    while ( rseq.next() ) {
+
+                        /* Prepare and write the null-flag array. */
+                        Object[] row = rseq.getRow();
+                        for ( int jcol = 0; jcol < ncol; jcol++ ) {
+                            int icol = icols[ jcol ];
+                            Object cell = row[ icol ];
+                            nullFlags[ jcol ] = cell == null;
+                        }
+                        FlagIO.writeFlags( dout, nullFlags );
 
-                    /* Write the data cells. */
-                    for ( int jcol = 0; jcol < ncol; jcol++ ) {
-                        int icol = icols[ jcol ];
-                        Object cell = row[ icol ];
-                        encoders[ icol ].encodeToStream( cell, out );
+                        /* Write the data cells. */
+                        for ( int jcol = 0; jcol < ncol; jcol++ ) {
+                            int icol = icols[ jcol ];
+                            Object cell = row[ icol ];
+                            encoders[ icol ].encodeToStream( cell, dout );
+                        }
                     }
+                    dout.flush();
+                    return bout.toByteArray();
                 }
-            }
-            finally {
-                rseq.close();
-            }
+                public void writeBlock( byte[] block ) throws IOException {
+                    out.write( block );
+                }
+            };
+            RowBlockWriter.getDefaultInstance()
+                          .writeRows( getTable(), rowEncoder );
         }
     }
 
@@ -12,6 +12,7 @@ import uk.ac.starlink.fits.FitsTableBuilder;
 import uk.ac.starlink.table.RowStore;
 import uk.ac.starlink.table.StarTable;
 import uk.ac.starlink.table.StoragePolicy;
+import uk.ac.starlink.table.storage.ListRowStore;
 import uk.ac.starlink.util.DataSource;
 
 /**
@@ -158,6 +159,15 @@ public class VOTableDOMBuilder implements ContentHandler {
 
         public void startTable( StarTable meta ) throws SAXException {
             rowStore_ = storagePolicy_.makeConfiguredRowStore( meta );
+
+            /* If the policy wants rows held in memory as arrays of objects,
+             * store them in columns instead; the data is the same but
+             * numeric cells do not have to be kept as boxed objects. */
+            if ( rowStore_ instanceof ListRowStore ) {
+                ColumnRowStore colStore = new ColumnRowStore();
+                colStore.acceptMetadata( meta );
+                rowStore_ = colStore;
+            }
         }
 
         public void rowData( Object[] row ) throws SAXException {
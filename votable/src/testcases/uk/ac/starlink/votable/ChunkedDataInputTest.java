@@ -0,0 +1,140 @@
+package uk.ac.starlink.votable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import uk.ac.starlink.util.TestCase;
+
+public class ChunkedDataInputTest extends TestCase {
+
+    public ChunkedDataInputTest( String name ) {
+        super( name );
+    }
+
+    public void testRead() throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bout );
+        Random rnd = new Random( 99023L );
+        int n = 5000;
+        for ( int i = 0; i < n; i++ ) {
+            out.writeByte( i );
+            out.writeShort( i * 3 );
+            out.writeInt( i * 1001 );
+            out.writeLong( i * 1000003L );
+            out.writeFloat( i * 0.25f );
+            out.writeDouble( i * 0.5 );
+            out.writeChar( 'a' + i % 26 );
+            out.writeUTF( "x" + i );
+            for ( int j = 0; j < 3; j++ ) {
+                out.writeDouble( i + j );
+            }
+        }
+        out.close();
+        byte[] bytes = bout.toByteArray();
+        for ( int chunk : new int[] { 1, 7, 100, 65536 } ) {
+            for ( boolean readAhead : new boolean[] { false, true } ) {
+                InputStream in = new ByteArrayInputStream( bytes ) {
+                    @Override
+                    public int read( byte[] b, int off, int len ) {
+                        return super.read( b, off,
+                                           Math.min( len,
+                                                     1 + rnd.nextInt( 50 ) ) );
+                    }
+                };
+                ChunkedDataInput din =
+                    new ChunkedDataInput( in, chunk, readAhead );
+                for ( int i = 0; i < n; i++ ) {
+                    assertFalse( din.isEnd() );
+                    assertEquals( (byte) i, din.readByte() );
+                    assertEquals( (short) ( i * 3 ), din.readShort() );
+                    assertEquals( i * 1001, din.readInt() );
+                    assertEquals( i * 1000003L, din.readLong() );
+                    assertEquals( i * 0.25f, din.readFloat() );
+                    assertEquals( i * 0.5, din.readDouble() );
+                    assertEquals( 'a' + i % 26, din.readChar() );
+                    assertEquals( "x" + i, din.readUTF() );
+                    double[] darray = new double[ 3 ];
+                    din.readBuffer( 24 ).asDoubleBuffer().get( darray );
+                    assertArrayEquals( new double[] { i, i + 1, i + 2 },
+                                       darray );
+                }
+                assertTrue( din.isEnd() );
+                try {
+                    din.readInt();
+                    fail();
+                }
+                catch ( EOFException e ) {
+                }
+                din.close();
+            }
+        }
+    }
+
+    public void testError() throws IOException {
+        InputStream in = new InputStream() {
+            int count;
+            public int read() throws IOException {
+                if ( count++ < 10000 ) {
+                    return 0;
+                }
+                else {
+                    throw new IOException( "Broken stream" );
+                }
+            }
+        };
+        ChunkedDataInput din = new ChunkedDataInput( in, 256, true );
+        try {
+            while ( true ) {
+                din.readLong();
+            }
+        }
+        catch ( IOException e ) {
+            assertEquals( "Broken stream", e.getMessage() );
+        }
+        din.close();
+    }
+
+    public void testReadLine() throws IOException {
+        byte[] bytes = "ab\ncd\r\n\re\u00e9\r\rf".getBytes( "ISO-8859-1" );
+        for ( int chunk : new int[] { 1, 2, 3, 100 } ) {
+            for ( boolean readAhead : new boolean[] { false, true } ) {
+                ChunkedDataInput din =
+                    new ChunkedDataInput( new ByteArrayInputStream( bytes ),
+                                          chunk, readAhead );
+                assertEquals( "ab", din.readLine() );
+                assertEquals( "cd", din.readLine() );
+                assertEquals( "", din.readLine() );
+                assertEquals( "e\u00e9", din.readLine() );
+                assertEquals( "", din.readLine() );
+                assertEquals( "f", din.readLine() );
+                assertNull( din.readLine() );
+                din.close();
+            }
+        }
+    }
+
+    public void testAbandon() throws Exception {
+        InputStream in = new InputStream() {
+            public int read() {
+                return 0;
+            }
+        };
+        ChunkedDataInput din = new ChunkedDataInput( in, 256, true );
+        din.readLong();
+        Thread producer = din.getReadAheadThread();
+        assertTrue( producer.isAlive() );
+
+        /* If the consumer is abandoned without being closed,
+         * the producer thread stops. */
+        din = null;
+        for ( int i = 0; i < 100 && producer.isAlive(); i++ ) {
+            System.gc();
+            producer.join( 100 );
+        }
+        assertFalse( producer.isAlive() );
+    }
+}
@@ -0,0 +1,57 @@
+package uk.ac.starlink.votable;
+
+import java.io.IOException;
+import uk.ac.starlink.table.ArrayColumn;
+import uk.ac.starlink.table.ColumnStarTable;
+import uk.ac.starlink.table.StarTable;
+import uk.ac.starlink.util.TestCase;
+
+public class ColumnRowStoreTest extends TestCase {
+
+    public ColumnRowStoreTest( String name ) {
+        super( name );
+    }
+
+    public void testColumnStore() throws IOException {
+        int nrow = 3000;
+        Double[] dvals = new Double[ nrow ];
+        int[] ivals = new int[ nrow ];
+        String[] svals = new String[ nrow ];
+        Object[] mixed = new Object[ nrow ];
+        for ( int i = 0; i < nrow; i++ ) {
+            dvals[ i ] = i % 5 == 0 ? null : Double.valueOf( i * 0.1 );
+            ivals[ i ] = -i;
+            svals[ i ] = i % 7 == 0 ? null : "s" + i;
+            mixed[ i ] = i < 2000 ? (Object) Integer.valueOf( i )
+                                  : (Object) Long.valueOf( i );
+        }
+
+        /* The last column declares Integer content but has some Long
+         * values, which forces a change of storage part way through. */
+        ColumnStarTable t0 = ColumnStarTable.makeTableWithRows( nrow );
+        t0.addColumn( ArrayColumn.makeColumn( "d", dvals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "i", ivals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "s", svals ) );
+        t0.addColumn( ArrayColumn.makeColumn( "m", new Integer[ nrow ] ) );
+        ColumnRowStore store = new ColumnRowStore();
+        store.acceptMetadata( t0 );
+        for ( int i = 0; i < nrow; i++ ) {
+            Object[] row = t0.getRow( i );
+            row[ 3 ] = mixed[ i ];
+            store.acceptRow( row );
+        }
+        store.endRows();
+        StarTable t1 = store.getStarTable();
+        assertEquals( nrow, t1.getRowCount() );
+        assertEquals( 4, t1.getColumnCount() );
+        for ( int icol = 0; icol < 4; icol++ ) {
+            assertEquals( t0.getColumnInfo( icol ).getName(),
+                          t1.getColumnInfo( icol ).getName() );
+        }
+        for ( int i = 0; i < nrow; i++ ) {
+            Object[] row = t0.getRow( i );
+            row[ 3 ] = mixed[ i ];
+            assertArrayEquals( row, t1.getRow( i ) );
+        }
+    }
+}